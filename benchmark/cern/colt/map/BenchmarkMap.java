@@ -9,6 +9,9 @@ It is provided "as is" without expressed or implied warranty.
 package cern.colt.map;
 
 import cern.colt.Timer;
+import cern.colt.map.tdouble.AbstractLongDoubleMap;
+import cern.colt.map.tdouble.LinearOpenLongDoubleHashMap;
+import cern.colt.map.tdouble.OpenLongDoubleHashMap;
 import cern.colt.map.tint.QuickOpenIntIntHashMap;
 import cern.colt.map.tlong.AbstractLongIntMap;
 import cern.colt.map.tlong.OpenLongIntHashMap;
@@ -88,6 +91,64 @@ public class BenchmarkMap extends Object {
         System.out.print(s);
     }
 
+    /**
+     * Compares {@link OpenLongDoubleHashMap} (prime table sizes, double
+     * hashing) with {@link LinearOpenLongDoubleHashMap} (power of two table
+     * sizes, linear probing), for the keys of the cells of a sparse matrix
+     * (<tt>row*columns + column</tt>) and for random keys.
+     */
+    public static void benchmarkLongDouble(int runs, int size) {
+        long[] sequential = new long[size];
+        long[] random = new long[size];
+        long[] missing = new long[size];
+        java.util.Random r = new java.util.Random(0);
+        int columns = (int) Math.sqrt(10.0 * size);
+        for (int i = 0; i < size; i++) {
+            sequential[i] = (long) r.nextInt(columns) * columns + r.nextInt(columns);
+            random[i] = r.nextLong();
+            missing[i] = r.nextLong();
+        }
+        String[] names = { "sparse matrix keys", "random keys" };
+        long[][] keys = { sequential, random };
+        for (int k = 0; k < keys.length; k++) {
+            System.out.println(names[k] + ":");
+            for (int m = 0; m < 2; m++) {
+                Timer put = new Timer();
+                Timer get = new Timer();
+                Timer miss = new Timer();
+                Timer remove = new Timer();
+                double s = 0;
+                for (int run = 0; run < runs; run++) {
+                    AbstractLongDoubleMap map = (m == 0) ? new OpenLongDoubleHashMap()
+                            : new LinearOpenLongDoubleHashMap();
+                    put.start();
+                    for (int i = 0; i < size; i++) {
+                        map.put(keys[k][i], i);
+                    }
+                    put.stop();
+                    get.start();
+                    for (int i = 0; i < size; i++) {
+                        s += map.get(keys[k][i]);
+                    }
+                    get.stop();
+                    miss.start();
+                    for (int i = 0; i < size; i++) {
+                        s += map.get(missing[i]);
+                    }
+                    miss.stop();
+                    remove.start();
+                    for (int i = 0; i < size; i++) {
+                        map.removeKey(keys[k][i]);
+                    }
+                    remove.stop();
+                }
+                System.out.println("  " + ((m == 0) ? "OpenLongDoubleHashMap" : "LinearOpenLongDoubleHashMap")
+                        + ": put " + put.millis() + " ms, get " + get.millis() + " ms, get missing " + miss.millis()
+                        + " ms, remove " + remove.millis() + " ms (" + s + ")");
+            }
+        }
+    }
+
     /**
      * Tests various methods of this class.
      */
@@ -96,7 +157,11 @@ public class BenchmarkMap extends Object {
         int size = Integer.parseInt(args[1]);
         // boolean add = args[2].equals("add");
         String kind = args[2];
-        benchmark(runs, size, kind);
+        if (kind.equals("longdouble")) {
+            benchmarkLongDouble(runs, size);
+        } else {
+            benchmark(runs, size, kind);
+        }
     }
 
     /**
@@ -0,0 +1,407 @@
+package cern.colt.map.tdouble;
+
+import cern.colt.function.tdouble.IntDoubleProcedure;
+import cern.colt.function.tint.IntProcedure;
+import cern.colt.list.tdouble.DoubleArrayList;
+import cern.colt.list.tint.IntArrayList;
+
+/**
+ * Hash map holding (key,value) associations of type <tt>(int-->double)</tt>,
+ * which can be read and updated from many threads at once; Implemented with
+ * lock striping: the keys are split by their hash among segments, each a
+ * {@link LinearOpenIntDoubleHashMap} guarded by its own lock, so that threads
+ * only contend when they update keys of the same segment.
+ * <p>
+ * All operations on a single key, including
+ * {@link #adjustOrPutValue(int, double, double)}, are atomic. Accumulating
+ * counts or sums from many threads therefore needs no other synchronization
+ * and no boxing:
+ *
+ * <pre>
+ * ConcurrentOpenIntDoubleHashMap counts = new ConcurrentOpenIntDoubleHashMap();
+ * ...
+ * counts.adjustOrPutValue(key, 1, 1); // in any thread
+ * </pre>
+ *
+ * The methods that iterate, like {@link #forEachPair(IntDoubleProcedure)},
+ * are weakly consistent: they take a snapshot of one segment at a time, and
+ * apply the procedure without holding a lock. They see every association that
+ * was neither added nor removed during the iteration, never throw a
+ * <tt>ConcurrentModificationException</tt>, and the procedure may update the
+ * map. <tt>size()</tt> and <tt>equals</tt> are exact only when there are no
+ * concurrent updates.
+ *
+ * @see LinearOpenIntDoubleHashMap
+ * @see java.util.concurrent.ConcurrentHashMap
+ */
+public class ConcurrentOpenIntDoubleHashMap extends AbstractIntDoubleMap {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The default number of segments.
+     */
+    protected static final int defaultConcurrencyLevel = 64;
+
+    /**
+     * The segments, each of which is also its lock.
+     *
+     * @serial
+     */
+    protected LinearOpenIntDoubleHashMap segments[];
+
+    /**
+     * <tt>segments.length - 1</tt>.
+     */
+    protected int segmentMask;
+
+    /**
+     * Constructs an empty map with default capacity, concurrency level and
+     * load factors.
+     */
+    public ConcurrentOpenIntDoubleHashMap() {
+        this(defaultCapacity);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and default
+     * concurrency level and load factors.
+     *
+     * @param initialCapacity
+     *            the initial capacity of the map.
+     * @throws IllegalArgumentException
+     *             if the initial capacity is less than zero.
+     */
+    public ConcurrentOpenIntDoubleHashMap(int initialCapacity) {
+        this(initialCapacity, defaultConcurrencyLevel, defaultMinLoadFactor, defaultMaxLoadFactor);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity, concurrency
+     * level and minimum and maximum load factor.
+     *
+     * @param initialCapacity
+     *            the initial capacity.
+     * @param concurrencyLevel
+     *            the number of segments, rounded up to a power of two; about
+     *            the number of threads that can update the map without
+     *            contention.
+     * @param minLoadFactor
+     *            the minimum load factor.
+     * @param maxLoadFactor
+     *            the maximum load factor.
+     * @throws IllegalArgumentException
+     *             if
+     *
+     *             <tt>initialCapacity < 0 || concurrencyLevel < 1 || (minLoadFactor < 0.0 || minLoadFactor >= 1.0) || (maxLoadFactor <= 0.0 || maxLoadFactor >= 1.0) || (minLoadFactor >= maxLoadFactor)</tt>
+     *             .
+     */
+    public ConcurrentOpenIntDoubleHashMap(int initialCapacity, int concurrencyLevel, double minLoadFactor,
+            double maxLoadFactor) {
+        setUp(initialCapacity, minLoadFactor, maxLoadFactor);
+        if (concurrencyLevel < 1)
+            throw new IllegalArgumentException("Illegal concurrencyLevel: " + concurrencyLevel);
+        int n = 1;
+        while (n < concurrencyLevel && n < (1 << 16)) {
+            n <<= 1;
+        }
+        this.segments = new LinearOpenIntDoubleHashMap[n];
+        this.segmentMask = n - 1;
+        int capacity = (initialCapacity + n - 1) / n;
+        for (int i = 0; i < n; i++) {
+            segments[i] = new LinearOpenIntDoubleHashMap(capacity, minLoadFactor, maxLoadFactor);
+        }
+    }
+
+    /**
+     * Adds the given amount to the value associated with the given key, or
+     * associates the key with the given value if it is not contained; both
+     * atomically.
+     *
+     * @param key
+     *            the key.
+     * @param putValue
+     *            the value associated with the key if it is not contained.
+     * @param adjustAmount
+     *            the amount added to the value if the key is contained.
+     * @return the new value associated with the key.
+     */
+    public double adjustOrPutValue(int key, double putValue, double adjustAmount) {
+        LinearOpenIntDoubleHashMap segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.adjustOrPutValue(key, putValue, adjustAmount);
+        }
+    }
+
+    /**
+     * Assigns the result of a function to each value;
+     * <tt>v[i] = function(v[i])</tt>. Each segment is updated atomically.
+     *
+     * @param function
+     *            a function object taking as argument the current association's
+     *            value.
+     */
+    public void assign(cern.colt.function.tdouble.DoubleFunction function) {
+        for (LinearOpenIntDoubleHashMap segment : segments) {
+            synchronized (segment) {
+                segment.assign(function);
+            }
+        }
+    }
+
+    /**
+     * Removes all (key,value) associations from the receiver. Each segment is
+     * cleared atomically.
+     */
+    public void clear() {
+        for (LinearOpenIntDoubleHashMap segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    /**
+     * Returns a deep copy of the receiver, a weakly consistent snapshot if
+     * the receiver is updated concurrently.
+     *
+     * @return a deep copy of the receiver.
+     */
+    public Object clone() {
+        ConcurrentOpenIntDoubleHashMap copy = (ConcurrentOpenIntDoubleHashMap) super.clone();
+        copy.segments = copy.segments.clone();
+        for (int i = 0; i < segments.length; i++) {
+            synchronized (segments[i]) {
+                copy.segments[i] = (LinearOpenIntDoubleHashMap) segments[i].clone();
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the receiver contains the specified key.
+     *
+     * @return <tt>true</tt> if the receiver contains the specified key.
+     */
+    public boolean containsKey(int key) {
+        LinearOpenIntDoubleHashMap segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.containsKey(key);
+        }
+    }
+
+    /**
+     * Ensures that the receiver can hold at least the specified number of
+     * associations, spread evenly over the segments, without needing to
+     * allocate new internal memory.
+     *
+     * @param minCapacity
+     *            the desired minimum capacity.
+     */
+    public void ensureCapacity(int minCapacity) {
+        int capacity = (minCapacity + segmentMask) / segments.length;
+        for (LinearOpenIntDoubleHashMap segment : segments) {
+            synchronized (segment) {
+                segment.ensureCapacity(capacity);
+            }
+        }
+    }
+
+    /**
+     * Applies a procedure to each key of the receiver, if any, in the order of
+     * {@link #forEachPair(IntDoubleProcedure)}; weakly consistent.
+     *
+     * @param procedure
+     *            the procedure to be applied. Stops iteration if the procedure
+     *            returns <tt>false</tt>, otherwise continues.
+     * @return <tt>false</tt> if the procedure stopped before all keys where
+     *         iterated over, <tt>true</tt> otherwise.
+     */
+    public boolean forEachKey(final IntProcedure procedure) {
+        return forEachPair(new IntDoubleProcedure() {
+            public boolean apply(int key, double value) {
+                return procedure.apply(key);
+            }
+        });
+    }
+
+    /**
+     * Applies a procedure to each (key,value) pair of the receiver, if any;
+     * weakly consistent. Takes a snapshot of one segment at a time and applies
+     * the procedure to its pairs without holding a lock, so that the procedure
+     * may update the receiver.
+     *
+     * @param procedure
+     *            the procedure to be applied. Stops iteration if the procedure
+     *            returns <tt>false</tt>, otherwise continues.
+     * @return <tt>false</tt> if the procedure stopped before all keys where
+     *         iterated over, <tt>true</tt> otherwise.
+     */
+    public boolean forEachPair(final IntDoubleProcedure procedure) {
+        IntArrayList keys = new IntArrayList();
+        DoubleArrayList values = new DoubleArrayList();
+        for (LinearOpenIntDoubleHashMap segment : segments) {
+            synchronized (segment) {
+                segment.keys(keys);
+                segment.values(values);
+            }
+            int[] k = keys.elements();
+            double[] v = values.elements();
+            for (int i = 0, n = keys.size(); i < n; i++) {
+                if (!procedure.apply(k[i], v[i]))
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value associated with the specified key.
+     *
+     * @param key
+     *            the key to be searched for.
+     * @return the value associated with the specified key; <tt>0</tt> if no
+     *         such key is present.
+     */
+    public double get(int key) {
+        LinearOpenIntDoubleHashMap segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.get(key);
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt> if the receiver contains no associations; weakly
+     * consistent.
+     *
+     * @return <tt>true</tt> if the receiver is empty.
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Fills all keys contained in the receiver into the specified list, in the
+     * order of {@link #forEachPair(IntDoubleProcedure)}; weakly consistent.
+     *
+     * @param list
+     *            the list to be filled, can have any size.
+     */
+    public void keys(IntArrayList list) {
+        pairsMatching(null, list, new DoubleArrayList());
+    }
+
+    /**
+     * Fills all pairs satisfying a given condition into the specified lists,
+     * in the order of {@link #forEachPair(IntDoubleProcedure)}; weakly
+     * consistent.
+     *
+     * @param condition
+     *            the condition to be matched, <tt>null</tt> for all pairs.
+     *            Takes the current key as first and the current value as
+     *            second argument.
+     * @param keyList
+     *            the list to be filled with keys, can have any size.
+     * @param valueList
+     *            the list to be filled with values, can have any size.
+     */
+    public void pairsMatching(final IntDoubleProcedure condition, final IntArrayList keyList,
+            final DoubleArrayList valueList) {
+        keyList.clear();
+        valueList.clear();
+        forEachPair(new IntDoubleProcedure() {
+            public boolean apply(int key, double value) {
+                if (condition == null || condition.apply(key, value)) {
+                    keyList.add(key);
+                    valueList.add(value);
+                }
+                return true;
+            }
+        });
+    }
+
+    /**
+     * Associates the given key with the given value. Replaces any old
+     * <tt>(key,someOtherValue)</tt> association, if existing.
+     *
+     * @param key
+     *            the key the value shall be associated with.
+     * @param value
+     *            the value to be associated.
+     * @return <tt>true</tt> if the receiver did not already contain such a key;
+     *         <tt>false</tt> if the receiver did already contain such a key -
+     *         the new value has now replaced the formerly associated value.
+     */
+    public boolean put(int key, double value) {
+        LinearOpenIntDoubleHashMap segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.put(key, value);
+        }
+    }
+
+    /**
+     * Removes the given key with its associated element from the receiver, if
+     * present.
+     *
+     * @param key
+     *            the key to be removed from the receiver.
+     * @return <tt>true</tt> if the receiver contained the specified key,
+     *         <tt>false</tt> otherwise.
+     */
+    public boolean removeKey(int key) {
+        LinearOpenIntDoubleHashMap segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.removeKey(key);
+        }
+    }
+
+    /**
+     * Returns the number of (key,value) associations currently contained;
+     * weakly consistent.
+     *
+     * @return the number of (key,value) associations currently contained.
+     */
+    public int size() {
+        int size = 0;
+        for (LinearOpenIntDoubleHashMap segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Trims the capacity of each segment to its current size.
+     */
+    public void trimToSize() {
+        for (LinearOpenIntDoubleHashMap segment : segments) {
+            synchronized (segment) {
+                segment.trimToSize();
+            }
+        }
+    }
+
+    /**
+     * Fills all values contained in the receiver into the specified list, in
+     * the order of {@link #forEachPair(IntDoubleProcedure)}; weakly
+     * consistent.
+     *
+     * @param list
+     *            the list to be filled, can have any size.
+     */
+    public void values(DoubleArrayList list) {
+        pairsMatching(null, new IntArrayList(), list);
+    }
+
+    /**
+     * Returns the segment of the given key. Uses other bits of the hash than
+     * the slots within a segment, which are the high bits of the key times the
+     * golden ratio.
+     */
+    protected LinearOpenIntDoubleHashMap segmentFor(int key) {
+        key ^= key >>> 16;
+        key *= 0x85ebca6b;
+        key ^= key >>> 13;
+        return segments[key & segmentMask];
+    }
+}
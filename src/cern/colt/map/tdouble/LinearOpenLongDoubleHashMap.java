@@ -0,0 +1,666 @@
+package cern.colt.map.tdouble;
+
+import java.util.Arrays;
+
+import cern.colt.function.tdouble.LongDoubleProcedure;
+import cern.colt.function.tlong.LongProcedure;
+import cern.colt.list.tdouble.DoubleArrayList;
+import cern.colt.list.tlong.LongArrayList;
+
+/**
+ * Hash map holding (key,value) associations of type <tt>(long-->double)</tt>;
+ * Automatically grows and shrinks as needed; Implemented using open addressing
+ * with linear probing in tables whose capacity is a power of two. A drop-in
+ * replacement for {@link OpenLongDoubleHashMap}, which is faster for lookups
+ * and insertions:
+ * <ul>
+ * <li>The slot of a key is the high bits of the key times the golden ratio
+ * (Fibonacci hashing), a multiplication and a shift instead of two integer
+ * divisions by a prime table size.
+ * <li>Probes scan consecutive slots, which share cache lines.
+ * <li>There is no state array: free slots hold the key <tt>0</tt>, whose own
+ * association is kept outside the table. Removals shift the following keys
+ * back into place instead of leaving removed markers, so that lookups never
+ * scan removed slots.
+ * </ul>
+ * The initial capacity passed to the constructors is rounded down to a power
+ * of two, so that the table never takes more memory than requested; the
+ * capacity passed to <tt>ensureCapacity</tt> is rounded up.
+ *
+ * @see OpenLongDoubleHashMap
+ */
+public class LinearOpenLongDoubleHashMap extends AbstractLongDoubleMap {
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * The key of free slots.
+     */
+    protected static final long FREE = 0;
+
+    private static final long GOLDEN = 0x9e3779b97f4a7c15L;
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The hash table keys; {@link #FREE} for free slots.
+     *
+     * @serial
+     */
+    protected long table[];
+
+    /**
+     * The hash table values.
+     *
+     * @serial
+     */
+    protected double values[];
+
+    /**
+     * Whether the key {@link #FREE} is contained, and its value.
+     *
+     * @serial
+     */
+    protected boolean containsFree;
+
+    protected double freeValue;
+
+    /**
+     * <tt>table.length - 1</tt>.
+     */
+    protected int mask;
+
+    /**
+     * <tt>64 - log2(table.length)</tt>, the shift giving the slot of a key.
+     */
+    protected int shift;
+
+    /**
+     * Constructs an empty map with default capacity and default load factors.
+     */
+    public LinearOpenLongDoubleHashMap() {
+        this(defaultCapacity);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and default
+     * load factors.
+     *
+     * @param initialCapacity
+     *            the initial capacity of the map.
+     * @throws IllegalArgumentException
+     *             if the initial capacity is less than zero.
+     */
+    public LinearOpenLongDoubleHashMap(int initialCapacity) {
+        this(initialCapacity, defaultMinLoadFactor, defaultMaxLoadFactor);
+    }
+
+    /**
+     * Constructs an empty map with the specified initial capacity and the
+     * specified minimum and maximum load factor.
+     *
+     * @param initialCapacity
+     *            the initial capacity.
+     * @param minLoadFactor
+     *            the minimum load factor.
+     * @param maxLoadFactor
+     *            the maximum load factor.
+     * @throws IllegalArgumentException
+     *             if
+     *
+     *             <tt>initialCapacity < 0 || (minLoadFactor < 0.0 || minLoadFactor >= 1.0) || (maxLoadFactor <= 0.0 || maxLoadFactor >= 1.0) || (minLoadFactor >= maxLoadFactor)</tt>
+     *             .
+     */
+    public LinearOpenLongDoubleHashMap(int initialCapacity, double minLoadFactor, double maxLoadFactor) {
+        setUp(initialCapacity, minLoadFactor, maxLoadFactor);
+    }
+
+    /**
+     * Assigns the result of a function to each value;
+     * <tt>v[i] = function(v[i])</tt>.
+     *
+     * @param function
+     *            a function object taking as argument the current association's
+     *            value.
+     */
+    public void assign(cern.colt.function.tdouble.DoubleFunction function) {
+        // specialization for speed
+        if (function instanceof cern.jet.math.tdouble.DoubleMult) { // x[i] = mult*x[i]
+            double multiplicator = ((cern.jet.math.tdouble.DoubleMult) function).multiplicator;
+            if (multiplicator == 1)
+                return;
+            if (multiplicator == 0) {
+                clear();
+                return;
+            }
+            for (int i = table.length; i-- > 0;) {
+                if (table[i] != FREE)
+                    values[i] *= multiplicator;
+            }
+            freeValue *= multiplicator;
+        } else { // the general case x[i] = f(x[i])
+            for (int i = table.length; i-- > 0;) {
+                if (table[i] != FREE)
+                    values[i] = function.apply(values[i]);
+            }
+            if (containsFree)
+                freeValue = function.apply(freeValue);
+        }
+    }
+
+    /**
+     * Clears the receiver, then adds all (key,value) pairs of <tt>other</tt>
+     * values to it.
+     *
+     * @param other
+     *            the other map to be copied into the receiver.
+     */
+    public void assign(AbstractLongDoubleMap other) {
+        if (!(other instanceof LinearOpenLongDoubleHashMap)) {
+            super.assign(other);
+            return;
+        }
+        LinearOpenLongDoubleHashMap copy = (LinearOpenLongDoubleHashMap) other.copy();
+        this.table = copy.table;
+        this.values = copy.values;
+        this.containsFree = copy.containsFree;
+        this.freeValue = copy.freeValue;
+        this.mask = copy.mask;
+        this.shift = copy.shift;
+        this.distinct = copy.distinct;
+        this.lowWaterMark = copy.lowWaterMark;
+        this.highWaterMark = copy.highWaterMark;
+        this.minLoadFactor = copy.minLoadFactor;
+        this.maxLoadFactor = copy.maxLoadFactor;
+    }
+
+    /**
+     * Removes all (key,value) associations from the receiver. Implicitly calls
+     * <tt>trimToSize()</tt>.
+     */
+    public void clear() {
+        Arrays.fill(this.table, FREE);
+        this.containsFree = false;
+        this.distinct = 0;
+        trimToSize();
+    }
+
+    /**
+     * Returns a deep copy of the receiver.
+     *
+     * @return a deep copy of the receiver.
+     */
+    public Object clone() {
+        LinearOpenLongDoubleHashMap copy = (LinearOpenLongDoubleHashMap) super.clone();
+        copy.table = copy.table.clone();
+        copy.values = copy.values.clone();
+        return copy;
+    }
+
+    /**
+     * Adds the given amount to the value associated with the given key, or
+     * associates the key with the given value if it is not contained.
+     *
+     * @param key
+     *            the key.
+     * @param putValue
+     *            the value associated with the key if it is not contained.
+     * @param adjustAmount
+     *            the amount added to the value if the key is contained.
+     * @return the new value associated with the key.
+     */
+    public double adjustOrPutValue(long key, double putValue, double adjustAmount) {
+        if (key == FREE) {
+            if (this.containsFree) {
+                this.freeValue += adjustAmount;
+            } else {
+                put(key, putValue);
+            }
+            return this.freeValue;
+        }
+        int i = indexOfKey(key);
+        if (i >= 0) {
+            return this.values[i] += adjustAmount;
+        }
+        put(key, putValue);
+        return putValue;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the receiver contains the specified key.
+     *
+     * @return <tt>true</tt> if the receiver contains the specified key.
+     */
+    public boolean containsKey(long key) {
+        if (key == FREE)
+            return containsFree;
+        return indexOfKey(key) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if the receiver contains the specified value.
+     *
+     * @return <tt>true</tt> if the receiver contains the specified value.
+     */
+    public boolean containsValue(double value) {
+        return (containsFree && freeValue == value) || indexOfValue(value) >= 0;
+    }
+
+    /**
+     * Ensures that the receiver can hold at least the specified number of
+     * associations without needing to allocate new internal memory. If
+     * necessary, allocates new internal memory and increases the capacity of
+     * the receiver.
+     * <p>
+     * This method never need be called; it is for performance tuning only.
+     * Calling this method before <tt>put()</tt>ing a large number of
+     * associations boosts performance, because the receiver will grow only once
+     * instead of potentially many times.
+     *
+     * @param minCapacity
+     *            the desired minimum capacity.
+     */
+    public void ensureCapacity(int minCapacity) {
+        if (table.length < minCapacity) {
+            rehash(nextPrime(minCapacity));
+        }
+    }
+
+    /**
+     * Applies a procedure to each key of the receiver, if any. Iterates over
+     * the keys in no particular order; all methods that iterate over the
+     * associations use the same order.
+     *
+     * @param procedure
+     *            the procedure to be applied. Stops iteration if the procedure
+     *            returns <tt>false</tt>, otherwise continues.
+     * @return <tt>false</tt> if the procedure stopped before all keys where
+     *         iterated over, <tt>true</tt> otherwise.
+     */
+    public boolean forEachKey(LongProcedure procedure) {
+        if (containsFree && !procedure.apply(FREE))
+            return false;
+        for (int i = table.length; i-- > 0;) {
+            if (table[i] != FREE)
+                if (!procedure.apply(table[i]))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Applies a procedure to each (key,value) pair of the receiver, if any.
+     * Iteration order is guaranteed to be <i>identical</i> to the order used by
+     * method {@link #forEachKey(LongProcedure)}.
+     *
+     * @param procedure
+     *            the procedure to be applied. Stops iteration if the procedure
+     *            returns <tt>false</tt>, otherwise continues.
+     * @return <tt>false</tt> if the procedure stopped before all keys where
+     *         iterated over, <tt>true</tt> otherwise.
+     */
+    public boolean forEachPair(final LongDoubleProcedure procedure) {
+        if (containsFree && !procedure.apply(FREE, freeValue))
+            return false;
+        for (int i = table.length; i-- > 0;) {
+            if (table[i] != FREE)
+                if (!procedure.apply(table[i], values[i]))
+                    return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the value associated with the specified key. It is often a good
+     * idea to first check with {@link #containsKey(long)} whether the given key
+     * has a value associated or not, i.e. whether there exists an association
+     * for the given key or not.
+     *
+     * @param key
+     *            the key to be searched for.
+     * @return the value associated with the specified key; <tt>0</tt> if no
+     *         such key is present.
+     */
+    public double get(long key) {
+        if (key == FREE)
+            return containsFree ? freeValue : 0;
+        final long tab[] = table;
+        int i = (int) ((key * GOLDEN) >>> shift);
+        long k;
+        while ((k = tab[i]) != key) {
+            if (k == FREE)
+                return 0; // not contained
+            i = (i + 1) & mask;
+        }
+        return values[i];
+    }
+
+    /**
+     * @param key
+     *            the key to be searched in the receiver, not {@link #FREE}.
+     * @return the index where the key is contained in the receiver, else
+     *         returns -1.
+     */
+    protected int indexOfKey(long key) {
+        final long tab[] = table;
+        int i = (int) ((key * GOLDEN) >>> shift);
+        long k;
+        while ((k = tab[i]) != key) {
+            if (k == FREE)
+                return -1; // not found
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * @param value
+     *            the value to be searched in the table of the receiver.
+     * @return the index where the value is contained in the table of the
+     *         receiver, returns -1 if the value was not found.
+     */
+    protected int indexOfValue(double value) {
+        final long tab[] = table;
+        final double val[] = values;
+        for (int i = tab.length; --i >= 0;) {
+            if (tab[i] != FREE && val[i] == value)
+                return i;
+        }
+        return -1; // not found
+    }
+
+    /**
+     * Returns the first key the given value is associated with. It is often a
+     * good idea to first check with {@link #containsValue(double)} whether
+     * there exists an association from a key to this value. Search order is
+     * guaranteed to be <i>identical</i> to the order used by method
+     * {@link #forEachKey(LongProcedure)}.
+     *
+     * @param value
+     *            the value to search for.
+     * @return the first key for which holds <tt>get(key) == value</tt>; returns
+     *         <tt>Long.MIN_VALUE</tt> if no such key exists.
+     */
+    public long keyOf(double value) {
+        if (containsFree && freeValue == value)
+            return FREE;
+        int i = indexOfValue(value);
+        if (i < 0)
+            return Long.MIN_VALUE;
+        return table[i];
+    }
+
+    /**
+     * Fills all keys contained in the receiver into the specified list. Fills
+     * the list, starting at index 0. After this call returns the specified list
+     * has a new size that equals <tt>this.size()</tt>. Iteration order is
+     * guaranteed to be <i>identical</i> to the order used by method
+     * {@link #forEachKey(LongProcedure)}.
+     *
+     * @param list
+     *            the list to be filled, can have any size.
+     */
+    public void keys(LongArrayList list) {
+        list.setSize(distinct);
+        long[] elements = list.elements();
+        long[] tab = table;
+        int j = 0;
+        if (containsFree)
+            elements[j++] = FREE;
+        for (int i = tab.length; i-- > 0;) {
+            if (tab[i] != FREE)
+                elements[j++] = tab[i];
+        }
+    }
+
+    /**
+     * Fills all pairs satisfying a given condition into the specified lists.
+     * Fills into the lists, starting at index 0. After this call returns the
+     * specified lists both have a new size, the number of pairs satisfying the
+     * condition. Iteration order is guaranteed to be <i>identical</i> to the
+     * order used by method {@link #forEachKey(LongProcedure)}.
+     *
+     * @param condition
+     *            the condition to be matched. Takes the current key as first
+     *            and the current value as second argument.
+     * @param keyList
+     *            the list to be filled with keys, can have any size.
+     * @param valueList
+     *            the list to be filled with values, can have any size.
+     */
+    public void pairsMatching(final LongDoubleProcedure condition, final LongArrayList keyList,
+            final DoubleArrayList valueList) {
+        keyList.clear();
+        valueList.clear();
+        if (containsFree && condition.apply(FREE, freeValue)) {
+            keyList.add(FREE);
+            valueList.add(freeValue);
+        }
+        for (int i = table.length; i-- > 0;) {
+            if (table[i] != FREE && condition.apply(table[i], values[i])) {
+                keyList.add(table[i]);
+                valueList.add(values[i]);
+            }
+        }
+    }
+
+    /**
+     * Associates the given key with the given value. Replaces any old
+     * <tt>(key,someOtherValue)</tt> association, if existing.
+     *
+     * @param key
+     *            the key the value shall be associated with.
+     * @param value
+     *            the value to be associated.
+     * @return <tt>true</tt> if the receiver did not already contain such a key;
+     *         <tt>false</tt> if the receiver did already contain such a key -
+     *         the new value has now replaced the formerly associated value.
+     */
+    public boolean put(long key, double value) {
+        if (key == FREE) {
+            this.freeValue = value;
+            if (this.containsFree)
+                return false;
+            this.containsFree = true;
+            this.distinct++;
+            return true;
+        }
+        final long tab[] = table;
+        int i = (int) ((key * GOLDEN) >>> shift);
+        long k;
+        while ((k = tab[i]) != FREE) {
+            if (k == key) { // already contained
+                this.values[i] = value;
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        tab[i] = key;
+        this.values[i] = value;
+        this.distinct++;
+        if (this.distinct > this.highWaterMark) {
+            rehash(chooseGrowCapacity(this.distinct + 1, this.minLoadFactor, this.maxLoadFactor));
+        }
+        return true;
+    }
+
+    /**
+     * Rehashes the contents of the receiver into a new table with a smaller or
+     * larger capacity. This method is called automatically when the number of
+     * keys in the receiver exceeds the high water mark or falls below the low
+     * water mark.
+     *
+     * @param newCapacity
+     *            the new capacity, rounded up to a power of two.
+     */
+    protected void rehash(int newCapacity) {
+        newCapacity = nextPrime(newCapacity);
+        if (newCapacity <= this.distinct)
+            throw new InternalError();
+
+        long oldTable[] = table;
+        double oldValues[] = values;
+
+        long newTable[] = new long[newCapacity];
+        double newValues[] = new double[newCapacity];
+        int newMask = newCapacity - 1;
+        int newShift = 64 - Integer.numberOfTrailingZeros(newCapacity);
+
+        for (int i = oldTable.length; i-- > 0;) {
+            long key = oldTable[i];
+            if (key != FREE) {
+                int j = (int) ((key * GOLDEN) >>> newShift);
+                while (newTable[j] != FREE) {
+                    j = (j + 1) & newMask;
+                }
+                newTable[j] = key;
+                newValues[j] = oldValues[i];
+            }
+        }
+
+        this.table = newTable;
+        this.values = newValues;
+        this.mask = newMask;
+        this.shift = newShift;
+        this.lowWaterMark = chooseLowWaterMark(newCapacity, this.minLoadFactor);
+        this.highWaterMark = chooseHighWaterMark(newCapacity, this.maxLoadFactor);
+    }
+
+    /**
+     * Removes the given key with its associated element from the receiver, if
+     * present.
+     *
+     * @param key
+     *            the key to be removed from the receiver.
+     * @return <tt>true</tt> if the receiver contained the specified key,
+     *         <tt>false</tt> otherwise.
+     */
+    public boolean removeKey(long key) {
+        if (key == FREE) {
+            if (!this.containsFree)
+                return false;
+            this.containsFree = false;
+            this.freeValue = 0;
+        } else {
+            int i = indexOfKey(key);
+            if (i < 0)
+                return false; // key not contained
+            shiftKeys(i);
+        }
+        this.distinct--;
+
+        if (this.distinct < this.lowWaterMark) {
+            rehash(chooseShrinkCapacity(this.distinct, this.minLoadFactor, this.maxLoadFactor));
+        }
+        return true;
+    }
+
+    /**
+     * Frees the given slot, and moves back the following keys of its cluster
+     * that would otherwise not be found any more.
+     *
+     * @param free
+     *            the slot to free.
+     */
+    protected void shiftKeys(int free) {
+        final long tab[] = table;
+        final double val[] = values;
+        int i = (free + 1) & mask;
+        long key;
+        while ((key = tab[i]) != FREE) {
+            int slot = (int) ((key * GOLDEN) >>> shift);
+            // move the key unless its slot lies cyclically in (free, i]
+            if (free <= i ? (slot <= free || slot > i) : (slot <= free && slot > i)) {
+                tab[free] = key;
+                val[free] = val[i];
+                free = i;
+            }
+            i = (i + 1) & mask;
+        }
+        tab[free] = FREE;
+    }
+
+    /**
+     * Returns the smallest power of two that is not less than the desired
+     * capacity, and at least 2; the tables of this map have power of two
+     * capacities.
+     *
+     * @param desiredCapacity
+     *            the capacity desired by the user.
+     * @return the capacity which should be used for a hashtable.
+     */
+    protected int nextPrime(int desiredCapacity) {
+        if (desiredCapacity >= MAXIMUM_CAPACITY)
+            return MAXIMUM_CAPACITY;
+        return Math.max(2, Integer.highestOneBit(Math.max(desiredCapacity - 1, 1)) << 1);
+    }
+
+    /**
+     * Initializes the receiver.
+     *
+     * @param initialCapacity
+     *            the initial capacity of the receiver.
+     * @param minLoadFactor
+     *            the minLoadFactor of the receiver.
+     * @param maxLoadFactor
+     *            the maxLoadFactor of the receiver.
+     * @throws IllegalArgumentException
+     *             if
+     *
+     *             <tt>initialCapacity < 0 || (minLoadFactor < 0.0 || minLoadFactor >= 1.0) || (maxLoadFactor <= 0.0 || maxLoadFactor >= 1.0) || (minLoadFactor >= maxLoadFactor)</tt>
+     *             .
+     */
+    protected void setUp(int initialCapacity, double minLoadFactor, double maxLoadFactor) {
+        super.setUp(initialCapacity, minLoadFactor, maxLoadFactor);
+        int capacity = Math.max(2, Integer.highestOneBit(Math.min(initialCapacity, MAXIMUM_CAPACITY)));
+
+        this.table = new long[capacity];
+        this.values = new double[capacity];
+        this.mask = capacity - 1;
+        this.shift = 64 - Integer.numberOfTrailingZeros(capacity);
+        this.containsFree = false;
+        this.minLoadFactor = minLoadFactor;
+        this.maxLoadFactor = maxLoadFactor;
+        this.distinct = 0;
+
+        // lowWaterMark will be established upon first expansion, see
+        // OpenLongDoubleHashMap.setUp(...)
+        this.lowWaterMark = 0;
+        this.highWaterMark = chooseHighWaterMark(capacity, this.maxLoadFactor);
+    }
+
+    /**
+     * Trims the capacity of the receiver to be the receiver's current size.
+     * Releases any superfluous internal memory. An application can use this
+     * operation to minimize the storage of the receiver.
+     */
+    public void trimToSize() {
+        int newCapacity = nextPrime((int) (1 + 1.2 * size()));
+        if (table.length > newCapacity) {
+            rehash(newCapacity);
+        }
+    }
+
+    /**
+     * Fills all values contained in the receiver into the specified list. Fills
+     * the list, starting at index 0. After this call returns the specified list
+     * has a new size that equals <tt>this.size()</tt>. Iteration order is
+     * guaranteed to be <i>identical</i> to the order used by method
+     * {@link #forEachKey(LongProcedure)}.
+     *
+     * @param list
+     *            the list to be filled, can have any size.
+     */
+    public void values(DoubleArrayList list) {
+        list.setSize(distinct);
+        double[] elements = list.elements();
+        long[] tab = table;
+        double[] val = values;
+        int j = 0;
+        if (containsFree)
+            elements[j++] = freeValue;
+        for (int i = tab.length; i-- > 0;) {
+            if (tab[i] != FREE)
+                elements[j++] = val[i];
+        }
+    }
+}
@@ -287,7 +287,7 @@ public abstract class AbstractMatrix2D extends AbstractMatrix {
      */
 
     public long size() {
-        return rows * columns;
+        return (long) rows * columns;
     }
 
     /**
@@ -352,8 +352,6 @@ public abstract class AbstractMatrix3D extends AbstractMatrix {
             int sliceStride, int rowStride, int columnStride) {
         if (slices < 0 || rows < 0 || columns < 0)
             throw new IllegalArgumentException("negative size");
-        if ((double) slices * rows * columns > Integer.MAX_VALUE)
-            throw new IllegalArgumentException("matrix too large");
 
         this.slices = slices;
         this.rows = rows;
@@ -368,6 +366,8 @@ public abstract class AbstractMatrix3D extends AbstractMatrix {
         this.columnStride = columnStride;
 
         this.isNoView = true;
+        if ((double) slices * rows * columns > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("matrix too large");
     }
 
     protected int[] shape() {
@@ -383,7 +383,7 @@ public abstract class AbstractMatrix3D extends AbstractMatrix {
      */
 
     public long size() {
-        return slices * rows * columns;
+        return (long) slices * rows * columns;
     }
 
     /**
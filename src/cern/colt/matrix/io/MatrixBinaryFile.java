@@ -0,0 +1,646 @@
+package cern.colt.matrix.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.zip.CRC32;
+
+import cern.colt.matrix.tdcomplex.DComplexMatrix2D;
+import cern.colt.matrix.tdcomplex.impl.DenseDComplexMatrix2D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.MappedDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseCCDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
+
+/**
+ * Reads and writes matrices in a binary format that can be loaded without
+ * parsing.
+ * <p>
+ * A file starts with a header of 64 bytes:
+ * <table border="1">
+ * <tr><th>offset</th><th>type</th><th>content</th></tr>
+ * <tr><td>0</td><td>int</td><td>magic number <tt>0x434F4C54</tt> ("COLT"), big endian</td></tr>
+ * <tr><td>4</td><td>byte</td><td>byte order of the rest of the file: 0 big endian, 1 little endian</td></tr>
+ * <tr><td>5</td><td>byte</td><td>version of the format, currently 1</td></tr>
+ * <tr><td>6</td><td>byte</td><td>element type: 0 <tt>double</tt>, 1 <tt>double</tt> complex</td></tr>
+ * <tr><td>7</td><td>byte</td><td>layout: 0 dense row major, 1 dense column major, 2 sparse row compressed, 3 sparse column compressed</td></tr>
+ * <tr><td>8</td><td>int</td><td>number of rows</td></tr>
+ * <tr><td>12</td><td>int</td><td>number of columns</td></tr>
+ * <tr><td>16</td><td>long</td><td>number of stored elements</td></tr>
+ * <tr><td>24</td><td>long</td><td>row stride of a dense layout (in elements)</td></tr>
+ * <tr><td>32</td><td>long</td><td>column stride of a dense layout (in elements)</td></tr>
+ * <tr><td>40</td><td>int</td><td>flags: bit 0 is set if the checksum is present</td></tr>
+ * <tr><td>44</td><td>int</td><td>reserved</td></tr>
+ * <tr><td>48</td><td>long</td><td>CRC-32 of all bytes following the header</td></tr>
+ * <tr><td>56</td><td>long</td><td>reserved</td></tr>
+ * </table>
+ * <p>
+ * A dense matrix is followed by its elements (real and imaginary parts
+ * interleaved for complex matrices). A compressed matrix is followed by its
+ * pointers, its indexes, padding to a multiple of 8 bytes and its values.
+ * <p>
+ * Files are written through a {@link FileChannel} and read by mapping them
+ * into memory, so that loading is bounded by the bandwidth of the disk. A dense
+ * <tt>double</tt> matrix written in the native byte order can be mapped by
+ * {@link #mapDoubleMatrix2D(File, boolean)} without copying any element.
+ */
+public final class MatrixBinaryFile {
+
+    /**
+     * The magic number identifying a binary matrix file.
+     */
+    public static final int MAGIC = 0x434F4C54;
+
+    /**
+     * The version of the format written by this class.
+     */
+    public static final int VERSION = 1;
+
+    /**
+     * The size of the header, in bytes.
+     */
+    public static final int HEADER_SIZE = 64;
+
+    static final int DOUBLE = 0;
+
+    static final int DCOMPLEX = 1;
+
+    static final int DENSE_ROW_MAJOR = 0;
+
+    static final int DENSE_COLUMN_MAJOR = 1;
+
+    static final int ROW_COMPRESSED = 2;
+
+    static final int COLUMN_COMPRESSED = 3;
+
+    private static final int CHECKSUM = 1;
+
+    /*
+     * Size of the buffer used for writing and for computing checksums.
+     */
+    private static final int BUFFER_SIZE = 1 << 20;
+
+    /*
+     * Maximum number of bytes mapped at once.
+     */
+    private static final int CHUNK_SIZE = 1 << 30;
+
+    private MatrixBinaryFile() {
+    }
+
+    /**
+     * Header of a binary matrix file.
+     */
+    private static final class Header {
+
+        ByteOrder order;
+
+        int type;
+
+        int layout;
+
+        int rows;
+
+        int columns;
+
+        long length;
+
+        long rowStride;
+
+        long columnStride;
+
+        int flags;
+
+        long checksum;
+
+        ByteBuffer toBuffer() {
+            ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE);
+            b.order(ByteOrder.BIG_ENDIAN).putInt(MAGIC);
+            b.order(order);
+            b.put((byte) (order == ByteOrder.BIG_ENDIAN ? 0 : 1));
+            b.put((byte) VERSION);
+            b.put((byte) type);
+            b.put((byte) layout);
+            b.putInt(rows);
+            b.putInt(columns);
+            b.putLong(length);
+            b.putLong(rowStride);
+            b.putLong(columnStride);
+            b.putInt(flags);
+            b.putInt(0);
+            b.putLong(checksum);
+            b.putLong(0);
+            b.flip();
+            return b;
+        }
+
+        static Header read(FileChannel channel, File file) throws IOException {
+            ByteBuffer b = ByteBuffer.allocate(HEADER_SIZE);
+            while (b.hasRemaining()) {
+                if (channel.read(b, b.position()) < 0) {
+                    throw new IOException("The file " + file + " is not a binary matrix file.");
+                }
+            }
+            b.flip();
+            if (b.getInt() != MAGIC) {
+                throw new IOException("The file " + file + " is not a binary matrix file.");
+            }
+            Header h = new Header();
+            h.order = b.get() == 0 ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+            b.order(h.order);
+            int version = b.get();
+            if (version != VERSION) {
+                throw new IOException("Unsupported version " + version + " of the file " + file + ".");
+            }
+            h.type = b.get();
+            h.layout = b.get();
+            h.rows = b.getInt();
+            h.columns = b.getInt();
+            h.length = b.getLong();
+            h.rowStride = b.getLong();
+            h.columnStride = b.getLong();
+            h.flags = b.getInt();
+            b.getInt();
+            h.checksum = b.getLong();
+            return h;
+        }
+    }
+
+    /**
+     * Writes the payload through a buffer, computing its checksum.
+     */
+    private static final class Output {
+
+        private final FileChannel channel;
+
+        private final ByteBuffer buffer;
+
+        private final CRC32 crc;
+
+        private long position = HEADER_SIZE;
+
+        Output(FileChannel channel, ByteOrder order, boolean checksum) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(BUFFER_SIZE).order(order);
+            this.crc = checksum ? new CRC32() : null;
+        }
+
+        void put(int[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                int n = Math.min(length, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, offset, n);
+                buffer.position(buffer.position() + 4 * n);
+                offset += n;
+                length -= n;
+                if (buffer.remaining() < 8) {
+                    flush();
+                }
+            }
+        }
+
+        void put(double[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                int n = Math.min(length, buffer.remaining() / 8);
+                buffer.asDoubleBuffer().put(values, offset, n);
+                buffer.position(buffer.position() + 8 * n);
+                offset += n;
+                length -= n;
+                if (buffer.remaining() < 8) {
+                    flush();
+                }
+            }
+        }
+
+        void put(double value) throws IOException {
+            buffer.putDouble(value);
+            if (buffer.remaining() < 8) {
+                flush();
+            }
+        }
+
+        void align() throws IOException {
+            while ((position + buffer.position()) % 8 != 0) {
+                buffer.put((byte) 0);
+            }
+            if (buffer.remaining() < 8) {
+                flush();
+            }
+        }
+
+        long flush() throws IOException {
+            buffer.flip();
+            if (crc != null) {
+                crc.update(buffer.array(), 0, buffer.limit());
+            }
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+            buffer.clear();
+            return crc == null ? 0 : crc.getValue();
+        }
+    }
+
+    /**
+     * Reads the payload by mapping it into memory.
+     */
+    private static final class Input {
+
+        private final FileChannel channel;
+
+        private final ByteOrder order;
+
+        private long position = HEADER_SIZE;
+
+        Input(FileChannel channel, ByteOrder order) {
+            this.channel = channel;
+            this.order = order;
+        }
+
+        void get(int[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                int n = Math.min(length, CHUNK_SIZE / 4);
+                map(4L * n).asIntBuffer().get(values, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void get(double[] values, int offset, int length) throws IOException {
+            while (length > 0) {
+                int n = Math.min(length, CHUNK_SIZE / 8);
+                map(8L * n).asDoubleBuffer().get(values, offset, n);
+                offset += n;
+                length -= n;
+            }
+        }
+
+        void align() {
+            position = (position + 7) & ~7L;
+        }
+
+        private ByteBuffer map(long size) throws IOException {
+            if (position + size > channel.size()) {
+                throw new IOException("Unexpected end of file.");
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+            position += size;
+            return buffer.order(order);
+        }
+    }
+
+    /**
+     * Writes a matrix in the native byte order, with a checksum.
+     *
+     * @param A
+     *            the matrix to be written
+     * @param file
+     *            the file to be written, replaced if it exists
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public static void write(DoubleMatrix2D A, File file) throws IOException {
+        write(A, file, ByteOrder.nativeOrder(), true);
+    }
+
+    /**
+     * Writes a matrix. Row and column compressed matrices keep their layout,
+     * {@link SparseDoubleMatrix2D} is written row compressed, a
+     * {@link DenseColumnDoubleMatrix2D} is written in column major order and
+     * all other matrices in row major order.
+     *
+     * @param A
+     *            the matrix to be written
+     * @param file
+     *            the file to be written, replaced if it exists
+     * @param order
+     *            the byte order of the file
+     * @param checksum
+     *            if true, a checksum of the elements is stored
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public static void write(DoubleMatrix2D A, File file, ByteOrder order, boolean checksum) throws IOException {
+        if (A instanceof SparseDoubleMatrix2D) {
+            A = ((SparseDoubleMatrix2D) A).getRowCompressed(false);
+        }
+        Header h = new Header();
+        h.order = order;
+        h.type = DOUBLE;
+        h.rows = A.rows();
+        h.columns = A.columns();
+        h.flags = checksum ? CHECKSUM : 0;
+        RandomAccessFile raf = open(file);
+        try {
+            FileChannel channel = raf.getChannel();
+            Output out = new Output(channel, order, checksum);
+            if (A instanceof SparseRCDoubleMatrix2D) {
+                SparseRCDoubleMatrix2D S = (SparseRCDoubleMatrix2D) A;
+                h.layout = ROW_COMPRESSED;
+                writeCompressed(out, h, S.getRowPointers(), S.getColumnIndexes(), S.getValues(), h.rows);
+            } else if (A instanceof SparseCCDoubleMatrix2D) {
+                SparseCCDoubleMatrix2D S = (SparseCCDoubleMatrix2D) A;
+                h.layout = COLUMN_COMPRESSED;
+                writeCompressed(out, h, S.getColumnPointers(), S.getRowIndexes(), S.getValues(), h.columns);
+            } else if (A instanceof DenseColumnDoubleMatrix2D) {
+                h.layout = DENSE_COLUMN_MAJOR;
+                h.length = A.size();
+                h.rowStride = 1;
+                h.columnStride = h.rows;
+                if (A.isView()) {
+                    writeRows(out, A.viewDice());
+                } else {
+                    out.put((double[]) A.elements(), 0, (int) A.size());
+                }
+            } else {
+                h.layout = DENSE_ROW_MAJOR;
+                h.length = A.size();
+                h.rowStride = h.columns;
+                h.columnStride = 1;
+                if (A instanceof DenseDoubleMatrix2D && !A.isView()) {
+                    out.put((double[]) A.elements(), 0, (int) A.size());
+                } else {
+                    writeRows(out, A);
+                }
+            }
+            h.checksum = out.flush();
+            channel.write(h.toBuffer(), 0);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes a complex matrix in the native byte order, with a checksum.
+     *
+     * @param A
+     *            the matrix to be written
+     * @param file
+     *            the file to be written, replaced if it exists
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public static void write(DComplexMatrix2D A, File file) throws IOException {
+        write(A, file, ByteOrder.nativeOrder(), true);
+    }
+
+    /**
+     * Writes a complex matrix in row major order.
+     *
+     * @param A
+     *            the matrix to be written
+     * @param file
+     *            the file to be written, replaced if it exists
+     * @param order
+     *            the byte order of the file
+     * @param checksum
+     *            if true, a checksum of the elements is stored
+     * @throws IOException
+     *             if an I/O error occurs
+     */
+    public static void write(DComplexMatrix2D A, File file, ByteOrder order, boolean checksum) throws IOException {
+        Header h = new Header();
+        h.order = order;
+        h.type = DCOMPLEX;
+        h.layout = DENSE_ROW_MAJOR;
+        h.rows = A.rows();
+        h.columns = A.columns();
+        h.length = A.size();
+        h.rowStride = h.columns;
+        h.columnStride = 1;
+        h.flags = checksum ? CHECKSUM : 0;
+        RandomAccessFile raf = open(file);
+        try {
+            FileChannel channel = raf.getChannel();
+            Output out = new Output(channel, order, checksum);
+            if (A instanceof DenseDComplexMatrix2D && !A.isView()) {
+                out.put((double[]) A.elements(), 0, 2 * (int) A.size());
+            } else {
+                for (int r = 0; r < h.rows; r++) {
+                    for (int c = 0; c < h.columns; c++) {
+                        double[] elem = A.getQuick(r, c);
+                        out.put(elem[0]);
+                        out.put(elem[1]);
+                    }
+                }
+            }
+            h.checksum = out.flush();
+            channel.write(h.toBuffer(), 0);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads a matrix into the Java heap. Dense matrices are returned as
+     * {@link DenseDoubleMatrix2D} or {@link DenseColumnDoubleMatrix2D},
+     * compressed matrices as {@link SparseRCDoubleMatrix2D} or
+     * {@link SparseCCDoubleMatrix2D}.
+     *
+     * @param file
+     *            the file to be read
+     * @return the matrix
+     * @throws IOException
+     *             if an I/O error occurs, the file does not hold a
+     *             <tt>double</tt> matrix or its checksum does not match
+     */
+    public static DoubleMatrix2D readDoubleMatrix2D(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            Header h = Header.read(channel, file);
+            checkType(h, DOUBLE, file);
+            verify(channel, h, file);
+            Input in = new Input(channel, h.order);
+            switch (h.layout) {
+            case DENSE_ROW_MAJOR: {
+                DenseDoubleMatrix2D A = new DenseDoubleMatrix2D(h.rows, h.columns);
+                in.get(A.elements(), 0, (int) A.size());
+                return A;
+            }
+            case DENSE_COLUMN_MAJOR: {
+                DenseColumnDoubleMatrix2D A = new DenseColumnDoubleMatrix2D(h.rows, h.columns);
+                in.get(A.elements(), 0, (int) A.size());
+                return A;
+            }
+            case ROW_COMPRESSED: {
+                int[] pointers = new int[h.rows + 1];
+                int[] indexes = new int[(int) h.length];
+                double[] values = new double[(int) h.length];
+                readCompressed(in, pointers, indexes, values);
+                return new SparseRCDoubleMatrix2D(h.rows, h.columns, pointers, indexes, values);
+            }
+            case COLUMN_COMPRESSED: {
+                int[] pointers = new int[h.columns + 1];
+                int[] indexes = new int[(int) h.length];
+                double[] values = new double[(int) h.length];
+                readCompressed(in, pointers, indexes, values);
+                return new SparseCCDoubleMatrix2D(h.rows, h.columns, pointers, indexes, values);
+            }
+            default:
+                throw new IOException("Unsupported layout " + h.layout + " of the file " + file + ".");
+            }
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Maps a matrix into memory. A dense matrix stored in the native byte
+     * order is returned as a {@link MappedDoubleMatrix2D} (a dice view of one
+     * for the column major layout) sharing the elements of the file, without
+     * reading them; all other matrices are read by
+     * {@link #readDoubleMatrix2D(File)}. The checksum of a mapped matrix is not
+     * verified, since this would read the whole file; use
+     * {@link #verify(File)} for this.
+     *
+     * @param file
+     *            the file to be mapped
+     * @param readOnly
+     *            if false, changes of the returned mapped matrix are written to
+     *            the file, which invalidates its checksum
+     * @return the matrix
+     * @throws IOException
+     *             if an I/O error occurs or the file does not hold a
+     *             <tt>double</tt> matrix
+     */
+    public static DoubleMatrix2D mapDoubleMatrix2D(File file, boolean readOnly) throws IOException {
+        Header h;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            h = Header.read(raf.getChannel(), file);
+        } finally {
+            raf.close();
+        }
+        checkType(h, DOUBLE, file);
+        if (h.order != ByteOrder.nativeOrder()) {
+            return readDoubleMatrix2D(file);
+        }
+        switch (h.layout) {
+        case DENSE_ROW_MAJOR:
+            return new MappedDoubleMatrix2D(h.rows, h.columns, file, HEADER_SIZE, readOnly);
+        case DENSE_COLUMN_MAJOR:
+            return new MappedDoubleMatrix2D(h.columns, h.rows, file, HEADER_SIZE, readOnly).viewDice();
+        default:
+            return readDoubleMatrix2D(file);
+        }
+    }
+
+    /**
+     * Reads a complex matrix into the Java heap.
+     *
+     * @param file
+     *            the file to be read
+     * @return the matrix
+     * @throws IOException
+     *             if an I/O error occurs, the file does not hold a complex
+     *             matrix or its checksum does not match
+     */
+    public static DComplexMatrix2D readDComplexMatrix2D(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            Header h = Header.read(channel, file);
+            checkType(h, DCOMPLEX, file);
+            if (h.layout != DENSE_ROW_MAJOR) {
+                throw new IOException("Unsupported layout " + h.layout + " of the file " + file + ".");
+            }
+            verify(channel, h, file);
+            DenseDComplexMatrix2D A = new DenseDComplexMatrix2D(h.rows, h.columns);
+            new Input(channel, h.order).get(A.elements(), 0, 2 * (int) A.size());
+            return A;
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Checks the checksum of a binary matrix file.
+     *
+     * @param file
+     *            the file to be checked
+     * @return false if the file holds a checksum that does not match its
+     *         elements, true otherwise
+     * @throws IOException
+     *             if an I/O error occurs or the file is not a binary matrix
+     *             file
+     */
+    public static boolean verify(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            Header h = Header.read(channel, file);
+            return (h.flags & CHECKSUM) == 0 || checksum(channel) == h.checksum;
+        } finally {
+            raf.close();
+        }
+    }
+
+    private static void checkType(Header h, int type, File file) throws IOException {
+        if (h.type != type) {
+            throw new IOException("The file " + file + " holds elements of type " + h.type + ", expected " + type
+                    + ".");
+        }
+    }
+
+    private static long checksum(FileChannel channel) throws IOException {
+        CRC32 crc = new CRC32();
+        byte[] bytes = new byte[BUFFER_SIZE];
+        long size = channel.size();
+        for (long position = HEADER_SIZE; position < size; position += CHUNK_SIZE) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position,
+                    Math.min(CHUNK_SIZE, size - position));
+            while (buffer.hasRemaining()) {
+                int n = Math.min(bytes.length, buffer.remaining());
+                buffer.get(bytes, 0, n);
+                crc.update(bytes, 0, n);
+            }
+        }
+        return crc.getValue();
+    }
+
+    private static RandomAccessFile open(File file) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.setLength(0);
+        return raf;
+    }
+
+    private static void readCompressed(Input in, int[] pointers, int[] indexes, double[] values) throws IOException {
+        in.get(pointers, 0, pointers.length);
+        in.get(indexes, 0, indexes.length);
+        in.align();
+        in.get(values, 0, values.length);
+    }
+
+    private static void verify(FileChannel channel, Header h, File file) throws IOException {
+        if ((h.flags & CHECKSUM) != 0 && checksum(channel) != h.checksum) {
+            throw new IOException("The checksum of the file " + file + " does not match.");
+        }
+    }
+
+    private static void writeCompressed(Output out, Header h, int[] pointers, int[] indexes, double[] values, int n)
+            throws IOException {
+        int nnz = pointers[n];
+        h.length = nnz;
+        out.put(pointers, 0, n + 1);
+        out.put(indexes, 0, nnz);
+        out.align();
+        out.put(values, 0, nnz);
+    }
+
+    private static void writeRows(Output out, DoubleMatrix2D A) throws IOException {
+        int rows = A.rows();
+        int columns = A.columns();
+        for (int r = 0; r < rows; r++) {
+            for (int c = 0; c < columns; c++) {
+                out.put(A.getQuick(r, c));
+            }
+        }
+    }
+}
@@ -21,6 +21,7 @@ import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_2D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 2-d matrix holding <tt>complex</tt> elements. <b>Implementation:</b>
@@ -60,8 +61,6 @@ import edu.emory.mathcs.utils.ConcurrencyUtils;
 public class DenseColumnDComplexMatrix2D extends DComplexMatrix2D {
     static final long serialVersionUID = 1020177651L;
 
-    private DoubleFFT_2D fft2;
-
     /**
      * The elements of this matrix. elements are stored in row major. Complex
      * data is represented by 2 double values in sequence, i.e. elements[idx]
@@ -1179,14 +1178,19 @@ public class DenseColumnDComplexMatrix2D extends DComplexMatrix2D {
      */
     public void fft2() {
         DComplexMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                fft2.complexForward((double[]) transpose.elements());
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.complexForward((double[]) transpose.elements());
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1196,24 +1200,26 @@ public class DenseColumnDComplexMatrix2D extends DComplexMatrix2D {
     public void fftColumns() {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDComplexMatrix1D) viewColumn(c)).fft();
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = j * k;
+                    final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int c = firstColumn; c < lastColumn; c++) {
+                                ((DenseDComplexMatrix1D) viewColumn(c)).fft();
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = 0; c < columns; c++) {
                 ((DenseDComplexMatrix1D) viewColumn(c)).fft();
@@ -1227,24 +1233,26 @@ public class DenseColumnDComplexMatrix2D extends DComplexMatrix2D {
     public void fftRows() {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDComplexMatrix1D) viewRow(r)).fft();
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, rows);
+                Future<?>[] futures = new Future[nthreads];
+                int k = rows / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstRow = j * k;
+                    final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int r = firstRow; r < lastRow; r++) {
+                                ((DenseDComplexMatrix1D) viewRow(r)).fft();
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int r = 0; r < rows; r++) {
                 ((DenseDComplexMatrix1D) viewRow(r)).fft();
@@ -1482,14 +1490,19 @@ public class DenseColumnDComplexMatrix2D extends DComplexMatrix2D {
      */
     public void ifft2(boolean scale) {
         DComplexMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                fft2.complexInverse((double[]) transpose.elements(), scale);
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.complexInverse((double[]) transpose.elements(), scale);
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1502,24 +1515,26 @@ public class DenseColumnDComplexMatrix2D extends DComplexMatrix2D {
     public void ifftColumns(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDComplexMatrix1D) viewColumn(c)).ifft(scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = j * k;
+                    final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int c = firstColumn; c < lastColumn; c++) {
+                                ((DenseDComplexMatrix1D) viewColumn(c)).ifft(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = 0; c < columns; c++) {
                 ((DenseDComplexMatrix1D) viewColumn(c)).ifft(scale);
@@ -1537,24 +1552,26 @@ public class DenseColumnDComplexMatrix2D extends DComplexMatrix2D {
     public void ifftRows(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDComplexMatrix1D) viewRow(r)).ifft(scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, rows);
+                Future<?>[] futures = new Future[nthreads];
+                int k = rows / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstRow = j * k;
+                    final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int r = firstRow; r < lastRow; r++) {
+                                ((DenseDComplexMatrix1D) viewRow(r)).ifft(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int r = 0; r < rows; r++) {
                 ((DenseDComplexMatrix1D) viewRow(r)).ifft(scale);
@@ -23,6 +23,7 @@ import cern.jet.math.tdcomplex.DComplex;
 import cern.jet.math.tdcomplex.DComplexFunctions;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 1-d matrix (aka <i>vector</i>) holding <tt>complex</tt> elements.
@@ -39,8 +40,6 @@ public class DenseDComplexMatrix1D extends DComplexMatrix1D {
 
     private static final long serialVersionUID = 1L;
 
-    private DoubleFFT_1D fft;
-
     /**
      * The elements of this matrix. Complex data is represented by 2 double
      * values in sequence, i.e. elements[zero + 2 * k * stride] constitute real
@@ -839,19 +838,24 @@ public class DenseDComplexMatrix1D extends DComplexMatrix1D {
      * number.
      */
     public void fft() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft == null) {
-            fft = new DoubleFFT_1D(size);
-        }
-        if (isNoView) {
-            fft.complexForward(elements);
-        } else {
-            DComplexMatrix1D copy = this.copy();
-            fft.complexForward((double[]) copy.elements());
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_1D fft = TransformPlanCache.acquire(DoubleFFT_1D.class, size);
+            try {
+                if (isNoView) {
+                    fft.complexForward(elements);
+                } else {
+                    DComplexMatrix1D copy = this.copy();
+                    fft.complexForward((double[]) copy.elements());
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public double[] elements() {
@@ -966,19 +970,24 @@ public class DenseDComplexMatrix1D extends DComplexMatrix1D {
      *            if true, then scaling is performed.
      */
     public void ifft(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft == null) {
-            fft = new DoubleFFT_1D(size);
-        }
-        if (isNoView) {
-            fft.complexInverse(elements, scale);
-        } else {
-            DComplexMatrix1D copy = this.copy();
-            fft.complexInverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_1D fft = TransformPlanCache.acquire(DoubleFFT_1D.class, size);
+            try {
+                if (isNoView) {
+                    fft.complexInverse(elements, scale);
+                } else {
+                    DComplexMatrix1D copy = this.copy();
+                    fft.complexInverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public DComplexMatrix1D like(int size) {
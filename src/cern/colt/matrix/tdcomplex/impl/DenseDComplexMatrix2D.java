@@ -20,6 +20,7 @@ import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_2D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 2-d matrix holding <tt>complex</tt> elements. <b>Implementation:</b>
@@ -59,8 +60,6 @@ import edu.emory.mathcs.utils.ConcurrencyUtils;
 public class DenseDComplexMatrix2D extends DComplexMatrix2D {
     static final long serialVersionUID = 1020177651L;
 
-    private DoubleFFT_2D fft2;
-
     /**
      * The elements of this matrix. elements are stored in row major. Complex
      * data is represented by 2 double values in sequence, i.e. elements[idx]
@@ -1179,19 +1178,24 @@ public class DenseDComplexMatrix2D extends DComplexMatrix2D {
      * Computes the 2D discrete Fourier transform (DFT) of this matrix.
      */
     public void fft2() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            fft2.complexForward(elements);
-        } else {
-            DComplexMatrix2D copy = this.copy();
-            fft2.complexForward((double[]) copy.elements());
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    fft2.complexForward(elements);
+                } else {
+                    DComplexMatrix2D copy = this.copy();
+                    fft2.complexForward((double[]) copy.elements());
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1201,24 +1205,26 @@ public class DenseDComplexMatrix2D extends DComplexMatrix2D {
     public void fftColumns() {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDComplexMatrix1D) viewColumn(c)).fft();
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = j * k;
+                    final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int c = firstColumn; c < lastColumn; c++) {
+                                ((DenseDComplexMatrix1D) viewColumn(c)).fft();
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = 0; c < columns; c++) {
                 ((DenseDComplexMatrix1D) viewColumn(c)).fft();
@@ -1232,24 +1238,26 @@ public class DenseDComplexMatrix2D extends DComplexMatrix2D {
     public void fftRows() {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDComplexMatrix1D) viewRow(r)).fft();
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, rows);
+                Future<?>[] futures = new Future[nthreads];
+                int k = rows / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstRow = j * k;
+                    final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int r = firstRow; r < lastRow; r++) {
+                                ((DenseDComplexMatrix1D) viewRow(r)).fft();
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int r = 0; r < rows; r++) {
                 ((DenseDComplexMatrix1D) viewRow(r)).fft();
@@ -1487,19 +1495,24 @@ public class DenseDComplexMatrix2D extends DComplexMatrix2D {
      * 
      */
     public void ifft2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            fft2.complexInverse(elements, scale);
-        } else {
-            DComplexMatrix2D copy = this.copy();
-            fft2.complexInverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    fft2.complexInverse(elements, scale);
+                } else {
+                    DComplexMatrix2D copy = this.copy();
+                    fft2.complexInverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1512,24 +1525,26 @@ public class DenseDComplexMatrix2D extends DComplexMatrix2D {
     public void ifftColumns(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDComplexMatrix1D) viewColumn(c)).ifft(scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = j * k;
+                    final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int c = firstColumn; c < lastColumn; c++) {
+                                ((DenseDComplexMatrix1D) viewColumn(c)).ifft(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = 0; c < columns; c++) {
                 ((DenseDComplexMatrix1D) viewColumn(c)).ifft(scale);
@@ -1547,24 +1562,26 @@ public class DenseDComplexMatrix2D extends DComplexMatrix2D {
     public void ifftRows(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDComplexMatrix1D) viewRow(r)).ifft(scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, rows);
+                Future<?>[] futures = new Future[nthreads];
+                int k = rows / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstRow = j * k;
+                    final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int r = firstRow; r < lastRow; r++) {
+                                ((DenseDComplexMatrix1D) viewRow(r)).ifft(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int r = 0; r < rows; r++) {
                 ((DenseDComplexMatrix1D) viewRow(r)).ifft(scale);
@@ -21,6 +21,7 @@ import cern.colt.matrix.tdouble.DoubleMatrix3D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix3D;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_3D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 3-d matrix holding <tt>complex</tt> elements.
@@ -65,8 +66,6 @@ import edu.emory.mathcs.utils.ConcurrencyUtils;
 public class DenseDComplexMatrix3D extends DComplexMatrix3D {
     private static final long serialVersionUID = 1L;
 
-    private DoubleFFT_3D fft3;
-
     /**
      * The elements of this matrix. elements are stored in slice major, then row
      * major, then column major, in order of significance. Complex data is
@@ -1231,26 +1230,26 @@ public class DenseDComplexMatrix3D extends DComplexMatrix3D {
     public void fft2Slices() {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            ((DenseDComplexMatrix2D) viewSlice(s)).fft2();
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int s = firstSlice; s < lastSlice; s++) {
+                                ((DenseDComplexMatrix2D) viewSlice(s)).fft2();
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int s = 0; s < slices; s++) {
                 ((DenseDComplexMatrix2D) viewSlice(s)).fft2();
@@ -1262,19 +1261,24 @@ public class DenseDComplexMatrix3D extends DComplexMatrix3D {
      * Computes the 3D discrete Fourier transform (DFT) of this matrix.
      */
     public void fft3() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft3 == null) {
-            fft3 = new DoubleFFT_3D(slices, rows, columns);
-        }
-        if (isNoView == true) {
-            fft3.complexForward(elements);
-        } else {
-            DComplexMatrix3D copy = this.copy();
-            fft3.complexForward((double[]) copy.elements());
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_3D fft3 = TransformPlanCache.acquire(DoubleFFT_3D.class, slices, rows, columns);
+            try {
+                if (isNoView == true) {
+                    fft3.complexForward(elements);
+                } else {
+                    DComplexMatrix3D copy = this.copy();
+                    fft3.complexForward((double[]) copy.elements());
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public double[] elements() {
@@ -1431,26 +1435,26 @@ public class DenseDComplexMatrix3D extends DComplexMatrix3D {
     public void ifft2Slices(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            ((DenseDComplexMatrix2D) viewSlice(s)).ifft2(scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int s = firstSlice; s < lastSlice; s++) {
+                                ((DenseDComplexMatrix2D) viewSlice(s)).ifft2(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int s = 0; s < slices; s++) {
                 ((DenseDComplexMatrix2D) viewSlice(s)).ifft2(scale);
@@ -1466,19 +1470,24 @@ public class DenseDComplexMatrix3D extends DComplexMatrix3D {
      *            if true then scaling is performed
      */
     public void ifft3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft3 == null) {
-            fft3 = new DoubleFFT_3D(slices, rows, columns);
-        }
-        if (isNoView == true) {
-            fft3.complexInverse(elements, scale);
-        } else {
-            DComplexMatrix3D copy = this.copy();
-            fft3.complexInverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_3D fft3 = TransformPlanCache.acquire(DoubleFFT_3D.class, slices, rows, columns);
+            try {
+                if (isNoView == true) {
+                    fft3.complexInverse(elements, scale);
+                } else {
+                    DComplexMatrix3D copy = this.copy();
+                    fft3.complexInverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public DComplexMatrix3D like(int slices, int rows, int columns) {
@@ -8,9 +8,14 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.colt.matrix.tdouble;
 
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
 import cern.colt.matrix.tdouble.impl.SparseDoubleMatrix1D;
 import cern.jet.math.tdouble.DoubleFunctions;
+import cern.jet.random.tdouble.engine.DoubleRandomEngine;
+import cern.jet.random.tdouble.engine.SplitMix64;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * Factory for convenient construction of 1-d matrices holding <tt>double</tt>
@@ -167,7 +172,59 @@ public class DoubleFactory1D extends cern.colt.PersistentObject {
      * (exclusive).
      */
     public DoubleMatrix1D random(int size) {
-        return make(size).assign(cern.jet.math.tdouble.DoubleFunctions.random());
+        return random(size, SplitMix64.makeDefault());
+    }
+
+    /**
+     * Constructs a matrix with uniformly distributed values in <tt>(0,1)</tt>
+     * (exclusive) drawn from the given generator. If the generator is a
+     * {@link SplitMix64}, a dense matrix is filled in parallel, the cell
+     * <tt>i</tt> taking the <tt>i</tt>-th number of the stream, so that the
+     * values only depend on the seed and not on the number of threads.
+     * Otherwise the cells are filled in order with <tt>raw()</tt>. In both
+     * cases the generator advances by <tt>size</tt> numbers.
+     */
+    public DoubleMatrix1D random(int size, DoubleRandomEngine randomGenerator) {
+        final DoubleMatrix1D matrix = make(size);
+        if (!(randomGenerator instanceof SplitMix64)) {
+            for (int i = 0; i < size; i++) {
+                matrix.setQuick(i, randomGenerator.raw());
+            }
+            return matrix;
+        }
+        final SplitMix64 engine = (SplitMix64) randomGenerator;
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((this != sparse) && (nthreads > 1) && (size >= ConcurrencyUtils.getThreadsBeginN_1D())) {
+            nthreads = Math.min(nthreads, size);
+            Future<?>[] futures = new Future[nthreads];
+            int k = size / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstIdx = j * k;
+                final int lastIdx = (j == nthreads - 1) ? size : firstIdx + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        fillRandom(matrix, firstIdx, lastIdx, engine);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            fillRandom(matrix, 0, size, engine);
+        }
+        engine.skip(size);
+        return matrix;
+    }
+
+    /*
+     * Fills the cells first, ..., last - 1 with the numbers at the same
+     * positions of the stream of a copy of the engine.
+     */
+    private static void fillRandom(DoubleMatrix1D matrix, int first, int last, SplitMix64 engine) {
+        SplitMix64 random = (SplitMix64) engine.clone();
+        random.skip(first);
+        for (int i = first; i < last; i++) {
+            matrix.setQuick(i, random.nextDouble());
+        }
     }
 
     /**
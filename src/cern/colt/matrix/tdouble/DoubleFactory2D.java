@@ -8,9 +8,14 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.colt.matrix.tdouble;
 
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.SparseDoubleMatrix2D;
 import cern.jet.math.tdouble.DoubleFunctions;
+import cern.jet.random.tdouble.engine.DoubleRandomEngine;
+import cern.jet.random.tdouble.engine.SplitMix64;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * Factory for convenient construction of 2-d matrices holding <tt>double</tt>
@@ -953,7 +958,65 @@ public class DoubleFactory2D extends cern.colt.PersistentObject {
      * (exclusive).
      */
     public DoubleMatrix2D random(int rows, int columns) {
-        return make(rows, columns).assign(cern.jet.math.tdouble.DoubleFunctions.random());
+        return random(rows, columns, SplitMix64.makeDefault());
+    }
+
+    /**
+     * Constructs a matrix with uniformly distributed values in <tt>(0,1)</tt>
+     * (exclusive) drawn from the given generator. If the generator is a
+     * {@link SplitMix64}, a dense matrix is filled in parallel by rows, the
+     * cell <tt>[row,column]</tt> taking the number at position
+     * <tt>row*columns + column</tt> of the stream, so that the values only
+     * depend on the seed and not on the number of threads. Otherwise the
+     * cells are filled in row major order with <tt>raw()</tt>. In both cases
+     * the generator advances by <tt>rows*columns</tt> numbers.
+     */
+    public DoubleMatrix2D random(final int rows, final int columns, DoubleRandomEngine randomGenerator) {
+        final DoubleMatrix2D matrix = make(rows, columns);
+        if (!(randomGenerator instanceof SplitMix64)) {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    matrix.setQuick(r, c, randomGenerator.raw());
+                }
+            }
+            return matrix;
+        }
+        final SplitMix64 engine = (SplitMix64) randomGenerator;
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((this != sparse) && (nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            nthreads = Math.min(nthreads, rows);
+            Future<?>[] futures = new Future[nthreads];
+            int k = rows / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstRow = j * k;
+                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        fillRandom(matrix, firstRow, lastRow, engine);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            fillRandom(matrix, 0, rows, engine);
+        }
+        engine.skip((long) rows * columns);
+        return matrix;
+    }
+
+    /*
+     * Fills the rows first, ..., last - 1 with the numbers at the same
+     * positions of the stream of a copy of the engine.
+     */
+    private static void fillRandom(DoubleMatrix2D matrix, int first, int last, SplitMix64 engine) {
+        int columns = matrix.columns();
+        SplitMix64 random = (SplitMix64) engine.clone();
+        random.skip((long) first * columns);
+        for (int r = first; r < last; r++) {
+            for (int c = 0; c < columns; c++) {
+                matrix.setQuick(r, c, random.nextDouble());
+            }
+        }
     }
 
     /**
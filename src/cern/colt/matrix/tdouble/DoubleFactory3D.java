@@ -8,9 +8,14 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.colt.matrix.tdouble;
 
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix3D;
 import cern.colt.matrix.tdouble.impl.SparseDoubleMatrix3D;
 import cern.jet.math.tdouble.DoubleFunctions;
+import cern.jet.random.tdouble.engine.DoubleRandomEngine;
+import cern.jet.random.tdouble.engine.SplitMix64;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * Factory for convenient construction of 3-d matrices holding <tt>double</tt>
@@ -132,6 +137,71 @@ public class DoubleFactory3D extends cern.colt.PersistentObject {
      * (exclusive).
      */
     public DoubleMatrix3D random(int slices, int rows, int columns) {
-        return make(slices, rows, columns).assign(cern.jet.math.tdouble.DoubleFunctions.random());
+        return random(slices, rows, columns, SplitMix64.makeDefault());
+    }
+
+    /**
+     * Constructs a matrix with uniformly distributed values in <tt>(0,1)</tt>
+     * (exclusive) drawn from the given generator. If the generator is a
+     * {@link SplitMix64}, a dense matrix is filled in parallel by slices, the
+     * cell <tt>[slice,row,column]</tt> taking the number at position
+     * <tt>(slice*rows + row)*columns + column</tt> of the stream, so that the
+     * values only depend on the seed and not on the number of threads.
+     * Otherwise the cells are filled in order with <tt>raw()</tt>. In both
+     * cases the generator advances by <tt>slices*rows*columns</tt> numbers.
+     */
+    public DoubleMatrix3D random(final int slices, final int rows, final int columns,
+            DoubleRandomEngine randomGenerator) {
+        final DoubleMatrix3D matrix = make(slices, rows, columns);
+        if (!(randomGenerator instanceof SplitMix64)) {
+            for (int s = 0; s < slices; s++) {
+                for (int r = 0; r < rows; r++) {
+                    for (int c = 0; c < columns; c++) {
+                        matrix.setQuick(s, r, c, randomGenerator.raw());
+                    }
+                }
+            }
+            return matrix;
+        }
+        final SplitMix64 engine = (SplitMix64) randomGenerator;
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((this != sparse) && (nthreads > 1)
+                && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+            nthreads = Math.min(nthreads, slices);
+            Future<?>[] futures = new Future[nthreads];
+            int k = slices / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstSlice = j * k;
+                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        fillRandom(matrix, firstSlice, lastSlice, engine);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            fillRandom(matrix, 0, slices, engine);
+        }
+        engine.skip((long) slices * rows * columns);
+        return matrix;
+    }
+
+    /*
+     * Fills the slices first, ..., last - 1 with the numbers at the same
+     * positions of the stream of a copy of the engine.
+     */
+    private static void fillRandom(DoubleMatrix3D matrix, int first, int last, SplitMix64 engine) {
+        int rows = matrix.rows();
+        int columns = matrix.columns();
+        SplitMix64 random = (SplitMix64) engine.clone();
+        random.skip((long) first * rows * columns);
+        for (int s = first; s < last; s++) {
+            for (int r = 0; r < rows; r++) {
+                for (int c = 0; c < columns; c++) {
+                    matrix.setQuick(s, r, c, random.nextDouble());
+                }
+            }
+        }
     }
 }
@@ -89,7 +89,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
             return Double.NaN;
         double a = 0;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -146,7 +146,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
             return Double.NaN;
         double a = 0;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -307,7 +307,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
             return Double.NaN;
         double a = 0;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -373,7 +373,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
      */
     public DoubleMatrix2D assign(final cern.colt.function.tdouble.DoubleFunction f) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -416,7 +416,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
     public DoubleMatrix2D assign(final cern.colt.function.tdouble.DoubleProcedure cond,
             final cern.colt.function.tdouble.DoubleFunction f) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -465,7 +465,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
      */
     public DoubleMatrix2D assign(final cern.colt.function.tdouble.DoubleProcedure cond, final double value) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -511,7 +511,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
      */
     public DoubleMatrix2D assign(final double value) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -559,7 +559,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
             throw new IllegalArgumentException("Must have same length: length=" + values.length + "rows()*columns()="
                     + rows() * columns());
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -613,7 +613,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
             throw new IllegalArgumentException("Must have same number of rows: rows=" + values.length + "rows()="
                     + rows());
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -678,7 +678,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
             source = other;
         }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -749,7 +749,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
     public DoubleMatrix2D assign(final DoubleMatrix2D y, final cern.colt.function.tdouble.DoubleDoubleFunction function) {
         checkShape(y);
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -854,7 +854,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
             throw new IllegalArgumentException("Must have same length: length=" + values.length + "rows()*columns()="
                     + rows() * columns());
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             int k = rows / nthreads;
@@ -893,7 +893,7 @@ public abstract class DoubleMatrix2D extends AbstractMatrix2D {
     public int cardinality() {
         int cardinality = 0;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+        if ((nthreads > 1) && ((long) rows * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
             nthreads = Math.min(nthreads, rows);
             Future<?>[] futures = new Future[nthreads];
             Integer[] results = new Integer[nthreads];
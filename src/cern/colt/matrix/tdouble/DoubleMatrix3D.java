@@ -152,7 +152,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
             return Double.NaN;
         double a = 0;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -397,7 +397,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
      */
     public DoubleMatrix3D assign(final cern.colt.function.tdouble.DoubleFunction function) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -444,7 +444,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
     public DoubleMatrix3D assign(final cern.colt.function.tdouble.DoubleProcedure cond,
             final cern.colt.function.tdouble.DoubleFunction f) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -498,7 +498,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
      */
     public DoubleMatrix3D assign(final cern.colt.function.tdouble.DoubleProcedure cond, final double value) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -548,7 +548,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
      */
     public DoubleMatrix3D assign(final double value) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -598,7 +598,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
             throw new IllegalArgumentException("Must have same length: length=" + values.length
                     + "slices()*rows()*columns()=" + slices() * rows() * columns());
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -657,7 +657,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
             throw new IllegalArgumentException("Must have same number of slices: slices=" + values.length + "slices()="
                     + slices());
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -736,7 +736,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
             source = other;
         }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -811,7 +811,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
     public DoubleMatrix3D assign(final DoubleMatrix3D y, final cern.colt.function.tdouble.DoubleDoubleFunction function) {
         checkShape(y);
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -912,7 +912,7 @@ public abstract class DoubleMatrix3D extends AbstractMatrix3D {
     public int cardinality() {
         int cardinality = 0;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             Integer[] results = new Integer[nthreads];
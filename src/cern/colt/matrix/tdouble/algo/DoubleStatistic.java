@@ -20,6 +20,7 @@ import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.DoubleMatrix3D;
 import cern.jet.math.tdouble.DoubleFunctions;
 import cern.jet.random.tdouble.engine.DoubleRandomEngine;
+import cern.jet.random.tdouble.engine.SplitMix64;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
@@ -753,20 +754,12 @@ public class DoubleStatistic extends Object {
 
         // random generator seeded with current time
         if (randomGenerator == null)
-            randomGenerator = new cern.jet.random.tdouble.engine.DoubleMersenneTwister((int) System.currentTimeMillis());
+            randomGenerator = SplitMix64.makeDefault();
 
         int ncolumns = (int) Math.round(matrix.size() * fraction);
-        int max = ncolumns;
-        long[] selected = new long[max]; // sampler works on long's, not
-        // int's
 
         // sample
-        int n = ncolumns;
-        int N = (int) matrix.size();
-        cern.jet.random.tdouble.sampling.DoubleRandomSampler.sample(n, N, n, 0, selected, 0, randomGenerator);
-        int[] selectedCols = new int[n];
-        for (int i = 0; i < n; i++)
-            selectedCols[i] = (int) selected[i];
+        int[] selectedCols = sample(ncolumns, (int) matrix.size(), randomGenerator);
 
         return matrix.viewSelection(selectedCols);
     }
@@ -858,31 +851,16 @@ public class DoubleStatistic extends Object {
 
         // random generator seeded with current time
         if (randomGenerator == null)
-            randomGenerator = new cern.jet.random.tdouble.engine.DoubleMersenneTwister((int) System.currentTimeMillis());
+            randomGenerator = SplitMix64.makeDefault();
 
         int nrows = (int) Math.round(matrix.rows() * rowFraction);
         int ncolumns = (int) Math.round(matrix.columns() * columnFraction);
-        int max = Math.max(nrows, ncolumns);
-        long[] selected = new long[max]; // sampler works on long's, not
-        // int's
 
-        // sample rows
-        int n = nrows;
-        int N = matrix.rows();
-        cern.jet.random.tdouble.sampling.DoubleRandomSampler.sample(n, N, n, 0, selected, 0, randomGenerator);
-        int[] selectedRows = new int[n];
-        for (int i = 0; i < n; i++)
-            selectedRows[i] = (int) selected[i];
-
-        // sample columns
-        n = ncolumns;
-        N = matrix.columns();
-        cern.jet.random.tdouble.sampling.DoubleRandomSampler.sample(n, N, n, 0, selected, 0, randomGenerator);
-        int[] selectedCols = new int[n];
-        for (int i = 0; i < n; i++)
-            selectedCols[i] = (int) selected[i];
+        // sample rows and columns
+        int[][] selected = sample(new int[] { nrows, ncolumns }, new int[] { matrix.rows(), matrix.columns() },
+                randomGenerator);
 
-        return matrix.viewSelection(selectedRows, selectedCols);
+        return matrix.viewSelection(selected[0], selected[1]);
     }
 
     /**
@@ -939,39 +917,65 @@ public class DoubleStatistic extends Object {
 
         // random generator seeded with current time
         if (randomGenerator == null)
-            randomGenerator = new cern.jet.random.tdouble.engine.DoubleMersenneTwister((int) System.currentTimeMillis());
+            randomGenerator = SplitMix64.makeDefault();
 
         int nslices = (int) Math.round(matrix.slices() * sliceFraction);
         int nrows = (int) Math.round(matrix.rows() * rowFraction);
         int ncolumns = (int) Math.round(matrix.columns() * columnFraction);
-        int max = Math.max(nslices, Math.max(nrows, ncolumns));
-        long[] selected = new long[max]; // sampler works on long's, not
-        // int's
 
-        // sample slices
-        int n = nslices;
-        int N = matrix.slices();
-        cern.jet.random.tdouble.sampling.DoubleRandomSampler.sample(n, N, n, 0, selected, 0, randomGenerator);
-        int[] selectedSlices = new int[n];
-        for (int i = 0; i < n; i++)
-            selectedSlices[i] = (int) selected[i];
+        // sample slices, rows and columns
+        int[][] selected = sample(new int[] { nslices, nrows, ncolumns }, new int[] { matrix.slices(),
+                matrix.rows(), matrix.columns() }, randomGenerator);
 
-        // sample rows
-        n = nrows;
-        N = matrix.rows();
-        cern.jet.random.tdouble.sampling.DoubleRandomSampler.sample(n, N, n, 0, selected, 0, randomGenerator);
-        int[] selectedRows = new int[n];
-        for (int i = 0; i < n; i++)
-            selectedRows[i] = (int) selected[i];
+        return matrix.viewSelection(selected[0], selected[1], selected[2]);
+    }
+
+    /*
+     * Samples n[d] of the indexes 0, ..., N[d] - 1 without replacement, for
+     * each dimension d. With a SplitMix64 generator, each dimension uses its
+     * own split stream, so that the dimensions are sampled in parallel and the
+     * result does not depend on the number of threads.
+     */
+    private static int[][] sample(final int[] n, final int[] N, DoubleRandomEngine randomGenerator) {
+        final int[][] selected = new int[n.length][];
+        if (!(randomGenerator instanceof SplitMix64)) {
+            for (int d = 0; d < n.length; d++) {
+                selected[d] = sample(n[d], N[d], randomGenerator);
+            }
+            return selected;
+        }
+        final SplitMix64[] streams = new SplitMix64[n.length];
+        long size = 0;
+        for (int d = 0; d < n.length; d++) {
+            streams[d] = ((SplitMix64) randomGenerator).split();
+            size += n[d];
+        }
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (size >= ConcurrencyUtils.getThreadsBeginN_1D())) {
+            Future<?>[] futures = new Future[n.length];
+            for (int d = 0; d < n.length; d++) {
+                final int dim = d;
+                futures[d] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        selected[dim] = sample(n[dim], N[dim], streams[dim]);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            for (int d = 0; d < n.length; d++) {
+                selected[d] = sample(n[d], N[d], streams[d]);
+            }
+        }
+        return selected;
+    }
 
-        // sample columns
-        n = ncolumns;
-        N = matrix.columns();
+    private static int[] sample(int n, int N, DoubleRandomEngine randomGenerator) {
+        long[] selected = new long[n]; // sampler works on long's, not int's
         cern.jet.random.tdouble.sampling.DoubleRandomSampler.sample(n, N, n, 0, selected, 0, randomGenerator);
-        int[] selectedCols = new int[n];
+        int[] indexes = new int[n];
         for (int i = 0; i < n; i++)
-            selectedCols[i] = (int) selected[i];
-
-        return matrix.viewSelection(selectedSlices, selectedRows, selectedCols);
+            indexes[i] = (int) selected[i];
+        return indexes;
     }
 }
@@ -11,8 +11,10 @@ package cern.colt.matrix.tdouble.algo;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.decomposition.SparseDoubleCholeskyDecomposition;
+import cern.colt.matrix.tdouble.algo.decomposition.SparseDoubleEigenvalueDecomposition;
 import cern.colt.matrix.tdouble.algo.decomposition.SparseDoubleLUDecomposition;
 import cern.colt.matrix.tdouble.algo.decomposition.SparseDoubleQRDecomposition;
+import cern.colt.matrix.tdouble.algo.decomposition.SparseDoubleSingularValueDecomposition;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
 import cern.colt.matrix.tdouble.impl.SparseCCDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
@@ -130,6 +132,21 @@ public class SparseDoubleAlgebra {
         return lu(A, 0).det();
     }
 
+    /**
+     * Constructs and returns the partial eigenvalue decomposition of the given
+     * symmetric matrix, made of its <tt>k</tt> largest eigenvalues and their
+     * eigenvectors.
+     * 
+     * @param matrix
+     *            symmetric matrix
+     * @param k
+     *            number of eigenvalues
+     * @return the partial eigenvalue decomposition of the given matrix
+     */
+    public SparseDoubleEigenvalueDecomposition eig(DoubleMatrix2D matrix, int k) {
+        return new SparseDoubleEigenvalueDecomposition(matrix, k);
+    }
+
     /**
      * Constructs and returns the LU-decomposition of the given matrix.
      * 
@@ -241,4 +258,19 @@ public class SparseDoubleAlgebra {
             return x.viewPart(0, A.columns()).copy();
         }
     }
+
+    /**
+     * Constructs and returns the partial singular value decomposition of the
+     * given matrix, made of its <tt>k</tt> largest singular values and their
+     * singular vectors.
+     * 
+     * @param matrix
+     *            sparse matrix
+     * @param k
+     *            number of singular values
+     * @return the partial singular value decomposition of the given matrix
+     */
+    public SparseDoubleSingularValueDecomposition svd(DoubleMatrix2D matrix, int k) {
+        return new SparseDoubleSingularValueDecomposition(matrix, k);
+    }
 }
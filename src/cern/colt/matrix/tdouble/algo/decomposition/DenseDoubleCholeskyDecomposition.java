@@ -8,18 +8,24 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
 import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
-import edu.emory.mathcs.jplasma.tdouble.Dplasma;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * For a symmetric, positive definite matrix <tt>A</tt>, the Cholesky
  * decomposition is a lower triangular matrix <tt>L</tt> so that <tt>A = L*L'</tt>; If
  * the matrix is not symmetric positive definite, the IllegalArgumentException
  * is thrown.
+ * <p>
+ * The factorization is computed by a tiled algorithm whose tasks are
+ * scheduled in parallel as soon as their input tiles are ready; it keeps no
+ * global state, so several decompositions can be computed concurrently.
  */
 public class DenseDoubleCholeskyDecomposition implements java.io.Serializable {
     static final long serialVersionUID = 1020;
@@ -47,22 +53,20 @@ public class DenseDoubleCholeskyDecomposition implements java.io.Serializable {
     public DenseDoubleCholeskyDecomposition(DoubleMatrix2D A) {
         DoubleProperty.DEFAULT.checkSquare(A);
         DoubleProperty.DEFAULT.checkDense(A);
+        n = A.rows();
+        DoubleTileMatrix tiles;
         if (A instanceof DenseDoubleMatrix2D) {
-            elementsA = (double[]) A.viewDice().copy().elements();
+            double[] elements = (double[]) (A.isView() ? A.copy() : A).elements();
+            tiles = DoubleTileMatrix.fromArray(elements, n, n, true, true);
         } else {
             columnMatrix = true;
-            elementsA = (double[]) A.copy().elements();
-        }
-        n = A.rows();
-        Dplasma.plasma_Init(n, n, 1);
-        int info = Dplasma.plasma_DPOTRF(Dplasma.PlasmaUpper, n, elementsA, 0, n);
-        Dplasma.plasma_Finalize();
-        if (info > 0) {
-            throw new IllegalArgumentException("Matrix is not symmetric positive definite.");
-        }
-        if (info < 0) {
-            throw new IllegalArgumentException("Error occured while computing Cholesky decomposition: " + info);
+            double[] elements = (double[]) (A.isView() ? A.copy() : A).elements();
+            tiles = DoubleTileMatrix.fromArray(elements, n, n, false, true);
         }
+        DoubleTiledFactorization.potrf(tiles);
+        // elementsA[r * n + c] holds L[r,c], r >= c
+        elementsA = new double[n * n];
+        tiles.toArray(elementsA, true, true);
     }
 
     /**
@@ -145,14 +149,7 @@ public class DenseDoubleCholeskyDecomposition implements java.io.Serializable {
                 elementsX = (double[]) B.elements();
             }
         }
-        int nrhs = B.columns();
-        Dplasma.plasma_Init(n, n, nrhs);
-        int info = Dplasma.plasma_DPOTRS(Dplasma.PlasmaUpper, n, nrhs, elementsA, 0, n, elementsX, 0, n);
-        Dplasma.plasma_Finalize();
-        if (info != 0) {
-            throw new IllegalArgumentException(
-                    "Error occured while solving the system of equation using Cholesky decomposition: " + info);
-        }
+        solve(elementsX, B.columns());
         if (B instanceof DenseDoubleMatrix2D) {
             B.viewDice().assign(elementsX);
         } else {
@@ -182,18 +179,64 @@ public class DenseDoubleCholeskyDecomposition implements java.io.Serializable {
         } else {
             elementsX = (double[]) b.elements();
         }
-        Dplasma.plasma_Init(n, n, 1);
-        int info = Dplasma.plasma_DPOTRS(Dplasma.PlasmaUpper, n, 1, elementsA, 0, n, elementsX, 0, n);
-        Dplasma.plasma_Finalize();
-        if (info != 0) {
-            throw new IllegalArgumentException(
-                    "Error occured while solving the system of equation using Cholesky decomposition: " + info);
-        }
+        solve(elementsX, 1);
         if (b.isView()) {
             b.assign(elementsX);
         }
     }
 
+    /*
+     * Solves L*L'*X = B in place for the nrhs columns of x, stored in column
+     * major order.
+     */
+    private void solve(final double[] x, int nrhs) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (nrhs > 1) && ((long) n * n * nrhs >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            nthreads = Math.min(nthreads, nrhs);
+            Future<?>[] futures = new Future[nthreads];
+            int k = nrhs / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstColumn = j * k;
+                final int lastColumn = (j == nthreads - 1) ? nrhs : firstColumn + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        for (int c = firstColumn; c < lastColumn; c++) {
+                            solveColumn(x, c * n);
+                        }
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            for (int c = 0; c < nrhs; c++) {
+                solveColumn(x, c * n);
+            }
+        }
+    }
+
+    private void solveColumn(double[] x, int offset) {
+        // Solve L*Y = B
+        for (int r = 0; r < n; r++) {
+            int row = r * n;
+            double sum = x[offset + r];
+            for (int c = 0; c < r; c++) {
+                sum -= elementsA[row + c] * x[offset + c];
+            }
+            x[offset + r] = sum / elementsA[row + r];
+        }
+        // Solve L'*X = Y
+        for (int r = n - 1; r >= 0; r--) {
+            int row = r * n;
+            double xr = x[offset + r] / elementsA[row + r];
+            x[offset + r] = xr;
+            if (xr != 0) {
+                for (int c = 0; c < r; c++) {
+                    x[offset + c] -= elementsA[row + c] * xr;
+                }
+            }
+        }
+    }
+
     /**
      * Returns a String with (propertyName, propertyValue) pairs. Useful for
      * debugging or to quickly get the rough picture. For example,
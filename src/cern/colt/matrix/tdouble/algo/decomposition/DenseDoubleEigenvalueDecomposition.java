@@ -8,6 +8,8 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.util.Arrays;
+
 import cern.colt.matrix.tdouble.DoubleFactory1D;
 import cern.colt.matrix.tdouble.DoubleFactory2D;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
@@ -32,6 +34,12 @@ import cern.colt.matrix.tdouble.algo.DoubleProperty;
  * <tt>A.mult(V) equals V.mult(D)</tt>. The matrix <tt>V</tt> may be badly
  * conditioned, or even singular, so the validity of the equation
  * <tt>A = V*D*inverse(V)</tt> depends upon <tt>Algebra.cond(V)</tt>.
+ * <P>
+ * Symmetric matrices larger than 32 x 32 are reduced to tridiagonal form by a
+ * blocked, multithreaded Householder reduction, and the tridiagonal matrix is
+ * diagonalized by the divide-and-conquer method, whose work is mostly done by
+ * parallel matrix products. When only the eigenvalues are wanted, the
+ * eigenvectors are not accumulated, which reduces the work to the reduction.
  */
 public class DenseDoubleEigenvalueDecomposition implements java.io.Serializable {
     static final long serialVersionUID = 1020;
@@ -94,16 +102,54 @@ public class DenseDoubleEigenvalueDecomposition implements java.io.Serializable
      *             if <tt>A</tt> is not square.
      */
     public DenseDoubleEigenvalueDecomposition(DoubleMatrix2D A) {
+        this(A, true);
+    }
+
+    /**
+     * Constructs and returns a new eigenvalue decomposition object, with or
+     * without the eigenvectors. Checks for symmetry, then constructs the
+     * eigenvalue decomposition. Without the eigenvectors, the eigenvalues of
+     * a symmetric matrix are computed several times faster, and
+     * {@link #getV()} throws an exception.
+     * 
+     * @param A
+     *            A square matrix.
+     * @param wantV
+     *            whether the eigenvectors are computed.
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not square.
+     */
+    public DenseDoubleEigenvalueDecomposition(DoubleMatrix2D A, boolean wantV) {
         DoubleProperty.DEFAULT.checkSquare(A);
 
         n = A.columns();
-        V = new double[n][n];
         d = new double[n];
         e = new double[n];
 
         issymmetric = DoubleProperty.DEFAULT.isSymmetric(A);
 
-        if (issymmetric) {
+        if (issymmetric && n > DoubleSymmetricEigensolver.LEAF) {
+            // Symmetric part from the lower triangle, stored by rows.
+            double[] a = new double[n * n];
+            for (int i = 0; i < n; i++) {
+                for (int j = 0; j <= i; j++) {
+                    a[i * n + j] = a[j * n + i] = A.getQuick(i, j);
+                }
+            }
+
+            if (wantV) {
+                double[] q = DoubleSymmetricEigensolver.eigenvectors(n, a, d);
+                a = null;
+                V = new double[n][];
+                for (int i = 0; i < n; i++) {
+                    V[i] = Arrays.copyOfRange(q, i * n, (i + 1) * n);
+                }
+            } else {
+                DoubleSymmetricEigensolver.eigenvalues(n, a, d);
+            }
+
+        } else if (issymmetric) {
+            V = new double[n][n];
             for (int i = 0; i < n; i++) {
                 for (int j = 0; j < n; j++) {
                     V[i][j] = A.getQuick(i, j);
@@ -114,9 +160,13 @@ public class DenseDoubleEigenvalueDecomposition implements java.io.Serializable
             tred2();
 
             // Diagonalize.
-            tql2();
+            tql2(n, d, e, wantV ? V : null);
+            if (!wantV) {
+                V = null;
+            }
 
         } else {
+            V = new double[n][n];
             H = new double[n][n];
             ort = new double[n];
 
@@ -131,6 +181,9 @@ public class DenseDoubleEigenvalueDecomposition implements java.io.Serializable
 
             // Reduce Hessenberg to real Schur form.
             hqr2();
+            if (!wantV) {
+                V = null;
+            }
         }
     }
 
@@ -192,8 +245,13 @@ public class DenseDoubleEigenvalueDecomposition implements java.io.Serializable
      * Returns the eigenvector matrix, <tt>V</tt>
      * 
      * @return <tt>V</tt>
+     * @throws IllegalArgumentException
+     *             if the eigenvectors were not computed.
      */
     public DoubleMatrix2D getV() {
+        if (V == null) {
+            throw new IllegalArgumentException("The eigenvectors were not computed");
+        }
         return DoubleFactory2D.dense.make(V);
     }
 
@@ -781,9 +839,12 @@ public class DenseDoubleEigenvalueDecomposition implements java.io.Serializable
     }
 
     /**
-     * Symmetric tridiagonal QL algorithm.
+     * Symmetric tridiagonal QL algorithm, for the diagonal <tt>d</tt> and the
+     * subdiagonal <tt>e[1..n-1]</tt>. The eigenvalues are returned in
+     * <tt>d</tt> in increasing order; the transformations are accumulated in
+     * <tt>V</tt> unless it is null.
      */
-    private void tql2() {
+    static void tql2(int n, double[] d, double[] e, double[][] V) {
 
         // This is derived from the Algol procedures tql2, by
         // Bowdler, Martin, Reinsch, and Wilkinson, Handbook for
@@ -860,10 +921,12 @@ public class DenseDoubleEigenvalueDecomposition implements java.io.Serializable
 
                         // Accumulate transformation.
 
-                        for (int k = 0; k < n; k++) {
-                            h = V[k][i + 1];
-                            V[k][i + 1] = s * V[k][i] + c * h;
-                            V[k][i] = c * V[k][i] - s * h;
+                        if (V != null) {
+                            for (int k = 0; k < n; k++) {
+                                h = V[k][i + 1];
+                                V[k][i + 1] = s * V[k][i] + c * h;
+                                V[k][i] = c * V[k][i] - s * h;
+                            }
                         }
                     }
                     p = -s * s2 * c3 * el1 * e[l] / dl1;
@@ -892,7 +955,7 @@ public class DenseDoubleEigenvalueDecomposition implements java.io.Serializable
             if (k != i) {
                 d[k] = d[i];
                 d[i] = p;
-                for (int j = 0; j < n; j++) {
+                for (int j = 0; V != null && j < n; j++) {
                     p = V[j][i];
                     V[j][i] = V[j][k];
                     V[j][k] = p;
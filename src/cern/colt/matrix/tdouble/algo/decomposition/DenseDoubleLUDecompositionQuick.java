@@ -8,10 +8,14 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DenseDoubleAlgebra;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * A low level version of {@link DenseDoubleLUDecomposition}, avoiding
@@ -50,10 +54,22 @@ import cern.colt.matrix.tdouble.algo.DoubleProperty;
  * equations. Attempting to solve such a system will throw an exception if
  * <tt>isNonsingular()</tt> returns false.
  * <p>
+ * Matrices of type {@link DenseDoubleMatrix2D} with at least
+ * <tt>2 * BLOCK_SIZE</tt> rows and columns are decomposed by a blocked,
+ * right-looking algorithm: each panel of <tt>BLOCK_SIZE</tt> columns is
+ * factored with partial pivoting, the corresponding block row of <tt>U</tt>
+ * is computed by a triangular solve split over the columns, and the trailing
+ * submatrix is updated by a matrix-matrix multiplication, all in parallel.
+ * <p>
  */
 public class DenseDoubleLUDecompositionQuick implements java.io.Serializable {
     static final long serialVersionUID = 1020;
 
+    /**
+     * The number of columns of a panel of the blocked decomposition.
+     */
+    public static final int BLOCK_SIZE = 64;
+
     /**
      * Array for internal storage of decomposition.
      * 
@@ -104,13 +120,18 @@ public class DenseDoubleLUDecompositionQuick implements java.io.Serializable {
     /**
      * Decomposes matrix <tt>A</tt> into <tt>L</tt> and <tt>U</tt> (in-place).
      * Upon return <tt>A</tt> is overridden with the result <tt>LU</tt>, such
-     * that <tt>L*U = A</tt>. Uses a "left-looking", dot-product,
-     * Crout/Doolittle algorithm.
+     * that <tt>L*U = A</tt>. Uses a blocked, right-looking algorithm for
+     * large dense matrices and a "left-looking", dot-product, Crout/Doolittle
+     * algorithm otherwise.
      * 
      * @param A
      *            any matrix.
      */
     public void decompose(DoubleMatrix2D A) {
+        if (A instanceof DenseDoubleMatrix2D && Math.min(A.rows(), A.columns()) >= 2 * BLOCK_SIZE) {
+            decomposeBlocked((DenseDoubleMatrix2D) A);
+            return;
+        }
         final int CUT_OFF = 10;
         // setup
         LU = A;
@@ -280,6 +301,162 @@ public class DenseDoubleLUDecompositionQuick implements java.io.Serializable {
         return det;
     }
 
+    /**
+     * Blocked, right-looking LU decomposition with partial pivoting of a dense
+     * matrix, selecting the same pivots as the dot-product algorithm.
+     */
+    private void decomposeBlocked(DenseDoubleMatrix2D A) {
+        LU = A;
+        final int m = A.rows();
+        final int n = A.columns();
+        if (this.piv == null || this.piv.length != m)
+            this.piv = new int[m];
+        for (int i = m; --i >= 0;)
+            piv[i] = i;
+        pivsign = 1;
+
+        final double[] a = A.elements();
+        final int zero = (int) A.index(0, 0);
+        final int rs = A.rowStride();
+        final int cs = A.columnStride();
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((long) m * n < ConcurrencyUtils.getThreadsBeginN_2D()) {
+            nthreads = 1;
+        }
+        int kmax = Math.min(m, n);
+        for (int k0 = 0; k0 < kmax; k0 += BLOCK_SIZE) {
+            int kb = Math.min(BLOCK_SIZE, kmax - k0);
+            factorPanel(a, zero, rs, cs, m, n, k0, kb, nthreads);
+            int first = k0 + kb;
+            if (first < n) {
+                solvePanelRow(a, zero, rs, cs, n, k0, kb, nthreads);
+                if (first < m) {
+                    // A22 -= A21 * A12
+                    DoubleMatrix2D A21 = A.viewPart(first, k0, m - first, kb);
+                    DoubleMatrix2D A12 = A.viewPart(k0, first, kb, n - first);
+                    DoubleMatrix2D A22 = A.viewPart(first, first, m - first, n - first);
+                    A21.zMult(A12, A22, -1, 1, false, false);
+                }
+            }
+        }
+        setLU(LU);
+    }
+
+    /**
+     * Factors the panel of columns <tt>[k0, k0 + kb)</tt> below row
+     * <tt>k0</tt>, exchanging whole rows of the matrix.
+     */
+    private void factorPanel(final double[] a, final int zero, final int rs, final int cs, final int m, int n,
+            final int k0, final int kb, int nthreads) {
+        final int last = k0 + kb;
+        for (int j = k0; j < last; j++) {
+            // find pivot and exchange if necessary
+            int p = j;
+            double max = Math.abs(a[zero + j * rs + j * cs]);
+            for (int i = j + 1; i < m; i++) {
+                double v = Math.abs(a[zero + i * rs + j * cs]);
+                if (v > max) {
+                    p = i;
+                    max = v;
+                }
+            }
+            if (p != j) {
+                int idxP = zero + p * rs;
+                int idxJ = zero + j * rs;
+                for (int c = 0; c < n; c++) {
+                    double tmp = a[idxP];
+                    a[idxP] = a[idxJ];
+                    a[idxJ] = tmp;
+                    idxP += cs;
+                    idxJ += cs;
+                }
+                int k = piv[p];
+                piv[p] = piv[j];
+                piv[j] = k;
+                pivsign = -pivsign;
+            }
+            final double jj = a[zero + j * rs + j * cs];
+            if (jj == 0.0) {
+                continue; // the column below the pivot is zero
+            }
+            // compute multipliers and update the rest of the panel
+            final int row = j;
+            final double mult = 1 / jj;
+            int rows = m - (j + 1);
+            int np = Math.min(nthreads, Math.max(1, (int) ((long) rows * (last - j) / 32768)));
+            Future<?>[] futures = new Future[np];
+            int k = rows / np;
+            for (int t = 0; t < np; t++) {
+                final int firstRow = j + 1 + t * k;
+                final int lastRow = (t == np - 1) ? m : firstRow + k;
+                Runnable task = new Runnable() {
+                    public void run() {
+                        int idxJ = zero + row * rs;
+                        for (int i = firstRow; i < lastRow; i++) {
+                            int idxI = zero + i * rs;
+                            double l = a[idxI + row * cs] * mult;
+                            a[idxI + row * cs] = l;
+                            if (l != 0) {
+                                for (int c = row + 1; c < last; c++) {
+                                    a[idxI + c * cs] -= l * a[idxJ + c * cs];
+                                }
+                            }
+                        }
+                    }
+                };
+                if (np == 1) {
+                    task.run();
+                } else {
+                    futures[t] = ConcurrencyUtils.submit(task);
+                }
+            }
+            if (np > 1) {
+                ConcurrencyUtils.waitForCompletion(futures);
+            }
+        }
+    }
+
+    /**
+     * Computes the block row <tt>U12 = L11^-1 * A12</tt> right of the panel
+     * of columns <tt>[k0, k0 + kb)</tt>, splitting the columns among threads.
+     */
+    private void solvePanelRow(final double[] a, final int zero, final int rs, final int cs, int n, final int k0,
+            final int kb, int nthreads) {
+        int first = k0 + kb;
+        int columns = n - first;
+        int np = Math.min(nthreads, Math.max(1, columns / 16));
+        Future<?>[] futures = new Future[np];
+        int k = columns / np;
+        for (int t = 0; t < np; t++) {
+            final int firstColumn = first + t * k;
+            final int lastColumn = (t == np - 1) ? n : firstColumn + k;
+            Runnable task = new Runnable() {
+                public void run() {
+                    for (int i = k0 + 1; i < k0 + kb; i++) {
+                        int idxI = zero + i * rs;
+                        for (int p = k0; p < i; p++) {
+                            double l = a[idxI + p * cs];
+                            if (l != 0) {
+                                int idxP = zero + p * rs;
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    a[idxI + c * cs] -= l * a[idxP + c * cs];
+                                }
+                            }
+                        }
+                    }
+                }
+            };
+            if (np == 1) {
+                task.run();
+            } else {
+                futures[t] = ConcurrencyUtils.submit(task);
+            }
+        }
+        if (np > 1) {
+            ConcurrencyUtils.waitForCompletion(futures);
+        }
+    }
+
     /**
      * Returns pivot permutation vector as a one-dimensional double array
      * 
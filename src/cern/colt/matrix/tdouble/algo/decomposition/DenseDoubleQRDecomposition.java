@@ -13,7 +13,6 @@ import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
 import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
-import edu.emory.mathcs.jplasma.tdouble.Dplasma;
 
 /**
  * For an <tt>m x n</tt> matrix <tt>A</tt> with <tt>m >= n</tt>, the QR
@@ -25,6 +24,10 @@ import edu.emory.mathcs.jplasma.tdouble.Dplasma;
  * decomposition is in the least squares solution of nonsquare systems of
  * simultaneous linear equations. This will fail if <tt>isFullRank()</tt>
  * returns <tt>false</tt>.
+ * <P>
+ * The decomposition is computed by a tiled algorithm whose tasks are
+ * scheduled in parallel as soon as their input tiles are ready; it keeps no
+ * global state, so several decompositions can be computed concurrently.
  * 
  * @author Piotr Wendykier (piotr.wendykier@gmail.com)
  */
@@ -32,13 +35,18 @@ public class DenseDoubleQRDecomposition implements java.io.Serializable {
     static final long serialVersionUID = 1020;
 
     /**
-     * Array for internal storage of decomposition.
+     * Tiles holding <tt>R</tt> and the Householder vectors.
      * 
-     * @serial internal array storage.
+     * @serial internal storage.
      */
-    private double[] elementsA;
+    private DoubleTileMatrix QR;
 
-    private double[] T;
+    /**
+     * Triangular factors of the block reflectors of the tiles.
+     * 
+     * @serial internal storage.
+     */
+    private double[][] T;
 
     private boolean columnMatrix = false;
 
@@ -69,22 +77,16 @@ public class DenseDoubleQRDecomposition implements java.io.Serializable {
     public DenseDoubleQRDecomposition(DoubleMatrix2D A) {
         DoubleProperty.DEFAULT.checkRectangular(A);
         DoubleProperty.DEFAULT.checkDense(A);
+        m = A.rows();
+        n = A.columns();
+        double[] elements = (double[]) (A.isView() ? A.copy() : A).elements();
         if (A instanceof DenseDoubleMatrix2D) {
-            elementsA = (double[]) A.viewDice().copy().elements();
+            QR = DoubleTileMatrix.fromArray(elements, m, n, true, false);
         } else {
             columnMatrix = true;
-            elementsA = (double[]) A.copy().elements();
-        }
-        m = A.rows();
-        n = A.columns();
-        int lda = m;
-        Dplasma.plasma_Init(m, n, 1);
-        T = Dplasma.plasma_Allocate_T(m, n);
-        int info = Dplasma.plasma_DGEQRF(m, n, elementsA, 0, lda, T, 0);
-        Dplasma.plasma_Finalize();
-        if (info != 0) {
-            throw new IllegalArgumentException("Error occured while computing QR decomposition: " + info);
+            QR = DoubleTileMatrix.fromArray(elements, m, n, false, false);
         }
+        T = DoubleTiledFactorization.geqrf(QR);
     }
 
     /**
@@ -97,18 +99,10 @@ public class DenseDoubleQRDecomposition implements java.io.Serializable {
      */
     public DoubleMatrix2D getQ(boolean economySize) {
         if (Q == null) {
-            Dplasma.plasma_Init(m, n, 1);
+            DoubleTileMatrix tilesQ = DoubleTileMatrix.identity(m);
+            DoubleTiledFactorization.ormqr(QR, T, tilesQ, false);
             Q = new DenseColumnDoubleMatrix2D(m, m);
-            double[] elementsQ = (double[]) Q.elements();
-            for (int i = 0; i < m; i++)
-                elementsQ[m * i + i] = 1.0;
-            int info = Dplasma.plasma_DORMQR(Dplasma.PlasmaLeft, Dplasma.PlasmaNoTrans, m, m, n, elementsA, 0, m, T, 0,
-                    elementsQ, 0, m);
-            Dplasma.plasma_Finalize();
-            if (info != 0) {
-                throw new IllegalArgumentException("Error occured while computing matrix Q: " + info);
-            }
-            Q = Q.viewDice().copy();
+            tilesQ.toArray((double[]) Q.elements(), false, false);
         }
         if (!columnMatrix) {
             if (economySize) {
@@ -140,7 +134,7 @@ public class DenseDoubleQRDecomposition implements java.io.Serializable {
             for (int c = 0; c < n; c++) {
                 for (int r = 0; r < m; r++) {
                     if (r <= c)
-                        elementsR[c * m + r] = elementsA[c * m + r];
+                        elementsR[c * m + r] = QR.get(r, c);
                 }
             }
         }
@@ -166,7 +160,7 @@ public class DenseDoubleQRDecomposition implements java.io.Serializable {
      */
     public boolean hasFullRank() {
         for (int j = 0; j < n; j++) {
-            if (elementsA[j * m + j] == 0)
+            if (QR.get(j, j) == 0)
                 return false;
         }
         return true;
@@ -198,20 +192,7 @@ public class DenseDoubleQRDecomposition implements java.io.Serializable {
         } else {
             elementsX = (double[]) b.elements();
         }
-        Dplasma.plasma_Init(m, n, 1);
-        int info = Dplasma.plasma_DORMQR(Dplasma.PlasmaLeft, Dplasma.PlasmaNoTrans, m, 1, n, elementsA, 0, m, T, 0,
-                elementsX, 0, m);
-        if (info != 0) {
-            throw new IllegalArgumentException(
-                    "Error occured while solving the system of equation using QR decomposition: " + info);
-        }
-        info = Dplasma.plasma_DTRSM(Dplasma.PlasmaLeft, Dplasma.PlasmaUpper, Dplasma.PlasmaNoTrans,
-                Dplasma.PlasmaNonUnit, n, 1, elementsA, 0, m, elementsX, 0, m);
-        Dplasma.plasma_Finalize();
-        if (info != 0) {
-            throw new IllegalArgumentException(
-                    "Error occured while solving the system of equation using QR decomposition: " + info);
-        }
+        solve(elementsX, 1);
         if (b.isView()) {
             b.assign(elementsX);
         }
@@ -248,21 +229,7 @@ public class DenseDoubleQRDecomposition implements java.io.Serializable {
                 elementsX = (double[]) B.elements();
             }
         }
-        int nrhs = B.columns();
-        Dplasma.plasma_Init(m, n, nrhs);
-        int info = Dplasma.plasma_DORMQR(Dplasma.PlasmaLeft, Dplasma.PlasmaNoTrans, m, nrhs, n, elementsA, 0, m, T, 0,
-                elementsX, 0, m);
-        if (info != 0) {
-            throw new IllegalArgumentException(
-                    "Error occured while solving the system of equation using QR decomposition: " + info);
-        }
-        info = Dplasma.plasma_DTRSM(Dplasma.PlasmaLeft, Dplasma.PlasmaUpper, Dplasma.PlasmaNoTrans,
-                Dplasma.PlasmaNonUnit, n, nrhs, elementsA, 0, m, elementsX, 0, m);
-        Dplasma.plasma_Finalize();
-        if (info != 0) {
-            throw new IllegalArgumentException(
-                    "Error occured while solving the system of equation using QR decomposition: " + info);
-        }
+        solve(elementsX, B.columns());
         if (B instanceof DenseDoubleMatrix2D) {
             B.viewDice().assign(elementsX);
         } else {
@@ -272,6 +239,17 @@ public class DenseDoubleQRDecomposition implements java.io.Serializable {
         }
     }
 
+    /*
+     * Overwrites the first n rows of the m x nrhs matrix x, stored in column
+     * major order, with the least squares solution.
+     */
+    private void solve(double[] x, int nrhs) {
+        DoubleTileMatrix B = DoubleTileMatrix.fromArray(x, m, nrhs, false, false);
+        DoubleTiledFactorization.ormqr(QR, T, B, true);
+        DoubleTiledFactorization.trsmUpper(QR, B);
+        B.toArray(x, false, false);
+    }
+
     /**
      * Returns a String with (propertyName, propertyValue) pairs. Useful for
      * debugging or to quickly get the rough picture. For example,
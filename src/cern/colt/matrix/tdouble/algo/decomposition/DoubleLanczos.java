@@ -0,0 +1,380 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.Future;
+
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Thick-restart Lanczos method for a few eigenpairs of a symmetric operator.
+ * <p>
+ * The method builds an orthonormal basis <tt>V</tt> of <tt>m</tt> vectors
+ * of a Krylov subspace, with full reorthogonalization (classical Gram-Schmidt
+ * applied twice), and computes the Ritz pairs of the projected matrix
+ * <tt>T = V'*A*V</tt>. When the wanted Ritz pairs have not converged, the
+ * basis is restarted with the best Ritz vectors and the residual vector, which
+ * is equivalent to the implicit restart of ARPACK for symmetric problems.
+ * <p>
+ * The operator is only accessed by products with vectors. The vector
+ * operations on the basis work on all the basis vectors in one pass over the
+ * rows, which is split among threads.
+ */
+final class DoubleLanczos {
+
+    /**
+     * Product of the operator with a vector.
+     */
+    interface Operator {
+        /**
+         * Computes <tt>y = A*x</tt>.
+         */
+        void apply(double[] x, double[] y);
+    }
+
+    /*
+     * Work done on the rows first, ..., last - 1, adding its inner products to
+     * sums.
+     */
+    private interface Kernel {
+        void run(int first, int last, double[] sums);
+    }
+
+    static final int LARGEST_ALGEBRAIC = 0;
+
+    static final int SMALLEST_ALGEBRAIC = 1;
+
+    static final int LARGEST_MAGNITUDE = 2;
+
+    private static final double EPS23 = Math.pow(Math.ulp(1.0), 2.0 / 3.0);
+
+    private final int n;
+
+    private final Operator A;
+
+    private final int k;
+
+    private final int which;
+
+    private double[] values;
+
+    private double[][] vectors;
+
+    private double[] residuals;
+
+    private boolean converged;
+
+    private int restarts;
+
+    /**
+     * Computes <tt>k</tt> eigenpairs of the symmetric operator <tt>A</tt> of
+     * size <tt>n</tt>.
+     *
+     * @param n
+     *            size of the operator
+     * @param A
+     *            symmetric operator
+     * @param k
+     *            number of eigenpairs
+     * @param which
+     *            LARGEST_ALGEBRAIC, SMALLEST_ALGEBRAIC or LARGEST_MAGNITUDE
+     * @param ncv
+     *            number of basis vectors, between <tt>k + 1</tt> and
+     *            <tt>n</tt>; 0 for the default
+     * @param tol
+     *            relative accuracy of the Ritz values
+     * @param maxRestarts
+     *            maximum number of restarts
+     */
+    DoubleLanczos(int n, Operator A, int k, int which, int ncv, double tol, int maxRestarts) {
+        if (k < 1 || k > n) {
+            throw new IllegalArgumentException("k must be between 1 and " + n);
+        }
+        this.n = n;
+        this.A = A;
+        this.k = k;
+        this.which = which;
+        int m = ncv > 0 ? Math.max(ncv, k + 1) : Math.max(2 * k + 1, k + 20);
+        run(Math.min(m, n), tol, maxRestarts);
+    }
+
+    /**
+     * Returns the eigenvalues, in the order of <tt>which</tt>.
+     */
+    double[] getValues() {
+        return values;
+    }
+
+    /**
+     * Returns the eigenvectors.
+     */
+    double[][] getVectors() {
+        return vectors;
+    }
+
+    /**
+     * Returns the norms of the residuals <tt>A*x - lambda*x</tt>.
+     */
+    double[] getResiduals() {
+        return residuals;
+    }
+
+    /**
+     * Returns whether all the eigenpairs have converged.
+     */
+    boolean isConverged() {
+        return converged;
+    }
+
+    /**
+     * Returns the number of restarts.
+     */
+    int getRestarts() {
+        return restarts;
+    }
+
+    private void run(int m, double tol, int maxRestarts) {
+        Random random = new Random(0);
+        double[][] V = new double[m + 1][];
+        double[][] T = new double[m][m];
+        double[] w = new double[n];
+        V[0] = new double[n];
+        randomVector(random, V, 0);
+        int l = 0;
+        for (restarts = 0;; restarts++) {
+            // extend the basis to m vectors
+            double beta = 0;
+            for (int j = l; j < m; j++) {
+                A.apply(V[j], w);
+                double[] h = orthogonalize(V, j + 1, w);
+                for (int i = 0; i <= j; i++) {
+                    if (i >= l || j == l) {
+                        T[i][j] = h[i];
+                        T[j][i] = h[i];
+                    }
+                }
+                beta = h[j + 1];
+                if (V[j + 1] == null) {
+                    V[j + 1] = new double[n];
+                }
+                if (j + 1 < m && !(beta > 1e-10 * h[j + 2])) {
+                    // invariant subspace, continue with a new direction
+                    randomVector(random, V, j + 1);
+                } else if (beta > 0) {
+                    scale(1 / beta, w, V[j + 1]);
+                }
+            }
+
+            // Ritz pairs, best first
+            DenseDoubleEigenvalueDecomposition eig = new DenseDoubleEigenvalueDecomposition(new DenseDoubleMatrix2D(T));
+            double[] theta = eig.getRealEigenvalues().toArray();
+            double[][] S = eig.getV().toArray();
+            int[] order = order(theta);
+            double anorm = 0;
+            for (int i = 0; i < m; i++) {
+                anorm = Math.max(anorm, Math.abs(theta[i]));
+            }
+            int nconv = 0;
+            for (int i = 0; i < k; i++) {
+                double resid = Math.abs(beta * S[m - 1][order[i]]);
+                if (resid <= tol * Math.max(EPS23 * anorm, Math.abs(theta[order[i]]))) {
+                    nconv++;
+                }
+            }
+            converged = nconv == k;
+            if (converged || restarts >= maxRestarts || m == n) {
+                converged |= m == n;
+                values = new double[k];
+                residuals = new double[k];
+                for (int i = 0; i < k; i++) {
+                    values[i] = theta[order[i]];
+                    residuals[i] = Math.abs(beta * S[m - 1][order[i]]);
+                }
+                vectors = rotate(V, m, S, order, k);
+                return;
+            }
+
+            // thick restart with the best Ritz vectors and the residual vector
+            l = Math.min(m - 1, k + Math.max(nconv, (m - k) / 2));
+            double[][] X = rotate(V, m, S, order, l);
+            double[] r = V[m];
+            for (int i = 0; i < l; i++) {
+                V[i] = X[i];
+            }
+            V[m] = V[l];
+            V[l] = r;
+            for (int i = 0; i < m; i++) {
+                Arrays.fill(T[i], 0);
+            }
+            for (int i = 0; i < l; i++) {
+                T[i][i] = theta[order[i]];
+            }
+        }
+    }
+
+    /*
+     * Indexes of the Ritz values, best first.
+     */
+    private int[] order(final double[] theta) {
+        Integer[] idx = new Integer[theta.length];
+        for (int i = 0; i < idx.length; i++) {
+            idx[i] = i;
+        }
+        Arrays.sort(idx, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                double x = theta[a], y = theta[b];
+                switch (which) {
+                case SMALLEST_ALGEBRAIC:
+                    return Double.compare(x, y);
+                case LARGEST_MAGNITUDE:
+                    return Double.compare(Math.abs(y), Math.abs(x));
+                default:
+                    return Double.compare(y, x);
+                }
+            }
+        });
+        int[] order = new int[idx.length];
+        for (int i = 0; i < idx.length; i++) {
+            order[i] = idx[i];
+        }
+        return order;
+    }
+
+    /*
+     * Sets V[j] to a random unit vector orthogonal to V[0], ..., V[j - 1].
+     */
+    private void randomVector(Random random, double[][] V, int j) {
+        double[] v = V[j];
+        for (int attempt = 0; attempt < 3; attempt++) {
+            for (int i = 0; i < n; i++) {
+                v[i] = random.nextDouble() - 0.5;
+            }
+            double[] h = orthogonalize(V, j, v);
+            if (h[j] > 1e-10 * h[j + 1]) {
+                scale(1 / h[j], v, v);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("Cannot extend the Krylov basis");
+    }
+
+    /*
+     * Orthogonalizes w against V[0], ..., V[j - 1] by classical Gram-Schmidt
+     * applied twice. Returns the j coefficients, followed by the norm of w
+     * after and before the orthogonalization.
+     */
+    private double[] orthogonalize(final double[][] V, final int j, final double[] w) {
+        final double[] h = run(j + 1, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                for (int i = 0; i < j; i++) {
+                    sums[i] += dot(V[i], w, first, last);
+                }
+                sums[j] += dot(w, w, first, last);
+            }
+        });
+        final double[] h2 = run(j, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                for (int i = 0; i < j; i++) {
+                    axpy(-h[i], V[i], w, first, last);
+                }
+                for (int i = 0; i < j; i++) {
+                    sums[i] += dot(V[i], w, first, last);
+                }
+            }
+        });
+        double norm = run(1, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                for (int i = 0; i < j; i++) {
+                    axpy(-h2[i], V[i], w, first, last);
+                }
+                sums[0] += dot(w, w, first, last);
+            }
+        })[0];
+        double[] result = new double[j + 2];
+        for (int i = 0; i < j; i++) {
+            result[i] = h[i] + h2[i];
+        }
+        result[j] = Math.sqrt(norm);
+        result[j + 1] = Math.sqrt(h[j]);
+        return result;
+    }
+
+    /*
+     * Returns X[c] = sum[i<m] V[i] * S[i][order[c]] for c < count.
+     */
+    private double[][] rotate(final double[][] V, final int m, final double[][] S, final int[] order, final int count) {
+        final double[][] X = new double[count][n];
+        run(0, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                for (int c = 0; c < count; c++) {
+                    for (int i = 0; i < m; i++) {
+                        axpy(S[i][order[c]], V[i], X[c], first, last);
+                    }
+                }
+            }
+        });
+        return X;
+    }
+
+    private void scale(final double alpha, final double[] x, final double[] y) {
+        run(0, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                for (int i = first; i < last; i++) {
+                    y[i] = alpha * x[i];
+                }
+            }
+        });
+    }
+
+    private static double dot(double[] x, double[] y, int first, int last) {
+        double sum = 0;
+        for (int i = first; i < last; i++) {
+            sum += x[i] * y[i];
+        }
+        return sum;
+    }
+
+    private static void axpy(double alpha, double[] x, double[] y, int first, int last) {
+        if (alpha != 0) {
+            for (int i = first; i < last; i++) {
+                y[i] += alpha * x[i];
+            }
+        }
+    }
+
+    /*
+     * Runs the kernel on all the rows, in parallel if there are enough of
+     * them, and returns the sums of its inner products.
+     */
+    private double[] run(int nsums, final Kernel kernel) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (n >= ConcurrencyUtils.getThreadsBeginN_1D())) {
+            nthreads = Math.min(nthreads, n);
+            Future<?>[] futures = new Future[nthreads];
+            final double[][] partial = new double[nthreads][nsums];
+            int p = n / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstIdx = j * p;
+                final int lastIdx = (j == nthreads - 1) ? n : firstIdx + p;
+                final double[] sums = partial[j];
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        kernel.run(firstIdx, lastIdx, sums);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+            double[] sums = new double[nsums];
+            for (int j = 0; j < nthreads; j++)
+                for (int l = 0; l < nsums; l++)
+                    sums[l] += partial[j][l];
+            return sums;
+        } else {
+            double[] sums = new double[nsums];
+            kernel.run(0, n, sums);
+            return sums;
+        }
+    }
+}
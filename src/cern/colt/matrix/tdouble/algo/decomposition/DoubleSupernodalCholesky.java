@@ -0,0 +1,718 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import edu.emory.mathcs.csparsej.tdouble.Dcs_amd;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_counts;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_etree;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_post;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcs;
+import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcss;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TaskGraph;
+
+/**
+ * Supernodal multifrontal Cholesky factorization <tt>P*A*P' = L*L'</tt> of a
+ * sparse symmetric positive definite matrix, of which the upper triangular
+ * part is used.
+ * <p>
+ * The symbolic analysis orders the matrix, postorders its elimination tree
+ * and groups chains of columns with nested structures into supernodes, also
+ * merging small supernodes at the cost of some explicit zeros. Every
+ * supernode is factored as a dense frontal matrix: the entries of <tt>A</tt>
+ * and the update matrices of the child supernodes are assembled into it, its
+ * columns are factored by blocked dense kernels, and the remaining Schur
+ * complement is passed on to the parent. Independent subtrees of the
+ * supernodal elimination tree are factored in parallel, and the dense kernels
+ * of the large frontal matrices near the root are split among threads as
+ * well.
+ * <p>
+ * A frontal matrix is stored by columns, each one holding the entries on and
+ * below the diagonal, so that the factor and the update matrices are taken
+ * from it without copies, and no array is larger than the number of rows of
+ * a supernode.
+ */
+final class DoubleSupernodalCholesky {
+
+    /*
+     * Width of the column blocks of the dense factorization.
+     */
+    private static final int BLOCK = 48;
+
+    /*
+     * Minimum number of flops of a dense kernel for splitting it among
+     * threads.
+     */
+    private static final long PARALLEL_FLOPS = 1L << 21;
+
+    private final int n;
+
+    /*
+     * pinv[i] is the position of row i of A in the factored matrix, perm is
+     * the inverse permutation.
+     */
+    private final int[] pinv, perm;
+
+    /*
+     * Elimination tree and column counts of L.
+     */
+    private final int[] parent, counts;
+
+    /*
+     * Supernode s has the columns first[s], ..., first[s + 1] - 1 of L, and
+     * the rows below[s] below them; its parent supernode is sparent[s].
+     */
+    private final int nsuper;
+
+    private final int[] first, sparent;
+
+    private final int[][] below;
+
+    /*
+     * Children of the supernodes, and first descendant in postorder.
+     */
+    private final int[] childptr, children, firstDescendant;
+
+    /*
+     * Lower triangular part of the permuted matrix in compressed column form;
+     * cmap[p] is the position of the p-th entry of A in it, or -1 for the
+     * entries of the strictly lower part of A. clocal[q] is the row of the
+     * q-th entry in the frontal matrix of its supernode.
+     */
+    private final int[] cptr, cmap, clocal;
+
+    /*
+     * Positions of the rows of the update matrix of a supernode in the
+     * frontal matrix of its parent.
+     */
+    private final int[][] relative;
+
+    /*
+     * Estimated number of flops of the supernodes.
+     */
+    private final long[] work;
+
+    private final long lnz;
+
+    /*
+     * Columns of the factor; column j of supernode s holds the entries of the
+     * rows j, ..., of the frontal matrix.
+     */
+    private double[][][] factor;
+
+    /**
+     * Symbolic analysis of the given square matrix.
+     *
+     * @param A
+     *            square matrix in compressed column form
+     * @param order
+     *            ordering option (0 or 1); 0: natural ordering, 1: amd(A+A')
+     */
+    DoubleSupernodalCholesky(Dcs A, int order) {
+        n = A.n;
+
+        // order, and postorder the elimination tree
+        int[] P = order == 0 ? null : Dcs_amd.cs_amd(1, A);
+        int[] q = new int[n];
+        for (int k = 0; k < n; k++) {
+            q[P != null ? P[k] : k] = k;
+        }
+        int[] post = Dcs_post.cs_post(Dcs_etree.cs_etree(upperPattern(A, q), false), n);
+        perm = new int[n];
+        pinv = new int[n];
+        for (int k = 0; k < n; k++) {
+            perm[k] = P != null ? P[post[k]] : post[k];
+            pinv[perm[k]] = k;
+        }
+        Dcs C = upperPattern(A, pinv);
+        parent = Dcs_etree.cs_etree(C, false);
+        counts = Dcs_counts.cs_counts(C, parent, Dcs_post.cs_post(parent, n), false);
+        long nz = 0;
+        for (int j = 0; j < n; j++) {
+            nz += counts[j];
+        }
+        lnz = nz;
+
+        // lower triangular part of the permuted matrix
+        int anz = A.p[n];
+        cptr = new int[n + 1];
+        cmap = new int[anz];
+        for (int j = 0; j < n; j++) {
+            for (int p = A.p[j]; p < A.p[j + 1]; p++) {
+                int i = A.i[p];
+                if (i <= j) {
+                    cptr[Math.min(pinv[i], pinv[j]) + 1]++;
+                }
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            cptr[j + 1] += cptr[j];
+        }
+        int[] next = Arrays.copyOf(cptr, n);
+        int[] crow = new int[cptr[n]];
+        for (int j = 0; j < n; j++) {
+            for (int p = A.p[j]; p < A.p[j + 1]; p++) {
+                int i = A.i[p];
+                if (i <= j) {
+                    int c = Math.min(pinv[i], pinv[j]);
+                    int pos = next[c]++;
+                    crow[pos] = Math.max(pinv[i], pinv[j]);
+                    cmap[p] = pos;
+                } else {
+                    cmap[p] = -1;
+                }
+            }
+        }
+
+        // supernodes: chains of the elimination tree, relaxed
+        int[] firsts = new int[n + 1];
+        int ns = 0;
+        long actual = 0;
+        for (int j = 0; j < n; j++) {
+            boolean merge = false;
+            if (j > 0 && parent[j - 1] == j) {
+                long nc = j - firsts[ns - 1] + 1;
+                long merged = nc * (nc + 1) / 2 + nc * (counts[j] - 1);
+                long zeros = merged - (actual + counts[j]);
+                merge = zeros == 0 || nc <= 4 || (nc <= 16 && zeros < 0.8 * merged)
+                        || (nc <= 48 && zeros < 0.1 * merged) || zeros < 0.05 * merged;
+            }
+            if (merge) {
+                actual += counts[j];
+            } else {
+                firsts[ns++] = j;
+                actual = counts[j];
+            }
+        }
+        firsts[ns] = n;
+        nsuper = ns;
+        first = Arrays.copyOf(firsts, ns + 1);
+        int[] snode = new int[n];
+        for (int s = 0; s < ns; s++) {
+            for (int j = first[s]; j < first[s + 1]; j++) {
+                snode[j] = s;
+            }
+        }
+        sparent = new int[ns];
+        childptr = new int[ns + 1];
+        for (int s = 0; s < ns; s++) {
+            int p = parent[first[s + 1] - 1];
+            sparent[s] = p < 0 ? -1 : snode[p];
+            if (p >= 0) {
+                childptr[sparent[s] + 1]++;
+            }
+        }
+        for (int s = 0; s < ns; s++) {
+            childptr[s + 1] += childptr[s];
+        }
+        children = new int[childptr[ns]];
+        next = Arrays.copyOf(childptr, ns);
+        firstDescendant = new int[ns];
+        for (int s = 0; s < ns; s++) {
+            firstDescendant[s] = s;
+        }
+        for (int s = 0; s < ns; s++) {
+            if (sparent[s] >= 0) {
+                children[next[sparent[s]]++] = s;
+                firstDescendant[sparent[s]] = Math.min(firstDescendant[sparent[s]], firstDescendant[s]);
+            }
+        }
+
+        // row structures: union of the entries of A and of the children
+        below = new int[ns][];
+        int[] mark = new int[n];
+        Arrays.fill(mark, -1);
+        int[] list = new int[n];
+        for (int s = 0; s < ns; s++) {
+            int last = first[s + 1] - 1;
+            int len = 0;
+            for (int j = first[s]; j <= last; j++) {
+                for (int p = cptr[j]; p < cptr[j + 1]; p++) {
+                    int i = crow[p];
+                    if (i > last && mark[i] != s) {
+                        mark[i] = s;
+                        list[len++] = i;
+                    }
+                }
+            }
+            for (int c = childptr[s]; c < childptr[s + 1]; c++) {
+                for (int i : below[children[c]]) {
+                    if (i > last && mark[i] != s) {
+                        mark[i] = s;
+                        list[len++] = i;
+                    }
+                }
+            }
+            below[s] = Arrays.copyOf(list, len);
+            Arrays.sort(below[s]);
+        }
+
+        // positions in the frontal matrices
+        clocal = new int[crow.length];
+        for (int s = 0; s < ns; s++) {
+            for (int j = first[s]; j < first[s + 1]; j++) {
+                for (int p = cptr[j]; p < cptr[j + 1]; p++) {
+                    clocal[p] = local(s, crow[p]);
+                }
+            }
+        }
+        relative = new int[ns][];
+        work = new long[ns];
+        for (int s = 0; s < ns; s++) {
+            int[] rows = below[s];
+            if (sparent[s] >= 0) {
+                relative[s] = new int[rows.length];
+                for (int k = 0; k < rows.length; k++) {
+                    relative[s][k] = local(sparent[s], rows[k]);
+                }
+            }
+            long nc = first[s + 1] - first[s];
+            long m = nc + rows.length;
+            work[s] = nc * m * m;
+        }
+    }
+
+    /**
+     * Returns the symbolic analysis in the form of CSparse.
+     */
+    Dcss getSymbolicAnalysis() {
+        Dcss S = new Dcss();
+        S.pinv = pinv.clone();
+        S.parent = parent.clone();
+        S.cp = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            S.cp[j + 1] = S.cp[j] + counts[j];
+        }
+        S.lnz = (int) Math.min(lnz, Integer.MAX_VALUE);
+        return S;
+    }
+
+    /**
+     * Numeric factorization of a matrix with the pattern of the analysed one.
+     *
+     * @throws IllegalArgumentException
+     *             if the matrix is not symmetric positive definite
+     */
+    void factor(Dcs A) {
+        final double[] cx = new double[cptr[n]];
+        for (int p = 0; p < cmap.length; p++) {
+            if (cmap[p] >= 0) {
+                cx[cmap[p]] += A.x[p];
+            }
+        }
+        final double[][][] L = new double[nsuper][][];
+        final double[][][] update = new double[nsuper][][];
+
+        // subtrees with little work are factored by one task
+        long total = 0;
+        long[] subtree = new long[nsuper];
+        for (int s = 0; s < nsuper; s++) {
+            subtree[s] += work[s];
+            if (sparent[s] >= 0) {
+                subtree[sparent[s]] += subtree[s];
+            }
+            total += work[s];
+        }
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        long threshold = nthreads > 1 ? total / (8 * nthreads) : total;
+        int[] task = new int[nsuper];
+        int ntasks = 0;
+        for (int s = 0; s < nsuper; s++) {
+            if (subtree[s] > threshold || sparent[s] < 0 || subtree[sparent[s]] > threshold) {
+                task[s] = ntasks++;
+            } else {
+                task[s] = -1;
+            }
+        }
+        TaskGraph graph = new TaskGraph(ntasks);
+        for (int s = 0; s < nsuper; s++) {
+            if (task[s] < 0) {
+                continue;
+            }
+            final int from = subtree[s] <= threshold ? firstDescendant[s] : s;
+            final int to = s;
+            int[] reads = new int[childptr[s + 1] - childptr[s]];
+            int len = 0;
+            for (int c = childptr[s]; c < childptr[s + 1]; c++) {
+                if (task[children[c]] >= 0) {
+                    reads[len++] = task[children[c]];
+                }
+            }
+            graph.add(new Runnable() {
+                public void run() {
+                    for (int t = from; t <= to; t++) {
+                        front(t, cx, L, update);
+                    }
+                }
+            }, Arrays.copyOf(reads, len), new int[] { task[s] });
+        }
+        graph.execute();
+        factor = L;
+    }
+
+    /**
+     * Solves <tt>L*L'*x = b</tt> for the permuted matrix, in place.
+     */
+    void solve(double[] x) {
+        // x = L\x
+        for (int s = 0; s < nsuper; s++) {
+            int f = first[s];
+            int nc = first[s + 1] - f;
+            int[] rows = below[s];
+            double[][] Ls = factor[s];
+            for (int j = 0; j < nc; j++) {
+                double[] col = Ls[j];
+                double xj = x[f + j] / col[0];
+                x[f + j] = xj;
+                if (xj != 0) {
+                    for (int r = j + 1; r < nc; r++) {
+                        x[f + r] -= col[r - j] * xj;
+                    }
+                    for (int k = 0, o = nc - j; k < rows.length; k++) {
+                        x[rows[k]] -= col[o + k] * xj;
+                    }
+                }
+            }
+        }
+        // x = L'\x
+        for (int s = nsuper - 1; s >= 0; s--) {
+            int f = first[s];
+            int nc = first[s + 1] - f;
+            int[] rows = below[s];
+            double[][] Ls = factor[s];
+            for (int j = nc - 1; j >= 0; j--) {
+                double[] col = Ls[j];
+                double sum = 0;
+                for (int r = j + 1; r < nc; r++) {
+                    sum += col[r - j] * x[f + r];
+                }
+                for (int k = 0, o = nc - j; k < rows.length; k++) {
+                    sum += col[o + k] * x[rows[k]];
+                }
+                x[f + j] = (x[f + j] - sum) / col[0];
+            }
+        }
+    }
+
+    /**
+     * Returns the factor <tt>L</tt> in compressed column form.
+     */
+    Dcs getL() {
+        // The stored entries include the explicit zeros of relaxed supernodes
+        long stored = 0;
+        for (int s = 0; s < nsuper; s++) {
+            long nc = first[s + 1] - first[s];
+            long m = nc + below[s].length;
+            stored += nc * m - nc * (nc - 1) / 2;
+        }
+        if (stored > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("L has more than Integer.MAX_VALUE stored entries");
+        }
+        int nz = (int) stored;
+        Dcs L = new Dcs();
+        L.m = n;
+        L.n = n;
+        L.nzmax = nz;
+        L.nz = -1;
+        L.p = new int[n + 1];
+        L.i = new int[nz];
+        L.x = new double[nz];
+        int pos = 0;
+        for (int s = 0; s < nsuper; s++) {
+            int f = first[s];
+            int nc = first[s + 1] - f;
+            int[] rows = below[s];
+            for (int j = 0; j < nc; j++) {
+                L.p[f + j] = pos;
+                double[] col = factor[s][j];
+                for (int r = j; r < nc; r++) {
+                    L.i[pos] = f + r;
+                    L.x[pos++] = col[r - j];
+                }
+                for (int k = 0, o = nc - j; k < rows.length; k++) {
+                    L.i[pos] = rows[k];
+                    L.x[pos++] = col[o + k];
+                }
+            }
+        }
+        L.p[n] = pos;
+        return L;
+    }
+
+    /*
+     * Pattern of the upper triangular part of P*A*P', where pinv[i] is the
+     * position of row i.
+     */
+    private static Dcs upperPattern(Dcs A, int[] pinv) {
+        int n = A.n;
+        Dcs C = new Dcs();
+        C.m = n;
+        C.n = n;
+        C.nz = -1;
+        C.p = new int[n + 1];
+        for (int j = 0; j < n; j++) {
+            for (int p = A.p[j]; p < A.p[j + 1]; p++) {
+                if (A.i[p] <= j) {
+                    C.p[Math.max(pinv[A.i[p]], pinv[j]) + 1]++;
+                }
+            }
+        }
+        for (int j = 0; j < n; j++) {
+            C.p[j + 1] += C.p[j];
+        }
+        C.nzmax = C.p[n];
+        C.i = new int[C.nzmax];
+        int[] next = Arrays.copyOf(C.p, n);
+        for (int j = 0; j < n; j++) {
+            for (int p = A.p[j]; p < A.p[j + 1]; p++) {
+                int i = A.i[p];
+                if (i <= j) {
+                    C.i[next[Math.max(pinv[i], pinv[j])]++] = Math.min(pinv[i], pinv[j]);
+                }
+            }
+        }
+        return C;
+    }
+
+    /*
+     * Position of row i in the frontal matrix of supernode s.
+     */
+    private int local(int s, int i) {
+        int f = first[s];
+        int nc = first[s + 1] - f;
+        if (i < f + nc) {
+            return i - f;
+        }
+        return nc + Arrays.binarySearch(below[s], i);
+    }
+
+    /*
+     * Assembles and factors the frontal matrix of supernode s.
+     */
+    private void front(int s, double[] cx, double[][][] L, double[][][] update) {
+        int f = first[s];
+        int nc = first[s + 1] - f;
+        int m = nc + below[s].length;
+        double[][] F = new double[m][];
+        for (int c = 0; c < m; c++) {
+            F[c] = new double[m - c];
+        }
+        for (int j = 0; j < nc; j++) {
+            double[] col = F[j];
+            for (int p = cptr[f + j]; p < cptr[f + j + 1]; p++) {
+                col[clocal[p] - j] += cx[p];
+            }
+        }
+        for (int c = childptr[s]; c < childptr[s + 1]; c++) {
+            int child = children[c];
+            double[][] U = update[child];
+            int[] rel = relative[child];
+            for (int k = 0; k < U.length; k++) {
+                double[] u = U[k];
+                double[] col = F[rel[k]];
+                int off = rel[k];
+                for (int r = k; r < U.length; r++) {
+                    col[rel[r] - off] += u[r - k];
+                }
+            }
+            update[child] = null;
+        }
+        factorFront(F, nc);
+        L[s] = Arrays.copyOf(F, nc);
+        update[s] = Arrays.copyOfRange(F, nc, m);
+    }
+
+    /*
+     * Factors the first nc columns of the frontal matrix F and updates the
+     * remaining ones with them, by blocks of columns.
+     */
+    private static void factorFront(final double[][] F, int nc) {
+        final int m = F.length;
+        for (int k = 0; k < nc; k += BLOCK) {
+            final int k0 = k;
+            final int k1 = Math.min(k + BLOCK, nc);
+            // diagonal block
+            for (int j = k0; j < k1; j++) {
+                double[] col = F[j];
+                for (int p = k0; p < j; p++) {
+                    double[] colp = F[p];
+                    double v = colp[j - p];
+                    if (v != 0) {
+                        for (int r = j; r < k1; r++) {
+                            col[r - j] -= v * colp[r - p];
+                        }
+                    }
+                }
+                double d = col[0];
+                if (!(d > 0)) {
+                    throw new IllegalArgumentException("Matrix is not symmetric positive definite");
+                }
+                d = Math.sqrt(d);
+                col[0] = d;
+                double scale = 1 / d;
+                for (int r = 1; r < k1 - j; r++) {
+                    col[r] *= scale;
+                }
+            }
+            if (k1 == m) {
+                break;
+            }
+            // rows below the diagonal block
+            long flops = (long) (m - k1) * (k1 - k0) * (k1 - k0);
+            forEachRange(k1, m, flops, false, new RangeTask() {
+                public void run(int r0, int r1) {
+                    trsm(F, k0, k1, r0, r1);
+                }
+            });
+            // trailing columns
+            flops = (long) (m - k1) * (m - k1) * (k1 - k0);
+            forEachRange(k1, m, flops, true, new RangeTask() {
+                public void run(int c0, int c1) {
+                    syrk(F, k0, k1, c0, c1);
+                }
+            });
+        }
+    }
+
+    /*
+     * L(r, j) = (F(r, j) - sum[k0<=p<j] L(r, p) * L(j, p)) / L(j, j) for the
+     * rows r0 <= r < r1 and the columns k0 <= j < k1.
+     */
+    private static void trsm(double[][] F, int k0, int k1, int r0, int r1) {
+        for (int j = k0; j < k1; j++) {
+            double[] col = F[j];
+            for (int p = k0; p < j; p++) {
+                double[] colp = F[p];
+                double v = colp[j - p];
+                if (v != 0) {
+                    int oc = -j, op = -p;
+                    for (int r = r0; r < r1; r++) {
+                        col[oc + r] -= v * colp[op + r];
+                    }
+                }
+            }
+            double scale = 1 / col[0];
+            for (int r = r0 - j; r < r1 - j; r++) {
+                col[r] *= scale;
+            }
+        }
+    }
+
+    /*
+     * F(r, c) -= sum[k0<=p<k1] L(r, p) * L(c, p) for the columns c0 <= c < c1
+     * and the rows r >= c.
+     */
+    private static void syrk(double[][] F, int k0, int k1, int c0, int c1) {
+        int m = F.length;
+        for (int c = c0; c < c1; c++) {
+            double[] col = F[c];
+            int p = k0;
+            for (; p + 3 < k1; p += 4) {
+                double[] a0 = F[p], a1 = F[p + 1], a2 = F[p + 2], a3 = F[p + 3];
+                double v0 = a0[c - p], v1 = a1[c - p - 1], v2 = a2[c - p - 2], v3 = a3[c - p - 3];
+                if (v0 == 0 && v1 == 0 && v2 == 0 && v3 == 0) {
+                    continue;
+                }
+                int o0 = -p, o1 = -p - 1, o2 = -p - 2, o3 = -p - 3;
+                for (int r = c; r < m; r++) {
+                    col[r - c] -= v0 * a0[o0 + r] + v1 * a1[o1 + r] + v2 * a2[o2 + r] + v3 * a3[o3 + r];
+                }
+            }
+            for (; p < k1; p++) {
+                double[] a = F[p];
+                double v = a[c - p];
+                if (v != 0) {
+                    for (int r = c; r < m; r++) {
+                        col[r - c] -= v * a[r - p];
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Work done on the indexes first, ..., last - 1.
+     */
+    private interface RangeTask {
+        void run(int first, int last);
+    }
+
+    /*
+     * Runs the task on the indexes from, ..., to - 1, split among threads if
+     * it has enough flops. If triangular is true, the work of index i is
+     * proportional to to - i, and the ranges are balanced accordingly. The
+     * ranges are claimed from a counter by the calling thread and by the
+     * helpers submitted to the pool, and the calling thread only waits for the
+     * ranges claimed by helpers that already run, so that it cannot block on
+     * a pool whose threads are busy, e.g. with the other tasks of the tree. If
+     * a range throws an exception, the ranges that were not started yet are
+     * skipped and the exception is rethrown.
+     */
+    private static void forEachRange(int from, int to, long flops, boolean triangular, final RangeTask task) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        int size = to - from;
+        if (nthreads <= 1 || flops < PARALLEL_FLOPS || size < 2 * nthreads) {
+            task.run(from, to);
+            return;
+        }
+        final int nchunks = Math.min(4 * nthreads, size);
+        final int[] bounds = new int[nchunks + 1];
+        bounds[0] = from;
+        for (int j = 1; j < nchunks; j++) {
+            int end;
+            if (triangular) {
+                // the indexes from end on hold (nchunks - j) / nchunks of the work
+                end = to - (int) Math.round(size * Math.sqrt((double) (nchunks - j) / nchunks));
+            } else {
+                end = from + (int) ((long) size * j / nchunks);
+            }
+            bounds[j] = Math.min(Math.max(end, bounds[j - 1]), to);
+        }
+        bounds[nchunks] = to;
+        final AtomicInteger next = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(nchunks);
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+        Runnable worker = new Runnable() {
+            public void run() {
+                for (int j = next.getAndIncrement(); j < nchunks; j = next.getAndIncrement()) {
+                    if (failure.get() == null) {
+                        try {
+                            task.run(bounds[j], bounds[j + 1]);
+                        } catch (Throwable e) {
+                            failure.compareAndSet(null, e);
+                        }
+                    }
+                    done.countDown();
+                }
+            }
+        };
+        for (int j = 1; j < nthreads; j++) {
+            ConcurrencyUtils.submit(worker);
+        }
+        worker.run();
+        // all ranges are claimed, by threads that are running
+        boolean interrupted = false;
+        while (true) {
+            try {
+                done.await();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        Throwable e = failure.get();
+        if (e instanceof RuntimeException) {
+            throw (RuntimeException) e;
+        } else if (e instanceof Error) {
+            throw (Error) e;
+        } else if (e != null) {
+            throw new RuntimeException(e);
+        }
+    }
+}
@@ -0,0 +1,735 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Eigenvalues and eigenvectors of a dense symmetric matrix by blocked
+ * Householder tridiagonalization and the divide-and-conquer method.
+ * <p>
+ * The reduction <tt>A = Q*T*Q'</tt> to a tridiagonal matrix <tt>T</tt>
+ * processes panels of <tt>NB</tt> columns as LAPACK's dsytrd: the
+ * matrix-vector products of a panel are split among threads by rows, and the
+ * trailing matrix is updated by two matrix products of rank <tt>NB</tt>. The
+ * eigenpairs of <tt>T</tt> are computed by Cuppen's divide-and-conquer method
+ * with the deflation of dlaed2, and the eigenvectors of the rank-one updates
+ * are computed by the Loewner formula of Gu and Eisenstat, so that they are
+ * orthogonal to working precision. The eigenvectors of the subproblems are
+ * combined, and <tt>Q</tt> is applied in the compact WY form, by matrix
+ * products that are blocked and parallel. When only the eigenvalues are
+ * wanted, <tt>T</tt> is diagonalized by the QL algorithm in
+ * <tt>O(n^2)</tt> operations.
+ * <p>
+ * The matrices are stored row by row in one-dimensional arrays.
+ */
+final class DoubleSymmetricEigensolver {
+
+    /*
+     * Work done on the indexes first, ..., last - 1.
+     */
+    private interface Range {
+        void run(int first, int last);
+    }
+
+    /**
+     * Size of the subproblems that are solved by the QL algorithm.
+     */
+    static final int LEAF = 32;
+
+    private static final int NB = 32;
+
+    private static final double EPS = Math.pow(2.0, -52.0);
+
+    private static final int MAX_ITERATIONS = 100;
+
+    private DoubleSymmetricEigensolver() {
+    }
+
+    /**
+     * Computes the eigenvalues of the symmetric matrix <tt>a</tt>, which is
+     * destroyed, into <tt>d</tt> in increasing order.
+     */
+    static void eigenvalues(int n, double[] a, double[] d) {
+        double[] e = new double[n];
+        tridiagonalize(n, a, d, e, new double[n]);
+        double scale = normalize(n, d, e);
+        for (int i = n - 1; i > 0; i--) {
+            e[i] = e[i - 1];
+        }
+        DenseDoubleEigenvalueDecomposition.tql2(n, d, e, null);
+        for (int i = 0; i < n; i++) {
+            d[i] *= scale;
+        }
+    }
+
+    /**
+     * Computes the eigenvalues of the symmetric matrix <tt>a</tt>, which is
+     * destroyed, into <tt>d</tt> in increasing order, and returns the
+     * eigenvectors, <tt>n x n</tt>.
+     */
+    static double[] eigenvectors(int n, double[] a, double[] d) {
+        double[] e = new double[n];
+        double[] tau = new double[n];
+        tridiagonalize(n, a, d, e, tau);
+        double[] q = new double[n * n];
+        divideAndConquer(n, d, e, q);
+        sort(n, d, q);
+        applyQ(n, a, tau, q);
+        return q;
+    }
+
+    /*
+     * Reduces the symmetric matrix a to the tridiagonal matrix with diagonal
+     * d and off-diagonal e, where e[k] couples k and k + 1. The Householder
+     * vectors H(k) = I - tau[k]*v*v', v = [0, ..., 0, 1, a[k+2..n-1][k]], are
+     * stored below the subdiagonal of a.
+     */
+    private static void tridiagonalize(final int n, final double[] a, double[] d, double[] e, double[] tau) {
+        final double[] V = new double[n * NB];
+        final double[] W = new double[n * NB];
+        final double[] v = new double[n];
+        final double[] y = new double[n];
+        double[] t = new double[2 * NB];
+        for (int p = 0; p < n - 1; p += NB) {
+            int pe = Math.min(p + NB, n - 1);
+            Arrays.fill(V, p * NB, n * NB, 0);
+            Arrays.fill(W, p * NB, n * NB, 0);
+            for (int k = p; k < pe; k++) {
+                final int c = k - p;
+                final int k1 = k + 1;
+
+                // update column k with the reflectors of the panel
+                if (c > 0) {
+                    int rk = k * NB;
+                    for (int i = k; i < n; i++) {
+                        int ri = i * NB;
+                        double s = 0;
+                        for (int l = 0; l < c; l++) {
+                            s += V[ri + l] * W[rk + l] + W[ri + l] * V[rk + l];
+                        }
+                        a[i * n + k] -= s;
+                    }
+                }
+                d[k] = a[k * n + k];
+
+                // reflector annihilating a[k+2..n-1][k]
+                double alpha = a[k1 * n + k];
+                double xmax = 0;
+                for (int i = k1; i < n; i++) {
+                    xmax = Math.max(xmax, Math.abs(a[i * n + k]));
+                }
+                double sigma = 0;
+                if (xmax > 0) {
+                    for (int i = k1 + 1; i < n; i++) {
+                        double x = a[i * n + k] / xmax;
+                        sigma += x * x;
+                    }
+                }
+                v[k1] = 1;
+                if (sigma == 0) {
+                    tau[k] = 0;
+                    e[k] = alpha;
+                    for (int i = k1 + 1; i < n; i++) {
+                        v[i] = 0;
+                    }
+                } else {
+                    double beta = -Math.copySign(xmax * Math.sqrt((alpha / xmax) * (alpha / xmax) + sigma), alpha);
+                    tau[k] = (beta - alpha) / beta;
+                    double scale = 1 / (alpha - beta);
+                    for (int i = k1 + 1; i < n; i++) {
+                        a[i * n + k] *= scale;
+                        v[i] = a[i * n + k];
+                    }
+                    e[k] = beta;
+                }
+                for (int i = k1; i < n; i++) {
+                    V[i * NB + c] = v[i];
+                }
+                if (tau[k] == 0) {
+                    continue;
+                }
+
+                // w = tau*(A - V*W' - W*V')*v, then w -= tau/2*(w'*v)*v
+                forEach(k1, n, (long) (n - k1) * (n - k1), new Range() {
+                    public void run(int first, int last) {
+                        for (int i = first; i < last; i++) {
+                            int ri = i * n;
+                            double s = 0;
+                            for (int j = k1; j < n; j++) {
+                                s += a[ri + j] * v[j];
+                            }
+                            y[i] = s;
+                        }
+                    }
+                });
+                Arrays.fill(t, 0);
+                for (int i = k1; i < n; i++) {
+                    int ri = i * NB;
+                    for (int l = 0; l < c; l++) {
+                        t[l] += W[ri + l] * v[i];
+                        t[NB + l] += V[ri + l] * v[i];
+                    }
+                }
+                double yv = 0;
+                for (int i = k1; i < n; i++) {
+                    int ri = i * NB;
+                    double s = y[i];
+                    for (int l = 0; l < c; l++) {
+                        s -= V[ri + l] * t[l] + W[ri + l] * t[NB + l];
+                    }
+                    y[i] = s;
+                    yv += s * v[i];
+                }
+                double gamma = -0.5 * tau[k] * tau[k] * yv;
+                for (int i = k1; i < n; i++) {
+                    W[i * NB + c] = tau[k] * y[i] + gamma * v[i];
+                }
+            }
+
+            // A22 -= V2*W2' + W2*V2'
+            int m = n - pe;
+            int nb = pe - p;
+            DenseDoubleMatrix2D A22 = new DenseDoubleMatrix2D(m, m, a, pe * n, pe, n, 1, true);
+            DenseDoubleMatrix2D V2 = new DenseDoubleMatrix2D(m, nb, V, pe * NB, 0, NB, 1, true);
+            DenseDoubleMatrix2D W2 = new DenseDoubleMatrix2D(m, nb, W, pe * NB, 0, NB, 1, true);
+            V2.zMult(W2, A22, -1, 1, false, true);
+            W2.zMult(V2, A22, -1, 1, false, true);
+        }
+        d[n - 1] = a[n * n - 1];
+    }
+
+    /*
+     * Computes X = Q*X, where Q = H(0)*...*H(n-2), by blocks of NB reflectors
+     * in the compact WY form I - Y*T*Y', the last block first.
+     */
+    private static void applyQ(int n, double[] a, double[] tau, double[] x) {
+        int nr = n - 1;
+        if (nr < 1) {
+            return;
+        }
+        double[] Y = new double[n * NB];
+        double[] T = new double[NB * NB];
+        double[] s = new double[NB];
+        double[] w1 = new double[NB * n];
+        double[] w2 = new double[NB * n];
+        for (int j0 = ((nr - 1) / NB) * NB; j0 >= 0; j0 -= NB) {
+            int nb = Math.min(NB, nr - j0);
+            int m = n - j0 - 1;
+            for (int r = 0; r < m; r++) {
+                int row = j0 + 1 + r;
+                for (int c = 0; c < nb; c++) {
+                    int k = j0 + c;
+                    Y[r * NB + c] = row <= k ? 0 : (row == k + 1 ? 1 : a[row * n + k]);
+                }
+            }
+
+            // T[0..c-1][c] = -tau[c]*T[0..c-1][0..c-1]*Y[:][0..c-1]'*Y[:][c]
+            Arrays.fill(T, 0);
+            for (int c = 0; c < nb; c++) {
+                double tc = tau[j0 + c];
+                T[c * NB + c] = tc;
+                for (int l = 0; l < c; l++) {
+                    double sum = 0;
+                    for (int r = c; r < m; r++) {
+                        sum += Y[r * NB + l] * Y[r * NB + c];
+                    }
+                    s[l] = -tc * sum;
+                }
+                for (int l = 0; l < c; l++) {
+                    double sum = 0;
+                    for (int i = l; i < c; i++) {
+                        sum += T[l * NB + i] * s[i];
+                    }
+                    T[l * NB + c] = sum;
+                }
+            }
+
+            // X2 -= Y*(T*(Y'*X2))
+            DenseDoubleMatrix2D Yv = new DenseDoubleMatrix2D(m, nb, Y, 0, 0, NB, 1, true);
+            DenseDoubleMatrix2D Tv = new DenseDoubleMatrix2D(nb, nb, T, 0, 0, NB, 1, true);
+            DenseDoubleMatrix2D Xv = new DenseDoubleMatrix2D(m, n, x, (j0 + 1) * n, 0, n, 1, true);
+            DenseDoubleMatrix2D W1 = new DenseDoubleMatrix2D(nb, n, w1, 0, 0, n, 1, true);
+            DenseDoubleMatrix2D W2 = new DenseDoubleMatrix2D(nb, n, w2, 0, 0, n, 1, true);
+            Yv.zMult(Xv, W1, 1, 0, true, false);
+            Tv.zMult(W1, W2, 1, 0, false, false);
+            Yv.zMult(W2, Xv, -1, 1, false, false);
+        }
+    }
+
+    /*
+     * Computes the eigenvalues d, in no particular order, and the eigenvectors
+     * q of the tridiagonal matrix (d, e). The matrix is split recursively into
+     * halves by rank-one modifications; the leaves are solved in parallel and
+     * the merges are done bottom-up, each of them in parallel. The matrix is
+     * scaled to a max-norm of 1 as in dstedc, since the deflation tolerance
+     * compares the diagonal with the components of unit vectors.
+     */
+    private static void divideAndConquer(final int n, final double[] d, final double[] e, final double[] q) {
+        double scale = normalize(n, d, e);
+        final List<int[]> leaves = new ArrayList<int[]>();
+        List<int[]> merges = new ArrayList<int[]>();
+        split(d, e, 0, n, leaves, merges);
+        forEach(0, leaves.size(), (long) n * LEAF * LEAF, new Range() {
+            public void run(int first, int last) {
+                for (int l = first; l < last; l++) {
+                    int lo = leaves.get(l)[0];
+                    int s = leaves.get(l)[1] - lo;
+                    double[] dd = new double[s];
+                    double[] ee = new double[s];
+                    double[][] Q = new double[s][s];
+                    for (int i = 0; i < s; i++) {
+                        dd[i] = d[lo + i];
+                        ee[i] = i > 0 ? e[lo + i - 1] : 0;
+                        Q[i][i] = 1;
+                    }
+                    DenseDoubleEigenvalueDecomposition.tql2(s, dd, ee, Q);
+                    for (int i = 0; i < s; i++) {
+                        d[lo + i] = dd[i];
+                        System.arraycopy(Q[i], 0, q, (lo + i) * n + lo, s);
+                    }
+                }
+            }
+        });
+        for (int[] merge : merges) {
+            merge(n, d, e, q, merge[0], merge[1], merge[2]);
+        }
+        for (int i = 0; i < n; i++) {
+            d[i] *= scale;
+        }
+    }
+
+    /*
+     * Scales the tridiagonal matrix (d, e) by a power of two to a max-norm in
+     * [1, 2), which avoids overflows and underflows in the QL iterations, and
+     * returns the scale.
+     */
+    private static double normalize(int n, double[] d, double[] e) {
+        double scale = 0;
+        for (int i = 0; i < n; i++) {
+            scale = Math.max(scale, Math.abs(d[i]));
+            if (i < n - 1) {
+                scale = Math.max(scale, Math.abs(e[i]));
+            }
+        }
+        if (scale == 0 || Double.isNaN(scale) || Double.isInfinite(scale)) {
+            return 1;
+        }
+        scale = Math.scalb(1.0, Math.getExponent(scale));
+        for (int i = 0; i < n; i++) {
+            d[i] /= scale;
+            e[i] /= scale;
+        }
+        return scale;
+    }
+
+    /*
+     * Splits (d[lo..hi-1], e) into leaves, subtracting the rank-one
+     * modifications from the diagonal, and lists the merges in postorder.
+     */
+    private static void split(double[] d, double[] e, int lo, int hi, List<int[]> leaves, List<int[]> merges) {
+        if (hi - lo <= LEAF) {
+            leaves.add(new int[] { lo, hi });
+            return;
+        }
+        int mid = (lo + hi) >>> 1;
+        double beta = Math.abs(e[mid - 1]);
+        d[mid - 1] -= beta;
+        d[mid] -= beta;
+        split(d, e, lo, mid, leaves, merges);
+        split(d, e, mid, hi, leaves, merges);
+        merges.add(new int[] { lo, mid, hi });
+    }
+
+    /*
+     * Merges the eigensystems of the blocks [lo, mid) and [mid, hi) of q into
+     * the eigensystem of [lo, hi) after the rank-one update
+     * rho*z*z' with rho = 2*|e[mid-1]|.
+     */
+    private static void merge(final int n, double[] d, double[] e, double[] q, int lo, int mid, int hi) {
+        final int s = hi - lo;
+        final int m = mid - lo;
+        final int o = lo * n + lo;
+        double beta = e[mid - 1];
+        final double rho = 2 * Math.abs(beta);
+        double[] z = new double[s];
+        double[] D = new double[s];
+        double dmax = 0, zmax = 0;
+        double c0 = Math.sqrt(0.5);
+        for (int j = 0; j < s; j++) {
+            z[j] = j < m ? c0 * q[o + (m - 1) * n + j] : Math.copySign(c0, beta) * q[o + m * n + j];
+            D[j] = d[lo + j];
+            dmax = Math.max(dmax, Math.abs(D[j]));
+            zmax = Math.max(zmax, Math.abs(z[j]));
+        }
+
+        // deflation of the small components of z and of close eigenvalues
+        double tol = 8 * EPS * Math.max(dmax, zmax);
+        int[] perm = order(D, s);
+        int[] ndl = new int[s];
+        int[] dfl = new int[s];
+        double[][] dense = new double[s][];
+        int K = 0;
+        int ndfl = 0;
+        int pj = -1;
+        for (int t = 0; t < s; t++) {
+            int j = perm[t];
+            if (rho * Math.abs(z[j]) <= tol) {
+                dfl[ndfl++] = j;
+                continue;
+            }
+            if (pj >= 0) {
+                double c = z[j];
+                double sn = z[pj];
+                double r = Math.hypot(c, sn);
+                c /= r;
+                sn = -sn / r;
+                if (Math.abs((D[j] - D[pj]) * c * sn) <= tol) {
+                    z[j] = r;
+                    z[pj] = 0;
+                    double[] x = column(n, q, o, m, s, dense, pj);
+                    double[] y = column(n, q, o, m, s, dense, j);
+                    for (int i = 0; i < s; i++) {
+                        double xi = x[i];
+                        x[i] = c * xi + sn * y[i];
+                        y[i] = c * y[i] - sn * xi;
+                    }
+                    dense[pj] = x;
+                    dense[j] = y;
+                    double dp = D[pj] * c * c + D[j] * sn * sn;
+                    D[j] = D[pj] * sn * sn + D[j] * c * c;
+                    D[pj] = dp;
+                    dfl[ndfl++] = pj;
+                    pj = j;
+                    continue;
+                }
+                ndl[K++] = pj;
+            }
+            pj = j;
+        }
+        if (pj >= 0) {
+            ndl[K++] = pj;
+        }
+
+        // columns of the remaining problem by type: upper, dense, lower
+        final int nK = K;
+        final double[] dk = new double[K];
+        final double[] zk = new double[K];
+        int nu = 0, nd = 0;
+        for (int i = 0; i < K; i++) {
+            int j = ndl[i];
+            dk[i] = D[j];
+            zk[i] = z[j];
+            if (dense[j] != null) {
+                nd++;
+            } else if (j < m) {
+                nu++;
+            }
+        }
+        final int[] tpos = new int[K];
+        int iu = 0, id = nu, il = nu + nd;
+        for (int i = 0; i < K; i++) {
+            int j = ndl[i];
+            tpos[i] = dense[j] != null ? id++ : (j < m ? iu++ : il++);
+        }
+
+        // roots of the secular equation and eigenvectors S of the update
+        final double[] lambda = new double[K];
+        final double[] S = new double[K * K];
+        forEach(0, K, 16L * K * K, new Range() {
+            public void run(int first, int last) {
+                double[] delta = new double[nK];
+                for (int i = first; i < last; i++) {
+                    lambda[i] = secular(i, dk, zk, rho, delta);
+                    for (int j = 0; j < nK; j++) {
+                        S[tpos[j] * nK + i] = delta[j];
+                    }
+                }
+            }
+        });
+        forEach(0, K, (long) K * K, new Range() {
+            public void run(int first, int last) {
+                for (int j = first; j < last; j++) {
+                    int r = tpos[j] * nK;
+                    double p = -S[r + j] / rho;
+                    for (int i = 0; i < nK; i++) {
+                        if (i != j) {
+                            p *= S[r + i] / (dk[j] - dk[i]);
+                        }
+                    }
+                    double zj = Math.copySign(Math.sqrt(Math.max(p, 0)), zk[j]);
+                    for (int i = 0; i < nK; i++) {
+                        S[r + i] = zj / S[r + i];
+                    }
+                }
+            }
+        });
+        forEach(0, K, (long) K * K, new Range() {
+            public void run(int first, int last) {
+                double[] norm = new double[last - first];
+                for (int r = 0; r < nK; r++) {
+                    for (int i = first; i < last; i++) {
+                        norm[i - first] += S[r * nK + i] * S[r * nK + i];
+                    }
+                }
+                for (int i = first; i < last; i++) {
+                    norm[i - first] = 1 / Math.sqrt(norm[i - first]);
+                }
+                for (int r = 0; r < nK; r++) {
+                    for (int i = first; i < last; i++) {
+                        S[r * nK + i] *= norm[i - first];
+                    }
+                }
+            }
+        });
+
+        // gather the eigenvectors of the subproblems
+        int ct = nu + nd;
+        int cb = K - nu;
+        double[] gt = new double[m * ct];
+        double[] gb = new double[(s - m) * cb];
+        for (int i = 0; i < K; i++) {
+            int j = ndl[i];
+            int t = tpos[i];
+            if (t < nu) {
+                for (int r = 0; r < m; r++) {
+                    gt[r * ct + t] = q[o + r * n + j];
+                }
+            } else if (t < ct) {
+                for (int r = 0; r < m; r++) {
+                    gt[r * ct + t] = dense[j][r];
+                }
+                for (int r = m; r < s; r++) {
+                    gb[(r - m) * cb + t - nu] = dense[j][r];
+                }
+            } else {
+                for (int r = m; r < s; r++) {
+                    gb[(r - m) * cb + t - nu] = q[o + r * n + j];
+                }
+            }
+        }
+        double[] dv = new double[s * ndfl];
+        for (int t = 0; t < ndfl; t++) {
+            int j = dfl[t];
+            double[] x = column(n, q, o, m, s, dense, j);
+            for (int r = 0; r < s; r++) {
+                dv[r * ndfl + t] = x[r];
+            }
+            d[lo + K + t] = D[j];
+        }
+        for (int i = 0; i < K; i++) {
+            d[lo + i] = lambda[i];
+        }
+
+        // eigenvectors of the merged problem
+        product(m, K, ct, gt, S, 0, q, o, n);
+        product(s - m, K, cb, gb, S, nu * K, q, o + m * n, n);
+        for (int r = 0; r < s; r++) {
+            System.arraycopy(dv, r * ndfl, q, o + r * n + K, ndfl);
+        }
+    }
+
+    /*
+     * Returns the column j of the block of q at o, or its rotated copy.
+     */
+    private static double[] column(int n, double[] q, int o, int m, int s, double[][] dense, int j) {
+        if (dense[j] != null) {
+            return dense[j];
+        }
+        double[] x = new double[s];
+        int first = j < m ? 0 : m;
+        int last = j < m ? m : s;
+        for (int r = first; r < last; r++) {
+            x[r] = q[o + r * n + j];
+        }
+        return x;
+    }
+
+    /*
+     * Computes C = A*B, where A is rows x inner, B starts at b0 of b with
+     * cols columns, and C starts at c0 of c with the row stride ldc.
+     */
+    private static void product(int rows, int cols, int inner, double[] a, double[] b, int b0, double[] c, int c0,
+            int ldc) {
+        if (rows == 0 || cols == 0) {
+            return;
+        }
+        DenseDoubleMatrix2D C = new DenseDoubleMatrix2D(rows, cols, c, c0, 0, ldc, 1, true);
+        if (inner == 0) {
+            C.assign(0);
+            return;
+        }
+        DenseDoubleMatrix2D A = new DenseDoubleMatrix2D(rows, inner, a, 0, 0, inner, 1, true);
+        DenseDoubleMatrix2D B = new DenseDoubleMatrix2D(inner, cols, b, b0, 0, cols, 1, true);
+        A.zMult(B, C, 1, 0, false, false);
+    }
+
+    /*
+     * Computes the i-th root, in increasing order, of the secular equation
+     * 1/rho + sum(z[j]^2 / (d[j] - lambda)) = 0 for increasing d, with the
+     * differences delta[j] = d[j] - lambda computed from the nearest pole.
+     * The iteration is the two-pole model of dlaed4, safeguarded by bisection.
+     */
+    private static double secular(int i, double[] d, double[] z, double rho, double[] delta) {
+        int K = d.length;
+        double rhoinv = 1 / rho;
+        if (K == 1) {
+            delta[0] = -rho * z[0] * z[0];
+            return d[0] - delta[0];
+        }
+        int origin;
+        double lo, hi;
+        if (i < K - 1) {
+            double mid = (d[i + 1] - d[i]) / 2;
+            double w = rhoinv;
+            for (int j = 0; j < K; j++) {
+                w += z[j] * z[j] / ((d[j] - d[i]) - mid);
+            }
+            if (w >= 0) {
+                origin = i;
+                lo = 0;
+                hi = mid;
+            } else {
+                origin = i + 1;
+                lo = -mid;
+                hi = 0;
+            }
+        } else {
+            double zz = 0;
+            for (int j = 0; j < K; j++) {
+                zz += z[j] * z[j];
+            }
+            origin = i;
+            lo = 0;
+            hi = rho * zz * (1 + 4 * EPS);
+        }
+        int split = Math.min(i, K - 2);
+        double dorg = d[origin];
+        double tau = (lo + hi) / 2;
+        for (int iter = 0; iter < MAX_ITERATIONS; iter++) {
+            double psi = 0, dpsi = 0, phi = 0, dphi = 0;
+            for (int j = 0; j < K; j++) {
+                delta[j] = (d[j] - dorg) - tau;
+                double t = z[j] / delta[j];
+                if (j <= split) {
+                    psi += z[j] * t;
+                    dpsi += t * t;
+                } else {
+                    phi += z[j] * t;
+                    dphi += t * t;
+                }
+            }
+            double w = rhoinv + psi + phi;
+            if (Math.abs(w) <= EPS * (8 * (phi - psi) + 2 * rhoinv + 3 * Math.abs(tau) * (dpsi + dphi))) {
+                return dorg + tau;
+            }
+            if (w > 0) {
+                hi = tau;
+            } else {
+                lo = tau;
+            }
+            double di = delta[split];
+            double dip1 = delta[split + 1];
+            double a = (di + dip1) * w - di * dip1 * (dpsi + dphi);
+            double b = di * dip1 * w;
+            double c = w - di * dpsi - dip1 * dphi;
+            double eta;
+            if (c == 0) {
+                eta = a == 0 ? -w / (dpsi + dphi) : b / a;
+            } else if (a <= 0) {
+                eta = (a - Math.sqrt(Math.abs(a * a - 4 * b * c))) / (2 * c);
+            } else {
+                eta = 2 * b / (a + Math.sqrt(Math.abs(a * a - 4 * b * c)));
+            }
+            if (!(w * eta < 0)) {
+                eta = -w / (dpsi + dphi);
+            }
+            double next = tau + eta;
+            if (!(next > lo && next < hi)) {
+                next = (tau + (w > 0 ? lo : hi)) / 2;
+            }
+            if (next == tau) {
+                break;
+            }
+            tau = next;
+        }
+        for (int j = 0; j < K; j++) {
+            delta[j] = (d[j] - dorg) - tau;
+        }
+        return dorg + tau;
+    }
+
+    /*
+     * Sorts the eigenvalues in increasing order, with the columns of q.
+     */
+    private static void sort(final int n, double[] d, final double[] q) {
+        final int[] perm = order(d, n);
+        double[] sorted = new double[n];
+        for (int i = 0; i < n; i++) {
+            sorted[i] = d[perm[i]];
+        }
+        System.arraycopy(sorted, 0, d, 0, n);
+        forEach(0, n, (long) n * n, new Range() {
+            public void run(int first, int last) {
+                double[] row = new double[n];
+                for (int r = first; r < last; r++) {
+                    System.arraycopy(q, r * n, row, 0, n);
+                    for (int c = 0; c < n; c++) {
+                        q[r * n + c] = row[perm[c]];
+                    }
+                }
+            }
+        });
+    }
+
+    /*
+     * Indexes of the first n values, in increasing order of the values.
+     */
+    private static int[] order(final double[] values, int n) {
+        Integer[] idx = new Integer[n];
+        for (int i = 0; i < n; i++) {
+            idx[i] = i;
+        }
+        Arrays.sort(idx, new Comparator<Integer>() {
+            public int compare(Integer a, Integer b) {
+                return Double.compare(values[a], values[b]);
+            }
+        });
+        int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[i] = idx[i];
+        }
+        return order;
+    }
+
+    /*
+     * Runs the range on first, ..., last - 1, split among threads if the work
+     * is large enough.
+     */
+    private static void forEach(int first, int last, long work, final Range range) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        int count = last - first;
+        if ((nthreads > 1) && (count > 1) && (work >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            nthreads = Math.min(nthreads, count);
+            Future<?>[] futures = new Future[nthreads];
+            int p = count / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstIdx = first + j * p;
+                final int lastIdx = (j == nthreads - 1) ? last : firstIdx + p;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        range.run(firstIdx, lastIdx);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            range.run(first, last);
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import java.util.concurrent.Future;
+
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Dense matrix stored as a grid of square tiles of <tt>nb x nb</tt> elements
+ * (smaller at the last tile row and column). Each tile is a separate array
+ * holding its elements in column major order, so that the kernels of
+ * {@link DoubleTiledFactorization} work on contiguous, cache resident data.
+ */
+final class DoubleTileMatrix implements java.io.Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Default tile size.
+     */
+    static final int TILE_SIZE = 128;
+
+    final int m, n, nb, mt, nt;
+
+    /*
+     * Tile (i,j) is tiles[i * nt + j], with leading dimension rows(i); null
+     * above the diagonal of a lower tile matrix.
+     */
+    final double[][] tiles;
+
+    /**
+     * Constructs an <tt>m x n</tt> matrix of zeros; if <tt>lower</tt> is true,
+     * only the tiles on and below the diagonal are allocated.
+     */
+    DoubleTileMatrix(int m, int n, int nb, boolean lower) {
+        this.m = m;
+        this.n = n;
+        this.nb = nb;
+        this.mt = (m + nb - 1) / nb;
+        this.nt = (n + nb - 1) / nb;
+        this.tiles = new double[mt * nt][];
+        for (int i = 0; i < mt; i++) {
+            for (int j = 0; j < nt; j++) {
+                if (!lower || i >= j) {
+                    tiles[i * nt + j] = new double[rows(i) * columns(j)];
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the tile matrix holding the elements of <tt>a</tt>, an
+     * <tt>m x n</tt> matrix stored in row major order if <tt>rowMajor</tt> is
+     * true, in column major order otherwise.
+     */
+    static DoubleTileMatrix fromArray(double[] a, int m, int n, boolean rowMajor, boolean lower) {
+        DoubleTileMatrix A = new DoubleTileMatrix(m, n, TILE_SIZE, lower);
+        A.copy(a, rowMajor, true, lower);
+        return A;
+    }
+
+    /**
+     * Returns the <tt>n x n</tt> identity matrix.
+     */
+    static DoubleTileMatrix identity(int n) {
+        DoubleTileMatrix A = new DoubleTileMatrix(n, n, TILE_SIZE, false);
+        for (int i = 0; i < A.mt; i++) {
+            double[] t = A.tile(i, i);
+            int mb = A.rows(i);
+            for (int r = 0; r < mb; r++) {
+                t[r * mb + r] = 1;
+            }
+        }
+        return A;
+    }
+
+    /**
+     * Copies the elements of this matrix to <tt>a</tt>, stored in row major
+     * order if <tt>rowMajor</tt> is true, in column major order otherwise. If
+     * <tt>lower</tt> is true, only the lower triangle is copied.
+     */
+    void toArray(double[] a, boolean rowMajor, boolean lower) {
+        copy(a, rowMajor, false, lower);
+    }
+
+    int rows(int i) {
+        return Math.min(nb, m - i * nb);
+    }
+
+    int columns(int j) {
+        return Math.min(nb, n - j * nb);
+    }
+
+    double[] tile(int i, int j) {
+        return tiles[i * nt + j];
+    }
+
+    double get(int row, int column) {
+        int i = row / nb;
+        int j = column / nb;
+        return tile(i, j)[(column - j * nb) * rows(i) + row - i * nb];
+    }
+
+    private void copy(final double[] a, final boolean rowMajor, final boolean toTiles, final boolean lower) {
+        int ntiles = mt * nt;
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && ((long) m * n >= ConcurrencyUtils.getThreadsBeginN_2D()) && ntiles > 1) {
+            nthreads = Math.min(nthreads, ntiles);
+            Future<?>[] futures = new Future[nthreads];
+            int k = ntiles / nthreads;
+            for (int t = 0; t < nthreads; t++) {
+                final int firstTile = t * k;
+                final int lastTile = (t == nthreads - 1) ? ntiles : firstTile + k;
+                futures[t] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        for (int tile = firstTile; tile < lastTile; tile++) {
+                            copyTile(tile / nt, tile % nt, a, rowMajor, toTiles, lower);
+                        }
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            for (int tile = 0; tile < ntiles; tile++) {
+                copyTile(tile / nt, tile % nt, a, rowMajor, toTiles, lower);
+            }
+        }
+    }
+
+    private void copyTile(int i, int j, double[] a, boolean rowMajor, boolean toTiles, boolean lower) {
+        if (lower && i < j) {
+            return;
+        }
+        double[] t = tile(i, j);
+        int mb = rows(i);
+        int nbj = columns(j);
+        int r0 = i * nb;
+        int c0 = j * nb;
+        if (rowMajor) {
+            for (int r = 0; r < mb; r++) {
+                int last = (lower && i == j) ? r + 1 : nbj;
+                int ai = (r0 + r) * n + c0;
+                if (toTiles) {
+                    for (int c = 0; c < last; c++) {
+                        t[c * mb + r] = a[ai + c];
+                    }
+                } else {
+                    for (int c = 0; c < last; c++) {
+                        a[ai + c] = t[c * mb + r];
+                    }
+                }
+            }
+        } else {
+            for (int c = 0; c < nbj; c++) {
+                int first = (lower && i == j) ? c : 0;
+                int ai = (c0 + c) * m + r0 + first;
+                if (toTiles) {
+                    System.arraycopy(a, ai, t, c * mb + first, mb - first);
+                } else {
+                    System.arraycopy(t, c * mb + first, a, ai, mb - first);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,558 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import edu.emory.mathcs.utils.TaskGraph;
+
+/**
+ * Tiled Cholesky and QR factorizations of {@link DoubleTileMatrix} objects.
+ * <p>
+ * Each factorization is expressed as a graph of kernels working on single
+ * tiles (POTRF, TRSM, SYRK and GEMM for Cholesky; GEQRT, UNMQR, TSQRT and
+ * TSMQR for QR) which is executed by a {@link TaskGraph}, so that the updates
+ * of the trailing matrix overlap with the factorization of the next panels.
+ * The factorizations keep no global state and can run concurrently.
+ */
+final class DoubleTiledFactorization {
+
+    private DoubleTiledFactorization() {
+    }
+
+    /**
+     * Overwrites the lower triangle of the symmetric positive definite matrix
+     * <tt>A</tt> with its Cholesky factor <tt>L</tt>, so that
+     * <tt>A = L*L'</tt>.
+     *
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not positive definite.
+     */
+    static void potrf(final DoubleTileMatrix A) {
+        final int nt = A.nt;
+        TaskGraph graph = new TaskGraph(nt * nt);
+        for (int k = 0; k < nt; k++) {
+            final int kk = k;
+            graph.add(new Runnable() {
+                public void run() {
+                    potrf(A.tile(kk, kk), A.rows(kk));
+                }
+            }, null, new int[] { kk * nt + kk });
+            for (int i = k + 1; i < nt; i++) {
+                final int ii = i;
+                graph.add(new Runnable() {
+                    public void run() {
+                        trsm(A.tile(ii, kk), A.rows(ii), A.tile(kk, kk), A.rows(kk));
+                    }
+                }, new int[] { kk * nt + kk }, new int[] { ii * nt + kk });
+            }
+            for (int j = k + 1; j < nt; j++) {
+                final int jj = j;
+                graph.add(new Runnable() {
+                    public void run() {
+                        syrk(A.tile(jj, jj), A.rows(jj), A.tile(jj, kk), A.columns(kk));
+                    }
+                }, new int[] { jj * nt + kk }, new int[] { jj * nt + jj });
+                for (int i = j + 1; i < nt; i++) {
+                    final int ii = i;
+                    graph.add(new Runnable() {
+                        public void run() {
+                            gemmNT(A.tile(ii, jj), A.rows(ii), A.rows(jj), A.tile(ii, kk), A.tile(jj, kk), A
+                                    .columns(kk));
+                        }
+                    }, new int[] { ii * nt + kk, jj * nt + kk }, new int[] { ii * nt + jj });
+                }
+            }
+        }
+        graph.execute();
+    }
+
+    /**
+     * Computes the QR factorization of <tt>A</tt>, <tt>A.m >= A.n</tt>. On
+     * return the upper triangle of <tt>A</tt> holds <tt>R</tt>, and the
+     * Householder vectors below the diagonal together with the returned
+     * triangular factors <tt>T</tt> of the tiles (i,k), <tt>i >= k</tt>,
+     * represent <tt>Q</tt>.
+     */
+    static double[][] geqrf(final DoubleTileMatrix A) {
+        final int mt = A.mt;
+        final int nt = A.nt;
+        final double[][] T = new double[mt * nt][];
+        final int tOffset = mt * nt;
+        TaskGraph graph = new TaskGraph(2 * mt * nt);
+        for (int k = 0; k < Math.min(mt, nt); k++) {
+            final int kk = k;
+            final int kb = A.columns(k);
+            graph.add(new Runnable() {
+                public void run() {
+                    T[kk * nt + kk] = new double[kb * kb];
+                    geqrt(A.tile(kk, kk), A.rows(kk), kb, T[kk * nt + kk]);
+                }
+            }, null, new int[] { kk * nt + kk, tOffset + kk * nt + kk });
+            for (int j = k + 1; j < nt; j++) {
+                final int jj = j;
+                graph.add(new Runnable() {
+                    public void run() {
+                        unmqr(A.tile(kk, kk), A.rows(kk), kb, T[kk * nt + kk], A.tile(kk, jj), A.columns(jj), true);
+                    }
+                }, new int[] { kk * nt + kk, tOffset + kk * nt + kk }, new int[] { kk * nt + jj });
+            }
+            for (int i = k + 1; i < mt; i++) {
+                final int ii = i;
+                graph.add(new Runnable() {
+                    public void run() {
+                        T[ii * nt + kk] = new double[kb * kb];
+                        tsqrt(A.tile(kk, kk), A.rows(kk), A.tile(ii, kk), A.rows(ii), kb, T[ii * nt + kk]);
+                    }
+                }, null, new int[] { kk * nt + kk, ii * nt + kk, tOffset + ii * nt + kk });
+                for (int j = k + 1; j < nt; j++) {
+                    final int jj = j;
+                    graph.add(new Runnable() {
+                        public void run() {
+                            tsmqr(A.tile(kk, jj), A.rows(kk), A.tile(ii, jj), A.rows(ii), A.columns(jj), A.tile(
+                                    ii, kk), kb, T[ii * nt + kk], true);
+                        }
+                    }, new int[] { ii * nt + kk, tOffset + ii * nt + kk }, new int[] { kk * nt + jj, ii * nt + jj });
+                }
+            }
+        }
+        graph.execute();
+        return T;
+    }
+
+    /**
+     * Overwrites <tt>B</tt> with <tt>Q'*B</tt> if <tt>transpose</tt> is true,
+     * with <tt>Q*B</tt> otherwise, where <tt>Q</tt> is given by the result of
+     * {@link #geqrf(DoubleTileMatrix)}. <tt>B</tt> must have the tile rows of
+     * <tt>A</tt>.
+     */
+    static void ormqr(final DoubleTileMatrix A, final double[][] T, final DoubleTileMatrix B, final boolean transpose) {
+        final int mt = A.mt;
+        final int nt = A.nt;
+        final int bnt = B.nt;
+        TaskGraph graph = new TaskGraph(mt * bnt);
+        int kt = Math.min(mt, nt);
+        for (int s = 0; s < kt; s++) {
+            final int kk = transpose ? s : kt - 1 - s;
+            final int kb = A.columns(kk);
+            if (transpose) {
+                addUnmqr(graph, A, T, B, kk, kb, transpose);
+            }
+            for (int t = kk + 1; t < mt; t++) {
+                final int ii = transpose ? t : mt - t + kk;
+                for (int j = 0; j < bnt; j++) {
+                    final int jj = j;
+                    graph.add(new Runnable() {
+                        public void run() {
+                            tsmqr(B.tile(kk, jj), B.rows(kk), B.tile(ii, jj), B.rows(ii), B.columns(jj), A.tile(ii,
+                                    kk), kb, T[ii * nt + kk], transpose);
+                        }
+                    }, null, new int[] { kk * bnt + jj, ii * bnt + jj });
+                }
+            }
+            if (!transpose) {
+                addUnmqr(graph, A, T, B, kk, kb, transpose);
+            }
+        }
+        graph.execute();
+    }
+
+    private static void addUnmqr(TaskGraph graph, final DoubleTileMatrix A, final double[][] T,
+            final DoubleTileMatrix B, final int k, final int kb, final boolean transpose) {
+        final int bnt = B.nt;
+        for (int j = 0; j < bnt; j++) {
+            final int jj = j;
+            graph.add(new Runnable() {
+                public void run() {
+                    unmqr(A.tile(k, k), A.rows(k), kb, T[k * A.nt + k], B.tile(k, jj), B.columns(jj), transpose);
+                }
+            }, null, new int[] { k * bnt + jj });
+        }
+    }
+
+    /**
+     * Overwrites the first <tt>A.n</tt> rows of <tt>B</tt> with
+     * <tt>R\B</tt>, where <tt>R</tt> is the upper triangle of the first
+     * <tt>A.n</tt> rows of <tt>A</tt>. <tt>B</tt> must have the tile rows of
+     * <tt>A</tt>.
+     */
+    static void trsmUpper(final DoubleTileMatrix A, final DoubleTileMatrix B) {
+        final int bnt = B.nt;
+        TaskGraph graph = new TaskGraph(B.mt * bnt);
+        for (int k = A.nt - 1; k >= 0; k--) {
+            final int kk = k;
+            final int kb = A.columns(k);
+            for (int j = 0; j < bnt; j++) {
+                final int jj = j;
+                graph.add(new Runnable() {
+                    public void run() {
+                        trsmUpper(A.tile(kk, kk), A.rows(kk), kb, B.tile(kk, jj), B.columns(jj));
+                    }
+                }, null, new int[] { kk * bnt + jj });
+                for (int i = 0; i < k; i++) {
+                    final int ii = i;
+                    graph.add(new Runnable() {
+                        public void run() {
+                            gemmNN(B.tile(ii, jj), B.rows(ii), B.columns(jj), A.tile(ii, kk), B.tile(kk, jj), B
+                                    .rows(kk), kb);
+                        }
+                    }, new int[] { kk * bnt + jj }, new int[] { ii * bnt + jj });
+                }
+            }
+        }
+        graph.execute();
+    }
+
+    /*
+     * Cholesky factorization of the lower triangle of the n x n tile a.
+     */
+    private static void potrf(double[] a, int n) {
+        for (int j = 0; j < n; j++) {
+            int cj = j * n;
+            for (int p = 0; p < j; p++) {
+                double l = a[p * n + j];
+                if (l != 0) {
+                    int cp = p * n;
+                    for (int r = j; r < n; r++) {
+                        a[cj + r] -= l * a[cp + r];
+                    }
+                }
+            }
+            double d = a[cj + j];
+            if (!(d > 0)) {
+                throw new IllegalArgumentException("Matrix is not symmetric positive definite.");
+            }
+            d = Math.sqrt(d);
+            a[cj + j] = d;
+            double scale = 1 / d;
+            for (int r = j + 1; r < n; r++) {
+                a[cj + r] *= scale;
+            }
+        }
+    }
+
+    /*
+     * b = b * inverse(l'), where b is mb x nb and l is the nb x nb lower
+     * triangular factor of a diagonal tile.
+     */
+    private static void trsm(double[] b, int mb, double[] l, int nb) {
+        for (int c = 0; c < nb; c++) {
+            int cb = c * mb;
+            for (int p = 0; p < c; p++) {
+                double v = l[p * nb + c];
+                if (v != 0) {
+                    int cp = p * mb;
+                    for (int r = 0; r < mb; r++) {
+                        b[cb + r] -= v * b[cp + r];
+                    }
+                }
+            }
+            double scale = 1 / l[c * nb + c];
+            for (int r = 0; r < mb; r++) {
+                b[cb + r] *= scale;
+            }
+        }
+    }
+
+    /*
+     * Lower triangle of c = c - a * a', where c is n x n and a is n x k.
+     */
+    private static void syrk(double[] c, int n, double[] a, int k) {
+        for (int col = 0; col < n; col++) {
+            int cc = col * n;
+            for (int p = 0; p < k; p++) {
+                double v = a[p * n + col];
+                if (v != 0) {
+                    int cp = p * n;
+                    for (int r = col; r < n; r++) {
+                        c[cc + r] -= v * a[cp + r];
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * c = c - a * b', where c is mc x nc, a is mc x k and b is nc x k.
+     */
+    private static void gemmNT(double[] c, int mc, int nc, double[] a, double[] b, int k) {
+        for (int col = 0; col < nc; col++) {
+            int cc = col * mc;
+            int p = 0;
+            for (; p + 3 < k; p += 4) {
+                double b0 = b[p * nc + col];
+                double b1 = b[(p + 1) * nc + col];
+                double b2 = b[(p + 2) * nc + col];
+                double b3 = b[(p + 3) * nc + col];
+                int a0 = p * mc;
+                int a1 = a0 + mc;
+                int a2 = a1 + mc;
+                int a3 = a2 + mc;
+                for (int r = 0; r < mc; r++) {
+                    c[cc + r] -= b0 * a[a0 + r] + b1 * a[a1 + r] + b2 * a[a2 + r] + b3 * a[a3 + r];
+                }
+            }
+            for (; p < k; p++) {
+                double v = b[p * nc + col];
+                int ap = p * mc;
+                for (int r = 0; r < mc; r++) {
+                    c[cc + r] -= v * a[ap + r];
+                }
+            }
+        }
+    }
+
+    /*
+     * c = c - a * b, where c is mc x nc with leading dimension mc, a is mc x k
+     * with leading dimension mc and b is k x nc with leading dimension ldb.
+     */
+    private static void gemmNN(double[] c, int mc, int nc, double[] a, double[] b, int ldb, int k) {
+        for (int col = 0; col < nc; col++) {
+            int cc = col * mc;
+            int cb = col * ldb;
+            int p = 0;
+            for (; p + 3 < k; p += 4) {
+                double b0 = b[cb + p];
+                double b1 = b[cb + p + 1];
+                double b2 = b[cb + p + 2];
+                double b3 = b[cb + p + 3];
+                int a0 = p * mc;
+                int a1 = a0 + mc;
+                int a2 = a1 + mc;
+                int a3 = a2 + mc;
+                for (int r = 0; r < mc; r++) {
+                    c[cc + r] -= b0 * a[a0 + r] + b1 * a[a1 + r] + b2 * a[a2 + r] + b3 * a[a3 + r];
+                }
+            }
+            for (; p < k; p++) {
+                double v = b[cb + p];
+                int ap = p * mc;
+                for (int r = 0; r < mc; r++) {
+                    c[cc + r] -= v * a[ap + r];
+                }
+            }
+        }
+    }
+
+    /*
+     * b = inverse(r) * b for the first k rows of b (nc columns, leading
+     * dimension ld), where r is the k x k upper triangle of a tile with
+     * leading dimension ld.
+     */
+    private static void trsmUpper(double[] r, int ld, int k, double[] b, int nc) {
+        for (int col = 0; col < nc; col++) {
+            int cb = col * ld;
+            for (int i = k - 1; i >= 0; i--) {
+                int ci = i * ld;
+                double x = b[cb + i] / r[ci + i];
+                b[cb + i] = x;
+                if (x != 0) {
+                    for (int row = 0; row < i; row++) {
+                        b[cb + row] -= x * r[ci + row];
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Generates an elementary reflector H = I - tau * v * v' such that
+     * H * (alpha, x) = (beta, 0), where alpha is y[alphaIndex] and x is
+     * x[off], ..., x[off + len - 1]. Overwrites alpha with beta and x with v
+     * (whose first element is 1 and not stored). Returns tau.
+     */
+    private static double householder(double[] y, int alphaIndex, double[] x, int off, int len) {
+        double xnorm = 0;
+        for (int i = off; i < off + len; i++) {
+            xnorm += x[i] * x[i];
+        }
+        if (xnorm == 0) {
+            return 0;
+        }
+        xnorm = Math.sqrt(xnorm);
+        double alpha = y[alphaIndex];
+        double beta = -Math.copySign(Math.hypot(alpha, xnorm), alpha);
+        double tau = (beta - alpha) / beta;
+        double scale = 1 / (alpha - beta);
+        for (int i = off; i < off + len; i++) {
+            x[i] *= scale;
+        }
+        y[alphaIndex] = beta;
+        return tau;
+    }
+
+    /*
+     * QR factorization of the mb x k tile a (mb >= k). Computes the k x k
+     * upper triangular factor t of the block reflector.
+     */
+    private static void geqrt(double[] a, int mb, int k, double[] t) {
+        double[] w = new double[k];
+        for (int j = 0; j < k; j++) {
+            int cj = j * mb;
+            double tau = householder(a, cj + j, a, cj + j + 1, mb - j - 1);
+            if (tau != 0) {
+                for (int l = j + 1; l < k; l++) {
+                    int cl = l * mb;
+                    double s = a[cl + j];
+                    for (int r = j + 1; r < mb; r++) {
+                        s += a[cj + r] * a[cl + r];
+                    }
+                    s *= tau;
+                    a[cl + j] -= s;
+                    for (int r = j + 1; r < mb; r++) {
+                        a[cl + r] -= s * a[cj + r];
+                    }
+                }
+            }
+            // w = V(:,0:j-1)' * v_j
+            for (int i = 0; i < j; i++) {
+                int ci = i * mb;
+                double s = a[ci + j];
+                for (int r = j + 1; r < mb; r++) {
+                    s += a[ci + r] * a[cj + r];
+                }
+                w[i] = s;
+            }
+            updateT(t, k, j, tau, w);
+        }
+    }
+
+    /*
+     * QR factorization of the k x k upper triangle r (leading dimension ldr)
+     * stacked on the mb x k tile a. Computes the k x k upper triangular factor
+     * t of the block reflector.
+     */
+    private static void tsqrt(double[] r, int ldr, double[] a, int mb, int k, double[] t) {
+        double[] w = new double[k];
+        for (int j = 0; j < k; j++) {
+            int cj = j * mb;
+            double tau = householder(r, j * ldr + j, a, cj, mb);
+            if (tau != 0) {
+                for (int l = j + 1; l < k; l++) {
+                    int cl = l * mb;
+                    double s = r[l * ldr + j];
+                    for (int i = 0; i < mb; i++) {
+                        s += a[cj + i] * a[cl + i];
+                    }
+                    s *= tau;
+                    r[l * ldr + j] -= s;
+                    for (int i = 0; i < mb; i++) {
+                        a[cl + i] -= s * a[cj + i];
+                    }
+                }
+            }
+            // the identity parts of the reflectors are orthogonal
+            for (int i = 0; i < j; i++) {
+                int ci = i * mb;
+                double s = 0;
+                for (int row = 0; row < mb; row++) {
+                    s += a[ci + row] * a[cj + row];
+                }
+                w[i] = s;
+            }
+            updateT(t, k, j, tau, w);
+        }
+    }
+
+    /*
+     * Sets column j of the triangular factor t: t(0:j-1,j) = -tau *
+     * t(0:j-1,0:j-1) * w, t(j,j) = tau.
+     */
+    private static void updateT(double[] t, int k, int j, double tau, double[] w) {
+        int cj = j * k;
+        for (int i = 0; i < j; i++) {
+            double s = 0;
+            for (int p = i; p < j; p++) {
+                s += t[p * k + i] * w[p];
+            }
+            t[cj + i] = -tau * s;
+        }
+        t[cj + j] = tau;
+    }
+
+    /*
+     * Applies the block reflector (V, t) of a tile factorized by geqrt
+     * (mb x k, leading dimension mb) to the mb x nc tile c: c = Q' * c if
+     * transpose, c = Q * c otherwise.
+     */
+    private static void unmqr(double[] v, int mb, int k, double[] t, double[] c, int nc, boolean transpose) {
+        double[] w = new double[k];
+        for (int col = 0; col < nc; col++) {
+            int cc = col * mb;
+            for (int i = 0; i < k; i++) {
+                int ci = i * mb;
+                double s = c[cc + i];
+                for (int r = i + 1; r < mb; r++) {
+                    s += v[ci + r] * c[cc + r];
+                }
+                w[i] = s;
+            }
+            multiplyT(t, k, w, transpose);
+            for (int i = 0; i < k; i++) {
+                double s = w[i];
+                if (s != 0) {
+                    int ci = i * mb;
+                    c[cc + i] -= s;
+                    for (int r = i + 1; r < mb; r++) {
+                        c[cc + r] -= s * v[ci + r];
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * Applies the block reflector (V, t) of a tile factorized by tsqrt (mb x
+     * k) to the first k rows of c1 (leading dimension ld1) stacked on the
+     * mb x nc tile c2: [c1; c2] = Q' * [c1; c2] if transpose, Q * [c1; c2]
+     * otherwise.
+     */
+    private static void tsmqr(double[] c1, int ld1, double[] c2, int mb, int nc, double[] v, int k, double[] t,
+            boolean transpose) {
+        double[] w = new double[k];
+        for (int col = 0; col < nc; col++) {
+            int c1c = col * ld1;
+            int c2c = col * mb;
+            for (int i = 0; i < k; i++) {
+                int ci = i * mb;
+                double s = c1[c1c + i];
+                for (int r = 0; r < mb; r++) {
+                    s += v[ci + r] * c2[c2c + r];
+                }
+                w[i] = s;
+            }
+            multiplyT(t, k, w, transpose);
+            for (int i = 0; i < k; i++) {
+                double s = w[i];
+                if (s != 0) {
+                    int ci = i * mb;
+                    c1[c1c + i] -= s;
+                    for (int r = 0; r < mb; r++) {
+                        c2[c2c + r] -= s * v[ci + r];
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * w = t' * w if transpose, w = t * w otherwise, where t is k x k upper
+     * triangular.
+     */
+    private static void multiplyT(double[] t, int k, double[] w, boolean transpose) {
+        if (transpose) {
+            for (int i = k - 1; i >= 0; i--) {
+                int ci = i * k;
+                double s = 0;
+                for (int p = 0; p <= i; p++) {
+                    s += t[ci + p] * w[p];
+                }
+                w[i] = s;
+            }
+        } else {
+            for (int i = 0; i < k; i++) {
+                double s = 0;
+                for (int p = i; p < k; p++) {
+                    s += t[p * k + i] * w[p];
+                }
+                w[i] = s;
+            }
+        }
+    }
+}
@@ -8,6 +8,9 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
@@ -22,18 +25,30 @@ import edu.emory.mathcs.csparsej.tdouble.Dcs_schol;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcs;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcsn;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcss;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * For a symmetric, positive definite matrix <tt>A</tt>, the Cholesky
  * decomposition is a lower triangular matrix <tt>L</tt> so that <tt>A = L*L'</tt>; If
  * the matrix is not symmetric positive definite, the IllegalArgumentException
  * is thrown.
+ * <P>
+ * The fill-reducing ordering and the symbolic analysis are computed once, by
+ * the constructor. A matrix with the same sparsity pattern and new values can
+ * then be factored with {@link #refactor(DoubleMatrix2D)}, which only repeats
+ * the numeric factorization.
+ * <P>
+ * By default the factorization is computed by CSparse, one column at a time.
+ * For large matrices, in particular those with much fill-in, a supernodal
+ * multifrontal factorization can be requested instead, see
+ * {@link #SparseDoubleCholeskyDecomposition(DoubleMatrix2D, int, boolean)}.
  * 
  * @author Piotr Wendykier (piotr.wendykier@gmail.com)
  */
 public class SparseDoubleCholeskyDecomposition {
     private Dcss S;
     private Dcsn N;
+    private DoubleSupernodalCholesky SN;
     private DoubleMatrix2D L;
     private boolean rcMatrix = false;
 
@@ -42,6 +57,11 @@ public class SparseDoubleCholeskyDecomposition {
      */
     private int n;
 
+    /**
+     * Sparsity pattern of the factored matrix, in compressed column form.
+     */
+    private int[] colptr, rowind;
+
     /**
      * Constructs and returns a new Cholesky decomposition object for a sparse
      * symmetric and positive definite matrix; The decomposed matrices can be
@@ -58,27 +78,92 @@ public class SparseDoubleCholeskyDecomposition {
      *             if <tt>order != 0 || order != 1</tt>
      */
     public SparseDoubleCholeskyDecomposition(DoubleMatrix2D A, int order) {
+        this(A, order, false);
+    }
+
+    /**
+     * Constructs and returns a new Cholesky decomposition object for a sparse
+     * symmetric and positive definite matrix, optionally computed by the
+     * supernodal multifrontal method. The supernodal factorization groups
+     * columns of <tt>L</tt> with the same structure into dense blocks, factors
+     * them with dense kernels and processes independent subtrees of the
+     * elimination tree in parallel. It is faster than the default one for
+     * matrices with much fill-in, such as those of 3D meshes; the factor is
+     * the same up to rounding, apart from explicit zeros and the order of
+     * equivalent columns.
+     * 
+     * @param A
+     *            Square, symmetric positive definite matrix .
+     * @param order
+     *            ordering option (0 or 1); 0: natural ordering, 1: amd(A+A')
+     * @param supernodal
+     *            whether to use the supernodal factorization
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not square or is not sparse or is not a
+     *             symmetric positive definite.
+     * @throws IllegalArgumentException
+     *             if <tt>order != 0 || order != 1</tt>
+     */
+    public SparseDoubleCholeskyDecomposition(DoubleMatrix2D A, int order, boolean supernodal) {
         DoubleProperty.DEFAULT.checkSquare(A);
         DoubleProperty.DEFAULT.checkSparse(A);
         if (order < 0 || order > 1) {
             throw new IllegalArgumentException("order must be equal 0 or 1");
         }
-        Dcs dcs;
-        if (A instanceof SparseRCDoubleMatrix2D) {
-            rcMatrix = true;
-            dcs = ((SparseRCDoubleMatrix2D) A).getColumnCompressed().elements();
+        rcMatrix = A instanceof SparseRCDoubleMatrix2D;
+        Dcs dcs = dcs(A);
+        n = A.rows();
+        if (supernodal) {
+            SN = new DoubleSupernodalCholesky(dcs, order);
+            SN.factor(dcs);
+            S = SN.getSymbolicAnalysis();
         } else {
-            dcs = (Dcs) A.elements();
+            S = Dcs_schol.cs_schol(order, dcs);
+            if (S == null) {
+                throw new IllegalArgumentException("Exception occured in cs_schol()");
+            }
+            N = Dcs_chol.cs_chol(dcs, S);
+            if (N == null) {
+                throw new IllegalArgumentException("Matrix is not symmetric positive definite");
+            }
         }
-        n = A.rows();
-        S = Dcs_schol.cs_schol(order, dcs);
-        if (S == null) {
-            throw new IllegalArgumentException("Exception occured in cs_schol()");
+        colptr = Arrays.copyOf(dcs.p, n + 1);
+        rowind = Arrays.copyOf(dcs.i, dcs.p[n]);
+    }
+
+    /**
+     * Computes the Cholesky decomposition of a matrix with the same sparsity
+     * pattern as the matrix given to the constructor, reusing its ordering
+     * and symbolic analysis. Only the numeric factorization is done, and the
+     * previous factor is discarded.
+     * 
+     * @param A
+     *            Square, symmetric positive definite matrix with the sparsity
+     *            pattern of the original one
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not sparse or is not symmetric positive
+     *             definite, or if its sparsity pattern differs from the one
+     *             of the original matrix.
+     */
+    public void refactor(DoubleMatrix2D A) {
+        DoubleProperty.DEFAULT.checkSparse(A);
+        if (A.rows() != n || A.columns() != n || (A instanceof SparseRCDoubleMatrix2D) != rcMatrix) {
+            throw new IllegalArgumentException("The matrix must have the size and storage of the original one");
+        }
+        Dcs dcs = dcs(A);
+        if (!SparseDoubleLUDecomposition.hasPattern(dcs, colptr, rowind)) {
+            throw new IllegalArgumentException("The sparsity pattern differs from the one of the original matrix");
         }
-        N = Dcs_chol.cs_chol(dcs, S);
+        L = null;
+        if (SN != null) {
+            SN.factor(dcs);
+            return;
+        }
+        Dcsn N = Dcs_chol.cs_chol(dcs, S);
         if (N == null) {
             throw new IllegalArgumentException("Matrix is not symmetric positive definite");
         }
+        this.N = N;
     }
 
     /**
@@ -88,7 +173,7 @@ public class SparseDoubleCholeskyDecomposition {
      */
     public DoubleMatrix2D getL() {
         if (L == null) {
-            L = new SparseCCDoubleMatrix2D(N.L);
+            L = new SparseCCDoubleMatrix2D(SN != null ? SN.getL() : N.L);
             if (rcMatrix) {
                 L = ((SparseCCDoubleMatrix2D) L).getRowCompressed();
             }
@@ -104,7 +189,7 @@ public class SparseDoubleCholeskyDecomposition {
      */
     public DoubleMatrix2D getLtranspose() {
         if (L == null) {
-            L = new SparseCCDoubleMatrix2D(N.L);
+            L = new SparseCCDoubleMatrix2D(SN != null ? SN.getL() : N.L);
             if (rcMatrix) {
                 L = ((SparseCCDoubleMatrix2D) L).getRowCompressed();
             }
@@ -156,12 +241,79 @@ public class SparseDoubleCholeskyDecomposition {
             x = (double[]) b.elements();
         }
         Dcs_ipvec.cs_ipvec(S.pinv, x, y, n); /* y = P*b */
-        Dcs_lsolve.cs_lsolve(N.L, y); /* y = L\y */
-        Dcs_ltsolve.cs_ltsolve(N.L, y); /* y = L'\y */
+        if (SN != null) {
+            SN.solve(y); /* y = (L*L')\y */
+        } else {
+            Dcs_lsolve.cs_lsolve(N.L, y); /* y = L\y */
+            Dcs_ltsolve.cs_ltsolve(N.L, y); /* y = L'\y */
+        }
         Dcs_pvec.cs_pvec(S.pinv, y, x, n); /* x = P'*y */
 
         if (b.isView()) {
             b.assign(x);
         }
     }
+
+    /**
+     * Solves <tt>A*X = B</tt>(in-place). Upon return <tt>B</tt> is overridden
+     * with the result <tt>X</tt>. The columns are solved directly in
+     * <tt>B</tt>, in parallel.
+     * 
+     * @param B
+     *            A matrix with A.rows() rows;
+     * @exception IllegalArgumentException
+     *                if <tt>B.rows() != A.rows()</tt>.
+     */
+    public void solve(final DoubleMatrix2D B) {
+        if (B.rows() != n) {
+            throw new IllegalArgumentException("B.rows() != A.rows()");
+        }
+        DoubleProperty.DEFAULT.checkDense(B);
+        int columns = B.columns();
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (columns > 1) && ((long) n * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            nthreads = Math.min(nthreads, columns);
+            Future<?>[] futures = new Future[nthreads];
+            int k = columns / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstColumn = j * k;
+                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        solve(B, firstColumn, lastColumn);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            solve(B, 0, columns);
+        }
+    }
+
+    private void solve(DoubleMatrix2D B, int firstColumn, int lastColumn) {
+        int[] pinv = S.pinv;
+        double[] y = new double[n];
+        for (int c = firstColumn; c < lastColumn; c++) {
+            for (int k = 0; k < n; k++) {
+                y[pinv != null ? pinv[k] : k] = B.getQuick(k, c); /* y = P*b */
+            }
+            if (SN != null) {
+                SN.solve(y); /* y = (L*L')\y */
+            } else {
+                Dcs_lsolve.cs_lsolve(N.L, y); /* y = L\y */
+                Dcs_ltsolve.cs_ltsolve(N.L, y); /* y = L'\y */
+            }
+            for (int k = 0; k < n; k++) {
+                B.setQuick(k, c, y[pinv != null ? pinv[k] : k]); /* x = P'*y */
+            }
+        }
+    }
+
+    private Dcs dcs(DoubleMatrix2D A) {
+        if (A instanceof SparseRCDoubleMatrix2D) {
+            return ((SparseRCDoubleMatrix2D) A).getColumnCompressed().elements();
+        } else {
+            return (Dcs) A.elements();
+        }
+    }
 }
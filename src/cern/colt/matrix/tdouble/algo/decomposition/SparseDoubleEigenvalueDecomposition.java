@@ -0,0 +1,161 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.algo.DoubleProperty;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+
+/**
+ * Partial eigenvalue decomposition of a large symmetric matrix: the
+ * <tt>k</tt> largest or smallest eigenvalues <tt>D</tt> and the
+ * corresponding orthonormal eigenvectors <tt>V</tt>, so that
+ * <tt>A*V = V*D</tt>.
+ * <P>
+ * The eigenpairs are computed by the thick-restart Lanczos method, which is
+ * mathematically equivalent to the implicitly restarted Lanczos method of
+ * ARPACK. The matrix is only used through <tt>zMult</tt>, which is parallel
+ * for the sparse matrices, so that any symmetric matrix can be decomposed
+ * without forming dense <tt>n x n</tt> arrays. The work and the memory are
+ * proportional to <tt>n * ncv</tt>, where the number of Lanczos vectors
+ * <tt>ncv</tt> is <tt>max(2*k+1, k+20)</tt> by default.
+ * <P>
+ * Both triangular parts of <tt>A</tt> must be stored; the symmetry of
+ * <tt>A</tt> is not checked.
+ */
+public class SparseDoubleEigenvalueDecomposition {
+
+    /**
+     * Selects the eigenvalues of largest algebraic value.
+     */
+    public static final int LARGEST_ALGEBRAIC = DoubleLanczos.LARGEST_ALGEBRAIC;
+
+    /**
+     * Selects the eigenvalues of smallest algebraic value.
+     */
+    public static final int SMALLEST_ALGEBRAIC = DoubleLanczos.SMALLEST_ALGEBRAIC;
+
+    /**
+     * Selects the eigenvalues of largest magnitude.
+     */
+    public static final int LARGEST_MAGNITUDE = DoubleLanczos.LARGEST_MAGNITUDE;
+
+    private final DoubleLanczos lanczos;
+
+    private final int n;
+
+    /**
+     * Constructs and returns the decomposition into the <tt>k</tt> largest
+     * eigenvalues and their eigenvectors, to a relative accuracy of
+     * <tt>1e-10</tt>.
+     *
+     * @param A
+     *            symmetric matrix
+     * @param k
+     *            number of eigenvalues
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not square or if <tt>k</tt> is not
+     *             between 1 and <tt>A.rows()</tt>.
+     */
+    public SparseDoubleEigenvalueDecomposition(DoubleMatrix2D A, int k) {
+        this(A, k, LARGEST_ALGEBRAIC, 0, 1e-10, 300);
+    }
+
+    /**
+     * Constructs and returns the decomposition into <tt>k</tt> eigenvalues
+     * and their eigenvectors.
+     *
+     * @param A
+     *            symmetric matrix
+     * @param k
+     *            number of eigenvalues
+     * @param which
+     *            the eigenvalues to compute: {@link #LARGEST_ALGEBRAIC},
+     *            {@link #SMALLEST_ALGEBRAIC} or {@link #LARGEST_MAGNITUDE}
+     * @param ncv
+     *            number of Lanczos vectors, larger than <tt>k</tt>; 0 for
+     *            the default
+     * @param tol
+     *            relative accuracy of the eigenvalues
+     * @param maxRestarts
+     *            maximum number of restarts of the Lanczos method
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not square, if <tt>k</tt> is not between 1
+     *             and <tt>A.rows()</tt> or if <tt>which</tt> is not valid.
+     */
+    public SparseDoubleEigenvalueDecomposition(final DoubleMatrix2D A, int k, int which, int ncv, double tol,
+            int maxRestarts) {
+        DoubleProperty.DEFAULT.checkSquare(A);
+        if (which < LARGEST_ALGEBRAIC || which > LARGEST_MAGNITUDE) {
+            throw new IllegalArgumentException("Illegal value of which: " + which);
+        }
+        n = A.rows();
+        lanczos = new DoubleLanczos(n, new DoubleLanczos.Operator() {
+            public void apply(double[] x, double[] y) {
+                A.zMult(new DenseDoubleMatrix1D(n, x, 0, 1, false), new DenseDoubleMatrix1D(n, y, 0, 1, false));
+            }
+        }, k, which, ncv, tol, maxRestarts);
+    }
+
+    /**
+     * Returns the diagonal matrix of the eigenvalues.
+     *
+     * @return D
+     */
+    public DoubleMatrix2D getD() {
+        double[] d = lanczos.getValues();
+        DoubleMatrix2D D = new DenseDoubleMatrix2D(d.length, d.length);
+        for (int i = 0; i < d.length; i++) {
+            D.setQuick(i, i, d[i]);
+        }
+        return D;
+    }
+
+    /**
+     * Returns the eigenvalues, the best first: in decreasing order for
+     * {@link #LARGEST_ALGEBRAIC}, in increasing order for
+     * {@link #SMALLEST_ALGEBRAIC} and by decreasing magnitude for
+     * {@link #LARGEST_MAGNITUDE}.
+     *
+     * @return the eigenvalues
+     */
+    public DoubleMatrix1D getRealEigenvalues() {
+        return new DenseDoubleMatrix1D(lanczos.getValues().clone());
+    }
+
+    /**
+     * Returns the norms of the residuals <tt>A*v - lambda*v</tt> of the
+     * eigenpairs.
+     *
+     * @return the norms of the residuals
+     */
+    public DoubleMatrix1D getResiduals() {
+        return new DenseDoubleMatrix1D(lanczos.getResiduals().clone());
+    }
+
+    /**
+     * Returns the eigenvector matrix, <tt>n x k</tt>, whose columns are the
+     * eigenvectors in the order of the eigenvalues.
+     *
+     * @return V
+     */
+    public DoubleMatrix2D getV() {
+        double[][] vectors = lanczos.getVectors();
+        DoubleMatrix2D V = new DenseDoubleMatrix2D(n, vectors.length);
+        for (int j = 0; j < vectors.length; j++) {
+            V.viewColumn(j).assign(vectors[j]);
+        }
+        return V;
+    }
+
+    /**
+     * Returns whether all the eigenvalues have reached the required accuracy
+     * within the maximum number of restarts. Otherwise the current
+     * approximations are returned.
+     *
+     * @return true if the eigenpairs have converged
+     */
+    public boolean isConverged() {
+        return lanczos.isConverged();
+    }
+}
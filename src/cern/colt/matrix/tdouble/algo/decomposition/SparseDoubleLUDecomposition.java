@@ -1,5 +1,8 @@
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
@@ -15,6 +18,7 @@ import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcs;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcsd;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcsn;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcss;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * For a square matrix <tt>A</tt>, the LU decomposition is an unit lower
@@ -25,6 +29,11 @@ import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcss;
  * singular. The primary use of the LU decomposition is in the solution of
  * square systems of simultaneous linear equations. This will fail if
  * <tt>isNonsingular()</tt> returns false.
+ * <P>
+ * The fill-reducing ordering and the symbolic analysis are computed once, by
+ * the constructor. A matrix with the same sparsity pattern and new values can
+ * then be factored with {@link #refactor(DoubleMatrix2D)}, which only repeats
+ * the numeric factorization.
  * 
  * @author Piotr Wendykier (piotr.wendykier@gmail.com)
  */
@@ -39,6 +48,10 @@ public class SparseDoubleLUDecomposition {
      * Row and column dimension (square matrix).
      */
     private int n;
+    /**
+     * Sparsity pattern of the factored matrix, in compressed column form.
+     */
+    private int[] colptr, rowind;
 
     /**
      * Constructs and returns a new LU Decomposition object; The decomposed
@@ -65,13 +78,8 @@ public class SparseDoubleLUDecomposition {
         if (order < 0 || order > 3) {
             throw new IllegalArgumentException("order must be a number between 0 and 3");
         }
-        Dcs dcs;
-        if (A instanceof SparseRCDoubleMatrix2D) {
-            rcMatrix = true;
-            dcs = ((SparseRCDoubleMatrix2D) A).getColumnCompressed().elements();
-        } else {
-            dcs = (Dcs) A.elements();
-        }
+        rcMatrix = A instanceof SparseRCDoubleMatrix2D;
+        Dcs dcs = dcs(A);
         n = A.rows();
 
         S = Dcs_sqr.cs_sqr(order, dcs, false);
@@ -82,6 +90,8 @@ public class SparseDoubleLUDecomposition {
         if (N == null) {
             throw new IllegalArgumentException("Exception occured in cs_lu()");
         }
+        colptr = Arrays.copyOf(dcs.p, n + 1);
+        rowind = Arrays.copyOf(dcs.i, dcs.p[n]);
         if (checkIfSingular) {
             Dcsd D = Dcs_dmperm.cs_dmperm(dcs, 1); /* check if matrix is singular */
             if (D != null && D.rr[3] < n) {
@@ -90,6 +100,36 @@ public class SparseDoubleLUDecomposition {
         }
     }
 
+    /**
+     * Computes the LU decomposition of a matrix with the same sparsity pattern
+     * as the matrix given to the constructor, reusing its ordering and
+     * symbolic analysis. Only the numeric factorization is done, and the
+     * previous factors are discarded.
+     * 
+     * @param A
+     *            Square matrix with the sparsity pattern of the original one
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not sparse, or if its sparsity pattern
+     *             differs from the one of the original matrix.
+     */
+    public void refactor(DoubleMatrix2D A) {
+        DoubleProperty.DEFAULT.checkSparse(A);
+        if (A.rows() != n || A.columns() != n || (A instanceof SparseRCDoubleMatrix2D) != rcMatrix) {
+            throw new IllegalArgumentException("The matrix must have the size and storage of the original one");
+        }
+        Dcs dcs = dcs(A);
+        if (!hasPattern(dcs, colptr, rowind)) {
+            throw new IllegalArgumentException("The sparsity pattern differs from the one of the original matrix");
+        }
+        Dcsn N = Dcs_lu.cs_lu(dcs, S, 1);
+        if (N == null) {
+            throw new IllegalArgumentException("Exception occured in cs_lu()");
+        }
+        this.N = N;
+        L = null;
+        U = null;
+    }
+
     /**
      * Returns the determinant, <tt>det(A)</tt>.
      * 
@@ -220,4 +260,88 @@ public class SparseDoubleLUDecomposition {
             b.assign(x);
         }
     }
+
+    /**
+     * Solves <tt>A*X = B</tt>(in-place). Upon return <tt>B</tt> is overridden
+     * with the result <tt>X</tt>. The columns are solved directly in
+     * <tt>B</tt>, in parallel.
+     * 
+     * @param B
+     *            A matrix with A.rows() rows;
+     * @exception IllegalArgumentException
+     *                if <tt>B.rows() != A.rows()</tt> or if A is singular.
+     */
+    public void solve(final DoubleMatrix2D B) {
+        if (B.rows() != n) {
+            throw new IllegalArgumentException("B.rows() != A.rows()");
+        }
+        if (!isNonsingular()) {
+            throw new IllegalArgumentException("A is singular");
+        }
+        DoubleProperty.DEFAULT.checkDense(B);
+        int columns = B.columns();
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (columns > 1) && ((long) n * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            nthreads = Math.min(nthreads, columns);
+            Future<?>[] futures = new Future[nthreads];
+            int k = columns / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstColumn = j * k;
+                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        solve(B, firstColumn, lastColumn);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            solve(B, 0, columns);
+        }
+    }
+
+    private void solve(DoubleMatrix2D B, int firstColumn, int lastColumn) {
+        int[] pinv = N.pinv;
+        int[] q = S.q;
+        double[] y = new double[n];
+        for (int c = firstColumn; c < lastColumn; c++) {
+            for (int k = 0; k < n; k++) {
+                y[pinv != null ? pinv[k] : k] = B.getQuick(k, c); /* y = b(p) */
+            }
+            Dcs_lsolve.cs_lsolve(N.L, y); /* y = L\y */
+            Dcs_usolve.cs_usolve(N.U, y); /* y = U\y */
+            for (int k = 0; k < n; k++) {
+                B.setQuick(q != null ? q[k] : k, c, y[k]); /* b(q) = x */
+            }
+        }
+    }
+
+    private Dcs dcs(DoubleMatrix2D A) {
+        if (A instanceof SparseRCDoubleMatrix2D) {
+            return ((SparseRCDoubleMatrix2D) A).getColumnCompressed().elements();
+        } else {
+            return (Dcs) A.elements();
+        }
+    }
+
+    /*
+     * Returns true if the matrix has the given sparsity pattern.
+     */
+    static boolean hasPattern(Dcs dcs, int[] colptr, int[] rowind) {
+        int n = colptr.length - 1;
+        if (dcs.n != n || dcs.p[n] != rowind.length) {
+            return false;
+        }
+        for (int j = 0; j <= n; j++) {
+            if (dcs.p[j] != colptr[j]) {
+                return false;
+            }
+        }
+        for (int p = 0; p < rowind.length; p++) {
+            if (dcs.i[p] != rowind[p]) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
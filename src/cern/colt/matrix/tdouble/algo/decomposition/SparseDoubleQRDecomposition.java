@@ -1,5 +1,8 @@
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
@@ -15,6 +18,7 @@ import edu.emory.mathcs.csparsej.tdouble.Dcs_utsolve;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcs;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcsn;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcss;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * For an <tt>m x n</tt> matrix <tt>A</tt> with <tt>m >= n</tt>, the QR
@@ -25,6 +29,11 @@ import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcss;
  * rank. The primary use of the QR decomposition is in the least squares
  * solution of nonsquare systems of simultaneous linear equations. This will
  * fail if <tt>isFullRank()</tt> returns <tt>false</tt>.
+ * <P>
+ * The fill-reducing ordering and the symbolic analysis are computed once, by
+ * the constructor. A matrix with the same sparsity pattern and new values can
+ * then be factored with {@link #refactor(DoubleMatrix2D)}, which only repeats
+ * the numeric factorization.
  * 
  * @author Piotr Wendykier (piotr.wendykier@gmail.com)
  */
@@ -35,6 +44,11 @@ public class SparseDoubleQRDecomposition {
     private DoubleMatrix2D V;
     private int m, n;
     private boolean rcMatrix = false;
+    /**
+     * Sparsity pattern of the factored matrix, or of its transpose if m < n,
+     * in compressed column form.
+     */
+    private int[] colptr, rowind;
 
     /**
      * Constructs and returns a new QR decomposition object; computed by
@@ -59,21 +73,8 @@ public class SparseDoubleQRDecomposition {
         }
         m = A.rows();
         n = A.columns();
-        Dcs dcs;
-        if (A instanceof SparseRCDoubleMatrix2D) {
-            rcMatrix = true;
-            if (m >= n) {
-                dcs = ((SparseRCDoubleMatrix2D) A).getColumnCompressed().elements();
-            } else {
-                dcs = ((SparseRCDoubleMatrix2D) A).getColumnCompressed().getTranspose().elements();
-            }
-        } else {
-            if (m >= n) {
-                dcs = (Dcs) A.elements();
-            } else {
-                dcs = ((SparseCCDoubleMatrix2D) A).getTranspose().elements();
-            }
-        }
+        rcMatrix = A instanceof SparseRCDoubleMatrix2D;
+        Dcs dcs = dcs(A);
         S = Dcs_sqr.cs_sqr(order, dcs, true);
         if (S == null) {
             throw new IllegalArgumentException("Exception occured in cs_sqr()");
@@ -82,6 +83,39 @@ public class SparseDoubleQRDecomposition {
         if (N == null) {
             throw new IllegalArgumentException("Exception occured in cs_qr()");
         }
+        colptr = Arrays.copyOf(dcs.p, dcs.n + 1);
+        rowind = Arrays.copyOf(dcs.i, dcs.p[dcs.n]);
+    }
+
+    /**
+     * Computes the QR decomposition of a matrix with the same sparsity pattern
+     * as the matrix given to the constructor, reusing its ordering and
+     * symbolic analysis. Only the numeric factorization is done, and the
+     * previous factors are discarded.
+     * 
+     * @param A
+     *            A rectangular matrix with the sparsity pattern of the
+     *            original one
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not sparse, or if its sparsity pattern
+     *             differs from the one of the original matrix.
+     */
+    public void refactor(DoubleMatrix2D A) {
+        DoubleProperty.DEFAULT.checkSparse(A);
+        if (A.rows() != m || A.columns() != n || (A instanceof SparseRCDoubleMatrix2D) != rcMatrix) {
+            throw new IllegalArgumentException("The matrix must have the size and storage of the original one");
+        }
+        Dcs dcs = dcs(A);
+        if (!SparseDoubleLUDecomposition.hasPattern(dcs, colptr, rowind)) {
+            throw new IllegalArgumentException("The sparsity pattern differs from the one of the original matrix");
+        }
+        Dcsn N = Dcs_qr.cs_qr(dcs, S);
+        if (N == null) {
+            throw new IllegalArgumentException("Exception occured in cs_qr()");
+        }
+        this.N = N;
+        R = null;
+        V = null;
     }
 
     /**
@@ -216,4 +250,98 @@ public class SparseDoubleQRDecomposition {
         }
     }
 
+    /**
+     * Solve least-squares problems (min ||Ax-b||_2, where A is m-by-n with m
+     * >= n) or underdetermined systems (Ax=b, where m < n) for all the columns
+     * <tt>b</tt> of <tt>B</tt>. Upon return the first <tt>A.columns()</tt>
+     * rows of <tt>B</tt> are overridden with the result <tt>X</tt>. The
+     * columns are solved directly in <tt>B</tt>, in parallel.
+     * 
+     * @param B
+     *            right-hand sides.
+     * @exception IllegalArgumentException
+     *                if <tt>B.rows() != max(A.rows(), A.columns())</tt>.
+     * @exception IllegalArgumentException
+     *                if <tt>!this.hasFullRank()</tt> (<tt>A</tt> is rank
+     *                deficient).
+     */
+    public void solve(final DoubleMatrix2D B) {
+        if (B.rows() != Math.max(m, n)) {
+            throw new IllegalArgumentException("The number of rows of B must be equal to max(A.rows(), A.columns()).");
+        }
+        if (!this.hasFullRank()) {
+            throw new IllegalArgumentException("Matrix is rank deficient.");
+        }
+        DoubleProperty.DEFAULT.checkDense(B);
+        int columns = B.columns();
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (columns > 1) && ((long) B.rows() * columns >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            nthreads = Math.min(nthreads, columns);
+            Future<?>[] futures = new Future[nthreads];
+            int k = columns / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstColumn = j * k;
+                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        solve(B, firstColumn, lastColumn);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            solve(B, 0, columns);
+        }
+    }
+
+    private void solve(DoubleMatrix2D B, int firstColumn, int lastColumn) {
+        int[] pinv = S.pinv;
+        int[] q = S.q;
+        double[] y = new double[S.m2];
+        for (int c = firstColumn; c < lastColumn; c++) {
+            Arrays.fill(y, 0);
+            if (m >= n) {
+                for (int k = 0; k < m; k++) {
+                    y[pinv != null ? pinv[k] : k] = B.getQuick(k, c); /* y(0:m-1) = b(p(0:m-1) */
+                }
+                for (int k = 0; k < n; k++) /* apply Householder refl. to x */
+                {
+                    Dcs_happly.cs_happly(N.L, k, N.B[k], y);
+                }
+                Dcs_usolve.cs_usolve(N.U, y); /* y = R\y */
+                for (int k = 0; k < n; k++) {
+                    B.setQuick(q != null ? q[k] : k, c, y[k]); /* x(q(0:n-1)) = y(0:n-1) */
+                }
+            } else {
+                for (int k = 0; k < m; k++) {
+                    y[k] = B.getQuick(q != null ? q[k] : k, c); /* y(q(0:m-1)) = b(0:m-1) */
+                }
+                Dcs_utsolve.cs_utsolve(N.U, y); /* y = R'\y */
+                for (int k = m - 1; k >= 0; k--) /* apply Householder refl. to x */
+                {
+                    Dcs_happly.cs_happly(N.L, k, N.B[k], y);
+                }
+                for (int k = 0; k < n; k++) {
+                    B.setQuick(k, c, y[pinv != null ? pinv[k] : k]); /* x(0:n-1) = y(p(0:n-1)) */
+                }
+            }
+        }
+    }
+
+    private Dcs dcs(DoubleMatrix2D A) {
+        if (A instanceof SparseRCDoubleMatrix2D) {
+            if (m >= n) {
+                return ((SparseRCDoubleMatrix2D) A).getColumnCompressed().elements();
+            } else {
+                return ((SparseRCDoubleMatrix2D) A).getColumnCompressed().getTranspose().elements();
+            }
+        } else {
+            if (m >= n) {
+                return (Dcs) A.elements();
+            } else {
+                return ((SparseCCDoubleMatrix2D) A).getTranspose().elements();
+            }
+        }
+    }
+
 }
@@ -0,0 +1,167 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import cern.jet.math.tdouble.DoubleFunctions;
+
+/**
+ * Partial singular value decomposition of a large matrix: the <tt>k</tt>
+ * largest singular values <tt>S</tt> and the corresponding singular vectors
+ * <tt>U</tt> (<tt>m x k</tt>) and <tt>V</tt> (<tt>n x k</tt>), so that
+ * <tt>A*V = U*S</tt> and <tt>A'*U = V*S</tt>.
+ * <P>
+ * The dominant eigenvectors of <tt>A'*A</tt> (or <tt>A*A'</tt> when
+ * <tt>m &lt; n</tt>) are computed by the thick-restart Lanczos method, see
+ * {@link SparseDoubleEigenvalueDecomposition}, without forming the product.
+ * The singular values and vectors are then refined by the Rayleigh-Ritz
+ * procedure on the subspace of these vectors, with the block products
+ * <tt>B = A*V</tt> and <tt>B'*B</tt>. The matrix is only used through
+ * <tt>zMult</tt>, which is parallel for the sparse matrices.
+ */
+public class SparseDoubleSingularValueDecomposition {
+
+    private final double[] s;
+
+    private final DoubleMatrix2D U, V;
+
+    private final boolean converged;
+
+    /**
+     * Constructs and returns the decomposition into the <tt>k</tt> largest
+     * singular values and their singular vectors, to a relative accuracy of
+     * <tt>1e-10</tt> of the squared singular values.
+     *
+     * @param A
+     *            rectangular matrix
+     * @param k
+     *            number of singular values
+     * @throws IllegalArgumentException
+     *             if <tt>k</tt> is not between 1 and
+     *             <tt>min(A.rows(), A.columns())</tt>.
+     */
+    public SparseDoubleSingularValueDecomposition(DoubleMatrix2D A, int k) {
+        this(A, k, 0, 1e-10, 300);
+    }
+
+    /**
+     * Constructs and returns the decomposition into the <tt>k</tt> largest
+     * singular values and their singular vectors.
+     *
+     * @param A
+     *            rectangular matrix
+     * @param k
+     *            number of singular values
+     * @param ncv
+     *            number of Lanczos vectors, larger than <tt>k</tt>; 0 for
+     *            the default
+     * @param tol
+     *            relative accuracy of the squared singular values
+     * @param maxRestarts
+     *            maximum number of restarts of the Lanczos method
+     * @throws IllegalArgumentException
+     *             if <tt>k</tt> is not between 1 and
+     *             <tt>min(A.rows(), A.columns())</tt>.
+     */
+    public SparseDoubleSingularValueDecomposition(final DoubleMatrix2D A, int k, int ncv, double tol,
+            int maxRestarts) {
+        final int m = A.rows();
+        final int n = A.columns();
+        final boolean wide = m < n;
+        final int p = Math.min(m, n);
+        final double[] t = new double[Math.max(m, n)];
+        DoubleLanczos lanczos = new DoubleLanczos(p, new DoubleLanczos.Operator() {
+            public void apply(double[] x, double[] y) {
+                DenseDoubleMatrix1D xx = new DenseDoubleMatrix1D(p, x, 0, 1, false);
+                DenseDoubleMatrix1D yy = new DenseDoubleMatrix1D(p, y, 0, 1, false);
+                DenseDoubleMatrix1D tt = new DenseDoubleMatrix1D(m + n - p, t, 0, 1, false);
+                A.zMult(xx, tt, 1, 0, wide);
+                A.zMult(tt, yy, 1, 0, !wide);
+            }
+        }, k, DoubleLanczos.LARGEST_ALGEBRAIC, ncv, tol, maxRestarts);
+        converged = lanczos.isConverged();
+
+        // Rayleigh-Ritz on the Lanczos vectors X: B = op(A)*X, B'*B = W*L*W'
+        double[][] vectors = lanczos.getVectors();
+        DoubleMatrix2D X = new DenseDoubleMatrix2D(p, k);
+        for (int j = 0; j < k; j++) {
+            X.viewColumn(j).assign(vectors[j]);
+        }
+        DoubleMatrix2D B = A.zMult(X, new DenseDoubleMatrix2D(m + n - p, k), 1, 0, wide, false);
+        DoubleMatrix2D G = B.zMult(B, null, 1, 0, true, false);
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < i; j++) {
+                double g = (G.getQuick(i, j) + G.getQuick(j, i)) / 2;
+                G.setQuick(i, j, g);
+                G.setQuick(j, i, g);
+            }
+        }
+        DenseDoubleEigenvalueDecomposition eig = new DenseDoubleEigenvalueDecomposition(G);
+        double[] lambda = eig.getRealEigenvalues().toArray();
+        DoubleMatrix2D W = eig.getV().viewColumnFlip().copy(); // decreasing eigenvalues
+        s = new double[k];
+        for (int j = 0; j < k; j++) {
+            s[j] = Math.sqrt(Math.max(lambda[k - 1 - j], 0));
+        }
+        DoubleMatrix2D Y = X.zMult(W, null);
+        DoubleMatrix2D Z = B.zMult(W, null);
+        for (int j = 0; j < k; j++) {
+            if (s[j] > 0) {
+                Z.viewColumn(j).assign(DoubleFunctions.div(s[j]));
+            }
+        }
+        U = wide ? Y : Z;
+        V = wide ? Z : Y;
+    }
+
+    /**
+     * Returns the diagonal matrix of singular values.
+     *
+     * @return S
+     */
+    public DoubleMatrix2D getS() {
+        DoubleMatrix2D S = new DenseDoubleMatrix2D(s.length, s.length);
+        for (int i = 0; i < s.length; i++) {
+            S.setQuick(i, i, s[i]);
+        }
+        return S;
+    }
+
+    /**
+     * Returns the singular values, in decreasing order.
+     *
+     * @return the singular values
+     */
+    public double[] getSingularValues() {
+        return s.clone();
+    }
+
+    /**
+     * Returns the left singular vectors <tt>U</tt>, <tt>m x k</tt>. The
+     * columns of zero singular values are zero.
+     *
+     * @return U
+     */
+    public DoubleMatrix2D getU() {
+        return U.copy();
+    }
+
+    /**
+     * Returns the right singular vectors <tt>V</tt>, <tt>n x k</tt>.
+     *
+     * @return V
+     */
+    public DoubleMatrix2D getV() {
+        return V.copy();
+    }
+
+    /**
+     * Returns whether the Lanczos method has reached the required accuracy
+     * within the maximum number of restarts.
+     *
+     * @return true if the singular values have converged
+     */
+    public boolean isConverged() {
+        return converged;
+    }
+}
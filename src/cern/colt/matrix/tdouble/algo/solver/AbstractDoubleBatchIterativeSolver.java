@@ -0,0 +1,462 @@
+package cern.colt.matrix.tdouble.algo.solver;
+
+import java.util.concurrent.Future;
+
+import cern.colt.matrix.Norm;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.algo.solver.preconditioner.DoubleIdentity;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Partial implementation of an iterative solver for several right hand sides.
+ * <p>
+ * The vectors of all the columns are stored together in blocks, which are
+ * <tt>n x k</tt> arrays in row major order (<tt>k</tt> is the number of
+ * right hand sides). The columns still iterating are kept at the front of each
+ * row, so that the matrix is applied to all of them by a single sparse
+ * matrix-matrix product, and the vector operations of all the columns are done
+ * in one pass over the rows. The columns which converged or failed are
+ * retired, and the remaining ones are moved to the front.
+ */
+public abstract class AbstractDoubleBatchIterativeSolver extends AbstractDoubleIterativeSolver implements
+        DoubleBatchIterativeSolver {
+
+    /**
+     * Iteration monitors of the columns
+     */
+    protected DoubleIterationMonitor[] iters;
+
+    /**
+     * Number of rows and of right hand sides of the current problem
+     */
+    protected int n, k;
+
+    /**
+     * Number of active columns
+     */
+    protected int active;
+
+    /**
+     * Original index of each active column
+     */
+    protected int[] columns;
+
+    /**
+     * Active columns which failed, to be retired at the next convergence test
+     */
+    private boolean[] failed;
+
+    /**
+     * First exception raised by a column
+     */
+    private IterativeSolverDoubleNotConvergedException failure;
+
+    /**
+     * Vectors for applying the preconditioner to a column
+     */
+    private DenseDoubleMatrix1D pb, px;
+
+    public void setIterationMonitors(DoubleIterationMonitor[] iters) {
+        this.iters = iters;
+    }
+
+    public DoubleIterationMonitor[] getIterationMonitors() {
+        return iters;
+    }
+
+    public DoubleMatrix1D solve(DoubleMatrix2D A, DoubleMatrix1D b, DoubleMatrix1D x)
+            throws IterativeSolverDoubleNotConvergedException {
+        checkSizes(A, b, x);
+
+        int n = (int) b.size();
+        DoubleMatrix2D B = new DenseDoubleMatrix2D(n, 1);
+        DoubleMatrix2D X = new DenseDoubleMatrix2D(n, 1);
+        B.viewColumn(0).assign(b);
+        X.viewColumn(0).assign(x);
+
+        DoubleIterationMonitor[] saved = iters;
+        iters = new DoubleIterationMonitor[] { iter };
+        try {
+            solve(A, B, X);
+        } finally {
+            iters = saved;
+            x.assign(X.viewColumn(0));
+        }
+        return x;
+    }
+
+    public DoubleMatrix2D solve(DoubleMatrix2D A, DoubleMatrix2D B, DoubleMatrix2D X)
+            throws IterativeSolverDoubleNotConvergedException {
+        checkSizes(A, B, X);
+
+        n = B.rows();
+        k = B.columns();
+        if (iters == null || iters.length != k)
+            iters = createIterationMonitors(k);
+
+        double[] b = ((DenseDoubleMatrix2D) new DenseDoubleMatrix2D(n, k).assign(B)).elements();
+        double[] x = ((DenseDoubleMatrix2D) new DenseDoubleMatrix2D(n, k).assign(X)).elements();
+
+        active = k;
+        columns = new int[k];
+        for (int a = 0; a < k; ++a)
+            columns[a] = a;
+        failed = new boolean[k];
+        failure = null;
+        pb = new DenseDoubleMatrix1D(n);
+        px = new DenseDoubleMatrix1D(n);
+
+        try {
+            solve(A, b, x);
+        } finally {
+            X.assign(x);
+            pb = px = null;
+        }
+
+        if (failure != null)
+            throw failure;
+        return X;
+    }
+
+    /**
+     * Solves for the right hand sides <tt>b</tt>, updating the initial guesses
+     * <tt>x</tt>. Both are <tt>n x k</tt> blocks in the original order of the
+     * columns.
+     */
+    protected abstract void solve(DoubleMatrix2D A, double[] b, double[] x)
+            throws IterativeSolverDoubleNotConvergedException;
+
+    /**
+     * Checks sizes of input data for
+     * {@link #solve(DoubleMatrix2D, DoubleMatrix2D, DoubleMatrix2D)}. Throws
+     * an exception if the sizes does not match.
+     */
+    protected void checkSizes(DoubleMatrix2D A, DoubleMatrix2D B, DoubleMatrix2D X) {
+        if (A.rows() != A.columns())
+            throw new IllegalArgumentException("A is not square");
+        if (B.rows() != A.rows())
+            throw new IllegalArgumentException("B.rows() != A.rows()");
+        if (B.rows() != X.rows() || B.columns() != X.columns())
+            throw new IllegalArgumentException("B and X must have the same shape");
+    }
+
+    /**
+     * Creates iteration monitors with the settings of the monitor of this
+     * solver
+     */
+    private DoubleIterationMonitor[] createIterationMonitors(int k) {
+        DoubleIterationMonitor[] iters = new DoubleIterationMonitor[k];
+        for (int a = 0; a < k; ++a) {
+            DefaultDoubleIterationMonitor m;
+            if (iter instanceof DefaultDoubleIterationMonitor) {
+                DefaultDoubleIterationMonitor d = (DefaultDoubleIterationMonitor) iter;
+                m = new DefaultDoubleIterationMonitor(d.getMaxIterations(), d.getRelativeTolerance(), d
+                        .getAbsoluteTolerance(), d.getDivergenceTolerance());
+            } else {
+                m = new DefaultDoubleIterationMonitor();
+                m.setMaxIterations(iter.getMaxIterations());
+            }
+            m.setNormType(iter.getNormType());
+            m.setIterationReporter(iter.getIterationReporter());
+            iters[a] = m;
+        }
+        return iters;
+    }
+
+    /**
+     * Returns the iteration monitor of an active column
+     */
+    protected DoubleIterationMonitor monitor(int a) {
+        return iters[columns[a]];
+    }
+
+    /**
+     * Starts the iteration count of the active columns
+     */
+    protected void setFirst() {
+        for (int a = 0; a < active; ++a)
+            monitor(a).setFirst();
+    }
+
+    /**
+     * Advances the iteration count of the active columns, or only of the
+     * selected ones if <tt>selected</tt> is not null
+     */
+    protected void next(boolean[] selected) {
+        for (int a = 0; a < active; ++a)
+            if (selected == null || selected[a])
+                monitor(a).next();
+    }
+
+    /**
+     * Marks an active column as failed. The first exception is thrown when
+     * the solve is over
+     */
+    protected void fail(int a, IterativeSolverDoubleNotConvergedException e) {
+        failed[a] = true;
+        if (failure == null)
+            failure = e;
+    }
+
+    /**
+     * Returns true if an active column failed
+     */
+    protected boolean hasFailed(int a) {
+        return failed[a];
+    }
+
+    /**
+     * Tests the convergence of the active columns, whose residuals are the
+     * columns of the block <tt>r</tt>, and retires the columns which converged
+     * or failed. The columns of the given blocks and scalars are moved
+     * accordingly.
+     *
+     * @return true if some columns are still active
+     */
+    protected boolean proceed(double[] r, double[] x, double[][] blocks, double[][] scalars) {
+        double[] norms = norms(r);
+        boolean[] retire = new boolean[active];
+        boolean any = false;
+        for (int a = 0; a < active; ++a) {
+            if (!failed[a]) {
+                DoubleIterationMonitor m = monitor(a);
+                DoubleMatrix1D xa = new DenseDoubleMatrix1D(n, x, columns[a], k, true);
+                try {
+                    if (m.getNormType() == Norm.Two)
+                        retire[a] = m.converged(norms[a], xa);
+                    else
+                        retire[a] = m.converged(new DenseDoubleMatrix1D(n, r, a, k, true), xa);
+                } catch (IterativeSolverDoubleNotConvergedException e) {
+                    fail(a, e);
+                }
+            }
+            retire[a] |= failed[a];
+            any |= retire[a];
+        }
+        if (any)
+            retire(retire, blocks, scalars);
+        return active > 0;
+    }
+
+    /**
+     * Removes the given columns from the active columns
+     */
+    private void retire(boolean[] retire, double[][] blocks, double[][] scalars) {
+        final int[] from = new int[active];
+        int remaining = 0;
+        for (int a = 0; a < active; ++a)
+            if (!retire[a])
+                from[remaining++] = a;
+
+        for (int a = 0; a < remaining; ++a) {
+            columns[a] = columns[from[a]];
+            failed[a] = failed[from[a]];
+            for (double[] s : scalars)
+                s[a] = s[from[a]];
+        }
+        for (final double[] block : blocks) {
+            final int e = remaining;
+            forEachRow(e, new RowRangeTask() {
+                public void run(int first, int last) {
+                    for (int i = first; i < last; ++i) {
+                        int row = i * k;
+                        for (int a = 0; a < e; ++a)
+                            block[row + a] = block[row + from[a]];
+                    }
+                }
+            });
+        }
+        active = remaining;
+    }
+
+    /**
+     * Computes <tt>y = alpha * A * x + beta * y</tt> for the active columns
+     */
+    protected void multiply(DoubleMatrix2D A, double[] x, double[] y, double alpha, double beta) {
+        DoubleMatrix2D X = new DenseDoubleMatrix2D(n, active, x, 0, 0, k, 1, true);
+        DoubleMatrix2D Y = new DenseDoubleMatrix2D(n, active, y, 0, 0, k, 1, true);
+        A.zMult(X, Y, alpha, beta, false, false);
+    }
+
+    /**
+     * Applies the preconditioner to the active columns of <tt>b</tt>, or only
+     * to the selected ones if <tt>selected</tt> is not null, storing the
+     * results in <tt>x</tt>, which also holds the initial guesses
+     */
+    protected void precondition(double[] b, double[] x, boolean[] selected) {
+        if (M instanceof DoubleIdentity) {
+            scale(null, b, x, selected);
+            return;
+        }
+        double[] bd = pb.elements();
+        double[] xd = px.elements();
+        for (int a = 0; a < active; ++a) {
+            if (selected != null && !selected[a])
+                continue;
+            for (int i = 0; i < n; ++i) {
+                bd[i] = b[i * k + a];
+                xd[i] = x[i * k + a];
+            }
+            M.apply(pb, px);
+            for (int i = 0; i < n; ++i)
+                x[i * k + a] = xd[i];
+        }
+    }
+
+    /**
+     * Returns the 2-norms of the active columns
+     */
+    protected double[] norms(double[] x) {
+        double[] norms = dot(x, x);
+        for (int a = 0; a < active; ++a)
+            norms[a] = Math.sqrt(norms[a]);
+        return norms;
+    }
+
+    /**
+     * Returns the dot products of the active columns of two blocks
+     */
+    protected double[] dot(final double[] x, final double[] y) {
+        final int e = active;
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && ((long) n * e >= ConcurrencyUtils.getThreadsBeginN_1D()) && (n >= nthreads)) {
+            Future<?>[] futures = new Future[nthreads];
+            final double[][] partial = new double[nthreads][];
+            int m = n / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstRow = j * m;
+                final int lastRow = (j == nthreads - 1) ? n : firstRow + m;
+                final int task = j;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        partial[task] = dot(x, y, e, firstRow, lastRow);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+            double[] dot = new double[e];
+            for (int j = 0; j < nthreads; j++)
+                for (int a = 0; a < e; ++a)
+                    dot[a] += partial[j][a];
+            return dot;
+        } else
+            return dot(x, y, e, 0, n);
+    }
+
+    private double[] dot(double[] x, double[] y, int e, int firstRow, int lastRow) {
+        double[] dot = new double[e];
+        for (int i = firstRow; i < lastRow; ++i) {
+            int row = i * k;
+            for (int a = 0; a < e; ++a)
+                dot[a] += x[row + a] * y[row + a];
+        }
+        return dot;
+    }
+
+    /**
+     * Computes <tt>y = y + alpha * x</tt> for the active columns. If
+     * <tt>original</tt> is true, the active columns of <tt>y</tt> are taken
+     * at their original indexes
+     */
+    protected void axpy(final double[] alpha, final double[] x, final double[] y, final boolean original) {
+        final int e = active;
+        forEachRow(e, new RowRangeTask() {
+            public void run(int first, int last) {
+                for (int i = first; i < last; ++i) {
+                    int row = i * k;
+                    if (original)
+                        for (int a = 0; a < e; ++a)
+                            y[row + columns[a]] += alpha[a] * x[row + a];
+                    else
+                        for (int a = 0; a < e; ++a)
+                            y[row + a] += alpha[a] * x[row + a];
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes <tt>y = x + beta * y</tt> for the active columns
+     */
+    protected void xpay(final double[] x, final double[] beta, final double[] y) {
+        final int e = active;
+        forEachRow(e, new RowRangeTask() {
+            public void run(int first, int last) {
+                for (int i = first; i < last; ++i) {
+                    int row = i * k;
+                    for (int a = 0; a < e; ++a)
+                        y[row + a] = x[row + a] + beta[a] * y[row + a];
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes <tt>y = alpha * x</tt> for the active columns, or only for the
+     * selected ones if <tt>selected</tt> is not null. A null <tt>alpha</tt>
+     * copies the columns
+     */
+    protected void scale(final double[] alpha, final double[] x, final double[] y, final boolean[] selected) {
+        final int e = active;
+        forEachRow(e, new RowRangeTask() {
+            public void run(int first, int last) {
+                for (int i = first; i < last; ++i) {
+                    int row = i * k;
+                    for (int a = 0; a < e; ++a)
+                        if (selected == null || selected[a])
+                            y[row + a] = (alpha == null) ? x[row + a] : alpha[a] * x[row + a];
+                }
+            }
+        });
+    }
+
+    /**
+     * Copies the active columns of <tt>x</tt>, taken at their original
+     * indexes, to the front of <tt>y</tt>
+     */
+    protected void gather(final double[] x, final double[] y) {
+        final int e = active;
+        forEachRow(e, new RowRangeTask() {
+            public void run(int first, int last) {
+                for (int i = first; i < last; ++i) {
+                    int row = i * k;
+                    for (int a = 0; a < e; ++a)
+                        y[row + a] = x[row + columns[a]];
+                }
+            }
+        });
+    }
+
+    /**
+     * Work done on the rows <tt>first, ..., last - 1</tt> of a block
+     */
+    private interface RowRangeTask {
+        void run(int first, int last);
+    }
+
+    /**
+     * Runs the task on all the rows, in parallel if the blocks are large
+     * enough
+     */
+    private void forEachRow(int e, final RowRangeTask task) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && ((long) n * e >= ConcurrencyUtils.getThreadsBeginN_1D()) && (n >= nthreads)) {
+            Future<?>[] futures = new Future[nthreads];
+            int m = n / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstRow = j * m;
+                final int lastRow = (j == nthreads - 1) ? n : firstRow + m;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        task.run(firstRow, lastRow);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else
+            task.run(0, n);
+    }
+}
@@ -0,0 +1,54 @@
+package cern.colt.matrix.tdouble.algo.solver;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+
+/**
+ * Conjugate Gradients solver for several right hand sides. Every column runs
+ * the recurrences of {@link DoubleCG} with its own scalars and its own
+ * iteration monitor, while the matrix is applied to the search directions of
+ * all the active columns by one sparse matrix-matrix product. Columns are
+ * retired as soon as they converge.
+ */
+public class DoubleBatchCG extends AbstractDoubleBatchIterativeSolver {
+
+    protected void solve(DoubleMatrix2D A, double[] b, double[] x) throws IterativeSolverDoubleNotConvergedException {
+        double[] r = b.clone();
+        double[] z = new double[r.length];
+        double[] p = new double[r.length];
+        double[] q = new double[r.length];
+        double[] rho_1 = new double[k];
+        double[][] blocks = { r, z, p, q };
+        double[][] scalars = { rho_1 };
+
+        multiply(A, x, r, -1, 1);
+
+        boolean first = true;
+        for (setFirst(); proceed(r, x, blocks, scalars); next(null)) {
+            precondition(r, z, null);
+            double[] rho = dot(r, z);
+
+            if (first)
+                scale(null, z, p, null);
+            else {
+                double[] beta = new double[active];
+                for (int a = 0; a < active; ++a)
+                    beta[a] = rho[a] / rho_1[a];
+                xpay(z, beta, p);
+            }
+
+            multiply(A, p, q, 1, 0);
+            double[] alpha = dot(p, q);
+            for (int a = 0; a < active; ++a)
+                alpha[a] = rho[a] / alpha[a];
+
+            axpy(alpha, p, x, true);
+            for (int a = 0; a < active; ++a)
+                alpha[a] = -alpha[a];
+            axpy(alpha, q, r, false);
+
+            System.arraycopy(rho, 0, rho_1, 0, active);
+            first = false;
+        }
+    }
+
+}
@@ -0,0 +1,175 @@
+package cern.colt.matrix.tdouble.algo.solver;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.algo.DenseDoubleAlgebra;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+
+/**
+ * GMRES solver for several right hand sides. Every column builds its own
+ * Krylov subspace, Hessenberg matrix and Givens rotations as in
+ * {@link DoubleGMRES}, with its own iteration monitor, while the matrix is
+ * applied to the basis vectors of all the active columns by one sparse
+ * matrix-matrix product. A column stops extending its subspace when it
+ * converges, and is retired at the next restart. By default the iteration is
+ * restarted after 30 iterations.
+ */
+public class DoubleBatchGMRES extends AbstractDoubleBatchIterativeSolver {
+
+    /**
+     * After this many iterations, the GMRES will be restarted.
+     */
+    private int restart;
+
+    /**
+     * Constructor for GMRES. The iteration is restarted every 30 iterations
+     */
+    public DoubleBatchGMRES() {
+        this(30);
+    }
+
+    /**
+     * Constructor for GMRES
+     *
+     * @param restart
+     *            GMRES iteration is restarted after this number of iterations
+     */
+    public DoubleBatchGMRES(int restart) {
+        setRestart(restart);
+    }
+
+    /**
+     * Sets the restart parameter
+     *
+     * @param restart
+     *            GMRES iteration is restarted after this number of iterations
+     */
+    public void setRestart(int restart) {
+        if (restart <= 0)
+            throw new IllegalArgumentException("restart must be a positive integer");
+        this.restart = restart;
+    }
+
+    protected void solve(DoubleMatrix2D A, double[] b, double[] x) throws IterativeSolverDoubleNotConvergedException {
+        double[] u = new double[b.length];
+        double[] w = new double[b.length];
+        double[] r = new double[b.length];
+        double[][] v = new double[restart + 1][b.length];
+        double[][] blocks = { r };
+
+        residual(A, b, x, u, r);
+        double[] normr = norms(r);
+
+        // Outer iteration
+        for (setFirst(); proceed(r, x, blocks, new double[][] { normr }); next(null)) {
+            int e = active;
+            double[] scale = new double[e];
+            for (int a = 0; a < e; ++a)
+                scale[a] = 1 / normr[a];
+            scale(scale, r, v[0], null);
+
+            DoubleMatrix1D[] s = new DoubleMatrix1D[e];
+            DoubleMatrix2D[] H = new DoubleMatrix2D[e];
+            DoubleGivensRotation[][] rotation = new DoubleGivensRotation[e][restart + 1];
+            for (int a = 0; a < e; ++a) {
+                s[a] = new DenseDoubleMatrix1D(restart + 1);
+                s[a].setQuick(0, normr[a]);
+                H[a] = new DenseDoubleMatrix2D(restart + 1, restart);
+            }
+            boolean[] extending = new boolean[e];
+            int[] steps = new int[e];
+
+            // Inner iteration
+            for (int i = 0; i < restart; i++, next(extending)) {
+                boolean any = false;
+                for (int a = 0; a < e; ++a) {
+                    extending[a] = (i == 0 || extending[a]) && !hasFailed(a);
+                    if (extending[a]) {
+                        try {
+                            extending[a] = !monitor(a).converged(Math.abs(s[a].getQuick(i)));
+                        } catch (IterativeSolverDoubleNotConvergedException ex) {
+                            fail(a, ex);
+                            extending[a] = false;
+                        }
+                    }
+                    if (extending[a])
+                        steps[a] = i + 1;
+                    any |= extending[a];
+                }
+                if (!any)
+                    break;
+
+                multiply(A, v[i], u, 1, 0);
+                precondition(u, w, extending);
+
+                double[] h = null;
+                for (int j = 0; j <= i; j++) {
+                    h = dot(w, v[j]);
+                    for (int a = 0; a < e; ++a) {
+                        if (extending[a])
+                            H[a].setQuick(j, i, h[a]);
+                        h[a] = extending[a] ? -h[a] : 0;
+                    }
+                    axpy(h, v[j], w, false);
+                }
+                h = norms(w);
+                for (int a = 0; a < e; ++a) {
+                    if (extending[a])
+                        H[a].setQuick(i + 1, i, h[a]);
+                    h[a] = extending[a] ? 1 / h[a] : 0;
+                }
+                scale(h, w, v[i + 1], null);
+
+                // QR factorization of H using Givens rotations
+                for (int a = 0; a < e; ++a) {
+                    if (!extending[a])
+                        continue;
+                    for (int j = 0; j < i; ++j)
+                        rotation[a][j].apply(H[a], i, j, j + 1);
+
+                    rotation[a][i] = new DoubleGivensRotation(H[a].getQuick(i, i), H[a].getQuick(i + 1, i));
+                    rotation[a][i].apply(H[a], i, i, i + 1);
+                    rotation[a][i].apply(s[a], i, i + 1);
+                }
+            }
+
+            // Update solution in current subspace
+            double[][] y = new double[e][];
+            for (int a = 0; a < e; ++a) {
+                if (steps[a] > 0)
+                    y[a] = DenseDoubleAlgebra.DEFAULT.backwardSolve(H[a].viewPart(0, 0, steps[a], steps[a]), s[a])
+                            .toArray();
+            }
+            double[] c = new double[e];
+            for (int j = 0; j < restart; j++) {
+                boolean any = false;
+                for (int a = 0; a < e; ++a) {
+                    c[a] = (j < steps[a]) ? y[a][j] : 0;
+                    any |= j < steps[a];
+                }
+                if (!any)
+                    break;
+                axpy(c, v[j], x, true);
+            }
+
+            residual(A, b, x, u, r);
+            normr = norms(r);
+        }
+    }
+
+    /**
+     * Computes the preconditioned residuals <tt>r</tt> of the active columns
+     */
+    private void residual(DoubleMatrix2D A, double[] b, double[] x, double[] u, double[] r) {
+        gather(b, u);
+        if (active == k)
+            multiply(A, x, u, -1, 1);
+        else {
+            gather(x, r);
+            multiply(A, r, u, -1, 1);
+        }
+        precondition(u, r, null);
+    }
+
+}
@@ -0,0 +1,48 @@
+package cern.colt.matrix.tdouble.algo.solver;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+
+/**
+ * Iterative linear solver for several right hand sides. Solves
+ * <code>AX=B</code> for <code>X</code>, column by column, applying the matrix
+ * to all the columns at once. The convergence of every column is monitored by
+ * its own iteration monitor.
+ */
+public interface DoubleBatchIterativeSolver extends DoubleIterativeSolver {
+
+    /**
+     * Solves the given problem, writing result into the matrix.
+     *
+     * @param A
+     *            Matrix of the problem
+     * @param B
+     *            Right hand sides, one per column
+     * @param X
+     *            Solutions are stored here. Also used as initial guesses
+     * @return The solution matrix X
+     * @throws IterativeSolverDoubleNotConvergedException
+     *             if a column did not converge; it is thrown once the other
+     *             columns are done, and X holds the last iterates
+     */
+    DoubleMatrix2D solve(DoubleMatrix2D A, DoubleMatrix2D B, DoubleMatrix2D X)
+            throws IterativeSolverDoubleNotConvergedException;
+
+    /**
+     * Sets the iteration monitors of the columns. If they are not set, or if
+     * their number differs from the number of columns to solve for, monitors
+     * are created with the settings of the iteration monitor of this solver.
+     *
+     * @param iters
+     *            Iteration monitors, one per column
+     */
+    void setIterationMonitors(DoubleIterationMonitor[] iters);
+
+    /**
+     * Gets the iteration monitors of the columns, holding the iteration counts
+     * and the residuals of the last solve.
+     *
+     * @return Current iteration monitors, one per column
+     */
+    DoubleIterationMonitor[] getIterationMonitors();
+
+}
@@ -23,6 +23,7 @@
 
 package cern.colt.matrix.tdouble.algo.solver;
 
+import cern.colt.matrix.Norm;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.jet.math.tdouble.DoubleFunctions;
@@ -31,6 +32,12 @@ import cern.jet.math.tdouble.DoubleFunctions;
  * BiCG stablized solver. BiCGstab solves the unsymmetric linear system
  * <code>Ax = b</code> using the Preconditioned BiConjugate Gradient Stabilized
  * method
+ * <p>
+ * With {@link #setFused(boolean)}, the vector updates and inner products of
+ * every step are fused, and the norms needed by the iteration monitor are
+ * computed along with them. An iteration then makes five passes over the
+ * vectors instead of about fourteen, which pays off when the matrix and the
+ * preconditioner are cheap to apply compared to the vector operations.
  * 
  * @author Templates
  */
@@ -41,6 +48,11 @@ public class DoubleBiCGstab extends AbstractDoubleIterativeSolver {
      */
     private DoubleMatrix1D p, s, phat, shat, t, v, temp, r, rtilde;
 
+    /**
+     * Whether the fused vector operations are used
+     */
+    private boolean fused;
+
     /**
      * Constructor for BiCGstab. Uses the given vector as template for creating
      * scratch vectors. Typically, the solution or the right hand side vector
@@ -62,10 +74,31 @@ public class DoubleBiCGstab extends AbstractDoubleIterativeSolver {
         rtilde = template.copy();
     }
 
+    /**
+     * Sets whether the fused vector operations are used. They apply only to
+     * dense vectors, and are off by default
+     * 
+     * @param fused
+     *            true to use the fused vector operations
+     */
+    public void setFused(boolean fused) {
+        this.fused = fused;
+    }
+
+    /**
+     * Returns whether the fused vector operations are used
+     */
+    public boolean isFused() {
+        return fused;
+    }
+
     public DoubleMatrix1D solve(DoubleMatrix2D A, DoubleMatrix1D b, DoubleMatrix1D x)
             throws IterativeSolverDoubleNotConvergedException {
         checkSizes(A, b, x);
 
+        if (fused && DoubleKrylovKernels.isDense(b, x, r))
+            return solveFused(A, b, x);
+
         double rho_1 = 1, rho_2 = 1, alpha = 1, beta = 1, omega = 1;
 
         A.zMult(x, r.assign(b), -1, 1, false);
@@ -115,4 +148,61 @@ public class DoubleBiCGstab extends AbstractDoubleIterativeSolver {
         return x;
     }
 
+    private DoubleMatrix1D solveFused(DoubleMatrix2D A, DoubleMatrix1D b, DoubleMatrix1D x)
+            throws IterativeSolverDoubleNotConvergedException {
+        double rho_1, rho_2 = 1, alpha = 1, beta = 1, omega = 1;
+
+        A.zMult(x, r.assign(b), -1, 1, false);
+        rtilde.assign(r);
+        double[] dots = DoubleKrylovKernels.dot2(r, r);
+
+        for (iter.setFirst(); !converged(r, dots[1], x); iter.next()) {
+            rho_1 = dots[0];
+
+            if (rho_1 == 0)
+                throw new IterativeSolverDoubleNotConvergedException(DoubleNotConvergedException.Reason.Breakdown,
+                        "rho", iter);
+
+            if (omega == 0)
+                throw new IterativeSolverDoubleNotConvergedException(DoubleNotConvergedException.Reason.Breakdown,
+                        "omega", iter);
+
+            if (iter.isFirst())
+                p.assign(r);
+            else {
+                beta = (rho_1 / rho_2) * (alpha / omega);
+                DoubleKrylovKernels.bicgstabDirection(beta, omega, r, v, p);
+            }
+
+            M.apply(p, phat);
+            A.zMult(phat, v);
+            alpha = rho_1 / DoubleKrylovKernels.dot(rtilde, v);
+            double ss = DoubleKrylovKernels.waxpyNorm(-alpha, v, r, s);
+
+            if (converged(s, ss, x))
+                return x.assign(phat, DoubleFunctions.plusMultSecond(alpha));
+
+            M.apply(s, shat);
+            A.zMult(shat, t);
+            dots = DoubleKrylovKernels.dot2(t, s);
+            omega = dots[0] / dots[1];
+            dots = DoubleKrylovKernels.bicgstabUpdate(alpha, omega, phat, shat, s, t, rtilde, x, r);
+
+            rho_2 = rho_1;
+        }
+
+        return x;
+    }
+
+    /**
+     * Tests the convergence of the residual v, whose squared 2-norm is vv
+     */
+    private boolean converged(DoubleMatrix1D v, double vv, DoubleMatrix1D x)
+            throws IterativeSolverDoubleNotConvergedException {
+        if (iter.getNormType() == Norm.Two)
+            return iter.converged(Math.sqrt(vv), x);
+        else
+            return iter.converged(v, x);
+    }
+
 }
\ No newline at end of file
@@ -23,6 +23,7 @@
 
 package cern.colt.matrix.tdouble.algo.solver;
 
+import cern.colt.matrix.Norm;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.jet.math.tdouble.DoubleFunctions;
@@ -30,6 +31,13 @@ import cern.jet.math.tdouble.DoubleFunctions;
 /**
  * Conjugate Gradients solver. CG solves the symmetric positive definite linear
  * system <code>Ax=b</code> using the Conjugate Gradient method.
+ * <p>
+ * With {@link #setFused(boolean)}, the single reduction variant of Chronopoulos
+ * and Gear is used instead. It computes all the inner products of an iteration
+ * in one pass, and all the vector updates in another, which saves passes over
+ * memory and thread synchronizations when the matrix and the preconditioner
+ * are cheap to apply compared to the vector operations. Both variants are
+ * equivalent in exact arithmetic.
  * 
  * @author Templates
  */
@@ -40,6 +48,16 @@ public class DoubleCG extends AbstractDoubleIterativeSolver {
      */
     private DoubleMatrix1D p, z, q, r;
 
+    /**
+     * Extra vector of the single reduction variant
+     */
+    private DoubleMatrix1D w;
+
+    /**
+     * Whether the single reduction variant is used
+     */
+    private boolean fused;
+
     /**
      * Constructor for CG. Uses the given vector as template for creating
      * scratch vectors. Typically, the solution or the right hand side vector
@@ -56,10 +74,32 @@ public class DoubleCG extends AbstractDoubleIterativeSolver {
         r = template.copy();
     }
 
+    /**
+     * Sets whether the single reduction variant, with fused vector
+     * operations, is used. It applies only to dense vectors, and is off by
+     * default
+     * 
+     * @param fused
+     *            true to use the single reduction variant
+     */
+    public void setFused(boolean fused) {
+        this.fused = fused;
+    }
+
+    /**
+     * Returns whether the single reduction variant is used
+     */
+    public boolean isFused() {
+        return fused;
+    }
+
     public DoubleMatrix1D solve(DoubleMatrix2D A, DoubleMatrix1D b, DoubleMatrix1D x)
             throws IterativeSolverDoubleNotConvergedException {
         checkSizes(A, b, x);
 
+        if (fused && DoubleKrylovKernels.isDense(b, x, r))
+            return solveFused(A, b, x);
+
         double alpha = 0, beta = 0, rho = 0, rho_1 = 0;
 
         A.zMult(x, r.assign(b), -1, 1, false);
@@ -86,4 +126,50 @@ public class DoubleCG extends AbstractDoubleIterativeSolver {
         return x;
     }
 
+    /**
+     * Single reduction CG. z plays the part of the preconditioned residual u,
+     * and q of s = A * p
+     */
+    private DoubleMatrix1D solveFused(DoubleMatrix2D A, DoubleMatrix1D b, DoubleMatrix1D x)
+            throws IterativeSolverDoubleNotConvergedException {
+        if (w == null)
+            w = r.copy();
+
+        double alpha = 0, beta = 0, gamma, gamma_1 = 0, delta;
+
+        A.zMult(x, r.assign(b), -1, 1, false);
+        M.apply(r, z);
+        A.zMult(z, w);
+        double[] dots = DoubleKrylovKernels.dot3(r, z, w);
+        p.assign(0);
+        q.assign(0);
+
+        for (iter.setFirst(); !converged(Math.sqrt(dots[2]), x); iter.next()) {
+            gamma = dots[0];
+            delta = dots[1];
+            if (iter.isFirst())
+                alpha = gamma / delta;
+            else {
+                beta = gamma / gamma_1;
+                alpha = gamma / (delta - beta * gamma / alpha);
+            }
+
+            DoubleKrylovKernels.cgUpdate(alpha, beta, z, w, p, q, x, r);
+
+            M.apply(r, z);
+            A.zMult(z, w);
+            dots = DoubleKrylovKernels.dot3(r, z, w);
+
+            gamma_1 = gamma;
+        }
+        return x;
+    }
+
+    private boolean converged(double normr, DoubleMatrix1D x) throws IterativeSolverDoubleNotConvergedException {
+        if (iter.getNormType() == Norm.Two)
+            return iter.converged(normr, x);
+        else
+            return iter.converged(r, x);
+    }
+
 }
@@ -0,0 +1,235 @@
+package cern.colt.matrix.tdouble.algo.solver;
+
+import java.util.concurrent.Future;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Fused vector operations of the Krylov solvers. Every operation combines the
+ * vector updates and the inner products of one step of an iteration into a
+ * single pass over the vectors, which is split among the threads once, instead
+ * of one pass and one fork/join per <tt>assign</tt> or <tt>zDotProduct</tt>.
+ * The inner products are accumulated per thread and summed at the end of the
+ * pass.
+ * <p>
+ * All the vectors must be dense, see {@link #isDense(DoubleMatrix1D[])}.
+ */
+final class DoubleKrylovKernels {
+
+    /**
+     * Work done on the elements <tt>first, ..., last - 1</tt>, adding its
+     * inner products to <tt>sums</tt>.
+     */
+    private interface Kernel {
+        void run(int first, int last, double[] sums);
+    }
+
+    private DoubleKrylovKernels() {
+    }
+
+    /**
+     * Returns true if all the vectors are dense, so that the operations of
+     * this class apply to them.
+     */
+    static boolean isDense(DoubleMatrix1D... v) {
+        for (int i = 0; i < v.length; i++)
+            if (!(v[i] instanceof DenseDoubleMatrix1D))
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns <tt>(x, y)</tt>.
+     */
+    static double dot(DoubleMatrix1D x, DoubleMatrix1D y) {
+        final double[] ex = elements(x), ey = elements(y);
+        final int zx = zero(x), sx = x.stride(), zy = zero(y), sy = y.stride();
+        return run((int) x.size(), 1, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                double sum = 0;
+                for (int i = first; i < last; i++)
+                    sum += ex[zx + i * sx] * ey[zy + i * sy];
+                sums[0] += sum;
+            }
+        })[0];
+    }
+
+    /**
+     * Returns <tt>(x, y)</tt> and <tt>(x, x)</tt>.
+     */
+    static double[] dot2(DoubleMatrix1D x, DoubleMatrix1D y) {
+        final double[] ex = elements(x), ey = elements(y);
+        final int zx = zero(x), sx = x.stride(), zy = zero(y), sy = y.stride();
+        return run((int) x.size(), 2, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                double xy = 0, xx = 0;
+                for (int i = first; i < last; i++) {
+                    double xi = ex[zx + i * sx];
+                    xy += xi * ey[zy + i * sy];
+                    xx += xi * xi;
+                }
+                sums[0] += xy;
+                sums[1] += xx;
+            }
+        });
+    }
+
+    /**
+     * Returns <tt>(r, u)</tt>, <tt>(w, u)</tt> and <tt>(r, r)</tt>.
+     */
+    static double[] dot3(DoubleMatrix1D r, DoubleMatrix1D u, DoubleMatrix1D w) {
+        final double[] er = elements(r), eu = elements(u), ew = elements(w);
+        final int zr = zero(r), sr = r.stride(), zu = zero(u), su = u.stride(), zw = zero(w), sw = w.stride();
+        return run((int) r.size(), 3, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                double ru = 0, wu = 0, rr = 0;
+                for (int i = first; i < last; i++) {
+                    double ri = er[zr + i * sr], ui = eu[zu + i * su];
+                    ru += ri * ui;
+                    wu += ew[zw + i * sw] * ui;
+                    rr += ri * ri;
+                }
+                sums[0] += ru;
+                sums[1] += wu;
+                sums[2] += rr;
+            }
+        });
+    }
+
+    /**
+     * Computes <tt>w = y + alpha * x</tt>, and returns <tt>(w, w)</tt>.
+     */
+    static double waxpyNorm(final double alpha, DoubleMatrix1D x, DoubleMatrix1D y, DoubleMatrix1D w) {
+        final double[] ex = elements(x), ey = elements(y), ew = elements(w);
+        final int zx = zero(x), sx = x.stride(), zy = zero(y), sy = y.stride(), zw = zero(w), sw = w.stride();
+        return run((int) x.size(), 1, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                double ww = 0;
+                for (int i = first; i < last; i++) {
+                    double wi = ey[zy + i * sy] + alpha * ex[zx + i * sx];
+                    ew[zw + i * sw] = wi;
+                    ww += wi * wi;
+                }
+                sums[0] += ww;
+            }
+        })[0];
+    }
+
+    /**
+     * Computes the CG updates <tt>p = u + beta * p</tt>,
+     * <tt>s = w + beta * s</tt>, <tt>x = x + alpha * p</tt> and
+     * <tt>r = r - alpha * s</tt>.
+     */
+    static void cgUpdate(final double alpha, final double beta, DoubleMatrix1D u, DoubleMatrix1D w,
+            DoubleMatrix1D p, DoubleMatrix1D s, DoubleMatrix1D x, DoubleMatrix1D r) {
+        final double[] eu = elements(u), ew = elements(w), ep = elements(p);
+        final double[] es = elements(s), ex = elements(x), er = elements(r);
+        final int zu = zero(u), su = u.stride(), zw = zero(w), sw = w.stride(), zp = zero(p), sp = p.stride();
+        final int zs = zero(s), ss = s.stride(), zx = zero(x), sx = x.stride(), zr = zero(r), sr = r.stride();
+        run((int) u.size(), 0, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                for (int i = first; i < last; i++) {
+                    int ip = zp + i * sp, is = zs + i * ss;
+                    double pi = eu[zu + i * su] + beta * ep[ip];
+                    double si = ew[zw + i * sw] + beta * es[is];
+                    ep[ip] = pi;
+                    es[is] = si;
+                    ex[zx + i * sx] += alpha * pi;
+                    er[zr + i * sr] -= alpha * si;
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes the BiCGstab search direction
+     * <tt>p = r + beta * (p - omega * v)</tt>.
+     */
+    static void bicgstabDirection(final double beta, final double omega, DoubleMatrix1D r, DoubleMatrix1D v,
+            DoubleMatrix1D p) {
+        final double[] er = elements(r), ev = elements(v), ep = elements(p);
+        final int zr = zero(r), sr = r.stride(), zv = zero(v), sv = v.stride(), zp = zero(p), sp = p.stride();
+        run((int) r.size(), 0, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                for (int i = first; i < last; i++) {
+                    int ip = zp + i * sp;
+                    ep[ip] = er[zr + i * sr] + beta * (ep[ip] - omega * ev[zv + i * sv]);
+                }
+            }
+        });
+    }
+
+    /**
+     * Computes the BiCGstab updates
+     * <tt>x = x + alpha * phat + omega * shat</tt> and
+     * <tt>r = s - omega * t</tt>, and returns <tt>(rtilde, r)</tt> and
+     * <tt>(r, r)</tt>.
+     */
+    static double[] bicgstabUpdate(final double alpha, final double omega, DoubleMatrix1D phat,
+            DoubleMatrix1D shat, DoubleMatrix1D s, DoubleMatrix1D t, DoubleMatrix1D rtilde, DoubleMatrix1D x,
+            DoubleMatrix1D r) {
+        final double[] eph = elements(phat), esh = elements(shat), es = elements(s), et = elements(t);
+        final double[] ert = elements(rtilde), ex = elements(x), er = elements(r);
+        final int zph = zero(phat), sph = phat.stride(), zsh = zero(shat), ssh = shat.stride();
+        final int zs = zero(s), ss = s.stride(), zt = zero(t), st = t.stride(), zrt = zero(rtilde), srt = rtilde
+                .stride();
+        final int zx = zero(x), sx = x.stride(), zr = zero(r), sr = r.stride();
+        return run((int) r.size(), 2, new Kernel() {
+            public void run(int first, int last, double[] sums) {
+                double rtr = 0, rr = 0;
+                for (int i = first; i < last; i++) {
+                    ex[zx + i * sx] += alpha * eph[zph + i * sph] + omega * esh[zsh + i * ssh];
+                    double ri = es[zs + i * ss] - omega * et[zt + i * st];
+                    er[zr + i * sr] = ri;
+                    rtr += ert[zrt + i * srt] * ri;
+                    rr += ri * ri;
+                }
+                sums[0] += rtr;
+                sums[1] += rr;
+            }
+        });
+    }
+
+    private static double[] elements(DoubleMatrix1D v) {
+        return ((DenseDoubleMatrix1D) v).elements();
+    }
+
+    private static int zero(DoubleMatrix1D v) {
+        return (int) v.index(0);
+    }
+
+    /*
+     * Runs the kernel on all the elements, in parallel if there are enough of
+     * them, and returns the sums of its inner products.
+     */
+    private static double[] run(int n, int nsums, final Kernel kernel) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (n >= ConcurrencyUtils.getThreadsBeginN_1D())) {
+            Future<?>[] futures = new Future[nthreads];
+            final double[][] partial = new double[nthreads][nsums];
+            int k = n / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstIdx = j * k;
+                final int lastIdx = (j == nthreads - 1) ? n : firstIdx + k;
+                final double[] sums = partial[j];
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        kernel.run(firstIdx, lastIdx, sums);
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+            double[] sums = new double[nsums];
+            for (int j = 0; j < nthreads; j++)
+                for (int l = 0; l < nsums; l++)
+                    sums[l] += partial[j][l];
+            return sums;
+        } else {
+            double[] sums = new double[nsums];
+            kernel.run(0, n, sums);
+            return sums;
+        }
+    }
+}
@@ -22,26 +22,27 @@ package cern.colt.matrix.tdouble.algo.solver.preconditioner;
 
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.concurrent.Future;
 
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.decomposition.DenseDoubleLUDecompositionQuick;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
-import cern.colt.matrix.tdouble.impl.SparseCCDoubleMatrix2D;
-import cern.colt.matrix.tdouble.impl.SparseCCMDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
-import cern.colt.matrix.tdouble.impl.SparseRCMDoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * Algebraic multigrid preconditioner. Uses the smoothed aggregation method
  * described by Vanek, Mandel, and Brezina (1996).
+ * <p>
+ * The setup works on the compressed row arrays of the matrices. The strongly
+ * coupled neighborhoods, the aggregates (chosen as independent sets of
+ * neighborhoods, in parallel rounds), the prolongation and the Galerkin
+ * products are computed in parallel, and give the same hierarchy for any
+ * number of threads. The smoother is a multicolor SSOR method, which relaxes
+ * the rows of one color in parallel.
  */
 public class DoubleAMG implements DoublePreconditioner {
 
@@ -61,9 +62,10 @@ public class DoubleAMG implements DoublePreconditioner {
     private SparseRCDoubleMatrix2D[] A;
 
     /**
-     * LU factorization at the coarsest level
+     * LU factorizations of the matrix and of its transpose at the coarsest
+     * level
      */
-    private DenseDoubleLUDecompositionQuick lu;
+    private DenseDoubleLUDecompositionQuick lu, luT;
 
     /**
      * Solution, right-hand side, and residual vectors at each level
@@ -73,7 +75,13 @@ public class DoubleAMG implements DoublePreconditioner {
     /**
      * Interpolation operators going to a finer mesh
      */
-    private SparseCCDoubleMatrix2D[] I;
+    private SparseRCDoubleMatrix2D[] I;
+
+    /**
+     * Restriction operators (the transposed interpolation operators) going to
+     * a coarser mesh
+     */
+    private SparseRCDoubleMatrix2D[] R;
 
     /**
      * Smallest matrix size before terminating the AMG setup phase. Matrices
@@ -212,7 +220,7 @@ public class DoubleAMG implements DoublePreconditioner {
             x = b.like();
         }
 
-        u[0].assign(x);
+        u[0].assign(0);
         f[0].assign(b);
 
         transpose = false;
@@ -226,7 +234,7 @@ public class DoubleAMG implements DoublePreconditioner {
             x = b.like();
         }
 
-        u[0].assign(x);
+        u[0].assign(0);
         f[0].assign(b);
 
         transpose = true;
@@ -236,8 +244,9 @@ public class DoubleAMG implements DoublePreconditioner {
     }
 
     public void setMatrix(DoubleMatrix2D A) {
-        List<SparseRCDoubleMatrix2D> Al = new LinkedList<SparseRCDoubleMatrix2D>();
-        List<SparseCCDoubleMatrix2D> Il = new LinkedList<SparseCCDoubleMatrix2D>();
+        List<SparseRCDoubleMatrix2D> Al = new ArrayList<SparseRCDoubleMatrix2D>();
+        List<SparseRCDoubleMatrix2D> Il = new ArrayList<SparseRCDoubleMatrix2D>();
+        List<SparseRCDoubleMatrix2D> Rl = new ArrayList<SparseRCDoubleMatrix2D>();
         SparseRCDoubleMatrix2D Arc = new SparseRCDoubleMatrix2D(A.rows(), A.columns());
         Arc.assign(A);
         if (!Arc.hasColumnIndexesSorted())
@@ -255,7 +264,7 @@ public class DoubleAMG implements DoublePreconditioner {
 
             // If no aggregates were created, no interpolation operator will be
             // created, and the setup phase stops
-            if (aggregator.getAggregates().size() == 0)
+            if (aggregator.getNumberOfAggregates() == 0)
                 break;
 
             // Create an interpolation operator using smoothing. This also
@@ -264,6 +273,7 @@ public class DoubleAMG implements DoublePreconditioner {
 
             Al.add(sa.getGalerkinOperator());
             Il.add(sa.getInterpolationOperator());
+            Rl.add(sa.getRestrictionOperator());
         }
 
         // Copy to array storage
@@ -271,15 +281,16 @@ public class DoubleAMG implements DoublePreconditioner {
         if (m == 0)
             throw new RuntimeException("Matrix too small for AMG");
 
-        I = new SparseCCDoubleMatrix2D[m - 1];
+        I = Il.toArray(new SparseRCDoubleMatrix2D[m - 1]);
+        R = Rl.toArray(new SparseRCDoubleMatrix2D[m - 1]);
         this.A = new SparseRCDoubleMatrix2D[m - 1];
-
-        Il.toArray(I);
         for (int i = 0; i < Al.size() - 1; ++i)
             this.A[i] = Al.get(i);
 
         // Create a LU decomposition of the smallest Galerkin matrix
         DenseDoubleMatrix2D Ac = new DenseDoubleMatrix2D(Al.get(Al.size() - 1).toArray());
+        luT = new DenseDoubleLUDecompositionQuick();
+        luT.decompose(Ac.viewDice().copy());
         lu = new DenseDoubleLUDecompositionQuick();
         lu.decompose(Ac);
 
@@ -294,15 +305,13 @@ public class DoubleAMG implements DoublePreconditioner {
             r[k] = new DenseDoubleMatrix1D(n);
         }
 
-        // Set up the SSOR relaxation schemes
+        // Set up the SSOR relaxation schemes, sharing the coloring of a level
         preM = new SSOR[m - 1];
         postM = new SSOR[m - 1];
         for (int k = 0; k < m - 1; ++k) {
-            SparseRCDoubleMatrix2D Ak = this.A[k];
-            preM[k] = new SSOR(Ak, reverse, omegaPreF, omegaPreR);
-            postM[k] = new SSOR(Ak, reverse, omegaPostF, omegaPostR);
-            preM[k].setMatrix(Ak);
-            postM[k].setMatrix(Ak);
+            Coloring coloring = new Coloring(this.A[k]);
+            preM[k] = new SSOR(this.A[k], coloring, reverse, omegaPreF, omegaPreR);
+            postM[k] = new SSOR(this.A[k], coloring, reverse, omegaPostF, omegaPostR);
         }
     }
 
@@ -326,7 +335,7 @@ public class DoubleAMG implements DoublePreconditioner {
             A[k].zMult(u[k], r[k].assign(f[k]), -1, 1, false);
 
             // Restrict to the next coarser level
-            I[k].zMult(r[k], f[k + 1], 1, 0, true);
+            R[k].zMult(r[k], f[k + 1], 1, 0, false);
 
             // Recurse to next level
             for (int i = 0; i < gamma; ++i)
@@ -346,11 +355,9 @@ public class DoubleAMG implements DoublePreconditioner {
     private void directSolve() {
         int k = m - 1;
         u[k].assign(f[k]);
-        if (transpose) {
-            lu.setLU(lu.getLU().viewDice());
-            lu.solve(u[k]);
-            lu.setLU(lu.getLU().viewDice());
-        } else
+        if (transpose)
+            luT.solve(u[k]);
+        else
             lu.solve(u[k]);
     }
 
@@ -382,6 +389,79 @@ public class DoubleAMG implements DoublePreconditioner {
                 postM[k].apply(f[k], u[k]);
     }
 
+    /**
+     * Work done on the indexes <tt>first, ..., last - 1</tt>
+     */
+    private interface RangeTask {
+        void run(int first, int last);
+    }
+
+    /**
+     * Runs the task on the indexes <tt>0, ..., n - 1</tt>, split into ranges
+     * processed in parallel if the work (in nonzeros) is large enough
+     */
+    private static void forEachRange(int n, long work, final RangeTask task) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads <= 1) || (work < ConcurrencyUtils.getThreadsBeginN_1D()) || (n < 2)) {
+            task.run(0, n);
+            return;
+        }
+        nthreads = Math.min(nthreads, n);
+        final RuntimeException[] failure = new RuntimeException[1];
+        Future<?>[] futures = new Future[nthreads];
+        int k = n / nthreads;
+        for (int j = 0; j < nthreads; j++) {
+            final int first = j * k;
+            final int last = (j == nthreads - 1) ? n : first + k;
+            futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                public void run() {
+                    try {
+                        task.run(first, last);
+                    } catch (RuntimeException e) {
+                        synchronized (failure) {
+                            failure[0] = e;
+                        }
+                    }
+                }
+            });
+        }
+        ConcurrencyUtils.waitForCompletion(futures);
+        synchronized (failure) {
+            if (failure[0] != null)
+                throw failure[0];
+        }
+    }
+
+    /**
+     * Returns a distinct pseudo-random priority of a node, used to break ties
+     * when selecting independent sets in parallel
+     */
+    private static long priority(int i) {
+        return i * 0x9E3779B1;
+    }
+
+    /**
+     * Finds the diagonal indexes of a matrix with sorted column indexes
+     */
+    private static int[] findDiagonalIndexes(SparseRCDoubleMatrix2D A) {
+        final int[] rowptr = A.getRowPointers();
+        final int[] colind = A.getColumnIndexes();
+
+        final int[] diagind = new int[A.rows()];
+
+        forEachRange(A.rows(), rowptr[A.rows()], new RangeTask() {
+            public void run(int first, int last) {
+                for (int i = first; i < last; ++i) {
+                    diagind[i] = cern.colt.Sorting.binarySearchFromTo(colind, i, rowptr[i], rowptr[i + 1] - 1);
+                    if (diagind[i] < 0)
+                        throw new RuntimeException("Matrix is missing a diagonal entry on row " + (i + 1));
+                }
+            }
+        });
+
+        return diagind;
+    }
+
     /**
      * Creates aggregates. These are disjoint sets, each of which represents one
      * node at a coarser mesh by aggregating together a set of fine nodes
@@ -389,19 +469,30 @@ public class DoubleAMG implements DoublePreconditioner {
     private static class Aggregator {
 
         /**
-         * The aggregates
+         * Number of fine nodes
          */
-        private List<Set<Integer>> C;
+        private final int n;
+
+        /**
+         * The aggregate of each node, or -1 if the node is not aggregated
+         */
+        private final int[] aggregates;
+
+        /**
+         * Number of aggregates
+         */
+        private int c;
 
         /**
          * Diagonal indexes into the sparse matrix
          */
-        private int[] diagind;
+        private final int[] diagind;
 
         /**
-         * The strongly coupled node neighborhood of a given node
+         * The strongly coupled node neighborhoods, in compressed row format
+         * with sorted indexes, and their transpose
          */
-        private List<Set<Integer>> N;
+        private int[] nptr, nind, ntptr, ntind;
 
         /**
          * Creates the aggregates
@@ -413,9 +504,10 @@ public class DoubleAMG implements DoublePreconditioner {
          *            neighborhoods. Between zero and one.
          */
         public Aggregator(SparseRCDoubleMatrix2D A, double eps) {
+            n = A.rows();
 
-            diagind = findDiagonalindexes(A);
-            N = findNodeNeighborhood(A, diagind, eps);
+            diagind = findDiagonalIndexes(A);
+            findNodeNeighborhood(A, eps);
 
             /*
              * Initialization. Remove isolated nodes from the aggregates
@@ -423,227 +515,343 @@ public class DoubleAMG implements DoublePreconditioner {
 
             boolean[] R = createInitialR(A);
 
+            aggregates = new int[n];
+            Arrays.fill(aggregates, -1);
+
             /*
              * Startup aggregation. Use disjoint strongly coupled neighborhoods
-             * as the initial aggregate approximation
+             * as the initial aggregate approximation. Until the renumbering,
+             * an aggregate is labelled by the node it was created from
              */
 
-            C = createInitialAggregates(N, R);
+            boolean[] root = new boolean[n];
+            createInitialAggregates(R, root);
 
             /*
              * Enlargment of the aggregates. Add nodes to each aggregate based
              * on how strongly connected the nodes are to a given aggregate
              */
 
-            C = enlargeAggregates(C, N, R);
+            enlargeAggregates(R);
 
             /*
              * Handling of the remenants. Put all remaining unallocated nodes
              * into new aggregates defined by the intersection of N and R
              */
 
-            C = createFinalAggregates(C, N, R);
+            createFinalAggregates(R, root);
+
+            renumberAggregates(root);
         }
 
         /**
-         * Gets the aggregates
+         * Gets the aggregate of each node, or -1 for the nodes outside of the
+         * aggregates
          */
-        public List<Set<Integer>> getAggregates() {
-            return C;
+        public int[] getAggregates() {
+            return aggregates;
+        }
+
+        /**
+         * Gets the number of aggregates
+         */
+        public int getNumberOfAggregates() {
+            return c;
         }
 
         /**
          * Returns the matrix diagonal indexes. This is a by-product of the
          * aggregation
          */
-        public int[] getDiagonalindexes() {
+        public int[] getDiagonalIndexes() {
             return diagind;
         }
 
         /**
-         * Returns the strongly coupled node neighborhoods of a given node. This
-         * is a by-product of the aggregation
+         * Returns the row pointers of the strongly coupled node neighborhoods.
+         * This is a by-product of the aggregation
          */
-        public List<Set<Integer>> getNodeNeighborhoods() {
-            return N;
+        public int[] getNeighborhoodPointers() {
+            return nptr;
         }
 
         /**
-         * Finds the diagonal indexes of the matrix
+         * Returns the sorted node indexes of the strongly coupled node
+         * neighborhoods. This is a by-product of the aggregation
          */
-        private int[] findDiagonalindexes(SparseRCDoubleMatrix2D A) {
-            int[] rowptr = A.getRowPointers();
-            int[] colind = A.getColumnIndexes();
-
-            int[] diagind = new int[A.rows()];
-
-            for (int i = 0; i < A.rows(); ++i) {
-                diagind[i] = cern.colt.Sorting.binarySearchFromTo(colind, i, rowptr[i], rowptr[i + 1]);
-                if (diagind[i] < 0)
-                    throw new RuntimeException("Matrix is missing a diagonal entry on row " + (i + 1));
-            }
-
-            return diagind;
+        public int[] getNeighborhoodIndexes() {
+            return nind;
         }
 
         /**
-         * Finds the strongly coupled node neighborhoods
+         * Finds the strongly coupled node neighborhoods, and their transpose
          */
-        private List<Set<Integer>> findNodeNeighborhood(SparseRCDoubleMatrix2D A, int[] diagind, double eps) {
-
-            N = new ArrayList<Set<Integer>>(A.rows());
-
-            int[] rowptr = A.getRowPointers();
-            int[] colind = A.getColumnIndexes();
-            double[] data = A.getValues();
-
-            for (int i = 0; i < A.rows(); ++i) {
-                Set<Integer> Ni = new HashSet<Integer>();
-
-                double aii = data[diagind[i]];
-                for (int j = rowptr[i]; j < rowptr[i + 1]; ++j) {
-                    double aij = data[j];
-                    double ajj = data[diagind[colind[j]]];
-
-                    if (Math.abs(aij) >= eps * Math.sqrt(aii * ajj))
-                        Ni.add(colind[j]);
+        private void findNodeNeighborhood(SparseRCDoubleMatrix2D A, final double eps) {
+            final int[] rowptr = A.getRowPointers();
+            final int[] colind = A.getColumnIndexes();
+            final double[] data = A.getValues();
+
+            // Count, then store the strong couplings of every row
+            nptr = new int[n + 1];
+            for (int pass = 0; pass < 2; ++pass) {
+                final boolean count = pass == 0;
+                forEachRange(n, rowptr[n], new RangeTask() {
+                    public void run(int first, int last) {
+                        for (int i = first; i < last; ++i) {
+                            int l = count ? 0 : nptr[i];
+                            double aii = data[diagind[i]];
+                            for (int j = rowptr[i]; j < rowptr[i + 1]; ++j) {
+                                double aij = data[j];
+                                double ajj = data[diagind[colind[j]]];
+
+                                if (Math.abs(aij) >= eps * Math.sqrt(aii * ajj)) {
+                                    if (!count)
+                                        nind[l] = colind[j];
+                                    l++;
+                                }
+                            }
+                            if (count)
+                                nptr[i + 1] = l;
+                        }
+                    }
+                });
+                if (count) {
+                    for (int i = 0; i < n; ++i)
+                        nptr[i + 1] += nptr[i];
+                    nind = new int[nptr[n]];
                 }
-
-                N.add(Ni);
             }
 
-            return N;
+            SparseRCDoubleMatrix2D Nt = new SparseRCDoubleMatrix2D(n, n, nptr, nind, new double[nind.length])
+                    .getTranspose();
+            ntptr = Nt.getRowPointers();
+            ntind = Nt.getColumnIndexes();
         }
 
         /**
          * Creates the initial R-set by including only the connected nodes
          */
         private boolean[] createInitialR(SparseRCDoubleMatrix2D A) {
-            boolean[] R = new boolean[A.rows()];
+            final boolean[] R = new boolean[n];
 
-            int[] rowptr = A.getRowPointers();
-            int[] colind = A.getColumnIndexes();
-            double[] data = A.getValues();
+            final int[] rowptr = A.getRowPointers();
+            final int[] colind = A.getColumnIndexes();
+            final double[] data = A.getValues();
 
-            for (int i = 0; i < A.rows(); ++i) {
-                boolean hasOffDiagonal = false;
+            forEachRange(n, rowptr[n], new RangeTask() {
+                public void run(int first, int last) {
+                    for (int i = first; i < last; ++i) {
+                        boolean hasOffDiagonal = false;
 
-                for (int j = rowptr[i]; j < rowptr[i + 1]; ++j)
-                    if (colind[j] != i && data[j] != 0) {
-                        hasOffDiagonal = true;
-                        break;
-                    }
+                        for (int j = rowptr[i]; j < rowptr[i + 1]; ++j)
+                            if (colind[j] != i && data[j] != 0) {
+                                hasOffDiagonal = true;
+                                break;
+                            }
 
-                R[i] = hasOffDiagonal;
-            }
+                        R[i] = hasOffDiagonal;
+                    }
+                }
+            });
 
             return R;
         }
 
         /**
-         * Creates the initial aggregates
+         * Creates the initial aggregates from free nodes whose neighborhoods
+         * are free, and pairwise disjoint
          */
-        private List<Set<Integer>> createInitialAggregates(List<Set<Integer>> N, boolean[] R) {
-            C = new ArrayList<Set<Integer>>();
-
-            for (int i = 0; i < R.length; ++i) {
-
-                // Skip non-free nodes
-                if (!R[i])
-                    continue;
-
-                // See if all nodes in the current N-set are free
-                boolean free = true;
-                for (int j : N.get(i))
-                    free &= R[j];
-
-                // Create an aggregate out of N[i]
-                if (free) {
-                    C.add(new HashSet<Integer>(N.get(i)));
-                    for (int j : N.get(i))
-                        R[j] = false;
+        private void createInitialAggregates(final boolean[] R, boolean[] root) {
+            final boolean[] candidate = new boolean[n];
+
+            forEachRange(n, nptr[n], new RangeTask() {
+                public void run(int first, int last) {
+                    for (int i = first; i < last; ++i) {
+                        // See if all nodes in the current N-set are free
+                        boolean free = R[i] && nptr[i + 1] > nptr[i];
+                        for (int j = nptr[i]; free && j < nptr[i + 1]; ++j)
+                            free = R[nind[j]];
+                        candidate[i] = free;
+                    }
                 }
+            });
 
-            }
-
-            return C;
+            select(candidate, R, root, true);
         }
 
         /**
          * Enlarges the aggregates
          */
-        private List<Set<Integer>> enlargeAggregates(List<Set<Integer>> C, List<Set<Integer>> N, boolean[] R) {
-
-            // Contains the aggregates each node is coupled to
-            List<List<Integer>> belong = new ArrayList<List<Integer>>(R.length);
-            for (int i = 0; i < R.length; ++i)
-                belong.add(new ArrayList<Integer>());
-
-            // Find which aggregate each node is coupled to. This is used for
-            // the intersection between Ni and Ck
-            for (int k = 0; k < C.size(); ++k)
-                for (int j : C.get(k))
-                    belong.get(j).add(k);
-
-            // Number of nodes in the intersection between each C and Ni
-            int[] intersect = new int[C.size()];
-
-            for (int i = 0; i < R.length; ++i) {
-
-                // Skip non-free nodes
-                if (!R[i])
-                    continue;
-
-                // Find the number of nodes intersecting Ni and every C, and
-                // keep a track on the largest overlap
-                Arrays.fill(intersect, 0);
-                int largest = 0, maxValue = 0;
-                for (int j : N.get(i))
-
-                    // The k-index is to an aggregate coupled to node j
-                    for (int k : belong.get(j)) {
-                        intersect[k]++;
-                        if (intersect[k] > maxValue) {
-                            largest = k;
-                            maxValue = intersect[largest];
+        private void enlargeAggregates(final boolean[] R) {
+            final int[] largest = new int[n];
+
+            // For every free node, find the aggregate with the largest
+            // intersection with its neighborhood. Only the initial
+            // aggregates are considered, so the nodes are independent
+            forEachRange(n, nptr[n], new RangeTask() {
+                public void run(int first, int last) {
+                    int[] labels = new int[16], counts = new int[16];
+                    for (int i = first; i < last; ++i) {
+                        largest[i] = -1;
+
+                        // Skip non-free nodes
+                        if (!R[i])
+                            continue;
+
+                        int size = nptr[i + 1] - nptr[i];
+                        if (labels.length < size) {
+                            labels = new int[size];
+                            counts = new int[size];
+                        }
+                        int distinct = 0, maxValue = 0;
+                        for (int j = nptr[i]; j < nptr[i + 1]; ++j) {
+                            int k = aggregates[nind[j]];
+                            if (k == -1)
+                                continue;
+                            int l = 0;
+                            while (l < distinct && labels[l] != k)
+                                l++;
+                            if (l == distinct) {
+                                labels[distinct] = k;
+                                counts[distinct++] = 0;
+                            }
+                            if (++counts[l] > maxValue) {
+                                largest[i] = k;
+                                maxValue = counts[l];
+                            }
                         }
                     }
-
-                // Add the node to the proper C-set, and mark it as used
-                // Also, check if the node actually does couple to a set
-                if (maxValue > 0) {
-                    R[i] = false;
-                    C.get(largest).add(i);
                 }
-            }
-
-            return C;
+            });
+
+            // Add the nodes to the proper aggregates, and mark them as used
+            forEachRange(n, n, new RangeTask() {
+                public void run(int first, int last) {
+                    for (int i = first; i < last; ++i)
+                        if (largest[i] != -1) {
+                            R[i] = false;
+                            aggregates[i] = largest[i];
+                        }
+                }
+            });
         }
 
         /**
          * Creates final aggregates from the remaining unallocated nodes
          */
-        private List<Set<Integer>> createFinalAggregates(List<Set<Integer>> C, List<Set<Integer>> N, boolean[] R) {
-
-            for (int i = 0; i < R.length; ++i) {
-
-                // Skip non-free nodes
-                if (!R[i])
-                    continue;
+        private void createFinalAggregates(boolean[] R, boolean[] root) {
+            boolean[] candidate = new boolean[n];
+            System.arraycopy(R, 0, candidate, 0, n);
+            select(candidate, R, root, false);
+        }
 
-                // Create new aggregate from the nodes in N[i] which are free
-                Set<Integer> Cn = new HashSet<Integer>();
-                for (int j : N.get(i))
-                    if (R[j]) {
-                        R[j] = false;
-                        Cn.add(j);
+        /**
+         * Selects aggregates among the neighborhoods of the candidate nodes in
+         * parallel rounds. A candidate is selected if it has the highest
+         * priority among the candidates sharing a node with its neighborhood,
+         * so that the selected neighborhoods are disjoint. If <tt>whole</tt>
+         * is true, a neighborhood is only selected as long as all of its nodes
+         * are free, otherwise its free nodes form the aggregate
+         */
+        private void select(final boolean[] candidate, final boolean[] R, final boolean[] root, final boolean whole) {
+            final long[] best = new long[n];
+            final boolean[] selected = new boolean[n];
+            final boolean[] remaining = new boolean[1];
+
+            remaining[0] = true;
+            while (remaining[0]) {
+                remaining[0] = false;
+
+                // Highest priority of the candidates holding each node
+                forEachRange(n, ntptr[n], new RangeTask() {
+                    public void run(int first, int last) {
+                        for (int j = first; j < last; ++j) {
+                            long b = Long.MIN_VALUE;
+                            for (int l = ntptr[j]; l < ntptr[j + 1]; ++l)
+                                if (candidate[ntind[l]])
+                                    b = Math.max(b, priority(ntind[l]));
+                            best[j] = b;
+                        }
                     }
-
-                if (!Cn.isEmpty())
-                    C.add(Cn);
+                });
+
+                // Select the candidates winning all of their (free) nodes
+                forEachRange(n, nptr[n], new RangeTask() {
+                    public void run(int first, int last) {
+                        for (int i = first; i < last; ++i) {
+                            boolean s = candidate[i], empty = true;
+                            for (int j = nptr[i]; s && j < nptr[i + 1]; ++j)
+                                if (whole || R[nind[j]]) {
+                                    s = best[nind[j]] == priority(i);
+                                    empty = false;
+                                }
+                            selected[i] = s && !empty;
+                        }
+                    }
+                });
+
+                // Create the aggregates out of the selected neighborhoods
+                forEachRange(n, nptr[n], new RangeTask() {
+                    public void run(int first, int last) {
+                        for (int i = first; i < last; ++i)
+                            if (selected[i]) {
+                                root[i] = true;
+                                candidate[i] = false;
+                                for (int j = nptr[i]; j < nptr[i + 1]; ++j)
+                                    if (whole || R[nind[j]]) {
+                                        R[nind[j]] = false;
+                                        aggregates[nind[j]] = i;
+                                    }
+                            }
+                    }
+                });
+
+                // Drop the candidates which are no longer free
+                forEachRange(n, nptr[n], new RangeTask() {
+                    public void run(int first, int last) {
+                        boolean left = false;
+                        for (int i = first; i < last; ++i) {
+                            if (!candidate[i])
+                                continue;
+                            boolean free;
+                            if (whole) {
+                                free = true;
+                                for (int j = nptr[i]; free && j < nptr[i + 1]; ++j)
+                                    free = R[nind[j]];
+                            } else {
+                                free = false;
+                                if (R[i])
+                                    for (int j = nptr[i]; !free && j < nptr[i + 1]; ++j)
+                                        free = R[nind[j]];
+                            }
+                            candidate[i] = free;
+                            left |= free;
+                        }
+                        if (left)
+                            remaining[0] = true;
+                    }
+                });
             }
+        }
 
-            return C;
+        /**
+         * Numbers the aggregates consecutively, in the order of the nodes they
+         * were created from
+         */
+        private void renumberAggregates(boolean[] root) {
+            final int[] index = new int[n];
+            c = 0;
+            for (int i = 0; i < n; ++i)
+                if (root[i])
+                    index[i] = c++;
+
+            forEachRange(n, n, new RangeTask() {
+                public void run(int first, int last) {
+                    for (int i = first; i < last; ++i)
+                        if (aggregates[i] != -1)
+                            aggregates[i] = index[aggregates[i]];
+                }
+            });
         }
     }
 
@@ -656,12 +864,17 @@ public class DoubleAMG implements DoublePreconditioner {
         /**
          * The Galerkin coarse-space operator
          */
-        private SparseRCDoubleMatrix2D Ac;
+        private final SparseRCDoubleMatrix2D Ac;
 
         /**
          * The interpolation (prolongation) matrix
          */
-        private SparseCCDoubleMatrix2D I;
+        private final SparseRCDoubleMatrix2D I;
+
+        /**
+         * The restriction matrix, the transpose of the interpolation matrix
+         */
+        private final SparseRCDoubleMatrix2D R;
 
         /**
          * Creates the interpolation (prolongation) and Galerkin operators
@@ -672,250 +885,178 @@ public class DoubleAMG implements DoublePreconditioner {
          *            Matrix
          * @param omega
          *            Jacobi damping parameter between zero and one. If zero, no
-         *            smoothing is performed, and a faster algorithm for forming
-         *            the Galerkin operator will be used.
+         *            smoothing is performed, and the tentative prolongation is
+         *            used as-is.
          */
         public Interpolator(Aggregator aggregator, SparseRCDoubleMatrix2D A, double omega) {
-            List<Set<Integer>> C = aggregator.getAggregates();
-            List<Set<Integer>> N = aggregator.getNodeNeighborhoods();
-            int[] diagind = aggregator.getDiagonalindexes();
-
-            // Create the tentative prolongation, in compressed form
-            int[] pt = createTentativeProlongation(C, A.rows());
-
-            /*
-             * Apply Jacobi smoothing to the prolongator
-             */
+            int[] pt = aggregator.getAggregates();
+            int c = aggregator.getNumberOfAggregates();
 
             if (omega != 0) {
 
-                // Smooth the operator by a damped Jacobi method
-                List<Map<Integer, Double>> P = createSmoothedProlongation(C, N, A, diagind, omega, pt);
+                // Smooth the tentative prolongation by a damped Jacobi method
+                I = createSmoothedProlongation(aggregator, A, omega, pt, c);
+            } else {
 
-                // Form a compressed column storage for the operator
-                I = createInterpolationMatrix(P, A.rows());
-
-                // Create the Galerkin operator using a slow method
-                Ac = createGalerkinSlow(I, A);
+                // Use the aggregates as-is
+                I = createTentativeProlongation(pt, c);
             }
 
-            /*
-             * Use the aggregates as-is
-             */
-
-            else {
+            R = I.getTranspose();
 
-                // Create the Galerkin operator using a fast method
-                Ac = createGalerkinFast(A, pt, C.size());
-
-                // Form an explicit interpolation operator
-                I = createInterpolationMatrix(pt, C.size());
-            }
+            // Create the Galerkin operator R*A*I
+            SparseRCDoubleMatrix2D AI = (SparseRCDoubleMatrix2D) A.zMult(I, null, 1, 0, false, false);
+            Ac = (SparseRCDoubleMatrix2D) R.zMult(AI, null, 1, 0, false, false);
         }
 
         /**
          * Creates the tentative prolongation operator. Since the columns are
-         * all disjoint, and its entries are binary, it is possible to store it
-         * in a single array. Its length equals the number of fine nodes, and
-         * the entries are the indexes to the corresponding aggregate (C-set).
+         * all disjoint, and its entries are binary, row <tt>i</tt> has a
+         * single unit entry in the column of the aggregate of node <tt>i</tt>,
+         * if any.
          */
-        private int[] createTentativeProlongation(List<Set<Integer>> C, int n) {
-            int[] pt = new int[n];
-            Arrays.fill(pt, -1);
-
-            for (int i = 0; i < C.size(); ++i)
-                for (int j : C.get(i))
-                    pt[j] = i;
-
-            return pt;
-        }
-
-        /**
-         * Creates the Galerkin operator using the assumption of disjoint
-         * (non-smoothed) aggregates
-         */
-        private SparseRCDoubleMatrix2D createGalerkinFast(SparseRCDoubleMatrix2D A, int[] pt, int c) {
+        private SparseRCDoubleMatrix2D createTentativeProlongation(int[] pt, int c) {
             int n = pt.length;
+            int[] rowptr = new int[n + 1];
+            for (int i = 0; i < n; ++i)
+                rowptr[i + 1] = rowptr[i] + (pt[i] != -1 ? 1 : 0);
 
-            SparseRCMDoubleMatrix2D Ac = new SparseRCMDoubleMatrix2D(c, c);
-
-            int[] rowptr = A.getRowPointers();
-            int[] colind = A.getColumnIndexes();
-            double[] data = A.getValues();
-
+            int[] colind = new int[rowptr[n]];
+            double[] data = new double[rowptr[n]];
             for (int i = 0; i < n; ++i)
-                if (pt[i] != -1)
-                    for (int j = rowptr[i]; j < rowptr[i + 1]; ++j)
-                        if (pt[colind[j]] != -1)
-                            Ac.setQuick(pt[i], pt[colind[j]], data[j]);
+                if (pt[i] != -1) {
+                    colind[rowptr[i]] = pt[i];
+                    data[rowptr[i]] = 1;
+                }
 
-            return (SparseRCDoubleMatrix2D) (new SparseRCDoubleMatrix2D(Ac.rows(), Ac.columns()).assign(Ac));
+            return new SparseRCDoubleMatrix2D(n, c, rowptr, colind, data);
         }
 
         /**
-         * Creates the interpolation (prolongation) matrix based on the smoothed
-         * aggregates
+         * Gets the interpolation (prolongation) operator
          */
-        private SparseCCDoubleMatrix2D createInterpolationMatrix(List<Map<Integer, Double>> P, int n) {
-
-            // Determine the sparsity pattern of I
-            int c = P.size();
-            //            int[][] nz = new int[c][];
-            //            for (int j = 0; j < c; ++j) {
-            //
-            //                Map<Integer, Double> Pj = P.get(j);
-            //                nz[j] = new int[Pj.size()];
-            //
-            //                int l = 0;
-            //                for (int k : Pj.keySet())
-            //                    nz[j][l++] = k;
-            //            }
-
-            I = new SparseCCDoubleMatrix2D(n, c);
-
-            // Populate it with numerical entries
-            for (int j = 0; j < c; ++j) {
-
-                Map<Integer, Double> Pj = P.get(j);
-
-                for (Map.Entry<Integer, Double> e : Pj.entrySet())
-                    I.setQuick(e.getKey(), j, e.getValue());
-            }
-
+        public SparseRCDoubleMatrix2D getInterpolationOperator() {
             return I;
         }
 
         /**
-         * Creates the interpolation (prolongation) matrix based on the
-         * non-smoothed aggregates
+         * Gets the restriction operator
          */
-        private SparseCCDoubleMatrix2D createInterpolationMatrix(int[] pt, int c) {
-            SparseCCMDoubleMatrix2D If = new SparseCCMDoubleMatrix2D(pt.length, c);
-
-            for (int i = 0; i < pt.length; ++i)
-                if (pt[i] != -1)
-                    If.setQuick(i, pt[i], 1);
-
-            return (SparseCCDoubleMatrix2D) (new SparseCCDoubleMatrix2D(If.rows(), If.columns()).assign(If));
-        }
-
-        /**
-         * Gets the interpolation (prolongation) operator
-         */
-        public SparseCCDoubleMatrix2D getInterpolationOperator() {
-            return I;
+        public SparseRCDoubleMatrix2D getRestrictionOperator() {
+            return R;
         }
 
         /**
          * Creates the smoothes interpolation (prolongation) operator by a
-         * single sweep of the damped Jacobi method
+         * single sweep of the damped Jacobi method. Each row is formed
+         * independently, first to count its nonzeros and then to store them
          */
-        private List<Map<Integer, Double>> createSmoothedProlongation(List<Set<Integer>> C, List<Set<Integer>> N,
-                SparseRCDoubleMatrix2D A, int[] diagind, double omega, int[] pt) {
-
-            int n = A.rows(), c = C.size();
-
-            // Allocate the interpolation (prolongation) operator
-            // It is stored by columns, so the maps take row-indexes as keys
-            List<Map<Integer, Double>> P = new ArrayList<Map<Integer, Double>>(c);
-            for (int i = 0; i < c; ++i)
-                P.add(new HashMap<Integer, Double>());
-
-            int[] rowptr = A.getRowPointers();
-            int[] colind = A.getColumnIndexes();
-            double[] data = A.getValues();
-
-            double[] dot = new double[c];
-
-            // Apply the damped Jacobi smoother
-            for (int i = 0; i < n; ++i) {
-
-                if (pt[i] == -1)
-                    continue;
-
-                Arrays.fill(dot, 0);
-                Set<Integer> Ni = N.get(i);
-
-                // Calculate A*Pt, except for the diagonal
-                double weakAij = 0;
-                for (int j = rowptr[i]; j < rowptr[i + 1]; ++j) {
-
-                    if (pt[colind[j]] == -1)
-                        continue;
-
-                    double aij = data[j];
-
-                    // Off-diagonal, include only strong couplings, and add the
-                    // weak couplings to the diagonal
-                    if (aij != 0 && !Ni.contains(colind[j])) {
-                        weakAij += aij;
-                        continue;
+        private SparseRCDoubleMatrix2D createSmoothedProlongation(Aggregator aggregator, SparseRCDoubleMatrix2D A,
+                final double omega, final int[] pt, final int c) {
+
+            final int n = A.rows();
+            final int[] rowptr = A.getRowPointers();
+            final int[] colind = A.getColumnIndexes();
+            final double[] data = A.getValues();
+            final int[] diagind = aggregator.getDiagonalIndexes();
+            final int[] nptr = aggregator.getNeighborhoodPointers();
+            final int[] nind = aggregator.getNeighborhoodIndexes();
+
+            final int[] pptr = new int[n + 1];
+            final int[][] pind = new int[1][];
+            final double[][] pdata = new double[1][];
+
+            for (int pass = 0; pass < 2; ++pass) {
+                final boolean count = pass == 0;
+                forEachRange(n, rowptr[n], new RangeTask() {
+                    public void run(int first, int last) {
+                        double[] dot = new double[c];
+                        boolean[] used = new boolean[c];
+                        int[] columns = new int[16];
+
+                        // Apply the damped Jacobi smoother
+                        for (int i = first; i < last; ++i) {
+
+                            if (pt[i] == -1)
+                                continue;
+
+                            int size = 0;
+                            if (columns.length < rowptr[i + 1] - rowptr[i] + 1)
+                                columns = new int[rowptr[i + 1] - rowptr[i] + 1];
+
+                            // Calculate A*Pt, except for the diagonal
+                            double weakAij = 0;
+                            for (int j = rowptr[i], l = nptr[i]; j < rowptr[i + 1]; ++j) {
+
+                                if (pt[colind[j]] == -1)
+                                    continue;
+
+                                double aij = data[j];
+
+                                // Off-diagonal, include only strong couplings,
+                                // and add the weak couplings to the diagonal
+                                while (l < nptr[i + 1] && nind[l] < colind[j])
+                                    l++;
+                                if (aij != 0 && (l == nptr[i + 1] || nind[l] != colind[j])) {
+                                    weakAij += aij;
+                                    continue;
+                                }
+
+                                int k = pt[colind[j]];
+                                if (!used[k]) {
+                                    used[k] = true;
+                                    columns[size++] = k;
+                                }
+                                dot[k] += aij;
+                            }
+                            if (!used[pt[i]]) {
+                                used[pt[i]] = true;
+                                columns[size++] = pt[i];
+                            }
+
+                            // Subtract the weak couplings from the diagonal
+                            // part of A*Pt
+                            dot[pt[i]] -= weakAij;
+
+                            // Scale by omega and the inverse of the diagonal
+                            // (damping)
+                            double scale = -omega / data[diagind[i]];
+                            for (int j = 0; j < size; ++j)
+                                dot[columns[j]] *= scale;
+
+                            // Set to (I-omega*D^{-1}*A)*Pt
+                            dot[pt[i]]++;
+
+                            // This has formed a whole row of
+                            // P=(I-omega*D^{-1}*A)*Pt. Store the non-zeros
+                            Arrays.sort(columns, 0, size);
+                            int l = count ? 0 : pptr[i];
+                            for (int j = 0; j < size; ++j) {
+                                int k = columns[j];
+                                if (dot[k] != 0) {
+                                    if (!count) {
+                                        pind[0][l] = k;
+                                        pdata[0][l] = dot[k];
+                                    }
+                                    l++;
+                                }
+                                dot[k] = 0;
+                                used[k] = false;
+                            }
+                            if (count)
+                                pptr[i + 1] = l;
+                        }
                     }
-
-                    dot[pt[colind[j]]] += aij;
+                });
+                if (count) {
+                    for (int i = 0; i < n; ++i)
+                        pptr[i + 1] += pptr[i];
+                    pind[0] = new int[pptr[n]];
+                    pdata[0] = new double[pptr[n]];
                 }
-
-                // Subtract the weak couplings from the diagonal part of A*Pt
-                dot[pt[i]] -= weakAij;
-
-                // Scale by omega and the inverse of the diagonal (damping)
-                double scale = -omega / data[diagind[i]];
-                for (int j = 0; j < dot.length; ++j)
-                    dot[j] *= scale;
-
-                // Set to (I-omega*D^{-1}*A)*Pt
-                dot[pt[i]]++;
-
-                // This has formed a whole row of P=(I-omega*D^{-1}*A)*Pt
-                // Store the non-zeros into the sparse structure
-                for (int j = 0; j < dot.length; ++j)
-                    if (dot[j] != 0)
-                        P.get(j).put(i, dot[j]);
             }
 
-            return P;
-        }
-
-        /**
-         * Creates the entries of the Galerkin operator
-         * <code>Ac = I<sup>T</sup> A I</code>. This is a very time-consuming
-         * operation
-         */
-        private SparseRCDoubleMatrix2D createGalerkinSlow(SparseCCDoubleMatrix2D I, SparseRCDoubleMatrix2D A) {
-            int n = I.rows(), c = I.columns();
-            SparseRCMDoubleMatrix2D Ac = new SparseRCMDoubleMatrix2D(c, c);
-
-            double[] aiCol = new double[n];
-            double[] iCol = new double[n];
-            DenseDoubleMatrix1D aiV = new DenseDoubleMatrix1D(n, aiCol, 0, 1, false);
-            DenseDoubleMatrix1D iV = new DenseDoubleMatrix1D(n, iCol, 0, 1, false);
-            double[] itaiCol = new double[c];
-            DenseDoubleMatrix1D itaiV = new DenseDoubleMatrix1D(c, itaiCol, 0, 1, false);
-
-            int[] colptr = I.getColumnPointers();
-            int[] rowind = I.getRowIndexes();
-            double[] Idata = I.getValues();
-
-            for (int k = 0; k < c; ++k) {
-
-                // Expand column 'k' of I to dense storage
-                iV.assign(0);
-                for (int i = colptr[k]; i < colptr[k + 1]; ++i)
-                    iCol[rowind[i]] = Idata[i];
-
-                // Form column 'k' of A*I
-                A.zMult(iV, aiV);
-
-                // Form column 'k' of I'*A*I
-                I.zMult(aiV, itaiV, 1, 0, true);
-
-                // Store non-zeros into Ac
-                for (int i = 0; i < c; ++i)
-                    if (itaiCol[i] != 0)
-                        Ac.setQuick(i, k, itaiCol[i]);
-            }
-
-            return (SparseRCDoubleMatrix2D) (new SparseRCDoubleMatrix2D(Ac.rows(), Ac.columns()).assign(Ac));
+            return new SparseRCDoubleMatrix2D(n, c, pptr, pind[0], pdata[0]);
         }
 
         /**
@@ -927,32 +1068,149 @@ public class DoubleAMG implements DoublePreconditioner {
 
     }
 
-    private class SSOR implements DoublePreconditioner {
+    /**
+     * Coloring of the rows of a matrix such that no two rows of the same color
+     * are coupled, in either direction. It is computed by the Jones-Plassmann
+     * method: in every round, each uncolored row with a higher priority than
+     * all of its uncolored neighbors takes the smallest color not used by its
+     * neighbors
+     */
+    private static class Coloring {
 
         /**
-         * Overrelaxation parameter for the forward sweep
+         * Diagonal indexes into the sparse matrix
          */
-        private double omegaF;
+        private final int[] diagind;
 
         /**
-         * Overrelaxation parameter for the backwards sweep
+         * Rows of color l are rows[colors[l]], ..., rows[colors[l + 1] - 1];
+         * work[l] is the number of nonzeros of these rows
          */
-        private double omegaR;
+        private final int[] colors, rows;
+
+        private final long[] work;
+
+        public Coloring(SparseRCDoubleMatrix2D A) {
+            final int n = A.rows();
+            final int[] rowptr = A.getRowPointers();
+            final int[] colind = A.getColumnIndexes();
+
+            diagind = findDiagonalIndexes(A);
+
+            SparseRCDoubleMatrix2D At = A.getTranspose();
+            final int[] tptr = At.getRowPointers();
+            final int[] tind = At.getColumnIndexes();
+
+            final int[] color = new int[n];
+            final int[] next = new int[n];
+            Arrays.fill(color, -1);
+
+            final boolean[] remaining = new boolean[1];
+            remaining[0] = true;
+            while (remaining[0]) {
+                remaining[0] = false;
+
+                // Color the local maxima among the uncolored rows
+                forEachRange(n, 2L * rowptr[n], new RangeTask() {
+                    public void run(int first, int last) {
+                        int[] mark = new int[16];
+                        for (int i = first; i < last; ++i) {
+                            next[i] = -1;
+                            if (color[i] != -1)
+                                continue;
+                            int degree = rowptr[i + 1] - rowptr[i] + tptr[i + 1] - tptr[i];
+                            if (mark.length < degree + 1)
+                                mark = new int[degree + 1];
+                            Arrays.fill(mark, 0, degree + 1, 0);
+                            if (isLocalMaximum(i, rowptr, colind, mark) && isLocalMaximum(i, tptr, tind, mark)) {
+                                int l = 0;
+                                while (mark[l] != 0)
+                                    l++;
+                                next[i] = l;
+                            }
+                        }
+                    }
+
+                    /*
+                     * Returns true if row i has a higher priority than its
+                     * uncolored neighbors, and marks the colors of its colored
+                     * neighbors
+                     */
+                    private boolean isLocalMaximum(int i, int[] ptr, int[] ind, int[] mark) {
+                        for (int j = ptr[i]; j < ptr[i + 1]; ++j) {
+                            int k = ind[j];
+                            if (k == i)
+                                continue;
+                            if (color[k] == -1) {
+                                if (priority(k) > priority(i))
+                                    return false;
+                            } else if (color[k] < mark.length)
+                                mark[color[k]] = 1;
+                        }
+                        return true;
+                    }
+                });
+
+                forEachRange(n, n, new RangeTask() {
+                    public void run(int first, int last) {
+                        boolean left = false;
+                        for (int i = first; i < last; ++i) {
+                            if (next[i] != -1)
+                                color[i] = next[i];
+                            else if (color[i] == -1)
+                                left = true;
+                        }
+                        if (left)
+                            remaining[0] = true;
+                    }
+                });
+            }
+
+            // Sort the rows by color
+            int ncolors = 0;
+            for (int i = 0; i < n; ++i)
+                ncolors = Math.max(ncolors, color[i] + 1);
+            colors = new int[ncolors + 1];
+            work = new long[ncolors];
+            rows = new int[n];
+            for (int i = 0; i < n; ++i) {
+                colors[color[i] + 1]++;
+                work[color[i]] += rowptr[i + 1] - rowptr[i];
+            }
+            for (int l = 0; l < ncolors; ++l)
+                colors[l + 1] += colors[l];
+            int[] position = Arrays.copyOf(colors, ncolors);
+            for (int i = 0; i < n; ++i)
+                rows[position[color[i]]++] = i;
+        }
+    }
+
+    /**
+     * Multicolor SSOR. The rows are relaxed one color after the other, in
+     * reverse order of the colors in the backwards sweep, and the rows of one
+     * color are relaxed in parallel
+     */
+    private static class SSOR {
 
         /**
-         * Holds a copy of the matrix A in the compressed row format
+         * Overrelaxation parameter for the forward sweep
          */
-        private final SparseRCDoubleMatrix2D F;
+        private final double omegaF;
+
+        /**
+         * Overrelaxation parameter for the backwards sweep
+         */
+        private final double omegaR;
 
         /**
-         * indexes to the diagonal entries of the matrix
+         * The matrix A in the compressed row format
          */
-        private final int[] diagind;
+        private final SparseRCDoubleMatrix2D F;
 
         /**
-         * Temporary vector for holding the half-step state
+         * Coloring of the rows of the matrix
          */
-        private final double[] xx;
+        private final Coloring coloring;
 
         /**
          * True if the reverse (backward) sweep is to be done. Without this, the
@@ -966,6 +1224,8 @@ public class DoubleAMG implements DoublePreconditioner {
          * @param F
          *            Matrix to use internally. It will not be modified, thus
          *            the system matrix may be passed
+         * @param coloring
+         *            Coloring of the rows of the matrix
          * @param reverse
          *            True to perform a reverse sweep as well as the forward
          *            sweep. If false, this preconditioner becomes the SOR
@@ -977,117 +1237,42 @@ public class DoubleAMG implements DoublePreconditioner {
          *            Overrelaxation parameter for the backwards sweep. Between
          *            0 and 2.
          */
-        public SSOR(SparseRCDoubleMatrix2D F, boolean reverse, double omegaF, double omegaR) {
+        public SSOR(SparseRCDoubleMatrix2D F, Coloring coloring, boolean reverse, double omegaF, double omegaR) {
             if (F.rows() != F.columns())
                 throw new IllegalArgumentException("SSOR only applies to square matrices");
-
-            this.F = F;
-            this.reverse = reverse;
-            setOmega(omegaF, omegaR);
-
-            int n = F.rows();
-            diagind = new int[n];
-            xx = new double[n];
-        }
-
-        /**
-         * Constructor for SSOR. Uses <code>omega=1</code> with a backwards
-         * sweep
-         * 
-         * @param F
-         *            Matrix to use internally. It will not be modified, thus
-         *            the system matrix may be passed
-         */
-        public SSOR(SparseRCDoubleMatrix2D F) {
-            this(F, true, 1, 1);
-        }
-
-        /**
-         * Sets the overrelaxation parameters
-         * 
-         * @param omegaF
-         *            Overrelaxation parameter for the forward sweep. Between 0
-         *            and 2.
-         * @param omegaR
-         *            Overrelaxation parameter for the backwards sweep. Between
-         *            0 and 2.
-         */
-        public void setOmega(double omegaF, double omegaR) {
             if (omegaF < 0 || omegaF > 2)
                 throw new IllegalArgumentException("omegaF must be between 0 and 2");
             if (omegaR < 0 || omegaR > 2)
                 throw new IllegalArgumentException("omegaR must be between 0 and 2");
 
+            this.F = F;
+            this.coloring = coloring;
+            this.reverse = reverse;
             this.omegaF = omegaF;
             this.omegaR = omegaR;
         }
 
-        public void setMatrix(DoubleMatrix2D A) {
-            F.assign(A);
-
-            int n = F.rows();
-
-            int[] rowptr = F.getRowPointers();
-            int[] colind = F.getColumnIndexes();
-
-            // Find the indexes to the diagonal entries
-            for (int k = 0; k < n; ++k) {
-                diagind[k] = cern.colt.Sorting.binarySearchFromTo(colind, k, rowptr[k], rowptr[k + 1] - 1);
-                if (diagind[k] < 0)
-                    throw new RuntimeException("Missing diagonal on row " + (k + 1));
-            }
-        }
-
         public DoubleMatrix1D apply(DoubleMatrix1D b, DoubleMatrix1D x) {
             if (!(b instanceof DenseDoubleMatrix1D) || !(x instanceof DenseDoubleMatrix1D))
                 throw new IllegalArgumentException("b and x must be a DenseDoubleMatrix1D");
 
-            int[] rowptr = F.getRowPointers();
-            int[] colind = F.getColumnIndexes();
-            double[] data = F.getValues();
-
             double[] bd = ((DenseDoubleMatrix1D) b).elements();
             double[] xd = ((DenseDoubleMatrix1D) x).elements();
 
-            int n = F.rows();
-            System.arraycopy(xd, 0, xx, 0, n);
+            int ncolors = coloring.work.length;
 
-            // Forward sweep (xd oldest, xx halfiterate)
-            for (int i = 0; i < n; ++i) {
-
-                double sigma = 0;
-                for (int j = rowptr[i]; j < diagind[i]; ++j)
-                    sigma += data[j] * xx[colind[j]];
-
-                for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
-                    sigma += data[j] * xd[colind[j]];
-
-                sigma = (bd[i] - sigma) / data[diagind[i]];
-
-                xx[i] = xd[i] + omegaF * (sigma - xd[i]);
-            }
+            // Forward sweep
+            for (int l = 0; l < ncolors; ++l)
+                relax(l, omegaF, bd, xd);
 
             // Stop here if the reverse sweep was not requested
-            if (!reverse) {
-                System.arraycopy(xx, 0, xd, 0, n);
+            if (!reverse)
                 return x;
-            }
-
-            // Backward sweep (xx oldest, xd halfiterate)
-            for (int i = n - 1; i >= 0; --i) {
 
-                double sigma = 0;
-                for (int j = rowptr[i]; j < diagind[i]; ++j)
-                    sigma += data[j] * xx[colind[j]];
+            // Backward sweep
+            for (int l = ncolors - 1; l >= 0; --l)
+                relax(l, omegaR, bd, xd);
 
-                for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
-                    sigma += data[j] * xd[colind[j]];
-
-                sigma = (bd[i] - sigma) / data[diagind[i]];
-
-                xd[i] = xx[i] + omegaR * (sigma - xx[i]);
-            }
-            x.assign(xd);
             return x;
         }
 
@@ -1095,5 +1280,37 @@ public class DoubleAMG implements DoublePreconditioner {
             // Assume a symmetric matrix
             return apply(b, x);
         }
+
+        /**
+         * Relaxes the rows of a color in place. They are not coupled, so they
+         * only read entries of other colors
+         */
+        private void relax(int l, final double omega, final double[] bd, final double[] xd) {
+            final int[] rowptr = F.getRowPointers();
+            final int[] colind = F.getColumnIndexes();
+            final double[] data = F.getValues();
+            final int[] diagind = coloring.diagind;
+            final int[] rows = coloring.rows;
+            final int offset = coloring.colors[l];
+
+            forEachRange(coloring.colors[l + 1] - offset, coloring.work[l], new RangeTask() {
+                public void run(int first, int last) {
+                    for (int q = offset + first; q < offset + last; ++q) {
+                        int i = rows[q];
+
+                        double sigma = 0;
+                        for (int j = rowptr[i]; j < diagind[i]; ++j)
+                            sigma += data[j] * xd[colind[j]];
+
+                        for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
+                            sigma += data[j] * xd[colind[j]];
+
+                        sigma = (bd[i] - sigma) / data[diagind[i]];
+
+                        xd[i] += omega * (sigma - xd[i]);
+                    }
+                }
+            });
+        }
     }
 }
@@ -20,8 +20,6 @@
 
 package cern.colt.matrix.tdouble.algo.solver.preconditioner;
 
-import java.util.Arrays;
-
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
@@ -30,7 +28,11 @@ import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
 
 /**
  * Incomplete Cholesky preconditioner without fill-in using a compressed row
- * matrix as internal storage
+ * matrix as internal storage. The factorization and the triangular solves
+ * process the rows level by level (see {@link DoubleLevelSchedule}), in
+ * parallel within a level. The level analysis is reused when
+ * <tt>setMatrix</tt> is called again with a matrix of the same sparsity
+ * pattern.
  */
 public class DoubleICC implements DoublePreconditioner {
 
@@ -46,6 +48,11 @@ public class DoubleICC implements DoublePreconditioner {
 
     private int[] diagind;
 
+    /**
+     * Level schedule of the rows of the factorisation matrix
+     */
+    private DoubleLevelSchedule schedule;
+
     private final int n;
 
     /**
@@ -64,11 +71,17 @@ public class DoubleICC implements DoublePreconditioner {
             x = b.like();
         }
 
+        double[] bd = ((DenseDoubleMatrix1D) b).elements();
+        double[] yd = ((DenseDoubleMatrix1D) y).elements();
+        double[] xd = ((DenseDoubleMatrix1D) x).elements();
+        double[] data = R.getValues();
+
         // R'y = b, y = R'\b
-        upperTransSolve(b, y);
+        schedule.upperTransSolve(data, bd, yd);
 
         // Rx = R'\b = y
-        return upperSolve(y, x);
+        schedule.upperSolve(data, yd, xd);
+        return x;
     }
 
     public DoubleMatrix1D transApply(DoubleMatrix1D b, DoubleMatrix1D x) {
@@ -93,110 +106,58 @@ public class DoubleICC implements DoublePreconditioner {
     }
 
     private void factor() {
-        int n = R.rows();
 
         // Internal CRS matrix storage
-        int[] colind = R.getColumnIndexes();
-        int[] rowptr = R.getRowPointers();
-        double[] data = R.getValues();
-
-        // Temporary storage of a dense row
-        double[] Rk = new double[n];
+        final int[] colind = R.getColumnIndexes();
+        final int[] rowptr = R.getRowPointers();
+        final double[] data = R.getValues();
 
         // Find the indexes to the diagonal entries
-        diagind = findDiagonalIndexes(n, colind, rowptr);
-
-        // Go down along the main diagonal
-        for (int k = 0; k < n; ++k) {
-
-            // Expand current row to dense storage
-            Arrays.fill(Rk, 0);
-            for (int i = rowptr[k]; i < rowptr[k + 1]; ++i)
-                Rk[colind[i]] = data[i];
-
-            for (int i = 0; i < k; ++i) {
-
-                // Get the current diagonal entry
-                double Rii = data[diagind[i]];
-
-                if (Rii == 0)
-                    throw new RuntimeException("Zero pivot encountered on row " + (i + 1) + " during ICC process");
-
-                // Elimination factor
-                double Rki = Rk[i] / Rii;
-
-                if (Rki == 0)
-                    continue;
-
-                // Traverse the sparse row i, reducing on row k
-                for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
-                    Rk[colind[j]] -= Rki * data[j];
+        schedule = DoubleLevelSchedule.analyse(n, rowptr, colind, schedule);
+        diagind = schedule.diagind;
+
+        // Go down along the main diagonal, a level of rows at a time. The
+        // strictly lower part of row k holds the entries of R' being
+        // eliminated, which are not used afterwards
+        schedule.forEachLowerRow(new DoubleLevelSchedule.RowTask() {
+            public void run(int k) {
+                for (int i = rowptr[k]; i < diagind[k]; ++i) {
+
+                    // Get the current diagonal entry
+                    int index = colind[i];
+                    double Rii = data[diagind[index]];
+
+                    if (Rii == 0)
+                        throw new RuntimeException("Zero pivot encountered on row " + (index + 1)
+                                + " during ICC process");
+
+                    // Elimination factor
+                    double Rki = data[i] / Rii;
+
+                    if (Rki == 0)
+                        continue;
+
+                    // Traverse the sparse row i, reducing on row k
+                    for (int j = diagind[index] + 1, l = i + 1; j < rowptr[index + 1]; ++j) {
+
+                        while (l < rowptr[k + 1] && colind[l] < colind[j])
+                            l++;
+
+                        if (l < rowptr[k + 1] && colind[l] == colind[j])
+                            data[l] -= Rki * data[j];
+                    }
+                }
+
+                // Scale the row of the factorisation matrix
+                double Rkk = data[diagind[k]];
+                if (Rkk == 0)
+                    throw new RuntimeException("Zero diagonal entry encountered on row " + (k + 1)
+                            + " during ICC process");
+                double sqRkk = Math.sqrt(Rkk);
+
+                for (int i = diagind[k]; i < rowptr[k + 1]; ++i)
+                    data[i] /= sqRkk;
             }
-
-            // Store the row back into the factorisation matrix
-            if (Rk[k] == 0)
-                throw new RuntimeException("Zero diagonal entry encountered on row " + (k + 1) + " during ICC process");
-            double sqRkk = Math.sqrt(Rk[k]);
-
-            for (int i = diagind[k]; i < rowptr[k + 1]; ++i)
-                data[i] = Rk[colind[i]] / sqRkk;
-        }
-    }
-
-    private int[] findDiagonalIndexes(int m, int[] colind, int[] rowptr) {
-        int[] diagind = new int[m];
-
-        for (int k = 0; k < m; ++k) {
-            diagind[k] = cern.colt.Sorting.binarySearchFromTo(colind, k, rowptr[k], rowptr[k + 1] - 1);
-
-            if (diagind[k] < 0)
-                throw new RuntimeException("Missing diagonal entry on row " + (k + 1));
-        }
-
-        return diagind;
-    }
-
-    private DoubleMatrix1D upperSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-        double[] bd = ((DenseDoubleMatrix1D) b).elements();
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int[] colind = R.getColumnIndexes();
-        int[] rowptr = R.getRowPointers();
-        double[] data = R.getValues();
-        int rows = R.rows();
-
-        for (int i = rows - 1; i >= 0; --i) {
-
-            // xi = (bi - sum[j>i] Uij * xj) / Uii
-            double sum = 0;
-            for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
-                sum += data[j] * xd[colind[j]];
-
-            xd[i] = (bd[i] - sum) / data[diagind[i]];
-        }
-
-        return x;
-    }
-
-    private DoubleMatrix1D upperTransSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-        x.assign(b);
-
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int[] colind = R.getColumnIndexes();
-        int[] rowptr = R.getRowPointers();
-        double[] data = R.getValues();
-        int rows = R.rows();
-
-        for (int i = 0; i < rows; ++i) {
-
-            // Solve for the current entry
-            xd[i] /= data[diagind[i]];
-
-            // Move this known solution over to the right hand side for the
-            // remaining equations
-            for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
-                xd[colind[j]] -= data[j] * xd[i];
-        }
-
-        return x;
+        });
     }
 }
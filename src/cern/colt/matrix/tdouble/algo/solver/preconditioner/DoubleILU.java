@@ -26,7 +26,11 @@ import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
 import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
 
 /**
- * ILU(0) preconditioner using a compressed row matrix as internal storage
+ * ILU(0) preconditioner using a compressed row matrix as internal storage.
+ * The factorization and the triangular solves process the rows level by level
+ * (see {@link DoubleLevelSchedule}), in parallel within a level. The level
+ * analysis is reused when <tt>setMatrix</tt> is called again with a matrix of
+ * the same sparsity pattern.
  */
 public class DoubleILU implements DoublePreconditioner {
 
@@ -42,6 +46,11 @@ public class DoubleILU implements DoublePreconditioner {
 
     private int[] diagind;
 
+    /**
+     * Level schedule of the rows of the factorisation matrix
+     */
+    private DoubleLevelSchedule schedule;
+
     private final int n;
 
     /**
@@ -60,11 +69,17 @@ public class DoubleILU implements DoublePreconditioner {
             x = b.like();
         }
 
+        double[] bd = ((DenseDoubleMatrix1D) b).elements();
+        double[] yd = ((DenseDoubleMatrix1D) y).elements();
+        double[] xd = ((DenseDoubleMatrix1D) x).elements();
+        double[] data = LU.getValues();
+
         // Ly = b, y = L\b
-        lowerUnitSolve(b, y);
+        schedule.lowerUnitSolve(data, bd, yd);
 
         // Ux = L\b = y
-        return upperSolve(y, x);
+        schedule.upperSolve(data, yd, xd);
+        return x;
     }
 
     public DoubleMatrix1D transApply(DoubleMatrix1D b, DoubleMatrix1D x) {
@@ -72,11 +87,17 @@ public class DoubleILU implements DoublePreconditioner {
             x = b.like();
         }
 
+        double[] bd = ((DenseDoubleMatrix1D) b).elements();
+        double[] yd = ((DenseDoubleMatrix1D) y).elements();
+        double[] xd = ((DenseDoubleMatrix1D) x).elements();
+        double[] data = LU.getValues();
+
         // U'y = b, y = U'\b
-        upperTransSolve(b, y);
+        schedule.upperTransSolve(data, bd, yd);
 
         // L'x = U'\b = y
-        return loverUnitTransSolve(y, x);
+        schedule.lowerUnitTransSolve(data, yd, xd);
+        return x;
     }
 
     public void setMatrix(DoubleMatrix2D A) {
@@ -94,131 +115,43 @@ public class DoubleILU implements DoublePreconditioner {
     private void factor() {
 
         // Internal CRS matrix storage
-        int[] colind = LU.getColumnIndexes();
-        int[] rowptr = LU.getRowPointers();
-        double[] data = LU.getValues();
+        final int[] colind = LU.getColumnIndexes();
+        final int[] rowptr = LU.getRowPointers();
+        final double[] data = LU.getValues();
 
         // Find the indexes to the diagonal entries
-        diagind = findDiagonalIndexes(n, colind, rowptr);
+        schedule = DoubleLevelSchedule.analyse(n, rowptr, colind, schedule);
+        diagind = schedule.diagind;
 
-        // Go down along the main diagonal
-        for (int k = 1; k < n; ++k)
-            for (int i = rowptr[k]; i < diagind[k]; ++i) {
+        // Go down along the main diagonal, a level of rows at a time
+        schedule.forEachLowerRow(new DoubleLevelSchedule.RowTask() {
+            public void run(int k) {
+                for (int i = rowptr[k]; i < diagind[k]; ++i) {
 
-                // Get the current diagonal entry
-                int index = colind[i];
-                double LUii = data[diagind[index]];
+                    // Get the current diagonal entry
+                    int index = colind[i];
+                    double LUii = data[diagind[index]];
 
-                if (LUii == 0)
-                    throw new RuntimeException("Zero pivot encountered on row " + (i + 1) + " during ILU process");
+                    if (LUii == 0)
+                        throw new RuntimeException("Zero pivot encountered on row " + (index + 1)
+                                + " during ILU process");
 
-                // Elimination factor
-                double LUki = (data[i] /= LUii);
+                    // Elimination factor
+                    double LUki = (data[i] /= LUii);
 
-                // Traverse the sparse row i, reducing on row k
-                for (int j = diagind[index] + 1, l = rowptr[k] + 1; j < rowptr[index + 1]; ++j) {
+                    // Traverse the sparse row i, reducing on row k
+                    for (int j = diagind[index] + 1, l = i + 1; j < rowptr[index + 1]; ++j) {
 
-                    while (l < rowptr[k + 1] && colind[l] < colind[j])
-                        l++;
+                        while (l < rowptr[k + 1] && colind[l] < colind[j])
+                            l++;
 
-                    if (colind[l] == colind[j])
-                        data[l] -= LUki * data[j];
+                        if (l < rowptr[k + 1] && colind[l] == colind[j])
+                            data[l] -= LUki * data[j];
+                    }
                 }
             }
+        });
 
     }
 
-    private int[] findDiagonalIndexes(int m, int[] colind, int[] rowptr) {
-        int[] diagind = new int[m];
-
-        for (int k = 0; k < m; ++k) {
-            diagind[k] = cern.colt.Sorting.binarySearchFromTo(colind, k, rowptr[k], rowptr[k + 1] - 1);
-
-            if (diagind[k] < 0)
-                throw new RuntimeException("Missing diagonal entry on row " + (k + 1));
-        }
-
-        return diagind;
-    }
-
-    private DoubleMatrix1D lowerUnitSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-        double[] bd = ((DenseDoubleMatrix1D) b).elements();
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int[] colind = LU.getColumnIndexes();
-        int[] rowptr = LU.getRowPointers();
-        double[] data = LU.getValues();
-        int rows = LU.rows();
-        for (int i = 0; i < rows; ++i) {
-
-            // xi = bi - sum[j<i] Lij * xj
-            double sum = 0;
-            for (int j = rowptr[i]; j < diagind[i]; ++j)
-                sum += data[j] * xd[colind[j]];
-
-            xd[i] = bd[i] - sum;
-        }
-
-        return x;
-    }
-
-    private DoubleMatrix1D loverUnitTransSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-        x.assign(b);
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int[] colind = LU.getColumnIndexes();
-        int[] rowptr = LU.getRowPointers();
-        double[] data = LU.getValues();
-        int rows = LU.rows();
-
-        for (int i = rows - 1; i >= 0; --i)
-
-            // At this stage, x[i] is known, so move it over to the right hand
-            // side for the remaining equations
-            for (int j = rowptr[i]; j < diagind[i]; ++j)
-                xd[colind[j]] -= data[j] * xd[i];
-
-        return x;
-    }
-
-    private DoubleMatrix1D upperSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-        double[] bd = ((DenseDoubleMatrix1D) b).elements();
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int[] colind = LU.getColumnIndexes();
-        int[] rowptr = LU.getRowPointers();
-        double[] data = LU.getValues();
-        int rows = LU.rows();
-        for (int i = rows - 1; i >= 0; --i) {
-
-            // xi = (bi - sum[j>i] Uij * xj) / Uii
-            double sum = 0;
-            for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
-                sum += data[j] * xd[colind[j]];
-
-            xd[i] = (bd[i] - sum) / data[diagind[i]];
-        }
-
-        return x;
-    }
-
-    private DoubleMatrix1D upperTransSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-        x.assign(b);
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int[] colind = LU.getColumnIndexes();
-        int[] rowptr = LU.getRowPointers();
-        double[] data = LU.getValues();
-        int rows = LU.rows();
-
-        for (int i = 0; i < rows; ++i) {
-
-            // Solve for the current entry
-            xd[i] /= data[diagind[i]];
-
-            // Move this known solution over to the right hand side for the
-            // remaining equations
-            for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
-                xd[colind[j]] -= data[j] * xd[i];
-        }
-
-        return x;
-    }
-
 }
@@ -24,6 +24,8 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import cern.colt.list.tdouble.DoubleArrayList;
+import cern.colt.list.tlong.LongArrayList;
 import cern.colt.matrix.Norm;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
@@ -35,6 +37,9 @@ import cern.colt.matrix.tdouble.impl.SparseRCMDoubleMatrix2D;
 
 /**
  * ILU preconditioner with fill-in. Uses the dual threshold approach of Saad.
+ * The factors are then stored in compressed row format, and the triangular
+ * solves process their rows level by level (see {@link DoubleLevelSchedule}),
+ * in parallel within a level.
  */
 public class DoubleILUT implements DoublePreconditioner {
 
@@ -43,6 +48,18 @@ public class DoubleILUT implements DoublePreconditioner {
      */
     private SparseRCMDoubleMatrix2D LU;
 
+    /**
+     * Factorisation matrix in compressed row format
+     */
+    private int[] rowptr, colind;
+
+    private double[] data;
+
+    /**
+     * Level schedule of the rows of the factorisation matrix
+     */
+    private DoubleLevelSchedule schedule;
+
     /**
      * Temporary vector for solving the factorised system
      */
@@ -109,11 +126,16 @@ public class DoubleILUT implements DoublePreconditioner {
             x = b.like();
         }
 
+        double[] bd = ((DenseDoubleMatrix1D) b).elements();
+        double[] yd = ((DenseDoubleMatrix1D) y).elements();
+        double[] xd = ((DenseDoubleMatrix1D) x).elements();
+
         // Ly = b, y = L\b
-        unitLowerSolve(b, y);
+        schedule.lowerUnitSolve(data, bd, yd);
 
         // Ux = L\b = y
-        return upperSolve(y, x);
+        schedule.upperSolve(data, yd, xd);
+        return x;
     }
 
     public DoubleMatrix1D transApply(DoubleMatrix1D b, DoubleMatrix1D x) {
@@ -121,10 +143,15 @@ public class DoubleILUT implements DoublePreconditioner {
             x = b.like();
         }
 
+        double[] bd = ((DenseDoubleMatrix1D) b).elements();
+        double[] yd = ((DenseDoubleMatrix1D) y).elements();
+        double[] xd = ((DenseDoubleMatrix1D) x).elements();
+
         // U'y = b, y = U'\b
-        upperTransSolve(b, y);
+        schedule.upperTransSolve(data, bd, yd);
         // L'x = U'\b = y
-        return unitLowerTransSolve(y, x);
+        schedule.lowerUnitTransSolve(data, yd, xd);
+        return x;
     }
 
     public void setMatrix(DoubleMatrix2D A) {
@@ -137,10 +164,13 @@ public class DoubleILUT implements DoublePreconditioner {
         LU.trimToSize();
 
         factor();
+        compress();
     }
 
     private void factor() {
         int n = LU.rows();
+        LongArrayList keys = new LongArrayList();
+        DoubleArrayList values = new DoubleArrayList();
 
         for (int i = 1; i < n; ++i) {
 
@@ -165,9 +195,13 @@ public class DoubleILUT implements DoublePreconditioner {
                     continue;
 
                 // Traverse the sparse row k, reducing row i
-                int rowUsed = (int) rowk.size();
-                for (int j = k + 1; j < rowUsed; ++j)
-                    rowi.setQuick(j, rowi.getQuick(j) - LUik * rowk.getQuick(j));
+                rowk.elements().pairsSortedByKey(keys, values);
+                for (int j = keys.size(); --j >= 0;) {
+                    int column = (int) keys.getQuick(j);
+                    if (column <= k)
+                        break;
+                    rowi.setQuick(column, rowi.getQuick(column) - LUik * values.getQuick(j));
+                }
 
                 // The above has overwritten LUik, so remedy that
                 rowi.setQuick(k, LUik);
@@ -179,6 +213,45 @@ public class DoubleILUT implements DoublePreconditioner {
         //        System.out.println(LU.toString());
     }
 
+    /**
+     * Copies the factorisation matrix into compressed row storage, always
+     * including the diagonal entries, and updates the level schedule
+     */
+    private void compress() {
+        LongArrayList keys = new LongArrayList();
+        DoubleArrayList values = new DoubleArrayList();
+        int nnz = 0;
+        for (int i = 0; i < n; ++i) {
+            nnz += LU.viewRow(i).elements().size() + 1;
+        }
+        rowptr = new int[n + 1];
+        colind = new int[nnz];
+        data = new double[nnz];
+        int pos = 0;
+        for (int i = 0; i < n; ++i) {
+            LU.viewRow(i).elements().pairsSortedByKey(keys, values);
+            int size = keys.size();
+            boolean diagonal = false;
+            for (int j = 0; j < size; ++j) {
+                int column = (int) keys.getQuick(j);
+                if (!diagonal && column >= i) {
+                    if (column > i) {
+                        // Structurally zero diagonal entry
+                        colind[pos++] = i;
+                    }
+                    diagonal = true;
+                }
+                colind[pos] = column;
+                data[pos++] = values.getQuick(j);
+            }
+            if (!diagonal) {
+                colind[pos++] = i;
+            }
+            rowptr[i + 1] = pos;
+        }
+        schedule = DoubleLevelSchedule.analyse(n, rowptr, colind, schedule);
+    }
+
     /**
      * Copies the dense array back into the sparse vector, applying a numerical
      * dropping rule and keeping only a given number of entries
@@ -258,90 +331,4 @@ public class DoubleILUT implements DoublePreconditioner {
         }
     }
 
-    private DoubleMatrix1D unitLowerSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-        double[] bd = ((DenseDoubleMatrix1D) b).elements();
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int rows = LU.rows();
-        for (int i = 0; i < rows; ++i) {
-
-            // Get row i
-            SparseDoubleMatrix1D row = LU.viewRow(i);
-
-            // xi = bi - sum[j<i] Lij * xj
-            double sum = 0;
-            for (int j = 0; j < i; ++j)
-                sum += row.getQuick(j) * xd[j];
-
-            xd[i] = bd[i] - sum;
-        }
-
-        return x;
-    }
-
-    private DoubleMatrix1D unitLowerTransSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-
-        x.assign(b);
-
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int rows = LU.rows();
-
-        for (int i = rows - 1; i >= 0; --i) {
-
-            // Get row i
-            SparseDoubleMatrix1D row = LU.viewRow(i);
-
-            // At this stage, x[i] is known, so move it over to the right
-            // hand side for the remaining equations
-            for (int j = 0; j < i; ++j)
-                xd[j] -= row.getQuick(j) * xd[i];
-
-        }
-        return x;
-    }
-
-    private DoubleMatrix1D upperSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-
-        double[] bd = ((DenseDoubleMatrix1D) b).elements();
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int rows = LU.rows();
-        for (int i = rows - 1; i >= 0; --i) {
-
-            // Get row i
-            SparseDoubleMatrix1D row = LU.viewRow(i);
-            int used = (int) row.size();
-
-            // xi = (bi - sum[j>i] Uij * xj) / Uii
-            double sum = 0;
-            for (int j = i + 1; j < used; ++j)
-                sum += row.getQuick(j) * xd[j];
-
-            xd[i] = (bd[i] - sum) / row.getQuick(i);
-        }
-
-        return x;
-    }
-
-    private DoubleMatrix1D upperTransSolve(DoubleMatrix1D b, DoubleMatrix1D x) {
-        x.assign(b);
-
-        double[] xd = ((DenseDoubleMatrix1D) x).elements();
-        int rows = LU.rows();
-        for (int i = 0; i < rows; ++i) {
-
-            // Get row i
-            SparseDoubleMatrix1D row = LU.viewRow(i);
-            int used = (int) row.size();
-
-            // Solve for the current entry
-            xd[i] /= row.getQuick(i);
-
-            // Move this known solution over to the right hand side for the
-            // remaining equations
-            for (int j = i + 1; j < used; ++j)
-                xd[j] -= row.getQuick(j) * xd[i];
-        }
-
-        return x;
-    }
-
 }
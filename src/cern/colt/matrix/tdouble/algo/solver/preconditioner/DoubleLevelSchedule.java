@@ -0,0 +1,325 @@
+package cern.colt.matrix.tdouble.algo.solver.preconditioner;
+
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Level scheduling of the rows of a square sparse matrix in compressed row
+ * format, holding a lower and an upper triangular factor.
+ * <p>
+ * Row <tt>i</tt> of the lower factor depends on the rows given by its column
+ * indexes smaller than <tt>i</tt>; its level is one more than the highest
+ * level of these rows, so that the rows of one level are independent and can
+ * be processed in parallel once the previous levels are done. The same holds
+ * for the upper factor, with the column indexes greater than <tt>i</tt>. The
+ * levels serve the row-wise incomplete factorizations as well as the forward
+ * and backward substitutions, and the transposed substitutions, which visit
+ * the levels in reverse order.
+ * <p>
+ * The analysis depends only on the sparsity pattern, and
+ * {@link #analyse(int, int[], int[], DoubleLevelSchedule)} reuses a previous
+ * schedule for the same pattern.
+ */
+final class DoubleLevelSchedule {
+
+    /**
+     * Work done on a row.
+     */
+    interface RowTask {
+        void run(int row);
+    }
+
+    /*
+     * Minimum number of nonzeros of a level for processing it in parallel.
+     */
+    private static final int PARALLEL_NNZ = 16384;
+
+    private final int n;
+
+    private final int[] rowptr, colind;
+
+    /**
+     * Positions of the diagonal entries.
+     */
+    final int[] diagind;
+
+    /*
+     * Rows of level l are rows[levels[l]], ..., rows[levels[l + 1] - 1];
+     * work[l] is the number of nonzeros of these rows.
+     */
+    private final int[] lowerLevels, lowerRows, upperLevels, upperRows;
+
+    private final long[] lowerWork, upperWork;
+
+    /*
+     * Transposed pattern, with the positions of its entries in the values of
+     * the matrix, built on first use.
+     */
+    private int[] trowptr, tcolind, tmap, tdiagind;
+
+    private DoubleLevelSchedule(int n, int[] rowptr, int[] colind) {
+        this.n = n;
+        int nnz = rowptr[n];
+        this.rowptr = Arrays.copyOf(rowptr, n + 1);
+        this.colind = Arrays.copyOf(colind, nnz);
+        this.diagind = new int[n];
+        for (int k = 0; k < n; ++k) {
+            diagind[k] = cern.colt.Sorting.binarySearchFromTo(colind, k, rowptr[k], rowptr[k + 1] - 1);
+            if (diagind[k] < 0)
+                throw new RuntimeException("Missing diagonal entry on row " + (k + 1));
+        }
+
+        int[] level = new int[n];
+        int nlevels = 0;
+        for (int i = 0; i < n; i++) {
+            int l = 0;
+            for (int p = rowptr[i]; p < diagind[i]; p++) {
+                l = Math.max(l, level[colind[p]] + 1);
+            }
+            level[i] = l;
+            nlevels = Math.max(nlevels, l + 1);
+        }
+        lowerLevels = new int[nlevels + 1];
+        lowerRows = new int[n];
+        lowerWork = new long[nlevels];
+        bucket(level, nlevels, lowerLevels, lowerRows, lowerWork);
+
+        nlevels = 0;
+        for (int i = n - 1; i >= 0; i--) {
+            int l = 0;
+            for (int p = diagind[i] + 1; p < rowptr[i + 1]; p++) {
+                l = Math.max(l, level[colind[p]] + 1);
+            }
+            level[i] = l;
+            nlevels = Math.max(nlevels, l + 1);
+        }
+        upperLevels = new int[nlevels + 1];
+        upperRows = new int[n];
+        upperWork = new long[nlevels];
+        bucket(level, nlevels, upperLevels, upperRows, upperWork);
+    }
+
+    /**
+     * Returns the schedule of the given pattern, which is <tt>previous</tt>
+     * if it has the same pattern.
+     *
+     * @throws RuntimeException
+     *             if a diagonal entry is missing
+     */
+    static DoubleLevelSchedule analyse(int n, int[] rowptr, int[] colind, DoubleLevelSchedule previous) {
+        if (previous != null && previous.hasPattern(n, rowptr, colind)) {
+            return previous;
+        }
+        return new DoubleLevelSchedule(n, rowptr, colind);
+    }
+
+    /**
+     * Returns the number of levels of the lower factor.
+     */
+    int lowerLevels() {
+        return lowerLevels.length - 1;
+    }
+
+    /**
+     * Returns the number of levels of the upper factor.
+     */
+    int upperLevels() {
+        return upperLevels.length - 1;
+    }
+
+    /**
+     * Runs the task on every row, each row after the rows it depends on in
+     * the lower factor.
+     */
+    void forEachLowerRow(RowTask task) {
+        run(lowerLevels, lowerRows, lowerWork, false, true, task);
+    }
+
+    /**
+     * Solves <tt>L*x = b</tt>, where <tt>L</tt> is the strictly lower part of
+     * the matrix with a unit diagonal.
+     */
+    void lowerUnitSolve(final double[] data, final double[] b, final double[] x) {
+        run(lowerLevels, lowerRows, lowerWork, false, true, new RowTask() {
+            public void run(int i) {
+                // xi = bi - sum[j<i] Lij * xj
+                double sum = 0;
+                for (int j = rowptr[i]; j < diagind[i]; ++j)
+                    sum += data[j] * x[colind[j]];
+                x[i] = b[i] - sum;
+            }
+        });
+    }
+
+    /**
+     * Solves <tt>U*x = b</tt>, where <tt>U</tt> is the upper part of the
+     * matrix.
+     */
+    void upperSolve(final double[] data, final double[] b, final double[] x) {
+        run(upperLevels, upperRows, upperWork, false, false, new RowTask() {
+            public void run(int i) {
+                // xi = (bi - sum[j>i] Uij * xj) / Uii
+                double sum = 0;
+                for (int j = diagind[i] + 1; j < rowptr[i + 1]; ++j)
+                    sum += data[j] * x[colind[j]];
+                x[i] = (b[i] - sum) / data[diagind[i]];
+            }
+        });
+    }
+
+    /**
+     * Solves <tt>L'*x = b</tt>, where <tt>L</tt> is the strictly lower part of
+     * the matrix with a unit diagonal.
+     */
+    void lowerUnitTransSolve(final double[] data, final double[] b, final double[] x) {
+        transpose();
+        run(lowerLevels, lowerRows, lowerWork, true, false, new RowTask() {
+            public void run(int i) {
+                // xi = bi - sum[j>i] Lji * xj
+                double sum = 0;
+                for (int j = tdiagind[i] + 1; j < trowptr[i + 1]; ++j)
+                    sum += data[tmap[j]] * x[tcolind[j]];
+                x[i] = b[i] - sum;
+            }
+        });
+    }
+
+    /**
+     * Solves <tt>U'*x = b</tt>, where <tt>U</tt> is the upper part of the
+     * matrix.
+     */
+    void upperTransSolve(final double[] data, final double[] b, final double[] x) {
+        transpose();
+        run(upperLevels, upperRows, upperWork, true, true, new RowTask() {
+            public void run(int i) {
+                // xi = (bi - sum[j<i] Uji * xj) / Uii
+                double sum = 0;
+                for (int j = trowptr[i]; j < tdiagind[i]; ++j)
+                    sum += data[tmap[j]] * x[tcolind[j]];
+                x[i] = (b[i] - sum) / data[diagind[i]];
+            }
+        });
+    }
+
+    private boolean hasPattern(int n, int[] rowptr, int[] colind) {
+        if (n != this.n || rowptr[n] != this.rowptr[n]) {
+            return false;
+        }
+        for (int i = 0; i <= n; i++) {
+            if (rowptr[i] != this.rowptr[i]) {
+                return false;
+            }
+        }
+        for (int p = rowptr[n]; --p >= 0;) {
+            if (colind[p] != this.colind[p]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void bucket(int[] level, int nlevels, int[] levels, int[] rows, long[] work) {
+        for (int i = 0; i < n; i++) {
+            levels[level[i] + 1]++;
+            work[level[i]] += rowptr[i + 1] - rowptr[i];
+        }
+        for (int l = 0; l < nlevels; l++) {
+            levels[l + 1] += levels[l];
+        }
+        int[] next = Arrays.copyOf(levels, nlevels);
+        for (int i = 0; i < n; i++) {
+            rows[next[level[i]]++] = i;
+        }
+    }
+
+    private synchronized void transpose() {
+        if (tmap != null) {
+            return;
+        }
+        int nnz = rowptr[n];
+        int[] ptr = new int[n + 1];
+        for (int p = 0; p < nnz; p++) {
+            ptr[colind[p] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            ptr[i + 1] += ptr[i];
+        }
+        int[] next = Arrays.copyOf(ptr, n);
+        int[] ind = new int[nnz];
+        int[] map = new int[nnz];
+        int[] diag = new int[n];
+        for (int i = 0; i < n; i++) {
+            for (int p = rowptr[i]; p < rowptr[i + 1]; p++) {
+                int q = next[colind[p]]++;
+                ind[q] = i;
+                map[q] = p;
+                if (colind[p] == i) {
+                    diag[i] = q;
+                }
+            }
+        }
+        trowptr = ptr;
+        tcolind = ind;
+        tdiagind = diag;
+        tmap = map;
+    }
+
+    /*
+     * Runs the task on the rows level by level, in reverse order of the
+     * levels if reverse is true. Sequentially, the rows are visited in
+     * ascending or descending order, which respects the dependencies as well.
+     */
+    private void run(int[] levels, final int[] rows, long[] work, boolean reverse, boolean ascending,
+            final RowTask task) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if (nthreads <= 1) {
+            if (ascending) {
+                for (int i = 0; i < n; i++)
+                    task.run(i);
+            } else {
+                for (int i = n - 1; i >= 0; i--)
+                    task.run(i);
+            }
+            return;
+        }
+        final RuntimeException[] failure = new RuntimeException[1];
+        int nlevels = levels.length - 1;
+        for (int s = 0; s < nlevels; s++) {
+            int l = reverse ? nlevels - 1 - s : s;
+            int first = levels[l];
+            int size = levels[l + 1] - first;
+            if (work[l] >= PARALLEL_NNZ && size > 1) {
+                int nchunks = Math.min(nthreads, size);
+                Future<?>[] futures = new Future[nchunks];
+                int k = size / nchunks;
+                for (int j = 0; j < nchunks; j++) {
+                    final int firstRow = first + j * k;
+                    final int lastRow = (j == nchunks - 1) ? first + size : firstRow + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            try {
+                                for (int q = firstRow; q < lastRow; q++)
+                                    task.run(rows[q]);
+                            } catch (RuntimeException e) {
+                                synchronized (failure) {
+                                    failure[0] = e;
+                                }
+                            }
+                        }
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+                synchronized (failure) {
+                    if (failure[0] != null) {
+                        throw failure[0];
+                    }
+                }
+            } else {
+                for (int q = first; q < first + size; q++)
+                    task.run(rows[q]);
+            }
+        }
+    }
+}
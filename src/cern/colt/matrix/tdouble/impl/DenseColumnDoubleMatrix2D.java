@@ -33,6 +33,7 @@ import edu.emory.mathcs.jtransforms.dht.DoubleDHT_2D;
 import edu.emory.mathcs.jtransforms.dst.DoubleDST_2D;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_2D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 2-d matrix holding <tt>double</tt> elements. First see the <a
@@ -79,14 +80,6 @@ import edu.emory.mathcs.utils.ConcurrencyUtils;
 public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
     static final long serialVersionUID = 1020177651L;
 
-    private DoubleFFT_2D fft2;
-
-    private DoubleDCT_2D dct2;
-
-    private DoubleDST_2D dst2;
-
-    private DoubleDHT_2D dht2;
-
     protected double[] elements;
 
     /**
@@ -1188,14 +1181,19 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      */
     public void dct2(boolean scale) {
         DoubleMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct2 == null) {
-            dct2 = new DoubleDCT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDCT_2D dct2 = TransformPlanCache.acquire(DoubleDCT_2D.class, rows, columns);
+            try {
+                dct2.forward((double[]) transpose.elements(), scale);
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(dct2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dct2.forward((double[]) transpose.elements(), scale);
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1209,25 +1207,27 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
     public void dctColumns(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = columns - j * k;
+                    final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
 
-                    public void run() {
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).dct(scale);
+                        public void run() {
+                            for (int c = firstColumn; --c >= lastColumn;) {
+                                ((DenseDoubleMatrix1D) viewColumn(c)).dct(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = columns; --c >= 0;) {
                 ((DenseDoubleMatrix1D) viewColumn(c)).dct(scale);
@@ -1244,35 +1244,40 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dctRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = rows - j * k;
-                final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; --r >= lastRow;) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).dct(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = rows - j * k;
+                        final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; --r >= lastRow;) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).dct(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).dct(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).dct(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1281,14 +1286,19 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      */
     public void dht2() {
         DoubleMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht2 == null) {
-            dht2 = new DoubleDHT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDHT_2D dht2 = TransformPlanCache.acquire(DoubleDHT_2D.class, rows, columns);
+            try {
+                dht2.forward((double[]) transpose.elements());
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(dht2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dht2.forward((double[]) transpose.elements());
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1297,35 +1307,40 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dhtColumns() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).dht();
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = columns - j * k;
+                        final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; --c >= lastColumn;) {
+                                    ((DenseDoubleMatrix1D) viewColumn(c)).dht();
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = columns; --c >= 0;) {
-                ((DenseDoubleMatrix1D) viewColumn(c)).dht();
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = columns; --c >= 0;) {
+                    ((DenseDoubleMatrix1D) viewColumn(c)).dht();
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1333,35 +1348,40 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dhtRows() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = rows - j * k;
-                final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; --r >= lastRow;) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).dht();
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = rows - j * k;
+                        final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; --r >= lastRow;) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).dht();
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).dht();
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).dht();
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1373,14 +1393,19 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      */
     public void dst2(boolean scale) {
         DoubleMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst2 == null) {
-            dst2 = new DoubleDST_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDST_2D dst2 = TransformPlanCache.acquire(DoubleDST_2D.class, rows, columns);
+            try {
+                dst2.forward((double[]) transpose.elements(), scale);
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(dst2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dst2.forward((double[]) transpose.elements(), scale);
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1394,25 +1419,27 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
     public void dstColumns(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = columns - j * k;
+                    final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
 
-                    public void run() {
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).dst(scale);
+                        public void run() {
+                            for (int c = firstColumn; --c >= lastColumn;) {
+                                ((DenseDoubleMatrix1D) viewColumn(c)).dst(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = columns; --c >= 0;) {
                 ((DenseDoubleMatrix1D) viewColumn(c)).dst(scale);
@@ -1428,35 +1455,40 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dstRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = rows - j * k;
-                final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; --r >= lastRow;) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).dst(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = rows - j * k;
+                        final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; --r >= lastRow;) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).dst(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).dst(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).dst(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public double[] elements() {
@@ -1497,14 +1529,19 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      */
     public void fft2() {
         DoubleMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                fft2.realForward((double[]) transpose.elements());
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.realForward((double[]) transpose.elements());
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public DoubleMatrix2D forEachNonZero(final cern.colt.function.tdouble.IntIntDoubleFunction function) {
@@ -1615,59 +1652,64 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public DenseDComplexMatrix2D getFft2() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
-        }
-        DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        final double[] elementsC = (C).elements();
-        final int zero = (int) index(0, 0);
-        final int zeroC = (int) C.index(0, 0);
-        final int rowStrideC = C.rowStride() / 2;
-        final int columnStrideC = 1;
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        int idx = zero + (rows - 1) * rowStride + (firstColumn - 1) * columnStride;
-                        int idxOther = zeroC + (rows - 1) * rowStrideC + (firstColumn - 1) * columnStrideC;
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            for (int i = idx, j = idxOther, r = rows; --r >= 0;) {
-                                elementsC[j] = elements[i];
-                                i -= rowStride;
-                                j -= rowStrideC;
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+                final double[] elementsC = (C).elements();
+                final int zero = (int) index(0, 0);
+                final int zeroC = (int) C.index(0, 0);
+                final int rowStrideC = C.rowStride() / 2;
+                final int columnStrideC = 1;
+                int nthreads = ConcurrencyUtils.getNumberOfThreads();
+                if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = columns - j * k;
+                        final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                int idx = zero + (rows - 1) * rowStride + (firstColumn - 1) * columnStride;
+                                int idxOther = zeroC + (rows - 1) * rowStrideC + (firstColumn - 1) * columnStrideC;
+                                for (int c = firstColumn; --c >= lastColumn;) {
+                                    for (int i = idx, j = idxOther, r = rows; --r >= 0;) {
+                                        elementsC[j] = elements[i];
+                                        i -= rowStride;
+                                        j -= rowStrideC;
+                                    }
+                                    idx -= columnStride;
+                                    idxOther -= columnStrideC;
+                                }
                             }
-                            idx -= columnStride;
-                            idxOther -= columnStrideC;
+                        });
+                    }
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } else {
+                    int idx = zero + (rows - 1) * rowStride + (columns - 1) * columnStride;
+                    int idxOther = zeroC + (rows - 1) * rowStrideC + (columns - 1) * columnStrideC;
+                    for (int c = columns; --c >= 0;) {
+                        for (int i = idx, j = idxOther, r = rows; --r >= 0;) {
+                            elementsC[j] = elements[i];
+                            i -= rowStride;
+                            j -= rowStrideC;
                         }
+                        idx -= columnStride;
+                        idxOther -= columnStrideC;
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-        } else {
-            int idx = zero + (rows - 1) * rowStride + (columns - 1) * columnStride;
-            int idxOther = zeroC + (rows - 1) * rowStrideC + (columns - 1) * columnStrideC;
-            for (int c = columns; --c >= 0;) {
-                for (int i = idx, j = idxOther, r = rows; --r >= 0;) {
-                    elementsC[j] = elements[i];
-                    i -= rowStride;
-                    j -= rowStrideC;
                 }
-                idx -= columnStride;
-                idxOther -= columnStrideC;
+                fft2.realForwardFull(elementsC);
+                return C;
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.realForwardFull(elementsC);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1678,37 +1720,42 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      *         matrix.
      */
     public DenseDComplexMatrix2D getFftColumns() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getFft());
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = columns - j * k;
+                        final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; --c >= lastColumn;) {
+                                    C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getFft());
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = columns; --c >= 0;) {
-                C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getFft());
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = columns; --c >= 0;) {
+                    C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getFft());
+                }
             }
+            return C;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1718,37 +1765,42 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * @return the discrete Fourier transform (DFT) of each row of this matrix.
      */
     public DenseDComplexMatrix2D getFftRows() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = rows - j * k;
-                final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; --r >= lastRow;) {
-                            C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getFft());
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = rows - j * k;
+                        final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; --r >= lastRow;) {
+                                    C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getFft());
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = rows; --r >= 0;) {
-                C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getFft());
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = rows; --r >= 0;) {
+                    C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getFft());
+                }
             }
+            return C;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1759,59 +1811,64 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      *         matrix.
      */
     public DComplexMatrix2D getIfft2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
-        }
-        DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        final double[] elementsC = (C).elements();
-        final int zero = (int) index(0, 0);
-        final int zeroC = (int) C.index(0, 0);
-        final int rowStrideC = C.rowStride() / 2;
-        final int columnStrideC = 1;
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        int idx = zero + (rows - 1) * rowStride + (firstColumn - 1) * columnStride;
-                        int idxOther = zeroC + (rows - 1) * rowStrideC + (firstColumn - 1) * columnStrideC;
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            for (int i = idx, j = idxOther, r = rows; --r >= 0;) {
-                                elementsC[j] = elements[i];
-                                i -= rowStride;
-                                j -= rowStrideC;
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+                final double[] elementsC = (C).elements();
+                final int zero = (int) index(0, 0);
+                final int zeroC = (int) C.index(0, 0);
+                final int rowStrideC = C.rowStride() / 2;
+                final int columnStrideC = 1;
+                int nthreads = ConcurrencyUtils.getNumberOfThreads();
+                if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = columns - j * k;
+                        final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                int idx = zero + (rows - 1) * rowStride + (firstColumn - 1) * columnStride;
+                                int idxOther = zeroC + (rows - 1) * rowStrideC + (firstColumn - 1) * columnStrideC;
+                                for (int c = firstColumn; --c >= lastColumn;) {
+                                    for (int i = idx, j = idxOther, r = rows; --r >= 0;) {
+                                        elementsC[j] = elements[i];
+                                        i -= rowStride;
+                                        j -= rowStrideC;
+                                    }
+                                    idx -= columnStride;
+                                    idxOther -= columnStrideC;
+                                }
                             }
-                            idx -= columnStride;
-                            idxOther -= columnStrideC;
+                        });
+                    }
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } else {
+                    int idx = zero + (rows - 1) * rowStride + (columns - 1) * columnStride;
+                    int idxOther = zeroC + (rows - 1) * rowStrideC + (columns - 1) * columnStrideC;
+                    for (int c = columns; --c >= 0;) {
+                        for (int i = idx, j = idxOther, r = rows; --r >= 0;) {
+                            elementsC[j] = elements[i];
+                            i -= rowStride;
+                            j -= rowStrideC;
                         }
+                        idx -= columnStride;
+                        idxOther -= columnStrideC;
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-        } else {
-            int idx = zero + (rows - 1) * rowStride + (columns - 1) * columnStride;
-            int idxOther = zeroC + (rows - 1) * rowStrideC + (columns - 1) * columnStrideC;
-            for (int c = columns; --c >= 0;) {
-                for (int i = idx, j = idxOther, r = rows; --r >= 0;) {
-                    elementsC[j] = elements[i];
-                    i -= rowStride;
-                    j -= rowStrideC;
                 }
-                idx -= columnStride;
-                idxOther -= columnStrideC;
+                fft2.realInverseFull(elementsC, scale);
+                return C;
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.realInverseFull(elementsC, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1822,37 +1879,42 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      *         column of this matrix.
      */
     public DComplexMatrix2D getIfftColumns(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getIfft(scale));
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = columns - j * k;
+                        final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; --c >= lastColumn;) {
+                                    C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getIfft(scale));
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = columns; --c >= 0;) {
-                C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getIfft(scale));
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = columns; --c >= 0;) {
+                    C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getIfft(scale));
+                }
             }
+            return C;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1863,36 +1925,41 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      *         of this matrix.
      */
     public DComplexMatrix2D getIfftRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = rows - j * k;
-                final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; --r >= lastRow;) {
-                            C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getIfft(scale));
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = rows - j * k;
+                        final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                            public void run() {
+                                for (int r = firstRow; --r >= lastRow;) {
+                                    C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getIfft(scale));
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = rows; --r >= 0;) {
-                C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getIfft(scale));
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = rows; --r >= 0;) {
+                    C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getIfft(scale));
+                }
             }
+            return C;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     public void getNegativeValues(final IntArrayList rowList, final IntArrayList columnList,
@@ -1968,14 +2035,19 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      */
     public void idct2(boolean scale) {
         DoubleMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct2 == null) {
-            dct2 = new DoubleDCT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDCT_2D dct2 = TransformPlanCache.acquire(DoubleDCT_2D.class, rows, columns);
+            try {
+                dct2.inverse((double[]) transpose.elements(), scale);
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(dct2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dct2.inverse((double[]) transpose.elements(), scale);
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1989,25 +2061,27 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
     public void idctColumns(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = columns - j * k;
+                    final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
 
-                    public void run() {
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).idct(scale);
+                        public void run() {
+                            for (int c = firstColumn; --c >= lastColumn;) {
+                                ((DenseDoubleMatrix1D) viewColumn(c)).idct(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = columns; --c >= 0;) {
                 ((DenseDoubleMatrix1D) viewColumn(c)).idct(scale);
@@ -2024,35 +2098,40 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idctRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = rows - j * k;
-                final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; --r >= lastRow;) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).idct(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = rows - j * k;
+                        final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; --r >= lastRow;) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).idct(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).idct(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).idct(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2065,14 +2144,19 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      */
     public void idht2(boolean scale) {
         DoubleMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht2 == null) {
-            dht2 = new DoubleDHT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDHT_2D dht2 = TransformPlanCache.acquire(DoubleDHT_2D.class, rows, columns);
+            try {
+                dht2.inverse((double[]) transpose.elements(), scale);
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(dht2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dht2.inverse((double[]) transpose.elements(), scale);
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2084,35 +2168,40 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idhtColumns(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).idht(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = columns - j * k;
+                        final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; --c >= lastColumn;) {
+                                    ((DenseDoubleMatrix1D) viewColumn(c)).idht(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = columns; --c >= 0;) {
-                ((DenseDoubleMatrix1D) viewColumn(c)).idht(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = columns; --c >= 0;) {
+                    ((DenseDoubleMatrix1D) viewColumn(c)).idht(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2124,35 +2213,40 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idhtRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = rows - j * k;
-                final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; --r >= lastRow;) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).idht(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = rows - j * k;
+                        final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; --r >= lastRow;) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).idht(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).idht(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).idht(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2165,14 +2259,19 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      */
     public void idst2(boolean scale) {
         DoubleMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst2 == null) {
-            dst2 = new DoubleDST_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDST_2D dst2 = TransformPlanCache.acquire(DoubleDST_2D.class, rows, columns);
+            try {
+                dst2.inverse((double[]) transpose.elements(), scale);
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(dst2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dst2.inverse((double[]) transpose.elements(), scale);
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2186,25 +2285,27 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
     public void idstColumns(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = columns - j * k;
-                final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = columns - j * k;
+                    final int lastColumn = (j == (nthreads - 1)) ? 0 : firstColumn - k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
 
-                    public void run() {
-                        for (int c = firstColumn; --c >= lastColumn;) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).idst(scale);
+                        public void run() {
+                            for (int c = firstColumn; --c >= lastColumn;) {
+                                ((DenseDoubleMatrix1D) viewColumn(c)).idst(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = columns; --c >= 0;) {
                 ((DenseDoubleMatrix1D) viewColumn(c)).idst(scale);
@@ -2221,35 +2322,40 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idstRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = rows - j * k;
-                final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; --r >= lastRow;) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).idst(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = rows - j * k;
+                        final int lastRow = (j == (nthreads - 1)) ? 0 : firstRow - k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; --r >= lastRow;) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).idst(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).idst(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).idst(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2288,14 +2394,19 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
      */
     public void ifft2(boolean scale) {
         DoubleMatrix2D transpose = viewDice().copy();
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                fft2.realInverse((double[]) transpose.elements(), scale);
+                this.assign(transpose.viewDice().copy());
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.realInverse((double[]) transpose.elements(), scale);
-        this.assign(transpose.viewDice().copy());
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public long index(int row, int column) {
@@ -2608,8 +2719,15 @@ public class DenseColumnDoubleMatrix2D extends DoubleMatrix2D {
         if (this == C || B == C)
             throw new IllegalArgumentException("Matrices must not be identical");
 
-        if (!(B instanceof DenseColumnDoubleMatrix2D) || !(C instanceof DenseColumnDoubleMatrix2D) || this.isView()
-                || B.isView() || C.isView())
+        boolean contiguous = (B instanceof DenseColumnDoubleMatrix2D) && (C instanceof DenseColumnDoubleMatrix2D)
+                && !this.isView() && !B.isView() && !C.isView();
+        if (DoubleGemm.isDense(B) && DoubleGemm.isDense(C)
+                && (!contiguous || DoubleGemm.isBlockable(rowsA, columnsB, columnsA))) {
+            // packed, cache-blocked kernel with 2D partitioning of C
+            DoubleGemm.zMult(this, B, C, alpha, beta, transposeA, transposeB);
+            return C;
+        }
+        if (!contiguous)
             return super.zMult(B, C, alpha, beta, transposeA, transposeB);
 
         Transpose transA = transposeA ? Transpose.Transpose : Transpose.NoTranspose;
@@ -23,6 +23,7 @@ import edu.emory.mathcs.jtransforms.dht.DoubleDHT_1D;
 import edu.emory.mathcs.jtransforms.dst.DoubleDST_1D;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_1D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 1-d matrix (aka <i>vector</i>) holding <tt>double</tt> elements. First
@@ -49,14 +50,6 @@ import edu.emory.mathcs.utils.ConcurrencyUtils;
 public class DenseDoubleMatrix1D extends DoubleMatrix1D {
     private static final long serialVersionUID = 1L;
 
-    private DoubleFFT_1D fft;
-
-    private DoubleDCT_1D dct;
-
-    private DoubleDST_1D dst;
-
-    private DoubleDHT_1D dht;
-
     /**
      * The elements of this matrix.
      */
@@ -722,19 +715,24 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      *            if true then scaling is performed
      */
     public void dct(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct == null) {
-            dct = new DoubleDCT_1D(size);
-        }
-        if (isNoView) {
-            dct.forward(elements, scale);
-        } else {
-            DoubleMatrix1D copy = this.copy();
-            dct.forward((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDCT_1D dct = TransformPlanCache.acquire(DoubleDCT_1D.class, size);
+            try {
+                if (isNoView) {
+                    dct.forward(elements, scale);
+                } else {
+                    DoubleMatrix1D copy = this.copy();
+                    dct.forward((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dct, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -742,19 +740,24 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      * 
      */
     public void dht() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht == null) {
-            dht = new DoubleDHT_1D(size);
-        }
-        if (isNoView) {
-            dht.forward(elements);
-        } else {
-            DoubleMatrix1D copy = this.copy();
-            dht.forward((double[]) copy.elements());
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDHT_1D dht = TransformPlanCache.acquire(DoubleDHT_1D.class, size);
+            try {
+                if (isNoView) {
+                    dht.forward(elements);
+                } else {
+                    DoubleMatrix1D copy = this.copy();
+                    dht.forward((double[]) copy.elements());
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dht, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -764,19 +767,24 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      *            if true then scaling is performed
      */
     public void dst(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst == null) {
-            dst = new DoubleDST_1D(size);
-        }
-        if (isNoView) {
-            dst.forward(elements, scale);
-        } else {
-            DoubleMatrix1D copy = this.copy();
-            dst.forward((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDST_1D dst = TransformPlanCache.acquire(DoubleDST_1D.class, size);
+            try {
+                if (isNoView) {
+                    dst.forward(elements, scale);
+                } else {
+                    DoubleMatrix1D copy = this.copy();
+                    dst.forward((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dst, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public double[] elements() {
@@ -800,19 +808,24 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      * 
      */
     public void fft() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft == null) {
-            fft = new DoubleFFT_1D(size);
-        }
-        if (isNoView) {
-            fft.realForward(elements);
-        } else {
-            DoubleMatrix1D copy = this.copy();
-            fft.realForward((double[]) copy.elements());
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_1D fft = TransformPlanCache.acquire(DoubleFFT_1D.class, size);
+            try {
+                if (isNoView) {
+                    fft.realForward(elements);
+                } else {
+                    DoubleMatrix1D copy = this.copy();
+                    fft.realForward((double[]) copy.elements());
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -822,23 +835,28 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      * @return the discrete Fourier transform (DFT) of this matrix.
      */
     public DenseDComplexMatrix1D getFft() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final double[] elems;
-        if (isNoView == true) {
-            elems = elements;
-        } else {
-            elems = (double[]) this.copy().elements();
-        }
-        DenseDComplexMatrix1D c = new DenseDComplexMatrix1D(size);
-        final double[] elementsC = (c).elements();
-        System.arraycopy(elems, 0, elementsC, 0, size);
-        if (fft == null) {
-            fft = new DoubleFFT_1D(size);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final double[] elems;
+            if (isNoView == true) {
+                elems = elements;
+            } else {
+                elems = (double[]) this.copy().elements();
+            }
+            DenseDComplexMatrix1D c = new DenseDComplexMatrix1D(size);
+            final double[] elementsC = (c).elements();
+            System.arraycopy(elems, 0, elementsC, 0, size);
+            final DoubleFFT_1D fft = TransformPlanCache.acquire(DoubleFFT_1D.class, size);
+            try {
+                fft.realForwardFull(elementsC);
+                return c;
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft.realForwardFull(elementsC);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return c;
     }
 
     /**
@@ -849,23 +867,28 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      *         matrix.
      */
     public DenseDComplexMatrix1D getIfft(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final double[] elems;
-        if (isNoView == true) {
-            elems = elements;
-        } else {
-            elems = (double[]) this.copy().elements();
-        }
-        DenseDComplexMatrix1D c = new DenseDComplexMatrix1D(size);
-        final double[] elementsC = (c).elements();
-        System.arraycopy(elems, 0, elementsC, 0, size);
-        if (fft == null) {
-            fft = new DoubleFFT_1D(size);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final double[] elems;
+            if (isNoView == true) {
+                elems = elements;
+            } else {
+                elems = (double[]) this.copy().elements();
+            }
+            DenseDComplexMatrix1D c = new DenseDComplexMatrix1D(size);
+            final double[] elementsC = (c).elements();
+            System.arraycopy(elems, 0, elementsC, 0, size);
+            final DoubleFFT_1D fft = TransformPlanCache.acquire(DoubleFFT_1D.class, size);
+            try {
+                fft.realInverseFull(elementsC, scale);
+                return c;
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft.realInverseFull(elementsC, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return c;
     }
 
     public void getNonZeros(final IntArrayList indexList, final DoubleArrayList valueList) {
@@ -1138,19 +1161,24 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      *            if true then scaling is performed
      */
     public void idct(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct == null) {
-            dct = new DoubleDCT_1D(size);
-        }
-        if (isNoView) {
-            dct.inverse(elements, scale);
-        } else {
-            DoubleMatrix1D copy = this.copy();
-            dct.inverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDCT_1D dct = TransformPlanCache.acquire(DoubleDCT_1D.class, size);
+            try {
+                if (isNoView) {
+                    dct.inverse(elements, scale);
+                } else {
+                    DoubleMatrix1D copy = this.copy();
+                    dct.inverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dct, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1161,19 +1189,24 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      *            if true then scaling is performed
      */
     public void idht(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht == null) {
-            dht = new DoubleDHT_1D(size);
-        }
-        if (isNoView) {
-            dht.inverse(elements, scale);
-        } else {
-            DoubleMatrix1D copy = this.copy();
-            dht.inverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDHT_1D dht = TransformPlanCache.acquire(DoubleDHT_1D.class, size);
+            try {
+                if (isNoView) {
+                    dht.inverse(elements, scale);
+                } else {
+                    DoubleMatrix1D copy = this.copy();
+                    dht.inverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dht, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1183,19 +1216,24 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      *            if true then scaling is performed
      */
     public void idst(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst == null) {
-            dst = new DoubleDST_1D(size);
-        }
-        if (isNoView) {
-            dst.inverse(elements, scale);
-        } else {
-            DoubleMatrix1D copy = this.copy();
-            dst.inverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDST_1D dst = TransformPlanCache.acquire(DoubleDST_1D.class, size);
+            try {
+                if (isNoView) {
+                    dst.inverse(elements, scale);
+                } else {
+                    DoubleMatrix1D copy = this.copy();
+                    dst.inverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dst, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1214,19 +1252,24 @@ public class DenseDoubleMatrix1D extends DoubleMatrix1D {
      * 
      */
     public void ifft(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft == null) {
-            fft = new DoubleFFT_1D(size);
-        }
-        if (isNoView) {
-            fft.realInverse(elements, scale);
-        } else {
-            DoubleMatrix1D copy = this.copy();
-            fft.realInverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_1D fft = TransformPlanCache.acquire(DoubleFFT_1D.class, size);
+            try {
+                if (isNoView) {
+                    fft.realInverse(elements, scale);
+                } else {
+                    DoubleMatrix1D copy = this.copy();
+                    fft.realInverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public DoubleMatrix1D like(int size) {
@@ -26,6 +26,7 @@ import edu.emory.mathcs.jtransforms.dht.DoubleDHT_2D;
 import edu.emory.mathcs.jtransforms.dst.DoubleDST_2D;
 import edu.emory.mathcs.jtransforms.fft.DoubleFFT_2D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 2-d matrix holding <tt>double</tt> elements. First see the <a
@@ -73,14 +74,6 @@ import edu.emory.mathcs.utils.ConcurrencyUtils;
 public class DenseDoubleMatrix2D extends DoubleMatrix2D {
     static final long serialVersionUID = 1020177651L;
 
-    private DoubleFFT_2D fft2;
-
-    private DoubleDCT_2D dct2;
-
-    private DoubleDST_2D dst2;
-
-    private DoubleDHT_2D dht2;
-
     protected double[] elements;
 
     /**
@@ -1185,19 +1178,24 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dct2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct2 == null) {
-            dct2 = new DoubleDCT_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            dct2.forward(elements, scale);
-        } else {
-            DoubleMatrix2D copy = this.copy();
-            dct2.forward((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDCT_2D dct2 = TransformPlanCache.acquire(DoubleDCT_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    dct2.forward(elements, scale);
+                } else {
+                    DoubleMatrix2D copy = this.copy();
+                    dct2.forward((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dct2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1211,25 +1209,27 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
     public void dctColumns(final boolean scale) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, columns);
+                Future<?>[] futures = new Future[nthreads];
+                int k = columns / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = j * k;
+                    final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
 
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).dct(scale);
+                        public void run() {
+                            for (int c = firstColumn; c < lastColumn; c++) {
+                                ((DenseDoubleMatrix1D) viewColumn(c)).dct(scale);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
             for (int c = 0; c < columns; c++) {
                 ((DenseDoubleMatrix1D) viewColumn(c)).dct(scale);
@@ -1246,35 +1246,40 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dctRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).dct(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).dct(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).dct(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).dct(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1282,19 +1287,24 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dht2() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht2 == null) {
-            dht2 = new DoubleDHT_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            dht2.forward(elements);
-        } else {
-            DoubleMatrix2D copy = this.copy();
-            dht2.forward((double[]) copy.elements());
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDHT_2D dht2 = TransformPlanCache.acquire(DoubleDHT_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    dht2.forward(elements);
+                } else {
+                    DoubleMatrix2D copy = this.copy();
+                    dht2.forward((double[]) copy.elements());
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dht2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1303,35 +1313,40 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dhtColumns() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).dht();
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    ((DenseDoubleMatrix1D) viewColumn(c)).dht();
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                ((DenseDoubleMatrix1D) viewColumn(c)).dht();
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = 0; c < columns; c++) {
+                    ((DenseDoubleMatrix1D) viewColumn(c)).dht();
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1339,35 +1354,40 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dhtRows() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).dht();
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).dht();
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).dht();
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).dht();
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1378,19 +1398,24 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dst2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst2 == null) {
-            dst2 = new DoubleDST_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            dst2.forward(elements, scale);
-        } else {
-            DoubleMatrix2D copy = this.copy();
-            dst2.forward((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDST_2D dst2 = TransformPlanCache.acquire(DoubleDST_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    dst2.forward(elements, scale);
+                } else {
+                    DoubleMatrix2D copy = this.copy();
+                    dst2.forward((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dst2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1402,35 +1427,40 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dstColumns(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).dst(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    ((DenseDoubleMatrix1D) viewColumn(c)).dst(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                ((DenseDoubleMatrix1D) viewColumn(c)).dst(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = 0; c < columns; c++) {
+                    ((DenseDoubleMatrix1D) viewColumn(c)).dst(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1441,35 +1471,40 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void dstRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).dst(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).dst(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).dst(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).dst(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public double[] elements() {
@@ -1509,19 +1544,24 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void fft2() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            fft2.realForward(elements);
-        } else {
-            DoubleMatrix2D copy = this.copy();
-            fft2.realForward((double[]) copy.elements());
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    fft2.realForward(elements);
+                } else {
+                    DoubleMatrix2D copy = this.copy();
+                    fft2.realForward((double[]) copy.elements());
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public DoubleMatrix2D forEachNonZero(final cern.colt.function.tdouble.IntIntDoubleFunction function) {
@@ -1632,45 +1672,50 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public DenseDComplexMatrix2D getFft2() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
-        }
-        final double[] elementsA;
-        if (isNoView == true) {
-            elementsA = elements;
-        } else {
-            elementsA = (double[]) this.copy().elements();
-        }
-        DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        final double[] elementsC = (C).elements();
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            System.arraycopy(elementsA, r * columns, elementsC, r * columns, columns);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                final double[] elementsA;
+                if (isNoView == true) {
+                    elementsA = elements;
+                } else {
+                    elementsA = (double[]) this.copy().elements();
+                }
+                DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+                final double[] elementsC = (C).elements();
+                int nthreads = ConcurrencyUtils.getNumberOfThreads();
+                if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    System.arraycopy(elementsA, r * columns, elementsC, r * columns, columns);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-        } else {
-            for (int r = 0; r < rows; r++) {
-                System.arraycopy(elementsA, r * columns, elementsC, r * columns, columns);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } else {
+                    for (int r = 0; r < rows; r++) {
+                        System.arraycopy(elementsA, r * columns, elementsC, r * columns, columns);
+                    }
+                }
+                fft2.realForwardFull(elementsC);
+                return C;
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.realForwardFull(elementsC);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1681,37 +1726,42 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      *         matrix.
      */
     public DenseDComplexMatrix2D getFftColumns() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getFft());
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getFft());
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getFft());
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = 0; c < columns; c++) {
+                    C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getFft());
+                }
             }
+            return C;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1721,37 +1771,42 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * @return the discrete Fourier transform (DFT) of each row of this matrix.
      */
     public DenseDComplexMatrix2D getFftRows() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getFft());
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getFft());
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getFft());
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getFft());
+                }
             }
+            return C;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1762,50 +1817,55 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      *         matrix.
      */
     public DenseDComplexMatrix2D getIfft2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        final double[] elementsC = (C).elements();
-        final double[] elementsA;
-        if (isNoView == true) {
-            elementsA = elements;
-        } else {
-            elementsA = (double[]) this.copy().elements();
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow;
-                if (j == nthreads - 1) {
-                    lastRow = rows;
-                } else {
-                    lastRow = firstRow + k;
-                }
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            final double[] elementsC = (C).elements();
+            final double[] elementsA;
+            if (isNoView == true) {
+                elementsA = elements;
+            } else {
+                elementsA = (double[]) this.copy().elements();
+            }
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                nthreads = Math.min(nthreads, rows);
+                Future<?>[] futures = new Future[nthreads];
+                int k = rows / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstRow = j * k;
+                    final int lastRow;
+                    if (j == nthreads - 1) {
+                        lastRow = rows;
+                    } else {
+                        lastRow = firstRow + k;
+                    }
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
 
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            System.arraycopy(elementsA, r * columns, elementsC, r * columns, columns);
+                        public void run() {
+                            for (int r = firstRow; r < lastRow; r++) {
+                                System.arraycopy(elementsA, r * columns, elementsC, r * columns, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    System.arraycopy(elementsA, r * columns, elementsC, r * columns, columns);
+                }
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-        } else {
-            for (int r = 0; r < rows; r++) {
-                System.arraycopy(elementsA, r * columns, elementsC, r * columns, columns);
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                fft2.realInverseFull(elementsC, scale);
+                return C;
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
-        }
-        fft2.realInverseFull(elementsC, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1816,37 +1876,42 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      *         column of this matrix.
      */
     public DenseDComplexMatrix2D getIfftColumns(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getIfft(scale));
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getIfft(scale));
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getIfft(scale));
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = 0; c < columns; c++) {
+                    C.viewColumn(c).assign(((DenseDoubleMatrix1D) viewColumn(c)).getIfft(scale));
+                }
             }
+            return C;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -1857,36 +1922,41 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      *         of this matrix.
      */
     public DenseDComplexMatrix2D getIfftRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getIfft(scale));
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DenseDComplexMatrix2D C = new DenseDComplexMatrix2D(rows, columns);
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getIfft(scale));
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getIfft(scale));
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    C.viewRow(r).assign(((DenseDoubleMatrix1D) viewRow(r)).getIfft(scale));
+                }
             }
+            return C;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     public double[] getMaxLocation() {
@@ -2109,19 +2179,24 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idct2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct2 == null) {
-            dct2 = new DoubleDCT_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            dct2.inverse(elements, scale);
-        } else {
-            DoubleMatrix2D copy = this.copy();
-            dct2.inverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDCT_2D dct2 = TransformPlanCache.acquire(DoubleDCT_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    dct2.inverse(elements, scale);
+                } else {
+                    DoubleMatrix2D copy = this.copy();
+                    dct2.inverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dct2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2133,35 +2208,40 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idctColumns(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).idct(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    ((DenseDoubleMatrix1D) viewColumn(c)).idct(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                ((DenseDoubleMatrix1D) viewColumn(c)).idct(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = 0; c < columns; c++) {
+                    ((DenseDoubleMatrix1D) viewColumn(c)).idct(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2173,34 +2253,39 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idctRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).idct(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).idct(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).idct(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).idct(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2212,19 +2297,24 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idht2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht2 == null) {
-            dht2 = new DoubleDHT_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            dht2.inverse(elements, scale);
-        } else {
-            DoubleMatrix2D copy = this.copy();
-            dht2.inverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDHT_2D dht2 = TransformPlanCache.acquire(DoubleDHT_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    dht2.inverse(elements, scale);
+                } else {
+                    DoubleMatrix2D copy = this.copy();
+                    dht2.inverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dht2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2236,35 +2326,40 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idhtColumns(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).idht(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    ((DenseDoubleMatrix1D) viewColumn(c)).idht(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                ((DenseDoubleMatrix1D) viewColumn(c)).idht(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = 0; c < columns; c++) {
+                    ((DenseDoubleMatrix1D) viewColumn(c)).idht(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2276,34 +2371,39 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idhtRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).idht(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).idht(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).idht(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).idht(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2315,19 +2415,24 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idst2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst2 == null) {
-            dst2 = new DoubleDST_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            dst2.inverse(elements, scale);
-        } else {
-            DoubleMatrix2D copy = this.copy();
-            dst2.inverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleDST_2D dst2 = TransformPlanCache.acquire(DoubleDST_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    dst2.inverse(elements, scale);
+                } else {
+                    DoubleMatrix2D copy = this.copy();
+                    dst2.inverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dst2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2339,35 +2444,40 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idstColumns(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            ((DenseDoubleMatrix1D) viewColumn(c)).idst(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    ((DenseDoubleMatrix1D) viewColumn(c)).idst(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                ((DenseDoubleMatrix1D) viewColumn(c)).idst(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int c = 0; c < columns; c++) {
+                    ((DenseDoubleMatrix1D) viewColumn(c)).idst(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2379,34 +2489,39 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void idstRows(final boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            ((DenseDoubleMatrix1D) viewRow(r)).idst(scale);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    ((DenseDoubleMatrix1D) viewRow(r)).idst(scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                ((DenseDoubleMatrix1D) viewRow(r)).idst(scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    ((DenseDoubleMatrix1D) viewRow(r)).idst(scale);
+                }
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -2444,19 +2559,24 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
      * 
      */
     public void ifft2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new DoubleFFT_2D(rows, columns);
-        }
-        if (isNoView == true) {
-            fft2.realInverse(elements, scale);
-        } else {
-            DoubleMatrix2D copy = this.copy();
-            fft2.realInverse((double[]) copy.elements(), scale);
-            this.assign((double[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final DoubleFFT_2D fft2 = TransformPlanCache.acquire(DoubleFFT_2D.class, rows, columns);
+            try {
+                if (isNoView == true) {
+                    fft2.realInverse(elements, scale);
+                } else {
+                    DoubleMatrix2D copy = this.copy();
+                    fft2.realInverse((double[]) copy.elements(), scale);
+                    this.assign((double[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public long index(int row, int column) {
@@ -2752,7 +2872,7 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
         if (transposeB)
             return this.zMult(B.viewDice(), C, alpha, beta, transposeA, false);
 
-        if (!(C instanceof DenseDoubleMatrix2D))
+        if (!DoubleGemm.isDense(C))
             return super.zMult(B, C, alpha, beta, transposeA, transposeB);
 
         if (B.rows() != columnsA)
@@ -2764,6 +2884,14 @@ public class DenseDoubleMatrix2D extends DoubleMatrix2D {
         if (this == C || B == C)
             throw new IllegalArgumentException("Matrices must not be identical");
 
+        if (DoubleGemm.isDense(B) && DoubleGemm.isBlockable(rowsA, columnsB, columnsA)) {
+            // packed, cache-blocked kernel with 2D partitioning of C
+            DoubleGemm.zMult(this, B, C, alpha, beta, false, false);
+            return C;
+        }
+        if (!(C instanceof DenseDoubleMatrix2D))
+            return super.zMult(B, C, alpha, beta, transposeA, transposeB);
+
         long flops = 2L * rowsA * columnsA * columnsB;
         int noOfTasks = (int) Math.min(flops / 30000, ConcurrencyUtils.getNumberOfThreads()); // each
         /* thread should process at least 30000 flops */
@@ -0,0 +1,396 @@
+package cern.colt.matrix.tdouble.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Conversions of matrices holding <tt>double</tt> elements from the coordinate
+ * (COO) format, i.e. lists of <tt>(row, column, value)</tt> triplets, to the
+ * compressed row format, and transposition of matrices in the compressed row
+ * format.
+ * <p>
+ * Since the compressed column format of a matrix is the compressed row format
+ * of its transpose, column-compressed matrices are obtained by swapping the
+ * row and column indexes. The elements are distributed to their rows by a
+ * stable counting sort: every task counts the elements of a range of the input
+ * per row, the counts are turned into the first position of every task in
+ * every row, and the tasks place their elements independently. The result is
+ * the same as that of a sequential counting sort, i.e. the elements of a row
+ * keep their order of the input. Sorted indexes are obtained by distributing
+ * the elements by column first, which makes the second (row) pass leave every
+ * row sorted. Duplicates are summed and zeros dropped row by row, and the rows
+ * are compacted afterwards.
+ */
+final class DoubleCoo {
+
+    private DoubleCoo() {
+    }
+
+    /**
+     * Compressed row storage computed by the methods of {@link DoubleCoo}.
+     */
+    static final class Compressed {
+
+        final int[] pointers;
+
+        final int[] indexes;
+
+        final double[] values;
+
+        Compressed(int[] pointers, int[] indexes, double[] values) {
+            this.pointers = pointers;
+            this.indexes = indexes;
+            this.values = values;
+        }
+    }
+
+    /**
+     * Compresses the first <tt>nnz</tt> triplets <tt>(rowIndexes[k],
+     * columnIndexes[k], values[k])</tt> of an <tt>n x m</tt> matrix, or
+     * <tt>(rowIndexes[k], columnIndexes[k], value)</tt> if <tt>values</tt> is
+     * null. The input arrays are not modified. The triplets of a row keep their
+     * order of the input. The index and value arrays of the result have a
+     * length of <tt>max(nnz, 1)</tt>.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if an index is out of range
+     */
+    static Compressed compress(int n, int m, int[] rowIndexes, int[] columnIndexes, double[] values, double value,
+            int nnz) {
+        int[] indexes = new int[Math.max(nnz, 1)];
+        double[] x = new double[Math.max(nnz, 1)];
+        int[] pointers = distribute(n, m, rowIndexes, columnIndexes, null, values, value, nnz, parts(n, m, nnz),
+                indexes, x, null);
+        return new Compressed(pointers, indexes, x);
+    }
+
+    /**
+     * Compresses the first <tt>nnz</tt> triplets <tt>(rowIndexes[k],
+     * columnIndexes[k], values[k])</tt> of an <tt>n x m</tt> matrix. The input
+     * arrays are not modified. Duplicates are summed if
+     * <tt>sumDuplicates</tt> is true, zeros (after summation) are removed if
+     * <tt>removeZeroes</tt> is true and the column indexes of every row are
+     * sorted if <tt>sort</tt> is true. Otherwise the triplets of a row keep
+     * their order of the input. The index and value arrays of the result have
+     * a length of at least one.
+     *
+     * @throws IndexOutOfBoundsException
+     *             if an index is out of range
+     */
+    static Compressed compress(int n, int m, int[] rowIndexes, int[] columnIndexes, double[] values, int nnz,
+            boolean sumDuplicates, boolean removeZeroes, boolean sort) {
+        int nparts = parts(n, m, nnz);
+        if (sort) {
+            int[] rows = new int[Math.max(nnz, 1)];
+            int[] columns = new int[Math.max(nnz, 1)];
+            double[] x = new double[Math.max(nnz, 1)];
+            distribute(m, n, columnIndexes, rowIndexes, null, values, 0, nnz, nparts, rows, x, columns);
+            rowIndexes = rows;
+            columnIndexes = columns;
+            values = x;
+        }
+        int[] indexes = new int[Math.max(nnz, 1)];
+        double[] x = new double[Math.max(nnz, 1)];
+        int[] pointers = distribute(n, m, rowIndexes, columnIndexes, null, values, 0, nnz, nparts, indexes, x, null);
+        if (!sumDuplicates && !removeZeroes) {
+            return new Compressed(pointers, indexes, x);
+        }
+        return compact(n, m, pointers, indexes, x, sumDuplicates && !sort, sumDuplicates && sort, removeZeroes,
+                x.length, nparts);
+    }
+
+    /**
+     * Returns the transpose of the <tt>n x m</tt> matrix given in the
+     * compressed row format. The elements of every row of the transpose are
+     * ordered by their column (i.e. by the row of the input), so transposing
+     * twice sorts the indexes. The index and value arrays of the result have a
+     * length of <tt>max(nnz, 1)</tt>.
+     */
+    static Compressed transpose(int n, int m, int[] pointers, int[] indexes, double[] values) {
+        int nnz = pointers[n];
+        int[] indexesT = new int[Math.max(nnz, 1)];
+        double[] valuesT = new double[Math.max(nnz, 1)];
+        int[] pointersT = distribute(m, n, indexes, null, pointers, values, 0, nnz, parts(m, n, nnz), indexesT,
+                valuesT, null);
+        return new Compressed(pointersT, indexesT, valuesT);
+    }
+
+    /**
+     * Sums the duplicates of every row of the <tt>n x m</tt> matrix given in
+     * the compressed row format. The first occurrence of an index keeps its
+     * position in the row and the values are summed in the order of the row.
+     * The index and value arrays of the result have a length of
+     * <tt>capacity</tt>, or are the given arrays if there are no duplicates.
+     */
+    static Compressed sumDuplicates(int n, int m, int[] pointers, int[] indexes, double[] values, int capacity) {
+        return compact(n, m, pointers, indexes, values, true, false, false, capacity, parts(n, m, pointers[n]));
+    }
+
+    /**
+     * Returns the number of tasks for <tt>nnz</tt> elements with
+     * <tt>n</tt> rows and <tt>m</tt> columns.
+     */
+    private static int parts(int n, int m, int nnz) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads <= 1) || (nnz < ConcurrencyUtils.getThreadsBeginN_2D())) {
+            return 1;
+        }
+        // every task counts into an array with an entry per row
+        return (int) Math.max(1, Math.min(nthreads, 1 + (long) nnz / (Math.max(n, m) + 1)));
+    }
+
+    /**
+     * Distributes the elements to the <tt>n</tt> rows given by <tt>keys</tt>
+     * and returns the pointers. The elements of a row are placed in the order
+     * of the input. The indexes of the elements are <tt>indexes[k]</tt> (in
+     * <tt>[0, m)</tt>), or the rows of the <tt>m</tt> rows given by
+     * <tt>pointers</tt> if <tt>indexes</tt> is null. The values are
+     * <tt>values[k]</tt>, or <tt>value</tt> if <tt>values</tt> is null. If
+     * <tt>outKeys</tt> is not null the keys are placed as well.
+     */
+    private static int[] distribute(final int n, final int m, final int[] keys, final int[] indexes,
+            final int[] pointers, final double[] values, final double value, final int nnz, int nparts,
+            final int[] outIndexes, final double[] outValues, final int[] outKeys) {
+        // task t counts and places the elements [bounds[t], bounds[t + 1]);
+        // for compressed input these are the rows [rows[t], rows[t + 1])
+        final int[] bounds = new int[nparts + 1];
+        final int[] rows = (pointers != null) ? split(pointers, m, nparts) : null;
+        for (int t = 1; t <= nparts; t++) {
+            bounds[t] = (pointers != null) ? pointers[rows[t]] : (int) ((long) nnz * t / nparts);
+        }
+        final int[][] counts = new int[nparts][];
+        final boolean[] invalid = new boolean[nparts];
+        Runnable[] tasks = new Runnable[nparts];
+        for (int t = 0; t < nparts; t++) {
+            final int part = t;
+            tasks[t] = new Runnable() {
+                public void run() {
+                    int[] count = new int[n];
+                    for (int k = bounds[part]; k < bounds[part + 1]; k++) {
+                        int key = keys[k];
+                        if (key < 0 || key >= n || (indexes != null && (indexes[k] < 0 || indexes[k] >= m))) {
+                            invalid[part] = true;
+                            return;
+                        }
+                        count[key]++;
+                    }
+                    counts[part] = count;
+                }
+            };
+        }
+        execute(tasks);
+        for (int t = 0; t < nparts; t++) {
+            if (invalid[t]) {
+                throw new IndexOutOfBoundsException("Index out of range in the coordinates of the elements.");
+            }
+        }
+        final int[] result = new int[n + 1];
+        if (nparts == 1) {
+            int[] count = counts[0];
+            int position = 0;
+            for (int i = 0; i < n; i++) {
+                result[i] = position;
+                int c = count[i];
+                count[i] = position;
+                position += c;
+            }
+        } else {
+            // turn the counts into the positions of every task in every row,
+            // by ranges of rows
+            final long[] rangeTotals = new long[nparts];
+            for (int t = 0; t < nparts; t++) {
+                final int firstRow = (int) ((long) n * t / nparts);
+                final int lastRow = (int) ((long) n * (t + 1) / nparts);
+                final int part = t;
+                tasks[t] = new Runnable() {
+                    public void run() {
+                        long total = 0;
+                        for (int i = firstRow; i < lastRow; i++) {
+                            for (int s = 0; s < counts.length; s++) {
+                                total += counts[s][i];
+                            }
+                        }
+                        rangeTotals[part] = total;
+                    }
+                };
+            }
+            execute(tasks);
+            long start = 0;
+            for (int t = 0; t < nparts; t++) {
+                final int firstRow = (int) ((long) n * t / nparts);
+                final int lastRow = (int) ((long) n * (t + 1) / nparts);
+                final int first = (int) start;
+                start += rangeTotals[t];
+                tasks[t] = new Runnable() {
+                    public void run() {
+                        int position = first;
+                        for (int i = firstRow; i < lastRow; i++) {
+                            result[i] = position;
+                            for (int s = 0; s < counts.length; s++) {
+                                int c = counts[s][i];
+                                counts[s][i] = position;
+                                position += c;
+                            }
+                        }
+                    }
+                };
+            }
+            execute(tasks);
+        }
+        result[n] = nnz;
+        for (int t = 0; t < nparts; t++) {
+            final int part = t;
+            tasks[t] = new Runnable() {
+                public void run() {
+                    int[] next = counts[part];
+                    if (pointers != null) {
+                        for (int r = rows[part]; r < rows[part + 1]; r++) {
+                            int high = pointers[r + 1];
+                            for (int k = pointers[r]; k < high; k++) {
+                                int position = next[keys[k]]++;
+                                outIndexes[position] = r;
+                                outValues[position] = values[k];
+                            }
+                        }
+                        return;
+                    }
+                    for (int k = bounds[part]; k < bounds[part + 1]; k++) {
+                        int key = keys[k];
+                        int position = next[key]++;
+                        outIndexes[position] = indexes[k];
+                        outValues[position] = (values != null) ? values[k] : value;
+                        if (outKeys != null) {
+                            outKeys[position] = key;
+                        }
+                    }
+                }
+            };
+        }
+        execute(tasks);
+        return result;
+    }
+
+    /**
+     * Sums duplicates (with a marker array if the rows are unsorted, or by
+     * comparing neighbors if they are sorted) and removes zeros, then
+     * compacts the rows into arrays of length <tt>capacity</tt>.
+     */
+    private static Compressed compact(final int n, final int m, final int[] pointers, final int[] indexes,
+            final double[] values, final boolean sumUnsorted, final boolean sumSorted, final boolean removeZeroes,
+            int capacity, int nparts) {
+        final int[] sizes = new int[n];
+        final int[] rows = split(pointers, n, nparts);
+        Runnable[] tasks = new Runnable[nparts];
+        for (int t = 0; t < nparts; t++) {
+            final int firstRow = rows[t];
+            final int lastRow = rows[t + 1];
+            tasks[t] = new Runnable() {
+                public void run() {
+                    int[] marker = null;
+                    if (sumUnsorted) {
+                        marker = new int[m];
+                        Arrays.fill(marker, -1);
+                    }
+                    for (int i = firstRow; i < lastRow; i++) {
+                        int low = pointers[i];
+                        int high = pointers[i + 1];
+                        int size = low;
+                        for (int k = low; k < high; k++) {
+                            int j = indexes[k];
+                            if (sumUnsorted) {
+                                if (marker[j] >= low) {
+                                    values[marker[j]] += values[k];
+                                    continue;
+                                }
+                                marker[j] = size;
+                            } else if (sumSorted && size > low && indexes[size - 1] == j) {
+                                values[size - 1] += values[k];
+                                continue;
+                            }
+                            indexes[size] = j;
+                            values[size++] = values[k];
+                        }
+                        if (removeZeroes) {
+                            int end = size;
+                            size = low;
+                            for (int k = low; k < end; k++) {
+                                if (values[k] != 0) {
+                                    indexes[size] = indexes[k];
+                                    values[size++] = values[k];
+                                }
+                            }
+                        }
+                        sizes[i] = size - low;
+                    }
+                }
+            };
+        }
+        execute(tasks);
+        final int[] newPointers = new int[n + 1];
+        for (int i = 0; i < n; i++) {
+            newPointers[i + 1] = newPointers[i] + sizes[i];
+        }
+        if (newPointers[n] == pointers[n]) {
+            return new Compressed(pointers, indexes, values);
+        }
+        final int[] newIndexes = new int[Math.max(capacity, Math.max(newPointers[n], 1))];
+        final double[] newValues = new double[newIndexes.length];
+        for (int t = 0; t < nparts; t++) {
+            final int firstRow = rows[t];
+            final int lastRow = rows[t + 1];
+            tasks[t] = new Runnable() {
+                public void run() {
+                    for (int i = firstRow; i < lastRow; i++) {
+                        System.arraycopy(indexes, pointers[i], newIndexes, newPointers[i], sizes[i]);
+                        System.arraycopy(values, pointers[i], newValues, newPointers[i], sizes[i]);
+                    }
+                }
+            };
+        }
+        execute(tasks);
+        return new Compressed(newPointers, newIndexes, newValues);
+    }
+
+    /**
+     * Splits the <tt>n</tt> rows given by <tt>pointers</tt> into
+     * <tt>nparts</tt> consecutive ranges holding about the same number of
+     * elements. Range <tt>t</tt> is <tt>[rows[t], rows[t + 1])</tt>.
+     */
+    private static int[] split(int[] pointers, int n, int nparts) {
+        int[] rows = new int[nparts + 1];
+        long nnz = pointers[n];
+        for (int t = 1; t < nparts; t++) {
+            long target = nnz * t / nparts;
+            int low = rows[t - 1];
+            int high = n;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (pointers[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            rows[t] = low;
+        }
+        rows[nparts] = n;
+        return rows;
+    }
+
+    /**
+     * Runs a single task in the calling thread and several tasks in parallel.
+     */
+    private static void execute(Runnable[] tasks) {
+        if (tasks.length == 1) {
+            tasks[0].run();
+            return;
+        }
+        Future<?>[] futures = new Future[tasks.length];
+        for (int t = 0; t < tasks.length; t++) {
+            futures[t] = ConcurrencyUtils.submit(tasks[t]);
+        }
+        ConcurrencyUtils.waitForCompletion(futures);
+    }
+}
@@ -0,0 +1,268 @@
+package cern.colt.matrix.tdouble.impl;
+
+import java.util.concurrent.Future;
+
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Sparse matrix-vector multiplication (SpMV) for compressed matrices holding
+ * <tt>double</tt> elements.
+ * <p>
+ * The matrix is given by the pointers, indexes and values of its compressed
+ * rows (for column-compressed matrices these are the rows of the transpose).
+ * {@link #gather} computes <tt>y = alpha * A * x + beta * y</tt> and
+ * {@link #scatter} computes <tt>y = y + alpha * A' * x</tt>. The work is split
+ * by a {@link Partition}, which is computed once per matrix structure and
+ * cached by the matrix.
+ */
+final class DoubleSpMV {
+
+    private DoubleSpMV() {
+    }
+
+    /**
+     * Split of the rows and nonzeros of a compressed matrix into ranges of
+     * about the same cost. The ranges hold whole rows and about the same number
+     * of nonzeros, unless a few rows hold so many nonzeros that whole rows
+     * cannot be balanced. In that case the merge-path split is used: the rows
+     * and the nonzeros are merged into one sequence, which is cut into equal
+     * pieces, so that a row may be shared by several ranges.
+     * <p>
+     * Range <tt>t</tt> starts at row <tt>rows[t]</tt> and nonzero
+     * <tt>nonzeros[t]</tt>.
+     */
+    static final class Partition {
+
+        /**
+         * Excess (in percent) of the nonzeros of the largest range of whole
+         * rows over the average above which the merge-path split is used.
+         */
+        private static final int MERGE_PATH_EXCESS = 25;
+
+        final int[] rows;
+
+        final int[] nonzeros;
+
+        final boolean mergePath;
+
+        private final int[] pointers;
+
+        private final int nnz;
+
+        private Partition(int[] pointers, int[] rows, int[] nonzeros, boolean mergePath) {
+            this.pointers = pointers;
+            this.nnz = pointers[rows[rows.length - 1]];
+            this.rows = rows;
+            this.nonzeros = nonzeros;
+            this.mergePath = mergePath;
+        }
+
+        /**
+         * Computes a partition of the <tt>n</tt> rows given by
+         * <tt>pointers</tt> into <tt>nparts</tt> ranges.
+         */
+        static Partition create(int[] pointers, int n, int nparts) {
+            int nnz = pointers[n];
+            int[] rows = new int[nparts + 1];
+            int[] nonzeros = new int[nparts + 1];
+            int maxPart = 0;
+            for (int t = 1; t <= nparts; t++) {
+                long target = (long) nnz * t / nparts;
+                // smallest row whose pointer reaches the target
+                int low = rows[t - 1];
+                int high = n;
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (pointers[mid] < target) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                rows[t] = (t == nparts) ? n : low;
+                nonzeros[t] = pointers[rows[t]];
+                maxPart = Math.max(maxPart, nonzeros[t] - nonzeros[t - 1]);
+            }
+            long average = ((long) nnz + nparts - 1) / nparts;
+            if (nparts == 1 || 100L * maxPart <= (100L + MERGE_PATH_EXCESS) * average) {
+                return new Partition(pointers, rows, nonzeros, false);
+            }
+            for (int t = 1; t < nparts; t++) {
+                int diagonal = (int) (((long) n + nnz) * t / nparts);
+                // number of rows consumed after diagonal merge steps
+                int low = Math.max(diagonal - nnz, 0);
+                int high = Math.min(diagonal, n);
+                while (low < high) {
+                    int mid = (low + high) >>> 1;
+                    if (pointers[mid + 1] <= diagonal - mid - 1) {
+                        low = mid + 1;
+                    } else {
+                        high = mid;
+                    }
+                }
+                rows[t] = low;
+                nonzeros[t] = diagonal - low;
+            }
+            return new Partition(pointers, rows, nonzeros, true);
+        }
+
+        /**
+         * Returns true if this partition was computed for the given structure
+         * and number of ranges.
+         */
+        boolean isFor(int[] pointers, int n, int nparts) {
+            return this.pointers == pointers && rows.length == nparts + 1 && rows[nparts] == n && nnz == pointers[n];
+        }
+
+        int size() {
+            return rows.length - 1;
+        }
+    }
+
+    /**
+     * Computes <tt>y[i] = alpha * sum(A[i][j] * x[j]) + beta * y[i]</tt> for
+     * all <tt>n</tt> rows of A. If <tt>partition</tt> is null the rows are
+     * processed sequentially.
+     */
+    static void gather(final Partition partition, final int n, final double alpha, final double beta,
+            final int[] pointers, final int[] indexes, final double[] values, final double[] elementsX,
+            final int zeroX, final int strideX, final double[] elementsY, final int zeroY, final int strideY) {
+        if (partition == null) {
+            gather(0, n, pointers[0], pointers[n], alpha, beta, pointers, indexes, values, elementsX, zeroX, strideX,
+                    elementsY, zeroY, strideY);
+            return;
+        }
+        int nparts = partition.size();
+        final double[] carries = new double[nparts];
+        Future<?>[] futures = new Future[nparts];
+        for (int t = 0; t < nparts; t++) {
+            final int firstRow = partition.rows[t];
+            final int lastRow = partition.rows[t + 1];
+            final int firstNonzero = partition.nonzeros[t];
+            final int lastNonzero = partition.nonzeros[t + 1];
+            final int part = t;
+            futures[t] = ConcurrencyUtils.submit(new Runnable() {
+                public void run() {
+                    carries[part] = gather(firstRow, lastRow, firstNonzero, lastNonzero, alpha, beta, pointers,
+                            indexes, values, elementsX, zeroX, strideX, elementsY, zeroY, strideY);
+                }
+            });
+        }
+        ConcurrencyUtils.waitForCompletion(futures);
+        if (partition.mergePath) {
+            for (int t = 0; t < nparts; t++) {
+                int row = partition.rows[t + 1];
+                if (row < n) {
+                    elementsY[zeroY + row * strideY] += alpha * carries[t];
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes the rows ending in <tt>[firstRow, lastRow)</tt>, starting at
+     * nonzero <tt>firstNonzero</tt>. Returns the partial sum of row
+     * <tt>lastRow</tt> up to nonzero <tt>lastNonzero</tt>, which is added by
+     * the caller.
+     */
+    private static double gather(int firstRow, int lastRow, int firstNonzero, int lastNonzero, double alpha,
+            double beta, int[] pointers, int[] indexes, double[] values, double[] elementsX, int zeroX, int strideX,
+            double[] elementsY, int zeroY, int strideY) {
+        int k = firstNonzero;
+        int idxY = zeroY + firstRow * strideY;
+        for (int i = firstRow; i < lastRow; i++) {
+            double sum = 0;
+            int high = pointers[i + 1];
+            for (; k < high; k++) {
+                sum += values[k] * elementsX[zeroX + indexes[k] * strideX];
+            }
+            if (beta == 0.0) {
+                elementsY[idxY] = alpha * sum;
+            } else {
+                elementsY[idxY] = alpha * sum + beta * elementsY[idxY];
+            }
+            idxY += strideY;
+        }
+        double carry = 0;
+        for (; k < lastNonzero; k++) {
+            carry += values[k] * elementsX[zeroX + indexes[k] * strideX];
+        }
+        return carry;
+    }
+
+    /**
+     * Computes <tt>y[j] += alpha * sum(A[i][j] * x[i])</tt>, where A has
+     * <tt>n</tt> rows and <tt>m</tt> columns. If <tt>partition</tt> is null
+     * the rows are processed sequentially; otherwise each range accumulates
+     * into its own buffer and the buffers are summed into y in parallel.
+     */
+    static void scatter(final Partition partition, final int n, final int m, final double alpha,
+            final int[] pointers, final int[] indexes, final double[] values, final double[] elementsX,
+            final int zeroX, final int strideX, final double[] elementsY, final int zeroY, final int strideY) {
+        if (partition == null) {
+            scatter(0, pointers[0], pointers[n], alpha, pointers, indexes, values, elementsX, zeroX, strideX,
+                    elementsY, zeroY, strideY);
+            return;
+        }
+        final int nparts = partition.size();
+        final double[][] buffers = new double[nparts][];
+        Future<?>[] futures = new Future[nparts];
+        for (int t = 0; t < nparts; t++) {
+            final int firstRow = partition.rows[t];
+            final int firstNonzero = partition.nonzeros[t];
+            final int lastNonzero = partition.nonzeros[t + 1];
+            final int part = t;
+            futures[t] = ConcurrencyUtils.submit(new Runnable() {
+                public void run() {
+                    if (firstNonzero < lastNonzero) {
+                        buffers[part] = new double[m];
+                        scatter(firstRow, firstNonzero, lastNonzero, alpha, pointers, indexes, values, elementsX,
+                                zeroX, strideX, buffers[part], 0, 1);
+                    }
+                }
+            });
+        }
+        ConcurrencyUtils.waitForCompletion(futures);
+        int k = m / nparts;
+        for (int t = 0; t < nparts; t++) {
+            final int first = t * k;
+            final int last = (t == nparts - 1) ? m : first + k;
+            futures[t] = ConcurrencyUtils.submit(new Runnable() {
+                public void run() {
+                    for (int b = 0; b < nparts; b++) {
+                        double[] buffer = buffers[b];
+                        if (buffer != null) {
+                            int idxY = zeroY + first * strideY;
+                            for (int j = first; j < last; j++) {
+                                elementsY[idxY] += buffer[j];
+                                idxY += strideY;
+                            }
+                        }
+                    }
+                }
+            });
+        }
+        ConcurrencyUtils.waitForCompletion(futures);
+    }
+
+    /**
+     * Scatters the nonzeros in <tt>[firstNonzero, lastNonzero)</tt>, the first
+     * of which lies in row <tt>firstRow</tt> or after it.
+     */
+    private static void scatter(int firstRow, int firstNonzero, int lastNonzero, double alpha, int[] pointers,
+            int[] indexes, double[] values, double[] elementsX, int zeroX, int strideX, double[] elementsY,
+            int zeroY, int strideY) {
+        int i = firstRow;
+        int k = firstNonzero;
+        while (k < lastNonzero) {
+            while (pointers[i + 1] <= k) {
+                i++;
+            }
+            int high = Math.min(pointers[i + 1], lastNonzero);
+            double elemX = alpha * elementsX[zeroX + i * strideX];
+            for (; k < high; k++) {
+                elementsY[zeroY + indexes[k] * strideY] += values[k] * elemX;
+            }
+        }
+    }
+}
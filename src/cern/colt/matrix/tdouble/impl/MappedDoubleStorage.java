@@ -0,0 +1,117 @@
+package cern.colt.matrix.tdouble.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Storage of <tt>double</tt> elements outside of the Java heap, addressed by
+ * <tt>long</tt> indexes. The elements are held in segments of
+ * <tt>2^27</tt> elements (1 GiB), which are either direct buffers or regions
+ * of a memory-mapped file. Elements are stored in the native byte order.
+ */
+final class MappedDoubleStorage {
+
+    static final int SEGMENT_SHIFT = 27;
+
+    static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+    static final long SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+    private final DoubleBuffer[] segments;
+
+    private final MappedByteBuffer[] mapped;
+
+    private final long size;
+
+    /**
+     * Allocates direct buffers holding <tt>size</tt> elements, initially
+     * <tt>0</tt>.
+     */
+    MappedDoubleStorage(long size) {
+        if (size < 0) {
+            throw new IllegalArgumentException("negative size");
+        }
+        this.size = size;
+        this.segments = new DoubleBuffer[segments(size)];
+        this.mapped = null;
+        for (int s = 0; s < segments.length; s++) {
+            segments[s] = ByteBuffer.allocateDirect(segmentLength(s) * 8).order(ByteOrder.nativeOrder())
+                    .asDoubleBuffer();
+        }
+    }
+
+    /**
+     * Maps <tt>size</tt> elements of <tt>file</tt>, starting at byte
+     * <tt>position</tt>. The file is created or extended if necessary, unless
+     * <tt>readOnly</tt> is true.
+     *
+     * @throws IOException
+     *             if the file cannot be mapped
+     */
+    MappedDoubleStorage(File file, long position, long size, boolean readOnly) throws IOException {
+        if (size < 0 || position < 0) {
+            throw new IllegalArgumentException("negative size or position");
+        }
+        this.size = size;
+        this.segments = new DoubleBuffer[segments(size)];
+        this.mapped = new MappedByteBuffer[segments.length];
+        RandomAccessFile raf = new RandomAccessFile(file, readOnly ? "r" : "rw");
+        try {
+            FileChannel channel = raf.getChannel();
+            long end = position + size * 8;
+            if (readOnly && channel.size() < end) {
+                throw new IOException("The file " + file + " holds less than " + size + " elements.");
+            }
+            FileChannel.MapMode mode = readOnly ? FileChannel.MapMode.READ_ONLY : FileChannel.MapMode.READ_WRITE;
+            for (int s = 0; s < segments.length; s++) {
+                mapped[s] = channel.map(mode, position + ((long) s << SEGMENT_SHIFT) * 8, segmentLength(s) * 8L);
+                mapped[s].order(ByteOrder.nativeOrder());
+                segments[s] = mapped[s].asDoubleBuffer();
+            }
+        } finally {
+            // the mappings stay valid after the file is closed
+            raf.close();
+        }
+    }
+
+    double get(long index) {
+        return segments[(int) (index >>> SEGMENT_SHIFT)].get((int) (index & SEGMENT_MASK));
+    }
+
+    void set(long index, double value) {
+        segments[(int) (index >>> SEGMENT_SHIFT)].put((int) (index & SEGMENT_MASK), value);
+    }
+
+    long size() {
+        return size;
+    }
+
+    DoubleBuffer[] segments() {
+        return segments;
+    }
+
+    /**
+     * Writes the changes of a memory-mapped storage to the file.
+     */
+    void force() {
+        if (mapped != null) {
+            for (MappedByteBuffer buffer : mapped) {
+                buffer.force();
+            }
+        }
+    }
+
+    private static int segments(long size) {
+        return (int) ((size + SEGMENT_SIZE - 1) >>> SEGMENT_SHIFT);
+    }
+
+    private int segmentLength(int segment) {
+        return (int) Math.min(SEGMENT_SIZE, size - ((long) segment << SEGMENT_SHIFT));
+    }
+}
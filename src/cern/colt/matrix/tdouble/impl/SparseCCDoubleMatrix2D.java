@@ -9,18 +9,13 @@ It is provided "as is" without expressed or implied warranty.
 package cern.colt.matrix.tdouble.impl;
 
 import java.util.Arrays;
-import java.util.concurrent.Future;
 
 import cern.colt.list.tdouble.DoubleArrayList;
 import cern.colt.list.tint.IntArrayList;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_add;
-import edu.emory.mathcs.csparsej.tdouble.Dcs_cumsum;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_dropzeros;
-import edu.emory.mathcs.csparsej.tdouble.Dcs_dupl;
-import edu.emory.mathcs.csparsej.tdouble.Dcs_multiply;
-import edu.emory.mathcs.csparsej.tdouble.Dcs_transpose;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_util;
 import edu.emory.mathcs.csparsej.tdouble.Dcs_common.Dcs;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
@@ -138,6 +133,12 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
 
     protected boolean rowIndexesSorted = false;
 
+    /*
+     * Cached partition of the columns for parallel products, rebuilt when the
+     * structure changes.
+     */
+    private transient DoubleSpMV.Partition partition;
+
     /**
      * Constructs a matrix with a copy of the given values. <tt>values</tt> is
      * required to have the form <tt>values[row][column]</tt> and have exactly
@@ -175,6 +176,44 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         this.dcs = dcs;
     }
 
+    /**
+     * Constructs a matrix with given parameters. The arrays are not copied.
+     * 
+     * @param rows
+     *            the number of rows the matrix shall have.
+     * @param columns
+     *            the number of columns the matrix shall have.
+     * @param columnPointers
+     *            column pointers
+     * @param rowIndexes
+     *            row indexes
+     * @param values
+     *            numerical values
+     */
+    public SparseCCDoubleMatrix2D(int rows, int columns, int[] columnPointers, int[] rowIndexes, double[] values) {
+        super(null);
+        try {
+            setUp(rows, columns);
+        } catch (IllegalArgumentException exc) { // we can hold rows*columns>Integer.MAX_VALUE cells !
+            if (!"matrix too large".equals(exc.getMessage()))
+                throw exc;
+        }
+        if (columnPointers.length != columns + 1) {
+            throw new IllegalArgumentException("columnPointers.length != columns + 1");
+        }
+        if (rowIndexes.length != values.length) {
+            throw new IllegalArgumentException("rowIndexes.length != values.length");
+        }
+        dcs = new Dcs();
+        dcs.m = rows;
+        dcs.n = columns;
+        dcs.p = columnPointers;
+        dcs.i = rowIndexes;
+        dcs.x = values;
+        dcs.nzmax = values.length;
+        dcs.nz = -1;
+    }
+
     /**
      * Constructs a matrix with a given number of rows and columns. All entries
      * are initially <tt>0</tt>.
@@ -249,34 +288,14 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
             throw new IllegalArgumentException("value cannot be 0");
         }
 
-        int nz = Math.max(rowIndexes.length, 1);
-        dcs = Dcs_util.cs_spalloc(rows, columns, nz, true, false);
-        int[] w = new int[columns];
-        int[] Cp = dcs.p;
-        int[] Ci = dcs.i;
-        double[] Cx = dcs.x;
-        for (int k = 0; k < nz; k++)
-            w[columnIndexes[k]]++;
-        Dcs_cumsum.cs_cumsum(Cp, w, columns);
-        int p;
-        for (int k = 0; k < nz; k++) {
-            Ci[p = w[columnIndexes[k]]++] = rowIndexes[k];
-            if (Cx != null)
-                Cx[p] = value;
-        }
+        DoubleCoo.Compressed c = DoubleCoo.compress(columns, rows, columnIndexes, rowIndexes, null, value,
+                rowIndexes.length);
+        setStorage(c);
         if (removeDuplicates) {
-            if (!Dcs_dupl.cs_dupl(dcs)) { //remove duplicates
-                throw new IllegalArgumentException("Exception occured in cs_dupl()!");
-            }
+            removeDuplicates();
         }
         if (sortRowIndexes) {
-            //sort row indexes
-            dcs = Dcs_transpose.cs_transpose(dcs, true);
-            dcs = Dcs_transpose.cs_transpose(dcs, true);
-            if (dcs == null) {
-                throw new IllegalArgumentException("Exception occured in cs_transpose()!");
-            }
-            rowIndexesSorted = true;
+            sortRowIndexes();
         }
     }
 
@@ -315,37 +334,17 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         } else if (rowIndexes.length != values.length) {
             throw new IllegalArgumentException("rowIndexes.length != values.length");
         }
-        int nz = Math.max(rowIndexes.length, 1);
-        dcs = Dcs_util.cs_spalloc(rows, columns, nz, true, false);
-        int[] w = new int[columns];
-        int[] Cp = dcs.p;
-        int[] Ci = dcs.i;
-        double[] Cx = dcs.x;
-        for (int k = 0; k < nz; k++)
-            w[columnIndexes[k]]++;
-        Dcs_cumsum.cs_cumsum(Cp, w, columns);
-        int p;
-        for (int k = 0; k < nz; k++) {
-            Ci[p = w[columnIndexes[k]]++] = rowIndexes[k];
-            if (Cx != null)
-                Cx[p] = values[k];
-        }
+        DoubleCoo.Compressed c = DoubleCoo.compress(columns, rows, columnIndexes, rowIndexes, values, 0,
+                rowIndexes.length);
+        setStorage(c);
         if (removeZeroes) {
             Dcs_dropzeros.cs_dropzeros(dcs); //remove zeroes
         }
         if (removeDuplicates) {
-            if (!Dcs_dupl.cs_dupl(dcs)) { //remove duplicates
-                throw new IllegalArgumentException("Exception occured in cs_dupl()!");
-            }
+            removeDuplicates();
         }
-        //sort row indexes
         if (sortRowIndexes) {
-            dcs = Dcs_transpose.cs_transpose(dcs, true);
-            dcs = Dcs_transpose.cs_transpose(dcs, true);
-            if (dcs == null) {
-                throw new IllegalArgumentException("Exception occured in cs_transpose()!");
-            }
-            rowIndexesSorted = true;
+            sortRowIndexes();
         }
     }
 
@@ -562,11 +561,8 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
      * @return this matrix in a row-compressed form
      */
     public SparseRCDoubleMatrix2D getRowCompressed() {
-        Dcs dcst = Dcs_transpose.cs_transpose(dcs, true);
-        SparseRCDoubleMatrix2D rc = new SparseRCDoubleMatrix2D(rows, columns);
-        rc.columnIndexes = dcst.i;
-        rc.rowPointers = dcst.p;
-        rc.values = dcst.x;
+        DoubleCoo.Compressed c = DoubleCoo.transpose(columns, rows, dcs.p, dcs.i, dcs.x);
+        SparseRCDoubleMatrix2D rc = new SparseRCDoubleMatrix2D(rows, columns, c.pointers, c.indexes, c.values);
         rc.columnIndexesSorted = true;
         return rc;
     }
@@ -588,10 +584,8 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
      * @return the transpose of this matrix
      */
     public SparseCCDoubleMatrix2D getTranspose() {
-        Dcs dcst = Dcs_transpose.cs_transpose(dcs, true);
-        SparseCCDoubleMatrix2D tr = new SparseCCDoubleMatrix2D(columns, rows);
-        tr.dcs = dcst;
-        return tr;
+        DoubleCoo.Compressed c = DoubleCoo.transpose(columns, rows, dcs.p, dcs.i, dcs.x);
+        return new SparseCCDoubleMatrix2D(columns, rows, c.pointers, c.indexes, c.values);
     }
 
     /**
@@ -642,11 +636,8 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
      * Sorts row indexes
      */
     public void sortRowIndexes() {
-        dcs = Dcs_transpose.cs_transpose(dcs, true);
-        dcs = Dcs_transpose.cs_transpose(dcs, true);
-        if (dcs == null) {
-            throw new IllegalArgumentException("Exception occured in cs_transpose()!");
-        }
+        DoubleCoo.Compressed t = DoubleCoo.transpose(columns, rows, dcs.p, dcs.i, dcs.x);
+        setStorage(DoubleCoo.transpose(rows, columns, t.pointers, t.indexes, t.values));
         rowIndexesSorted = true;
     }
 
@@ -654,15 +645,14 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
      * Removes (sums) duplicate entries (if any}
      */
     public void removeDuplicates() {
-        if (!Dcs_dupl.cs_dupl(dcs)) { //remove duplicates
-            throw new IllegalArgumentException("Exception occured in cs_dupl()!");
-        }
+        setStorage(DoubleCoo.sumDuplicates(columns, rows, dcs.p, dcs.i, dcs.x, 0));
     }
 
     /**
      * Removes zero entries (if any)
      */
     public void removeZeroes() {
+        partition = null;
         Dcs_dropzeros.cs_dropzeros(dcs); //remove zeroes
     }
 
@@ -712,142 +702,22 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         final int strideY = yy.stride();
         final int zeroY = (int) yy.index(0);
 
-        final int[] rowIndexesA = dcs.i;
-        final int[] columnPointersA = dcs.p;
-        final double[] valuesA = dcs.x;
-
-        int zidx = zeroZ;
+        DoubleSpMV.Partition part = null;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if (!transposeA) {
-            if ((!ignore) && (beta / alpha != 1.0)) {
-                z.assign(cern.jet.math.tdouble.DoubleFunctions.mult(beta / alpha));
-            }
+        if ((nthreads > 1) && (cardinality() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            part = getPartition(nthreads);
+        }
 
-            if ((nthreads > 1) && (cardinality() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-                nthreads = 2;
-                Future<?>[] futures = new Future[nthreads];
-                final double[] result = new double[rowsA];
-                int k = columns / nthreads;
-                for (int j = 0; j < nthreads; j++) {
-                    final int firstColumn = j * k;
-                    final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                    final int threadID = j;
-                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                        public void run() {
-                            if (threadID == 0) {
-                                for (int i = firstColumn; i < lastColumn; i++) {
-                                    int high = columnPointersA[i + 1];
-                                    double yElem = elementsY[zeroY + strideY * i];
-                                    for (int k = columnPointersA[i]; k < high; k++) {
-                                        int j = rowIndexesA[k];
-                                        elementsZ[zeroZ + strideZ * j] += valuesA[k] * yElem;
-                                    }
-                                }
-                            } else {
-                                for (int i = firstColumn; i < lastColumn; i++) {
-                                    int high = columnPointersA[i + 1];
-                                    double yElem = elementsY[zeroY + strideY * i];
-                                    for (int k = columnPointersA[i]; k < high; k++) {
-                                        int j = rowIndexesA[k];
-                                        result[j] += valuesA[k] * yElem;
-                                    }
-                                }
-                            }
-                        }
-                    });
-                }
-                ConcurrencyUtils.waitForCompletion(futures);
-                int rem = rowsA % 10;
-                for (int j = rem; j < rowsA; j += 10) {
-                    elementsZ[zeroZ + j * strideZ] += result[j];
-                    elementsZ[zeroZ + (j + 1) * strideZ] += result[j + 1];
-                    elementsZ[zeroZ + (j + 2) * strideZ] += result[j + 2];
-                    elementsZ[zeroZ + (j + 3) * strideZ] += result[j + 3];
-                    elementsZ[zeroZ + (j + 4) * strideZ] += result[j + 4];
-                    elementsZ[zeroZ + (j + 5) * strideZ] += result[j + 5];
-                    elementsZ[zeroZ + (j + 6) * strideZ] += result[j + 6];
-                    elementsZ[zeroZ + (j + 7) * strideZ] += result[j + 7];
-                    elementsZ[zeroZ + (j + 8) * strideZ] += result[j + 8];
-                    elementsZ[zeroZ + (j + 9) * strideZ] += result[j + 9];
-                }
-                for (int j = 0; j < rem; j++) {
-                    elementsZ[zeroZ + j * strideZ] += result[j];
-                }
-            } else {
-                for (int i = 0; i < columns; i++) {
-                    int high = columnPointersA[i + 1];
-                    double yElem = elementsY[zeroY + strideY * i];
-                    for (int k = columnPointersA[i]; k < high; k++) {
-                        int j = rowIndexesA[k];
-                        elementsZ[zeroZ + strideZ * j] += valuesA[k] * yElem;
-                    }
-                }
-            }
-            if (alpha != 1.0) {
-                z.assign(cern.jet.math.tdouble.DoubleFunctions.mult(alpha));
+        // the columns of this matrix are the rows of its transpose
+        if (!transposeA) {
+            if ((!ignore) && (beta != 1.0)) {
+                z.assign(cern.jet.math.tdouble.DoubleFunctions.mult(beta));
             }
+            DoubleSpMV.scatter(part, columns, rowsA, alpha, dcs.p, dcs.i, dcs.x, elementsY, zeroY, strideY,
+                    elementsZ, zeroZ, strideZ);
         } else {
-            if ((nthreads > 1) && (cardinality() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-                Future<?>[] futures = new Future[nthreads];
-                int k = columns / nthreads;
-                for (int j = 0; j < nthreads; j++) {
-                    final int firstColumn = j * k;
-                    final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                        public void run() {
-                            int zidx = zeroZ + firstColumn * strideZ;
-                            int k = dcs.p[firstColumn];
-                            for (int i = firstColumn; i < lastColumn; i++) {
-                                double sum = 0;
-                                int high = dcs.p[i + 1];
-                                for (; k + 10 < high; k += 10) {
-                                    int ind = k + 9;
-                                    sum += valuesA[ind] * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                            * elementsY[zeroY + strideY * dcs.i[ind--]];
-                                }
-                                for (; k < high; k++) {
-                                    sum += valuesA[k] * elementsY[dcs.i[k]];
-                                }
-                                elementsZ[zidx] = alpha * sum + beta * elementsZ[zidx];
-                                zidx += strideZ;
-                            }
-                        }
-                    });
-                }
-                ConcurrencyUtils.waitForCompletion(futures);
-            } else {
-                int k = dcs.p[0];
-                for (int i = 0; i < columns; i++) {
-                    double sum = 0;
-                    int high = dcs.p[i + 1];
-                    for (; k + 10 < high; k += 10) {
-                        int ind = k + 9;
-                        sum += valuesA[ind] * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]] + valuesA[ind]
-                                * elementsY[zeroY + strideY * dcs.i[ind--]];
-                    }
-                    for (; k < high; k++) {
-                        sum += valuesA[k] * elementsY[dcs.i[k]];
-                    }
-                    elementsZ[zidx] = alpha * sum + beta * elementsZ[zidx];
-                    zidx += strideZ;
-                }
-            }
+            DoubleSpMV.gather(part, columns, alpha, beta, dcs.p, dcs.i, dcs.x, elementsY, zeroY, strideY,
+                    elementsZ, zeroZ, strideZ);
         }
         return z;
     }
@@ -870,7 +740,7 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         boolean ignore = (C == null);
         if (C == null) {
             if (B instanceof SparseCCDoubleMatrix2D) {
-                C = new SparseCCDoubleMatrix2D(rowsA, p, (rowsA * p));
+                C = new SparseCCDoubleMatrix2D(rowsA, p, 0);
             } else {
                 C = new DenseDoubleMatrix2D(rowsA, p);
             }
@@ -932,24 +802,28 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
             }
 
         } else if ((B instanceof SparseCCDoubleMatrix2D) && (C instanceof SparseCCDoubleMatrix2D)) {
-            SparseCCDoubleMatrix2D AA;
-            if (transposeA) {
-                AA = getTranspose();
-            } else {
-                AA = this;
-            }
+            SparseCCDoubleMatrix2D AA = transposeA ? getTranspose() : this;
             SparseCCDoubleMatrix2D BB = (SparseCCDoubleMatrix2D) B;
             if (transposeB) {
                 BB = BB.getTranspose();
             }
             SparseCCDoubleMatrix2D CC = (SparseCCDoubleMatrix2D) C;
-            CC.dcs = Dcs_multiply.cs_multiply(AA.dcs, BB.dcs);
-            if (CC.dcs == null) {
-                throw new IllegalArgumentException("Exception occured in cs_multiply()");
-            }
-            if (alpha != 1.0) {
-                CC.assign(cern.jet.math.tdouble.DoubleFunctions.mult(alpha));
-            }
+            // the column-compressed C is the row-compressed C' = op(B)' * op(A)'
+            int[] splits = DoubleSpGemm.split(p, BB.dcs.p, BB.dcs.i, AA.dcs.p);
+            int[] columnPointersC = DoubleSpGemm.symbolic(rowsA, BB.dcs.p, BB.dcs.i, AA.dcs.p, AA.dcs.i, splits);
+            int nnz = columnPointersC[p];
+            Dcs dcsC = new Dcs();
+            dcsC.m = rowsA;
+            dcsC.n = p;
+            dcsC.nzmax = nnz;
+            dcsC.nz = -1;
+            dcsC.p = columnPointersC;
+            dcsC.i = new int[nnz];
+            dcsC.x = new double[nnz];
+            DoubleSpGemm.numeric(rowsA, alpha, BB.dcs.p, BB.dcs.i, BB.dcs.x, AA.dcs.p, AA.dcs.i, AA.dcs.x,
+                    dcsC.p, dcsC.i, dcsC.x, false, splits);
+            CC.dcs = dcsC;
+            CC.rowIndexesSorted = true;
         } else {
             if (transposeB) {
                 B = B.viewDice();
@@ -983,11 +857,68 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         return C;
     }
 
+    /**
+     * Recomputes the values of <tt>C = alpha * op(A) * op(B)</tt> keeping the
+     * sparsity pattern of <tt>C</tt>, where <tt>A</tt> is this matrix. This is
+     * meant for repeated products of matrices whose values change but whose
+     * sparsity patterns do not: <tt>C</tt> is first computed by
+     * {@link #zMult(DoubleMatrix2D, DoubleMatrix2D, double, double, boolean, boolean)},
+     * then this method skips the symbolic phase and reuses the memory of
+     * <tt>C</tt>.
+     * 
+     * @param B
+     *            the second source matrix
+     * @param C
+     *            the matrix holding the pattern of the product and receiving
+     *            its values
+     * @param alpha
+     *            the scaling factor
+     * @param transposeA
+     *            whether A must be transposed
+     * @param transposeB
+     *            whether B must be transposed
+     * @return C (for convenience only)
+     * @throws IllegalArgumentException
+     *             if the dimensions do not agree, or if the product has a
+     *             nonzero element outside the pattern of <tt>C</tt>
+     */
+    public SparseCCDoubleMatrix2D zMultNumeric(SparseCCDoubleMatrix2D B, SparseCCDoubleMatrix2D C, double alpha,
+            boolean transposeA, boolean transposeB) {
+        SparseCCDoubleMatrix2D AA = transposeA ? getTranspose() : this;
+        SparseCCDoubleMatrix2D BB = transposeB ? B.getTranspose() : B;
+        if (AA.columns != BB.rows)
+            throw new IllegalArgumentException("Matrix2D inner dimensions must agree:" + AA.toStringShort() + ", "
+                    + BB.toStringShort());
+        if (C.rows != AA.rows || C.columns != BB.columns)
+            throw new IllegalArgumentException("Incompatible result matrix: " + AA.toStringShort() + ", "
+                    + BB.toStringShort() + ", " + C.toStringShort());
+        if (this == C || B == C)
+            throw new IllegalArgumentException("Matrices must not be identical");
+        int[] splits = DoubleSpGemm.split(BB.columns, BB.dcs.p, BB.dcs.i, AA.dcs.p);
+        DoubleSpGemm.numeric(AA.rows, alpha, BB.dcs.p, BB.dcs.i, BB.dcs.x, AA.dcs.p, AA.dcs.i, AA.dcs.x, C.dcs.p,
+                C.dcs.i, C.dcs.x, true, splits);
+        return C;
+    }
+
+    /**
+     * Returns the partition of the columns used by the parallel products,
+     * which is computed once per structure of this matrix.
+     */
+    private DoubleSpMV.Partition getPartition(int nparts) {
+        DoubleSpMV.Partition part = partition;
+        if (part == null || !part.isFor(dcs.p, columns, nparts)) {
+            part = DoubleSpMV.Partition.create(dcs.p, columns, nparts);
+            partition = part;
+        }
+        return part;
+    }
+
     protected DoubleMatrix2D getContent() {
         return this;
     }
 
     protected void insert(int row, int column, int index, double value) {
+        partition = null;
         IntArrayList rowIndexes = new IntArrayList(dcs.i);
         rowIndexes.setSizeRaw(dcs.p[columns]);
         DoubleArrayList values = new DoubleArrayList(dcs.x);
@@ -1002,6 +933,7 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
     }
 
     protected void remove(int column, int index) {
+        partition = null;
         IntArrayList rowIndexes = new IntArrayList(dcs.i);
         DoubleArrayList values = new DoubleArrayList(dcs.x);
         rowIndexes.remove(index);
@@ -1013,6 +945,18 @@ public class SparseCCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         dcs.nzmax = rowIndexes.elements().length;
     }
 
+    private void setStorage(DoubleCoo.Compressed c) {
+        partition = null;
+        dcs = new Dcs();
+        dcs.m = rows;
+        dcs.n = columns;
+        dcs.p = c.pointers;
+        dcs.i = c.indexes;
+        dcs.x = c.values;
+        dcs.nzmax = c.values.length;
+        dcs.nz = -1;
+    }
+
     private static int searchFromTo(int[] list, int key, int from, int to) {
         while (from <= to) {
             if (list[from] == key) {
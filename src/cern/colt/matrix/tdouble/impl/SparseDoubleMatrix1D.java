@@ -9,7 +9,7 @@ It is provided "as is" without expressed or implied warranty.
 package cern.colt.matrix.tdouble.impl;
 
 import cern.colt.map.tdouble.AbstractLongDoubleMap;
-import cern.colt.map.tdouble.OpenLongDoubleHashMap;
+import cern.colt.map.tdouble.LinearOpenLongDoubleHashMap;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.DoubleMatrix3D;
@@ -23,8 +23,8 @@ import cern.colt.matrix.tdouble.DoubleMatrix3D;
  * <b>Implementation:</b>
  * <p>
  * Note that this implementation is not synchronized. Uses a
- * {@link cern.colt.map.tdouble.OpenIntDoubleHashMap}, which is a compact and
- * performant hashing technique.
+ * {@link cern.colt.map.tdouble.LinearOpenLongDoubleHashMap}, which is a compact
+ * and performant hashing technique.
  * <p>
  * <b>Memory requirements:</b>
  * <p>
@@ -37,12 +37,15 @@ import cern.colt.matrix.tdouble.DoubleMatrix3D;
  * manually be reclaimed by calling {@link #trimToSize()}.
  * </ul>
  * <p>
- * worst case: <tt>memory [bytes] = (1/minLoadFactor) * nonZeros * 13</tt>. <br>
- * best case: <tt>memory [bytes] = (1/maxLoadFactor) * nonZeros * 13</tt>. <br>
+ * worst case: <tt>memory [bytes] = (2/minLoadFactor) * nonZeros * 16</tt>. <br>
+ * best case: <tt>memory [bytes] = (1/maxLoadFactor) * nonZeros * 16</tt>. <br>
  * Where <tt>nonZeros = cardinality()</tt> is the number of non-zero cells.
- * Thus, a 1000000 matrix with minLoadFactor=0.25 and maxLoadFactor=0.5 and
- * 1000000 non-zero cells consumes between 25 MB and 50 MB. The same 1000000
- * matrix with 1000 non-zero cells consumes between 25 and 50 KB.
+ * The capacity of the hash table is a power of two, so that its load can drop
+ * to half the minLoadFactor after growing.
+ * Thus, a 1000000 matrix with the default minLoadFactor=0.2 and
+ * maxLoadFactor=0.5 and 1000000 non-zero cells consumes between 32 MB and 160
+ * MB. The same 1000000 matrix with 1000 non-zero cells consumes between 32 and
+ * 160 KB.
  * <p>
  * <b>Time complexity:</b>
  * <p>
@@ -101,7 +104,7 @@ public class SparseDoubleMatrix1D extends DoubleMatrix1D {
     /**
      * Constructs a matrix with a given number of parameters. All entries are
      * initially <tt>0</tt>. For details related to memory usage see
-     * {@link cern.colt.map.tdouble.OpenIntDoubleHashMap}.
+     * {@link cern.colt.map.tdouble.LinearOpenLongDoubleHashMap}.
      * 
      * @param size
      *            the number of cells the matrix shall have.
@@ -122,7 +125,7 @@ public class SparseDoubleMatrix1D extends DoubleMatrix1D {
      */
     public SparseDoubleMatrix1D(int size, int initialCapacity, double minLoadFactor, double maxLoadFactor) {
         setUp(size);
-        this.elements = new OpenLongDoubleHashMap(initialCapacity, minLoadFactor, maxLoadFactor);
+        this.elements = new LinearOpenLongDoubleHashMap(initialCapacity, minLoadFactor, maxLoadFactor);
     }
 
     /**
@@ -9,14 +9,16 @@ It is provided "as is" without expressed or implied warranty.
 package cern.colt.matrix.tdouble.impl;
 
 import java.io.IOException;
+import java.util.concurrent.Future;
 
 import cern.colt.map.tdouble.AbstractLongDoubleMap;
-import cern.colt.map.tdouble.OpenLongDoubleHashMap;
+import cern.colt.map.tdouble.LinearOpenLongDoubleHashMap;
 import cern.colt.matrix.io.MatrixInfo;
 import cern.colt.matrix.io.MatrixSize;
 import cern.colt.matrix.io.MatrixVectorReader;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * Sparse hashed 2-d matrix holding <tt>double</tt> elements. First see the <a
@@ -26,8 +28,9 @@ import cern.colt.matrix.tdouble.DoubleMatrix2D;
  * <b>Implementation:</b>
  * <p>
  * Note that this implementation is not synchronized. Uses a
- * {@link cern.colt.map.tdouble.OpenLongDoubleHashMap}, which is a compact and
- * performant hashing technique.
+ * {@link cern.colt.map.tdouble.LinearOpenLongDoubleHashMap}, which is a compact
+ * and performant hashing technique. To assemble a matrix from many threads, use a
+ * {@link SparseDoubleMatrix2DBuilder}, which does not lock.
  * <p>
  * <b>Memory requirements:</b>
  * <p>
@@ -40,12 +43,15 @@ import cern.colt.matrix.tdouble.DoubleMatrix2D;
  * manually be reclaimed by calling {@link #trimToSize()}.
  * </ul>
  * <p>
- * worst case: <tt>memory [bytes] = (1/minLoadFactor) * nonZeros * 13</tt>. <br>
- * best case: <tt>memory [bytes] = (1/maxLoadFactor) * nonZeros * 13</tt>. <br>
+ * worst case: <tt>memory [bytes] = (2/minLoadFactor) * nonZeros * 16</tt>. <br>
+ * best case: <tt>memory [bytes] = (1/maxLoadFactor) * nonZeros * 16</tt>. <br>
  * Where <tt>nonZeros = cardinality()</tt> is the number of non-zero cells.
- * Thus, a 1000 x 1000 matrix with minLoadFactor=0.25 and maxLoadFactor=0.5 and
- * 1000000 non-zero cells consumes between 25 MB and 50 MB. The same 1000 x 1000
- * matrix with 1000 non-zero cells consumes between 25 and 50 KB.
+ * The capacity of the hash table is a power of two, so that its load can drop
+ * to half the minLoadFactor after growing.
+ * Thus, a 1000 x 1000 matrix with the default minLoadFactor=0.2 and
+ * maxLoadFactor=0.5 and 1000000 non-zero cells consumes between 32 MB and 160
+ * MB. The same 1000 x 1000 matrix with 1000 non-zero cells consumes between 32
+ * and 160 KB.
  * <p>
  * <b>Time complexity:</b>
  * <p>
@@ -82,7 +88,7 @@ import cern.colt.matrix.tdouble.DoubleMatrix2D;
  * </pre>
  * 
  * @see cern.colt.map
- * @see cern.colt.map.tdouble.OpenLongDoubleHashMap
+ * @see cern.colt.map.tdouble.LinearOpenLongDoubleHashMap
  * @author wolfgang.hoschek@cern.ch
  * @version 1.0, 09/24/99
  * 
@@ -139,7 +145,7 @@ public class SparseDoubleMatrix2D extends DoubleMatrix2D {
     /**
      * Constructs a matrix with a given number of rows and columns using memory
      * as specified. All entries are initially <tt>0</tt>. For details related
-     * to memory usage see {@link cern.colt.map.tdouble.OpenLongDoubleHashMap}.
+     * to memory usage see {@link cern.colt.map.tdouble.LinearOpenLongDoubleHashMap}.
      * 
      * @param rows
      *            the number of rows the matrix shall have.
@@ -169,7 +175,7 @@ public class SparseDoubleMatrix2D extends DoubleMatrix2D {
             if (!"matrix too large".equals(exc.getMessage()))
                 throw exc;
         }
-        this.elements = new OpenLongDoubleHashMap(initialCapacity, minLoadFactor, maxLoadFactor);
+        this.elements = new LinearOpenLongDoubleHashMap(initialCapacity, minLoadFactor, maxLoadFactor);
     }
 
     /**
@@ -193,7 +199,7 @@ public class SparseDoubleMatrix2D extends DoubleMatrix2D {
             if (!"matrix too large".equals(exc.getMessage()))
                 throw exc;
         }
-        this.elements = new OpenLongDoubleHashMap(rowIndexes.length);
+        this.elements = new LinearOpenLongDoubleHashMap(rowIndexes.length);
         insert(rowIndexes, columnIndexes, value);
     }
 
@@ -218,7 +224,7 @@ public class SparseDoubleMatrix2D extends DoubleMatrix2D {
             if (!"matrix too large".equals(exc.getMessage()))
                 throw exc;
         }
-        this.elements = new OpenLongDoubleHashMap(rowIndexes.length);
+        this.elements = new LinearOpenLongDoubleHashMap(rowIndexes.length);
         insert(rowIndexes, columnIndexes, values);
     }
 
@@ -256,9 +262,9 @@ public class SparseDoubleMatrix2D extends DoubleMatrix2D {
         double[] values = new double[numEntries];
         reader.readCoordinate(rowIndexes, columnIndexes, values);
         if (info.isSymmetric() || info.isSkewSymmetric()) {
-            this.elements = new OpenLongDoubleHashMap(2 * rowIndexes.length);
+            this.elements = new LinearOpenLongDoubleHashMap(2 * rowIndexes.length);
         } else {
-            this.elements = new OpenLongDoubleHashMap(rowIndexes.length);
+            this.elements = new LinearOpenLongDoubleHashMap(rowIndexes.length);
         }
         insert(rowIndexes, columnIndexes, values);
 
@@ -531,14 +537,12 @@ public class SparseDoubleMatrix2D extends DoubleMatrix2D {
         double[] values = elements.values().elements();
         int[] rowIndexes = new int[nnz];
         int[] columnIndexes = new int[nnz];
-
-        for (int k = 0; k < nnz; k++) {
-            long key = keys[k];
-            rowIndexes[k] = (int) (key / columns);
-            columnIndexes[k] = (int) (key % columns);
-        }
-        return new SparseCCDoubleMatrix2D(rows, columns, rowIndexes, columnIndexes, values, false, false,
-                sortRowIndexes);
+        decodeKeys(keys, nnz, rowIndexes, columnIndexes);
+        DoubleCoo.Compressed c = DoubleCoo.compress(columns, rows, columnIndexes, rowIndexes, values, nnz, false,
+                false, sortRowIndexes);
+        SparseCCDoubleMatrix2D A = new SparseCCDoubleMatrix2D(rows, columns, c.pointers, c.indexes, c.values);
+        A.rowIndexesSorted = sortRowIndexes;
+        return A;
     }
 
     /**
@@ -577,15 +581,14 @@ public class SparseDoubleMatrix2D extends DoubleMatrix2D {
         int nnz = cardinality();
         long[] keys = elements.keys().elements();
         double[] values = elements.values().elements();
-        final int[] rowIndexes = new int[nnz];
-        final int[] columnIndexes = new int[nnz];
-        for (int k = 0; k < nnz; k++) {
-            long key = keys[k];
-            rowIndexes[k] = (int) (key / columns);
-            columnIndexes[k] = (int) (key % columns);
-        }
-        return new SparseRCDoubleMatrix2D(rows, columns, rowIndexes, columnIndexes, values, false, false,
-                sortColumnIndexes);
+        int[] rowIndexes = new int[nnz];
+        int[] columnIndexes = new int[nnz];
+        decodeKeys(keys, nnz, rowIndexes, columnIndexes);
+        DoubleCoo.Compressed c = DoubleCoo.compress(rows, columns, rowIndexes, columnIndexes, values, nnz, false,
+                false, sortColumnIndexes);
+        SparseRCDoubleMatrix2D A = new SparseRCDoubleMatrix2D(rows, columns, c.pointers, c.indexes, c.values);
+        A.columnIndexesSorted = sortColumnIndexes;
+        return A;
     }
 
     /**
@@ -855,6 +858,38 @@ public class SparseDoubleMatrix2D extends DoubleMatrix2D {
         }
     }
 
+    /**
+     * Splits the first <tt>nnz</tt> keys into row and column indexes.
+     */
+    private void decodeKeys(final long[] keys, int nnz, final int[] rowIndexes, final int[] columnIndexes) {
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (nnz >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            nthreads = Math.min(nthreads, nnz);
+            Future<?>[] futures = new Future[nthreads];
+            int k = nnz / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstIdx = j * k;
+                final int lastIdx = (j == nthreads - 1) ? nnz : firstIdx + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        for (int i = firstIdx; i < lastIdx; i++) {
+                            long key = keys[i];
+                            rowIndexes[i] = (int) (key / columns);
+                            columnIndexes[i] = (int) (key % columns);
+                        }
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            for (int i = 0; i < nnz; i++) {
+                long key = keys[i];
+                rowIndexes[i] = (int) (key / columns);
+                columnIndexes[i] = (int) (key % columns);
+            }
+        }
+    }
+
     protected boolean haveSharedCellsRaw(DoubleMatrix2D other) {
         if (other instanceof SelectedSparseDoubleMatrix2D) {
             SelectedSparseDoubleMatrix2D otherMatrix = (SelectedSparseDoubleMatrix2D) other;
@@ -0,0 +1,265 @@
+package cern.colt.matrix.tdouble.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Builder assembling a sparse 2-d matrix holding <tt>double</tt> elements from
+ * many threads. First see the <a href="package-summary.html">package
+ * summary</a> and javadoc <a href="package-tree.html">tree view</a> to get the
+ * broad picture.
+ * <p>
+ * <b>Implementation:</b>
+ * <p>
+ * {@link #add(int, int, double)} may be called concurrently from any number of
+ * threads without locking: every thread appends its triplets to a coordinate
+ * (COO) buffer of its own. Values added more than once to the same cell are
+ * summed, which is the semantics needed to assemble finite element or
+ * co-occurrence matrices. The buffers are converted in parallel to a
+ * {@link SparseRCDoubleMatrix2D} by {@link #getRowCompressed(boolean)} or to a
+ * {@link SparseCCDoubleMatrix2D} by {@link #getColumnCompressed(boolean)}.
+ * Reading the resulting matrices does not involve the builder.
+ * <p>
+ * The conversion methods and {@link #clear()} must not run concurrently with
+ * {@link #add(int, int, double)}; all additions must have completed (e.g.
+ * by waiting for the tasks that performed them) before they are called.
+ * <p>
+ * <b>Memory requirements:</b>
+ * <p>
+ * <tt>memory [bytes] = 16 * number of added triplets</tt> (plus the unused
+ * capacity of the buffers), independently of the number of distinct cells.
+ *
+ * @see SparseDoubleMatrix2D
+ */
+public class SparseDoubleMatrix2DBuilder {
+
+    private final int rows;
+
+    private final int columns;
+
+    /*
+     * The buffers of all threads that added triplets.
+     */
+    private final ArrayList<Buffer> buffers = new ArrayList<Buffer>();
+
+    private final ThreadLocal<Buffer> buffer = new ThreadLocal<Buffer>() {
+        protected Buffer initialValue() {
+            Buffer b = new Buffer();
+            synchronized (buffers) {
+                buffers.add(b);
+            }
+            return b;
+        }
+    };
+
+    /**
+     * Coordinate buffer of a single thread.
+     */
+    private static final class Buffer {
+
+        int[] rowIndexes = new int[16];
+
+        int[] columnIndexes = new int[16];
+
+        double[] values = new double[16];
+
+        int size;
+
+        void add(int row, int column, double value) {
+            if (size == values.length) {
+                int capacity = (int) Math.min(2L * size, Integer.MAX_VALUE - 8);
+                if (capacity == size) {
+                    throw new IllegalStateException("Too many elements added by a single thread.");
+                }
+                rowIndexes = Arrays.copyOf(rowIndexes, capacity);
+                columnIndexes = Arrays.copyOf(columnIndexes, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            rowIndexes[size] = row;
+            columnIndexes[size] = column;
+            values[size++] = value;
+        }
+    }
+
+    /**
+     * Constructs a builder of a matrix with a given number of rows and
+     * columns.
+     *
+     * @param rows
+     *            the number of rows the matrix shall have.
+     * @param columns
+     *            the number of columns the matrix shall have.
+     * @throws IllegalArgumentException
+     *             if <tt>rows<0 || columns<0</tt> .
+     */
+    public SparseDoubleMatrix2DBuilder(int rows, int columns) {
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException("negative size");
+        }
+        this.rows = rows;
+        this.columns = columns;
+    }
+
+    /**
+     * Adds <tt>value</tt> to the cell at <tt>[row,column]</tt>. This method
+     * can be called concurrently from several threads.
+     *
+     * @param row
+     *            the index of the row-coordinate.
+     * @param column
+     *            the index of the column-coordinate.
+     * @param value
+     *            the value to be added.
+     * @throws IndexOutOfBoundsException
+     *             if
+     *             <tt>column&lt;0 || column&gt;=columns() || row&lt;0 || row&gt;=rows()</tt>
+     */
+    public void add(int row, int column, double value) {
+        if (column < 0 || column >= columns || row < 0 || row >= rows)
+            throw new IndexOutOfBoundsException("row:" + row + ", column:" + column);
+        buffer.get().add(row, column, value);
+    }
+
+    /**
+     * Removes all added triplets. The buffers are kept for reuse.
+     */
+    public void clear() {
+        synchronized (buffers) {
+            for (Buffer b : buffers) {
+                b.size = 0;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of columns of the matrix.
+     *
+     * @return the number of columns
+     */
+    public int columns() {
+        return columns;
+    }
+
+    /**
+     * Returns a new matrix holding the sums of the added values in a
+     * column-compressed form. Cells whose sum is zero are not stored.
+     *
+     * @param sortRowIndexes
+     *            if true, then row indexes in column compressed matrix are
+     *            sorted
+     *
+     * @return the matrix in a column-compressed form
+     */
+    public SparseCCDoubleMatrix2D getColumnCompressed(boolean sortRowIndexes) {
+        Buffer all = collect();
+        DoubleCoo.Compressed c = DoubleCoo.compress(columns, rows, all.columnIndexes, all.rowIndexes, all.values,
+                all.size, true, true, sortRowIndexes);
+        SparseCCDoubleMatrix2D A = new SparseCCDoubleMatrix2D(rows, columns, c.pointers, c.indexes, c.values);
+        A.rowIndexesSorted = sortRowIndexes;
+        return A;
+    }
+
+    /**
+     * Returns a new matrix holding the sums of the added values in a
+     * row-compressed form. Cells whose sum is zero are not stored.
+     *
+     * @param sortColumnIndexes
+     *            if true, then column indexes in row compressed matrix are
+     *            sorted
+     *
+     * @return the matrix in a row-compressed form
+     */
+    public SparseRCDoubleMatrix2D getRowCompressed(boolean sortColumnIndexes) {
+        Buffer all = collect();
+        DoubleCoo.Compressed c = DoubleCoo.compress(rows, columns, all.rowIndexes, all.columnIndexes, all.values,
+                all.size, true, true, sortColumnIndexes);
+        SparseRCDoubleMatrix2D A = new SparseRCDoubleMatrix2D(rows, columns, c.pointers, c.indexes, c.values);
+        A.columnIndexesSorted = sortColumnIndexes;
+        return A;
+    }
+
+    /**
+     * Returns the number of rows of the matrix.
+     *
+     * @return the number of rows
+     */
+    public int rows() {
+        return rows;
+    }
+
+    /**
+     * Returns the number of added triplets, including those added to the same
+     * cell more than once.
+     *
+     * @return the number of added triplets
+     */
+    public long size() {
+        long size = 0;
+        synchronized (buffers) {
+            for (Buffer b : buffers) {
+                size += b.size;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Returns a buffer holding the triplets of all threads, copying them in
+     * parallel if more than one thread added triplets.
+     */
+    private Buffer collect() {
+        final Buffer[] parts;
+        synchronized (buffers) {
+            parts = buffers.toArray(new Buffer[buffers.size()]);
+        }
+        long size = 0;
+        Buffer nonEmpty = null;
+        int count = 0;
+        for (Buffer b : parts) {
+            if (b.size > 0) {
+                size += b.size;
+                nonEmpty = b;
+                count++;
+            }
+        }
+        if (size > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("More than Integer.MAX_VALUE elements added.");
+        }
+        if (count == 1) {
+            return nonEmpty;
+        }
+        final Buffer all = new Buffer();
+        all.rowIndexes = new int[(int) size];
+        all.columnIndexes = new int[(int) size];
+        all.values = new double[(int) size];
+        all.size = (int) size;
+        boolean parallel = (ConcurrencyUtils.getNumberOfThreads() > 1)
+                && (size >= ConcurrencyUtils.getThreadsBeginN_2D());
+        Future<?>[] futures = new Future[parts.length];
+        int offset = 0;
+        for (int t = 0; t < parts.length; t++) {
+            final Buffer b = parts[t];
+            final int first = offset;
+            offset += b.size;
+            Runnable task = new Runnable() {
+                public void run() {
+                    System.arraycopy(b.rowIndexes, 0, all.rowIndexes, first, b.size);
+                    System.arraycopy(b.columnIndexes, 0, all.columnIndexes, first, b.size);
+                    System.arraycopy(b.values, 0, all.values, first, b.size);
+                }
+            };
+            if (parallel) {
+                futures[t] = ConcurrencyUtils.submit(task);
+            } else {
+                task.run();
+            }
+        }
+        if (parallel) {
+            ConcurrencyUtils.waitForCompletion(futures);
+        }
+        return all;
+    }
+}
@@ -15,7 +15,6 @@ import cern.colt.list.tdouble.DoubleArrayList;
 import cern.colt.list.tint.IntArrayList;
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
-import cern.jet.math.tdouble.DoubleFunctions;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
@@ -155,6 +154,12 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
 
     protected boolean columnIndexesSorted = false;
 
+    /*
+     * Cached partition of the rows for parallel products, rebuilt when the
+     * structure changes.
+     */
+    private transient DoubleSpMV.Partition partition;
+
     /**
      * Constructs a matrix with a copy of the given values. <tt>values</tt> is
      * required to have the form <tt>values[row][column]</tt> and have exactly
@@ -255,20 +260,11 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
             throw new IllegalArgumentException("value cannot be 0");
         }
 
-        int nz = Math.max(rowIndexes.length, 1);
-        this.columnIndexes = new int[nz];
-        this.values = new double[nz];
-        this.rowPointers = new int[rows + 1];
-        int[] w = new int[rows];
-        int r;
-        for (int k = 0; k < nz; k++) {
-            w[rowIndexes[k]]++;
-        }
-        cumsum(this.rowPointers, w, rows);
-        for (int k = 0; k < nz; k++) {
-            this.columnIndexes[r = w[rowIndexes[k]]++] = columnIndexes[k];
-            this.values[r] = value;
-        }
+        DoubleCoo.Compressed c = DoubleCoo.compress(rows, columns, rowIndexes, columnIndexes, null, value,
+                rowIndexes.length);
+        this.rowPointers = c.pointers;
+        this.columnIndexes = c.indexes;
+        this.values = c.values;
         if (removeDuplicates) {
             removeDuplicates();
         }
@@ -312,20 +308,11 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         } else if (rowIndexes.length != values.length) {
             throw new IllegalArgumentException("rowIndexes.length != values.length");
         }
-        int nz = Math.max(rowIndexes.length, 1);
-        this.columnIndexes = new int[nz];
-        this.values = new double[nz];
-        this.rowPointers = new int[rows + 1];
-        int[] w = new int[rows];
-        int r;
-        for (int k = 0; k < nz; k++) {
-            w[rowIndexes[k]]++;
-        }
-        cumsum(this.rowPointers, w, rows);
-        for (int k = 0; k < nz; k++) {
-            this.columnIndexes[r = w[rowIndexes[k]]++] = columnIndexes[k];
-            this.values[r] = values[k];
-        }
+        DoubleCoo.Compressed c = DoubleCoo.compress(rows, columns, rowIndexes, columnIndexes, values, 0,
+                rowIndexes.length);
+        this.rowPointers = c.pointers;
+        this.columnIndexes = c.indexes;
+        this.values = c.values;
         if (removeZeroes) {
             removeZeroes();
         }
@@ -589,12 +576,8 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
      * @return this matrix in a column-compressed form
      */
     public SparseCCDoubleMatrix2D getColumnCompressed() {
-        SparseRCDoubleMatrix2D tr = getTranspose();
-        SparseCCDoubleMatrix2D cc = new SparseCCDoubleMatrix2D(rows, columns);
-        cc.dcs.i = tr.columnIndexes;
-        cc.dcs.p = tr.rowPointers;
-        cc.dcs.x = tr.values;
-        cc.dcs.nzmax = tr.values.length;
+        DoubleCoo.Compressed c = DoubleCoo.transpose(rows, columns, rowPointers, columnIndexes, values);
+        SparseCCDoubleMatrix2D cc = new SparseCCDoubleMatrix2D(rows, columns, c.pointers, c.indexes, c.values);
         cc.rowIndexesSorted = true;
         return cc;
     }
@@ -653,29 +636,8 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
      * @return the transpose of this matrix
      */
     public SparseRCDoubleMatrix2D getTranspose() {
-        int nnz = rowPointers[rows];
-        int[] w = new int[columns];
-        int[] rowPointersT = new int[columns + 1];
-        int[] columnIndexesT = new int[nnz];
-        double[] valuesT = new double[nnz];
-
-        for (int p = 0; p < nnz; p++) {
-            w[columnIndexes[p]]++;
-        }
-        cumsum(rowPointersT, w, columns);
-        int q;
-        for (int j = 0; j < rows; j++) {
-            int high = rowPointers[j + 1];
-            for (int p = rowPointers[j]; p < high; p++) {
-                columnIndexesT[q = w[columnIndexes[p]]++] = j;
-                valuesT[q] = values[p];
-            }
-        }
-        SparseRCDoubleMatrix2D T = new SparseRCDoubleMatrix2D(columns, rows);
-        T.rowPointers = rowPointersT;
-        T.columnIndexes = columnIndexesT;
-        T.values = valuesT;
-        return T;
+        DoubleCoo.Compressed c = DoubleCoo.transpose(rows, columns, rowPointers, columnIndexes, values);
+        return new SparseRCDoubleMatrix2D(columns, rows, c.pointers, c.indexes, c.values);
     }
 
     /**
@@ -708,32 +670,19 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
      * Removes (sums) duplicate entries (if any}
      */
     public void removeDuplicates() {
-        int nz = 0;
-        int q, i;
-        int[] w = new int[columns]; /* get workspace */
-        for (i = 0; i < columns; i++)
-            w[i] = -1; /* column i not yet seen */
-        for (int j = 0; j < rows; j++) {
-            q = nz; /* row j will start at q */
-            for (int p = rowPointers[j]; p < rowPointers[j + 1]; p++) {
-                i = columnIndexes[p]; /* A(i,j) is nonzero */
-                if (w[i] >= q) {
-                    values[w[i]] += values[p]; /* A(i,j) is a duplicate */
-                } else {
-                    w[i] = nz; /* record where column i occurs */
-                    columnIndexes[nz] = i; /* keep A(i,j) */
-                    values[nz++] = values[p];
-                }
-            }
-            rowPointers[j] = q; /* record start of row j */
-        }
-        rowPointers[rows] = nz; /* finalize A */
+        partition = null;
+        DoubleCoo.Compressed c = DoubleCoo.sumDuplicates(rows, columns, rowPointers, columnIndexes, values,
+                values.length);
+        rowPointers = c.pointers;
+        columnIndexes = c.indexes;
+        values = c.values;
     }
 
     /**
      * Removes zero entries (if any)
      */
     public void removeZeroes() {
+        partition = null;
         int nz = 0;
         double eps = Math.pow(2, -52);
         for (int j = 0; j < rows; j++) {
@@ -771,25 +720,12 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
      * Sorts column indexes
      */
     public void sortColumnIndexes() {
-        SparseRCDoubleMatrix2D T = getTranspose();
-        this.rows = T.rows;
-        this.columns = T.columns;
-        this.columnIndexes = T.columnIndexes;
-        this.rowPointers = T.rowPointers;
-        this.values = T.values;
-        //        System.arraycopy(T.columnIndexes, 0, this.columnIndexes, 0, T.columnIndexes.length);
-        //        System.arraycopy(T.rowPointers, 0, this.rowPointers, 0, T.rowPointers.length);
-        //        System.arraycopy(T.values, 0, this.values, 0, T.values.length);
-        T = getTranspose();
-        this.rows = T.rows;
-        this.columns = T.columns;
-        this.columnIndexes = T.columnIndexes;
-        this.rowPointers = T.rowPointers;
-        this.values = T.values;
+        DoubleCoo.Compressed t = DoubleCoo.transpose(rows, columns, rowPointers, columnIndexes, values);
+        t = DoubleCoo.transpose(columns, rows, t.pointers, t.indexes, t.values);
+        this.columnIndexes = t.indexes;
+        this.rowPointers = t.pointers;
+        this.values = t.values;
         columnIndexesSorted = true;
-        //        System.arraycopy(T.columnIndexes, 0, this.columnIndexes, 0, T.columnIndexes.length);
-        //        System.arraycopy(T.rowPointers, 0, this.rowPointers, 0, T.rowPointers.length);
-        //        System.arraycopy(T.values, 0, this.values, 0, T.values.length);
     }
 
     public String toString() {
@@ -837,188 +773,20 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         final double[] elementsY = yy.elements;
         final int strideY = yy.stride();
         final int zeroY = (int) y.index(0);
+        DoubleSpMV.Partition part = null;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (cardinality() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            part = getPartition(nthreads);
+        }
 
         if (transposeA) {
             if ((!ignore) && (beta != 1.0))
                 z.assign(cern.jet.math.tdouble.DoubleFunctions.mult(beta));
-
-            if ((nthreads > 1) && (cardinality() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-                nthreads = 2;
-                Future<?>[] futures = new Future[nthreads];
-                final double[] result = new double[rowsA];
-                int k = rows / nthreads;
-                for (int j = 0; j < nthreads; j++) {
-                    final int firstRow = j * k;
-                    final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                    final int threadID = j;
-                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                        public void run() {
-                            if (threadID == 0) {
-                                for (int i = firstRow; i < lastRow; i++) {
-                                    int high = rowPointers[i + 1];
-                                    double yElem = alpha * elementsY[zeroY + strideY * i];
-                                    for (int k = rowPointers[i]; k < high; k++) {
-                                        int j = columnIndexes[k];
-                                        elementsZ[zeroZ + strideZ * j] += values[k] * yElem;
-                                    }
-                                }
-                            } else {
-                                for (int i = firstRow; i < lastRow; i++) {
-                                    int high = rowPointers[i + 1];
-                                    double yElem = alpha * elementsY[zeroY + strideY * i];
-                                    for (int k = rowPointers[i]; k < high; k++) {
-                                        int j = columnIndexes[k];
-                                        result[j] += values[k] * yElem;
-                                    }
-                                }
-                            }
-                        }
-                    });
-                }
-                ConcurrencyUtils.waitForCompletion(futures);
-                int rem = rowsA % 10;
-                for (int j = rem; j < rowsA; j += 10) {
-                    elementsZ[zeroZ + j * strideZ] += result[j];
-                    elementsZ[zeroZ + (j + 1) * strideZ] += result[j + 1];
-                    elementsZ[zeroZ + (j + 2) * strideZ] += result[j + 2];
-                    elementsZ[zeroZ + (j + 3) * strideZ] += result[j + 3];
-                    elementsZ[zeroZ + (j + 4) * strideZ] += result[j + 4];
-                    elementsZ[zeroZ + (j + 5) * strideZ] += result[j + 5];
-                    elementsZ[zeroZ + (j + 6) * strideZ] += result[j + 6];
-                    elementsZ[zeroZ + (j + 7) * strideZ] += result[j + 7];
-                    elementsZ[zeroZ + (j + 8) * strideZ] += result[j + 8];
-                    elementsZ[zeroZ + (j + 9) * strideZ] += result[j + 9];
-                }
-                for (int j = 0; j < rem; j++) {
-                    elementsZ[zeroZ + j * strideZ] += result[j];
-                }
-            } else {
-                for (int i = 0; i < rows; i++) {
-                    int high = rowPointers[i + 1];
-                    double yElem = alpha * elementsY[zeroY + strideY * i];
-                    for (int k = rowPointers[i]; k < high; k++) {
-                        int j = columnIndexes[k];
-                        elementsZ[zeroZ + strideZ * j] += values[k] * yElem;
-                    }
-                }
-            }
-
-            return z;
-        }
-
-        if ((nthreads > 1) && (cardinality() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        int zidx = zeroZ + firstRow * strideZ;
-                        int k = rowPointers[firstRow];
-                        if (beta == 0.0) {
-                            for (int i = firstRow; i < lastRow; i++) {
-                                double sum = 0;
-                                int high = rowPointers[i + 1];
-                                for (; k + 10 < high; k += 10) {
-                                    int ind = k + 9;
-                                    sum += values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]];
-                                }
-                                for (; k < high; k++) {
-                                    sum += values[k] * elementsY[columnIndexes[k]];
-                                }
-                                elementsZ[zidx] = alpha * sum;
-                                zidx += strideZ;
-                            }
-                        } else {
-                            for (int i = firstRow; i < lastRow; i++) {
-                                double sum = 0;
-                                int high = rowPointers[i + 1];
-                                for (; k + 10 < high; k += 10) {
-                                    int ind = k + 9;
-                                    sum += values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]]
-                                            + values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]];
-                                }
-                                for (; k < high; k++) {
-                                    sum += values[k] * elementsY[columnIndexes[k]];
-                                }
-                                elementsZ[zidx] = alpha * sum + beta * elementsZ[zidx];
-                                zidx += strideZ;
-                            }
-                        }
-                    }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
+            DoubleSpMV.scatter(part, rows, rowsA, alpha, rowPointers, columnIndexes, values, elementsY, zeroY,
+                    strideY, elementsZ, zeroZ, strideZ);
         } else {
-            int zidx = zeroZ;
-            int k = rowPointers[0];
-            if (beta == 0.0) {
-                for (int i = 0; i < rows; i++) {
-                    double sum = 0;
-                    int high = rowPointers[i + 1];
-                    for (; k + 10 < high; k += 10) {
-                        int ind = k + 9;
-                        sum += values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]];
-                    }
-                    for (; k < high; k++) {
-                        sum += values[k] * elementsY[columnIndexes[k]];
-                    }
-                    elementsZ[zidx] = alpha * sum;
-                    zidx += strideZ;
-                }
-            } else {
-                for (int i = 0; i < rows; i++) {
-                    double sum = 0;
-                    int high = rowPointers[i + 1];
-                    for (; k + 10 < high; k += 10) {
-                        int ind = k + 9;
-                        sum += values[ind] * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]] + values[ind]
-                                * elementsY[zeroY + strideY * columnIndexes[ind--]];
-                    }
-                    for (; k < high; k++) {
-                        sum += values[k] * elementsY[columnIndexes[k]];
-                    }
-                    elementsZ[zidx] = alpha * sum + beta * elementsZ[zidx];
-                    zidx += strideZ;
-                }
-            }
+            DoubleSpMV.gather(part, rows, alpha, beta, rowPointers, columnIndexes, values, elementsY, zeroY,
+                    strideY, elementsZ, zeroZ, strideZ);
         }
         return z;
     }
@@ -1041,7 +809,7 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         boolean ignore = (C == null);
         if (C == null) {
             if (B instanceof SparseRCDoubleMatrix2D) {
-                C = new SparseRCDoubleMatrix2D(rowsA, p, (rowsA * p));
+                C = new SparseRCDoubleMatrix2D(rowsA, p, 0);
             } else {
                 C = new DenseDoubleMatrix2D(rowsA, p);
             }
@@ -1060,105 +828,27 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
             C.assign(cern.jet.math.tdouble.DoubleFunctions.mult(beta));
         }
 
-        if ((B instanceof DenseDoubleMatrix2D) && (C instanceof DenseDoubleMatrix2D)) {
-            SparseRCDoubleMatrix2D AA;
-            if (transposeA) {
-                AA = getTranspose();
-            } else {
-                AA = this;
-            }
-            DenseDoubleMatrix2D BB;
-            if (transposeB) {
-                BB = (DenseDoubleMatrix2D) B.viewDice();
-            } else {
-                BB = (DenseDoubleMatrix2D) B;
-            }
-
-            DenseDoubleMatrix2D CC = (DenseDoubleMatrix2D) C;
-            int[] rowPointersA = AA.rowPointers;
-            int[] columnIndexesA = AA.columnIndexes;
-            double[] valuesA = AA.values;
-
-            for (int ii = 0; ii < rowsA; ii++) {
-                int highA = rowPointersA[ii + 1];
-                for (int ka = rowPointersA[ii]; ka < highA; ka++) {
-                    double scal = valuesA[ka] * alpha;
-                    int jj = columnIndexesA[ka];
-                    CC.viewRow(ii).assign(BB.viewRow(jj), DoubleFunctions.plusMultSecond(scal));
-                }
-            }
+        if (DoubleGemm.isDense(B) && DoubleGemm.isDense(C)) {
+            zMultDense(B, C, alpha, transposeA, transposeB);
         } else if ((B instanceof SparseRCDoubleMatrix2D) && (C instanceof SparseRCDoubleMatrix2D)) {
-            SparseRCDoubleMatrix2D AA;
-            SparseRCDoubleMatrix2D BB;
-            SparseRCDoubleMatrix2D CC = (SparseRCDoubleMatrix2D) C;
-            if (transposeA) {
-                AA = getTranspose();
-            } else {
-                AA = this;
-            }
+            SparseRCDoubleMatrix2D AA = transposeA ? getTranspose() : this;
+            SparseRCDoubleMatrix2D BB = (SparseRCDoubleMatrix2D) B;
             if (transposeB) {
-                BB = ((SparseRCDoubleMatrix2D) B).getTranspose();
-            } else {
-                BB = (SparseRCDoubleMatrix2D) B;
+                BB = BB.getTranspose();
             }
-
-            int[] rowPointersA = AA.rowPointers;
-            int[] columnIndexesA = AA.columnIndexes;
-            double[] valuesA = AA.values;
-
-            int[] rowPointersB = BB.rowPointers;
-            int[] columnIndexesB = BB.columnIndexes;
-            double[] valuesB = BB.values;
-
-            int[] rowPointersC = CC.rowPointers;
-            int[] columnIndexesC = CC.columnIndexes;
-            double[] valuesC = CC.values;
-            int nzmax = valuesC.length;
-
-            int[] iw = new int[columnsB + 1];
-            for (int i = 0; i < iw.length; i++) {
-                iw[i] = -1;
-            }
-            int len = -1;
-            for (int ii = 0; ii < rowsA; ii++) {
-                int highA = rowPointersA[ii + 1];
-                for (int ka = rowPointersA[ii]; ka < highA; ka++) {
-                    double scal = valuesA[ka] * alpha;
-                    int jj = columnIndexesA[ka];
-                    int highB = rowPointersB[jj + 1];
-                    for (int kb = rowPointersB[jj]; kb < highB; kb++) {
-                        int jcol = columnIndexesB[kb];
-                        int jpos = iw[jcol];
-                        if (jpos == -1) {
-                            len++;
-                            if (len >= nzmax) {
-                                throw new IllegalArgumentException(
-                                        "The max number of nonzero elements in C is too small.");
-                            }
-                            columnIndexesC[len] = jcol;
-                            iw[jcol] = len;
-                            valuesC[len] = scal * valuesB[kb];
-                        } else {
-                            valuesC[jpos] += scal * valuesB[kb];
-                        }
-                    }
-                }
-                for (int k = rowPointersC[ii]; k < len + 1; k++) {
-                    iw[columnIndexesC[k]] = -1;
-                }
-                rowPointersC[ii + 1] = len + 1;
-
-                //                int length = rowPointersC[ii + 1] - rowPointersC[ii];
-                //                IntMatrix1D columnIndexesCPart = columnIndexesC.viewPart(rowPointersC[ii], length);
-                //                int[] indexes = cern.colt.matrix.tint.algo.IntSorting.quickSort.sortIndex(columnIndexesCPart);
-                //                Arrays.sort(columnIndexesCElements, rowPointersC[ii], rowPointersC[ii + 1]);
-                //                DoubleMatrix1D valuesCPart = valuesC.viewPart(rowPointersC[ii], length).viewSelection(indexes);
-                //                valuesC.viewPart(rowPointersC[ii], length).assign(valuesCPart);
-            }
-            //            CC.columnIndexes.elements((int[]) columnIndexesC.elements());
-            //            CC.columnIndexes.setSize(columnIndexesSize);
-            //            CC.values.elements((double[]) valuesC.elements());
-            //            CC.values.setSize(columnIndexesSize);
+            SparseRCDoubleMatrix2D CC = (SparseRCDoubleMatrix2D) C;
+            int[] splits = DoubleSpGemm.split(rowsA, AA.rowPointers, AA.columnIndexes, BB.rowPointers);
+            int[] rowPointersC = DoubleSpGemm.symbolic(columnsB, AA.rowPointers, AA.columnIndexes, BB.rowPointers,
+                    BB.columnIndexes, splits);
+            int nnz = rowPointersC[rowsA];
+            int[] columnIndexesC = new int[nnz];
+            double[] valuesC = new double[nnz];
+            DoubleSpGemm.numeric(columnsB, alpha, AA.rowPointers, AA.columnIndexes, AA.values, BB.rowPointers,
+                    BB.columnIndexes, BB.values, rowPointersC, columnIndexesC, valuesC, false, splits);
+            CC.rowPointers = rowPointersC;
+            CC.columnIndexes = columnIndexesC;
+            CC.values = valuesC;
+            CC.columnIndexesSorted = true;
         } else {
             if (transposeB) {
                 B = B.viewDice();
@@ -1191,17 +881,181 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
         return C;
     }
 
-    private double cumsum(int[] p, int[] c, int n) {
-        int nz = 0;
-        double nz2 = 0;
-        for (int k = 0; k < n; k++) {
-            p[k] = nz;
-            nz += c[k];
-            nz2 += c[k];
-            c[k] = p[k];
+    /**
+     * Recomputes the values of <tt>C = alpha * op(A) * op(B)</tt> keeping the
+     * sparsity pattern of <tt>C</tt>, where <tt>A</tt> is this matrix. This is
+     * meant for repeated products of matrices whose values change but whose
+     * sparsity patterns do not: <tt>C</tt> is first computed by
+     * {@link #zMult(DoubleMatrix2D, DoubleMatrix2D, double, double, boolean, boolean)},
+     * then this method skips the symbolic phase and reuses the memory of
+     * <tt>C</tt>.
+     * 
+     * @param B
+     *            the second source matrix
+     * @param C
+     *            the matrix holding the pattern of the product and receiving
+     *            its values
+     * @param alpha
+     *            the scaling factor
+     * @param transposeA
+     *            whether A must be transposed
+     * @param transposeB
+     *            whether B must be transposed
+     * @return C (for convenience only)
+     * @throws IllegalArgumentException
+     *             if the dimensions do not agree, or if the product has a
+     *             nonzero element outside the pattern of <tt>C</tt>
+     */
+    public SparseRCDoubleMatrix2D zMultNumeric(SparseRCDoubleMatrix2D B, SparseRCDoubleMatrix2D C, double alpha,
+            boolean transposeA, boolean transposeB) {
+        SparseRCDoubleMatrix2D AA = transposeA ? getTranspose() : this;
+        SparseRCDoubleMatrix2D BB = transposeB ? B.getTranspose() : B;
+        if (AA.columns != BB.rows)
+            throw new IllegalArgumentException("Matrix2D inner dimensions must agree:" + AA.toStringShort() + ", "
+                    + BB.toStringShort());
+        if (C.rows != AA.rows || C.columns != BB.columns)
+            throw new IllegalArgumentException("Incompatible result matrix: " + AA.toStringShort() + ", "
+                    + BB.toStringShort() + ", " + C.toStringShort());
+        if (this == C || B == C)
+            throw new IllegalArgumentException("Matrices must not be identical");
+        int[] splits = DoubleSpGemm.split(AA.rows, AA.rowPointers, AA.columnIndexes, BB.rowPointers);
+        DoubleSpGemm.numeric(BB.columns, alpha, AA.rowPointers, AA.columnIndexes, AA.values, BB.rowPointers,
+                BB.columnIndexes, BB.values, C.rowPointers, C.columnIndexes, C.values, true, splits);
+        return C;
+    }
+
+    /**
+     * C += alpha * op(A) * op(B) for dense B and C. The elements of B and C are
+     * addressed through their strides, so views and transposes are handled
+     * without copying. Without transposition the rows of C are split into
+     * ranges holding about the same number of nonzeros of A; with
+     * transposition the rows of A scatter into arbitrary rows of C, so the
+     * columns of C are split instead. Each task then scans all of A, so it
+     * gets at least eight columns (a cache line of a row-major C), and the
+     * ranges start at multiples of eight columns.
+     */
+    private void zMultDense(DoubleMatrix2D B, DoubleMatrix2D C, final double alpha, final boolean transposeA,
+            boolean transposeB) {
+        final double[] elementsB = (double[]) B.elements();
+        final int zeroB = (int) B.index(0, 0);
+        final int rowStrideB = transposeB ? B.columnStride() : B.rowStride();
+        final int columnStrideB = transposeB ? B.rowStride() : B.columnStride();
+        final double[] elementsC = (double[]) C.elements();
+        final int zeroC = (int) C.index(0, 0);
+        final int rowStrideC = C.rowStride();
+        final int columnStrideC = C.columnStride();
+        final int p = C.columns();
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if (transposeA) {
+            nthreads = Math.min(nthreads, p / 8);
+        }
+        if ((nthreads > 1) && ((long) cardinality() * p >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            Future<?>[] futures;
+            if (transposeA) {
+                futures = new Future[nthreads];
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstColumn = (int) ((long) j * p / nthreads) & ~7;
+                    final int lastColumn = (j == nthreads - 1) ? p : (int) ((long) (j + 1) * p / nthreads) & ~7;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            zMultDenseTransposed(0, rows, firstColumn, lastColumn, alpha, elementsB, zeroB,
+                                    rowStrideB, columnStrideB, elementsC, zeroC, rowStrideC, columnStrideC);
+                        }
+                    });
+                }
+            } else {
+                DoubleSpMV.Partition part = getPartition(nthreads);
+                futures = new Future[part.size()];
+                for (int j = 0; j < futures.length; j++) {
+                    final int firstRow = part.rows[j];
+                    final int lastRow = part.rows[j + 1];
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            zMultDense(firstRow, lastRow, 0, p, alpha, elementsB, zeroB, rowStrideB, columnStrideB,
+                                    elementsC, zeroC, rowStrideC, columnStrideC);
+                        }
+                    });
+                }
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else if (transposeA) {
+            zMultDenseTransposed(0, rows, 0, p, alpha, elementsB, zeroB, rowStrideB, columnStrideB, elementsC, zeroC,
+                    rowStrideC, columnStrideC);
+        } else {
+            zMultDense(0, rows, 0, p, alpha, elementsB, zeroB, rowStrideB, columnStrideB, elementsC, zeroC,
+                    rowStrideC, columnStrideC);
+        }
+    }
+
+    /**
+     * C[i][c] += alpha * A[i][j] * B[j][c] for rows i in
+     * [firstRow, lastRow) and columns c in [firstColumn, lastColumn).
+     */
+    private void zMultDense(int firstRow, int lastRow, int firstColumn, int lastColumn, double alpha,
+            double[] elementsB, int zeroB, int rowStrideB, int columnStrideB, double[] elementsC, int zeroC,
+            int rowStrideC, int columnStrideC) {
+        for (int i = firstRow; i < lastRow; i++) {
+            int high = rowPointers[i + 1];
+            int idxC = zeroC + i * rowStrideC + firstColumn * columnStrideC;
+            for (int k = rowPointers[i]; k < high; k++) {
+                int idxB = zeroB + columnIndexes[k] * rowStrideB + firstColumn * columnStrideB;
+                axpy(lastColumn - firstColumn, alpha * values[k], elementsB, idxB, columnStrideB, elementsC, idxC,
+                        columnStrideC);
+            }
+        }
+    }
+
+    /**
+     * C[j][c] += alpha * A[i][j] * B[i][c] for rows i in
+     * [firstRow, lastRow) and columns c in [firstColumn, lastColumn).
+     */
+    private void zMultDenseTransposed(int firstRow, int lastRow, int firstColumn, int lastColumn, double alpha,
+            double[] elementsB, int zeroB, int rowStrideB, int columnStrideB, double[] elementsC, int zeroC,
+            int rowStrideC, int columnStrideC) {
+        for (int i = firstRow; i < lastRow; i++) {
+            int high = rowPointers[i + 1];
+            int idxB = zeroB + i * rowStrideB + firstColumn * columnStrideB;
+            for (int k = rowPointers[i]; k < high; k++) {
+                int idxC = zeroC + columnIndexes[k] * rowStrideC + firstColumn * columnStrideC;
+                axpy(lastColumn - firstColumn, alpha * values[k], elementsB, idxB, columnStrideB, elementsC, idxC,
+                        columnStrideC);
+            }
+        }
+    }
+
+    private static void axpy(int n, double a, double[] x, int idxX, int strideX, double[] y, int idxY, int strideY) {
+        if (strideX == 1 && strideY == 1) {
+            int end = idxY + n - 3;
+            for (; idxY < end; idxX += 4, idxY += 4) {
+                y[idxY] += a * x[idxX];
+                y[idxY + 1] += a * x[idxX + 1];
+                y[idxY + 2] += a * x[idxX + 2];
+                y[idxY + 3] += a * x[idxX + 3];
+            }
+            end += 3;
+            for (; idxY < end; idxX++, idxY++) {
+                y[idxY] += a * x[idxX];
+            }
+        } else {
+            for (int c = 0; c < n; c++) {
+                y[idxY] += a * x[idxX];
+                idxX += strideX;
+                idxY += strideY;
+            }
+        }
+    }
+
+    /**
+     * Returns the partition of the rows used by the parallel products, which
+     * is computed once per structure of this matrix.
+     */
+    private DoubleSpMV.Partition getPartition(int nparts) {
+        DoubleSpMV.Partition part = partition;
+        if (part == null || !part.isFor(rowPointers, rows, nparts)) {
+            part = DoubleSpMV.Partition.create(rowPointers, rows, nparts);
+            partition = part;
         }
-        p[n] = nz;
-        return (nz2);
+        return part;
     }
 
     private void realloc(int nzmax) {
@@ -1222,6 +1076,7 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
     }
 
     protected void insert(int row, int column, int index, double value) {
+        partition = null;
         IntArrayList columnIndexesList = new IntArrayList(columnIndexes);
         columnIndexesList.setSizeRaw(rowPointers[rows]);
         DoubleArrayList valuesList = new DoubleArrayList(values);
@@ -1235,6 +1090,7 @@ public class SparseRCDoubleMatrix2D extends WrapperDoubleMatrix2D {
     }
 
     protected void remove(int row, int index) {
+        partition = null;
         IntArrayList columnIndexesList = new IntArrayList(columnIndexes);
         columnIndexesList.setSizeRaw(rowPointers[rows]);
         DoubleArrayList valuesList = new DoubleArrayList(values);
@@ -23,6 +23,7 @@ import cern.jet.math.tfcomplex.FComplex;
 import cern.jet.math.tfcomplex.FComplexFunctions;
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 1-d matrix (aka <i>vector</i>) holding <tt>complex</tt> elements.
@@ -39,8 +40,6 @@ public class DenseFComplexMatrix1D extends FComplexMatrix1D {
 
     private static final long serialVersionUID = 1L;
 
-    private FloatFFT_1D fft;
-
     /**
      * The elements of this matrix. Complex data is represented by 2 float
      * values in sequence, i.e. elements[zero + 2 * k * stride] constitute real
@@ -839,19 +838,24 @@ public class DenseFComplexMatrix1D extends FComplexMatrix1D {
      * number.
      */
     public void fft() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft == null) {
-            fft = new FloatFFT_1D(size);
-        }
-        if (isNoView) {
-            fft.complexForward(elements);
-        } else {
-            FComplexMatrix1D copy = this.copy();
-            fft.complexForward((float[]) copy.elements());
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_1D fft = TransformPlanCache.acquire(FloatFFT_1D.class, size);
+            try {
+                if (isNoView) {
+                    fft.complexForward(elements);
+                } else {
+                    FComplexMatrix1D copy = this.copy();
+                    fft.complexForward((float[]) copy.elements());
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public float[] elements() {
@@ -966,19 +970,24 @@ public class DenseFComplexMatrix1D extends FComplexMatrix1D {
      *            if true, then scaling is performed.
      */
     public void ifft(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft == null) {
-            fft = new FloatFFT_1D(size);
-        }
-        if (isNoView) {
-            fft.complexInverse(elements, scale);
-        } else {
-            FComplexMatrix1D copy = this.copy();
-            fft.complexInverse((float[]) copy.elements(), scale);
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_1D fft = TransformPlanCache.acquire(FloatFFT_1D.class, size);
+            try {
+                if (isNoView) {
+                    fft.complexInverse(elements, scale);
+                } else {
+                    FComplexMatrix1D copy = this.copy();
+                    fft.complexInverse((float[]) copy.elements(), scale);
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public FComplexMatrix1D like(int size) {
@@ -14,6 +14,7 @@ import cern.colt.matrix.tfcomplex.FComplexMatrix3D;
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_2D;
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_3D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 3-d matrix holding <tt>complex</tt> elements.<br>
@@ -35,10 +36,6 @@ public class DenseLargeFComplexMatrix3D extends WrapperFComplexMatrix3D {
 
     private float[][][] elements;
 
-    private FloatFFT_3D fft3;
-
-    private FloatFFT_2D fft2Slices;
-
     public DenseLargeFComplexMatrix3D(int slices, int rows, int columns) {
         super(null);
         try {
@@ -70,36 +67,43 @@ public class DenseLargeFComplexMatrix3D extends WrapperFComplexMatrix3D {
      */
 
     public void fft2Slices() {
-        if (fft2Slices == null) {
-            fft2Slices = new FloatFFT_2D(rows, columns);
-        }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            fft2Slices.complexForward(elements[s]);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatFFT_2D fft2Slices = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    fft2Slices.complexForward(elements[s]);
+                                }
+                            } finally {
+                                TransformPlanCache.release(fft2Slices, rows, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
 
         } else {
-            for (int s = 0; s < slices; s++) {
-                fft2Slices.complexForward(elements[s]);
+            FloatFFT_2D fft2Slices = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    fft2Slices.complexForward(elements[s]);
+                }
+            } finally {
+                TransformPlanCache.release(fft2Slices, rows, columns);
             }
         }
     }
@@ -109,13 +113,18 @@ public class DenseLargeFComplexMatrix3D extends WrapperFComplexMatrix3D {
      */
 
     public void fft3() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft3 == null) {
-            fft3 = new FloatFFT_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_3D fft3 = TransformPlanCache.acquire(FloatFFT_3D.class, slices, rows, columns);
+            try {
+                fft3.complexForward(elements);
+            } finally {
+                TransformPlanCache.release(fft3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft3.complexForward(elements);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -127,36 +136,43 @@ public class DenseLargeFComplexMatrix3D extends WrapperFComplexMatrix3D {
      */
 
     public void ifft2Slices(final boolean scale) {
-        if (fft2Slices == null) {
-            fft2Slices = new FloatFFT_2D(rows, columns);
-        }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            fft2Slices.complexInverse(elements[s], scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatFFT_2D fft2Slices = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    fft2Slices.complexInverse(elements[s], scale);
+                                }
+                            } finally {
+                                TransformPlanCache.release(fft2Slices, rows, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
 
         } else {
-            for (int s = 0; s < slices; s++) {
-                fft2Slices.complexInverse(elements[s], scale);
+            FloatFFT_2D fft2Slices = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    fft2Slices.complexInverse(elements[s], scale);
+                }
+            } finally {
+                TransformPlanCache.release(fft2Slices, rows, columns);
             }
         }
     }
@@ -170,13 +186,18 @@ public class DenseLargeFComplexMatrix3D extends WrapperFComplexMatrix3D {
      */
 
     public void ifft3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft3 == null) {
-            fft3 = new FloatFFT_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_3D fft3 = TransformPlanCache.acquire(FloatFFT_3D.class, slices, rows, columns);
+            try {
+                fft3.complexInverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(fft3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft3.complexInverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public float[][][] elements() {
@@ -152,7 +152,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
             return Float.NaN;
         float a = 0;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -397,7 +397,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
      */
     public FloatMatrix3D assign(final cern.colt.function.tfloat.FloatFunction function) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -444,7 +444,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
     public FloatMatrix3D assign(final cern.colt.function.tfloat.FloatProcedure cond,
             final cern.colt.function.tfloat.FloatFunction f) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -498,7 +498,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
      */
     public FloatMatrix3D assign(final cern.colt.function.tfloat.FloatProcedure cond, final float value) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -548,7 +548,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
      */
     public FloatMatrix3D assign(final float value) {
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -598,7 +598,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
             throw new IllegalArgumentException("Must have same length: length=" + values.length
                     + "slices()*rows()*columns()=" + slices() * rows() * columns());
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -657,7 +657,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
             throw new IllegalArgumentException("Must have same number of slices: slices=" + values.length + "slices()="
                     + slices());
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -736,7 +736,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
             source = other;
         }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -811,7 +811,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
     public FloatMatrix3D assign(final FloatMatrix3D y, final cern.colt.function.tfloat.FloatFloatFunction function) {
         checkShape(y);
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             int k = slices / nthreads;
@@ -911,7 +911,7 @@ public abstract class FloatMatrix3D extends AbstractMatrix3D {
     public int cardinality() {
         int cardinality = 0;
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+        if ((nthreads > 1) && ((long) slices * rows * columns >= ConcurrencyUtils.getThreadsBeginN_3D())) {
             nthreads = Math.min(nthreads, slices);
             Future<?>[] futures = new Future[nthreads];
             Integer[] results = new Integer[nthreads];
@@ -11,6 +11,8 @@ package cern.colt.matrix.tfloat.algo.decomposition;
 import cern.colt.matrix.tfloat.FloatMatrix1D;
 import cern.colt.matrix.tfloat.FloatMatrix2D;
 import cern.colt.matrix.tfloat.algo.FloatProperty;
+import cern.colt.matrix.tfloat.impl.DenseColumnFloatMatrix2D;
+import cern.colt.matrix.tfloat.impl.DenseFloatMatrix2D;
 import cern.jet.math.tfloat.FloatFunctions;
 
 /**
@@ -19,6 +21,10 @@ import cern.jet.math.tfloat.FloatFunctions;
  * the matrix is not symmetric or positive definite, the constructor returns a
  * partial decomposition and sets an internal flag that may be queried by the
  * <tt>isSymmetricPositiveDefinite()</tt> method.
+ * <p>
+ * The decomposition of a symmetric positive definite dense matrix is computed
+ * by a tiled algorithm whose tasks are scheduled in parallel as soon as their
+ * input tiles are ready.
  */
 public class DenseFloatCholeskyDecomposition implements java.io.Serializable {
     static final long serialVersionUID = 1020;
@@ -63,6 +69,11 @@ public class DenseFloatCholeskyDecomposition implements java.io.Serializable {
         // float[][] A = Arg.getArray();
 
         n = A.rows();
+        if (decomposeTiled(A)) {
+            isSymmetricPositiveDefinite = true;
+            Lt = L.viewDice().copy();
+            return;
+        }
         // L = new float[n][n];
         L = A.like(n, n);
         isSymmetricPositiveDefinite = (A.columns() == n);
@@ -101,6 +112,35 @@ public class DenseFloatCholeskyDecomposition implements java.io.Serializable {
         Lt = L.viewDice().copy();
     }
 
+    /*
+     * Computes L with the tiled algorithm if A is dense, symmetric and
+     * positive definite; returns false otherwise, leaving the partial
+     * decomposition to the main loop.
+     */
+    private boolean decomposeTiled(FloatMatrix2D A) {
+        boolean rowMajor = A instanceof DenseFloatMatrix2D;
+        if (!rowMajor && !(A instanceof DenseColumnFloatMatrix2D)) {
+            return false;
+        }
+        for (int j = 0; j < n; j++) {
+            for (int k = 0; k < j; k++) {
+                if (A.getQuick(k, j) != A.getQuick(j, k)) {
+                    return false;
+                }
+            }
+        }
+        float[] elements = (float[]) (A.isView() ? A.copy() : A).elements();
+        FloatTileMatrix tiles = FloatTileMatrix.fromArray(elements, n, n, rowMajor, true);
+        try {
+            FloatTiledFactorization.potrf(tiles);
+        } catch (IllegalArgumentException exc) { // not positive definite
+            return false;
+        }
+        L = A.like(n, n);
+        tiles.toArray((float[]) L.elements(), rowMajor, true);
+        return true;
+    }
+
     /**
      * Returns the triangular factor, <tt>L</tt>.
      * 
@@ -0,0 +1,164 @@
+package cern.colt.matrix.tfloat.algo.decomposition;
+
+import edu.emory.mathcs.utils.TaskGraph;
+
+/**
+ * Tiled Cholesky factorization of {@link FloatTileMatrix} objects.
+ * <p>
+ * The factorization is expressed as a graph of kernels working on single
+ * tiles (POTRF, TRSM, SYRK and GEMM) which is executed by a
+ * {@link TaskGraph}, so that the updates of the trailing matrix overlap with
+ * the factorization of the next panels. The factorization keeps no global
+ * state and can run concurrently.
+ */
+final class FloatTiledFactorization {
+
+    private FloatTiledFactorization() {
+    }
+
+    /**
+     * Overwrites the lower triangle of the symmetric positive definite matrix
+     * <tt>A</tt> with its Cholesky factor <tt>L</tt>, so that
+     * <tt>A = L*L'</tt>.
+     *
+     * @throws IllegalArgumentException
+     *             if <tt>A</tt> is not positive definite.
+     */
+    static void potrf(final FloatTileMatrix A) {
+        final int nt = A.nt;
+        TaskGraph graph = new TaskGraph(nt * nt);
+        for (int k = 0; k < nt; k++) {
+            final int kk = k;
+            graph.add(new Runnable() {
+                public void run() {
+                    potrf(A.tile(kk, kk), A.rows(kk));
+                }
+            }, null, new int[] { kk * nt + kk });
+            for (int i = k + 1; i < nt; i++) {
+                final int ii = i;
+                graph.add(new Runnable() {
+                    public void run() {
+                        trsm(A.tile(ii, kk), A.rows(ii), A.tile(kk, kk), A.rows(kk));
+                    }
+                }, new int[] { kk * nt + kk }, new int[] { ii * nt + kk });
+            }
+            for (int j = k + 1; j < nt; j++) {
+                final int jj = j;
+                graph.add(new Runnable() {
+                    public void run() {
+                        syrk(A.tile(jj, jj), A.rows(jj), A.tile(jj, kk), A.columns(kk));
+                    }
+                }, new int[] { jj * nt + kk }, new int[] { jj * nt + jj });
+                for (int i = j + 1; i < nt; i++) {
+                    final int ii = i;
+                    graph.add(new Runnable() {
+                        public void run() {
+                            gemmNT(A.tile(ii, jj), A.rows(ii), A.rows(jj), A.tile(ii, kk), A.tile(jj, kk), A
+                                    .columns(kk));
+                        }
+                    }, new int[] { ii * nt + kk, jj * nt + kk }, new int[] { ii * nt + jj });
+                }
+            }
+        }
+        graph.execute();
+    }
+
+    /*
+     * Cholesky factorization of the lower triangle of the n x n tile a.
+     */
+    private static void potrf(float[] a, int n) {
+        for (int j = 0; j < n; j++) {
+            int cj = j * n;
+            for (int p = 0; p < j; p++) {
+                float l = a[p * n + j];
+                if (l != 0) {
+                    int cp = p * n;
+                    for (int r = j; r < n; r++) {
+                        a[cj + r] -= l * a[cp + r];
+                    }
+                }
+            }
+            float d = a[cj + j];
+            if (!(d > 0)) {
+                throw new IllegalArgumentException("Matrix is not symmetric positive definite.");
+            }
+            d = (float) Math.sqrt(d);
+            a[cj + j] = d;
+            float scale = 1 / d;
+            for (int r = j + 1; r < n; r++) {
+                a[cj + r] *= scale;
+            }
+        }
+    }
+
+    /*
+     * b = b * inverse(l'), where b is mb x nb and l is the nb x nb lower
+     * triangular factor of a diagonal tile.
+     */
+    private static void trsm(float[] b, int mb, float[] l, int nb) {
+        for (int c = 0; c < nb; c++) {
+            int cb = c * mb;
+            for (int p = 0; p < c; p++) {
+                float v = l[p * nb + c];
+                if (v != 0) {
+                    int cp = p * mb;
+                    for (int r = 0; r < mb; r++) {
+                        b[cb + r] -= v * b[cp + r];
+                    }
+                }
+            }
+            float scale = 1 / l[c * nb + c];
+            for (int r = 0; r < mb; r++) {
+                b[cb + r] *= scale;
+            }
+        }
+    }
+
+    /*
+     * Lower triangle of c = c - a * a', where c is n x n and a is n x k.
+     */
+    private static void syrk(float[] c, int n, float[] a, int k) {
+        for (int col = 0; col < n; col++) {
+            int cc = col * n;
+            for (int p = 0; p < k; p++) {
+                float v = a[p * n + col];
+                if (v != 0) {
+                    int cp = p * n;
+                    for (int r = col; r < n; r++) {
+                        c[cc + r] -= v * a[cp + r];
+                    }
+                }
+            }
+        }
+    }
+
+    /*
+     * c = c - a * b', where c is mc x nc, a is mc x k and b is nc x k.
+     */
+    private static void gemmNT(float[] c, int mc, int nc, float[] a, float[] b, int k) {
+        for (int col = 0; col < nc; col++) {
+            int cc = col * mc;
+            int p = 0;
+            for (; p + 3 < k; p += 4) {
+                float b0 = b[p * nc + col];
+                float b1 = b[(p + 1) * nc + col];
+                float b2 = b[(p + 2) * nc + col];
+                float b3 = b[(p + 3) * nc + col];
+                int a0 = p * mc;
+                int a1 = a0 + mc;
+                int a2 = a1 + mc;
+                int a3 = a2 + mc;
+                for (int r = 0; r < mc; r++) {
+                    c[cc + r] -= b0 * a[a0 + r] + b1 * a[a1 + r] + b2 * a[a2 + r] + b3 * a[a3 + r];
+                }
+            }
+            for (; p < k; p++) {
+                float v = b[p * nc + col];
+                int ap = p * mc;
+                for (int r = 0; r < mc; r++) {
+                    c[cc + r] -= v * a[ap + r];
+                }
+            }
+        }
+    }
+}
@@ -23,6 +23,7 @@ import edu.emory.mathcs.jtransforms.dht.FloatDHT_1D;
 import edu.emory.mathcs.jtransforms.dst.FloatDST_1D;
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 1-d matrix (aka <i>vector</i>) holding <tt>float</tt> elements. First
@@ -49,14 +50,6 @@ import edu.emory.mathcs.utils.ConcurrencyUtils;
 public class DenseFloatMatrix1D extends FloatMatrix1D {
     private static final long serialVersionUID = 1L;
 
-    private FloatFFT_1D fft;
-
-    private FloatDCT_1D dct;
-
-    private FloatDST_1D dst;
-
-    private FloatDHT_1D dht;
-
     /**
      * The elements of this matrix.
      */
@@ -722,19 +715,24 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      *            if true then scaling is performed
      */
     public void dct(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct == null) {
-            dct = new FloatDCT_1D(size);
-        }
-        if (isNoView) {
-            dct.forward(elements, scale);
-        } else {
-            FloatMatrix1D copy = this.copy();
-            dct.forward((float[]) copy.elements(), scale);
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDCT_1D dct = TransformPlanCache.acquire(FloatDCT_1D.class, size);
+            try {
+                if (isNoView) {
+                    dct.forward(elements, scale);
+                } else {
+                    FloatMatrix1D copy = this.copy();
+                    dct.forward((float[]) copy.elements(), scale);
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dct, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -742,19 +740,24 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      * 
      */
     public void dht() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht == null) {
-            dht = new FloatDHT_1D(size);
-        }
-        if (isNoView) {
-            dht.forward(elements);
-        } else {
-            FloatMatrix1D copy = this.copy();
-            dht.forward((float[]) copy.elements());
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDHT_1D dht = TransformPlanCache.acquire(FloatDHT_1D.class, size);
+            try {
+                if (isNoView) {
+                    dht.forward(elements);
+                } else {
+                    FloatMatrix1D copy = this.copy();
+                    dht.forward((float[]) copy.elements());
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dht, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -764,19 +767,24 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      *            if true then scaling is performed
      */
     public void dst(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst == null) {
-            dst = new FloatDST_1D(size);
-        }
-        if (isNoView) {
-            dst.forward(elements, scale);
-        } else {
-            FloatMatrix1D copy = this.copy();
-            dst.forward((float[]) copy.elements(), scale);
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDST_1D dst = TransformPlanCache.acquire(FloatDST_1D.class, size);
+            try {
+                if (isNoView) {
+                    dst.forward(elements, scale);
+                } else {
+                    FloatMatrix1D copy = this.copy();
+                    dst.forward((float[]) copy.elements(), scale);
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dst, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public float[] elements() {
@@ -800,19 +808,24 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      * 
      */
     public void fft() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft == null) {
-            fft = new FloatFFT_1D(size);
-        }
-        if (isNoView) {
-            fft.realForward(elements);
-        } else {
-            FloatMatrix1D copy = this.copy();
-            fft.realForward((float[]) copy.elements());
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_1D fft = TransformPlanCache.acquire(FloatFFT_1D.class, size);
+            try {
+                if (isNoView) {
+                    fft.realForward(elements);
+                } else {
+                    FloatMatrix1D copy = this.copy();
+                    fft.realForward((float[]) copy.elements());
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -822,23 +835,28 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      * @return the discrete Fourier transform (DFT) of this matrix.
      */
     public DenseFComplexMatrix1D getFft() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final float[] elems;
-        if (isNoView == true) {
-            elems = elements;
-        } else {
-            elems = (float[]) this.copy().elements();
-        }
-        DenseFComplexMatrix1D c = new DenseFComplexMatrix1D(size);
-        final float[] elementsC = (c).elements();
-        System.arraycopy(elems, 0, elementsC, 0, size);
-        if (fft == null) {
-            fft = new FloatFFT_1D(size);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final float[] elems;
+            if (isNoView == true) {
+                elems = elements;
+            } else {
+                elems = (float[]) this.copy().elements();
+            }
+            DenseFComplexMatrix1D c = new DenseFComplexMatrix1D(size);
+            final float[] elementsC = (c).elements();
+            System.arraycopy(elems, 0, elementsC, 0, size);
+            final FloatFFT_1D fft = TransformPlanCache.acquire(FloatFFT_1D.class, size);
+            try {
+                fft.realForwardFull(elementsC);
+                return c;
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft.realForwardFull(elementsC);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return c;
     }
 
     /**
@@ -849,23 +867,28 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      *         matrix.
      */
     public DenseFComplexMatrix1D getIfft(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final float[] elems;
-        if (isNoView == true) {
-            elems = elements;
-        } else {
-            elems = (float[]) this.copy().elements();
-        }
-        DenseFComplexMatrix1D c = new DenseFComplexMatrix1D(size);
-        final float[] elementsC = (c).elements();
-        System.arraycopy(elems, 0, elementsC, 0, size);
-        if (fft == null) {
-            fft = new FloatFFT_1D(size);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final float[] elems;
+            if (isNoView == true) {
+                elems = elements;
+            } else {
+                elems = (float[]) this.copy().elements();
+            }
+            DenseFComplexMatrix1D c = new DenseFComplexMatrix1D(size);
+            final float[] elementsC = (c).elements();
+            System.arraycopy(elems, 0, elementsC, 0, size);
+            final FloatFFT_1D fft = TransformPlanCache.acquire(FloatFFT_1D.class, size);
+            try {
+                fft.realInverseFull(elementsC, scale);
+                return c;
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft.realInverseFull(elementsC, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return c;
     }
 
     public void getNonZeros(final IntArrayList indexList, final FloatArrayList valueList) {
@@ -1138,19 +1161,24 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      *            if true then scaling is performed
      */
     public void idct(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct == null) {
-            dct = new FloatDCT_1D(size);
-        }
-        if (isNoView) {
-            dct.inverse(elements, scale);
-        } else {
-            FloatMatrix1D copy = this.copy();
-            dct.inverse((float[]) copy.elements(), scale);
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDCT_1D dct = TransformPlanCache.acquire(FloatDCT_1D.class, size);
+            try {
+                if (isNoView) {
+                    dct.inverse(elements, scale);
+                } else {
+                    FloatMatrix1D copy = this.copy();
+                    dct.inverse((float[]) copy.elements(), scale);
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dct, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1161,19 +1189,24 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      *            if true then scaling is performed
      */
     public void idht(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht == null) {
-            dht = new FloatDHT_1D(size);
-        }
-        if (isNoView) {
-            dht.inverse(elements, scale);
-        } else {
-            FloatMatrix1D copy = this.copy();
-            dht.inverse((float[]) copy.elements(), scale);
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDHT_1D dht = TransformPlanCache.acquire(FloatDHT_1D.class, size);
+            try {
+                if (isNoView) {
+                    dht.inverse(elements, scale);
+                } else {
+                    FloatMatrix1D copy = this.copy();
+                    dht.inverse((float[]) copy.elements(), scale);
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dht, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1183,19 +1216,24 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      *            if true then scaling is performed
      */
     public void idst(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst == null) {
-            dst = new FloatDST_1D(size);
-        }
-        if (isNoView) {
-            dst.inverse(elements, scale);
-        } else {
-            FloatMatrix1D copy = this.copy();
-            dst.inverse((float[]) copy.elements(), scale);
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDST_1D dst = TransformPlanCache.acquire(FloatDST_1D.class, size);
+            try {
+                if (isNoView) {
+                    dst.inverse(elements, scale);
+                } else {
+                    FloatMatrix1D copy = this.copy();
+                    dst.inverse((float[]) copy.elements(), scale);
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(dst, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -1214,19 +1252,24 @@ public class DenseFloatMatrix1D extends FloatMatrix1D {
      * 
      */
     public void ifft(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft == null) {
-            fft = new FloatFFT_1D(size);
-        }
-        if (isNoView) {
-            fft.realInverse(elements, scale);
-        } else {
-            FloatMatrix1D copy = this.copy();
-            fft.realInverse((float[]) copy.elements(), scale);
-            this.assign((float[]) copy.elements());
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_1D fft = TransformPlanCache.acquire(FloatFFT_1D.class, size);
+            try {
+                if (isNoView) {
+                    fft.realInverse(elements, scale);
+                } else {
+                    FloatMatrix1D copy = this.copy();
+                    fft.realInverse((float[]) copy.elements(), scale);
+                    this.assign((float[]) copy.elements());
+                }
+            } finally {
+                TransformPlanCache.release(fft, size);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public FloatMatrix1D like(int size) {
@@ -22,6 +22,7 @@ import edu.emory.mathcs.jtransforms.dst.FloatDST_2D;
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_1D;
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_2D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 2-d matrix holding <tt>float</tt> elements. First see the <a
@@ -48,30 +49,6 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
 
     private float[][] elements;
 
-    private FloatFFT_2D fft2;
-
-    private FloatDCT_2D dct2;
-
-    private FloatDST_2D dst2;
-
-    private FloatDHT_2D dht2;
-
-    private FloatFFT_1D fftRows;
-
-    private FloatFFT_1D fftColumns;
-
-    private FloatDCT_1D dctRows;
-
-    private FloatDCT_1D dctColumns;
-
-    private FloatDST_1D dstRows;
-
-    private FloatDST_1D dstColumns;
-
-    private FloatDHT_1D dhtRows;
-
-    private FloatDHT_1D dhtColumns;
-
     public DenseLargeFloatMatrix2D(int rows, int columns) {
         super(null);
         try {
@@ -93,13 +70,18 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dct2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct2 == null) {
-            dct2 = new FloatDCT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDCT_2D dct2 = TransformPlanCache.acquire(FloatDCT_2D.class, rows, columns);
+            try {
+                dct2.forward(elements, scale);
+            } finally {
+                TransformPlanCache.release(dct2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dct2.forward(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -112,40 +94,44 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dctColumns(final boolean scale) {
-        if (dctColumns == null) {
-            dctColumns = new FloatDCT_1D(rows);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstCol = j * k;
-                final int lastCol = (j == nthreads - 1) ? columns : firstCol + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        float[] column;
-                        for (int c = firstCol; c < lastCol; c++) {
-                            column = (float[]) viewColumn(c).copy().elements();
-                            dctColumns.forward(column, scale);
-                            viewColumn(c).assign(column);
-                        }
+        final FloatDCT_1D dctColumns = TransformPlanCache.acquire(FloatDCT_1D.class, rows);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstCol = j * k;
+                        final int lastCol = (j == nthreads - 1) ? columns : firstCol + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                float[] column;
+                                for (int c = firstCol; c < lastCol; c++) {
+                                    column = (float[]) viewColumn(c).copy().elements();
+                                    dctColumns.forward(column, scale);
+                                    viewColumn(c).assign(column);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            float[] column;
-            for (int c = 0; c < columns; c++) {
-                column = (float[]) viewColumn(c).copy().elements();
-                dctColumns.forward(column, scale);
-                viewColumn(c).assign(column);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                float[] column;
+                for (int c = 0; c < columns; c++) {
+                    column = (float[]) viewColumn(c).copy().elements();
+                    dctColumns.forward(column, scale);
+                    viewColumn(c).assign(column);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dctColumns, rows);
         }
     }
 
@@ -159,34 +145,38 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dctRows(final boolean scale) {
-        if (dctRows == null) {
-            dctRows = new FloatDCT_1D(columns);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            dctRows.forward(elements[r], scale);
-                        }
+        final FloatDCT_1D dctRows = TransformPlanCache.acquire(FloatDCT_1D.class, columns);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    dctRows.forward(elements[r], scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                dctRows.forward(elements[r], scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    dctRows.forward(elements[r], scale);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dctRows, columns);
         }
     }
 
@@ -196,13 +186,18 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dht2() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht2 == null) {
-            dht2 = new FloatDHT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDHT_2D dht2 = TransformPlanCache.acquire(FloatDHT_2D.class, rows, columns);
+            try {
+                dht2.forward(elements);
+            } finally {
+                TransformPlanCache.release(dht2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dht2.forward(elements);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -212,40 +207,44 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dhtColumns() {
-        if (dhtColumns == null) {
-            dhtColumns = new FloatDHT_1D(rows);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstCol = j * k;
-                final int lastCol = (j == nthreads - 1) ? columns : firstCol + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        float[] column;
-                        for (int c = firstCol; c < lastCol; c++) {
-                            column = (float[]) viewColumn(c).copy().elements();
-                            dhtColumns.forward(column);
-                            viewColumn(c).assign(column);
-                        }
+        final FloatDHT_1D dhtColumns = TransformPlanCache.acquire(FloatDHT_1D.class, rows);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstCol = j * k;
+                        final int lastCol = (j == nthreads - 1) ? columns : firstCol + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                float[] column;
+                                for (int c = firstCol; c < lastCol; c++) {
+                                    column = (float[]) viewColumn(c).copy().elements();
+                                    dhtColumns.forward(column);
+                                    viewColumn(c).assign(column);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            float[] column;
-            for (int c = 0; c < columns; c++) {
-                column = (float[]) viewColumn(c).copy().elements();
-                dhtColumns.forward(column);
-                viewColumn(c).assign(column);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                float[] column;
+                for (int c = 0; c < columns; c++) {
+                    column = (float[]) viewColumn(c).copy().elements();
+                    dhtColumns.forward(column);
+                    viewColumn(c).assign(column);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dhtColumns, rows);
         }
     }
 
@@ -255,34 +254,38 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dhtRows() {
-        if (dhtRows == null) {
-            dhtRows = new FloatDHT_1D(columns);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            dhtRows.forward(elements[r]);
-                        }
+        final FloatDHT_1D dhtRows = TransformPlanCache.acquire(FloatDHT_1D.class, columns);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    dhtRows.forward(elements[r]);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                dhtRows.forward(elements[r]);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    dhtRows.forward(elements[r]);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dhtRows, columns);
         }
     }
 
@@ -295,13 +298,18 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dst2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst2 == null) {
-            dst2 = new FloatDST_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDST_2D dst2 = TransformPlanCache.acquire(FloatDST_2D.class, rows, columns);
+            try {
+                dst2.forward(elements, scale);
+            } finally {
+                TransformPlanCache.release(dst2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dst2.forward(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -314,40 +322,44 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dstColumns(final boolean scale) {
-        if (dstColumns == null) {
-            dstColumns = new FloatDST_1D(rows);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstCol = j * k;
-                final int lastCol = (j == nthreads - 1) ? columns : firstCol + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        float[] column;
-                        for (int c = firstCol; c < lastCol; c++) {
-                            column = (float[]) viewColumn(c).copy().elements();
-                            dstColumns.forward(column, scale);
-                            viewColumn(c).assign(column);
-                        }
+        final FloatDST_1D dstColumns = TransformPlanCache.acquire(FloatDST_1D.class, rows);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstCol = j * k;
+                        final int lastCol = (j == nthreads - 1) ? columns : firstCol + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                float[] column;
+                                for (int c = firstCol; c < lastCol; c++) {
+                                    column = (float[]) viewColumn(c).copy().elements();
+                                    dstColumns.forward(column, scale);
+                                    viewColumn(c).assign(column);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            float[] column;
-            for (int c = 0; c < columns; c++) {
-                column = (float[]) viewColumn(c).copy().elements();
-                dstColumns.forward(column, scale);
-                viewColumn(c).assign(column);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                float[] column;
+                for (int c = 0; c < columns; c++) {
+                    column = (float[]) viewColumn(c).copy().elements();
+                    dstColumns.forward(column, scale);
+                    viewColumn(c).assign(column);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dstColumns, rows);
         }
     }
 
@@ -360,34 +372,38 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void dstRows(final boolean scale) {
-        if (dstRows == null) {
-            dstRows = new FloatDST_1D(columns);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            dstRows.forward(elements[r], scale);
-                        }
+        final FloatDST_1D dstRows = TransformPlanCache.acquire(FloatDST_1D.class, columns);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    dstRows.forward(elements[r], scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                dstRows.forward(elements[r], scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    dstRows.forward(elements[r], scale);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dstRows, columns);
         }
     }
 
@@ -425,13 +441,18 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void fft2() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new FloatFFT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_2D fft2 = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+            try {
+                fft2.realForward(elements);
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.realForward(elements);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -443,38 +464,43 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public DenseLargeFComplexMatrix2D getFft2() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new FloatFFT_2D(rows, columns);
-        }
-        DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
-        final float[][] elementsC = (C).elements();
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            System.arraycopy(elements[r], 0, elementsC[r], 0, columns);
-                        }
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_2D fft2 = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+            try {
+                DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
+                final float[][] elementsC = (C).elements();
+                int nthreads = ConcurrencyUtils.getNumberOfThreads();
+                if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    System.arraycopy(elements[r], 0, elementsC[r], 0, columns);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-        } else {
-            for (int r = 0; r < rows; r++) {
-                System.arraycopy(elements[r], 0, elementsC[r], 0, columns);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } else {
+                    for (int r = 0; r < rows; r++) {
+                        System.arraycopy(elements[r], 0, elementsC[r], 0, columns);
+                    }
+                }
+                fft2.realForwardFull(elementsC);
+                return C;
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.realForwardFull(elementsC);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -486,47 +512,54 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public DenseLargeFComplexMatrix2D getFftColumns() {
-        if (fftColumns == null) {
-            fftColumns = new FloatFFT_1D(rows);
-        }
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstCol = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstCol + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstCol; c < lastColumn; c++) {
-                            float[] column = new float[2 * rows];
-                            System.arraycopy(viewColumn(c).copy().elements(), 0, column, 0, rows);
-                            fftColumns.realForwardFull(column);
-                            C.viewColumn(c).assign(column);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_1D fftColumns = TransformPlanCache.acquire(FloatFFT_1D.class, rows);
+            try {
+                final DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
+                int nthreads = ConcurrencyUtils.getNumberOfThreads();
+                if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                    Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                    try {
+                        nthreads = Math.min(nthreads, columns);
+                        Future<?>[] futures = new Future[nthreads];
+                        int k = columns / nthreads;
+                        for (int j = 0; j < nthreads; j++) {
+                            final int firstCol = j * k;
+                            final int lastColumn = (j == nthreads - 1) ? columns : firstCol + k;
+                            futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                                public void run() {
+                                    for (int c = firstCol; c < lastColumn; c++) {
+                                        float[] column = new float[2 * rows];
+                                        System.arraycopy(viewColumn(c).copy().elements(), 0, column, 0, rows);
+                                        fftColumns.realForwardFull(column);
+                                        C.viewColumn(c).assign(column);
+                                    }
+                                }
+                            });
                         }
+                        ConcurrencyUtils.waitForCompletion(futures);
+                    } finally {
+                        ConcurrencyUtils.restoreThreadScope(taskScope);
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                float[] column = new float[2 * rows];
-                System.arraycopy(viewColumn(c).copy().elements(), 0, column, 0, rows);
-                fftColumns.realForwardFull(column);
-                C.viewColumn(c).assign(column);
+                } else {
+                    for (int c = 0; c < columns; c++) {
+                        float[] column = new float[2 * rows];
+                        System.arraycopy(viewColumn(c).copy().elements(), 0, column, 0, rows);
+                        fftColumns.realForwardFull(column);
+                        C.viewColumn(c).assign(column);
 
+                    }
+                }
+                return C;
+            } finally {
+                TransformPlanCache.release(fftColumns, rows);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -537,45 +570,52 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public DenseLargeFComplexMatrix2D getFftRows() {
-        if (fftRows == null) {
-            fftRows = new FloatFFT_1D(columns);
-        }
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            float[] row = new float[2 * columns];
-                            System.arraycopy(elements[r], 0, row, 0, columns);
-                            fftRows.realForwardFull(row);
-                            C.viewRow(r).assign(row);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_1D fftRows = TransformPlanCache.acquire(FloatFFT_1D.class, columns);
+            try {
+                final DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
+                int nthreads = ConcurrencyUtils.getNumberOfThreads();
+                if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                    Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                    try {
+                        nthreads = Math.min(nthreads, rows);
+                        Future<?>[] futures = new Future[nthreads];
+                        int k = rows / nthreads;
+                        for (int j = 0; j < nthreads; j++) {
+                            final int firstRow = j * k;
+                            final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                            futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                                public void run() {
+                                    for (int r = firstRow; r < lastRow; r++) {
+                                        float[] row = new float[2 * columns];
+                                        System.arraycopy(elements[r], 0, row, 0, columns);
+                                        fftRows.realForwardFull(row);
+                                        C.viewRow(r).assign(row);
+                                    }
+                                }
+                            });
                         }
+                        ConcurrencyUtils.waitForCompletion(futures);
+                    } finally {
+                        ConcurrencyUtils.restoreThreadScope(taskScope);
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                float[] row = new float[2 * columns];
-                System.arraycopy(elements[r], 0, row, 0, columns);
-                fftRows.realForwardFull(row);
-                C.viewRow(r).assign(row);
+                } else {
+                    for (int r = 0; r < rows; r++) {
+                        float[] row = new float[2 * columns];
+                        System.arraycopy(elements[r], 0, row, 0, columns);
+                        fftRows.realForwardFull(row);
+                        C.viewRow(r).assign(row);
+                    }
+                }
+                return C;
+            } finally {
+                TransformPlanCache.release(fftRows, columns);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -587,38 +627,43 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public DenseLargeFComplexMatrix2D getIfft2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
-        final float[][] elementsC = (C).elements();
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            System.arraycopy(elements[r], 0, elementsC[r], 0, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
+            final float[][] elementsC = (C).elements();
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                nthreads = Math.min(nthreads, rows);
+                Future<?>[] futures = new Future[nthreads];
+                int k = rows / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstRow = j * k;
+                    final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int r = firstRow; r < lastRow; r++) {
+                                System.arraycopy(elements[r], 0, elementsC[r], 0, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    System.arraycopy(elements[r], 0, elementsC[r], 0, columns);
+                }
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-        } else {
-            for (int r = 0; r < rows; r++) {
-                System.arraycopy(elements[r], 0, elementsC[r], 0, columns);
+            final FloatFFT_2D fft2 = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+            try {
+                fft2.realInverseFull(elementsC, scale);
+                return C;
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        if (fft2 == null) {
-            fft2 = new FloatFFT_2D(rows, columns);
-        }
-        fft2.realInverseFull(elementsC, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -630,46 +675,53 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public DenseLargeFComplexMatrix2D getIfftColumns(final boolean scale) {
-        if (fftColumns == null) {
-            fftColumns = new FloatFFT_1D(rows);
-        }
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            float[] column = new float[2 * rows];
-                            System.arraycopy(viewColumn(c).copy().elements(), 0, column, 0, rows);
-                            fftColumns.realInverseFull(column, scale);
-                            C.viewColumn(c).assign(column);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_1D fftColumns = TransformPlanCache.acquire(FloatFFT_1D.class, rows);
+            try {
+                final DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
+                int nthreads = ConcurrencyUtils.getNumberOfThreads();
+                if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                    Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                    try {
+                        nthreads = Math.min(nthreads, columns);
+                        Future<?>[] futures = new Future[nthreads];
+                        int k = columns / nthreads;
+                        for (int j = 0; j < nthreads; j++) {
+                            final int firstColumn = j * k;
+                            final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                            futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                                public void run() {
+                                    for (int c = firstColumn; c < lastColumn; c++) {
+                                        float[] column = new float[2 * rows];
+                                        System.arraycopy(viewColumn(c).copy().elements(), 0, column, 0, rows);
+                                        fftColumns.realInverseFull(column, scale);
+                                        C.viewColumn(c).assign(column);
+                                    }
+                                }
+                            });
                         }
+                        ConcurrencyUtils.waitForCompletion(futures);
+                    } finally {
+                        ConcurrencyUtils.restoreThreadScope(taskScope);
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int c = 0; c < columns; c++) {
-                float[] column = new float[2 * rows];
-                System.arraycopy(viewColumn(c).copy().elements(), 0, column, 0, rows);
-                fftColumns.realInverseFull(column, scale);
-                C.viewColumn(c).assign(column);
+                } else {
+                    for (int c = 0; c < columns; c++) {
+                        float[] column = new float[2 * rows];
+                        System.arraycopy(viewColumn(c).copy().elements(), 0, column, 0, rows);
+                        fftColumns.realInverseFull(column, scale);
+                        C.viewColumn(c).assign(column);
+                    }
+                }
+                return C;
+            } finally {
+                TransformPlanCache.release(fftColumns, rows);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -681,45 +733,52 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public DenseLargeFComplexMatrix2D getIfftRows(final boolean scale) {
-        if (fftRows == null) {
-            fftRows = new FloatFFT_1D(columns);
-        }
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        final DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            float[] row = new float[2 * columns];
-                            System.arraycopy(elements[r], 0, row, 0, columns);
-                            fftRows.realInverseFull(row, scale);
-                            C.viewRow(r).assign(row);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_1D fftRows = TransformPlanCache.acquire(FloatFFT_1D.class, columns);
+            try {
+                final DenseLargeFComplexMatrix2D C = new DenseLargeFComplexMatrix2D(rows, columns);
+                int nthreads = ConcurrencyUtils.getNumberOfThreads();
+                if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                    Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                    try {
+                        nthreads = Math.min(nthreads, rows);
+                        Future<?>[] futures = new Future[nthreads];
+                        int k = rows / nthreads;
+                        for (int j = 0; j < nthreads; j++) {
+                            final int firstRow = j * k;
+                            final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                            futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                                public void run() {
+                                    for (int r = firstRow; r < lastRow; r++) {
+                                        float[] row = new float[2 * columns];
+                                        System.arraycopy(elements[r], 0, row, 0, columns);
+                                        fftRows.realInverseFull(row, scale);
+                                        C.viewRow(r).assign(row);
+                                    }
+                                }
+                            });
                         }
+                        ConcurrencyUtils.waitForCompletion(futures);
+                    } finally {
+                        ConcurrencyUtils.restoreThreadScope(taskScope);
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                float[] row = new float[2 * columns];
-                System.arraycopy(elements[r], 0, row, 0, columns);
-                fftRows.realInverseFull(row, scale);
-                C.viewRow(r).assign(row);
+                } else {
+                    for (int r = 0; r < rows; r++) {
+                        float[] row = new float[2 * columns];
+                        System.arraycopy(elements[r], 0, row, 0, columns);
+                        fftRows.realInverseFull(row, scale);
+                        C.viewRow(r).assign(row);
+                    }
+                }
+                return C;
+            } finally {
+                TransformPlanCache.release(fftRows, columns);
             }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     public float getQuick(int row, int column) {
@@ -736,13 +795,18 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idct2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct2 == null) {
-            dct2 = new FloatDCT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDCT_2D dct2 = TransformPlanCache.acquire(FloatDCT_2D.class, rows, columns);
+            try {
+                dct2.inverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(dct2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dct2.inverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -755,40 +819,44 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idctColumns(final boolean scale) {
-        if (dctColumns == null) {
-            dctColumns = new FloatDCT_1D(rows);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        float[] column;
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            column = (float[]) viewColumn(c).copy().elements();
-                            dctColumns.inverse(column, scale);
-                            viewColumn(c).assign(column);
-                        }
+        final FloatDCT_1D dctColumns = TransformPlanCache.acquire(FloatDCT_1D.class, rows);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                float[] column;
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    column = (float[]) viewColumn(c).copy().elements();
+                                    dctColumns.inverse(column, scale);
+                                    viewColumn(c).assign(column);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            float[] column;
-            for (int c = 0; c < columns; c++) {
-                column = (float[]) viewColumn(c).copy().elements();
-                dctColumns.inverse(column, scale);
-                viewColumn(c).assign(column);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                float[] column;
+                for (int c = 0; c < columns; c++) {
+                    column = (float[]) viewColumn(c).copy().elements();
+                    dctColumns.inverse(column, scale);
+                    viewColumn(c).assign(column);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dctColumns, rows);
         }
     }
 
@@ -802,34 +870,38 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idctRows(final boolean scale) {
-        if (dctRows == null) {
-            dctRows = new FloatDCT_1D(columns);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            dctRows.inverse(elements[r], scale);
-                        }
+        final FloatDCT_1D dctRows = TransformPlanCache.acquire(FloatDCT_1D.class, columns);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    dctRows.inverse(elements[r], scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                dctRows.inverse(elements[r], scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    dctRows.inverse(elements[r], scale);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dctRows, columns);
         }
     }
 
@@ -843,13 +915,18 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idht2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht2 == null) {
-            dht2 = new FloatDHT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDHT_2D dht2 = TransformPlanCache.acquire(FloatDHT_2D.class, rows, columns);
+            try {
+                dht2.inverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(dht2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dht2.inverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -862,40 +939,44 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idhtColumns(final boolean scale) {
-        if (dhtColumns == null) {
-            dhtColumns = new FloatDHT_1D(rows);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        float[] column;
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            column = (float[]) viewColumn(c).copy().elements();
-                            dhtColumns.inverse(column, scale);
-                            viewColumn(c).assign(column);
-                        }
+        final FloatDHT_1D dhtColumns = TransformPlanCache.acquire(FloatDHT_1D.class, rows);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                float[] column;
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    column = (float[]) viewColumn(c).copy().elements();
+                                    dhtColumns.inverse(column, scale);
+                                    viewColumn(c).assign(column);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            float[] column;
-            for (int c = 0; c < columns; c++) {
-                column = (float[]) viewColumn(c).copy().elements();
-                dhtColumns.inverse(column, scale);
-                viewColumn(c).assign(column);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                float[] column;
+                for (int c = 0; c < columns; c++) {
+                    column = (float[]) viewColumn(c).copy().elements();
+                    dhtColumns.inverse(column, scale);
+                    viewColumn(c).assign(column);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dhtColumns, rows);
         }
     }
 
@@ -909,34 +990,38 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idhtRows(final boolean scale) {
-        if (dhtRows == null) {
-            dhtRows = new FloatDHT_1D(columns);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            dhtRows.inverse(elements[r], scale);
-                        }
+        final FloatDHT_1D dhtRows = TransformPlanCache.acquire(FloatDHT_1D.class, columns);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    dhtRows.inverse(elements[r], scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                dhtRows.inverse(elements[r], scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    dhtRows.inverse(elements[r], scale);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dhtRows, columns);
         }
     }
 
@@ -950,13 +1035,18 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idst2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst2 == null) {
-            dst2 = new FloatDST_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDST_2D dst2 = TransformPlanCache.acquire(FloatDST_2D.class, rows, columns);
+            try {
+                dst2.inverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(dst2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dst2.inverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -969,40 +1059,44 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idstColumns(final boolean scale) {
-        if (dstColumns == null) {
-            dstColumns = new FloatDST_1D(rows);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, columns);
-            Future<?>[] futures = new Future[nthreads];
-            int k = columns / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstColumn = j * k;
-                final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        float[] column;
-                        for (int c = firstColumn; c < lastColumn; c++) {
-                            column = (float[]) viewColumn(c).copy().elements();
-                            dstColumns.inverse(column, scale);
-                            viewColumn(c).assign(column);
-                        }
+        final FloatDST_1D dstColumns = TransformPlanCache.acquire(FloatDST_1D.class, rows);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, columns);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = columns / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstColumn = j * k;
+                        final int lastColumn = (j == nthreads - 1) ? columns : firstColumn + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                float[] column;
+                                for (int c = firstColumn; c < lastColumn; c++) {
+                                    column = (float[]) viewColumn(c).copy().elements();
+                                    dstColumns.inverse(column, scale);
+                                    viewColumn(c).assign(column);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            float[] column;
-            for (int c = 0; c < columns; c++) {
-                column = (float[]) viewColumn(c).copy().elements();
-                dstColumns.inverse(column, scale);
-                viewColumn(c).assign(column);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                float[] column;
+                for (int c = 0; c < columns; c++) {
+                    column = (float[]) viewColumn(c).copy().elements();
+                    dstColumns.inverse(column, scale);
+                    viewColumn(c).assign(column);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dstColumns, rows);
         }
     }
 
@@ -1016,34 +1110,38 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void idstRows(final boolean scale) {
-        if (dstRows == null) {
-            dstRows = new FloatDST_1D(columns);
-        }
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, rows);
-            Future<?>[] futures = new Future[nthreads];
-            int k = rows / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstRow = j * k;
-                final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int r = firstRow; r < lastRow; r++) {
-                            dstRows.inverse(elements[r], scale);
-                        }
+        final FloatDST_1D dstRows = TransformPlanCache.acquire(FloatDST_1D.class, columns);
+        try {
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+                Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    nthreads = Math.min(nthreads, rows);
+                    Future<?>[] futures = new Future[nthreads];
+                    int k = rows / nthreads;
+                    for (int j = 0; j < nthreads; j++) {
+                        final int firstRow = j * k;
+                        final int lastRow = (j == nthreads - 1) ? rows : firstRow + k;
+                        futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                            public void run() {
+                                for (int r = firstRow; r < lastRow; r++) {
+                                    dstRows.inverse(elements[r], scale);
+                                }
+                            }
+                        });
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
-        } else {
-            for (int r = 0; r < rows; r++) {
-                dstRows.inverse(elements[r], scale);
+                    ConcurrencyUtils.waitForCompletion(futures);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(taskScope);
+                }
+            } else {
+                for (int r = 0; r < rows; r++) {
+                    dstRows.inverse(elements[r], scale);
+                }
             }
+        } finally {
+            TransformPlanCache.release(dstRows, columns);
         }
     }
 
@@ -1083,13 +1181,18 @@ public class DenseLargeFloatMatrix2D extends WrapperFloatMatrix2D {
      */
 
     public void ifft2(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft2 == null) {
-            fft2 = new FloatFFT_2D(rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_2D fft2 = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+            try {
+                fft2.realInverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(fft2, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft2.realInverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public void setQuick(int row, int column, float value) {
@@ -21,6 +21,7 @@ import edu.emory.mathcs.jtransforms.dst.FloatDST_3D;
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_2D;
 import edu.emory.mathcs.jtransforms.fft.FloatFFT_3D;
 import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 /**
  * Dense 3-d matrix holding <tt>float</tt> elements. First see the <a
@@ -47,22 +48,6 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
 
     private float[][][] elements;
 
-    private FloatFFT_3D fft3;
-
-    private FloatDCT_3D dct3;
-
-    private FloatDST_3D dst3;
-
-    private FloatDHT_3D dht3;
-
-    private FloatFFT_2D fft2Slices;
-
-    private FloatDCT_2D dct2Slices;
-
-    private FloatDST_2D dst2Slices;
-
-    private FloatDHT_2D dht2Slices;
-
     public DenseLargeFloatMatrix3D(int slices, int rows, int columns) {
         super(null);
         try {
@@ -83,13 +68,18 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void dct3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct3 == null) {
-            dct3 = new FloatDCT_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDCT_3D dct3 = TransformPlanCache.acquire(FloatDCT_3D.class, slices, rows, columns);
+            try {
+                dct3.forward(elements, scale);
+            } finally {
+                TransformPlanCache.release(dct3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dct3.forward(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -102,36 +92,43 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void dct2Slices(final boolean scale) {
-        if (dct2Slices == null) {
-            dct2Slices = new FloatDCT_2D(rows, columns);
-        }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            dct2Slices.forward(elements[s], scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatDCT_2D dct2Slices = TransformPlanCache.acquire(FloatDCT_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    dct2Slices.forward(elements[s], scale);
+                                }
+                            } finally {
+                                TransformPlanCache.release(dct2Slices, rows, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
 
         } else {
-            for (int s = 0; s < slices; s++) {
-                dct2Slices.forward(elements[s], scale);
+            FloatDCT_2D dct2Slices = TransformPlanCache.acquire(FloatDCT_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    dct2Slices.forward(elements[s], scale);
+                }
+            } finally {
+                TransformPlanCache.release(dct2Slices, rows, columns);
             }
         }
     }
@@ -141,13 +138,18 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void dht3() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht3 == null) {
-            dht3 = new FloatDHT_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDHT_3D dht3 = TransformPlanCache.acquire(FloatDHT_3D.class, slices, rows, columns);
+            try {
+                dht3.forward(elements);
+            } finally {
+                TransformPlanCache.release(dht3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dht3.forward(elements);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -157,36 +159,43 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void dht2Slices() {
-        if (dht2Slices == null) {
-            dht2Slices = new FloatDHT_2D(rows, columns);
-        }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            dht2Slices.forward(elements[s]);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatDHT_2D dht2Slices = TransformPlanCache.acquire(FloatDHT_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    dht2Slices.forward(elements[s]);
+                                }
+                            } finally {
+                                TransformPlanCache.release(dht2Slices, rows, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
 
         } else {
-            for (int s = 0; s < slices; s++) {
-                dht2Slices.forward(elements[s]);
+            FloatDHT_2D dht2Slices = TransformPlanCache.acquire(FloatDHT_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    dht2Slices.forward(elements[s]);
+                }
+            } finally {
+                TransformPlanCache.release(dht2Slices, rows, columns);
             }
         }
     }
@@ -199,13 +208,18 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void dst3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst3 == null) {
-            dst3 = new FloatDST_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDST_3D dst3 = TransformPlanCache.acquire(FloatDST_3D.class, slices, rows, columns);
+            try {
+                dst3.forward(elements, scale);
+            } finally {
+                TransformPlanCache.release(dst3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dst3.forward(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -217,36 +231,43 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void dst2Slices(final boolean scale) {
-        if (dst2Slices == null) {
-            dst2Slices = new FloatDST_2D(rows, columns);
-        }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            dst2Slices.forward(elements[s], scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatDST_2D dst2Slices = TransformPlanCache.acquire(FloatDST_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    dst2Slices.forward(elements[s], scale);
+                                }
+                            } finally {
+                                TransformPlanCache.release(dst2Slices, rows, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
 
         } else {
-            for (int s = 0; s < slices; s++) {
-                dst2Slices.forward(elements[s], scale);
+            FloatDST_2D dst2Slices = TransformPlanCache.acquire(FloatDST_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    dst2Slices.forward(elements[s], scale);
+                }
+            } finally {
+                TransformPlanCache.release(dst2Slices, rows, columns);
             }
         }
     }
@@ -309,13 +330,18 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void fft3() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft3 == null) {
-            fft3 = new FloatFFT_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_3D fft3 = TransformPlanCache.acquire(FloatFFT_3D.class, slices, rows, columns);
+            try {
+                fft3.realForward(elements);
+            } finally {
+                TransformPlanCache.release(fft3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft3.realForward(elements);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -328,43 +354,50 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public DenseLargeFComplexMatrix3D getFft2Slices() {
-        if (fft2Slices == null) {
-            fft2Slices = new FloatFFT_2D(rows, columns);
-        }
         final DenseLargeFComplexMatrix3D C = new DenseLargeFComplexMatrix3D(slices, rows, columns);
         final float[][][] cElems = C.elements();
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            for (int r = 0; r < rows; r++) {
-                                System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatFFT_2D fft2Slices = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    for (int r = 0; r < rows; r++) {
+                                        System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+                                    }
+                                    fft2Slices.realForwardFull(cElems[s]);
+                                }
+                            } finally {
+                                TransformPlanCache.release(fft2Slices, rows, columns);
                             }
-                            fft2Slices.realForwardFull(cElems[s]);
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
-            for (int s = 0; s < slices; s++) {
-                for (int r = 0; r < rows; r++) {
-                    System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+            FloatFFT_2D fft2Slices = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    for (int r = 0; r < rows; r++) {
+                        System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+                    }
+                    fft2Slices.realForwardFull(cElems[s]);
                 }
-                fft2Slices.realForwardFull(cElems[s]);
+            } finally {
+                TransformPlanCache.release(fft2Slices, rows, columns);
             }
         }
         return C;
@@ -378,48 +411,53 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public DenseLargeFComplexMatrix3D getFft3() {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        DenseLargeFComplexMatrix3D C = new DenseLargeFComplexMatrix3D(slices, rows, columns);
-        final float[][][] cElems = (C).elements();
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int startslice = j * k;
-                final int stopslice;
-                if (j == nthreads - 1) {
-                    stopslice = slices;
-                } else {
-                    stopslice = startslice + k;
-                }
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int s = startslice; s < stopslice; s++) {
-                            for (int r = 0; r < rows; r++) {
-                                System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            DenseLargeFComplexMatrix3D C = new DenseLargeFComplexMatrix3D(slices, rows, columns);
+            final float[][][] cElems = (C).elements();
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int startslice = j * k;
+                    final int stopslice;
+                    if (j == nthreads - 1) {
+                        stopslice = slices;
+                    } else {
+                        stopslice = startslice + k;
+                    }
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int s = startslice; s < stopslice; s++) {
+                                for (int r = 0; r < rows; r++) {
+                                    System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+                                }
                             }
-                        }
 
+                        }
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } else {
+                for (int s = 0; s < slices; s++) {
+                    for (int r = 0; r < rows; r++) {
+                        System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-        } else {
-            for (int s = 0; s < slices; s++) {
-                for (int r = 0; r < rows; r++) {
-                    System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
                 }
             }
+            final FloatFFT_3D fft3 = TransformPlanCache.acquire(FloatFFT_3D.class, slices, rows, columns);
+            try {
+                fft3.realForwardFull(cElems);
+                return C;
+            } finally {
+                TransformPlanCache.release(fft3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        if (fft3 == null) {
-            fft3 = new FloatFFT_3D(slices, rows, columns);
-        }
-        fft3.realForwardFull(cElems);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     /**
@@ -435,43 +473,50 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public DenseLargeFComplexMatrix3D getIfft2Slices(final boolean scale) {
-        if (fft2Slices == null) {
-            fft2Slices = new FloatFFT_2D(rows, columns);
-        }
         final DenseLargeFComplexMatrix3D C = new DenseLargeFComplexMatrix3D(slices, rows, columns);
         final float[][][] cElems = C.elements();
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            for (int r = 0; r < rows; r++) {
-                                System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatFFT_2D fft2Slices = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    for (int r = 0; r < rows; r++) {
+                                        System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+                                    }
+                                    fft2Slices.realInverseFull(cElems[s], scale);
+                                }
+                            } finally {
+                                TransformPlanCache.release(fft2Slices, rows, columns);
                             }
-                            fft2Slices.realInverseFull(cElems[s], scale);
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
         } else {
-            for (int s = 0; s < slices; s++) {
-                for (int r = 0; r < rows; r++) {
-                    System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+            FloatFFT_2D fft2Slices = TransformPlanCache.acquire(FloatFFT_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    for (int r = 0; r < rows; r++) {
+                        System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+                    }
+                    fft2Slices.realInverseFull(cElems[s], scale);
                 }
-                fft2Slices.realInverseFull(cElems[s], scale);
+            } finally {
+                TransformPlanCache.release(fft2Slices, rows, columns);
             }
         }
         return C;
@@ -490,48 +535,53 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public DenseLargeFComplexMatrix3D getIfft3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        DenseLargeFComplexMatrix3D C = new DenseLargeFComplexMatrix3D(slices, rows, columns);
-        final float[][][] cElems = (C).elements();
-        int nthreads = ConcurrencyUtils.getNumberOfThreads();
-        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int startslice = j * k;
-                final int stopslice;
-                if (j == nthreads - 1) {
-                    stopslice = slices;
-                } else {
-                    stopslice = startslice + k;
-                }
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-                    public void run() {
-                        for (int s = startslice; s < stopslice; s++) {
-                            for (int r = 0; r < rows; r++) {
-                                System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            DenseLargeFComplexMatrix3D C = new DenseLargeFComplexMatrix3D(slices, rows, columns);
+            final float[][][] cElems = (C).elements();
+            int nthreads = ConcurrencyUtils.getNumberOfThreads();
+            if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int startslice = j * k;
+                    final int stopslice;
+                    if (j == nthreads - 1) {
+                        stopslice = slices;
+                    } else {
+                        stopslice = startslice + k;
+                    }
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                        public void run() {
+                            for (int s = startslice; s < stopslice; s++) {
+                                for (int r = 0; r < rows; r++) {
+                                    System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
+                                }
                             }
-                        }
 
+                        }
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } else {
+                for (int s = 0; s < slices; s++) {
+                    for (int r = 0; r < rows; r++) {
+                        System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
                     }
-                });
-            }
-            ConcurrencyUtils.waitForCompletion(futures);
-        } else {
-            for (int s = 0; s < slices; s++) {
-                for (int r = 0; r < rows; r++) {
-                    System.arraycopy(elements[s][r], 0, cElems[s][r], 0, columns);
                 }
             }
+            final FloatFFT_3D fft3 = TransformPlanCache.acquire(FloatFFT_3D.class, slices, rows, columns);
+            try {
+                fft3.realInverseFull(cElems, scale);
+                return C;
+            } finally {
+                TransformPlanCache.release(fft3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        if (fft3 == null) {
-            fft3 = new FloatFFT_3D(slices, rows, columns);
-        }
-        fft3.realInverseFull(cElems, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
-        return C;
     }
 
     public float getQuick(int slice, int row, int column) {
@@ -548,36 +598,43 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void idct2Slices(final boolean scale) {
-        if (dct2Slices == null) {
-            dct2Slices = new FloatDCT_2D(rows, columns);
-        }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            dct2Slices.inverse(elements[s], scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatDCT_2D dct2Slices = TransformPlanCache.acquire(FloatDCT_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    dct2Slices.inverse(elements[s], scale);
+                                }
+                            } finally {
+                                TransformPlanCache.release(dct2Slices, rows, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
 
         } else {
-            for (int s = 0; s < slices; s++) {
-                dct2Slices.inverse(elements[s], scale);
+            FloatDCT_2D dct2Slices = TransformPlanCache.acquire(FloatDCT_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    dct2Slices.inverse(elements[s], scale);
+                }
+            } finally {
+                TransformPlanCache.release(dct2Slices, rows, columns);
             }
         }
     }
@@ -596,13 +653,18 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void idht3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dht3 == null) {
-            dht3 = new FloatDHT_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDHT_3D dht3 = TransformPlanCache.acquire(FloatDHT_3D.class, slices, rows, columns);
+            try {
+                dht3.inverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(dht3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dht3.inverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -619,36 +681,43 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void idht2Slices(final boolean scale) {
-        if (dht2Slices == null) {
-            dht2Slices = new FloatDHT_2D(rows, columns);
-        }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            dht2Slices.inverse(elements[s], scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatDHT_2D dht2Slices = TransformPlanCache.acquire(FloatDHT_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    dht2Slices.inverse(elements[s], scale);
+                                }
+                            } finally {
+                                TransformPlanCache.release(dht2Slices, rows, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
 
         } else {
-            for (int s = 0; s < slices; s++) {
-                dht2Slices.inverse(elements[s], scale);
+            FloatDHT_2D dht2Slices = TransformPlanCache.acquire(FloatDHT_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    dht2Slices.inverse(elements[s], scale);
+                }
+            } finally {
+                TransformPlanCache.release(dht2Slices, rows, columns);
             }
         }
     }
@@ -663,13 +732,18 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void idct3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dct3 == null) {
-            dct3 = new FloatDCT_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDCT_3D dct3 = TransformPlanCache.acquire(FloatDCT_3D.class, slices, rows, columns);
+            try {
+                dct3.inverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(dct3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dct3.inverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -682,36 +756,43 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void idst2Slices(final boolean scale) {
-        if (dst2Slices == null) {
-            dst2Slices = new FloatDST_2D(rows, columns);
-        }
         int nthreads = ConcurrencyUtils.getNumberOfThreads();
         if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_3D())) {
-            ConcurrencyUtils.setThreadsBeginN_2D(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_2Threads(Integer.MAX_VALUE);
-            ConcurrencyUtils.setThreadsBeginN_1D_FFT_4Threads(Integer.MAX_VALUE);
-            nthreads = Math.min(nthreads, slices);
-            Future<?>[] futures = new Future[nthreads];
-            int k = slices / nthreads;
-            for (int j = 0; j < nthreads; j++) {
-                final int firstSlice = j * k;
-                final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
-                futures[j] = ConcurrencyUtils.submit(new Runnable() {
-
-                    public void run() {
-                        for (int s = firstSlice; s < lastSlice; s++) {
-                            dst2Slices.inverse(elements[s], scale);
+            Object taskScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+            try {
+                nthreads = Math.min(nthreads, slices);
+                Future<?>[] futures = new Future[nthreads];
+                int k = slices / nthreads;
+                for (int j = 0; j < nthreads; j++) {
+                    final int firstSlice = j * k;
+                    final int lastSlice = (j == nthreads - 1) ? slices : firstSlice + k;
+                    futures[j] = ConcurrencyUtils.submit(new Runnable() {
+
+                        public void run() {
+                            FloatDST_2D dst2Slices = TransformPlanCache.acquire(FloatDST_2D.class, rows, columns);
+                            try {
+                                for (int s = firstSlice; s < lastSlice; s++) {
+                                    dst2Slices.inverse(elements[s], scale);
+                                }
+                            } finally {
+                                TransformPlanCache.release(dst2Slices, rows, columns);
+                            }
                         }
-                    }
-                });
+                    });
+                }
+                ConcurrencyUtils.waitForCompletion(futures);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(taskScope);
             }
-            ConcurrencyUtils.waitForCompletion(futures);
-            ConcurrencyUtils.resetThreadsBeginN();
-            ConcurrencyUtils.resetThreadsBeginN_FFT();
 
         } else {
-            for (int s = 0; s < slices; s++) {
-                dst2Slices.inverse(elements[s], scale);
+            FloatDST_2D dst2Slices = TransformPlanCache.acquire(FloatDST_2D.class, rows, columns);
+            try {
+                for (int s = 0; s < slices; s++) {
+                    dst2Slices.inverse(elements[s], scale);
+                }
+            } finally {
+                TransformPlanCache.release(dst2Slices, rows, columns);
             }
         }
     }
@@ -726,13 +807,18 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void idst3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (dst3 == null) {
-            dst3 = new FloatDST_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatDST_3D dst3 = TransformPlanCache.acquire(FloatDST_3D.class, slices, rows, columns);
+            try {
+                dst3.inverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(dst3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        dst3.inverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     /**
@@ -794,13 +880,18 @@ public class DenseLargeFloatMatrix3D extends WrapperFloatMatrix3D {
      */
 
     public void ifft3(boolean scale) {
-        int oldNthreads = ConcurrencyUtils.getNumberOfThreads();
-        ConcurrencyUtils.setNumberOfThreads(ConcurrencyUtils.nextPow2(oldNthreads));
-        if (fft3 == null) {
-            fft3 = new FloatFFT_3D(slices, rows, columns);
+        Object oldScope = ConcurrencyUtils.setThreadScopeNumberOfThreads(ConcurrencyUtils
+                .nextPow2(ConcurrencyUtils.getNumberOfThreads()));
+        try {
+            final FloatFFT_3D fft3 = TransformPlanCache.acquire(FloatFFT_3D.class, slices, rows, columns);
+            try {
+                fft3.realInverse(elements, scale);
+            } finally {
+                TransformPlanCache.release(fft3, slices, rows, columns);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(oldScope);
         }
-        fft3.realInverse(elements, scale);
-        ConcurrencyUtils.setNumberOfThreads(oldNthreads);
     }
 
     public void setQuick(int slice, int row, int column, float value) {
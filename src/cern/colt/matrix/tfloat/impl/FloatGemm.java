@@ -0,0 +1,345 @@
+package cern.colt.matrix.tfloat.impl;
+
+import java.util.concurrent.Future;
+
+import cern.colt.matrix.tfloat.FloatMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Cache-blocked, register-tiled matrix-matrix multiplication for dense
+ * matrices holding <tt>float</tt> elements.
+ * <p>
+ * Computes <tt>C = alpha * op(A) * op(B) + beta * C</tt>, where the operands
+ * are given by their backing arrays, offsets and strides. Row-major and
+ * column-major matrices as well as their views (including transposed ones)
+ * are therefore handled by the same kernel. Panels of <tt>A</tt> (MC x KC) and
+ * <tt>B</tt> (KC x NC) are packed into contiguous buffers so that the MR x NR
+ * micro-kernel streams through memory with unit stride. <tt>C</tt> is split
+ * into a two-dimensional grid of tiles, one tile per task.
+ */
+final class FloatGemm {
+
+    /**
+     * Number of rows of the register tile.
+     */
+    static final int MR = 4;
+
+    /**
+     * Number of columns of the register tile.
+     */
+    static final int NR = 4;
+
+    /**
+     * Number of rows of a packed block of A (should fit in L2 together with
+     * one panel of B).
+     */
+    static final int MC = 128;
+
+    /**
+     * Depth of packed blocks of A and B.
+     */
+    static final int KC = 256;
+
+    /**
+     * Number of columns of a packed block of B.
+     */
+    static final int NC = 1024;
+
+    /**
+     * Minimal number of flops for which the blocked kernel is used.
+     */
+    static final long BLOCKED_FLOPS = 2L * 48 * 48 * 48;
+
+    /**
+     * Minimal number of flops each task should process.
+     */
+    private static final long TASK_FLOPS = 2L * 96 * 96 * 96;
+
+    private FloatGemm() {
+    }
+
+    /**
+     * Returns true if the matrix can be processed by this kernel.
+     */
+    static boolean isDense(FloatMatrix2D X) {
+        return X instanceof DenseFloatMatrix2D || X instanceof DenseColumnFloatMatrix2D;
+    }
+
+    /**
+     * Returns true if the product of the given shape is large enough to
+     * benefit from packing.
+     */
+    static boolean isBlockable(int m, int n, int k) {
+        return 2L * m * n * k >= BLOCKED_FLOPS;
+    }
+
+    /**
+     * Computes <tt>C = alpha * op(A) * op(B) + beta * C</tt>. All matrices
+     * must satisfy {@link #isDense(FloatMatrix2D)}; dimensions are assumed to
+     * be checked by the caller.
+     */
+    static void zMult(FloatMatrix2D A, FloatMatrix2D B, FloatMatrix2D C, float alpha, float beta,
+            boolean transposeA, boolean transposeB) {
+        int m = C.rows();
+        int n = C.columns();
+        int k = transposeA ? A.rows() : A.columns();
+        int rsA = transposeA ? A.columnStride() : A.rowStride();
+        int csA = transposeA ? A.rowStride() : A.columnStride();
+        int rsB = transposeB ? B.columnStride() : B.rowStride();
+        int csB = transposeB ? B.rowStride() : B.columnStride();
+        multiply(m, n, k, alpha, (float[]) A.elements(), (int) A.index(0, 0), rsA, csA, (float[]) B.elements(),
+                (int) B.index(0, 0), rsB, csB, beta, (float[]) C.elements(), (int) C.index(0, 0), C.rowStride(), C
+                        .columnStride());
+    }
+
+    /**
+     * Computes <tt>C = alpha * A * B + beta * C</tt> for strided operands,
+     * where <tt>A</tt> is m x k, <tt>B</tt> is k x n and <tt>C</tt> is m x n.
+     * The work is split into a two-dimensional grid of tiles of <tt>C</tt>
+     * when more than one thread is available.
+     */
+    static void multiply(final int m, final int n, final int k, final float alpha, final float[] a,
+            final int zeroA, final int rsA, final int csA, final float[] b, final int zeroB, final int rsB,
+            final int csB, final float beta, final float[] c, final int zeroC, final int rsC, final int csC) {
+        if (m == 0 || n == 0) {
+            return;
+        }
+        long flops = 2L * m * n * k;
+        int nthreads = (int) Math.min(flops / TASK_FLOPS, ConcurrencyUtils.getNumberOfThreads());
+        if (nthreads < 2) {
+            multiplySequential(m, n, k, alpha, a, zeroA, rsA, csA, b, zeroB, rsB, csB, beta, c, zeroC, rsC, csC);
+            return;
+        }
+        // choose the grid whose tiles are closest to square
+        int gridRows = 1;
+        int gridColumns = nthreads;
+        double best = Double.MAX_VALUE;
+        for (int pr = 1; pr <= nthreads; pr++) {
+            int pc = nthreads / pr;
+            if (pr > (m + MR - 1) / MR || pc > (n + NR - 1) / NR) {
+                continue;
+            }
+            double ratio = ((double) m / pr) / ((double) n / pc);
+            double score = Math.abs(Math.log(ratio)) - 0.01 * pr * pc;
+            if (score < best) {
+                best = score;
+                gridRows = pr;
+                gridColumns = pc;
+            }
+        }
+        int ntasks = gridRows * gridColumns;
+        if (ntasks < 2) {
+            multiplySequential(m, n, k, alpha, a, zeroA, rsA, csA, b, zeroB, rsB, csB, beta, c, zeroC, rsC, csC);
+            return;
+        }
+        Future<?>[] futures = new Future[ntasks];
+        int heightSpan = m / gridRows;
+        int widthSpan = n / gridColumns;
+        int t = 0;
+        for (int i = 0; i < gridRows; i++) {
+            final int firstRow = i * heightSpan;
+            final int height = (i == gridRows - 1) ? m - firstRow : heightSpan;
+            for (int j = 0; j < gridColumns; j++) {
+                final int firstColumn = j * widthSpan;
+                final int width = (j == gridColumns - 1) ? n - firstColumn : widthSpan;
+                futures[t++] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        multiplySequential(height, width, k, alpha, a, zeroA + firstRow * rsA, rsA, csA, b, zeroB
+                                + firstColumn * csB, rsB, csB, beta, c, zeroC + firstRow * rsC + firstColumn * csC,
+                                rsC, csC);
+                    }
+                });
+            }
+        }
+        ConcurrencyUtils.waitForCompletion(futures);
+    }
+
+    /**
+     * Single-threaded blocked kernel.
+     */
+    static void multiplySequential(int m, int n, int k, float alpha, float[] a, int zeroA, int rsA, int csA,
+            float[] b, int zeroB, int rsB, int csB, float beta, float[] c, int zeroC, int rsC, int csC) {
+        if (beta != 1) {
+            for (int r = 0; r < m; r++) {
+                int idx = zeroC + r * rsC;
+                for (int col = 0; col < n; col++) {
+                    c[idx] *= beta;
+                    idx += csC;
+                }
+            }
+        }
+        if (k == 0) {
+            return;
+        }
+        int kcMax = Math.min(KC, k);
+        float[] packedA = new float[((Math.min(MC, m) + MR - 1) / MR) * MR * kcMax];
+        float[] packedB = new float[((Math.min(NC, n) + NR - 1) / NR) * NR * kcMax];
+        for (int jc = 0; jc < n; jc += NC) {
+            int nc = Math.min(NC, n - jc);
+            for (int pc = 0; pc < k; pc += KC) {
+                int kc = Math.min(KC, k - pc);
+                packB(kc, nc, b, zeroB + pc * rsB + jc * csB, rsB, csB, packedB);
+                for (int ic = 0; ic < m; ic += MC) {
+                    int mc = Math.min(MC, m - ic);
+                    packA(mc, kc, a, zeroA + ic * rsA + pc * csA, rsA, csA, packedA);
+                    for (int jr = 0; jr < nc; jr += NR) {
+                        int nr = Math.min(NR, nc - jr);
+                        int offsetB = jr * kc;
+                        for (int ir = 0; ir < mc; ir += MR) {
+                            int mr = Math.min(MR, mc - ir);
+                            microKernel(kc, alpha, packedA, ir * kc, packedB, offsetB, c, zeroC + (ic + ir) * rsC
+                                    + (jc + jr) * csC, rsC, csC, mr, nr);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs an mc x kc block of A into row panels of height MR. Each panel is
+     * stored column by column; the last panel is padded with zeros.
+     */
+    private static void packA(int mc, int kc, float[] a, int zeroA, int rsA, int csA, float[] packedA) {
+        int dst = 0;
+        for (int ir = 0; ir < mc; ir += MR) {
+            int mr = Math.min(MR, mc - ir);
+            int rowIdx = zeroA + ir * rsA;
+            if (mr == MR) {
+                int idx0 = rowIdx;
+                int idx1 = idx0 + rsA;
+                int idx2 = idx1 + rsA;
+                int idx3 = idx2 + rsA;
+                for (int p = 0; p < kc; p++) {
+                    packedA[dst] = a[idx0];
+                    packedA[dst + 1] = a[idx1];
+                    packedA[dst + 2] = a[idx2];
+                    packedA[dst + 3] = a[idx3];
+                    dst += MR;
+                    idx0 += csA;
+                    idx1 += csA;
+                    idx2 += csA;
+                    idx3 += csA;
+                }
+            } else {
+                for (int p = 0; p < kc; p++) {
+                    int idx = rowIdx + p * csA;
+                    for (int i = 0; i < MR; i++) {
+                        packedA[dst + i] = i < mr ? a[idx + i * rsA] : 0;
+                    }
+                    dst += MR;
+                }
+            }
+        }
+    }
+
+    /**
+     * Packs a kc x nc block of B into column panels of width NR. Each panel is
+     * stored row by row; the last panel is padded with zeros.
+     */
+    private static void packB(int kc, int nc, float[] b, int zeroB, int rsB, int csB, float[] packedB) {
+        int dst = 0;
+        for (int jr = 0; jr < nc; jr += NR) {
+            int nr = Math.min(NR, nc - jr);
+            int columnIdx = zeroB + jr * csB;
+            if (nr == NR) {
+                int idx0 = columnIdx;
+                int idx1 = idx0 + csB;
+                int idx2 = idx1 + csB;
+                int idx3 = idx2 + csB;
+                for (int p = 0; p < kc; p++) {
+                    packedB[dst] = b[idx0];
+                    packedB[dst + 1] = b[idx1];
+                    packedB[dst + 2] = b[idx2];
+                    packedB[dst + 3] = b[idx3];
+                    dst += NR;
+                    idx0 += rsB;
+                    idx1 += rsB;
+                    idx2 += rsB;
+                    idx3 += rsB;
+                }
+            } else {
+                for (int p = 0; p < kc; p++) {
+                    int idx = columnIdx + p * rsB;
+                    for (int j = 0; j < NR; j++) {
+                        packedB[dst + j] = j < nr ? b[idx + j * csB] : 0;
+                    }
+                    dst += NR;
+                }
+            }
+        }
+    }
+
+    /**
+     * Computes an MR x NR tile of <tt>C += alpha * A * B</tt> from packed
+     * panels, keeping all partial sums in local variables. Only the leading mr
+     * x nr part of the tile is written back.
+     */
+    private static void microKernel(int kc, float alpha, float[] packedA, int offsetA, float[] packedB,
+            int offsetB, float[] c, int idxC, int rsC, int csC, int mr, int nr) {
+        float c00 = 0, c01 = 0, c02 = 0, c03 = 0;
+        float c10 = 0, c11 = 0, c12 = 0, c13 = 0;
+        float c20 = 0, c21 = 0, c22 = 0, c23 = 0;
+        float c30 = 0, c31 = 0, c32 = 0, c33 = 0;
+        int ia = offsetA;
+        int ib = offsetB;
+        for (int p = 0; p < kc; p++) {
+            float a0 = packedA[ia];
+            float a1 = packedA[ia + 1];
+            float a2 = packedA[ia + 2];
+            float a3 = packedA[ia + 3];
+            float b0 = packedB[ib];
+            float b1 = packedB[ib + 1];
+            float b2 = packedB[ib + 2];
+            float b3 = packedB[ib + 3];
+            c00 += a0 * b0;
+            c01 += a0 * b1;
+            c02 += a0 * b2;
+            c03 += a0 * b3;
+            c10 += a1 * b0;
+            c11 += a1 * b1;
+            c12 += a1 * b2;
+            c13 += a1 * b3;
+            c20 += a2 * b0;
+            c21 += a2 * b1;
+            c22 += a2 * b2;
+            c23 += a2 * b3;
+            c30 += a3 * b0;
+            c31 += a3 * b1;
+            c32 += a3 * b2;
+            c33 += a3 * b3;
+            ia += MR;
+            ib += NR;
+        }
+        if (mr == MR && nr == NR) {
+            int i0 = idxC;
+            int i1 = i0 + rsC;
+            int i2 = i1 + rsC;
+            int i3 = i2 + rsC;
+            c[i0] += alpha * c00;
+            c[i0 + csC] += alpha * c01;
+            c[i0 + 2 * csC] += alpha * c02;
+            c[i0 + 3 * csC] += alpha * c03;
+            c[i1] += alpha * c10;
+            c[i1 + csC] += alpha * c11;
+            c[i1 + 2 * csC] += alpha * c12;
+            c[i1 + 3 * csC] += alpha * c13;
+            c[i2] += alpha * c20;
+            c[i2 + csC] += alpha * c21;
+            c[i2 + 2 * csC] += alpha * c22;
+            c[i2 + 3 * csC] += alpha * c23;
+            c[i3] += alpha * c30;
+            c[i3 + csC] += alpha * c31;
+            c[i3 + 2 * csC] += alpha * c32;
+            c[i3 + 3 * csC] += alpha * c33;
+        } else {
+            float[] tile = { c00, c01, c02, c03, c10, c11, c12, c13, c20, c21, c22, c23, c30, c31, c32, c33 };
+            for (int i = 0; i < mr; i++) {
+                int idx = idxC + i * rsC;
+                for (int j = 0; j < nr; j++) {
+                    c[idx + j * csC] += alpha * tile[i * NR + j];
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package cern.colt.matrix.tfloat.impl;
+
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Sparse matrix-matrix multiplication (SpGEMM) for compressed matrices holding
+ * <tt>float</tt> elements.
+ * <p>
+ * Computes <tt>C = alpha * A * B</tt>, where <tt>A</tt> (m x k), <tt>B</tt> (k
+ * x n) and <tt>C</tt> (m x n) are given in the compressed row format. Since
+ * the compressed column format of a matrix is the compressed row format of its
+ * transpose, column-compressed products are computed as
+ * <tt>C' = B' * A'</tt> by the same kernel.
+ * <p>
+ * The product is computed in two phases. The symbolic phase counts the
+ * nonzeros of every row of <tt>C</tt>, so that <tt>C</tt> can be allocated
+ * exactly. The numeric phase computes the column indexes (sorted) and the
+ * values. When only the values of the operands change, the numeric phase can
+ * be repeated on the existing pattern of <tt>C</tt>. Both phases split the rows
+ * of <tt>A</tt> into ranges requiring about the same number of multiplications
+ * and process each range in a separate task with its own accumulator (a dense
+ * array, or a hash table if <tt>C</tt> has many more columns than a row of
+ * <tt>C</tt> can have nonzeros).
+ */
+final class FloatSpGemm {
+
+    /**
+     * Maximal number of columns for which dense accumulators are always used.
+     */
+    private static final int DENSE_COLUMNS = 1 << 16;
+
+    private FloatSpGemm() {
+    }
+
+    /**
+     * Splits the rows of A into consecutive ranges requiring about the same
+     * number of multiplications. Range <tt>j</tt> is
+     * <tt>[splits[j], splits[j + 1])</tt>.
+     */
+    static int[] split(int m, int[] ap, int[] aj, int[] bp) {
+        long[] flops = new long[m + 1];
+        for (int i = 0; i < m; i++) {
+            long f = 0;
+            int high = ap[i + 1];
+            for (int k = ap[i]; k < high; k++) {
+                int j = aj[k];
+                f += bp[j + 1] - bp[j];
+            }
+            flops[i + 1] = flops[i] + f;
+        }
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads <= 1) || (m < 2) || (flops[m] < ConcurrencyUtils.getThreadsBeginN_2D())) {
+            return new int[] { 0, m };
+        }
+        nthreads = Math.min(nthreads, m);
+        int[] splits = new int[nthreads + 1];
+        int n = 1;
+        for (int j = 1; j < nthreads; j++) {
+            long target = flops[m] * j / nthreads;
+            int low = splits[n - 1];
+            int high = m;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (flops[mid] < target) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            if (low > splits[n - 1] && low < m) {
+                splits[n++] = low;
+            }
+        }
+        splits[n++] = m;
+        return (n == splits.length) ? splits : Arrays.copyOf(splits, n);
+    }
+
+    /**
+     * Symbolic phase: returns the row pointers of C.
+     *
+     * @throws IllegalArgumentException
+     *             if C has more than <tt>Integer.MAX_VALUE</tt> nonzeros
+     */
+    static int[] symbolic(final int n, final int[] ap, final int[] aj, final int[] bp, final int[] bj,
+            final int[] splits) {
+        final int m = splits[splits.length - 1];
+        final int[] cp = new int[m + 1];
+        Runnable[] tasks = new Runnable[splits.length - 1];
+        for (int t = 0; t < tasks.length; t++) {
+            final int firstRow = splits[t];
+            final int lastRow = splits[t + 1];
+            tasks[t] = new Runnable() {
+                public void run() {
+                    Accumulator acc = new Accumulator(n, maxRowFlops(firstRow, lastRow, ap, aj, bp));
+                    for (int i = firstRow; i < lastRow; i++) {
+                        int count = 0;
+                        int highA = ap[i + 1];
+                        for (int ka = ap[i]; ka < highA; ka++) {
+                            int jj = aj[ka];
+                            int highB = bp[jj + 1];
+                            for (int kb = bp[jj]; kb < highB; kb++) {
+                                if (acc.add(bj[kb], 0)) {
+                                    count++;
+                                }
+                            }
+                        }
+                        acc.clear();
+                        cp[i + 1] = count;
+                    }
+                }
+            };
+        }
+        execute(tasks);
+        long nnz = 0;
+        for (int i = 0; i < m; i++) {
+            nnz += cp[i + 1];
+            if (nnz > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("The product has more than Integer.MAX_VALUE nonzero elements.");
+            }
+            cp[i + 1] = (int) nnz;
+        }
+        return cp;
+    }
+
+    /**
+     * Numeric phase. If <tt>pattern</tt> is false the column indexes of C are
+     * computed (sorted) together with the values; otherwise <tt>cj</tt> must
+     * already hold the pattern of C and only the values are computed.
+     *
+     * @throws IllegalArgumentException
+     *             if <tt>pattern</tt> is true and the product has a nonzero
+     *             outside the pattern of C
+     */
+    static void numeric(final int n, final float alpha, final int[] ap, final int[] aj, final float[] ax,
+            final int[] bp, final int[] bj, final float[] bx, final int[] cp, final int[] cj, final float[] cx,
+            final boolean pattern, final int[] splits) {
+        Runnable[] tasks = new Runnable[splits.length - 1];
+        final boolean[] outside = new boolean[tasks.length];
+        for (int t = 0; t < tasks.length; t++) {
+            final int task = t;
+            final int firstRow = splits[t];
+            final int lastRow = splits[t + 1];
+            tasks[t] = new Runnable() {
+                public void run() {
+                    long maxRowSize = maxRowFlops(firstRow, lastRow, ap, aj, bp);
+                    if (pattern) {
+                        for (int i = firstRow; i < lastRow; i++) {
+                            maxRowSize = Math.max(maxRowSize, cp[i + 1] - cp[i]);
+                        }
+                    }
+                    Accumulator acc = new Accumulator(n, maxRowSize);
+                    for (int i = firstRow; i < lastRow; i++) {
+                        int lowC = cp[i];
+                        int highC = cp[i + 1];
+                        int highA = ap[i + 1];
+                        if (pattern) {
+                            for (int kc = lowC; kc < highC; kc++) {
+                                acc.add(cj[kc], 0);
+                            }
+                            for (int ka = ap[i]; ka < highA; ka++) {
+                                int jj = aj[ka];
+                                float scal = alpha * ax[ka];
+                                int highB = bp[jj + 1];
+                                for (int kb = bp[jj]; kb < highB; kb++) {
+                                    if (!acc.addExisting(bj[kb], scal * bx[kb])) {
+                                        outside[task] = true;
+                                        return;
+                                    }
+                                }
+                            }
+                        } else {
+                            int kc = lowC;
+                            for (int ka = ap[i]; ka < highA; ka++) {
+                                int jj = aj[ka];
+                                float scal = alpha * ax[ka];
+                                int highB = bp[jj + 1];
+                                for (int kb = bp[jj]; kb < highB; kb++) {
+                                    int j = bj[kb];
+                                    if (acc.add(j, scal * bx[kb])) {
+                                        cj[kc++] = j;
+                                    }
+                                }
+                            }
+                            Arrays.sort(cj, lowC, highC);
+                        }
+                        for (int kc = lowC; kc < highC; kc++) {
+                            cx[kc] = acc.get(cj[kc]);
+                        }
+                        acc.clear();
+                    }
+                }
+            };
+        }
+        execute(tasks);
+        for (int t = 0; t < tasks.length; t++) {
+            if (outside[t]) {
+                throw new IllegalArgumentException("The product has a nonzero element outside the sparsity pattern of C.");
+            }
+        }
+    }
+
+    /**
+     * Runs a single task in the calling thread and several tasks in parallel.
+     */
+    private static void execute(Runnable[] tasks) {
+        if (tasks.length == 1) {
+            tasks[0].run();
+            return;
+        }
+        Future<?>[] futures = new Future[tasks.length];
+        for (int t = 0; t < tasks.length; t++) {
+            futures[t] = ConcurrencyUtils.submit(tasks[t]);
+        }
+        ConcurrencyUtils.waitForCompletion(futures);
+    }
+
+    private static long maxRowFlops(int firstRow, int lastRow, int[] ap, int[] aj, int[] bp) {
+        long max = 0;
+        for (int i = firstRow; i < lastRow; i++) {
+            long f = 0;
+            int high = ap[i + 1];
+            for (int k = ap[i]; k < high; k++) {
+                int j = aj[k];
+                f += bp[j + 1] - bp[j];
+            }
+            max = Math.max(max, f);
+        }
+        return max;
+    }
+
+    /**
+     * Accumulator of a sparse row. Dense accumulators mark the columns touched
+     * by the current row with a stamp that is incremented by {@link #clear()};
+     * hash accumulators use open addressing and remember the touched slots.
+     */
+    private static final class Accumulator {
+
+        private final int[] keys;
+
+        private final float[] values;
+
+        private final int[] slots;
+
+        private final int mask;
+
+        private int stamp = 1;
+
+        private int nslots;
+
+        Accumulator(int n, long maxRowSize) {
+            if (n <= DENSE_COLUMNS || 4 * maxRowSize >= n) {
+                keys = new int[n];
+                values = new float[n];
+                slots = null;
+                mask = -1;
+            } else {
+                int size = Integer.highestOneBit((int) Math.max(2 * maxRowSize, 2) - 1) << 1;
+                keys = new int[size];
+                Arrays.fill(keys, -1);
+                values = new float[size];
+                slots = new int[(int) maxRowSize];
+                mask = size - 1;
+            }
+        }
+
+        /**
+         * Adds <tt>v</tt> to column <tt>j</tt>; returns true if column
+         * <tt>j</tt> was not touched by the current row before.
+         */
+        boolean add(int j, float v) {
+            if (mask < 0) {
+                if (keys[j] != stamp) {
+                    keys[j] = stamp;
+                    values[j] = v;
+                    return true;
+                }
+                values[j] += v;
+                return false;
+            }
+            int h = hash(j);
+            while (keys[h] != -1) {
+                if (keys[h] == j) {
+                    values[h] += v;
+                    return false;
+                }
+                h = (h + 1) & mask;
+            }
+            keys[h] = j;
+            values[h] = v;
+            slots[nslots++] = h;
+            return true;
+        }
+
+        /**
+         * Adds <tt>v</tt> to column <tt>j</tt> if it was touched by the
+         * current row before; returns false otherwise.
+         */
+        boolean addExisting(int j, float v) {
+            if (mask < 0) {
+                if (keys[j] != stamp) {
+                    return false;
+                }
+                values[j] += v;
+                return true;
+            }
+            int h = hash(j);
+            while (keys[h] != -1) {
+                if (keys[h] == j) {
+                    values[h] += v;
+                    return true;
+                }
+                h = (h + 1) & mask;
+            }
+            return false;
+        }
+
+        float get(int j) {
+            if (mask < 0) {
+                return values[j];
+            }
+            int h = hash(j);
+            while (keys[h] != j) {
+                h = (h + 1) & mask;
+            }
+            return values[h];
+        }
+
+        void clear() {
+            if (mask < 0) {
+                stamp++;
+            } else {
+                for (int s = 0; s < nslots; s++) {
+                    keys[slots[s]] = -1;
+                }
+                nslots = 0;
+            }
+        }
+
+        private int hash(int j) {
+            return (j * 0x9E3779B9 >>> 7) & mask;
+        }
+    }
+}
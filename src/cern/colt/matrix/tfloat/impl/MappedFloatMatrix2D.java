@@ -0,0 +1,275 @@
+package cern.colt.matrix.tfloat.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.FloatBuffer;
+import java.util.concurrent.Future;
+
+import cern.colt.matrix.AbstractMatrix2D;
+import cern.colt.matrix.tfloat.FloatMatrix1D;
+import cern.colt.matrix.tfloat.FloatMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Dense 2-d matrix holding <tt>float</tt> elements outside of the Java heap.
+ * First see the <a href="package-summary.html">package summary</a> and
+ * javadoc <a href="package-tree.html">tree view</a> to get the broad picture.
+ * <p>
+ * <b>Implementation:</b>
+ * <p>
+ * The elements are stored in row major order either in direct buffers or in a
+ * memory-mapped file, in segments of 1 GiB addressed by <tt>long</tt>
+ * indexes. This data structure allows to store more than 2^31 elements, and a
+ * matrix backed by a file can be larger than the Java heap and the physical
+ * memory; the operating system pages the elements in and out as they are
+ * accessed. Elements are stored in the native byte order. Changes of a
+ * matrix backed by a file are written to the file by the operating system,
+ * {@link #force()} writes them immediately. Note that this implementation is
+ * not synchronized.
+ * <p>
+ * All views (<tt>viewPart</tt>, <tt>viewDice</tt>, <tt>viewSelection</tt>,
+ * flips and strides) share the storage of the matrix, and the parallel
+ * <tt>assign</tt>, <tt>aggregate</tt> and <tt>zMult</tt> methods of
+ * {@link FloatMatrix2D} apply to them.
+ * <p>
+ * These matrices cannot be serialized: the elements are held outside of the
+ * Java heap, and writing a matrix to an object stream throws a
+ * <tt>NotSerializableException</tt>.
+ * <p>
+ * <b>Time complexity:</b>
+ * <p>
+ * <tt>O(1)</tt> (i.e. constant time) for the basic operations <tt>get</tt>,
+ * <tt>getQuick</tt>, <tt>set</tt>, <tt>setQuick</tt> and <tt>size</tt>.
+ *
+ * @see DenseLargeFloatMatrix2D
+ */
+public class MappedFloatMatrix2D extends FloatMatrix2D {
+
+    /*
+     * The elements of the matrix.
+     */
+    private transient MappedFloatStorage storage;
+
+    /*
+     * Position of element [0,0] of the storage addressed by this matrix.
+     */
+    private long base;
+
+    /*
+     * Distances in the storage between two consecutive ranks of the rows and
+     * of the columns.
+     */
+    private long rowMultiplier, columnMultiplier;
+
+    /*
+     * Ranks of the rows and of the columns of a selection view, null if all
+     * ranks are visible.
+     */
+    private int[] rowOffsets, columnOffsets;
+
+    /**
+     * Constructs a matrix with a given number of rows and columns, stored in
+     * direct buffers. All entries are initially <tt>0</tt>.
+     *
+     * @param rows
+     *            the number of rows the matrix shall have.
+     * @param columns
+     *            the number of columns the matrix shall have.
+     * @throws IllegalArgumentException
+     *             if <tt>rows<0 || columns<0</tt>.
+     */
+    public MappedFloatMatrix2D(int rows, int columns) {
+        setUpMapped(rows, columns);
+        storage = new MappedFloatStorage((long) rows * columns);
+    }
+
+    /**
+     * Constructs a matrix with a given number of rows and columns, stored in
+     * row major order in the given file starting at byte <tt>position</tt>.
+     * The file is created or extended if necessary, unless <tt>readOnly</tt>
+     * is true. The mapping stays valid until the matrix is garbage collected.
+     *
+     * @param rows
+     *            the number of rows the matrix shall have.
+     * @param columns
+     *            the number of columns the matrix shall have.
+     * @param file
+     *            the file holding the elements.
+     * @param position
+     *            the position of the first element in the file, in bytes.
+     * @param readOnly
+     *            if true, the file is mapped read-only and setting an element
+     *            throws <tt>ReadOnlyBufferException</tt>.
+     * @throws IOException
+     *             if the file cannot be mapped
+     * @throws IllegalArgumentException
+     *             if <tt>rows<0 || columns<0</tt>.
+     */
+    public MappedFloatMatrix2D(int rows, int columns, File file, long position, boolean readOnly)
+            throws IOException {
+        setUpMapped(rows, columns);
+        storage = new MappedFloatStorage(file, position, (long) rows * columns, readOnly);
+    }
+
+    /**
+     * Constructs a view sharing the given storage.
+     */
+    MappedFloatMatrix2D(int rows, int columns, MappedFloatStorage storage, long base, int rowZero,
+            int columnZero, int rowStride, int columnStride, long rowMultiplier, long columnMultiplier,
+            int[] rowOffsets, int[] columnOffsets) {
+        try {
+            setUp(rows, columns, rowZero, columnZero, rowStride, columnStride);
+        } catch (IllegalArgumentException exc) { // we can hold rows*columns>Integer.MAX_VALUE cells !
+            if (!"matrix too large".equals(exc.getMessage()))
+                throw exc;
+        }
+        this.storage = storage;
+        this.base = base;
+        this.rowMultiplier = rowMultiplier;
+        this.columnMultiplier = columnMultiplier;
+        this.rowOffsets = rowOffsets;
+        this.columnOffsets = columnOffsets;
+        this.isNoView = false;
+    }
+
+    private void setUpMapped(int rows, int columns) {
+        try {
+            setUp(rows, columns, 0, 0, 1, 1);
+        } catch (IllegalArgumentException exc) { // we can hold rows*columns>Integer.MAX_VALUE cells !
+            if (!"matrix too large".equals(exc.getMessage()))
+                throw exc;
+        }
+        rowMultiplier = columns;
+        columnMultiplier = 1;
+    }
+
+    /**
+     * Returns the segments of the storage of this matrix. Element
+     * <tt>[row,column]</tt> of the matrix (not of a view) is element
+     * <tt>index % 2^28</tt> of segment <tt>index / 2^28</tt>, where
+     * <tt>index = row * columns() + column</tt>.
+     *
+     * @return the segments of the storage
+     */
+    public FloatBuffer[] elements() {
+        return storage.segments();
+    }
+
+    /**
+     * Writes the changes of a matrix backed by a file to the file. Does
+     * nothing if the matrix is stored in direct buffers.
+     */
+    public void force() {
+        storage.force();
+    }
+
+    public float getQuick(int row, int column) {
+        return storage.get(index(row, column));
+    }
+
+    public long index(int row, int column) {
+        int r = rowZero + row * rowStride;
+        int c = columnZero + column * columnStride;
+        return base + (rowOffsets == null ? r : rowOffsets[r]) * rowMultiplier
+                + (columnOffsets == null ? c : columnOffsets[c]) * columnMultiplier;
+    }
+
+    public FloatMatrix2D like(int rows, int columns) {
+        return new MappedFloatMatrix2D(rows, columns);
+    }
+
+    public FloatMatrix1D like1D(int size) {
+        return new DenseFloatMatrix1D(size);
+    }
+
+    public void setQuick(int row, int column, float value) {
+        storage.set(index(row, column), value);
+    }
+
+    public FloatMatrix1D vectorize() {
+        if (size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("matrix too large");
+        }
+        final DenseFloatMatrix1D v = new DenseFloatMatrix1D((int) size());
+        int nthreads = ConcurrencyUtils.getNumberOfThreads();
+        if ((nthreads > 1) && (size() >= ConcurrencyUtils.getThreadsBeginN_2D())) {
+            nthreads = Math.min(nthreads, columns);
+            Future<?>[] futures = new Future[nthreads];
+            int k = columns / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstCol = j * k;
+                final int lastCol = (j == nthreads - 1) ? columns : firstCol + k;
+                final int firstidx = j * k * rows;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        int idx = firstidx;
+                        for (int c = firstCol; c < lastCol; c++) {
+                            for (int r = 0; r < rows; r++) {
+                                v.setQuick(idx++, getQuick(r, c));
+                            }
+                        }
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            int idx = 0;
+            for (int c = 0; c < columns; c++) {
+                for (int r = 0; r < rows; r++) {
+                    v.setQuick(idx++, getQuick(r, c));
+                }
+            }
+        }
+        return v;
+    }
+
+    public FloatMatrix1D viewColumn(int column) {
+        return viewDice().viewRow(column);
+    }
+
+    public FloatMatrix1D viewRow(int row) {
+        checkRow(row);
+        return new DelegateFloatMatrix1D(this, row);
+    }
+
+    protected int _columnOffset(int absRank) {
+        return columnOffsets == null ? absRank : columnOffsets[absRank];
+    }
+
+    protected int _rowOffset(int absRank) {
+        return rowOffsets == null ? absRank : rowOffsets[absRank];
+    }
+
+    protected boolean haveSharedCellsRaw(FloatMatrix2D other) {
+        if (other instanceof MappedFloatMatrix2D) {
+            return storage == ((MappedFloatMatrix2D) other).storage;
+        }
+        return false;
+    }
+
+    protected FloatMatrix1D like1D(int size, int zero, int stride) {
+        throw new InternalError(); // should never get called
+    }
+
+    protected AbstractMatrix2D vDice() {
+        super.vDice();
+        long tmp = rowMultiplier;
+        rowMultiplier = columnMultiplier;
+        columnMultiplier = tmp;
+        int[] offsets = rowOffsets;
+        rowOffsets = columnOffsets;
+        columnOffsets = offsets;
+        return this;
+    }
+
+    protected FloatMatrix2D viewSelectionLike(int[] rowOffsets, int[] columnOffsets) {
+        return new MappedFloatMatrix2D(rowOffsets.length, columnOffsets.length, storage, base, 0, 0, 1, 1,
+                rowMultiplier, columnMultiplier, rowOffsets, columnOffsets);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        throw new NotSerializableException(getClass().getName());
+    }
+}
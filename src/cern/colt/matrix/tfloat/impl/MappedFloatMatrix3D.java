@@ -0,0 +1,269 @@
+package cern.colt.matrix.tfloat.impl;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+import java.nio.FloatBuffer;
+
+import cern.colt.matrix.AbstractMatrix3D;
+import cern.colt.matrix.tfloat.FloatMatrix1D;
+import cern.colt.matrix.tfloat.FloatMatrix2D;
+import cern.colt.matrix.tfloat.FloatMatrix3D;
+
+/**
+ * Dense 3-d matrix holding <tt>float</tt> elements outside of the Java heap.
+ * First see the <a href="package-summary.html">package summary</a> and
+ * javadoc <a href="package-tree.html">tree view</a> to get the broad picture.
+ * <p>
+ * <b>Implementation:</b>
+ * <p>
+ * The elements are stored in slice major, then row major order either in
+ * direct buffers or in a memory-mapped file, in segments of 1 GiB addressed
+ * by <tt>long</tt> indexes, like the elements of {@link MappedFloatMatrix2D}.
+ * This data structure allows to store more than 2^31 elements. Slices, rows
+ * and columns of the matrix are {@link MappedFloatMatrix2D} views sharing the
+ * storage. Note that this implementation is not synchronized.
+ * <p>
+ * These matrices cannot be serialized: the elements are held outside of the
+ * Java heap, and writing a matrix to an object stream throws a
+ * <tt>NotSerializableException</tt>.
+ * <p>
+ * <b>Time complexity:</b>
+ * <p>
+ * <tt>O(1)</tt> (i.e. constant time) for the basic operations <tt>get</tt>,
+ * <tt>getQuick</tt>, <tt>set</tt>, <tt>setQuick</tt> and <tt>size</tt>.
+ *
+ * @see DenseLargeFloatMatrix3D
+ */
+public class MappedFloatMatrix3D extends FloatMatrix3D {
+
+    /*
+     * The elements of the matrix.
+     */
+    private transient MappedFloatStorage storage;
+
+    /*
+     * Position of element [0,0,0] of the storage addressed by this matrix.
+     */
+    private long base;
+
+    /*
+     * Distances in the storage between two consecutive ranks of the slices,
+     * of the rows and of the columns.
+     */
+    private long sliceMultiplier, rowMultiplier, columnMultiplier;
+
+    /*
+     * Ranks of the slices, of the rows and of the columns of a selection view,
+     * null if all ranks are visible.
+     */
+    private int[] sliceOffsets, rowOffsets, columnOffsets;
+
+    /**
+     * Constructs a matrix with a given number of slices, rows and columns,
+     * stored in direct buffers. All entries are initially <tt>0</tt>.
+     *
+     * @param slices
+     *            the number of slices the matrix shall have.
+     * @param rows
+     *            the number of rows the matrix shall have.
+     * @param columns
+     *            the number of columns the matrix shall have.
+     * @throws IllegalArgumentException
+     *             if <tt>slices<0 || rows<0 || columns<0</tt>.
+     */
+    public MappedFloatMatrix3D(int slices, int rows, int columns) {
+        setUpMapped(slices, rows, columns);
+        storage = new MappedFloatStorage((long) slices * rows * columns);
+    }
+
+    /**
+     * Constructs a matrix with a given number of slices, rows and columns,
+     * stored in the given file starting at byte <tt>position</tt>. The file is
+     * created or extended if necessary, unless <tt>readOnly</tt> is true. The
+     * mapping stays valid until the matrix is garbage collected.
+     *
+     * @param slices
+     *            the number of slices the matrix shall have.
+     * @param rows
+     *            the number of rows the matrix shall have.
+     * @param columns
+     *            the number of columns the matrix shall have.
+     * @param file
+     *            the file holding the elements.
+     * @param position
+     *            the position of the first element in the file, in bytes.
+     * @param readOnly
+     *            if true, the file is mapped read-only and setting an element
+     *            throws <tt>ReadOnlyBufferException</tt>.
+     * @throws IOException
+     *             if the file cannot be mapped
+     * @throws IllegalArgumentException
+     *             if <tt>slices<0 || rows<0 || columns<0</tt>.
+     */
+    public MappedFloatMatrix3D(int slices, int rows, int columns, File file, long position, boolean readOnly)
+            throws IOException {
+        setUpMapped(slices, rows, columns);
+        storage = new MappedFloatStorage(file, position, (long) slices * rows * columns, readOnly);
+    }
+
+    /**
+     * Constructs a selection view sharing the given storage.
+     */
+    private MappedFloatMatrix3D(MappedFloatMatrix3D content, int[] sliceOffsets, int[] rowOffsets,
+            int[] columnOffsets) {
+        try {
+            setUp(sliceOffsets.length, rowOffsets.length, columnOffsets.length, 0, 0, 0, 1, 1, 1);
+        } catch (IllegalArgumentException exc) { // we can hold slices*rows*columns>Integer.MAX_VALUE cells !
+            if (!"matrix too large".equals(exc.getMessage()))
+                throw exc;
+        }
+        this.storage = content.storage;
+        this.base = content.base;
+        this.sliceMultiplier = content.sliceMultiplier;
+        this.rowMultiplier = content.rowMultiplier;
+        this.columnMultiplier = content.columnMultiplier;
+        this.sliceOffsets = sliceOffsets;
+        this.rowOffsets = rowOffsets;
+        this.columnOffsets = columnOffsets;
+        this.isNoView = false;
+    }
+
+    private void setUpMapped(int slices, int rows, int columns) {
+        try {
+            setUp(slices, rows, columns, 0, 0, 0, 1, 1, 1);
+        } catch (IllegalArgumentException exc) { // we can hold slices*rows*columns>Integer.MAX_VALUE cells !
+            if (!"matrix too large".equals(exc.getMessage()))
+                throw exc;
+        }
+        sliceMultiplier = (long) rows * columns;
+        rowMultiplier = columns;
+        columnMultiplier = 1;
+    }
+
+    /**
+     * Returns the segments of the storage of this matrix. Element
+     * <tt>[slice,row,column]</tt> of the matrix (not of a view) is element
+     * <tt>index % 2^28</tt> of segment <tt>index / 2^28</tt>, where
+     * <tt>index = (slice * rows() + row) * columns() + column</tt>.
+     *
+     * @return the segments of the storage
+     */
+    public FloatBuffer[] elements() {
+        return storage.segments();
+    }
+
+    /**
+     * Writes the changes of a matrix backed by a file to the file. Does
+     * nothing if the matrix is stored in direct buffers.
+     */
+    public void force() {
+        storage.force();
+    }
+
+    public float getQuick(int slice, int row, int column) {
+        return storage.get(index(slice, row, column));
+    }
+
+    public long index(int slice, int row, int column) {
+        return base + _sliceOffset(sliceZero + slice * sliceStride) * sliceMultiplier
+                + _rowOffset(rowZero + row * rowStride) * rowMultiplier
+                + _columnOffset(columnZero + column * columnStride) * columnMultiplier;
+    }
+
+    public FloatMatrix3D like(int slices, int rows, int columns) {
+        return new MappedFloatMatrix3D(slices, rows, columns);
+    }
+
+    public FloatMatrix2D like2D(int rows, int columns) {
+        return new MappedFloatMatrix2D(rows, columns);
+    }
+
+    public void setQuick(int slice, int row, int column, float value) {
+        storage.set(index(slice, row, column), value);
+    }
+
+    public FloatMatrix1D vectorize() {
+        if (size() > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("matrix too large");
+        }
+        FloatMatrix1D v = new DenseFloatMatrix1D((int) size());
+        int length = rows * columns;
+        for (int s = 0; s < slices; s++) {
+            v.viewPart(s * length, length).assign(viewSlice(s).vectorize());
+        }
+        return v;
+    }
+
+    public FloatMatrix2D viewColumn(int column) {
+        checkColumn(column);
+        long offset = base + _columnOffset(columnZero + column * columnStride) * columnMultiplier;
+        return new MappedFloatMatrix2D(slices, rows, storage, offset, sliceZero, rowZero, sliceStride, rowStride,
+                sliceMultiplier, rowMultiplier, sliceOffsets, rowOffsets);
+    }
+
+    public FloatMatrix2D viewRow(int row) {
+        checkRow(row);
+        long offset = base + _rowOffset(rowZero + row * rowStride) * rowMultiplier;
+        return new MappedFloatMatrix2D(slices, columns, storage, offset, sliceZero, columnZero, sliceStride,
+                columnStride, sliceMultiplier, columnMultiplier, sliceOffsets, columnOffsets);
+    }
+
+    public FloatMatrix2D viewSlice(int slice) {
+        checkSlice(slice);
+        long offset = base + _sliceOffset(sliceZero + slice * sliceStride) * sliceMultiplier;
+        return new MappedFloatMatrix2D(rows, columns, storage, offset, rowZero, columnZero, rowStride,
+                columnStride, rowMultiplier, columnMultiplier, rowOffsets, columnOffsets);
+    }
+
+    protected int _columnOffset(int absRank) {
+        return columnOffsets == null ? absRank : columnOffsets[absRank];
+    }
+
+    protected int _rowOffset(int absRank) {
+        return rowOffsets == null ? absRank : rowOffsets[absRank];
+    }
+
+    protected int _sliceOffset(int absRank) {
+        return sliceOffsets == null ? absRank : sliceOffsets[absRank];
+    }
+
+    protected boolean haveSharedCellsRaw(FloatMatrix3D other) {
+        if (other instanceof MappedFloatMatrix3D) {
+            return storage == ((MappedFloatMatrix3D) other).storage;
+        }
+        return false;
+    }
+
+    protected FloatMatrix2D like2D(int rows, int columns, int rowZero, int columnZero, int rowStride,
+            int columnStride) {
+        throw new InternalError(); // should never get called
+    }
+
+    protected AbstractMatrix3D vDice(int axis0, int axis1, int axis2) {
+        super.vDice(axis0, axis1, axis2);
+        // the zeros are ranks of their own axis, so they move with it
+        int[] zeros = { sliceZero, rowZero, columnZero };
+        long[] multipliers = { sliceMultiplier, rowMultiplier, columnMultiplier };
+        int[][] offsets = { sliceOffsets, rowOffsets, columnOffsets };
+        sliceZero = zeros[axis0];
+        rowZero = zeros[axis1];
+        columnZero = zeros[axis2];
+        sliceMultiplier = multipliers[axis0];
+        rowMultiplier = multipliers[axis1];
+        columnMultiplier = multipliers[axis2];
+        sliceOffsets = offsets[axis0];
+        rowOffsets = offsets[axis1];
+        columnOffsets = offsets[axis2];
+        return this;
+    }
+
+    protected FloatMatrix3D viewSelectionLike(int[] sliceOffsets, int[] rowOffsets, int[] columnOffsets) {
+        return new MappedFloatMatrix3D(this, sliceOffsets, rowOffsets, columnOffsets);
+    }
+
+    private void writeObject(ObjectOutputStream out) throws IOException {
+        throw new NotSerializableException(getClass().getName());
+    }
+}
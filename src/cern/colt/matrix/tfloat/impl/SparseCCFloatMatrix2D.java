@@ -19,7 +19,6 @@ import edu.emory.mathcs.csparsej.tfloat.Scs_add;
 import edu.emory.mathcs.csparsej.tfloat.Scs_cumsum;
 import edu.emory.mathcs.csparsej.tfloat.Scs_dropzeros;
 import edu.emory.mathcs.csparsej.tfloat.Scs_dupl;
-import edu.emory.mathcs.csparsej.tfloat.Scs_multiply;
 import edu.emory.mathcs.csparsej.tfloat.Scs_transpose;
 import edu.emory.mathcs.csparsej.tfloat.Scs_util;
 import edu.emory.mathcs.csparsej.tfloat.Scs_common.Scs;
@@ -870,7 +869,7 @@ public class SparseCCFloatMatrix2D extends WrapperFloatMatrix2D {
         boolean ignore = (C == null);
         if (C == null) {
             if (B instanceof SparseCCFloatMatrix2D) {
-                C = new SparseCCFloatMatrix2D(rowsA, p, (rowsA * p));
+                C = new SparseCCFloatMatrix2D(rowsA, p, 0);
             } else {
                 C = new DenseFloatMatrix2D(rowsA, p);
             }
@@ -932,24 +931,28 @@ public class SparseCCFloatMatrix2D extends WrapperFloatMatrix2D {
             }
 
         } else if ((B instanceof SparseCCFloatMatrix2D) && (C instanceof SparseCCFloatMatrix2D)) {
-            SparseCCFloatMatrix2D AA;
-            if (transposeA) {
-                AA = getTranspose();
-            } else {
-                AA = this;
-            }
+            SparseCCFloatMatrix2D AA = transposeA ? getTranspose() : this;
             SparseCCFloatMatrix2D BB = (SparseCCFloatMatrix2D) B;
             if (transposeB) {
                 BB = BB.getTranspose();
             }
             SparseCCFloatMatrix2D CC = (SparseCCFloatMatrix2D) C;
-            CC.scs = Scs_multiply.cs_multiply(AA.scs, BB.scs);
-            if (CC.scs == null) {
-                throw new IllegalArgumentException("Exception occured in cs_multiply()");
-            }
-            if (alpha != 1.0) {
-                CC.assign(cern.jet.math.tfloat.FloatFunctions.mult(alpha));
-            }
+            // the column-compressed C is the row-compressed C' = op(B)' * op(A)'
+            int[] splits = FloatSpGemm.split(p, BB.scs.p, BB.scs.i, AA.scs.p);
+            int[] columnPointersC = FloatSpGemm.symbolic(rowsA, BB.scs.p, BB.scs.i, AA.scs.p, AA.scs.i, splits);
+            int nnz = columnPointersC[p];
+            Scs scsC = new Scs();
+            scsC.m = rowsA;
+            scsC.n = p;
+            scsC.nzmax = nnz;
+            scsC.nz = -1;
+            scsC.p = columnPointersC;
+            scsC.i = new int[nnz];
+            scsC.x = new float[nnz];
+            FloatSpGemm.numeric(rowsA, alpha, BB.scs.p, BB.scs.i, BB.scs.x, AA.scs.p, AA.scs.i, AA.scs.x,
+                    scsC.p, scsC.i, scsC.x, false, splits);
+            CC.scs = scsC;
+            CC.rowIndexesSorted = true;
         } else {
             if (transposeB) {
                 B = B.viewDice();
@@ -982,6 +985,49 @@ public class SparseCCFloatMatrix2D extends WrapperFloatMatrix2D {
         return C;
     }
 
+    /**
+     * Recomputes the values of <tt>C = alpha * op(A) * op(B)</tt> keeping the
+     * sparsity pattern of <tt>C</tt>, where <tt>A</tt> is this matrix. This is
+     * meant for repeated products of matrices whose values change but whose
+     * sparsity patterns do not: <tt>C</tt> is first computed by
+     * {@link #zMult(FloatMatrix2D, FloatMatrix2D, float, float, boolean, boolean)},
+     * then this method skips the symbolic phase and reuses the memory of
+     * <tt>C</tt>.
+     * 
+     * @param B
+     *            the second source matrix
+     * @param C
+     *            the matrix holding the pattern of the product and receiving
+     *            its values
+     * @param alpha
+     *            the scaling factor
+     * @param transposeA
+     *            whether A must be transposed
+     * @param transposeB
+     *            whether B must be transposed
+     * @return C (for convenience only)
+     * @throws IllegalArgumentException
+     *             if the dimensions do not agree, or if the product has a
+     *             nonzero element outside the pattern of <tt>C</tt>
+     */
+    public SparseCCFloatMatrix2D zMultNumeric(SparseCCFloatMatrix2D B, SparseCCFloatMatrix2D C, float alpha,
+            boolean transposeA, boolean transposeB) {
+        SparseCCFloatMatrix2D AA = transposeA ? getTranspose() : this;
+        SparseCCFloatMatrix2D BB = transposeB ? B.getTranspose() : B;
+        if (AA.columns != BB.rows)
+            throw new IllegalArgumentException("Matrix2D inner dimensions must agree:" + AA.toStringShort() + ", "
+                    + BB.toStringShort());
+        if (C.rows != AA.rows || C.columns != BB.columns)
+            throw new IllegalArgumentException("Incompatible result matrix: " + AA.toStringShort() + ", "
+                    + BB.toStringShort() + ", " + C.toStringShort());
+        if (this == C || B == C)
+            throw new IllegalArgumentException("Matrices must not be identical");
+        int[] splits = FloatSpGemm.split(BB.columns, BB.scs.p, BB.scs.i, AA.scs.p);
+        FloatSpGemm.numeric(AA.rows, alpha, BB.scs.p, BB.scs.i, BB.scs.x, AA.scs.p, AA.scs.i, AA.scs.x, C.scs.p,
+                C.scs.i, C.scs.x, true, splits);
+        return C;
+    }
+
     protected FloatMatrix2D getContent() {
         return this;
     }
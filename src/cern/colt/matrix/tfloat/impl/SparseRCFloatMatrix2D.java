@@ -1041,7 +1041,7 @@ public class SparseRCFloatMatrix2D extends WrapperFloatMatrix2D {
         boolean ignore = (C == null);
         if (C == null) {
             if (B instanceof SparseRCFloatMatrix2D) {
-                C = new SparseRCFloatMatrix2D(rowsA, p, (rowsA * p));
+                C = new SparseRCFloatMatrix2D(rowsA, p, 0);
             } else {
                 C = new DenseFloatMatrix2D(rowsA, p);
             }
@@ -1088,77 +1088,24 @@ public class SparseRCFloatMatrix2D extends WrapperFloatMatrix2D {
                 }
             }
         } else if ((B instanceof SparseRCFloatMatrix2D) && (C instanceof SparseRCFloatMatrix2D)) {
-            SparseRCFloatMatrix2D AA;
-            SparseRCFloatMatrix2D BB;
-            SparseRCFloatMatrix2D CC = (SparseRCFloatMatrix2D) C;
-            if (transposeA) {
-                AA = getTranspose();
-            } else {
-                AA = this;
-            }
+            SparseRCFloatMatrix2D AA = transposeA ? getTranspose() : this;
+            SparseRCFloatMatrix2D BB = (SparseRCFloatMatrix2D) B;
             if (transposeB) {
-                BB = ((SparseRCFloatMatrix2D) B).getTranspose();
-            } else {
-                BB = (SparseRCFloatMatrix2D) B;
-            }
-
-            int[] rowPointersA = AA.rowPointers;
-            int[] columnIndexesA = AA.columnIndexes;
-            float[] valuesA = AA.values;
-
-            int[] rowPointersB = BB.rowPointers;
-            int[] columnIndexesB = BB.columnIndexes;
-            float[] valuesB = BB.values;
-
-            int[] rowPointersC = CC.rowPointers;
-            int[] columnIndexesC = CC.columnIndexes;
-            float[] valuesC = CC.values;
-            int nzmax = valuesC.length;
-
-            int[] iw = new int[columnsB + 1];
-            for (int i = 0; i < iw.length; i++) {
-                iw[i] = -1;
+                BB = BB.getTranspose();
             }
-            int len = -1;
-            for (int ii = 0; ii < rowsA; ii++) {
-                int highA = rowPointersA[ii + 1];
-                for (int ka = rowPointersA[ii]; ka < highA; ka++) {
-                    float scal = valuesA[ka] * alpha;
-                    int jj = columnIndexesA[ka];
-                    int highB = rowPointersB[jj + 1];
-                    for (int kb = rowPointersB[jj]; kb < highB; kb++) {
-                        int jcol = columnIndexesB[kb];
-                        int jpos = iw[jcol];
-                        if (jpos == -1) {
-                            len++;
-                            if (len >= nzmax) {
-                                throw new IllegalArgumentException(
-                                        "The max number of nonzero elements in C is too small.");
-                            }
-                            columnIndexesC[len] = jcol;
-                            iw[jcol] = len;
-                            valuesC[len] = scal * valuesB[kb];
-                        } else {
-                            valuesC[jpos] += scal * valuesB[kb];
-                        }
-                    }
-                }
-                for (int k = rowPointersC[ii]; k < len + 1; k++) {
-                    iw[columnIndexesC[k]] = -1;
-                }
-                rowPointersC[ii + 1] = len + 1;
-
-                //                int length = rowPointersC[ii + 1] - rowPointersC[ii];
-                //                IntMatrix1D columnIndexesCPart = columnIndexesC.viewPart(rowPointersC[ii], length);
-                //                int[] indexes = cern.colt.matrix.tint.algo.IntSorting.quickSort.sortIndex(columnIndexesCPart);
-                //                Arrays.sort(columnIndexesCElements, rowPointersC[ii], rowPointersC[ii + 1]);
-                //                FloatMatrix1D valuesCPart = valuesC.viewPart(rowPointersC[ii], length).viewSelection(indexes);
-                //                valuesC.viewPart(rowPointersC[ii], length).assign(valuesCPart);
-            }
-            //            CC.columnIndexes.elements((int[]) columnIndexesC.elements());
-            //            CC.columnIndexes.setSize(columnIndexesSize);
-            //            CC.values.elements((float[]) valuesC.elements());
-            //            CC.values.setSize(columnIndexesSize);
+            SparseRCFloatMatrix2D CC = (SparseRCFloatMatrix2D) C;
+            int[] splits = FloatSpGemm.split(rowsA, AA.rowPointers, AA.columnIndexes, BB.rowPointers);
+            int[] rowPointersC = FloatSpGemm.symbolic(columnsB, AA.rowPointers, AA.columnIndexes, BB.rowPointers,
+                    BB.columnIndexes, splits);
+            int nnz = rowPointersC[rowsA];
+            int[] columnIndexesC = new int[nnz];
+            float[] valuesC = new float[nnz];
+            FloatSpGemm.numeric(columnsB, alpha, AA.rowPointers, AA.columnIndexes, AA.values, BB.rowPointers,
+                    BB.columnIndexes, BB.values, rowPointersC, columnIndexesC, valuesC, false, splits);
+            CC.rowPointers = rowPointersC;
+            CC.columnIndexes = columnIndexesC;
+            CC.values = valuesC;
+            CC.columnIndexesSorted = true;
         } else {
             if (transposeB) {
                 B = B.viewDice();
@@ -1190,6 +1137,49 @@ public class SparseRCFloatMatrix2D extends WrapperFloatMatrix2D {
         return C;
     }
 
+    /**
+     * Recomputes the values of <tt>C = alpha * op(A) * op(B)</tt> keeping the
+     * sparsity pattern of <tt>C</tt>, where <tt>A</tt> is this matrix. This is
+     * meant for repeated products of matrices whose values change but whose
+     * sparsity patterns do not: <tt>C</tt> is first computed by
+     * {@link #zMult(FloatMatrix2D, FloatMatrix2D, float, float, boolean, boolean)},
+     * then this method skips the symbolic phase and reuses the memory of
+     * <tt>C</tt>.
+     * 
+     * @param B
+     *            the second source matrix
+     * @param C
+     *            the matrix holding the pattern of the product and receiving
+     *            its values
+     * @param alpha
+     *            the scaling factor
+     * @param transposeA
+     *            whether A must be transposed
+     * @param transposeB
+     *            whether B must be transposed
+     * @return C (for convenience only)
+     * @throws IllegalArgumentException
+     *             if the dimensions do not agree, or if the product has a
+     *             nonzero element outside the pattern of <tt>C</tt>
+     */
+    public SparseRCFloatMatrix2D zMultNumeric(SparseRCFloatMatrix2D B, SparseRCFloatMatrix2D C, float alpha,
+            boolean transposeA, boolean transposeB) {
+        SparseRCFloatMatrix2D AA = transposeA ? getTranspose() : this;
+        SparseRCFloatMatrix2D BB = transposeB ? B.getTranspose() : B;
+        if (AA.columns != BB.rows)
+            throw new IllegalArgumentException("Matrix2D inner dimensions must agree:" + AA.toStringShort() + ", "
+                    + BB.toStringShort());
+        if (C.rows != AA.rows || C.columns != BB.columns)
+            throw new IllegalArgumentException("Incompatible result matrix: " + AA.toStringShort() + ", "
+                    + BB.toStringShort() + ", " + C.toStringShort());
+        if (this == C || B == C)
+            throw new IllegalArgumentException("Matrices must not be identical");
+        int[] splits = FloatSpGemm.split(AA.rows, AA.rowPointers, AA.columnIndexes, BB.rowPointers);
+        FloatSpGemm.numeric(BB.columns, alpha, AA.rowPointers, AA.columnIndexes, AA.values, BB.rowPointers,
+                BB.columnIndexes, BB.values, C.rowPointers, C.columnIndexes, C.values, true, splits);
+        return C;
+    }
+
     private float cumsum(int[] p, int[] c, int n) {
         int nz = 0;
         float nz2 = 0;
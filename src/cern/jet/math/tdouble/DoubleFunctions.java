@@ -12,6 +12,7 @@ import cern.colt.function.tdouble.DoubleDoubleFunction;
 import cern.colt.function.tdouble.DoubleDoubleProcedure;
 import cern.colt.function.tdouble.DoubleFunction;
 import cern.colt.function.tdouble.DoubleProcedure;
+import cern.jet.random.tdouble.engine.RandomStreams;
 
 // import com.imsl.math.Sfun;
 /**
@@ -1177,8 +1178,8 @@ public class DoubleFunctions extends Object {
      * Constructs a function that returns a new uniform random number in the
      * open unit interval <code>(0.0,1.0)</code> (excluding 0.0 and 1.0).
      * Currently the engine is
-     * {@link cern.jet.random.tdouble.engine.DoubleMersenneTwister} and is
-     * seeded with the current time.
+     * {@link cern.jet.random.tdouble.engine.SplitMix64}, with the stream of the
+     * calling thread of {@link RandomStreams}, so that threads do not contend.
      * <p>
      * Note that any random engine derived from
      * {@link cern.jet.random.tdouble.engine.DoubleRandomEngine} and any random
@@ -1192,11 +1193,10 @@ public class DoubleFunctions extends Object {
         return new RandomDoubleFunction();
     }
 
-    // TODO
     private static class RandomDoubleFunction implements DoubleFunction {
 
         public double apply(double argument) {
-            return Math.random();
+            return RandomStreams.get().nextDouble();
         }
 
     }
@@ -36,6 +36,24 @@ public abstract class AbstractDiscreteDistribution extends AbstractDoubleDistrib
         return nextInt();
     }
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with random numbers from the
+     * distribution; converts the numbers of
+     * <tt>nextInts(int[], int, int)</tt>.
+     */
+    public void nextDoubles(double[] values, int from, int length) {
+        int[] ints = new int[Math.min(length, 1024)];
+        int i = from;
+        int end = from + length;
+        while (i < end) {
+            int n = Math.min(end - i, ints.length);
+            nextInts(ints, 0, n);
+            for (int k = 0; k < n; k++) {
+                values[i++] = ints[k];
+            }
+        }
+    }
+
     /**
      * Returns a random number from the distribution.
      */
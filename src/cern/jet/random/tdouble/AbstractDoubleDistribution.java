@@ -8,7 +8,16 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.jet.random.tdouble;
 
+import java.util.concurrent.Future;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
 import cern.jet.random.tdouble.engine.DoubleRandomEngine;
+import cern.jet.random.tdouble.engine.RandomStreams;
+import cern.jet.random.tdouble.engine.SplitMix64;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 /**
  * Abstract base class for all random distributions.
@@ -27,6 +36,14 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * {@link cern.jet.random.tdouble.engine.DRand}, a quicker (but much weaker)
  * uniform random number generation engine. Of course, you can also use other
  * strong uniform random number generation engines.
+ * <p>
+ * Large numbers of random numbers are drawn in one call with
+ * {@link #nextDoubles(double[], int, int)}, {@link #nextInts(int[], int, int)}
+ * and {@link #fill(DoubleMatrix1D)}, which subclasses implement with blocks of
+ * uniform numbers from the engine. The variants with a <tt>parallel</tt> flag
+ * split the work among threads in blocks of fixed size, each block with its
+ * own stream, so that the result only depends on the state of the engine and
+ * not on the number of threads.
  * 
  * <p>
  * <b>Ressources on the Web:</b>
@@ -73,6 +90,12 @@ public abstract class AbstractDoubleDistribution extends cern.colt.PersistentObj
      * 
      */
     private static final long serialVersionUID = 1L;
+
+    /*
+     * Number of values generated from one stream by the parallel methods.
+     */
+    private static final int BLOCK = 16384;
+
     protected DoubleRandomEngine randomGenerator;
 
     /**
@@ -145,10 +168,218 @@ public abstract class AbstractDoubleDistribution extends cern.colt.PersistentObj
         return (int) Math.round(nextDouble());
     }
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with random numbers from the
+     * distribution. This implementation calls <tt>nextDouble()</tt>;
+     * subclasses override it to transform blocks of uniform numbers.
+     * 
+     * @param values
+     *            the array to fill.
+     * @param from
+     *            the index of the first number.
+     * @param length
+     *            the number of numbers.
+     */
+    public void nextDoubles(double[] values, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            values[i] = nextDouble();
+        }
+    }
+
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with random numbers from the
+     * distribution, possibly in parallel. In parallel, the array is split
+     * into blocks of fixed size, each filled by a copy of the receiver with an
+     * independent {@link SplitMix64} stream, which are derived from one
+     * number of the generator of the receiver.
+     * 
+     * @param values
+     *            the array to fill.
+     * @param from
+     *            the index of the first number.
+     * @param length
+     *            the number of numbers.
+     * @param parallel
+     *            whether to split the work among threads.
+     */
+    public void nextDoubles(final double[] values, final int from, final int length, boolean parallel) {
+        if (!parallel || length <= BLOCK) {
+            nextDoubles(values, from, length);
+            return;
+        }
+        final long seed = randomGenerator.nextLong();
+        forEachBlock(length, new Block() {
+            public void run(int block) {
+                int first = block * BLOCK;
+                stream(seed, block).nextDoubles(values, from + first, Math.min(BLOCK, length - first));
+            }
+        });
+    }
+
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with random numbers from the
+     * distribution. This implementation calls <tt>nextInt()</tt>; subclasses
+     * override it to transform blocks of uniform numbers.
+     * 
+     * @param values
+     *            the array to fill.
+     * @param from
+     *            the index of the first number.
+     * @param length
+     *            the number of numbers.
+     */
+    public void nextInts(int[] values, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            values[i] = nextInt();
+        }
+    }
+
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with random numbers from the
+     * distribution, possibly in parallel, as
+     * {@link #nextDoubles(double[], int, int, boolean)}.
+     * 
+     * @param values
+     *            the array to fill.
+     * @param from
+     *            the index of the first number.
+     * @param length
+     *            the number of numbers.
+     * @param parallel
+     *            whether to split the work among threads.
+     */
+    public void nextInts(final int[] values, final int from, final int length, boolean parallel) {
+        if (!parallel || length <= BLOCK) {
+            nextInts(values, from, length);
+            return;
+        }
+        final long seed = randomGenerator.nextLong();
+        forEachBlock(length, new Block() {
+            public void run(int block) {
+                int first = block * BLOCK;
+                stream(seed, block).nextInts(values, from + first, Math.min(BLOCK, length - first));
+            }
+        });
+    }
+
+    /**
+     * Fills the matrix with random numbers from the distribution, in the
+     * order of the indexes.
+     * 
+     * @param matrix
+     *            the matrix to fill.
+     * @return <tt>matrix</tt> (for convenience only).
+     */
+    public DoubleMatrix1D fill(DoubleMatrix1D matrix) {
+        return fill(matrix, false);
+    }
+
+    /**
+     * Fills the matrix with random numbers from the distribution, possibly in
+     * parallel, as {@link #nextDoubles(double[], int, int, boolean)}.
+     * 
+     * @param matrix
+     *            the matrix to fill.
+     * @param parallel
+     *            whether to split the work among threads.
+     * @return <tt>matrix</tt> (for convenience only).
+     */
+    public DoubleMatrix1D fill(DoubleMatrix1D matrix, boolean parallel) {
+        int size = (int) matrix.size();
+        if (matrix instanceof DenseDoubleMatrix1D && !matrix.isView()) {
+            nextDoubles((double[]) matrix.elements(), 0, size, parallel);
+        } else {
+            double[] values = new double[size];
+            nextDoubles(values, 0, size, parallel);
+            matrix.assign(values);
+        }
+        return matrix;
+    }
+
+    /**
+     * Fills the matrix with random numbers from the distribution, in row
+     * major order.
+     * 
+     * @param matrix
+     *            the matrix to fill.
+     * @return <tt>matrix</tt> (for convenience only).
+     */
+    public DoubleMatrix2D fill(DoubleMatrix2D matrix) {
+        return fill(matrix, false);
+    }
+
+    /**
+     * Fills the matrix with random numbers from the distribution, in row
+     * major order, possibly in parallel, as
+     * {@link #nextDoubles(double[], int, int, boolean)}.
+     * 
+     * @param matrix
+     *            the matrix to fill.
+     * @param parallel
+     *            whether to split the work among threads.
+     * @return <tt>matrix</tt> (for convenience only).
+     */
+    public DoubleMatrix2D fill(DoubleMatrix2D matrix, boolean parallel) {
+        int size = matrix.rows() * matrix.columns();
+        if (matrix instanceof DenseDoubleMatrix2D && !matrix.isView()) {
+            nextDoubles((double[]) matrix.elements(), 0, size, parallel);
+        } else {
+            double[] values = new double[size];
+            nextDoubles(values, 0, size, parallel);
+            matrix.assign(values);
+        }
+        return matrix;
+    }
+
     /**
      * Sets the uniform random generator internally used.
      */
     protected void setRandomGenerator(DoubleRandomEngine randomGenerator) {
         this.randomGenerator = randomGenerator;
     }
+
+    /*
+     * Work on one block of BLOCK values.
+     */
+    private interface Block {
+        void run(int block);
+    }
+
+    /*
+     * Returns a copy of the receiver that draws from the stream of the given
+     * block, which is independent of the streams of the other blocks.
+     */
+    private AbstractDoubleDistribution stream(long seed, int block) {
+        AbstractDoubleDistribution copy = (AbstractDoubleDistribution) clone();
+        copy.setRandomGenerator(RandomStreams.stream(seed, block));
+        return copy;
+    }
+
+    /*
+     * Runs the blocks of length values, split among threads.
+     */
+    private static void forEachBlock(int length, final Block block) {
+        final int nblocks = (length + BLOCK - 1) / BLOCK;
+        int nthreads = Math.min(ConcurrencyUtils.getNumberOfThreads(), nblocks);
+        if (nthreads > 1) {
+            Future<?>[] futures = new Future[nthreads];
+            int k = nblocks / nthreads;
+            for (int j = 0; j < nthreads; j++) {
+                final int firstBlock = j * k;
+                final int lastBlock = (j == nthreads - 1) ? nblocks : firstBlock + k;
+                futures[j] = ConcurrencyUtils.submit(new Runnable() {
+                    public void run() {
+                        for (int b = firstBlock; b < lastBlock; b++) {
+                            block.run(b);
+                        }
+                    }
+                });
+            }
+            ConcurrencyUtils.waitForCompletion(futures);
+        } else {
+            for (int b = 0; b < nblocks; b++) {
+                block.run(b);
+            }
+        }
+    }
 }
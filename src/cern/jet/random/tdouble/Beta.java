@@ -26,8 +26,9 @@ import cern.jet.stat.tdouble.Probability;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b>
  * <dt>Method: Stratified Rejection/Patchwork Rejection. High performance
@@ -78,9 +79,20 @@ public class Beta extends AbstractContinousDoubleDistribution {
 
     double ll, lr, z2, z4, p3, p4;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static Beta shared = new Beta(10.0, 10.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<Beta> perThread = new ThreadLocalDistribution<Beta>(
+            new Beta(10.0, 10.0, null));
+
     /**
      * Constructs a Beta distribution.
      */
@@ -442,9 +454,7 @@ public class Beta extends AbstractContinousDoubleDistribution {
      * Returns a random number from the distribution.
      */
     public static double staticNextDouble(double alpha, double beta) {
-        synchronized (shared) {
-            return shared.nextDouble(alpha, beta);
-        }
+        return perThread.get().nextDouble(alpha, beta);
     }
 
     /**
@@ -456,15 +466,13 @@ public class Beta extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
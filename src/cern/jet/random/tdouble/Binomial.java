@@ -23,8 +23,9 @@ import cern.jet.stat.tdouble.Probability;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b> High performance implementation. Acceptance
  * Rejection/Inversion method. This is a port of <A HREF="http://wwwinfo.cern.ch/asd/lhc++/clhep/manual/RefGuide/Random/RandBinomial.html"
@@ -60,9 +61,20 @@ public class Binomial extends AbstractDiscreteDistribution {
     // cache vars for method pdf(...)
     private double log_p, log_q, log_n;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static Binomial shared = new Binomial(1, 0.5, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<Binomial> perThread = new ThreadLocalDistribution<Binomial>(
+            new Binomial(1, 0.5, null));
+
     /**
      * Constructs a binomial distribution. Example: n=1, p=0.5.
      * 
@@ -337,9 +349,7 @@ public class Binomial extends AbstractDiscreteDistribution {
      *             if <tt>n*Math.min(p,1-p) &lt;= 0.0</tt>
      */
     public static int staticNextInt(int n, double p) {
-        synchronized (shared) {
-            return shared.nextInt(n, p);
-        }
+        return perThread.get().nextInt(n, p);
     }
 
     /**
@@ -351,15 +361,13 @@ public class Binomial extends AbstractDiscreteDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
@@ -17,8 +17,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b> This is a port of <A HREF="http://wwwinfo.cern.ch/asd/lhc++/clhep/manual/RefGuide/Random/RandBreitWigner.html"
  * >RandBreitWigner</A> used in <A
@@ -39,9 +40,20 @@ public class BreitWigner extends AbstractContinousDoubleDistribution {
 
     protected double cut;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static BreitWigner shared = new BreitWigner(1.0, 0.2, 1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<BreitWigner> perThread = new ThreadLocalDistribution<BreitWigner>(
+            new BreitWigner(1.0, 0.2, 1.0, null));
+
     /**
      * Constructs a BreitWigner distribution.
      * 
@@ -105,9 +117,7 @@ public class BreitWigner extends AbstractContinousDoubleDistribution {
      *            </tt>cut==Double.NEGATIVE_INFINITY</tt> indicates "don't cut".
      */
     public static double staticNextDouble(double mean, double gamma, double cut) {
-        synchronized (shared) {
-            return shared.nextDouble(mean, gamma, cut);
-        }
+        return perThread.get().nextDouble(mean, gamma, cut);
     }
 
     /**
@@ -119,15 +129,13 @@ public class BreitWigner extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
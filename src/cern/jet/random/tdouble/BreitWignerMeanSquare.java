@@ -17,8 +17,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b> This is a port of <A HREF="http://wwwinfo.cern.ch/asd/lhc++/clhep/manual/RefGuide/Random/RandBreitWigner.html"
  * >RandBreitWigner</A> used in <A
@@ -35,9 +36,20 @@ public class BreitWignerMeanSquare extends BreitWigner {
 
     protected DoubleUniform uniform; // helper
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static BreitWigner shared = new BreitWignerMeanSquare(1.0, 0.2, 1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<BreitWigner> perThread = new ThreadLocalDistribution<BreitWigner>(
+            new BreitWignerMeanSquare(1.0, 0.2, 1.0, null));
+
     /**
      * Constructs a mean-squared BreitWigner distribution.
      * 
@@ -64,6 +76,16 @@ public class BreitWignerMeanSquare extends BreitWigner {
         return copy;
     }
 
+    /**
+     * Sets the uniform random generator internally used, also by the helper
+     * distribution.
+     */
+    protected void setRandomGenerator(DoubleRandomEngine randomGenerator) {
+        super.setRandomGenerator(randomGenerator);
+        if (this.uniform != null)
+            this.uniform.setRandomGenerator(randomGenerator);
+    }
+
     /**
      * Returns a mean-squared random number from the distribution; bypasses the
      * internal state.
@@ -98,21 +120,17 @@ public class BreitWignerMeanSquare extends BreitWigner {
      *            </tt>cut==Double.NEGATIVE_INFINITY</tt> indicates "don't cut".
      */
     public static double staticNextDouble(double mean, double gamma, double cut) {
-        synchronized (shared) {
-            return shared.nextDouble(mean, gamma, cut);
-        }
+        return perThread.get().nextDouble(mean, gamma, cut);
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
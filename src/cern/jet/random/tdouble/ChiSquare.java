@@ -25,8 +25,9 @@ import cern.jet.stat.tdouble.Probability;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b>
  * <dt>Method: Ratio of Uniforms with shift.
@@ -54,9 +55,20 @@ public class ChiSquare extends AbstractContinousDoubleDistribution {
     // cached vars for method nextDouble(a) (for performance only)
     private double freedom_in = -1.0, b, vm, vp, vd;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static ChiSquare shared = new ChiSquare(1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<ChiSquare> perThread = new ThreadLocalDistribution<ChiSquare>(
+            new ChiSquare(1.0, null));
+
     /**
      * Constructs a ChiSquare distribution. Example: freedom=1.0.
      * 
@@ -187,9 +199,7 @@ public class ChiSquare extends AbstractContinousDoubleDistribution {
      *             if <tt>freedom &lt; 1.0</tt>.
      */
     public static double staticNextDouble(double freedom) {
-        synchronized (shared) {
-            return shared.nextDouble(freedom);
-        }
+        return perThread.get().nextDouble(freedom);
     }
 
     /**
@@ -201,15 +211,13 @@ public class ChiSquare extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
@@ -19,8 +19,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * 
  * @author wolfgang.hoschek@cern.ch
@@ -36,9 +37,20 @@ public class DoubleUniform extends AbstractContinousDoubleDistribution {
 
     protected double max;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static DoubleUniform shared = new DoubleUniform(makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<DoubleUniform> perThread = new ThreadLocalDistribution<DoubleUniform>(
+            new DoubleUniform(null));
+
     /**
      * Constructs a uniform distribution with the given minimum and maximum,
      * using a {@link cern.jet.random.tdouble.engine.DoubleMersenneTwister}
@@ -92,6 +104,21 @@ public class DoubleUniform extends AbstractContinousDoubleDistribution {
         return min + (max - min) * randomGenerator.raw();
     }
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with the same numbers as
+     * <tt>length</tt> calls of <tt>nextDouble()</tt>, from a block of uniform
+     * numbers of the generator.
+     */
+    public void nextDoubles(double[] values, int from, int length) {
+        randomGenerator.raw(values, from, length);
+        if (min != 0 || max != 1) {
+            double width = max - min;
+            for (int i = from; i < from + length; i++) {
+                values[i] = min + width * values[i];
+            }
+        }
+    }
+
     /**
      * Returns a uniformly distributed random number in the open interval
      * <tt>(from,to)</tt> (excluding <tt>from</tt> and <tt>to</tt>). Pre
@@ -204,9 +231,7 @@ public class DoubleUniform extends AbstractContinousDoubleDistribution {
      * Returns a uniformly distributed random <tt>boolean</tt>.
      */
     public static boolean staticNextBoolean() {
-        synchronized (shared) {
-            return shared.nextBoolean();
-        }
+        return perThread.get().nextBoolean();
     }
 
     /**
@@ -214,9 +239,7 @@ public class DoubleUniform extends AbstractContinousDoubleDistribution {
      * <tt>(0,1)</tt> (excluding <tt>0</tt> and <tt>1</tt>).
      */
     public static double staticNextDouble() {
-        synchronized (shared) {
-            return shared.nextDouble();
-        }
+        return perThread.get().nextDouble();
     }
 
     /**
@@ -225,9 +248,7 @@ public class DoubleUniform extends AbstractContinousDoubleDistribution {
      * conditions: <tt>from &lt;= to</tt>.
      */
     public static double staticNextDoubleFromTo(double from, double to) {
-        synchronized (shared) {
-            return shared.nextDoubleFromTo(from, to);
-        }
+        return perThread.get().nextDoubleFromTo(from, to);
     }
 
     /**
@@ -236,9 +257,7 @@ public class DoubleUniform extends AbstractContinousDoubleDistribution {
      * conditions: <tt>from &lt;= to</tt>.
      */
     public static float staticNextFloatFromTo(float from, float to) {
-        synchronized (shared) {
-            return shared.nextFloatFromTo(from, to);
-        }
+        return perThread.get().nextFloatFromTo(from, to);
     }
 
     /**
@@ -247,9 +266,7 @@ public class DoubleUniform extends AbstractContinousDoubleDistribution {
      * conditions: <tt>from &lt;= to</tt>.
      */
     public static int staticNextIntFromTo(int from, int to) {
-        synchronized (shared) {
-            return shared.nextIntFromTo(from, to);
-        }
+        return perThread.get().nextIntFromTo(from, to);
     }
 
     /**
@@ -258,22 +275,18 @@ public class DoubleUniform extends AbstractContinousDoubleDistribution {
      * conditions: <tt>from &lt;= to</tt>.
      */
     public static long staticNextLongFromTo(long from, long to) {
-        synchronized (shared) {
-            return shared.nextLongFromTo(from, to);
-        }
+        return perThread.get().nextLongFromTo(from, to);
     }
 
     /**
-     * Sets the uniform random number generation engine shared by all
-     * <b>static</b> methods.
+     * Sets the uniform random number generation engine used by the
+     * <b>static</b> methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generation engine to be shared.
+     *            the new uniform random number generation engine.
      */
     public static void staticSetRandomEngine(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 
     /**
@@ -238,6 +238,28 @@ public class EmpiricalWalker extends AbstractDiscreteDistribution {
         }
     }
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with the same numbers as
+     * <tt>length</tt> calls of <tt>nextInt()</tt>, from blocks of uniform
+     * numbers of the generator.
+     */
+    public void nextInts(int[] values, int from, int length) {
+        double[] u = new double[Math.min(length, 1024)];
+        int i = from;
+        int end = from + length;
+        while (i < end) {
+            int n = Math.min(end - i, u.length);
+            this.randomGenerator.raw(u, 0, n);
+            for (int k = 0; k < n; k++) {
+                double v = u[k] * this.K;
+                int c = (int) v;
+                v -= c;
+                double f = this.F[c];
+                values[i++] = (f == 1.0 || v < f) ? c : this.A[c];
+            }
+        }
+    }
+
     /**
      * Returns the probability distribution function.
      */
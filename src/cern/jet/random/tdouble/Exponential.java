@@ -23,8 +23,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * 
  * @author wolfgang.hoschek@cern.ch
@@ -38,9 +39,20 @@ public class Exponential extends AbstractContinousDoubleDistribution {
 
     protected double lambda;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static Exponential shared = new Exponential(1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<Exponential> perThread = new ThreadLocalDistribution<Exponential>(
+            new Exponential(1.0, null));
+
     /**
      * Constructs a Negative Exponential distribution.
      */
@@ -74,6 +86,18 @@ public class Exponential extends AbstractContinousDoubleDistribution {
         return -Math.log(randomGenerator.raw()) / lambda;
     }
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with the same numbers as
+     * <tt>length</tt> calls of <tt>nextDouble()</tt>, from a block of uniform
+     * numbers of the generator.
+     */
+    public void nextDoubles(double[] values, int from, int length) {
+        randomGenerator.raw(values, from, length);
+        for (int i = from; i < from + length; i++) {
+            values[i] = -Math.log(values[i]) / lambda;
+        }
+    }
+
     /**
      * Returns the probability distribution function.
      */
@@ -94,9 +118,7 @@ public class Exponential extends AbstractContinousDoubleDistribution {
      * Returns a random number from the distribution with the given lambda.
      */
     public static double staticNextDouble(double lambda) {
-        synchronized (shared) {
-            return shared.nextDouble(lambda);
-        }
+        return perThread.get().nextDouble(lambda);
     }
 
     /**
@@ -108,15 +130,13 @@ public class Exponential extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
@@ -17,8 +17,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b>
  * <dt>Method: Non-universal rejection method for logconcave densities.
@@ -44,9 +45,20 @@ public class ExponentialPower extends AbstractContinousDoubleDistribution {
     // cached vars for method nextDouble(tau) (for performance only)
     private double s, sm1, tau_set = -1.0;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static ExponentialPower shared = new ExponentialPower(1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<ExponentialPower> perThread =
+            new ThreadLocalDistribution<ExponentialPower>(new ExponentialPower(1.0, null));
+
     /**
      * Constructs an Exponential Power distribution. Example: tau=1.0.
      * 
@@ -128,9 +140,7 @@ public class ExponentialPower extends AbstractContinousDoubleDistribution {
      *             if <tt>tau &lt; 1.0</tt>.
      */
     public static double staticNextDouble(double tau) {
-        synchronized (shared) {
-            return shared.nextDouble(tau);
-        }
+        return perThread.get().nextDouble(tau);
     }
 
     /**
@@ -142,15 +152,13 @@ public class ExponentialPower extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
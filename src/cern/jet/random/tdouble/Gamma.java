@@ -36,8 +36,9 @@ import cern.jet.stat.tdouble.Probability;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b>
  * <dt>Method: Acceptance Rejection combined with Acceptance Complement.
@@ -69,9 +70,20 @@ public class Gamma extends AbstractContinousDoubleDistribution {
 
     protected double lambda;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static Gamma shared = new Gamma(1.0, 1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<Gamma> perThread = new ThreadLocalDistribution<Gamma>(
+            new Gamma(1.0, 1.0, null));
+
     /**
      * Constructs a Gamma distribution. Example: alpha=1.0, lambda=1.0.
      * 
@@ -281,9 +293,7 @@ public class Gamma extends AbstractContinousDoubleDistribution {
      *             if <tt>alpha &lt;= 0.0 || lambda &lt;= 0.0</tt>.
      */
     public static double staticNextDouble(double alpha, double lambda) {
-        synchronized (shared) {
-            return shared.nextDouble(alpha, lambda);
-        }
+        return perThread.get().nextDouble(alpha, lambda);
     }
 
     /**
@@ -295,15 +305,13 @@ public class Gamma extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
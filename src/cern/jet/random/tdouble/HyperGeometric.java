@@ -28,8 +28,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b> High performance implementation. Patchwork
  * Rejection/Inversion method.
@@ -71,9 +72,20 @@ public class HyperGeometric extends AbstractDiscreteDistribution {
 
     private double dl, dr, r1, r2, r4, r5, ll, lr, c_pm, f1, f2, f4, f5, p1, p2, p3, p4, p5, p6;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static HyperGeometric shared = new HyperGeometric(1, 1, 1, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<HyperGeometric> perThread =
+            new ThreadLocalDistribution<HyperGeometric>(new HyperGeometric(1, 1, 1, null));
+
     /**
      * Constructs a HyperGeometric distribution.
      */
@@ -402,9 +414,7 @@ public class HyperGeometric extends AbstractDiscreteDistribution {
      * Returns a random number from the distribution.
      */
     public static double staticNextInt(int N, int M, int n) {
-        synchronized (shared) {
-            return shared.nextInt(N, M, n);
-        }
+        return perThread.get().nextInt(N, M, n);
     }
 
     /**
@@ -416,15 +426,13 @@ public class HyperGeometric extends AbstractDiscreteDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
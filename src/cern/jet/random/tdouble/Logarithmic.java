@@ -17,8 +17,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b>
  * <dt>Method: Inversion/Transformation.
@@ -43,9 +44,20 @@ public class Logarithmic extends AbstractContinousDoubleDistribution {
     // cached vars for method nextDouble(a) (for performance only)
     private double t, h, a_prev = -1.0;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static Logarithmic shared = new Logarithmic(0.5, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<Logarithmic> perThread = new ThreadLocalDistribution<Logarithmic>(
+            new Logarithmic(0.5, null));
+
     /**
      * Constructs a Logarithmic distribution.
      */
@@ -140,9 +152,7 @@ public class Logarithmic extends AbstractContinousDoubleDistribution {
      * Returns a random number from the distribution.
      */
     public static double staticNextDouble(double p) {
-        synchronized (shared) {
-            return shared.nextDouble(p);
-        }
+        return perThread.get().nextDouble(p);
     }
 
     /**
@@ -154,15 +164,13 @@ public class Logarithmic extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
@@ -17,8 +17,9 @@ import cern.jet.stat.tdouble.Probability;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b> High performance implementation. Compound method.
  * <dt>This is a port of <tt>nbp.c</tt> from the <A
@@ -45,9 +46,20 @@ public class NegativeBinomial extends AbstractDiscreteDistribution {
 
     protected Poisson poisson;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static NegativeBinomial shared = new NegativeBinomial(1, 0.5, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<NegativeBinomial> perThread =
+            new ThreadLocalDistribution<NegativeBinomial>(new NegativeBinomial(1, 0.5, null));
+
     /**
      * Constructs a Negative Binomial distribution. Example: n=1, p=0.5.
      * 
@@ -91,6 +103,18 @@ public class NegativeBinomial extends AbstractDiscreteDistribution {
         return copy;
     }
 
+    /**
+     * Sets the uniform random generator internally used, also by the helper
+     * distributions.
+     */
+    protected void setRandomGenerator(DoubleRandomEngine randomGenerator) {
+        super.setRandomGenerator(randomGenerator);
+        if (this.gamma != null)
+            this.gamma.setRandomGenerator(randomGenerator);
+        if (this.poisson != null)
+            this.poisson.setRandomGenerator(randomGenerator);
+    }
+
     /**
      * Returns a random number from the distribution.
      */
@@ -158,9 +182,7 @@ public class NegativeBinomial extends AbstractDiscreteDistribution {
      *            the probability of success.
      */
     public static int staticNextInt(int n, double p) {
-        synchronized (shared) {
-            return shared.nextInt(n, p);
-        }
+        return perThread.get().nextInt(n, p);
     }
 
     /**
@@ -172,15 +194,13 @@ public class NegativeBinomial extends AbstractDiscreteDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
@@ -37,12 +37,19 @@ import cern.jet.stat.tdouble.Probability;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b> Polar Box-Muller transformation. See G.E.P. Box, M.E.
  * Muller (1958): A note on the generation of random normal deviates, Annals
- * Math. Statist. 29, 610-611.
+ * Math. Statist. 29, 610-611. The bulk method
+ * {@link #nextDoubles(double[], int, int)} uses the faster Ziggurat method with
+ * 128 layers, which costs two 32 bit numbers, a multiplication and a comparison
+ * for about 99% of the numbers. See G. Marsaglia, W.W. Tsang (2000): The
+ * Ziggurat method for generating random variables, Journal of Statistical
+ * Software 5(8). The two methods draw different numbers from the same
+ * generator.
  * <p>
  * 
  * @author wolfgang.hoschek@cern.ch
@@ -66,9 +73,50 @@ public class Normal extends AbstractContinousDoubleDistribution {
 
     protected double SQRT_INV; // performance cache
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static Normal shared = new Normal(0.0, 1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<Normal> perThread = new ThreadLocalDistribution<Normal>(
+            new Normal(0.0, 1.0, null));
+
+    // Ziggurat tables: layer bounds scaled to 32 bit integers, widths and pdf
+    private static final int[] KN = new int[128];
+
+    private static final double[] WN = new double[128];
+
+    private static final double[] FN = new double[128];
+
+    // right end of the base layer
+    private static final double R = 3.442619855899;
+
+    static {
+        double m1 = 2147483648.0;
+        double vn = 9.91256303526217e-3;
+        double dn = R, tn = R;
+        double q = vn / Math.exp(-.5 * dn * dn);
+        KN[0] = (int) (dn / q * m1);
+        KN[1] = 0;
+        WN[0] = q / m1;
+        WN[127] = dn / m1;
+        FN[0] = 1.0;
+        FN[127] = Math.exp(-.5 * dn * dn);
+        for (int i = 126; i >= 1; i--) {
+            dn = Math.sqrt(-2.0 * Math.log(vn / dn + Math.exp(-.5 * dn * dn)));
+            KN[i + 1] = (int) (dn / tn * m1);
+            tn = dn;
+            FN[i] = Math.exp(-.5 * dn * dn);
+            WN[i] = dn / m1;
+        }
+    }
+
     /**
      * Constructs a normal (gauss) distribution. Example: mean=0.0,
      * standardDeviation=1.0.
@@ -120,6 +168,52 @@ public class Normal extends AbstractContinousDoubleDistribution {
         return mean + standardDeviation * y * z;
     }
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with random numbers from the
+     * distribution, by the Ziggurat method on blocks of 32 bit numbers of the
+     * generator.
+     */
+    public void nextDoubles(double[] values, int from, int length) {
+        int[] bits = new int[2 * Math.min(length, 1024)];
+        int i = from;
+        int end = from + length;
+        while (i < end) {
+            int n = 2 * Math.min(end - i, bits.length / 2);
+            randomGenerator.nextInts(bits, 0, n);
+            for (int k = 0; k < n; k += 2) {
+                int iz = bits[k] & 127;
+                int hz = bits[k + 1];
+                double z = (Math.abs(hz) < KN[iz]) ? hz * WN[iz] : nfix(hz, iz);
+                values[i++] = mean + standardDeviation * z;
+            }
+        }
+    }
+
+    /*
+     * Ziggurat: the slow path, for the tail and the wedges of the layers.
+     */
+    private double nfix(int hz, int iz) {
+        for (;;) {
+            double x = hz * WN[iz];
+            if (iz == 0) {
+                double y;
+                do {
+                    x = -Math.log(randomGenerator.raw()) / R;
+                    y = -Math.log(randomGenerator.raw());
+                } while (y + y < x * x);
+                return (hz > 0) ? R + x : -R - x;
+            }
+            if (FN[iz] + randomGenerator.raw() * (FN[iz - 1] - FN[iz]) < Math.exp(-.5 * x * x)) {
+                return x;
+            }
+            iz = randomGenerator.nextInt() & 127;
+            hz = randomGenerator.nextInt();
+            if (Math.abs(hz) < KN[iz]) {
+                return hz * WN[iz];
+            }
+        }
+    }
+
     /**
      * Returns the probability distribution function.
      */
@@ -156,9 +250,7 @@ public class Normal extends AbstractContinousDoubleDistribution {
      * standard deviation.
      */
     public static double staticNextDouble(double mean, double standardDeviation) {
-        synchronized (shared) {
-            return shared.nextDouble(mean, standardDeviation);
-        }
+        return perThread.get().nextDouble(mean, standardDeviation);
     }
 
     /**
@@ -170,15 +262,13 @@ public class Normal extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
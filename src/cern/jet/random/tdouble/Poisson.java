@@ -26,8 +26,9 @@ import cern.jet.stat.tdouble.Probability;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b> High performance implementation. Patchwork
  * Rejection/Inversion method.
@@ -96,9 +97,20 @@ public class Poisson extends AbstractDiscreteDistribution {
 
     // to method B
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static Poisson shared = new Poisson(0.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<Poisson> perThread = new ThreadLocalDistribution<Poisson>(
+            new Poisson(0.0, null));
+
     /**
      * Constructs a poisson distribution. Example: mean=1.0.
      */
@@ -380,10 +392,9 @@ public class Poisson extends AbstractDiscreteDistribution {
      * Returns a random number from the distribution with the given mean.
      */
     public static int staticNextInt(double mean) {
-        synchronized (shared) {
-            shared.setMean(mean);
-            return shared.nextInt();
-        }
+        Poisson distribution = perThread.get();
+        distribution.setMean(mean);
+        return distribution.nextInt();
     }
 
     /**
@@ -395,15 +406,13 @@ public class Poisson extends AbstractDiscreteDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
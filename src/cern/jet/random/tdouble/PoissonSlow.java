@@ -24,8 +24,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b> This is a port of <A HREF=
  * "http://wwwinfo.cern.ch/asd/lhc++/clhep/manual/RefGuide/Random/RandPoisson.html"
@@ -71,9 +72,20 @@ public class PoissonSlow extends AbstractDiscreteDistribution {
     76.18009172947146, -86.50532032941677, 24.01409824083091, -1.231739572450155, 0.1208650973866179e-2,
             -0.5395239384953e-5 };
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static PoissonSlow shared = new PoissonSlow(0.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<PoissonSlow> perThread = new ThreadLocalDistribution<PoissonSlow>(
+            new PoissonSlow(0.0, null));
+
     /**
      * Constructs a poisson distribution. Example: mean=1.0.
      */
@@ -192,10 +204,9 @@ public class PoissonSlow extends AbstractDiscreteDistribution {
      * Returns a random number from the distribution with the given mean.
      */
     public static int staticNextInt(double mean) {
-        synchronized (shared) {
-            shared.setMean(mean);
-            return shared.nextInt();
-        }
+        PoissonSlow distribution = perThread.get();
+        distribution.setMean(mean);
+        return distribution.nextInt();
     }
 
     /**
@@ -207,15 +218,13 @@ public class PoissonSlow extends AbstractDiscreteDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
@@ -26,8 +26,9 @@ import cern.jet.stat.tdouble.Probability;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b>
  * <dt>Method: Adapted Polar Box-Muller transformation.
@@ -54,9 +55,20 @@ public class StudentT extends AbstractContinousDoubleDistribution {
 
     protected double TERM; // performance cache for pdf()
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static StudentT shared = new StudentT(1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<StudentT> perThread = new ThreadLocalDistribution<StudentT>(
+            new StudentT(1.0, null));
+
     /**
      * Constructs a StudentT distribution. Example: freedom=1.0.
      * 
@@ -149,9 +161,7 @@ public class StudentT extends AbstractContinousDoubleDistribution {
      *             if <tt>freedom &lt;= 0.0</tt>.
      */
     public static double staticNextDouble(double freedom) {
-        synchronized (shared) {
-            return shared.nextDouble(freedom);
-        }
+        return perThread.get().nextDouble(freedom);
     }
 
     /**
@@ -163,15 +173,13 @@ public class StudentT extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
@@ -0,0 +1,84 @@
+package cern.jet.random.tdouble;
+
+import cern.jet.random.tdouble.engine.DoubleRandomEngine;
+import cern.jet.random.tdouble.engine.RandomStreams;
+
+/**
+ * One copy of a distribution per thread, drawing from the random number stream
+ * of the thread, see {@link RandomStreams}. The static methods of the
+ * distributions use it instead of one shared, synchronized instance, so that
+ * threads do not contend for a lock and their numbers are reproducible per
+ * stream.
+ * <p>
+ * Example:
+ *
+ * <pre>
+ * ThreadLocalDistribution&lt;Gamma&gt; gamma = new ThreadLocalDistribution&lt;Gamma&gt;(new Gamma(2.0, 1.0, null));
+ * ...
+ * double x = gamma.get().nextDouble(); // in any thread
+ * </pre>
+ *
+ * @param <T>
+ *            the type of the distribution
+ */
+public class ThreadLocalDistribution<T extends AbstractDoubleDistribution> {
+
+    private final T prototype;
+
+    private final ThreadLocal<Local<T>> locals = new ThreadLocal<Local<T>>() {
+        @SuppressWarnings("unchecked")
+        protected Local<T> initialValue() {
+            return new Local<T>((T) prototype.clone());
+        }
+    };
+
+    private static final class Local<T> {
+        final T distribution;
+
+        // the stream generator the distribution was last bound to
+        DoubleRandomEngine stream;
+
+        Local(T distribution) {
+            this.distribution = distribution;
+        }
+    }
+
+    /**
+     * Constructs the per-thread copies of the given distribution. Each thread
+     * gets a clone of the prototype, with the generator of its stream.
+     *
+     * @param prototype
+     *            the distribution to copy; its generator may be
+     *            <tt>null</tt>.
+     */
+    public ThreadLocalDistribution(T prototype) {
+        this.prototype = prototype;
+    }
+
+    /**
+     * Returns the copy of the calling thread, which must not be passed to
+     * other threads.
+     *
+     * @return the distribution of the calling thread.
+     */
+    public T get() {
+        Local<T> local = locals.get();
+        DoubleRandomEngine stream = RandomStreams.get();
+        if (local.stream != stream) {
+            local.distribution.setRandomGenerator(stream);
+            local.stream = stream;
+        }
+        return local.distribution;
+    }
+
+    /**
+     * Sets the generator of the copy of the calling thread, until the thread
+     * selects another stream or the seed of the streams changes.
+     *
+     * @param randomGenerator
+     *            the new uniform random number generator.
+     */
+    public void setRandomGenerator(DoubleRandomEngine randomGenerator) {
+        get().setRandomGenerator(randomGenerator);
+    }
+}
@@ -17,8 +17,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b>
  * <dt>Method: Acceptance Rejection.
@@ -45,9 +46,20 @@ public class VonMises extends AbstractContinousDoubleDistribution {
 
     private double tau, rho, r;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static VonMises shared = new VonMises(1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<VonMises> perThread = new ThreadLocalDistribution<VonMises>(
+            new VonMises(1.0, null));
+
     /**
      * Constructs a Von Mises distribution. Example: k=1.0.
      * 
@@ -132,9 +144,7 @@ public class VonMises extends AbstractContinousDoubleDistribution {
      *             if <tt>k &lt;= 0.0</tt>.
      */
     public static double staticNextDouble(double freedom) {
-        synchronized (shared) {
-            return shared.nextDouble(freedom);
-        }
+        return perThread.get().nextDouble(freedom);
     }
 
     /**
@@ -146,15 +156,13 @@ public class VonMises extends AbstractContinousDoubleDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
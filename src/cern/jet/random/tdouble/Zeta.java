@@ -20,8 +20,9 @@ import cern.jet.random.tdouble.engine.DoubleRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * <b>Implementation:</b>
  * <dt>Method: Acceptance/Rejection. High performance implementation.
@@ -50,9 +51,20 @@ public class Zeta extends AbstractDiscreteDistribution {
 
     protected double maxlongint = Long.MAX_VALUE - 1.5;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static Zeta shared = new Zeta(1.0, 1.0, makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocalDistribution<Zeta> perThread = new ThreadLocalDistribution<Zeta>(
+            new Zeta(1.0, 1.0, null));
+
     /**
      * Constructs a Zeta distribution.
      */
@@ -138,10 +150,9 @@ public class Zeta extends AbstractDiscreteDistribution {
      * Returns a random number from the distribution.
      */
     public static int staticNextInt(double ro, double pk) {
-        synchronized (shared) {
-            shared.setState(ro, pk);
-            return shared.nextInt();
-        }
+        Zeta distribution = perThread.get();
+        distribution.setState(ro, pk);
+        return distribution.nextInt();
     }
 
     /**
@@ -153,15 +164,13 @@ public class Zeta extends AbstractDiscreteDistribution {
     }
 
     /**
-     * Sets the uniform random number generated shared by all <b>static</b>
-     * methods.
+     * Sets the uniform random number generator used by the <b>static</b>
+     * methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generator to be shared.
+     *            the new uniform random number generator.
      */
     private static void xstaticSetRandomGenerator(DoubleRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.setRandomGenerator(randomGenerator);
     }
 }
@@ -286,6 +286,53 @@ public class DoubleMersenneTwister extends DoubleRandomEngine {
         return y;
     }
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with the same numbers as
+     * <tt>length</tt> calls of <tt>nextInt()</tt>, tempering the words of
+     * each block in one loop.
+     */
+    public void nextInts(int[] values, int from, int length) {
+        int i = from;
+        int end = from + length;
+        while (i < end) {
+            if (mti == N)
+                nextBlock();
+            int n = Math.min(N - mti, end - i);
+            for (int k = 0; k < n; k++) {
+                int y = mt[mti++];
+                y ^= y >>> 11;
+                y ^= (y << 7) & TEMPERING_MASK_B;
+                y ^= (y << 15) & TEMPERING_MASK_C;
+                y ^= y >>> 18;
+                values[i++] = y;
+            }
+        }
+    }
+
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with the same numbers as
+     * <tt>length</tt> calls of <tt>raw()</tt>, tempering the words of each
+     * block in one loop.
+     */
+    public void raw(double[] values, int from, int length) {
+        int i = from;
+        int end = from + length;
+        while (i < end) {
+            if (mti == N)
+                nextBlock();
+            while (mti < N && i < end) {
+                int y = mt[mti++];
+                y ^= y >>> 11;
+                y ^= (y << 7) & TEMPERING_MASK_B;
+                y ^= (y << 15) & TEMPERING_MASK_C;
+                y ^= y >>> 18;
+                if (y != 0) {
+                    values[i++] = (y & 0xFFFFFFFFL) * 2.3283064365386963E-10;
+                }
+            }
+        }
+    }
+
     /**
      * Sets the receiver's seed. This method resets the receiver's entire
      * internal state.
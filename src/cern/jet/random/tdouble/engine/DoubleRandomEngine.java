@@ -146,6 +146,24 @@ public abstract class DoubleRandomEngine extends cern.colt.PersistentObject impl
      */
     public abstract int nextInt();
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with the same numbers as
+     * <tt>length</tt> calls of <tt>nextInt()</tt>. Subclasses override this
+     * method to generate the numbers in blocks, without a call per number.
+     * 
+     * @param values
+     *            the array to fill.
+     * @param from
+     *            the index of the first number.
+     * @param length
+     *            the number of numbers.
+     */
+    public void nextInts(int[] values, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            values[i] = nextInt();
+        }
+    }
+
     /**
      * Returns a 64 bit uniformly distributed random number in the closed
      * interval <tt>[Long.MIN_VALUE,Long.MAX_VALUE]</tt> (including
@@ -156,6 +174,24 @@ public abstract class DoubleRandomEngine extends cern.colt.PersistentObject impl
         return ((nextInt() & 0xFFFFFFFFL) << 32) | ((nextInt() & 0xFFFFFFFFL));
     }
 
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with the same numbers as
+     * <tt>length</tt> calls of <tt>raw()</tt>. Subclasses override this method
+     * to generate the numbers in blocks, without a call per number.
+     * 
+     * @param values
+     *            the array to fill.
+     * @param from
+     *            the index of the first number.
+     * @param length
+     *            the number of numbers.
+     */
+    public void raw(double[] values, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            values[i] = raw();
+        }
+    }
+
     /**
      * Returns a 32 bit uniformly distributed random number in the open unit
      * interval <code>(0.0,1.0)</code> (excluding 0.0 and 1.0).
@@ -63,4 +63,14 @@ public class MersenneTwister64 extends DoubleMersenneTwister {
     public double raw() {
         return nextDouble();
     }
+
+    /**
+     * Fills <tt>values[from..from+length-1]</tt> with the same numbers as
+     * <tt>length</tt> calls of <tt>raw()</tt>.
+     */
+    public void raw(double[] values, int from, int length) {
+        for (int i = from; i < from + length; i++) {
+            values[i] = nextDouble();
+        }
+    }
 }
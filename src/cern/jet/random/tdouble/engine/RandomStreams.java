@@ -0,0 +1,119 @@
+package cern.jet.random.tdouble.engine;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Independent random number streams, one per thread, for the static methods
+ * of the distributions.
+ * <p>
+ * Stream number <tt>k</tt> of a seed is the <tt>k</tt>-th split of a
+ * {@link SplitMix64} generator seeded with it, so that the numbers of a stream
+ * only depend on the seed and the stream number. A thread takes the next free
+ * stream number when it first draws a number, unless it selects a stream with
+ * {@link #setStream(long)}. Since the order in which threads start is not
+ * deterministic, reproducible parallel computations select the stream of each
+ * unit of work, for example its index.
+ * <p>
+ * There is no lock: each thread only reads and advances its own generator.
+ *
+ * @see cern.jet.random.tdouble.ThreadLocalDistribution
+ */
+public final class RandomStreams {
+
+    private static final AtomicLong nextStream = new AtomicLong();
+
+    private static volatile long seed = SplitMix64.makeDefault().nextLong();
+
+    // incremented by setSeed, so that threads rebuild their generators
+    private static volatile int version;
+
+    private static final ThreadLocal<Stream> streams = new ThreadLocal<Stream>() {
+        protected Stream initialValue() {
+            return new Stream(nextStream.getAndIncrement());
+        }
+    };
+
+    private static final class Stream {
+        final long number;
+
+        int version = -1;
+
+        SplitMix64 generator;
+
+        Stream(long number) {
+            this.number = number;
+        }
+    }
+
+    /**
+     * Makes this class non instantiable.
+     */
+    private RandomStreams() {
+    }
+
+    /**
+     * Returns the generator of the stream of the calling thread. The same
+     * object is returned until the thread selects another stream or the seed
+     * changes.
+     *
+     * @return the generator of the calling thread.
+     */
+    public static SplitMix64 get() {
+        Stream s = streams.get();
+        int v = version;
+        if (s.version != v) {
+            s.generator = stream(seed, s.number);
+            s.version = v;
+        }
+        return s.generator;
+    }
+
+    /**
+     * Returns the number of the stream of the calling thread.
+     *
+     * @return the stream number.
+     */
+    public static long getStream() {
+        return streams.get().number;
+    }
+
+    /**
+     * Sets the seed of all streams. Every thread restarts its stream from the
+     * beginning at its next number.
+     *
+     * @param seed
+     *            any value
+     */
+    public static synchronized void setSeed(long seed) {
+        RandomStreams.seed = seed;
+        version++;
+    }
+
+    /**
+     * Selects the stream of the calling thread, from its beginning.
+     *
+     * @param stream
+     *            the stream number, any value
+     */
+    public static void setStream(long stream) {
+        Stream s = new Stream(stream);
+        streams.set(s);
+    }
+
+    /**
+     * Returns a new generator for the given stream of the given seed.
+     * <tt>stream(seed, k)</tt> draws the same numbers as the <tt>k</tt>-th
+     * split of <tt>new SplitMix64(seed)</tt>.
+     *
+     * @param seed
+     *            any value
+     * @param stream
+     *            the stream number, any value
+     * @return a new generator
+     */
+    public static SplitMix64 stream(long seed, long stream) {
+        SplitMix64 root = new SplitMix64(seed);
+        root.skip(2 * stream);
+        return root.split();
+    }
+}
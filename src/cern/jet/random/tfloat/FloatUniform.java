@@ -8,6 +8,7 @@ It is provided "as is" without expressed or implied warranty.
  */
 package cern.jet.random.tfloat;
 
+import cern.jet.random.tdouble.engine.RandomStreams;
 import cern.jet.random.tfloat.engine.FloatRandomEngine;
 
 /**
@@ -19,8 +20,9 @@ import cern.jet.random.tfloat.engine.FloatRandomEngine;
  * <p>
  * Instance methods operate on a user supplied uniform random number generator;
  * they are unsynchronized.
- * <dt>Static methods operate on a default uniform random number generator; they
- * are synchronized.
+ * <dt>Static methods operate on the random number stream of the calling
+ * thread, see {@link cern.jet.random.tdouble.engine.RandomStreams}; they are
+ * not synchronized.
  * <p>
  * 
  * @author wolfgang.hoschek@cern.ch
@@ -36,9 +38,23 @@ public class FloatUniform extends AbstractContinousFloatDistribution {
 
     protected float max;
 
-    // The uniform random number generated shared by all <b>static</b> methods.
+    /**
+     * The uniform random number generator shared by all <b>static</b> methods
+     * before they used copies per thread.
+     * 
+     * @deprecated not used by the <b>static</b> methods, which draw from the
+     *             random number stream of the calling thread.
+     */
+    @Deprecated
     protected static FloatUniform shared = new FloatUniform(makeDefaultGenerator());
 
+    // Copies per thread, used by all <b>static</b> methods.
+    private static final ThreadLocal<FloatUniform> perThread = new ThreadLocal<FloatUniform>() {
+        protected FloatUniform initialValue() {
+            return new FloatUniform(new StreamEngine());
+        }
+    };
+
     /**
      * Constructs a uniform distribution with the given minimum and maximum,
      * using a {@link cern.jet.random.tfloat.engine.FloatMersenneTwister} seeded
@@ -195,9 +211,7 @@ public class FloatUniform extends AbstractContinousFloatDistribution {
      * Returns a uniformly distributed random <tt>boolean</tt>.
      */
     public static boolean staticNextBoolean() {
-        synchronized (shared) {
-            return shared.nextBoolean();
-        }
+        return perThread.get().nextBoolean();
     }
 
     /**
@@ -205,9 +219,7 @@ public class FloatUniform extends AbstractContinousFloatDistribution {
      * <tt>(0,1)</tt> (excluding <tt>0</tt> and <tt>1</tt>).
      */
     public static float staticNextFloat() {
-        synchronized (shared) {
-            return shared.nextFloat();
-        }
+        return perThread.get().nextFloat();
     }
 
     /**
@@ -216,9 +228,7 @@ public class FloatUniform extends AbstractContinousFloatDistribution {
      * conditions: <tt>from &lt;= to</tt>.
      */
     public static float staticNextFloatFromTo(float from, float to) {
-        synchronized (shared) {
-            return shared.nextFloatFromTo(from, to);
-        }
+        return perThread.get().nextFloatFromTo(from, to);
     }
 
     /**
@@ -227,9 +237,7 @@ public class FloatUniform extends AbstractContinousFloatDistribution {
      * conditions: <tt>from &lt;= to</tt>.
      */
     public static int staticNextIntFromTo(int from, int to) {
-        synchronized (shared) {
-            return shared.nextIntFromTo(from, to);
-        }
+        return perThread.get().nextIntFromTo(from, to);
     }
 
     /**
@@ -238,22 +246,18 @@ public class FloatUniform extends AbstractContinousFloatDistribution {
      * conditions: <tt>from &lt;= to</tt>.
      */
     public static long staticNextLongFromTo(long from, long to) {
-        synchronized (shared) {
-            return shared.nextLongFromTo(from, to);
-        }
+        return perThread.get().nextLongFromTo(from, to);
     }
 
     /**
-     * Sets the uniform random number generation engine shared by all
-     * <b>static</b> methods.
+     * Sets the uniform random number generation engine used by the
+     * <b>static</b> methods in the calling thread.
      * 
      * @param randomGenerator
-     *            the new uniform random number generation engine to be shared.
+     *            the new uniform random number generation engine.
      */
     public static void staticSetRandomEngine(FloatRandomEngine randomGenerator) {
-        synchronized (shared) {
-            shared.setRandomGenerator(randomGenerator);
-        }
+        perThread.get().setRandomGenerator(randomGenerator);
     }
 
     /**
@@ -263,4 +267,15 @@ public class FloatUniform extends AbstractContinousFloatDistribution {
     public String toString() {
         return this.getClass().getName() + "(" + min + "," + max + ")";
     }
+
+    /*
+     * Draws the numbers of the random number stream of the calling thread.
+     */
+    private static final class StreamEngine extends FloatRandomEngine {
+        private static final long serialVersionUID = 1L;
+
+        public int nextInt() {
+            return RandomStreams.get().nextInt();
+        }
+    }
 }
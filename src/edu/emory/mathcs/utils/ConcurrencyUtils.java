@@ -37,8 +37,11 @@ import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.concurrent.Future;
-import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.FutureTask;
 
 import cern.colt.function.tdcomplex.DComplexDComplexDComplexFunction;
 import cern.colt.function.tdouble.DoubleDoubleFunction;
@@ -50,12 +53,28 @@ import cern.colt.function.tobject.ObjectObjectFunction;
 
 /**
  * Concurrency utilities.
+ * <p>
+ * All parallel operations of Parallel Colt submit their tasks through this
+ * class. By default tasks are executed by a shared work-stealing
+ * {@link ForkJoinPool}. A different global executor can be installed with
+ * {@link #setThreadPool(ExecutorService)}. An executor and a number of threads
+ * can also be bound to the calling thread only, either for the duration of a
+ * single call ({@link #invoke(ExecutorService, int, Callable)}) or until they
+ * are cleared ({@link #setThreadScope(ExecutorService, int)}). The binding is
+ * inherited by all tasks submitted from that thread, so that concurrent
+ * callers can be isolated from each other.
+ * <p>
+ * Parallel operations invoked from inside a task (nested parallelism) are
+ * forked into the same pool when it is a <tt>ForkJoinPool</tt> and executed
+ * by the calling task otherwise, so that nested operations neither deadlock
+ * nor create additional threads.
  * 
  * @author Piotr Wendykier (piotr.wendykier@gmail.com)
  */
 public class ConcurrencyUtils {
-    private static ExecutorService THREAD_POOL = Executors.newCachedThreadPool(new CustomThreadFactory(
-            new CustomExceptionHandler()));
+    private static volatile ExecutorService THREAD_POOL = newDefaultThreadPool();
+
+    private static final ThreadLocal<Scope> SCOPE = new ThreadLocal<Scope>();
 
     private static int NTHREADS = getNumberOfProcessors();
 
@@ -75,22 +94,63 @@ public class ConcurrencyUtils {
         }
     }
 
-    private static class CustomThreadFactory implements ThreadFactory {
-        private static final ThreadFactory defaultFactory = Executors.defaultThreadFactory();
+    /**
+     * Settings bound to a thread. A <tt>null</tt> executor or a non-positive
+     * number means that the global setting is used.
+     */
+    private static class Scope {
+        static final Scope GLOBAL = new Scope(null, 0, false);
+
+        final ExecutorService executor;
+
+        final int nthreads;
+
+        final boolean inTask;
+
+        Scope(ExecutorService executor, int nthreads, boolean inTask) {
+            this.executor = executor;
+            this.nthreads = nthreads;
+            this.inTask = inTask;
+        }
+
+        static Scope current() {
+            Scope scope = SCOPE.get();
+            return (scope != null) ? scope : GLOBAL;
+        }
+    }
+
+    /**
+     * Runs a task with the scope of the thread that submitted it.
+     */
+    private static class ScopedCallable<T> implements Callable<T> {
+        private final Callable<T> task;
 
-        private final Thread.UncaughtExceptionHandler handler;
+        private final Scope scope;
 
-        CustomThreadFactory(Thread.UncaughtExceptionHandler handler) {
-            this.handler = handler;
+        ScopedCallable(Callable<T> task, Scope scope) {
+            this.task = task;
+            this.scope = scope;
         }
 
-        public Thread newThread(Runnable r) {
-            Thread t = defaultFactory.newThread(r);
-            t.setUncaughtExceptionHandler(handler);
-            t.setDaemon(true);
-            return t;
+        public T call() throws Exception {
+            Scope previous = SCOPE.get();
+            SCOPE.set(scope);
+            try {
+                return task.call();
+            } finally {
+                if (previous == null) {
+                    SCOPE.remove();
+                } else {
+                    SCOPE.set(previous);
+                }
+            }
         }
-    };
+    }
+
+    private static ExecutorService newDefaultThreadPool() {
+        return new ForkJoinPool(getNumberOfProcessors(), ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                new CustomExceptionHandler(), false);
+    }
 
     /**
      * Causes the currently executing thread to sleep (temporarily cease
@@ -113,6 +173,144 @@ public class ConcurrencyUtils {
         THREAD_POOL.shutdown();
     }
 
+    /**
+     * Sets the global executor used by all parallel operations that are not
+     * bound to a different executor. The previous executor is not shut down.
+     * 
+     * @param pool
+     *            the new executor or <tt>null</tt> to restore the default
+     *            work-stealing pool
+     */
+    public static void setThreadPool(ExecutorService pool) {
+        THREAD_POOL = (pool != null) ? pool : newDefaultThreadPool();
+    }
+
+    /**
+     * Returns the executor used by parallel operations invoked from the
+     * current thread.
+     * 
+     * @return the executor used by the current thread
+     */
+    public static ExecutorService getThreadPool() {
+        Scope scope = SCOPE.get();
+        if (scope != null && scope.executor != null) {
+            return scope.executor;
+        }
+        ExecutorService pool = THREAD_POOL;
+        if (pool.isShutdown() || pool.isTerminated()) {
+            synchronized (ConcurrencyUtils.class) {
+                if (THREAD_POOL.isShutdown() || THREAD_POOL.isTerminated()) {
+                    THREAD_POOL = newDefaultThreadPool();
+                }
+                pool = THREAD_POOL;
+            }
+        }
+        return pool;
+    }
+
+    /**
+     * Binds an executor and a number of threads to the current thread. All
+     * parallel operations invoked from this thread (and from the tasks they
+     * submit) use them until {@link #clearThreadScope()} is called.
+     * 
+     * @param executor
+     *            the executor or <tt>null</tt> to use the global one
+     * @param nthreads
+     *            the number of threads or a non-positive value to use the
+     *            global one
+     * @return the previous binding, to be passed to
+     *         {@link #restoreThreadScope(Object)}
+     */
+    public static Object setThreadScope(ExecutorService executor, int nthreads) {
+        Scope previous = Scope.current();
+        SCOPE.set(new Scope(executor, nthreads, previous.inTask));
+        return previous;
+    }
+
+    /**
+     * Binds a number of threads to the current thread, keeping the executor
+     * bound to it. All parallel operations invoked from this thread (and from
+     * the tasks they submit) use this number of threads until the previous
+     * binding is restored. Unlike {@link #setNumberOfThreads(int)} this does
+     * not affect other threads.
+     * 
+     * @param nthreads
+     *            the number of threads or a non-positive value to use the
+     *            global one
+     * @return the previous binding, to be passed to
+     *         {@link #restoreThreadScope(Object)}
+     */
+    public static Object setThreadScopeNumberOfThreads(int nthreads) {
+        Scope previous = Scope.current();
+        SCOPE.set(new Scope(previous.executor, nthreads, previous.inTask));
+        return previous;
+    }
+
+    /**
+     * Restores a binding returned by one of the <tt>setThreadScope</tt>
+     * methods.
+     * 
+     * @param previous
+     *            the binding to restore
+     */
+    public static void restoreThreadScope(Object previous) {
+        if (previous == Scope.GLOBAL) {
+            SCOPE.remove();
+        } else {
+            SCOPE.set((Scope) previous);
+        }
+    }
+
+    /**
+     * Removes all settings bound to the current thread.
+     */
+    public static void clearThreadScope() {
+        SCOPE.remove();
+    }
+
+    /**
+     * Executes a task in the current thread, running all parallel operations
+     * it invokes on the given executor with the given number of threads.
+     * 
+     * @param <T>
+     * @param executor
+     *            the executor or <tt>null</tt> to use the global one
+     * @param nthreads
+     *            the number of threads or a non-positive value to use the
+     *            global one
+     * @param task
+     *            the task to execute
+     * @return the result of the task
+     * @throws Exception
+     *             if the task throws an exception
+     */
+    public static <T> T invoke(ExecutorService executor, int nthreads, Callable<T> task) throws Exception {
+        Scope previous = Scope.current();
+        return new ScopedCallable<T>(task, new Scope(executor, nthreads, previous.inTask)).call();
+    }
+
+    /**
+     * Executes a task in the current thread, running all parallel operations
+     * it invokes on the given executor with the given number of threads.
+     * 
+     * @param executor
+     *            the executor or <tt>null</tt> to use the global one
+     * @param nthreads
+     *            the number of threads or a non-positive value to use the
+     *            global one
+     * @param task
+     *            the task to execute
+     */
+    public static void invoke(ExecutorService executor, int nthreads, Runnable task) {
+        try {
+            invoke(executor, nthreads, Executors.callable(task));
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
     /**
      * Submits a value-returning task for execution and returns a Future
      * representing the pending results of the task.
@@ -123,10 +321,22 @@ public class ConcurrencyUtils {
      * @return a handle to the task submitted for execution
      */
     public static <T> Future<T> submit(Callable<T> task) {
-        if (THREAD_POOL.isShutdown() || THREAD_POOL.isTerminated()) {
-            THREAD_POOL = Executors.newCachedThreadPool(new CustomThreadFactory(new CustomExceptionHandler()));
+        Scope scope = Scope.current();
+        ExecutorService executor = getThreadPool();
+        Callable<T> scoped = new ScopedCallable<T>(task, new Scope(scope.executor, scope.nthreads, true));
+        if (executor instanceof ForkJoinPool) {
+            Thread thread = Thread.currentThread();
+            if (thread instanceof ForkJoinWorkerThread && ((ForkJoinWorkerThread) thread).getPool() == executor) {
+                // nested parallelism: push to the local work-stealing queue
+                return ForkJoinTask.adapt(scoped).fork();
+            }
+        } else if (scope.inTask) {
+            // nested parallelism on a plain executor: run in the calling task
+            FutureTask<T> future = new FutureTask<T>(scoped);
+            future.run();
+            return future;
         }
-        return THREAD_POOL.submit(task);
+        return executor.submit(scoped);
     }
 
     /**
@@ -138,10 +348,7 @@ public class ConcurrencyUtils {
      * @return a handle to the task submitted for execution
      */
     public static Future<?> submit(Runnable task) {
-        if (THREAD_POOL.isShutdown() || THREAD_POOL.isTerminated()) {
-            THREAD_POOL = Executors.newCachedThreadPool(new CustomThreadFactory(new CustomExceptionHandler()));
-        }
-        return THREAD_POOL.submit(task);
+        return submit(Executors.callable(task));
     }
 
     /**
@@ -154,11 +361,16 @@ public class ConcurrencyUtils {
     }
 
     /**
-     * Returns the current number of threads.
+     * Returns the current number of threads. This is the number of threads
+     * bound to the current thread, if any, or the global number of threads.
      * 
      * @return the current number of threads.
      */
     public static int getNumberOfThreads() {
+        Scope scope = SCOPE.get();
+        if (scope != null && scope.nthreads > 0) {
+            return scope.nthreads;
+        }
         return NTHREADS;
     }
 
@@ -507,7 +719,7 @@ public class ConcurrencyUtils {
     }
 
     /**
-     * Sets the number of threads
+     * Sets the global number of threads
      * 
      * @param n
      */
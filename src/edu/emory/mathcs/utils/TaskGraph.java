@@ -0,0 +1,235 @@
+package edu.emory.mathcs.utils;
+
+import java.util.ArrayList;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Graph of tasks whose dependencies are inferred from the data they access,
+ * executed by a work-stealing scheduler.
+ * <p>
+ * The data are identified by integers (e.g. the indexes of the tiles of a
+ * tiled matrix). A task added by {@link #add(Runnable, int[], int[])} runs
+ * after all previously added tasks that write data it reads or writes, and
+ * after all previously added tasks that read data it writes. Hence executing
+ * the graph gives the same results as running the tasks sequentially in the
+ * order in which they were added.
+ * <p>
+ * {@link #execute()} runs the graph with the number of threads of
+ * {@link ConcurrencyUtils#getNumberOfThreads()}: the calling thread and the
+ * workers submitted to {@link ConcurrencyUtils} each own a deque of ready
+ * tasks; a worker runs the tasks made ready by its own tasks first and steals
+ * from the other deques when its own is empty. A graph holds no global state,
+ * so several graphs can be executed concurrently.
+ */
+public final class TaskGraph {
+
+    /*
+     * Number of unsuccessful attempts to find a ready task before an idle
+     * worker parks.
+     */
+    private static final int SPINS = 64;
+
+    private static final long PARK_NANOS = 20000;
+
+    private static final class Node {
+
+        final Runnable action;
+
+        final ArrayList<Node> successors = new ArrayList<Node>(4);
+
+        int dependencies;
+
+        AtomicInteger pending;
+
+        Node(Runnable action) {
+            this.action = action;
+        }
+    }
+
+    private final ArrayList<Node> nodes = new ArrayList<Node>();
+
+    private final Node[] lastWriter;
+
+    private final ArrayList<ArrayList<Node>> readers;
+
+    /**
+     * Constructs an empty graph of tasks accessing the data
+     * <tt>0, ..., ndata - 1</tt>.
+     *
+     * @param ndata
+     *            the number of data
+     */
+    public TaskGraph(int ndata) {
+        lastWriter = new Node[ndata];
+        readers = new ArrayList<ArrayList<Node>>(ndata);
+        for (int i = 0; i < ndata; i++) {
+            readers.add(new ArrayList<Node>(2));
+        }
+    }
+
+    /**
+     * Adds a task.
+     *
+     * @param action
+     *            the task
+     * @param reads
+     *            the data read (and not written) by the task, or null
+     * @param writes
+     *            the data written by the task, or null
+     */
+    public void add(Runnable action, int[] reads, int[] writes) {
+        Node task = new Node(action);
+        if (reads != null) {
+            for (int d : reads) {
+                dependOn(task, lastWriter[d]);
+            }
+        }
+        if (writes != null) {
+            for (int d : writes) {
+                dependOn(task, lastWriter[d]);
+                ArrayList<Node> r = readers.get(d);
+                for (int i = 0; i < r.size(); i++) {
+                    dependOn(task, r.get(i));
+                }
+                r.clear();
+                lastWriter[d] = task;
+            }
+        }
+        if (reads != null) {
+            for (int d : reads) {
+                readers.get(d).add(task);
+            }
+        }
+        nodes.add(task);
+    }
+
+    /**
+     * Returns the number of tasks.
+     *
+     * @return the number of tasks
+     */
+    public int size() {
+        return nodes.size();
+    }
+
+    /**
+     * Executes all tasks and waits for their completion. If a task throws an
+     * exception, the tasks that were not started yet are skipped and the
+     * exception is rethrown.
+     */
+    public void execute() {
+        int total = nodes.size();
+        int nthreads = Math.min(ConcurrencyUtils.getNumberOfThreads(), total);
+        if (nthreads <= 1) {
+            for (Node task : nodes) {
+                task.action.run();
+            }
+            return;
+        }
+        final Scheduler scheduler = new Scheduler(nthreads, total);
+        for (Node task : nodes) {
+            task.pending = new AtomicInteger(task.dependencies);
+            if (task.dependencies == 0) {
+                scheduler.deques[0].addFirst(task);
+            }
+        }
+        Future<?>[] futures = new Future[nthreads - 1];
+        for (int w = 1; w < nthreads; w++) {
+            final int worker = w;
+            futures[w - 1] = ConcurrencyUtils.submit(new Runnable() {
+                public void run() {
+                    scheduler.work(worker);
+                }
+            });
+        }
+        scheduler.work(0);
+        ConcurrencyUtils.waitForCompletion(futures);
+        Throwable failure = scheduler.failure.get();
+        if (failure instanceof RuntimeException) {
+            throw (RuntimeException) failure;
+        } else if (failure instanceof Error) {
+            throw (Error) failure;
+        } else if (failure != null) {
+            throw new RuntimeException(failure);
+        }
+    }
+
+    private static void dependOn(Node task, Node predecessor) {
+        if (predecessor == null || predecessor == task) {
+            return;
+        }
+        ArrayList<Node> s = predecessor.successors;
+        if (!s.isEmpty() && s.get(s.size() - 1) == task) {
+            return; // already a dependency
+        }
+        s.add(task);
+        task.dependencies++;
+    }
+
+    private static final class Scheduler {
+
+        final ConcurrentLinkedDeque<Node>[] deques;
+
+        final AtomicInteger completed = new AtomicInteger();
+
+        final AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+
+        final int total;
+
+        @SuppressWarnings("unchecked")
+        Scheduler(int nthreads, int total) {
+            this.total = total;
+            deques = new ConcurrentLinkedDeque[nthreads];
+            for (int w = 0; w < nthreads; w++) {
+                deques[w] = new ConcurrentLinkedDeque<Node>();
+            }
+        }
+
+        void work(int worker) {
+            int idle = 0;
+            while (completed.get() < total) {
+                Node task = next(worker);
+                if (task == null) {
+                    if (++idle < SPINS) {
+                        Thread.yield();
+                    } else {
+                        LockSupport.parkNanos(PARK_NANOS);
+                    }
+                    continue;
+                }
+                idle = 0;
+                if (failure.get() == null) {
+                    try {
+                        task.action.run();
+                    } catch (Throwable e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }
+                for (Node successor : task.successors) {
+                    if (successor.pending.decrementAndGet() == 0) {
+                        deques[worker].addFirst(successor);
+                    }
+                }
+                completed.incrementAndGet();
+            }
+        }
+
+        private Node next(int worker) {
+            Node task = deques[worker].pollFirst();
+            if (task != null) {
+                return task;
+            }
+            for (int i = 1; i < deques.length; i++) {
+                task = deques[(worker + i) % deques.length].pollLast();
+                if (task != null) {
+                    return task;
+                }
+            }
+            return null;
+        }
+    }
+}
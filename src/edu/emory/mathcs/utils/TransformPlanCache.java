@@ -0,0 +1,183 @@
+package edu.emory.mathcs.utils;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Shared, bounded cache of the plans (precomputed twiddle factors and work
+ * buffers) of the FFT, DCT, DST and DHT transforms used by the dense matrices.
+ * <p>
+ * Plans are keyed by their class and shape, e.g.
+ * <tt>DoubleFFT_2D.class, rows, columns</tt>. A plan obtained by
+ * {@link #acquire(Class, int[])} is used exclusively by the caller until it is
+ * handed back by {@link #release(Object, int[])}, so that matrices of the same
+ * shape can be transformed concurrently from several threads. Released plans
+ * are kept for reuse; at most {@link #getMaxPlans()} idle plans are retained
+ * in total, the least recently used shapes are evicted first.
+ * <p>
+ * The number of threads used by a transform is taken from
+ * {@link ConcurrencyUtils#getNumberOfThreads()} at the time of the call, which
+ * can be bound to the calling thread with
+ * {@link ConcurrencyUtils#setThreadScopeNumberOfThreads(int)}.
+ *
+ */
+public class TransformPlanCache {
+
+    private static int MAX_PLANS = 64;
+
+    private static int idlePlans = 0;
+
+    private static final LinkedHashMap<Key, ArrayList<Object>> PLANS = new LinkedHashMap<Key, ArrayList<Object>>(
+            16, 0.75f, true);
+
+    private static final class Key {
+        final Class<?> type;
+
+        final int[] shape;
+
+        final int hash;
+
+        Key(Class<?> type, int[] shape) {
+            this.type = type;
+            this.shape = shape;
+            this.hash = 31 * type.hashCode() + Arrays.hashCode(shape);
+        }
+
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return type == other.type && Arrays.equals(shape, other.shape);
+        }
+
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private TransformPlanCache() {
+    }
+
+    /**
+     * Returns a plan of the given type and shape for exclusive use by the
+     * caller. The plan is taken from the cache if possible and created
+     * otherwise.
+     *
+     * @param <T>
+     * @param type
+     *            the class of the plan, e.g. <tt>DoubleFFT_2D.class</tt>
+     * @param shape
+     *            the arguments of the constructor of the plan
+     * @return a plan of the given type and shape
+     */
+    public static <T> T acquire(Class<T> type, int... shape) {
+        Key key = new Key(type, shape);
+        synchronized (PLANS) {
+            ArrayList<Object> plans = PLANS.get(key);
+            if (plans != null && plans.size() > 0) {
+                idlePlans--;
+                return type.cast(plans.remove(plans.size() - 1));
+            }
+        }
+        return newPlan(type, shape);
+    }
+
+    /**
+     * Hands a plan obtained by {@link #acquire(Class, int[])} back to the
+     * cache. The plan must not be used by the caller afterwards.
+     *
+     * @param plan
+     *            the plan
+     * @param shape
+     *            the shape the plan was acquired with
+     */
+    public static void release(Object plan, int... shape) {
+        Key key = new Key(plan.getClass(), shape);
+        synchronized (PLANS) {
+            ArrayList<Object> plans = PLANS.get(key);
+            if (plans == null) {
+                plans = new ArrayList<Object>(2);
+                PLANS.put(key, plans);
+            }
+            plans.add(plan);
+            idlePlans++;
+            evict();
+        }
+    }
+
+    /**
+     * Removes all plans from the cache.
+     */
+    public static void clear() {
+        synchronized (PLANS) {
+            PLANS.clear();
+            idlePlans = 0;
+        }
+    }
+
+    /**
+     * Returns the maximal number of idle plans kept in the cache.
+     *
+     * @return the maximal number of idle plans kept in the cache
+     */
+    public static int getMaxPlans() {
+        synchronized (PLANS) {
+            return MAX_PLANS;
+        }
+    }
+
+    /**
+     * Sets the maximal number of idle plans kept in the cache.
+     *
+     * @param n
+     *            the maximal number of idle plans, 0 disables caching
+     */
+    public static void setMaxPlans(int n) {
+        if (n < 0)
+            throw new IllegalArgumentException("n must be greater or equal 0");
+        synchronized (PLANS) {
+            MAX_PLANS = n;
+            evict();
+        }
+    }
+
+    /**
+     * Drops plans of the least recently used shapes until the bound is met.
+     */
+    private static void evict() {
+        Iterator<Map.Entry<Key, ArrayList<Object>>> it = PLANS.entrySet().iterator();
+        while (idlePlans > MAX_PLANS && it.hasNext()) {
+            ArrayList<Object> plans = it.next().getValue();
+            idlePlans -= plans.size();
+            it.remove();
+        }
+    }
+
+    private static <T> T newPlan(Class<T> type, int[] shape) {
+        Class<?>[] parameterTypes = new Class<?>[shape.length];
+        Object[] args = new Object[shape.length];
+        for (int i = 0; i < shape.length; i++) {
+            parameterTypes[i] = int.class;
+            args[i] = shape[i];
+        }
+        try {
+            Constructor<T> constructor = type.getConstructor(parameterTypes);
+            return constructor.newInstance(args);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalArgumentException("Cannot create a plan of type " + type.getName() + " and shape "
+                    + Arrays.toString(shape), e.getCause());
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Cannot create a plan of type " + type.getName() + " and shape "
+                    + Arrays.toString(shape), e);
+        }
+    }
+}
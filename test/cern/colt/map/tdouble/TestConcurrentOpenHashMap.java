@@ -0,0 +1,105 @@
+package cern.colt.map.tdouble;
+
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import cern.colt.function.tdouble.LongDoubleProcedure;
+
+public class TestConcurrentOpenHashMap {
+    public static void main(String[] args) throws InterruptedException {
+        boolean passed = true;
+        final int nthreads = 4;
+        final int steps = 100000;
+
+        /* concurrent accumulation gives the same sums as a sequential one */
+        final ConcurrentOpenLongDoubleHashMap sums = new ConcurrentOpenLongDoubleHashMap(0, 8, 0.2, 0.5);
+        final ConcurrentOpenIntDoubleHashMap counts = new ConcurrentOpenIntDoubleHashMap();
+        LinearOpenLongDoubleHashMap expectedSums = new LinearOpenLongDoubleHashMap();
+        LinearOpenIntDoubleHashMap expectedCounts = new LinearOpenIntDoubleHashMap();
+        for (int t = 0; t < nthreads; t++) {
+            Random r = new Random(t);
+            for (int step = 0; step < steps; step++) {
+                int key = r.nextInt(1000) - 500;
+                expectedSums.adjustOrPutValue(key, key, key);
+                expectedCounts.adjustOrPutValue(key, 1, 1);
+            }
+        }
+        Thread[] threads = new Thread[nthreads];
+        for (int t = 0; t < nthreads; t++) {
+            final int seed = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    Random r = new Random(seed);
+                    for (int step = 0; step < steps; step++) {
+                        int key = r.nextInt(1000) - 500;
+                        sums.adjustOrPutValue(key, key, key);
+                        counts.adjustOrPutValue(key, 1, 1);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        passed &= sums.size() == expectedSums.size() && sums.equals(expectedSums) && expectedSums.equals(sums);
+        passed &= counts.size() == expectedCounts.size() && counts.equals(expectedCounts);
+        passed &= sums.equals(sums.copy()) && counts.equals(counts.copy());
+        double total = 0;
+        double[] values = counts.values().elements();
+        for (int i = 0; i < counts.size(); i++) {
+            total += values[i];
+        }
+        passed &= total == nthreads * steps && counts.get(-500) == expectedCounts.get(-500);
+
+        /* concurrent puts and removals while iterating */
+        final ConcurrentOpenLongDoubleHashMap map = new ConcurrentOpenLongDoubleHashMap();
+        final AtomicBoolean failed = new AtomicBoolean();
+        for (int t = 0; t < nthreads; t++) {
+            final int seed = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    try {
+                        Random r = new Random(seed);
+                        for (int step = 0; step < steps; step++) {
+                            long key = r.nextInt(5000) + ((long) seed << 40);
+                            if (r.nextInt(3) == 0) {
+                                map.removeKey(key);
+                            } else {
+                                map.put(key, key);
+                            }
+                            if (step % 10000 == 0) {
+                                map.forEachPair(new LongDoubleProcedure() {
+                                    public boolean apply(long key, double value) {
+                                        if (value != key)
+                                            failed.set(true);
+                                        return true;
+                                    }
+                                });
+                            }
+                        }
+                        /* remove the own keys */
+                        for (long key = (long) seed << 40, n = key + 5000; key < n; key++) {
+                            map.removeKey(key);
+                        }
+                    } catch (RuntimeException e) {
+                        e.printStackTrace();
+                        failed.set(true);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        map.trimToSize();
+        passed &= !failed.get() && map.isEmpty() && map.keys().size() == 0;
+
+        if (passed) {
+            System.out.print(" ---- ConcurrentOpenHashMap tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- ConcurrentOpenHashMap tests... FAILED !\n");
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package cern.colt.map.tdouble;
+
+import java.util.Random;
+
+import cern.colt.function.tdouble.IntDoubleProcedure;
+import cern.colt.function.tdouble.LongDoubleProcedure;
+import cern.colt.list.tdouble.DoubleArrayList;
+import cern.colt.list.tint.IntArrayList;
+import cern.colt.list.tlong.LongArrayList;
+
+public class TestLinearOpenHashMap {
+    public static void main(String[] args) {
+        boolean passed = true;
+        Random r = new Random(0);
+
+        /* random puts and removals, on few keys with collisions, and on key 0 */
+        for (int range : new int[] { 50, 5000, Integer.MAX_VALUE }) {
+            AbstractLongDoubleMap expected = new OpenLongDoubleHashMap();
+            AbstractLongDoubleMap actual = new LinearOpenLongDoubleHashMap();
+            AbstractIntDoubleMap expectedInt = new OpenIntDoubleHashMap();
+            AbstractIntDoubleMap actualInt = new LinearOpenIntDoubleHashMap(0);
+            for (int step = 0; step < 200000; step++) {
+                int key = r.nextInt(range) - (range == Integer.MAX_VALUE ? 0 : range / 2);
+                if (r.nextInt(3) == 0) {
+                    passed &= expected.removeKey(key) == actual.removeKey(key);
+                    passed &= expectedInt.removeKey(key) == actualInt.removeKey(key);
+                } else {
+                    double value = r.nextDouble();
+                    passed &= expected.put(key, value) == actual.put(key, value);
+                    passed &= expectedInt.put(key, value) == actualInt.put(key, value);
+                }
+                int probe = r.nextInt(range) - (range == Integer.MAX_VALUE ? 0 : range / 2);
+                passed &= expected.get(probe) == actual.get(probe) && expectedInt.get(probe) == actualInt.get(probe);
+                passed &= expected.containsKey(probe) == actual.containsKey(probe);
+            }
+            passed &= expected.size() == actual.size() && expected.equals(actual);
+            passed &= expectedInt.size() == actualInt.size() && expectedInt.equals(actualInt);
+            passed &= actual.equals(actual.copy()) && actualInt.equals(actualInt.copy());
+
+            /* keys, values and pairs are iterated in the same order */
+            final LongArrayList keys = actual.keys();
+            final DoubleArrayList values = actual.values();
+            final int[] index = new int[1];
+            final boolean[] same = { keys.size() == actual.size() };
+            actual.forEachPair(new LongDoubleProcedure() {
+                public boolean apply(long key, double value) {
+                    same[0] &= keys.get(index[0]) == key && values.get(index[0]++) == value;
+                    return true;
+                }
+            });
+            final IntArrayList intKeys = actualInt.keys();
+            final DoubleArrayList intValues = actualInt.values();
+            index[0] = 0;
+            actualInt.forEachPair(new IntDoubleProcedure() {
+                public boolean apply(int key, double value) {
+                    same[0] &= intKeys.get(index[0]) == key && intValues.get(index[0]++) == value;
+                    return true;
+                }
+            });
+            passed &= same[0];
+
+            /* shrinking after the removal of all keys */
+            for (int i = 0; i < keys.size(); i++) {
+                passed &= actual.removeKey(keys.get(i)) && actualInt.removeKey(intKeys.get(i));
+            }
+            actual.trimToSize();
+            passed &= actual.isEmpty() && actualInt.isEmpty() && !actual.containsKey(0);
+        }
+
+        /* the initial table is not larger than the requested capacity */
+        passed &= new LinearOpenLongDoubleHashMap(1000).table.length == 512;
+        passed &= new LinearOpenIntDoubleHashMap(1024).table.length == 1024;
+
+        if (passed) {
+            System.out.print(" ---- LinearOpenHashMap tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- LinearOpenHashMap tests... FAILED !\n");
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package cern.colt.matrix.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteOrder;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import cern.colt.matrix.tdcomplex.DComplexMatrix2D;
+import cern.colt.matrix.tdcomplex.impl.DenseDComplexMatrix2D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.MappedDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseCCDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
+
+public class MatrixBinaryFileTest extends TestCase {
+
+    private static final int NROWS = 13;
+
+    private static final int NCOLUMNS = 17;
+
+    private static final Random random = new Random(0);
+
+    private File file;
+
+    public MatrixBinaryFileTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void setUp() throws Exception {
+        file = File.createTempFile("colt", ".bin");
+        file.deleteOnExit();
+    }
+
+    protected void tearDown() throws Exception {
+        file.delete();
+    }
+
+    public void testDense() throws Exception {
+        DoubleMatrix2D A = new DenseDoubleMatrix2D(NROWS, NCOLUMNS);
+        fill(A);
+        MatrixBinaryFile.write(A, file);
+        assertEquals(MatrixBinaryFile.HEADER_SIZE + 8L * A.size(), file.length());
+        DoubleMatrix2D B = MatrixBinaryFile.readDoubleMatrix2D(file);
+        assertTrue(B instanceof DenseDoubleMatrix2D);
+        assertEquals(A, B);
+
+        MatrixBinaryFile.write(A.viewDice().viewColumnFlip(), file, ByteOrder.BIG_ENDIAN, false);
+        assertEquals(A.viewDice().viewColumnFlip(), MatrixBinaryFile.readDoubleMatrix2D(file));
+        assertEquals(A.viewDice().viewColumnFlip(), MatrixBinaryFile.mapDoubleMatrix2D(file, true));
+    }
+
+    public void testDenseColumn() throws Exception {
+        DoubleMatrix2D A = new DenseColumnDoubleMatrix2D(NROWS, NCOLUMNS);
+        fill(A);
+        MatrixBinaryFile.write(A, file);
+        DoubleMatrix2D B = MatrixBinaryFile.readDoubleMatrix2D(file);
+        assertTrue(B instanceof DenseColumnDoubleMatrix2D);
+        assertEquals(A, B);
+        assertEquals(A, MatrixBinaryFile.mapDoubleMatrix2D(file, true));
+
+        MatrixBinaryFile.write(A.viewPart(1, 2, 5, 7), file);
+        assertEquals(A.viewPart(1, 2, 5, 7), MatrixBinaryFile.readDoubleMatrix2D(file));
+    }
+
+    public void testMap() throws Exception {
+        DoubleMatrix2D A = new DenseDoubleMatrix2D(NROWS, NCOLUMNS);
+        fill(A);
+        MatrixBinaryFile.write(A, file, ByteOrder.nativeOrder(), false);
+        DoubleMatrix2D M = MatrixBinaryFile.mapDoubleMatrix2D(file, false);
+        assertTrue(M instanceof MappedDoubleMatrix2D);
+        assertEquals(A, M);
+        M.setQuick(3, 4, -1);
+        ((MappedDoubleMatrix2D) M).force();
+        A.setQuick(3, 4, -1);
+        assertEquals(A, MatrixBinaryFile.readDoubleMatrix2D(file));
+    }
+
+    public void testSparse() throws Exception {
+        DoubleMatrix2D A = new SparseDoubleMatrix2D(NROWS, NCOLUMNS);
+        for (int i = 0; i < 50; i++) {
+            A.setQuick(random.nextInt(NROWS), random.nextInt(NCOLUMNS), random.nextDouble());
+        }
+        SparseRCDoubleMatrix2D RC = ((SparseDoubleMatrix2D) A).getRowCompressed(true);
+        MatrixBinaryFile.write(RC, file);
+        DoubleMatrix2D B = MatrixBinaryFile.readDoubleMatrix2D(file);
+        assertTrue(B instanceof SparseRCDoubleMatrix2D);
+        assertEquals(A, B);
+        assertEquals(A, MatrixBinaryFile.mapDoubleMatrix2D(file, true));
+
+        SparseCCDoubleMatrix2D CC = ((SparseDoubleMatrix2D) A).getColumnCompressed(true);
+        MatrixBinaryFile.write(CC, file, ByteOrder.BIG_ENDIAN, true);
+        B = MatrixBinaryFile.readDoubleMatrix2D(file);
+        assertTrue(B instanceof SparseCCDoubleMatrix2D);
+        assertEquals(A, B);
+
+        MatrixBinaryFile.write(A, file);
+        assertEquals(A, MatrixBinaryFile.readDoubleMatrix2D(file));
+
+        MatrixBinaryFile.write(new SparseRCDoubleMatrix2D(NROWS, NCOLUMNS), file);
+        assertEquals(0, MatrixBinaryFile.readDoubleMatrix2D(file).cardinality());
+    }
+
+    public void testDComplex() throws Exception {
+        DComplexMatrix2D A = new DenseDComplexMatrix2D(NROWS, NCOLUMNS);
+        for (int r = 0; r < NROWS; r++) {
+            for (int c = 0; c < NCOLUMNS; c++) {
+                A.setQuick(r, c, random.nextDouble(), random.nextDouble());
+            }
+        }
+        MatrixBinaryFile.write(A, file);
+        assertEquals(A, MatrixBinaryFile.readDComplexMatrix2D(file));
+        MatrixBinaryFile.write(A.viewDice(), file, ByteOrder.LITTLE_ENDIAN, true);
+        assertEquals(A.viewDice(), MatrixBinaryFile.readDComplexMatrix2D(file));
+        try {
+            MatrixBinaryFile.readDoubleMatrix2D(file);
+            fail();
+        } catch (IOException e) {
+        }
+    }
+
+    public void testChecksum() throws Exception {
+        DoubleMatrix2D A = new DenseDoubleMatrix2D(NROWS, NCOLUMNS);
+        fill(A);
+        MatrixBinaryFile.write(A, file);
+        assertTrue(MatrixBinaryFile.verify(file));
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        raf.seek(MatrixBinaryFile.HEADER_SIZE + 8 * 10);
+        raf.write(0x7f);
+        raf.close();
+        assertFalse(MatrixBinaryFile.verify(file));
+        try {
+            MatrixBinaryFile.readDoubleMatrix2D(file);
+            fail();
+        } catch (IOException e) {
+        }
+    }
+
+    private static void fill(DoubleMatrix2D A) {
+        for (int r = 0; r < A.rows(); r++) {
+            for (int c = 0; c < A.columns(); c++) {
+                A.setQuick(r, c, random.nextDouble());
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package cern.colt.matrix.tdouble;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import cern.colt.matrix.io.MatrixBinaryFileTest;
 import cern.colt.matrix.tdouble.algo.solver.AllDoubleMatrixSolverTests;
 import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2DTest;
 import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2DViewTest;
@@ -17,6 +18,10 @@ import cern.colt.matrix.tdouble.impl.DenseLargeDoubleMatrix3DTest;
 import cern.colt.matrix.tdouble.impl.DenseLargeDoubleMatrix3DViewTest;
 import cern.colt.matrix.tdouble.impl.DiagonalDoubleMatrix2DTest;
 import cern.colt.matrix.tdouble.impl.DiagonalDoubleMatrix2DViewTest;
+import cern.colt.matrix.tdouble.impl.MappedDoubleMatrix2DTest;
+import cern.colt.matrix.tdouble.impl.MappedDoubleMatrix2DViewTest;
+import cern.colt.matrix.tdouble.impl.MappedDoubleMatrix3DTest;
+import cern.colt.matrix.tdouble.impl.MappedDoubleMatrix3DViewTest;
 import cern.colt.matrix.tdouble.impl.SparseCCDoubleMatrix2DTest;
 import cern.colt.matrix.tdouble.impl.SparseCCDoubleMatrix2DViewTest;
 import cern.colt.matrix.tdouble.impl.SparseCCMDoubleMatrix2DTest;
@@ -47,6 +52,8 @@ public class AllDoubleMatrixTests {
         suite.addTestSuite(DenseColumnDoubleMatrix2DViewTest.class);
         suite.addTestSuite(DenseLargeDoubleMatrix2DTest.class);
         suite.addTestSuite(DenseLargeDoubleMatrix2DViewTest.class);
+        suite.addTestSuite(MappedDoubleMatrix2DTest.class);
+        suite.addTestSuite(MappedDoubleMatrix2DViewTest.class);
 
         suite.addTestSuite(SparseDoubleMatrix2DTest.class);
         suite.addTestSuite(SparseDoubleMatrix2DViewTest.class);
@@ -69,6 +76,10 @@ public class AllDoubleMatrixTests {
         suite.addTestSuite(SparseDoubleMatrix3DViewTest.class);
         suite.addTestSuite(DenseLargeDoubleMatrix3DTest.class);
         suite.addTestSuite(DenseLargeDoubleMatrix3DViewTest.class);
+        suite.addTestSuite(MappedDoubleMatrix3DTest.class);
+        suite.addTestSuite(MappedDoubleMatrix3DViewTest.class);
+
+        suite.addTestSuite(MatrixBinaryFileTest.class);
 
         suite.addTest(AllDoubleMatrixSolverTests.suite());
 
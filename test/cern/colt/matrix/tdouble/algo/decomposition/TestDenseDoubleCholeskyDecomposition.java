@@ -1,17 +1,23 @@
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.algo.DenseDoubleAlgebra;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
 import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import cern.jet.math.tdouble.DoubleFunctions;
 import edu.emory.mathcs.jplasma.tdouble.Dplasma;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 public class TestDenseDoubleCholeskyDecomposition {
 
     public static void main(String[] args) {
 
+        testTiled();
+
         for (int k = 0; k < 20; k++) {
 
             int N = 600;
@@ -92,6 +98,88 @@ public class TestDenseDoubleCholeskyDecomposition {
 
     }
 
+    /*
+     * Checks the tiled factorization on sizes that are not multiples of the
+     * tile size, on views and on matrices that are not positive definite, and
+     * compares the results computed by one and by several threads.
+     */
+    private static void testTiled() {
+        int nb = DoubleTileMatrix.TILE_SIZE;
+        int[] sizes = { 1, 7, nb - 1, nb + 1, 2 * nb + 37 };
+        int NRHS = 3;
+        double eps = 1e-10;
+        boolean passed = true;
+        for (int N : sizes) {
+            for (int layout = 0; layout < 2; layout++) {
+                Random r = new Random(N);
+                DoubleMatrix2D parent = layout == 0 ? new DenseDoubleMatrix2D(N + 3, N + 5)
+                        : new DenseColumnDoubleMatrix2D(N + 3, N + 5);
+                DoubleMatrix2D A = parent.viewPart(2, 3, N, N);
+                for (int i = 0; i < N; i++) {
+                    for (int j = 0; j <= i; j++) {
+                        double value = 0.5 - r.nextDouble();
+                        A.setQuick(i, j, value);
+                        A.setQuick(j, i, value);
+                    }
+                    A.setQuick(i, i, A.getQuick(i, i) + N);
+                }
+                DoubleMatrix2D B = parent.like(N, NRHS);
+                for (int i = 0; i < N; i++) {
+                    for (int j = 0; j < NRHS; j++) {
+                        B.setQuick(i, j, 0.5 - r.nextDouble());
+                    }
+                }
+
+                /* the view gives the same factor as its copy */
+                DenseDoubleCholeskyDecomposition serial;
+                DoubleMatrix2D X1 = B.copy();
+                Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    serial = new DenseDoubleCholeskyDecomposition(A);
+                    serial.solve(X1);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(scope);
+                }
+                DoubleMatrix2D L = serial.getL();
+                passed &= Arrays.deepEquals(L.toArray(), new DenseDoubleCholeskyDecomposition(A.copy()).getL()
+                        .toArray());
+                passed &= residual(A, L.zMult(L, null, 1, 0, false, true)) < N * eps;
+                passed &= residual(B, A.zMult(X1, null)) < N * eps;
+
+                /* several threads give the same factor and solution */
+                DoubleMatrix2D X2 = B.viewDice().copy().viewDice();
+                scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+                try {
+                    DenseDoubleCholeskyDecomposition parallel = new DenseDoubleCholeskyDecomposition(A);
+                    parallel.solve(X2);
+                    passed &= Arrays.deepEquals(L.toArray(), parallel.getL().toArray());
+                    passed &= Arrays.deepEquals(X1.toArray(), X2.toArray());
+
+                    /* a matrix that is not positive definite is rejected */
+                    A.setQuick(N - 1, N - 1, -1);
+                    try {
+                        new DenseDoubleCholeskyDecomposition(A);
+                        passed = false;
+                    } catch (IllegalArgumentException exc) {
+                        passed &= "Matrix is not symmetric positive definite.".equals(exc.getMessage());
+                    }
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(scope);
+                }
+            }
+        }
+        if (passed) {
+            System.out.print(" ---- DoubleCholeskyFactorization tiled tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- DoubleCholeskyFactorization tiled tests... FAILED !\n");
+        }
+    }
+
+    private static double residual(DoubleMatrix2D A, DoubleMatrix2D B) {
+        DoubleMatrix2D R = A.copy().assign(B, DoubleFunctions.minus);
+        return DenseDoubleAlgebra.DEFAULT.normInfinity(R) / DenseDoubleAlgebra.DEFAULT.normInfinity(A);
+    }
+
     private static void testCholesky(DoubleMatrix2D A1, DoubleMatrix2D A2, DoubleMatrix2D B1, DoubleMatrix2D B2) {
         int N = A1.rows();
         double eps = 1e-10;
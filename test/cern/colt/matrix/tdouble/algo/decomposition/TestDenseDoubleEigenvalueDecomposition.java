@@ -0,0 +1,119 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import cern.jet.math.tdouble.DoubleFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+public class TestDenseDoubleEigenvalueDecomposition {
+    public static void main(String[] args) {
+        int N = 300;
+        Random r = new Random(0);
+
+        /* random symmetric matrix */
+        DoubleMatrix2D A1 = new DenseDoubleMatrix2D(N, N);
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j <= i; j++) {
+                double a = 0.5 - r.nextDouble();
+                A1.setQuick(i, j, a);
+                A1.setQuick(j, i, a);
+            }
+        }
+        testEigenvalues(A1, null);
+
+        /* 1D Laplacian, with known eigenvalues */
+        DoubleMatrix2D A2 = new DenseDoubleMatrix2D(N, N);
+        double[] exact = new double[N];
+        for (int i = 0; i < N; i++) {
+            A2.setQuick(i, i, 2);
+            if (i > 0) {
+                A2.setQuick(i, i - 1, -1);
+                A2.setQuick(i - 1, i, -1);
+            }
+            exact[i] = 2 - 2 * Math.cos((i + 1) * Math.PI / (N + 1));
+        }
+        Arrays.sort(exact);
+        testEigenvalues(A2, exact);
+
+        /* Q*D*Q' with multiple eigenvalues, which are deflated */
+        DoubleMatrix2D Q = new DenseDoubleEigenvalueDecomposition(A1).getV();
+        DoubleMatrix2D D = new DenseDoubleMatrix2D(N, N);
+        exact = new double[N];
+        for (int i = 0; i < N; i++) {
+            exact[i] = i % 3;
+            D.setQuick(i, i, exact[i]);
+        }
+        Arrays.sort(exact);
+        DoubleMatrix2D A3 = Q.zMult(D.zMult(Q, null, 1, 0, false, true), null);
+        for (int i = 0; i < N; i++) {
+            for (int j = 0; j < i; j++) {
+                A3.setQuick(j, i, A3.getQuick(i, j));
+            }
+        }
+        /* tiny and huge scales, where the deflation must be relative */
+        for (double scale : new double[] { 1e-16, 1e154 }) {
+            DoubleMatrix2D A4 = A1.copy().assign(DoubleFunctions.mult(scale));
+            testEigenvalues(A4, null);
+        }
+
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            testEigenvalues(A3, exact);
+            testEigenvalues(A1, null);
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+
+        System.exit(0);
+    }
+
+    private static void testEigenvalues(DoubleMatrix2D A, double[] exact) {
+        int n = A.rows();
+        long t = System.nanoTime();
+        DenseDoubleEigenvalueDecomposition eig = new DenseDoubleEigenvalueDecomposition(A);
+        double time = (System.nanoTime() - t) / 1e9;
+        t = System.nanoTime();
+        double[] values = new DenseDoubleEigenvalueDecomposition(A, false).getRealEigenvalues().toArray();
+        double timeValues = (System.nanoTime() - t) / 1e9;
+        double[] d = eig.getRealEigenvalues().toArray();
+        DoubleMatrix2D V = eig.getV();
+
+        /* eigenvalue errors, eigenpair residuals and orthogonality of V */
+        double norm = A.aggregate(DoubleFunctions.max, DoubleFunctions.abs) * n;
+        double error = 0;
+        for (int i = 0; i < n; i++) {
+            error = Math.max(error, Math.abs(d[i] - values[i]));
+            if (exact != null) {
+                error = Math.max(error, Math.abs(d[i] - exact[i]));
+            }
+            if (i > 0 && d[i] < d[i - 1]) {
+                error = Double.POSITIVE_INFINITY;
+            }
+        }
+        DoubleMatrix2D R = A.zMult(V, null);
+        R.assign(V.zMult(eig.getD(), null), DoubleFunctions.minus);
+        double residual = R.aggregate(DoubleFunctions.max, DoubleFunctions.abs);
+        DoubleMatrix2D I = V.zMult(V, null, 1, 0, true, false);
+        double orthogonality = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                orthogonality = Math.max(orthogonality, Math.abs(I.getQuick(i, j) - (i == j ? 1 : 0)));
+            }
+        }
+
+        System.out.print("\n");
+        System.out.print("------ DenseDoubleEigenvalueDecomposition tests-------  \n");
+        System.out.print(String.format("            Size of the Matrix %d by %d\n", n, n));
+        System.out.print(String.format("-- time %.3fs, eigenvalues only %.3fs \n", time, timeValues));
+        System.out.print(String.format("-- max eigenvalue error = %e \n", error));
+        System.out.print(String.format("-- ||A*V-V*D||_max = %e, ||V'V-I||_max = %e \n", residual, orthogonality));
+        if (error < 1e-12 * norm && residual < 1e-13 * norm && orthogonality < 1e-12) {
+            System.out.print(" ---- DenseDoubleEigenvalueDecomposition tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- DenseDoubleEigenvalueDecomposition tests... FAILED !\n");
+        }
+    }
+}
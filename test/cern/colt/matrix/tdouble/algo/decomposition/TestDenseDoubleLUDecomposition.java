@@ -0,0 +1,62 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import java.util.Random;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.algo.DenseDoubleAlgebra;
+import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+
+public class TestDenseDoubleLUDecomposition {
+
+    public static void main(String[] args) {
+        int[][] sizes = { { 600, 600 }, { 900, 500 }, { 500, 900 }, { 2000, 2000 } };
+        boolean passed = true;
+        for (int[] size : sizes) {
+            int M = size[0];
+            int N = size[1];
+            Random r = new Random(0);
+            DoubleMatrix2D A = new DenseDoubleMatrix2D(M, N);
+            for (int i = 0; i < M; i++) {
+                for (int j = 0; j < N; j++) {
+                    A.setQuick(i, j, 0.5 - r.nextDouble());
+                }
+            }
+            // the dot-product algorithm is used for other matrix types
+            DoubleMatrix2D Ac = new DenseColumnDoubleMatrix2D(M, N).assign(A);
+
+            DenseDoubleLUDecompositionQuick blocked = new DenseDoubleLUDecompositionQuick(0);
+            DenseDoubleLUDecompositionQuick crout = new DenseDoubleLUDecompositionQuick(0);
+            long t = System.nanoTime();
+            blocked.decompose(A.copy());
+            double tBlocked = (System.nanoTime() - t) / 1e9;
+            t = System.nanoTime();
+            crout.decompose(Ac);
+            double tCrout = (System.nanoTime() - t) / 1e9;
+
+            double eps = 1e-10;
+            DoubleMatrix2D PA = DenseDoubleAlgebra.DEFAULT.subMatrix(A, blocked.getPivot(), 0, N - 1);
+            int K = Math.min(M, N);
+            DoubleMatrix2D LU = blocked.getL().viewPart(0, 0, M, K).zMult(blocked.getU().viewPart(0, 0, K, N), null);
+            double residual = DenseDoubleAlgebra.DEFAULT.normInfinity(LU.assign(PA,
+                    cern.jet.math.tdouble.DoubleFunctions.minus))
+                    / (DenseDoubleAlgebra.DEFAULT.normInfinity(A) * N * eps);
+            boolean samePivots = java.util.Arrays.equals(blocked.getPivot(), crout.getPivot());
+            System.out.print(String.format("%d x %d: blocked %.3fs, dot-product %.3fs, "
+                    + "||PA-LU||_oo/(||A||_oo.N.eps) = %e, same pivots: %b\n", M, N, tBlocked, tCrout, residual,
+                    samePivots));
+            if (residual > 10.0 || !samePivots) {
+                passed = false;
+            }
+            if (M == N && Math.abs(blocked.det() - crout.det()) > 1e-8 * Math.abs(crout.det())) {
+                passed = false;
+            }
+        }
+        if (passed) {
+            System.out.print(" ---- DenseDoubleLUDecomposition tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- DenseDoubleLUDecomposition tests... FAILED !\n");
+        }
+        System.exit(0);
+    }
+}
@@ -1,5 +1,6 @@
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.util.Arrays;
 import java.util.Random;
 
 import cern.colt.matrix.tdouble.DoubleFactory2D;
@@ -7,12 +8,16 @@ import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DenseDoubleAlgebra;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
 import cern.colt.matrix.tdouble.impl.DenseColumnDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
 import cern.jet.math.tdouble.DoubleFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 public class TestDenseDoubleQRDecomposition {
 
     public static void main(String[] args) {
 
+        testTiled();
+
         for (int k = 0; k < 20; k++) {
             int M = 600;
             int N = 400;
@@ -46,6 +51,87 @@ public class TestDenseDoubleQRDecomposition {
         System.exit(0);
     }
 
+    /*
+     * Checks the tiled factorization on sizes that are not multiples of the
+     * tile size and on views, and compares the results computed by one and by
+     * several threads.
+     */
+    private static void testTiled() {
+        int nb = DoubleTileMatrix.TILE_SIZE;
+        int[][] sizes = { { 1, 1 }, { 9, 4 }, { nb + 1, nb - 1 }, { 2 * nb + 37, nb + 1 }, { 2 * nb + 5, 3 } };
+        int NRHS = 3;
+        double eps = 1e-10;
+        boolean passed = true;
+        for (int[] size : sizes) {
+            int M = size[0];
+            int N = size[1];
+            for (int layout = 0; layout < 2; layout++) {
+                Random r = new Random(M);
+                DoubleMatrix2D parent = layout == 0 ? new DenseDoubleMatrix2D(M + 3, N + 5)
+                        : new DenseColumnDoubleMatrix2D(M + 3, N + 5);
+                DoubleMatrix2D A = parent.viewPart(2, 3, M, N);
+                for (int i = 0; i < M; i++) {
+                    for (int j = 0; j < N; j++) {
+                        A.setQuick(i, j, 0.5 - r.nextDouble());
+                    }
+                }
+                DoubleMatrix2D B = parent.like(M, NRHS);
+                for (int i = 0; i < M; i++) {
+                    for (int j = 0; j < NRHS; j++) {
+                        B.setQuick(i, j, 0.5 - r.nextDouble());
+                    }
+                }
+
+                /* the view gives the same factors as its copy */
+                DenseDoubleQRDecomposition serial;
+                DoubleMatrix2D Q, R;
+                DoubleMatrix2D X1 = B.copy();
+                Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    serial = new DenseDoubleQRDecomposition(A);
+                    Q = serial.getQ(false);
+                    R = serial.getR(false);
+                    serial.solve(X1);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(scope);
+                }
+                DenseDoubleQRDecomposition copy = new DenseDoubleQRDecomposition(A.copy());
+                passed &= Arrays.deepEquals(Q.toArray(), copy.getQ(false).toArray());
+                passed &= Arrays.deepEquals(R.toArray(), copy.getR(false).toArray());
+                passed &= residual(DoubleFactory2D.dense.identity(M), Q.zMult(Q, null, 1, 0, true, false)) < M * eps;
+                passed &= residual(A, Q.zMult(R, null)) < M * eps;
+
+                /* the residual of the least squares solution is orthogonal to A */
+                DoubleMatrix2D X = X1.viewPart(0, 0, N, NRHS);
+                DoubleMatrix2D AtR = A.zMult(A.zMult(X, B.copy(), 1, -1, false, false), null, 1, 0, true, false);
+                passed &= DenseDoubleAlgebra.DEFAULT.normInfinity(AtR) < M * eps;
+
+                /* several threads give the same factors and solution */
+                DoubleMatrix2D X2 = B.viewDice().copy().viewDice();
+                scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+                try {
+                    DenseDoubleQRDecomposition parallel = new DenseDoubleQRDecomposition(A);
+                    parallel.solve(X2);
+                    passed &= Arrays.deepEquals(Q.toArray(), parallel.getQ(false).toArray());
+                    passed &= Arrays.deepEquals(R.toArray(), parallel.getR(false).toArray());
+                    passed &= Arrays.deepEquals(X1.toArray(), X2.toArray());
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(scope);
+                }
+            }
+        }
+        if (passed) {
+            System.out.print(" ---- TESTING tiled DGEQRF + DORMQR + DTRSM .... PASSED !\n");
+        } else {
+            System.err.print(" ---- TESTING tiled DGEQRF + DORMQR + DTRSM .... FAILED !\n");
+        }
+    }
+
+    private static double residual(DoubleMatrix2D A, DoubleMatrix2D B) {
+        DoubleMatrix2D R = A.copy().assign(B, DoubleFunctions.minus);
+        return DenseDoubleAlgebra.DEFAULT.normInfinity(R) / DenseDoubleAlgebra.DEFAULT.normInfinity(A);
+    }
+
     private static void testQR(DoubleMatrix2D A1, DoubleMatrix2D A2, DoubleMatrix2D B1, DoubleMatrix2D B2) {
         int M = A1.rows();
         int N = A1.columns();
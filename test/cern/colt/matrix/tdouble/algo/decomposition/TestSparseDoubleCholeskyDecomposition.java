@@ -1,6 +1,13 @@
 package cern.colt.matrix.tdouble.algo.decomposition;
 
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import cern.colt.function.tdouble.IntIntDoubleFunction;
 
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
@@ -8,8 +15,10 @@ import cern.colt.matrix.tdouble.algo.DenseDoubleAlgebra;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
 import cern.colt.matrix.tdouble.algo.SparseDoubleAlgebra;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.SparseCCDoubleMatrix2D;
 import cern.jet.math.tdouble.DoubleFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 public class TestSparseDoubleCholeskyDecomposition {
     public static void main(String[] args) {
@@ -46,23 +55,32 @@ public class TestSparseDoubleCholeskyDecomposition {
             B2.setQuick(i, B1.getQuick(i));
         }
 
-        testCholesky(A1, A2, B1, B2);
+        DoubleMatrix2D A3 = A2.copy();
+        DoubleMatrix1D B3 = B1.copy();
+        DoubleMatrix1D B4 = B2.copy();
+        testCholesky(A1, A2, B1, B2, false);
+        testCholesky(A1, A3, B3, B4, true);
+        testRefactor(A1);
+        testSupernodal(16);
+        testRangeFailure();
 
         System.exit(0);
 
     }
 
-    private static void testCholesky(DoubleMatrix2D A1, DoubleMatrix2D A2, DoubleMatrix1D B1, DoubleMatrix1D B2) {
+    private static void testCholesky(DoubleMatrix2D A1, DoubleMatrix2D A2, DoubleMatrix1D B1, DoubleMatrix1D B2,
+            boolean supernodal) {
         int N = A1.rows();
         double eps = 1e-10;
 
-        SparseDoubleCholeskyDecomposition cf = new SparseDoubleCholeskyDecomposition(A2, 0);
+        SparseDoubleCholeskyDecomposition cf = new SparseDoubleCholeskyDecomposition(A2, 0, supernodal);
         DoubleMatrix2D L = cf.getL();
         DoubleMatrix1D X = B2.copy();
         cf.solve(X);
 
         System.out.print("\n");
         System.out.print("------ SparseDoubleCholeskyFactorization tests-------  \n");
+        System.out.print(supernodal ? "            Supernodal factorization\n" : "");
         System.out.print(String.format("            Size of the Matrix %d by %d\n", N, N));
         System.out.print("\n");
         System.out.print(" The matrix A is randomly generated for each test.\n");
@@ -122,6 +140,194 @@ public class TestSparseDoubleCholeskyDecomposition {
         return info_factorization;
     }
 
+    /*------------------------------------------------------------------------
+     *  Check the refactorization of a matrix with the same pattern, and the
+     *  solution of several right-hand sides at once, against a new
+     *  decomposition
+     */
+
+    private static void testRefactor(DoubleMatrix2D A) {
+        DoubleMatrix2D A3 = A.copy();
+        A3.forEachNonZero(new IntIntDoubleFunction() {
+            public double apply(int i, int j, double value) {
+                return value * (1 + 0.25 * Math.sin(i + j));
+            }
+        });
+        int rows = Math.max(A.rows(), A.columns());
+        int nrhs = 3;
+        Random r = new Random(1);
+        DoubleMatrix2D B = new DenseDoubleMatrix2D(rows, nrhs);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < nrhs; j++) {
+                B.setQuick(i, j, 0.5 - r.nextDouble());
+            }
+        }
+
+        SparseDoubleCholeskyDecomposition f = new SparseDoubleCholeskyDecomposition(A, 0);
+        f.refactor(A3);
+        DoubleMatrix2D X = B.copy();
+        f.solve(X);
+
+        SparseDoubleCholeskyDecomposition g = new SparseDoubleCholeskyDecomposition(A3, 0);
+        double diff = 0;
+        for (int j = 0; j < nrhs; j++) {
+            DoubleMatrix1D x = B.viewColumn(j).copy();
+            g.solve(x);
+            for (int i = 0; i < A.columns(); i++) {
+                diff = Math.max(diff, Math.abs(x.getQuick(i) - X.getQuick(i, j)));
+            }
+        }
+
+        boolean rejected = false;
+        DoubleMatrix2D A4 = A.copy();
+        A4.setQuick(0, A.columns() - 1, 0);
+        try {
+            f.refactor(A4);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+
+        System.out.print("============\n");
+        System.out.print("Checking the refactorization and the solution of several right-hand sides \n");
+        System.out.print(String.format("-- max difference to a new decomposition = %e, other pattern rejected: %b \n",
+                diff, rejected));
+        if (diff < 1e-10 && rejected) {
+            System.out.print(" ---- SparseCholesky refactorization tests... PASSED !\n");
+        } else {
+            System.out.print(" ---- SparseCholesky refactorization tests... FAILED !\n");
+        }
+    }
+
+    /*------------------------------------------------------------------------
+     *  Check the supernodal factorization of the 7-point Laplacian on a
+     *  k x k x k grid against the default one, with several threads, and the
+     *  rejection of an indefinite matrix
+     */
+
+    private static void testSupernodal(int k) {
+        int n = k * k * k;
+        DoubleMatrix2D A = new SparseCCDoubleMatrix2D(n, n);
+        for (int x = 0; x < k; x++) {
+            for (int y = 0; y < k; y++) {
+                for (int z = 0; z < k; z++) {
+                    int i = (x * k + y) * k + z;
+                    A.setQuick(i, i, 6.01);
+                    if (x > 0) {
+                        A.setQuick(i, i - k * k, -1);
+                        A.setQuick(i - k * k, i, -1);
+                    }
+                    if (y > 0) {
+                        A.setQuick(i, i - k, -1);
+                        A.setQuick(i - k, i, -1);
+                    }
+                    if (z > 0) {
+                        A.setQuick(i, i - 1, -1);
+                        A.setQuick(i - 1, i, -1);
+                    }
+                }
+            }
+        }
+        int nrhs = 4;
+        Random r = new Random(2);
+        DoubleMatrix2D B = new DenseDoubleMatrix2D(n, nrhs);
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < nrhs; j++) {
+                B.setQuick(i, j, 0.5 - r.nextDouble());
+            }
+        }
+
+        long t = System.nanoTime();
+        SparseDoubleCholeskyDecomposition f = new SparseDoubleCholeskyDecomposition(A, 1);
+        double tf = (System.nanoTime() - t) / 1e9;
+        DoubleMatrix2D X = B.copy();
+        f.solve(X);
+
+        double ts;
+        DoubleMatrix2D Y = B.copy();
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            t = System.nanoTime();
+            SparseDoubleCholeskyDecomposition g = new SparseDoubleCholeskyDecomposition(A, 1, true);
+            ts = (System.nanoTime() - t) / 1e9;
+            g.solve(Y);
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+        double diff = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < nrhs; j++) {
+                diff = Math.max(diff, Math.abs(X.getQuick(i, j) - Y.getQuick(i, j)));
+            }
+        }
+
+        boolean rejected = false;
+        DoubleMatrix2D A2 = A.copy();
+        A2.setQuick(n / 2, n / 2, -1);
+        try {
+            new SparseDoubleCholeskyDecomposition(A2, 1, true);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+
+        System.out.print("============\n");
+        System.out.print(String.format("Checking the supernodal factorization of a %d by %d 3D Laplacian \n", n, n));
+        System.out.print(String.format("-- factorization time %.3fs, default %.3fs \n", ts, tf));
+        System.out.print(String.format("-- max difference to the default factorization = %e, indefinite rejected: %b \n",
+                diff, rejected));
+        if (diff < 1e-10 && rejected) {
+            System.out.print(" ---- SparseCholesky supernodal tests... PASSED !\n");
+        } else {
+            System.out.print(" ---- SparseCholesky supernodal tests... FAILED !\n");
+        }
+    }
+
+    /*------------------------------------------------------------------------
+     *  Check that an exception thrown by a range of a parallel update of the
+     *  supernodal factorization is rethrown by the calling thread, also if
+     *  the range is run by a helper
+     */
+
+    private static void testRangeFailure() {
+        final IllegalStateException failure = new IllegalStateException();
+        final Thread caller = Thread.currentThread();
+        final AtomicInteger indexes = new AtomicInteger();
+        Throwable thrown = null;
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            Class<?> rangeTask = Class.forName(DoubleSupernodalCholesky.class.getName() + "$RangeTask");
+            Object task = Proxy.newProxyInstance(rangeTask.getClassLoader(), new Class<?>[] { rangeTask },
+                    new InvocationHandler() {
+                        public Object invoke(Object proxy, Method method, Object[] args) throws Exception {
+                            if (Thread.currentThread() != caller) {
+                                throw failure;
+                            }
+                            // leave ranges to the helpers
+                            Thread.sleep(5);
+                            indexes.addAndGet((Integer) args[1] - (Integer) args[0]);
+                            return null;
+                        }
+                    });
+            Method forEachRange = DoubleSupernodalCholesky.class.getDeclaredMethod("forEachRange", int.class,
+                    int.class, long.class, boolean.class, rangeTask);
+            forEachRange.setAccessible(true);
+            forEachRange.invoke(null, 0, 1000, Long.MAX_VALUE, false, task);
+        } catch (InvocationTargetException e) {
+            thrown = e.getCause();
+        } catch (Exception e) {
+            thrown = e;
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+
+        System.out.print("============\n");
+        System.out.print("Checking the failure of a range of a parallel supernodal update \n");
+        if (thrown == failure && indexes.get() < 1000) {
+            System.out.print(" ---- SparseCholesky range failure tests... PASSED !\n");
+        } else {
+            System.out.print(" ---- SparseCholesky range failure tests... FAILED !\n");
+        }
+    }
+
     /*------------------------------------------------------------------------
      *  Check the accuracy of the solution of the linear system 
      */
@@ -0,0 +1,93 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import java.util.Arrays;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseDoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+public class TestSparseDoubleEigenvalueDecomposition {
+    public static void main(String[] args) {
+        int N = 60;
+        int k = 8;
+
+        /* 5-point Laplacian on a N x N grid, with known eigenvalues */
+        SparseDoubleMatrix2D T = new SparseDoubleMatrix2D(N * N, N * N);
+        for (int x = 0; x < N; x++) {
+            for (int y = 0; y < N; y++) {
+                int i = x * N + y;
+                T.setQuick(i, i, 4);
+                if (x > 0) {
+                    T.setQuick(i, i - N, -1);
+                    T.setQuick(i - N, i, -1);
+                }
+                if (y > 0) {
+                    T.setQuick(i, i - 1, -1);
+                    T.setQuick(i - 1, i, -1);
+                }
+            }
+        }
+        SparseRCDoubleMatrix2D A = T.getRowCompressed(false);
+        double[] exact = new double[N * N];
+        for (int x = 0; x < N; x++) {
+            for (int y = 0; y < N; y++) {
+                exact[x * N + y] = 4 - 2 * Math.cos((x + 1) * Math.PI / (N + 1)) - 2
+                        * Math.cos((y + 1) * Math.PI / (N + 1));
+            }
+        }
+        Arrays.sort(exact);
+
+        testEigenvalues(A, k, SparseDoubleEigenvalueDecomposition.LARGEST_ALGEBRAIC, exact);
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            testEigenvalues(A, k, SparseDoubleEigenvalueDecomposition.SMALLEST_ALGEBRAIC, exact);
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+
+        System.exit(0);
+    }
+
+    private static void testEigenvalues(DoubleMatrix2D A, int k, int which, double[] exact) {
+        int n = A.rows();
+        long t = System.nanoTime();
+        SparseDoubleEigenvalueDecomposition eig = new SparseDoubleEigenvalueDecomposition(A, k, which, 0, 1e-12,
+                1000);
+        double time = (System.nanoTime() - t) / 1e9;
+        DoubleMatrix1D d = eig.getRealEigenvalues();
+        DoubleMatrix2D V = eig.getV();
+
+        /* eigenvalue errors, eigenpair residuals and orthogonality of V */
+        double error = 0;
+        for (int i = 0; i < k; i++) {
+            double e = which == SparseDoubleEigenvalueDecomposition.SMALLEST_ALGEBRAIC ? exact[i] : exact[n - 1 - i];
+            error = Math.max(error, Math.abs(d.getQuick(i) - e));
+        }
+        DoubleMatrix2D R = A.zMult(V, null);
+        R.assign(V.zMult(eig.getD(), null), cern.jet.math.tdouble.DoubleFunctions.minus);
+        double residual = R.aggregate(cern.jet.math.tdouble.DoubleFunctions.max,
+                cern.jet.math.tdouble.DoubleFunctions.abs);
+        DoubleMatrix2D I = V.zMult(V, null, 1, 0, true, false);
+        double orthogonality = 0;
+        for (int i = 0; i < k; i++) {
+            for (int j = 0; j < k; j++) {
+                orthogonality = Math.max(orthogonality, Math.abs(I.getQuick(i, j) - (i == j ? 1 : 0)));
+            }
+        }
+
+        System.out.print("\n");
+        System.out.print("------ SparseDoubleEigenvalueDecomposition tests-------  \n");
+        System.out.print(String.format("            Size of the Matrix %d by %d, %d %s eigenvalues\n", n, n, k,
+                which == SparseDoubleEigenvalueDecomposition.SMALLEST_ALGEBRAIC ? "smallest" : "largest"));
+        System.out.print(String.format("-- time %.3fs, converged: %b \n", time, eig.isConverged()));
+        System.out.print(String.format("-- max eigenvalue error = %e \n", error));
+        System.out.print(String.format("-- ||A*V-V*D||_max = %e, ||V'V-I||_max = %e \n", residual, orthogonality));
+        if (eig.isConverged() && error < 1e-8 && residual < 1e-5 && orthogonality < 1e-10) {
+            System.out.print(" ---- SparseDoubleEigenvalueDecomposition tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- SparseDoubleEigenvalueDecomposition tests... FAILED !\n");
+        }
+    }
+}
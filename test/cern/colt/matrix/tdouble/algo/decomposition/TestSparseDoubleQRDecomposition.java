@@ -2,12 +2,15 @@ package cern.colt.matrix.tdouble.algo.decomposition;
 
 import java.util.Random;
 
+import cern.colt.function.tdouble.IntIntDoubleFunction;
+
 import cern.colt.matrix.tdouble.DoubleMatrix1D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.algo.DenseDoubleAlgebra;
 import cern.colt.matrix.tdouble.algo.DoubleProperty;
 import cern.colt.matrix.tdouble.algo.SparseDoubleAlgebra;
 import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
 import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
 
 public class TestSparseDoubleQRDecomposition {
@@ -37,6 +40,7 @@ public class TestSparseDoubleQRDecomposition {
         }
 
         testQR(A1, A2, B1, B2);
+        testRefactor(A1);
     }
 
     private static void testQR(DoubleMatrix2D A1, DoubleMatrix2D A2, DoubleMatrix1D B1, DoubleMatrix1D B2) {
@@ -71,6 +75,64 @@ public class TestSparseDoubleQRDecomposition {
         }
     }
 
+    /*------------------------------------------------------------------------
+     *  Check the refactorization of a matrix with the same pattern, and the
+     *  solution of several right-hand sides at once, against a new
+     *  decomposition
+     */
+
+    private static void testRefactor(DoubleMatrix2D A) {
+        DoubleMatrix2D A3 = A.copy();
+        A3.forEachNonZero(new IntIntDoubleFunction() {
+            public double apply(int i, int j, double value) {
+                return value * (1 + 0.25 * Math.sin(i + j));
+            }
+        });
+        int rows = Math.max(A.rows(), A.columns());
+        int nrhs = 3;
+        Random r = new Random(1);
+        DoubleMatrix2D B = new DenseDoubleMatrix2D(rows, nrhs);
+        for (int i = 0; i < rows; i++) {
+            for (int j = 0; j < nrhs; j++) {
+                B.setQuick(i, j, 0.5 - r.nextDouble());
+            }
+        }
+
+        SparseDoubleQRDecomposition f = new SparseDoubleQRDecomposition(A, 0);
+        f.refactor(A3);
+        DoubleMatrix2D X = B.copy();
+        f.solve(X);
+
+        SparseDoubleQRDecomposition g = new SparseDoubleQRDecomposition(A3, 0);
+        double diff = 0;
+        for (int j = 0; j < nrhs; j++) {
+            DoubleMatrix1D x = B.viewColumn(j).copy();
+            g.solve(x);
+            for (int i = 0; i < A.columns(); i++) {
+                diff = Math.max(diff, Math.abs(x.getQuick(i) - X.getQuick(i, j)));
+            }
+        }
+
+        boolean rejected = false;
+        DoubleMatrix2D A4 = A.copy();
+        A4.setQuick(0, A.columns() - 1, 0);
+        try {
+            f.refactor(A4);
+        } catch (IllegalArgumentException e) {
+            rejected = true;
+        }
+
+        System.out.print("============\n");
+        System.out.print("Checking the refactorization and the solution of several right-hand sides \n");
+        System.out.print(String.format("-- max difference to a new decomposition = %e, other pattern rejected: %b \n",
+                diff, rejected));
+        if (diff < 1e-10 && rejected) {
+            System.out.print(" ---- SparseQR refactorization tests... PASSED !\n");
+        } else {
+            System.out.print(" ---- SparseQR refactorization tests... FAILED !\n");
+        }
+    }
+
     private static int checkSolution(DoubleMatrix2D A1, DoubleMatrix1D B1, DoubleMatrix1D B2, double eps) {
         DoubleProperty.DEFAULT.checkSparse(A1);
         DoubleProperty.DEFAULT.checkDense(B1);
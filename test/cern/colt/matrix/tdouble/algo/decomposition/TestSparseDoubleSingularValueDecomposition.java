@@ -0,0 +1,71 @@
+package cern.colt.matrix.tdouble.algo.decomposition;
+
+import java.util.Random;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseDoubleMatrix2D;
+import cern.jet.math.tdouble.DoubleFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+public class TestSparseDoubleSingularValueDecomposition {
+    public static void main(String[] args) {
+        int M = 600;
+        int N = 250;
+        int k = 10;
+        Random r = new Random(0);
+
+        /* random sparse matrix with about 2% of nonzeros */
+        SparseDoubleMatrix2D T = new SparseDoubleMatrix2D(M, N);
+        for (int i = 0; i < M * N / 50; i++) {
+            T.setQuick(r.nextInt(M), r.nextInt(N), 0.5 - r.nextDouble());
+        }
+        DoubleMatrix2D A = T.getRowCompressed(false);
+
+        testSingularValues(A, k);
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            testSingularValues(T.getColumnCompressed(false).getTranspose(), k);
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+
+        System.exit(0);
+    }
+
+    private static void testSingularValues(DoubleMatrix2D A, int k) {
+        int m = A.rows();
+        int n = A.columns();
+        SparseDoubleSingularValueDecomposition svd = new SparseDoubleSingularValueDecomposition(A, k);
+        double[] s = svd.getSingularValues();
+        DoubleMatrix2D U = svd.getU();
+        DoubleMatrix2D V = svd.getV();
+        double[] exact = new DenseDoubleSingularValueDecomposition(new DenseDoubleMatrix2D(m, n).assign(A), false,
+                false).getSingularValues();
+
+        /* singular value errors, residuals A*V-U*S and A'*U-V*S */
+        double error = 0;
+        for (int i = 0; i < k; i++) {
+            error = Math.max(error, Math.abs(s[i] - exact[i]) / exact[0]);
+        }
+        DoubleMatrix2D R1 = A.zMult(V, null);
+        R1.assign(U.zMult(svd.getS(), null), DoubleFunctions.minus);
+        DoubleMatrix2D R2 = A.zMult(U, new DenseDoubleMatrix2D(n, k), 1, 0, true, false);
+        R2.assign(V.zMult(svd.getS(), null), DoubleFunctions.minus);
+        double residual = Math.max(R1.aggregate(DoubleFunctions.max, DoubleFunctions.abs), R2.aggregate(
+                DoubleFunctions.max, DoubleFunctions.abs))
+                / exact[0];
+
+        System.out.print("\n");
+        System.out.print("------ SparseDoubleSingularValueDecomposition tests-------  \n");
+        System.out.print(String.format("            Size of the Matrix %d by %d, %d singular values\n", m, n, k));
+        System.out.print(String.format("-- converged: %b, max relative singular value error = %e \n", svd
+                .isConverged(), error));
+        System.out.print(String.format("-- max(||A*V-U*S||, ||A'*U-V*S||)/||A||_2 = %e \n", residual));
+        if (svd.isConverged() && error < 1e-10 && residual < 1e-6) {
+            System.out.print(" ---- SparseDoubleSingularValueDecomposition tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- SparseDoubleSingularValueDecomposition tests... FAILED !\n");
+        }
+    }
+}
@@ -2,6 +2,7 @@ package cern.colt.matrix.tdouble.algo.solver;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import cern.colt.matrix.tdouble.algo.solver.preconditioner.DoubleLevelScheduleTest;
 
 /**
  * Test of all double precision iterative solvers
@@ -18,6 +19,10 @@ public class AllDoubleMatrixSolverTests {
         suite.addTestSuite(DoubleCGICCTest.class);
         //                suite.addTestSuite(CGAMGTest.class);
         suite.addTestSuite(DoubleCGILUTTest.class);
+        suite.addTestSuite(DoubleBatchCGTest.class);
+        suite.addTestSuite(DoubleCGFusedTest.class);
+        suite.addTestSuite(DoubleAMGTest.class);
+        suite.addTestSuite(DoubleLevelScheduleTest.class);
 
         suite.addTestSuite(DoubleCGSTest.class);
         suite.addTestSuite(DoubleCGSDiagonalTest.class);
@@ -50,6 +55,7 @@ public class AllDoubleMatrixSolverTests {
         suite.addTestSuite(DoubleBiCGstabICCTest.class);
         suite.addTestSuite(DoubleBiCGstabAMGTest.class);
         suite.addTestSuite(DoubleBiCGstabILUTTest.class);
+        suite.addTestSuite(DoubleBiCGstabFusedTest.class);
 
         suite.addTestSuite(DoubleGMRESTest.class);
         suite.addTestSuite(DoubleGMRESDiagonalTest.class);
@@ -58,6 +64,7 @@ public class AllDoubleMatrixSolverTests {
         suite.addTestSuite(DoubleGMRESICCTest.class);
         suite.addTestSuite(DoubleGMRESAMGTest.class);
         suite.addTestSuite(DoubleGMRESILUTTest.class);
+        suite.addTestSuite(DoubleBatchGMRESTest.class);
 
         suite.addTestSuite(DoubleChebyshevTest.class);
         suite.addTestSuite(DoubleChebyshevDiagonalTest.class);
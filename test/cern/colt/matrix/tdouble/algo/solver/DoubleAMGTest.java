@@ -0,0 +1,164 @@
+package cern.colt.matrix.tdouble.algo.solver;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.algo.solver.preconditioner.DoubleAMG;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
+import cern.jet.math.tdouble.DoubleFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Test of the DoubleAMG preconditioner on matrices large enough to give
+ * several levels
+ */
+public class DoubleAMGTest extends TestCase {
+
+    public DoubleAMGTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void setUp() throws Exception {
+        // Let the setup and the smoother of the finer levels run in parallel,
+        // while the dense factorization of the coarsest level, whose rounding
+        // depends on the number of threads, stays sequential
+        ConcurrencyUtils.setThreadsBeginN_1D(1024);
+    }
+
+    protected void tearDown() throws Exception {
+        ConcurrencyUtils.resetThreadsBeginN();
+    }
+
+    /**
+     * Returns the five-point discretization of the convection-diffusion
+     * operator on a square grid, which is symmetric if the convection is zero
+     */
+    private DoubleMatrix2D createMatrix(int grid, double convection) {
+        int n = grid * grid;
+        SparseRCDoubleMatrix2D A = new SparseRCDoubleMatrix2D(n, n, 5 * n);
+        for (int i = 0; i < grid; i++) {
+            for (int j = 0; j < grid; j++) {
+                int row = i * grid + j;
+                A.setQuick(row, row, 4);
+                if (i > 0)
+                    A.setQuick(row, row - grid, -1);
+                if (i < grid - 1)
+                    A.setQuick(row, row + grid, -1);
+                if (j > 0)
+                    A.setQuick(row, row - 1, -1 - convection);
+                if (j < grid - 1)
+                    A.setQuick(row, row + 1, -1 + convection);
+            }
+        }
+        return A;
+    }
+
+    private DoubleMatrix1D random(int n, long seed) {
+        Random r = new Random(seed);
+        DoubleMatrix1D b = new DenseDoubleMatrix1D(n);
+        for (int i = 0; i < n; i++) {
+            b.setQuick(i, 0.5 - r.nextDouble());
+        }
+        return b;
+    }
+
+    /**
+     * Solves with the preconditioned conjugate gradient method, and returns
+     * the number of iterations
+     */
+    private int solve(DoubleMatrix2D A, DoubleMatrix1D b, DoubleMatrix1D x) throws Exception {
+        DoubleCG solver = new DoubleCG(x);
+        DoubleAMG M = new DoubleAMG();
+        M.setMatrix(A);
+        solver.setPreconditioner(M);
+        solver.setIterationMonitor(new DefaultDoubleIterationMonitor(100, 1e-10, 1e-50, 1e+5));
+        solver.solve(A, b, x);
+        return solver.getIterationMonitor().iterations();
+    }
+
+    public void testConvergence() throws Exception {
+        DoubleMatrix2D A = createMatrix(40, 0);
+        DoubleMatrix1D xd = random(A.rows(), 0);
+        DoubleMatrix1D b = A.zMult(xd, null);
+        DoubleMatrix1D x = new DenseDoubleMatrix1D(A.rows());
+        int iterations = solve(A, b, x);
+        assertTrue("iterations=" + iterations, iterations < 30);
+        x.assign(xd, DoubleFunctions.minus);
+        assertEquals(0, Math.sqrt(x.zDotProduct(x) / xd.zDotProduct(xd)), 1e-8);
+    }
+
+    public void testLinearOperator() {
+        DoubleMatrix2D A = createMatrix(40, 0.5);
+        DoubleAMG M = new DoubleAMG();
+        M.setMatrix(A);
+        int n = A.rows();
+        DoubleMatrix1D b1 = random(n, 1);
+        DoubleMatrix1D b2 = random(n, 2);
+        DoubleMatrix1D b = b1.copy().assign(DoubleFunctions.mult(3)).assign(b2, DoubleFunctions.plus);
+        for (int transpose = 0; transpose < 2; transpose++) {
+            DoubleMatrix1D x1 = transpose == 0 ? M.apply(b1, null) : M.transApply(b1, null);
+            DoubleMatrix1D x2 = transpose == 0 ? M.apply(b2, null) : M.transApply(b2, null);
+            DoubleMatrix1D x = transpose == 0 ? M.apply(b, null) : M.transApply(b, null);
+
+            // The cycle starts from zero, so it does not depend on earlier calls
+            DoubleMatrix1D again = transpose == 0 ? M.apply(b1, null) : M.transApply(b1, null);
+            assertTrue(Arrays.equals(x1.toArray(), again.toArray()));
+
+            // M(3 b1 + b2) = 3 M(b1) + M(b2)
+            x.assign(x1, DoubleFunctions.plusMultSecond(-3)).assign(x2, DoubleFunctions.minus);
+            assertEquals(0, Math.sqrt(x.zDotProduct(x) / x2.zDotProduct(x2)), 1e-12);
+        }
+
+        // Without coarser levels, the cycles solve with A and with A'
+        A = createMatrix(15, 0.5);
+        M = new DoubleAMG(1, 1.85, 1.85, 1, 1, 1, 1, A.rows(), 2. / 3);
+        M.setMatrix(A);
+        b1 = random(A.rows(), 1);
+        DoubleMatrix1D r = A.zMult(M.apply(b1, null), null).assign(b1, DoubleFunctions.minus);
+        assertEquals(0, Math.sqrt(r.zDotProduct(r) / b1.zDotProduct(b1)), 1e-12);
+        r = A.zMult(M.transApply(b1, null), null, 1, 0, true).assign(b1, DoubleFunctions.minus);
+        assertEquals(0, Math.sqrt(r.zDotProduct(r) / b1.zDotProduct(b1)), 1e-12);
+
+        // On a symmetric matrix, the transposed cycle is the same operator
+        A = createMatrix(40, 0);
+        M = new DoubleAMG();
+        M.setMatrix(A);
+        b1 = random(A.rows(), 1);
+        DoubleMatrix1D x = M.apply(b1, null);
+        DoubleMatrix1D xt = M.transApply(b1, null);
+        xt.assign(x, DoubleFunctions.minus);
+        assertEquals(0, Math.sqrt(xt.zDotProduct(xt) / x.zDotProduct(x)), 1e-12);
+    }
+
+    public void testThreads() throws Exception {
+        DoubleMatrix2D A = createMatrix(40, 0);
+        DoubleMatrix1D b = random(A.rows(), 3);
+        DoubleMatrix1D[] x = new DoubleMatrix1D[2];
+        DoubleMatrix1D[] y = new DoubleMatrix1D[2];
+        int[] iterations = new int[2];
+        int[] nthreads = { 1, 4 };
+        for (int k = 0; k < 2; k++) {
+            Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(nthreads[k]);
+            try {
+                DoubleAMG M = new DoubleAMG();
+                M.setMatrix(A);
+                y[k] = M.apply(b, null);
+                x[k] = new DenseDoubleMatrix1D(A.rows());
+                iterations[k] = solve(A, b, x[k]);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(scope);
+            }
+        }
+        // The hierarchy and the multicolor smoother do not depend on the
+        // number of threads
+        assertTrue(Arrays.equals(y[0].toArray(), y[1].toArray()));
+        assertEquals(iterations[0], iterations[1]);
+        x[1].assign(x[0], DoubleFunctions.minus);
+        assertEquals(0, Math.sqrt(x[1].zDotProduct(x[1]) / x[0].zDotProduct(x[0])), 1e-8);
+    }
+
+}
@@ -0,0 +1,63 @@
+package cern.colt.matrix.tdouble.algo.solver;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.algo.solver.preconditioner.DoubleDiagonal;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+
+/**
+ * Test of DoubleBatchGMRES
+ */
+public class DoubleBatchGMRESTest extends DoubleIterativeSolverTest {
+
+    public DoubleBatchGMRESTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void createSolver() throws Exception {
+        solver = new DoubleBatchGMRES();
+        M = solver.getPreconditioner(); //identity preconditioner
+    }
+
+    public void testSolveBatch() {
+        solveBatch();
+    }
+
+    public void testSolveBatchDiagonal() {
+        M = new DoubleDiagonal(A.rows());
+        M.setMatrix(A);
+        solver.setPreconditioner(M);
+        solveBatch();
+    }
+
+    private void solveBatch() {
+        int n = A.rows(), k = 4;
+        DoubleMatrix2D Xd = new DenseDoubleMatrix2D(n, k);
+        for (int i = 0; i < n; ++i) {
+            Xd.setQuick(i, 0, 1);
+            Xd.setQuick(i, 1, i + 1);
+            Xd.setQuick(i, 3, Math.sin(i));
+        }
+        DoubleMatrix2D B = A.zMult(Xd, null);
+        DoubleMatrix2D X = new DenseDoubleMatrix2D(n, k);
+        try {
+            ((DoubleBatchIterativeSolver) solver).solve(A, B, X);
+        } catch (IterativeSolverDoubleNotConvergedException e) {
+            fail("Solver did not converge: " + e.getReason() + ". Residual=" + e.getResidual());
+        }
+        DoubleIterationMonitor[] iters = ((DoubleBatchIterativeSolver) solver).getIterationMonitors();
+        assertEquals(k, iters.length);
+        assertEquals(0, iters[2].iterations());
+        for (int j = 0; j < k; ++j) {
+            if (j != 2)
+                assertTrue(iters[j].iterations() > 0);
+            double numerator = 0, denominator = 0;
+            for (int i = 0; i < n; ++i) {
+                double tmp = Xd.getQuick(i, j) - X.getQuick(i, j);
+                numerator += tmp * tmp;
+                denominator += Xd.getQuick(i, j) * Xd.getQuick(i, j);
+            }
+            assertTrue(Math.sqrt(numerator) <= rmse * Math.sqrt(denominator));
+        }
+    }
+
+}
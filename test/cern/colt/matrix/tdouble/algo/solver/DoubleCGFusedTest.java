@@ -0,0 +1,55 @@
+package cern.colt.matrix.tdouble.algo.solver;
+
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Test of the single reduction variant of DoubleCG
+ */
+public class DoubleCGFusedTest extends DoubleIterativeSolverTest {
+
+    public DoubleCGFusedTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void createSolver() throws Exception {
+        solver = new DoubleCG(x);
+        ((DoubleCG) solver).setFused(true);
+        M = solver.getPreconditioner(); //identity preconditioner
+    }
+
+    public void testSolveParallel() {
+        int n = 100000;
+        SparseRCDoubleMatrix2D T = new SparseRCDoubleMatrix2D(n, n, n * 3);
+        for (int i = 0; i < n; i++) {
+            if (i > 0)
+                T.setQuick(i, i - 1, -1);
+            T.setQuick(i, i, 4);
+            if (i < n - 1)
+                T.setQuick(i, i + 1, -1);
+        }
+        DoubleMatrix1D xd = new DenseDoubleMatrix1D(n);
+        for (int i = 0; i < n; i++)
+            xd.setQuick(i, Math.sin(i));
+        DoubleMatrix1D b = T.zMult(xd, null);
+        DoubleMatrix1D x = new DenseDoubleMatrix1D(n);
+
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            DoubleCG solver = new DoubleCG(x);
+            solver.setFused(true);
+            solver.setIterationMonitor(new DefaultDoubleIterationMonitor(1000, 1e-10, 1e-50, 1e+5));
+            solver.solve(T, b, x);
+            assertTrue(solver.getIterationMonitor().iterations() > 0);
+        } catch (IterativeSolverDoubleNotConvergedException e) {
+            fail("Solver did not converge: " + e.getReason() + ". Residual=" + e.getResidual());
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+        for (int i = 0; i < n; i++)
+            assertEquals(xd.getQuick(i), x.getQuick(i), 1e-8);
+    }
+
+}
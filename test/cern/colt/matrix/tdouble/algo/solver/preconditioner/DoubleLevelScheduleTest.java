@@ -0,0 +1,212 @@
+package cern.colt.matrix.tdouble.algo.solver.preconditioner;
+
+import java.lang.reflect.Field;
+import java.util.Arrays;
+import java.util.Random;
+
+import junit.framework.TestCase;
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix1D;
+import cern.colt.matrix.tdouble.impl.SparseDoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.SparseRCDoubleMatrix2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+/**
+ * Test of the level scheduled incomplete factorizations and triangular solves
+ */
+public class DoubleLevelScheduleTest extends TestCase {
+
+    /**
+     * Number of stripes
+     */
+    private int stripes = 4;
+
+    /**
+     * Symmetric positive definite matrix, and a nonsymmetric matrix with the
+     * same pattern
+     */
+    private SparseRCDoubleMatrix2D S, A;
+
+    public DoubleLevelScheduleTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void setUp() throws Exception {
+        createMatrices(4096);
+    }
+
+    /**
+     * Creates the matrices with stripes of m rows. The rows of a stripe are
+     * coupled only to rows of the neighboring stripes, so that each stripe is
+     * a level, which is processed in parallel if m is large enough
+     */
+    private void createMatrices(int m) {
+        int n = m * stripes;
+        Random r = new Random(0);
+        SparseDoubleMatrix2D S = new SparseDoubleMatrix2D(n, n, 7 * n, 0.2, 0.5);
+        SparseDoubleMatrix2D A = new SparseDoubleMatrix2D(n, n, 7 * n, 0.2, 0.5);
+        for (int i = 0; i < n; i++) {
+            S.setQuick(i, i, 8);
+            A.setQuick(i, i, 8);
+            for (int j = i + m - 1; j <= i + m + 1; j++) {
+                if (j < n) {
+                    double value = -0.5 - r.nextDouble();
+                    S.setQuick(i, j, value);
+                    S.setQuick(j, i, value);
+                    A.setQuick(i, j, value);
+                    A.setQuick(j, i, -0.5 - r.nextDouble());
+                }
+            }
+        }
+        this.S = S.getRowCompressed(true);
+        this.A = A.getRowCompressed(true);
+    }
+
+    protected void tearDown() throws Exception {
+        S = A = null;
+    }
+
+    public void testSchedule() {
+        DoubleLevelSchedule schedule = DoubleLevelSchedule.analyse(A.rows(), A.getRowPointers(), A
+                .getColumnIndexes(), null);
+        assertTrue(schedule.lowerLevels() >= stripes);
+        assertTrue(schedule.upperLevels() >= stripes);
+        assertSame(schedule, DoubleLevelSchedule.analyse(S.rows(), S.getRowPointers(), S.getColumnIndexes(),
+                schedule));
+
+        // The level scheduled solves give the same results as the
+        // sequential ones
+        double[] data = A.getValues();
+        double[] b = random(A.rows(), 1).elements();
+        double[][] x = new double[2][];
+        for (int k = 0; k < 2; k++) {
+            Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(k == 0 ? 1 : 4);
+            try {
+                x[k] = new double[4 * A.rows()];
+                double[] y = new double[A.rows()];
+                schedule.lowerUnitSolve(data, b, y);
+                System.arraycopy(y, 0, x[k], 0, y.length);
+                schedule.upperSolve(data, b, y);
+                System.arraycopy(y, 0, x[k], y.length, y.length);
+                schedule.lowerUnitTransSolve(data, b, y);
+                System.arraycopy(y, 0, x[k], 2 * y.length, y.length);
+                schedule.upperTransSolve(data, b, y);
+                System.arraycopy(y, 0, x[k], 3 * y.length, y.length);
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(scope);
+            }
+        }
+        assertTrue(Arrays.equals(x[0], x[1]));
+    }
+
+    public void testILU() throws Exception {
+        DoubleILU M = new DoubleILU(A.rows());
+        DoubleMatrix1D[] x = compare(M, A);
+
+        // (LU)ij = Aij on the pattern of A
+        SparseRCDoubleMatrix2D LU = (SparseRCDoubleMatrix2D) field(M, "LU");
+        int[] rowptr = LU.getRowPointers();
+        int[] colind = LU.getColumnIndexes();
+        double[] data = LU.getValues();
+        for (int i = 0; i < A.rows(); i++) {
+            for (int p = rowptr[i]; p < rowptr[i + 1]; p++) {
+                int j = colind[p];
+                double sum = j >= i ? data[p] : 0;
+                for (int q = rowptr[i]; q < rowptr[i + 1] && colind[q] < i; q++) {
+                    sum += data[q] * get(LU, colind[q], j);
+                }
+                assertEquals(A.getQuick(i, j), sum, 1e-12);
+            }
+        }
+        assertAdjoint(M, x);
+    }
+
+    public void testICC() throws Exception {
+        DoubleICC M = new DoubleICC(S.rows());
+        compare(M, S);
+
+        // (R'R)ij = Sij on the pattern of S
+        SparseRCDoubleMatrix2D R = (SparseRCDoubleMatrix2D) field(M, "R");
+        int[] rowptr = S.getRowPointers();
+        int[] colind = S.getColumnIndexes();
+        for (int i = 0; i < S.rows(); i++) {
+            for (int p = rowptr[i]; p < rowptr[i + 1]; p++) {
+                int j = colind[p];
+                if (j < i)
+                    continue;
+                double sum = 0;
+                for (int q = rowptr[i]; q < rowptr[i + 1] && colind[q] <= i; q++) {
+                    sum += get(R, colind[q], i) * get(R, colind[q], j);
+                }
+                assertEquals(S.getQuick(i, j), sum, 1e-12);
+            }
+        }
+    }
+
+    public void testILUT() throws Exception {
+        // The setup of ILUT takes a time quadratic in the number of rows
+        createMatrices(512);
+        DoubleILUT M = new DoubleILUT(A.rows());
+        assertAdjoint(M, compare(M, A));
+    }
+
+    /**
+     * Returns the entry (i, j) of the upper part of a factorization matrix
+     */
+    private double get(SparseRCDoubleMatrix2D F, int i, int j) {
+        if (j < i)
+            return 0;
+        int[] rowptr = F.getRowPointers();
+        int p = cern.colt.Sorting.binarySearchFromTo(F.getColumnIndexes(), j, rowptr[i], rowptr[i + 1] - 1);
+        return p < 0 ? 0 : F.getValues()[p];
+    }
+
+    private Object field(Object object, String name) throws Exception {
+        Field field = object.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(object);
+    }
+
+    private DenseDoubleMatrix1D random(int n, long seed) {
+        Random r = new Random(seed);
+        DenseDoubleMatrix1D b = new DenseDoubleMatrix1D(n);
+        for (int i = 0; i < n; i++) {
+            b.setQuick(i, 0.5 - r.nextDouble());
+        }
+        return b;
+    }
+
+    /**
+     * Factors with one and with four threads, and checks that the
+     * factorizations and the results of apply and transApply are the same.
+     * Returns b, apply(b), c, and transApply(c)
+     */
+    private DoubleMatrix1D[] compare(DoublePreconditioner M, SparseRCDoubleMatrix2D A) {
+        DoubleMatrix1D b = random(A.rows(), 2);
+        DoubleMatrix1D c = random(A.rows(), 3);
+        DoubleMatrix1D[][] x = new DoubleMatrix1D[2][];
+        for (int k = 0; k < 2; k++) {
+            Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(k == 0 ? 1 : 4);
+            try {
+                M.setMatrix(A);
+                x[k] = new DoubleMatrix1D[] { M.apply(b, null), M.transApply(c, null) };
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(scope);
+            }
+        }
+        for (int i = 0; i < 2; i++) {
+            assertTrue(Arrays.equals(x[0][i].toArray(), x[1][i].toArray()));
+        }
+        return new DoubleMatrix1D[] { b, x[0][0], c, x[0][1] };
+    }
+
+    /**
+     * Checks that c'*M(b) = M'(c)'*b
+     */
+    private void assertAdjoint(DoublePreconditioner M, DoubleMatrix1D[] x) {
+        double cMb = x[2].zDotProduct(x[1]);
+        double Mcb = x[3].zDotProduct(x[0]);
+        assertEquals(cMb, Mcb, 1e-12 * Math.abs(cMb));
+    }
+
+}
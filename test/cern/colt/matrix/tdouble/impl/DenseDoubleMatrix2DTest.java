@@ -1,9 +1,17 @@
 package cern.colt.matrix.tdouble.impl;
 
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 import cern.colt.matrix.tdcomplex.DComplexMatrix2D;
 import cern.colt.matrix.tdcomplex.impl.DenseDComplexMatrix2D;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.DoubleMatrix2DTest;
+import edu.emory.mathcs.jtransforms.dct.DoubleDCT_2D;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+import edu.emory.mathcs.utils.TransformPlanCache;
 
 public class DenseDoubleMatrix2DTest extends DoubleMatrix2DTest {
 
@@ -56,6 +64,68 @@ public class DenseDoubleMatrix2DTest extends DoubleMatrix2DTest {
         }
     }
 
+    public void testDct2Concurrent() throws Exception {
+        int ntasks = 8;
+        final DoubleMatrix2D[] copies = new DoubleMatrix2D[ntasks];
+        Future<?>[] futures = new Future[ntasks];
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (int i = 0; i < ntasks; i++) {
+                final DoubleMatrix2D Ai = copies[i] = A.copy();
+                futures[i] = executor.submit(new Callable<Object>() {
+                    public Object call() {
+                        for (int j = 0; j < 5; j++) {
+                            ((DenseDoubleMatrix2D) Ai).dct2(true);
+                            ((DenseDoubleMatrix2D) Ai).idct2(true);
+                        }
+                        return null;
+                    }
+                });
+            }
+            for (int i = 0; i < ntasks; i++) {
+                futures[i].get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+        for (int i = 0; i < ntasks; i++) {
+            for (int r = 0; r < A.rows(); r++) {
+                for (int c = 0; c < A.columns(); c++)
+                    assertEquals(0, Math.abs(A.getQuick(r, c) - copies[i].getQuick(r, c)), TOL);
+            }
+        }
+    }
+
+    public void testDct2Failure() {
+        final int rows = A.rows();
+        final int columns = A.columns();
+        DenseDoubleMatrix2D B = new DenseDoubleMatrix2D(rows, columns) {
+            private static final long serialVersionUID = 1L;
+
+            {
+                isNoView = false;
+            }
+
+            public DoubleMatrix2D assign(double[] values) {
+                throw new IllegalStateException();
+            }
+        };
+        TransformPlanCache.clear();
+        Object plan = TransformPlanCache.acquire(DoubleDCT_2D.class, rows, columns);
+        TransformPlanCache.release(plan, rows, columns);
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(3);
+        try {
+            B.dct2(true);
+            fail();
+        } catch (IllegalStateException e) {
+            // the scope of the thread is restored and the plan is released
+            assertEquals(3, ConcurrencyUtils.getNumberOfThreads());
+            assertSame(plan, TransformPlanCache.acquire(DoubleDCT_2D.class, rows, columns));
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+    }
+
     public void testDctColumns() {
         DoubleMatrix2D Acopy = A.copy();
         ((DenseDoubleMatrix2D) A).dctColumns(true);
@@ -238,4 +308,58 @@ public class DenseDoubleMatrix2DTest extends DoubleMatrix2DTest {
         }
     }
 
+    public void testZMultBlocked() {
+        int m = 211;
+        int n = 197;
+        int k = 113;
+        double alpha = 3;
+        double beta = 5;
+        DoubleMatrix2D AA = new DenseDoubleMatrix2D(m, k);
+        DoubleMatrix2D AAt = new DenseColumnDoubleMatrix2D(k, m);
+        DoubleMatrix2D BB = new DenseColumnDoubleMatrix2D(k, n);
+        DoubleMatrix2D BBt = new DenseDoubleMatrix2D(n + 3, k + 5).viewPart(3, 5, n, k);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < k; c++) {
+                double v = random.nextDouble();
+                AA.setQuick(r, c, v);
+                AAt.setQuick(c, r, v);
+            }
+        }
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < n; c++) {
+                double v = random.nextDouble();
+                BB.setQuick(r, c, v);
+                BBt.setQuick(c, r, v);
+            }
+        }
+        DoubleMatrix2D C0 = new DenseDoubleMatrix2D(m, n);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                C0.setQuick(r, c, random.nextDouble());
+            }
+        }
+        double[][] expected = new double[m][n];
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                double s = 0;
+                for (int i = 0; i < k; i++) {
+                    s += AA.getQuick(r, i) * BB.getQuick(i, c);
+                }
+                expected[r][c] = s * alpha + C0.getQuick(r, c) * beta;
+            }
+        }
+        DoubleMatrix2D[] results = new DoubleMatrix2D[4];
+        results[0] = AA.zMult(BB, C0.copy(), alpha, beta, false, false);
+        results[1] = AAt.zMult(BBt, C0.copy(), alpha, beta, true, true);
+        results[2] = AA.zMult(BBt, new DenseColumnDoubleMatrix2D(m, n).assign(C0), alpha, beta, false, true);
+        results[3] = AAt.zMult(BB, new DenseDoubleMatrix2D(n, m).viewDice().assign(C0), alpha, beta, true, false);
+        for (int i = 0; i < results.length; i++) {
+            for (int r = 0; r < m; r++) {
+                for (int c = 0; c < n; c++) {
+                    assertEquals(expected[r][c], results[i].getQuick(r, c), TOL);
+                }
+            }
+        }
+    }
+
 }
@@ -0,0 +1,50 @@
+package cern.colt.matrix.tdouble.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.DoubleMatrix2DTest;
+
+public class MappedDoubleMatrix2DTest extends DoubleMatrix2DTest {
+
+    public MappedDoubleMatrix2DTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void createMatrices() throws Exception {
+        A = new MappedDoubleMatrix2D(NROWS, NCOLUMNS);
+        B = new MappedDoubleMatrix2D(NROWS, NCOLUMNS);
+        Bt = new MappedDoubleMatrix2D(NCOLUMNS, NROWS);
+    }
+
+    public void testMappedFile() throws Exception {
+        File file = File.createTempFile("colt", ".bin");
+        file.deleteOnExit();
+        MappedDoubleMatrix2D M = new MappedDoubleMatrix2D(A.rows(), A.columns(), file, 16, false);
+        M.assign(A);
+        M.force();
+        assertEquals(16 + 8L * A.size(), file.length());
+        DoubleMatrix2D R = new MappedDoubleMatrix2D(A.rows(), A.columns(), file, 16, true);
+        for (int r = 0; r < A.rows(); r++) {
+            for (int c = 0; c < A.columns(); c++) {
+                assertEquals(A.getQuick(r, c), R.getQuick(r, c), 0);
+            }
+        }
+        DoubleMatrix2D V = R.viewPart(1, 2, 3, 4).viewDice().viewSelection(new int[] { 3, 0 }, new int[] { 2, 1 });
+        assertEquals(A.getQuick(2, 5), V.getQuick(0, 1), 0);
+        assertEquals(A.getQuick(3, 2), V.getQuick(1, 0), 0);
+        file.delete();
+    }
+
+    public void testNotSerializable() throws Exception {
+        ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+        try {
+            out.writeObject(A);
+            fail();
+        } catch (NotSerializableException e) {
+        }
+    }
+}
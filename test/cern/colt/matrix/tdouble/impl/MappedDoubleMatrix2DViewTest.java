@@ -0,0 +1,14 @@
+package cern.colt.matrix.tdouble.impl;
+
+public class MappedDoubleMatrix2DViewTest extends MappedDoubleMatrix2DTest {
+
+    public MappedDoubleMatrix2DViewTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void createMatrices() throws Exception {
+        A = new MappedDoubleMatrix2D(NCOLUMNS, NROWS).viewDice();
+        B = new MappedDoubleMatrix2D(NCOLUMNS, NROWS).viewDice();
+        Bt = new MappedDoubleMatrix2D(NROWS, NCOLUMNS).viewDice();
+    }
+}
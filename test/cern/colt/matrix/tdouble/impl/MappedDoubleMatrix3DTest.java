@@ -0,0 +1,52 @@
+package cern.colt.matrix.tdouble.impl;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.NotSerializableException;
+import java.io.ObjectOutputStream;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.DoubleMatrix3D;
+import cern.colt.matrix.tdouble.DoubleMatrix3DTest;
+
+public class MappedDoubleMatrix3DTest extends DoubleMatrix3DTest {
+
+    public MappedDoubleMatrix3DTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void createMatrices() throws Exception {
+        A = new MappedDoubleMatrix3D(NSLICES, NROWS, NCOLUMNS);
+        B = new MappedDoubleMatrix3D(NSLICES, NROWS, NCOLUMNS);
+    }
+
+    public void testMappedFile() throws Exception {
+        File file = File.createTempFile("colt", ".bin");
+        file.deleteOnExit();
+        MappedDoubleMatrix3D M = new MappedDoubleMatrix3D(A.slices(), A.rows(), A.columns(), file, 0, false);
+        M.assign(A);
+        M.force();
+        DoubleMatrix3D R = new MappedDoubleMatrix3D(A.slices(), A.rows(), A.columns(), file, 0, true);
+        for (int s = 0; s < A.slices(); s++) {
+            for (int r = 0; r < A.rows(); r++) {
+                for (int c = 0; c < A.columns(); c++) {
+                    assertEquals(A.getQuick(s, r, c), R.getQuick(s, r, c), 0);
+                }
+            }
+        }
+        DoubleMatrix2D V = R.viewDice(1, 2, 0).viewSelection(new int[] { 1, 3 }, new int[] { 2 }, new int[] { 4, 0 })
+                .viewSlice(1);
+        assertEquals(A.getQuick(4, 3, 2), V.getQuick(0, 0), 0);
+        assertEquals(A.getQuick(0, 3, 2), V.getQuick(0, 1), 0);
+        file.delete();
+    }
+
+    public void testNotSerializable() throws Exception {
+        ObjectOutputStream out = new ObjectOutputStream(new ByteArrayOutputStream());
+        try {
+            out.writeObject(A);
+            fail();
+        } catch (NotSerializableException e) {
+        }
+    }
+}
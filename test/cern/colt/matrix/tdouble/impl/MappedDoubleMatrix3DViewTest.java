@@ -0,0 +1,13 @@
+package cern.colt.matrix.tdouble.impl;
+
+public class MappedDoubleMatrix3DViewTest extends MappedDoubleMatrix3DTest {
+
+    public MappedDoubleMatrix3DViewTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void createMatrices() throws Exception {
+        A = new MappedDoubleMatrix3D(NCOLUMNS, NROWS, NSLICES).viewDice(2, 1, 0);
+        B = new MappedDoubleMatrix3D(NCOLUMNS, NROWS, NSLICES).viewDice(2, 1, 0);
+    }
+}
@@ -1,6 +1,10 @@
 package cern.colt.matrix.tdouble.impl;
 
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.DoubleMatrix2DTest;
+import cern.jet.math.tdouble.DoubleFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 public class SparseCCDoubleMatrix2DTest extends DoubleMatrix2DTest {
 
@@ -14,6 +18,199 @@ public class SparseCCDoubleMatrix2DTest extends DoubleMatrix2DTest {
         Bt = new SparseCCDoubleMatrix2D(NCOLUMNS, NROWS);
     }
 
+    public void testZMultSparse() {
+        int m = 97;
+        int n = 83;
+        int k = 71;
+        double alpha = 3;
+        SparseCCDoubleMatrix2D AA = new SparseCCDoubleMatrix2D(m, k);
+        SparseCCDoubleMatrix2D AAt = new SparseCCDoubleMatrix2D(k, m);
+        SparseCCDoubleMatrix2D BB = new SparseCCDoubleMatrix2D(k, n);
+        SparseCCDoubleMatrix2D BBt = new SparseCCDoubleMatrix2D(n, k);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < k; c++) {
+                if (random.nextDouble() < 0.1) {
+                    double v = random.nextDouble();
+                    AA.setQuick(r, c, v);
+                    AAt.setQuick(c, r, v);
+                }
+            }
+        }
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < n; c++) {
+                if (random.nextDouble() < 0.1) {
+                    double v = random.nextDouble();
+                    BB.setQuick(r, c, v);
+                    BBt.setQuick(c, r, v);
+                }
+            }
+        }
+        double[][] expected = new double[m][n];
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                double s = 0;
+                for (int i = 0; i < k; i++) {
+                    s += AA.getQuick(r, i) * BB.getQuick(i, c);
+                }
+                expected[r][c] = s * alpha;
+            }
+        }
+        for (int nthreads = 1; nthreads <= 4; nthreads += 3) {
+            Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(nthreads);
+            DoubleMatrix2D[] results = new DoubleMatrix2D[4];
+            results[0] = AA.zMult(BB, null, alpha, 0, false, false);
+            results[1] = AAt.zMult(BBt, null, alpha, 0, true, true);
+            results[2] = AA.zMult(BBt, null, alpha, 0, false, true);
+            results[3] = AAt.zMult(BB, new SparseCCDoubleMatrix2D(m, n), alpha, 0, true, false);
+            ConcurrencyUtils.restoreThreadScope(scope);
+            for (int i = 0; i < results.length; i++) {
+                assertTrue(((SparseCCDoubleMatrix2D) results[i]).hasRowIndexesSorted());
+                for (int r = 0; r < m; r++) {
+                    for (int c = 0; c < n; c++) {
+                        assertEquals(expected[r][c], results[i].getQuick(r, c), TOL);
+                    }
+                }
+            }
+        }
+        // same patterns, new values
+        SparseCCDoubleMatrix2D CC = (SparseCCDoubleMatrix2D) AA.zMult(BB, null, alpha, 0, false, false);
+        AA.assign(DoubleFunctions.mult(2));
+        AA.zMultNumeric(BB, CC, alpha, false, false);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                assertEquals(2 * expected[r][c], CC.getQuick(r, c), TOL);
+            }
+        }
+        try {
+            AA.zMultNumeric(BB, new SparseCCDoubleMatrix2D(m, n), alpha, false, false);
+            fail();
+        } catch (IllegalArgumentException exc) {
+        }
+    }
+
+    public void testCoordinatesConcurrent() {
+        int m = 301;
+        int n = 203;
+        int nnz = 20000;
+        int[] rowIndexes = new int[nnz];
+        int[] columnIndexes = new int[nnz];
+        double[] values = new double[nnz];
+        java.util.Random r = new java.util.Random(7);
+        for (int k = 0; k < nnz; k++) {
+            rowIndexes[k] = r.nextInt(m);
+            columnIndexes[k] = r.nextInt(n);
+            values[k] = r.nextInt(5) - 2;
+        }
+        boolean[][] flags = { { false, false, false }, { true, false, false }, { true, true, false },
+                { false, false, true }, { true, true, true } };
+        for (boolean[] f : flags) {
+            SparseCCDoubleMatrix2D[] results = new SparseCCDoubleMatrix2D[2];
+            SparseCCDoubleMatrix2D[] transposes = new SparseCCDoubleMatrix2D[2];
+            int[] concurrency = { 1, 4 };
+            for (int c = 0; c < 2; c++) {
+                Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(concurrency[c]);
+                try {
+                    results[c] = new SparseCCDoubleMatrix2D(m, n, rowIndexes, columnIndexes, values, f[0], f[1], f[2]);
+                    transposes[c] = results[c].getTranspose();
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(scope);
+                }
+            }
+            assertEquals(f[2], results[1].hasRowIndexesSorted());
+            for (int t = 0; t < 2; t++) {
+                SparseCCDoubleMatrix2D S = (t == 0) ? results[0] : transposes[0];
+                SparseCCDoubleMatrix2D P = (t == 0) ? results[1] : transposes[1];
+                assertTrue(java.util.Arrays.equals(S.getColumnPointers(), P.getColumnPointers()));
+                int size = S.getColumnPointers()[S.getColumnPointers().length - 1];
+                for (int k = 0; k < size; k++) {
+                    assertEquals(S.getRowIndexes()[k], P.getRowIndexes()[k]);
+                    assertEquals(S.getValues()[k], P.getValues()[k], 0);
+                }
+            }
+            if (f[0]) {
+                DoubleMatrix2D expected = new DenseDoubleMatrix2D(m, n);
+                for (int k = 0; k < nnz; k++) {
+                    expected.setQuick(rowIndexes[k], columnIndexes[k], expected.getQuick(rowIndexes[k],
+                            columnIndexes[k])
+                            + values[k]);
+                }
+                for (int i = 0; i < m; i++) {
+                    for (int j = 0; j < n; j++) {
+                        assertEquals(expected.getQuick(i, j), results[1].getQuick(i, j), 0);
+                        assertEquals(expected.getQuick(i, j), transposes[1].getQuick(j, i), 0);
+                    }
+                }
+            }
+        }
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            SparseCCDoubleMatrix2D S = new SparseCCDoubleMatrix2D(m, n, rowIndexes, columnIndexes, values, false, false, false);
+            S.sortRowIndexes();
+            SparseCCDoubleMatrix2D U = new SparseCCDoubleMatrix2D(m, n, rowIndexes, columnIndexes, values, false, false, true);
+            assertTrue(java.util.Arrays.equals(S.getColumnPointers(), U.getColumnPointers()));
+            S.removeDuplicates();
+            U.removeDuplicates();
+            assertTrue(java.util.Arrays.equals(S.getColumnPointers(), U.getColumnPointers()));
+            int size = S.getColumnPointers()[S.getColumnPointers().length - 1];
+            for (int k = 0; k < size; k++) {
+                assertEquals(S.getRowIndexes()[k], U.getRowIndexes()[k]);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+    }
+
+    public void testZMultSkewed() {
+        int m = 1003;
+        int n = 1001;
+        double alpha = 3;
+        double beta = 5;
+        // one dense row, one dense column and many short rows and columns
+        SparseCCDoubleMatrix2D AA = new SparseCCDoubleMatrix2D(m, n);
+        DenseDoubleMatrix2D D = new DenseDoubleMatrix2D(m, n);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                if (r == 7 || c == 11 || random.nextInt(n) == 0) {
+                    double v = random.nextDouble();
+                    AA.setQuick(r, c, v);
+                    D.setQuick(r, c, v);
+                }
+            }
+        }
+        assertTrue(DoubleSpMV.Partition.create(AA.getColumnPointers(), n, 4).mergePath);
+        DoubleMatrix1D y = new DenseDoubleMatrix1D(2 * n).viewStrides(2);
+        DoubleMatrix1D yt = new DenseDoubleMatrix1D(m);
+        for (int i = 0; i < n; i++) {
+            y.setQuick(i, random.nextDouble());
+        }
+        for (int i = 0; i < m; i++) {
+            yt.setQuick(i, random.nextDouble());
+        }
+        DoubleMatrix1D z0 = new DenseDoubleMatrix1D(m).assign(yt);
+        DoubleMatrix1D zt0 = new DenseDoubleMatrix1D(n).assign(y);
+        for (int pass = 0; pass < 2; pass++) {
+            DoubleMatrix1D expected = D.zMult(y, z0.copy(), alpha, beta, false);
+            DoubleMatrix1D expectedt = D.zMult(yt, zt0.copy(), alpha, beta, true);
+            for (int nthreads = 1; nthreads <= 4; nthreads += 3) {
+                Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(nthreads);
+                DoubleMatrix1D z = AA.zMult(y, z0.copy(), alpha, beta, false);
+                DoubleMatrix1D zt = AA.zMult(yt, zt0.copy(), alpha, beta, true);
+                ConcurrencyUtils.restoreThreadScope(scope);
+                for (int i = 0; i < m; i++) {
+                    assertEquals(expected.getQuick(i), z.getQuick(i), TOL);
+                }
+                for (int i = 0; i < n; i++) {
+                    assertEquals(expectedt.getQuick(i), zt.getQuick(i), TOL);
+                }
+            }
+            // changing the structure must invalidate the cached partition
+            for (int c = 0; c < n; c++) {
+                AA.setQuick(500, c, 1);
+                D.setQuick(500, c, 1);
+            }
+        }
+    }
+
     //    public void testZMultDoubleMatrix2DDoubleMatrix2DDoubleDoubleBooleanBoolean() {
     //
     //        double alpha = 2;
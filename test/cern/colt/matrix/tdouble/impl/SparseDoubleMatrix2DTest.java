@@ -3,6 +3,7 @@ package cern.colt.matrix.tdouble.impl;
 import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.DoubleMatrix2DTest;
 import cern.jet.math.tdouble.DoubleFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 public class SparseDoubleMatrix2DTest extends DoubleMatrix2DTest {
 
@@ -41,6 +42,80 @@ public class SparseDoubleMatrix2DTest extends DoubleMatrix2DTest {
         }
     }
 
+    public void testBuilder() throws Exception {
+        final int m = 311;
+        final int n = 207;
+        final int nthreads = 4;
+        final SparseDoubleMatrix2DBuilder builder = new SparseDoubleMatrix2DBuilder(m, n);
+        final DoubleMatrix2D[] expected = new DoubleMatrix2D[nthreads];
+        Thread[] threads = new Thread[nthreads];
+        for (int t = 0; t < nthreads; t++) {
+            final int part = t;
+            expected[t] = new DenseDoubleMatrix2D(m, n);
+            threads[t] = new Thread() {
+                public void run() {
+                    java.util.Random r = new java.util.Random(part);
+                    for (int k = 0; k < 20000; k++) {
+                        int row = r.nextInt(m);
+                        int column = r.nextInt(n / 4) * 4 + part % 2;
+                        double value = r.nextInt(10) - 4;
+                        builder.add(row, column, value);
+                        expected[part].setQuick(row, column, expected[part].getQuick(row, column) + value);
+                    }
+                    // cells summing up to zero are not stored
+                    builder.add(part, 3, 1.5);
+                    builder.add(part, 3, -1.5);
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < nthreads; t++) {
+            threads[t].join();
+        }
+        for (int t = 1; t < nthreads; t++) {
+            expected[0].assign(expected[t], DoubleFunctions.plus);
+        }
+        assertEquals(nthreads * 20002, builder.size());
+        for (int concurrency : new int[] { 1, nthreads }) {
+            Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(concurrency);
+            try {
+                for (boolean sort : new boolean[] { false, true }) {
+                    SparseRCDoubleMatrix2D R = builder.getRowCompressed(sort);
+                    SparseCCDoubleMatrix2D C = builder.getColumnCompressed(sort);
+                    assertEquals(expected[0].cardinality(), R.cardinality());
+                    assertEquals(expected[0].cardinality(), C.cardinality());
+                    for (int r = 0; r < m; r++) {
+                        for (int c = 0; c < n; c++) {
+                            assertEquals(expected[0].getQuick(r, c), R.getQuick(r, c), 0);
+                            assertEquals(expected[0].getQuick(r, c), C.getQuick(r, c), 0);
+                        }
+                    }
+                    if (sort) {
+                        int[] p = R.getRowPointers();
+                        int[] j = R.getColumnIndexes();
+                        for (int r = 0; r < m; r++) {
+                            for (int k = p[r] + 1; k < p[r + 1]; k++) {
+                                assertTrue(j[k - 1] < j[k]);
+                            }
+                        }
+                        p = C.getColumnPointers();
+                        int[] i = C.getRowIndexes();
+                        for (int c = 0; c < n; c++) {
+                            for (int k = p[c] + 1; k < p[c + 1]; k++) {
+                                assertTrue(i[k - 1] < i[k]);
+                            }
+                        }
+                    }
+                }
+            } finally {
+                ConcurrencyUtils.restoreThreadScope(scope);
+            }
+        }
+        builder.clear();
+        assertEquals(0, builder.size());
+        assertEquals(0, builder.getRowCompressed(true).cardinality());
+    }
+
     public void testGetRowCompressedModified() {
         int SIZE = A.rows() * A.columns();
         int[] rowindexes = new int[SIZE];
@@ -1,6 +1,10 @@
 package cern.colt.matrix.tdouble.impl;
 
+import cern.colt.matrix.tdouble.DoubleMatrix1D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
 import cern.colt.matrix.tdouble.DoubleMatrix2DTest;
+import cern.jet.math.tdouble.DoubleFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 public class SparseRCDoubleMatrix2DTest extends DoubleMatrix2DTest {
 
@@ -14,6 +18,262 @@ public class SparseRCDoubleMatrix2DTest extends DoubleMatrix2DTest {
         Bt = new SparseRCDoubleMatrix2D(NCOLUMNS, NROWS);
     }
 
+    public void testZMultDense() {
+        int m = 301;
+        int n = 67;
+        int k = 199;
+        double alpha = 3;
+        double beta = 5;
+        // the first rows are much denser than the others
+        SparseRCDoubleMatrix2D AA = new SparseRCDoubleMatrix2D(m, k);
+        SparseRCDoubleMatrix2D AAt = new SparseRCDoubleMatrix2D(k, m);
+        for (int r = 0; r < m; r++) {
+            double density = (r < 20) ? 0.8 : 0.05;
+            for (int c = 0; c < k; c++) {
+                if (random.nextDouble() < density) {
+                    double v = random.nextDouble();
+                    AA.setQuick(r, c, v);
+                    AAt.setQuick(c, r, v);
+                }
+            }
+        }
+        DoubleMatrix2D BB = new DenseDoubleMatrix2D(k, n);
+        DoubleMatrix2D BBt = new DenseColumnDoubleMatrix2D(n + 2, k + 3).viewPart(2, 3, n, k);
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < n; c++) {
+                double v = random.nextDouble();
+                BB.setQuick(r, c, v);
+                BBt.setQuick(c, r, v);
+            }
+        }
+        DoubleMatrix2D C0 = new DenseDoubleMatrix2D(m, n);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                C0.setQuick(r, c, random.nextDouble());
+            }
+        }
+        double[][] expected = new double[m][n];
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                double s = 0;
+                for (int i = 0; i < k; i++) {
+                    s += AA.getQuick(r, i) * BB.getQuick(i, c);
+                }
+                expected[r][c] = s * alpha + C0.getQuick(r, c) * beta;
+            }
+        }
+        for (int nthreads : new int[] { 1, 4, 16 }) {
+            Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(nthreads);
+            DoubleMatrix2D[] results = new DoubleMatrix2D[4];
+            results[0] = AA.zMult(BB, C0.copy(), alpha, beta, false, false);
+            results[1] = AAt.zMult(BBt, C0.copy(), alpha, beta, true, true);
+            results[2] = AA.zMult(BBt, new DenseColumnDoubleMatrix2D(m, n).assign(C0), alpha, beta, false, true);
+            results[3] = AAt.zMult(BB, new DenseDoubleMatrix2D(n, m).viewDice().assign(C0), alpha, beta, true,
+                    false);
+            ConcurrencyUtils.restoreThreadScope(scope);
+            for (int i = 0; i < results.length; i++) {
+                for (int r = 0; r < m; r++) {
+                    for (int c = 0; c < n; c++) {
+                        assertEquals(expected[r][c], results[i].getQuick(r, c), TOL);
+                    }
+                }
+            }
+        }
+    }
+
+    public void testZMultSparse() {
+        int m = 97;
+        int n = 83;
+        int k = 71;
+        double alpha = 3;
+        SparseRCDoubleMatrix2D AA = new SparseRCDoubleMatrix2D(m, k);
+        SparseRCDoubleMatrix2D AAt = new SparseRCDoubleMatrix2D(k, m);
+        SparseRCDoubleMatrix2D BB = new SparseRCDoubleMatrix2D(k, n);
+        SparseRCDoubleMatrix2D BBt = new SparseRCDoubleMatrix2D(n, k);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < k; c++) {
+                if (random.nextDouble() < 0.1) {
+                    double v = random.nextDouble();
+                    AA.setQuick(r, c, v);
+                    AAt.setQuick(c, r, v);
+                }
+            }
+        }
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < n; c++) {
+                if (random.nextDouble() < 0.1) {
+                    double v = random.nextDouble();
+                    BB.setQuick(r, c, v);
+                    BBt.setQuick(c, r, v);
+                }
+            }
+        }
+        double[][] expected = new double[m][n];
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                double s = 0;
+                for (int i = 0; i < k; i++) {
+                    s += AA.getQuick(r, i) * BB.getQuick(i, c);
+                }
+                expected[r][c] = s * alpha;
+            }
+        }
+        for (int nthreads = 1; nthreads <= 4; nthreads += 3) {
+            Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(nthreads);
+            DoubleMatrix2D[] results = new DoubleMatrix2D[4];
+            results[0] = AA.zMult(BB, null, alpha, 0, false, false);
+            results[1] = AAt.zMult(BBt, null, alpha, 0, true, true);
+            results[2] = AA.zMult(BBt, null, alpha, 0, false, true);
+            results[3] = AAt.zMult(BB, new SparseRCDoubleMatrix2D(m, n), alpha, 0, true, false);
+            ConcurrencyUtils.restoreThreadScope(scope);
+            for (int i = 0; i < results.length; i++) {
+                assertTrue(((SparseRCDoubleMatrix2D) results[i]).hasColumnIndexesSorted());
+                for (int r = 0; r < m; r++) {
+                    for (int c = 0; c < n; c++) {
+                        assertEquals(expected[r][c], results[i].getQuick(r, c), TOL);
+                    }
+                }
+            }
+        }
+        // same patterns, new values
+        SparseRCDoubleMatrix2D CC = (SparseRCDoubleMatrix2D) AA.zMult(BB, null, alpha, 0, false, false);
+        AA.assign(DoubleFunctions.mult(2));
+        AA.zMultNumeric(BB, CC, alpha, false, false);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                assertEquals(2 * expected[r][c], CC.getQuick(r, c), TOL);
+            }
+        }
+        try {
+            AA.zMultNumeric(BB, new SparseRCDoubleMatrix2D(m, n), alpha, false, false);
+            fail();
+        } catch (IllegalArgumentException exc) {
+        }
+    }
+
+    public void testCoordinatesConcurrent() {
+        int m = 301;
+        int n = 203;
+        int nnz = 20000;
+        int[] rowIndexes = new int[nnz];
+        int[] columnIndexes = new int[nnz];
+        double[] values = new double[nnz];
+        java.util.Random r = new java.util.Random(7);
+        for (int k = 0; k < nnz; k++) {
+            rowIndexes[k] = r.nextInt(m);
+            columnIndexes[k] = r.nextInt(n);
+            values[k] = r.nextInt(5) - 2;
+        }
+        boolean[][] flags = { { false, false, false }, { true, false, false }, { true, true, false },
+                { false, false, true }, { true, true, true } };
+        for (boolean[] f : flags) {
+            SparseRCDoubleMatrix2D[] results = new SparseRCDoubleMatrix2D[2];
+            SparseRCDoubleMatrix2D[] transposes = new SparseRCDoubleMatrix2D[2];
+            int[] concurrency = { 1, 4 };
+            for (int c = 0; c < 2; c++) {
+                Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(concurrency[c]);
+                try {
+                    results[c] = new SparseRCDoubleMatrix2D(m, n, rowIndexes, columnIndexes, values, f[0], f[1], f[2]);
+                    transposes[c] = results[c].getTranspose();
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(scope);
+                }
+            }
+            assertEquals(f[2], results[1].hasColumnIndexesSorted());
+            for (int t = 0; t < 2; t++) {
+                SparseRCDoubleMatrix2D S = (t == 0) ? results[0] : transposes[0];
+                SparseRCDoubleMatrix2D P = (t == 0) ? results[1] : transposes[1];
+                assertTrue(java.util.Arrays.equals(S.getRowPointers(), P.getRowPointers()));
+                int size = S.getRowPointers()[S.getRowPointers().length - 1];
+                for (int k = 0; k < size; k++) {
+                    assertEquals(S.getColumnIndexes()[k], P.getColumnIndexes()[k]);
+                    assertEquals(S.getValues()[k], P.getValues()[k], 0);
+                }
+            }
+            if (f[0]) {
+                DoubleMatrix2D expected = new DenseDoubleMatrix2D(m, n);
+                for (int k = 0; k < nnz; k++) {
+                    expected.setQuick(rowIndexes[k], columnIndexes[k], expected.getQuick(rowIndexes[k],
+                            columnIndexes[k])
+                            + values[k]);
+                }
+                for (int i = 0; i < m; i++) {
+                    for (int j = 0; j < n; j++) {
+                        assertEquals(expected.getQuick(i, j), results[1].getQuick(i, j), 0);
+                        assertEquals(expected.getQuick(i, j), transposes[1].getQuick(j, i), 0);
+                    }
+                }
+            }
+        }
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            SparseRCDoubleMatrix2D S = new SparseRCDoubleMatrix2D(m, n, rowIndexes, columnIndexes, values, false, false, false);
+            S.sortColumnIndexes();
+            SparseRCDoubleMatrix2D U = new SparseRCDoubleMatrix2D(m, n, rowIndexes, columnIndexes, values, false, false, true);
+            assertTrue(java.util.Arrays.equals(S.getRowPointers(), U.getRowPointers()));
+            S.removeDuplicates();
+            U.removeDuplicates();
+            assertTrue(java.util.Arrays.equals(S.getRowPointers(), U.getRowPointers()));
+            int size = S.getRowPointers()[S.getRowPointers().length - 1];
+            for (int k = 0; k < size; k++) {
+                assertEquals(S.getColumnIndexes()[k], U.getColumnIndexes()[k]);
+            }
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+    }
+
+    public void testZMultSkewed() {
+        int m = 1003;
+        int n = 1001;
+        double alpha = 3;
+        double beta = 5;
+        // one dense row, one dense column and many short rows and columns
+        SparseRCDoubleMatrix2D AA = new SparseRCDoubleMatrix2D(m, n);
+        DenseDoubleMatrix2D D = new DenseDoubleMatrix2D(m, n);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                if (r == 7 || c == 11 || random.nextInt(n) == 0) {
+                    double v = random.nextDouble();
+                    AA.setQuick(r, c, v);
+                    D.setQuick(r, c, v);
+                }
+            }
+        }
+        assertTrue(DoubleSpMV.Partition.create(AA.getRowPointers(), m, 4).mergePath);
+        DoubleMatrix1D y = new DenseDoubleMatrix1D(2 * n).viewStrides(2);
+        DoubleMatrix1D yt = new DenseDoubleMatrix1D(m);
+        for (int i = 0; i < n; i++) {
+            y.setQuick(i, random.nextDouble());
+        }
+        for (int i = 0; i < m; i++) {
+            yt.setQuick(i, random.nextDouble());
+        }
+        DoubleMatrix1D z0 = new DenseDoubleMatrix1D(m).assign(yt);
+        DoubleMatrix1D zt0 = new DenseDoubleMatrix1D(n).assign(y);
+        for (int pass = 0; pass < 2; pass++) {
+            DoubleMatrix1D expected = D.zMult(y, z0.copy(), alpha, beta, false);
+            DoubleMatrix1D expectedt = D.zMult(yt, zt0.copy(), alpha, beta, true);
+            for (int nthreads = 1; nthreads <= 4; nthreads += 3) {
+                Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(nthreads);
+                DoubleMatrix1D z = AA.zMult(y, z0.copy(), alpha, beta, false);
+                DoubleMatrix1D zt = AA.zMult(yt, zt0.copy(), alpha, beta, true);
+                ConcurrencyUtils.restoreThreadScope(scope);
+                for (int i = 0; i < m; i++) {
+                    assertEquals(expected.getQuick(i), z.getQuick(i), TOL);
+                }
+                for (int i = 0; i < n; i++) {
+                    assertEquals(expectedt.getQuick(i), zt.getQuick(i), TOL);
+                }
+            }
+            // changing the structure must invalidate the cached partition
+            for (int c = 0; c < n; c++) {
+                AA.setQuick(500, c, 1);
+                D.setQuick(500, c, 1);
+            }
+        }
+    }
+
     //    public void testZMultDoubleMatrix2DDoubleMatrix2DDoubleDoubleBooleanBoolean() {
     //        double alpha = 2;
     //        double beta = 5;
@@ -17,6 +17,10 @@ import cern.colt.matrix.tfloat.impl.DenseLargeFloatMatrix3DTest;
 import cern.colt.matrix.tfloat.impl.DenseLargeFloatMatrix3DViewTest;
 import cern.colt.matrix.tfloat.impl.DiagonalFloatMatrix2DTest;
 import cern.colt.matrix.tfloat.impl.DiagonalFloatMatrix2DViewTest;
+import cern.colt.matrix.tfloat.impl.MappedFloatMatrix2DTest;
+import cern.colt.matrix.tfloat.impl.MappedFloatMatrix2DViewTest;
+import cern.colt.matrix.tfloat.impl.MappedFloatMatrix3DTest;
+import cern.colt.matrix.tfloat.impl.MappedFloatMatrix3DViewTest;
 import cern.colt.matrix.tfloat.impl.SparseCCFloatMatrix2DTest;
 import cern.colt.matrix.tfloat.impl.SparseCCFloatMatrix2DViewTest;
 import cern.colt.matrix.tfloat.impl.SparseCCMFloatMatrix2DTest;
@@ -47,6 +51,8 @@ public class AllFloatMatrixTests {
         suite.addTestSuite(DenseColumnFloatMatrix2DViewTest.class);
         suite.addTestSuite(DenseLargeFloatMatrix2DTest.class);
         suite.addTestSuite(DenseLargeFloatMatrix2DViewTest.class);
+        suite.addTestSuite(MappedFloatMatrix2DTest.class);
+        suite.addTestSuite(MappedFloatMatrix2DViewTest.class);
 
         suite.addTestSuite(SparseFloatMatrix2DTest.class);
         suite.addTestSuite(SparseFloatMatrix2DViewTest.class);
@@ -69,6 +75,8 @@ public class AllFloatMatrixTests {
         suite.addTestSuite(SparseFloatMatrix3DViewTest.class);
         suite.addTestSuite(DenseLargeFloatMatrix3DTest.class);
         suite.addTestSuite(DenseLargeFloatMatrix3DViewTest.class);
+        suite.addTestSuite(MappedFloatMatrix3DTest.class);
+        suite.addTestSuite(MappedFloatMatrix3DViewTest.class);
 
         suite.addTest(AllFloatMatrixSolverTests.suite());
         return suite;
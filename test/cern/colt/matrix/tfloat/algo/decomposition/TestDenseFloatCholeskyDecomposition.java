@@ -0,0 +1,84 @@
+package cern.colt.matrix.tfloat.algo.decomposition;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import cern.colt.matrix.tfloat.FloatMatrix2D;
+import cern.colt.matrix.tfloat.algo.DenseFloatAlgebra;
+import cern.colt.matrix.tfloat.impl.DenseColumnFloatMatrix2D;
+import cern.colt.matrix.tfloat.impl.DenseFloatMatrix2D;
+import cern.jet.math.tfloat.FloatFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+public class TestDenseFloatCholeskyDecomposition {
+
+    public static void main(String[] args) {
+        int nb = FloatTileMatrix.TILE_SIZE;
+        int[] sizes = { 1, nb - 1, nb + 3, 2 * nb + 37 };
+        float eps = 1e-4f;
+        boolean passed = true;
+        for (int N : sizes) {
+            for (int layout = 0; layout < 2; layout++) {
+                Random r = new Random(N);
+                FloatMatrix2D parent = layout == 0 ? new DenseFloatMatrix2D(N + 3, N + 5)
+                        : new DenseColumnFloatMatrix2D(N + 3, N + 5);
+                FloatMatrix2D A = parent.viewPart(2, 3, N, N);
+                for (int i = 0; i < N; i++) {
+                    for (int j = 0; j <= i; j++) {
+                        float value = 0.5f - r.nextFloat();
+                        A.setQuick(i, j, value);
+                        A.setQuick(j, i, value);
+                    }
+                    A.setQuick(i, i, A.getQuick(i, i) + N);
+                }
+
+                /* positive definite views are factored by the tiled algorithm */
+                DenseFloatCholeskyDecomposition serial;
+                Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(1);
+                try {
+                    serial = new DenseFloatCholeskyDecomposition(A);
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(scope);
+                }
+                FloatMatrix2D L = serial.getL();
+                passed &= serial.isSymmetricPositiveDefinite();
+                passed &= residual(A, L.zMult(L, null, 1, 0, false, true)) < eps;
+                scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+                try {
+                    passed &= Arrays.deepEquals(L.toArray(), new DenseFloatCholeskyDecomposition(A).getL().toArray());
+
+                    /*
+                     * a matrix that is not positive definite falls back to the
+                     * loop, which keeps the partial decomposition
+                     */
+                    A.setQuick(N - 1, N - 1, -1);
+                    DenseFloatCholeskyDecomposition partial = new DenseFloatCholeskyDecomposition(A);
+                    FloatMatrix2D Lp = partial.getL();
+                    passed &= !partial.isSymmetricPositiveDefinite();
+                    passed &= Lp.getQuick(N - 1, N - 1) == 0;
+                    if (N > 1) {
+                        FloatMatrix2D lead = L.viewPart(0, 0, N - 1, N);
+                        passed &= residual(lead, Lp.viewPart(0, 0, N - 1, N)) < eps;
+                    }
+
+                    /* so does a matrix that is not symmetric */
+                    A.setQuick(N - 1, N - 1, N);
+                    A.setQuick(0, N - 1, A.getQuick(0, N - 1) + 1);
+                    passed &= N == 1 || !new DenseFloatCholeskyDecomposition(A).isSymmetricPositiveDefinite();
+                } finally {
+                    ConcurrencyUtils.restoreThreadScope(scope);
+                }
+            }
+        }
+        if (passed) {
+            System.out.print(" ---- FloatCholeskyFactorization tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- FloatCholeskyFactorization tests... FAILED !\n");
+        }
+    }
+
+    private static float residual(FloatMatrix2D A, FloatMatrix2D B) {
+        FloatMatrix2D R = A.copy().assign(B, FloatFunctions.minus);
+        return DenseFloatAlgebra.DEFAULT.normInfinity(R) / DenseFloatAlgebra.DEFAULT.normInfinity(A);
+    }
+}
@@ -224,4 +224,58 @@ public class DenseFloatMatrix2DTest extends FloatMatrix2DTest {
         }
     }
 
+    public void testZMultBlocked() {
+        int m = 211;
+        int n = 197;
+        int k = 113;
+        float alpha = 3;
+        float beta = 5;
+        FloatMatrix2D AA = new DenseFloatMatrix2D(m, k);
+        FloatMatrix2D AAt = new DenseColumnFloatMatrix2D(k, m);
+        FloatMatrix2D BB = new DenseColumnFloatMatrix2D(k, n);
+        FloatMatrix2D BBt = new DenseFloatMatrix2D(n + 3, k + 5).viewPart(3, 5, n, k);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < k; c++) {
+                float v = random.nextFloat();
+                AA.setQuick(r, c, v);
+                AAt.setQuick(c, r, v);
+            }
+        }
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < n; c++) {
+                float v = random.nextFloat();
+                BB.setQuick(r, c, v);
+                BBt.setQuick(c, r, v);
+            }
+        }
+        FloatMatrix2D C0 = new DenseFloatMatrix2D(m, n);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                C0.setQuick(r, c, random.nextFloat());
+            }
+        }
+        float[][] expected = new float[m][n];
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                float s = 0;
+                for (int i = 0; i < k; i++) {
+                    s += AA.getQuick(r, i) * BB.getQuick(i, c);
+                }
+                expected[r][c] = s * alpha + C0.getQuick(r, c) * beta;
+            }
+        }
+        FloatMatrix2D[] results = new FloatMatrix2D[4];
+        results[0] = AA.zMult(BB, C0.copy(), alpha, beta, false, false);
+        results[1] = AAt.zMult(BBt, C0.copy(), alpha, beta, true, true);
+        results[2] = AA.zMult(BBt, new DenseColumnFloatMatrix2D(m, n).assign(C0), alpha, beta, false, true);
+        results[3] = AAt.zMult(BB, new DenseFloatMatrix2D(n, m).viewDice().assign(C0), alpha, beta, true, false);
+        for (int i = 0; i < results.length; i++) {
+            for (int r = 0; r < m; r++) {
+                for (int c = 0; c < n; c++) {
+                    assertEquals(expected[r][c], results[i].getQuick(r, c), TOL);
+                }
+            }
+        }
+    }
+
 }
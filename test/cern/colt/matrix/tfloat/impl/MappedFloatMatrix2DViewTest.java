@@ -0,0 +1,14 @@
+package cern.colt.matrix.tfloat.impl;
+
+public class MappedFloatMatrix2DViewTest extends MappedFloatMatrix2DTest {
+
+    public MappedFloatMatrix2DViewTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void createMatrices() throws Exception {
+        A = new MappedFloatMatrix2D(NCOLUMNS, NROWS).viewDice();
+        B = new MappedFloatMatrix2D(NCOLUMNS, NROWS).viewDice();
+        Bt = new MappedFloatMatrix2D(NROWS, NCOLUMNS).viewDice();
+    }
+}
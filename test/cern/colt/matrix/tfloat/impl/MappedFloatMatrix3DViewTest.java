@@ -0,0 +1,13 @@
+package cern.colt.matrix.tfloat.impl;
+
+public class MappedFloatMatrix3DViewTest extends MappedFloatMatrix3DTest {
+
+    public MappedFloatMatrix3DViewTest(String arg0) {
+        super(arg0);
+    }
+
+    protected void createMatrices() throws Exception {
+        A = new MappedFloatMatrix3D(NCOLUMNS, NROWS, NSLICES).viewDice(2, 1, 0);
+        B = new MappedFloatMatrix3D(NCOLUMNS, NROWS, NSLICES).viewDice(2, 1, 0);
+    }
+}
@@ -1,6 +1,9 @@
 package cern.colt.matrix.tfloat.impl;
 
+import cern.colt.matrix.tfloat.FloatMatrix2D;
 import cern.colt.matrix.tfloat.FloatMatrix2DTest;
+import cern.jet.math.tfloat.FloatFunctions;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
 
 public class SparseCCFloatMatrix2DTest extends FloatMatrix2DTest {
 
@@ -14,6 +17,76 @@ public class SparseCCFloatMatrix2DTest extends FloatMatrix2DTest {
         Bt = new SparseCCFloatMatrix2D(NCOLUMNS, NROWS);
     }
 
+    public void testZMultSparse() {
+        int m = 97;
+        int n = 83;
+        int k = 71;
+        float alpha = 3;
+        SparseCCFloatMatrix2D AA = new SparseCCFloatMatrix2D(m, k);
+        SparseCCFloatMatrix2D AAt = new SparseCCFloatMatrix2D(k, m);
+        SparseCCFloatMatrix2D BB = new SparseCCFloatMatrix2D(k, n);
+        SparseCCFloatMatrix2D BBt = new SparseCCFloatMatrix2D(n, k);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < k; c++) {
+                if (random.nextDouble() < 0.1) {
+                    float v = random.nextFloat();
+                    AA.setQuick(r, c, v);
+                    AAt.setQuick(c, r, v);
+                }
+            }
+        }
+        for (int r = 0; r < k; r++) {
+            for (int c = 0; c < n; c++) {
+                if (random.nextDouble() < 0.1) {
+                    float v = random.nextFloat();
+                    BB.setQuick(r, c, v);
+                    BBt.setQuick(c, r, v);
+                }
+            }
+        }
+        float[][] expected = new float[m][n];
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                float s = 0;
+                for (int i = 0; i < k; i++) {
+                    s += AA.getQuick(r, i) * BB.getQuick(i, c);
+                }
+                expected[r][c] = s * alpha;
+            }
+        }
+        for (int nthreads = 1; nthreads <= 4; nthreads += 3) {
+            Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(nthreads);
+            FloatMatrix2D[] results = new FloatMatrix2D[4];
+            results[0] = AA.zMult(BB, null, alpha, 0, false, false);
+            results[1] = AAt.zMult(BBt, null, alpha, 0, true, true);
+            results[2] = AA.zMult(BBt, null, alpha, 0, false, true);
+            results[3] = AAt.zMult(BB, new SparseCCFloatMatrix2D(m, n), alpha, 0, true, false);
+            ConcurrencyUtils.restoreThreadScope(scope);
+            for (int i = 0; i < results.length; i++) {
+                assertTrue(((SparseCCFloatMatrix2D) results[i]).hasRowIndexesSorted());
+                for (int r = 0; r < m; r++) {
+                    for (int c = 0; c < n; c++) {
+                        assertEquals(expected[r][c], results[i].getQuick(r, c), TOL);
+                    }
+                }
+            }
+        }
+        // same patterns, new values
+        SparseCCFloatMatrix2D CC = (SparseCCFloatMatrix2D) AA.zMult(BB, null, alpha, 0, false, false);
+        AA.assign(FloatFunctions.mult(2));
+        AA.zMultNumeric(BB, CC, alpha, false, false);
+        for (int r = 0; r < m; r++) {
+            for (int c = 0; c < n; c++) {
+                assertEquals(2 * expected[r][c], CC.getQuick(r, c), TOL);
+            }
+        }
+        try {
+            AA.zMultNumeric(BB, new SparseCCFloatMatrix2D(m, n), alpha, false, false);
+            fail();
+        } catch (IllegalArgumentException exc) {
+        }
+    }
+
     //    public void testZMultFloatMatrix2DFloatMatrix2DFloatFloatBooleanBoolean() {
     //        float alpha = 2;
     //        float beta = 5;
@@ -0,0 +1,80 @@
+package cern.jet.random.tdouble;
+
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.impl.DenseDoubleMatrix2D;
+import cern.jet.random.tdouble.engine.DoubleMersenneTwister;
+import cern.jet.random.tdouble.engine.SplitMix64;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+public class TestBulkSampling {
+    public static void main(String[] args) {
+        boolean passed = true;
+        int n = 100000;
+
+        /* bulk methods draw the same numbers as the single ones */
+        double[] a = new double[n];
+        double[] b = new double[n];
+        DoubleUniform uniform = new DoubleUniform(-1, 3, new DoubleMersenneTwister(5));
+        uniform.nextDoubles(a, 0, n);
+        uniform = new DoubleUniform(-1, 3, new DoubleMersenneTwister(5));
+        for (int i = 0; i < n; i++) {
+            b[i] = uniform.nextDouble();
+        }
+        passed &= java.util.Arrays.equals(a, b);
+        Exponential exponential = new Exponential(2, new SplitMix64(5));
+        exponential.nextDoubles(a, 0, n);
+        exponential = new Exponential(2, new SplitMix64(5));
+        for (int i = 0; i < n; i++) {
+            b[i] = exponential.nextDouble();
+        }
+        passed &= java.util.Arrays.equals(a, b);
+        double[] pdf = { 0.1, 0.4, 0.2, 0.3 };
+        int[] k1 = new int[n];
+        int[] k2 = new int[n];
+        EmpiricalWalker walker = new EmpiricalWalker(pdf, Empirical.NO_INTERPOLATION, new DoubleMersenneTwister(5));
+        walker.nextInts(k1, 0, n);
+        walker = new EmpiricalWalker(pdf, Empirical.NO_INTERPOLATION, new DoubleMersenneTwister(5));
+        for (int i = 0; i < n; i++) {
+            k2[i] = walker.nextInt();
+        }
+        passed &= java.util.Arrays.equals(k1, k2);
+
+        /* moments of the Ziggurat normals, and of the tail beyond the base layer */
+        int m = 4000000;
+        double[] z = new double[m];
+        new Normal(1, 2, new SplitMix64(9)).nextDoubles(z, 0, m);
+        double sum = 0, sum2 = 0, tail = 0;
+        for (int i = 0; i < m; i++) {
+            double x = (z[i] - 1) / 2;
+            sum += x;
+            sum2 += x * x;
+            if (Math.abs(x) > 3.442619855899) {
+                tail++;
+            }
+        }
+        double mean = sum / m;
+        double variance = sum2 / m - mean * mean;
+        passed &= Math.abs(mean) < 0.003 && Math.abs(variance - 1) < 0.005;
+        passed &= Math.abs(tail / m - 5.761e-4) < 0.5e-4;
+
+        /* parallel results only depend on the generator, not on the threads */
+        DoubleMatrix2D A1 = new Normal(0, 1, new SplitMix64(3)).fill(new DenseDoubleMatrix2D(300, 400), true);
+        DoubleMatrix2D A2, B1, B2;
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            A2 = new Normal(0, 1, new SplitMix64(3)).fill(new DenseDoubleMatrix2D(300, 400), true);
+            B1 = new Normal(0, 1, new SplitMix64(3)).fill(new DenseDoubleMatrix2D(400, 300).viewDice(), true);
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+        B2 = new Normal(0, 1, new SplitMix64(3)).fill(new DenseDoubleMatrix2D(300, 400));
+        passed &= A1.equals(A2) && A1.equals(B1) && !A1.equals(B2);
+        passed &= Math.abs(A1.zSum() / A1.size()) < 0.01;
+
+        if (passed) {
+            System.out.print(" ---- Bulk sampling tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- Bulk sampling tests... FAILED !\n");
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package cern.jet.random.tdouble.engine;
+
+import java.util.Arrays;
+
+import cern.jet.random.tdouble.DoubleUniform;
+import cern.jet.random.tdouble.Gamma;
+import cern.jet.random.tdouble.NegativeBinomial;
+import cern.jet.random.tdouble.Normal;
+import cern.jet.random.tdouble.Poisson;
+import cern.jet.random.tfloat.FloatUniform;
+
+public class TestRandomStreams {
+    public static void main(String[] args) throws InterruptedException {
+        boolean passed = true;
+        int n = 10000;
+        RandomStreams.setSeed(42);
+
+        /* the static methods draw from the stream of the thread */
+        RandomStreams.setStream(3);
+        double[] a = new double[n];
+        for (int i = 0; i < n; i++) {
+            a[i] = Gamma.staticNextDouble(2.0, 1.0);
+        }
+        Gamma gamma = new Gamma(2.0, 1.0, RandomStreams.stream(42, 3));
+        for (int i = 0; i < n; i++) {
+            passed &= a[i] == gamma.nextDouble();
+        }
+
+        /* selecting a stream or changing the seed restarts it */
+        passed &= Arrays.equals(draw(3), draw(3)) && !Arrays.equals(draw(3), draw(4));
+        double[] b = draw(5);
+        RandomStreams.setSeed(43);
+        double[] c = draw(5);
+        RandomStreams.setSeed(42);
+        passed &= !Arrays.equals(b, c) && Arrays.equals(b, draw(5));
+
+        /* threads get the numbers of their streams, without locks */
+        final double[][] parallel = new double[4][];
+        Thread[] threads = new Thread[parallel.length];
+        for (int t = 0; t < threads.length; t++) {
+            final int stream = t;
+            threads[t] = new Thread() {
+                public void run() {
+                    parallel[stream] = draw(stream);
+                }
+            };
+            threads[t].start();
+        }
+        for (int t = 0; t < threads.length; t++) {
+            threads[t].join();
+            passed &= Arrays.equals(parallel[t], draw(t));
+        }
+
+        /* threads without a selected stream get different streams */
+        final long[] numbers = new long[2];
+        for (int t = 0; t < 2; t++) {
+            final int index = t;
+            Thread thread = new Thread() {
+                public void run() {
+                    numbers[index] = RandomStreams.getStream();
+                }
+            };
+            thread.start();
+            thread.join();
+        }
+        passed &= numbers[0] != numbers[1];
+
+        if (passed) {
+            System.out.print(" ---- RandomStreams tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- RandomStreams tests... FAILED !\n");
+        }
+    }
+
+    private static double[] draw(long stream) {
+        RandomStreams.setStream(stream);
+        double[] values = new double[500];
+        for (int i = 0; i < values.length; i += 5) {
+            values[i] = Normal.staticNextDouble(1.0, 2.0);
+            values[i + 1] = DoubleUniform.staticNextDoubleFromTo(-1.0, 1.0);
+            values[i + 2] = Poisson.staticNextInt(20.0);
+            values[i + 3] = NegativeBinomial.staticNextInt(5, 0.3);
+            values[i + 4] = FloatUniform.staticNextFloat();
+        }
+        return values;
+    }
+}
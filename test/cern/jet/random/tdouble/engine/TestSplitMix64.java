@@ -0,0 +1,95 @@
+package cern.jet.random.tdouble.engine;
+
+import cern.colt.matrix.tdouble.DoubleFactory2D;
+import cern.colt.matrix.tdouble.DoubleFactory3D;
+import cern.colt.matrix.tdouble.DoubleMatrix2D;
+import cern.colt.matrix.tdouble.DoubleMatrix3D;
+import cern.colt.matrix.tdouble.algo.DoubleStatistic;
+import edu.emory.mathcs.utils.ConcurrencyUtils;
+
+public class TestSplitMix64 {
+    public static void main(String[] args) {
+        boolean passed = true;
+
+        /* skip(n) is equivalent to drawing n numbers */
+        SplitMix64 a = new SplitMix64(12345);
+        SplitMix64 b = new SplitMix64(12345);
+        for (int i = 0; i < 1000; i++) {
+            a.nextLong();
+        }
+        b.skip(1000);
+        for (int i = 0; i < 1000; i++) {
+            double x = a.nextDouble();
+            passed &= x == b.nextDouble() && x > 0 && x < 1;
+        }
+
+        /* the largest and smallest longs give numbers in (0,1) */
+        for (long x : new long[] { -1L, 0L }) {
+            SplitMix64 f = new SplitMix64(unmix64(x) - 0x9e3779b97f4a7c15L);
+            SplitMix64 g = new SplitMix64(unmix64(x) - 0x9e3779b97f4a7c15L);
+            double[] y = new double[1];
+            g.raw(y, 0, 1);
+            double z = f.nextDouble();
+            passed &= z == y[0] && z > 0 && z < 1;
+        }
+
+        /* split streams differ from each other and from the parent */
+        SplitMix64 c = a.split();
+        SplitMix64 d = a.split();
+        passed &= c.nextLong() != d.nextLong() && c.nextLong() != a.nextLong();
+
+        /* parallel fills and samples only depend on the seed */
+        DoubleMatrix2D A1 = DoubleFactory2D.dense.random(500, 300, new SplitMix64(7));
+        DoubleMatrix3D B1 = DoubleFactory3D.dense.random(20, 50, 70, new SplitMix64(7));
+        DoubleMatrix2D S1 = DoubleStatistic.viewSample(A1, 0.5, 0.5, new SplitMix64(11));
+        DoubleMatrix2D A2, S2;
+        DoubleMatrix3D B2;
+        Object scope = ConcurrencyUtils.setThreadScopeNumberOfThreads(4);
+        try {
+            A2 = DoubleFactory2D.dense.random(500, 300, new SplitMix64(7));
+            B2 = DoubleFactory3D.dense.random(20, 50, 70, new SplitMix64(7));
+            S2 = DoubleStatistic.viewSample(A2, 0.5, 0.5, new SplitMix64(11));
+        } finally {
+            ConcurrencyUtils.restoreThreadScope(scope);
+        }
+        passed &= A1.equals(A2) && B1.equals(B2) && S1.equals(S2);
+
+        /* the cell [row,column] is the number row*columns + column */
+        SplitMix64 e = new SplitMix64(7);
+        e.skip(123 * 300 + 45);
+        passed &= A1.getQuick(123, 45) == e.nextDouble();
+
+        /* mean of the uniform distribution */
+        double mean = A1.zSum() / A1.size();
+        passed &= Math.abs(mean - 0.5) < 0.01;
+
+        if (passed) {
+            System.out.print(" ---- SplitMix64 tests... PASSED !\n");
+        } else {
+            System.err.print(" ---- SplitMix64 tests... FAILED !\n");
+        }
+    }
+
+    /* inverse of the output function of SplitMix64 */
+    private static long unmix64(long z) {
+        z = unxorshift(z, 31) * inverse(0x94d049bb133111ebL);
+        z = unxorshift(z, 27) * inverse(0xbf58476d1ce4e5b9L);
+        return unxorshift(z, 30);
+    }
+
+    private static long unxorshift(long z, int shift) {
+        long x = z;
+        for (int i = 0; i < 64 / shift; i++) {
+            x = z ^ (x >>> shift);
+        }
+        return x;
+    }
+
+    private static long inverse(long a) {
+        long x = a;
+        for (int i = 0; i < 5; i++) {
+            x *= 2 - a * x;
+        }
+        return x;
+    }
+}